@@ -19,6 +19,7 @@ import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
 import io.nuls.core.rpc.util.SerializeUtil;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 
@@ -200,6 +201,35 @@ public class ResponseMessageProcessor {
         return receiveResponse(responseContainer, timeOut);
     }
 
+    /**
+     * 发送Request，不等待Response，返回结果在收到Response或超时后完成
+     * Send Request without waiting, the returned future completes when the Response arrives or on timeout
+     *
+     * @param role    远程方法所属的角色，The role of remote method
+     * @param cmd     远程方法的命令，Command of the remote method
+     * @param params  远程方法所需的参数，Parameters of the remote method
+     * @param timeOut 超时时间, timeout millis
+     * @return 远程方法的返回结果，超时返回失败的Response / Response of the remote method, a failed Response on timeout
+     */
+    public static CompletableFuture<Response> requestAsync(String role, String cmd, Map params, long timeOut) {
+        Request request = MessageUtil.newRequest(cmd, params, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
+        request.setTimeOut(String.valueOf(timeOut));
+        ResponseContainer responseContainer;
+        try {
+            responseContainer = sendRequest(role, request);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String messageId = responseContainer.getMessageId();
+        return responseContainer.getFuture()
+                .completeOnTimeout(MessageUtil.newFailResponse(messageId, CommonCodeConstanst.REQUEST_TIME_OUT), timeOut, TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> RequestContainer.removeResponseContainer(messageId));
+    }
+
+    public static CompletableFuture<Response> requestAsync(String role, String cmd, Map params) {
+        return requestAsync(role, cmd, params, Constants.TIMEOUT_TIMEMILLIS);
+    }
+
     /**
      * 发送Request，并根据返回结果自动调用本地方法
      * Send the Request and automatically call the local method based on the return result
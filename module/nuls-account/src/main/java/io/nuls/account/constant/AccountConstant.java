@@ -87,6 +87,24 @@ public interface AccountConstant {
      */
     byte NORMAL_TX_LOCKED = 0;
 
+    /**
+     * 账户解锁的最长时间(秒)
+     * Maximum unlock time of an account (seconds)
+     */
+    int MAX_UNLOCK_TIME = 3600;
+
+    /**
+     * 账户解锁期间最多签名次数
+     * Maximum signatures during an unlock
+     */
+    int MAX_UNLOCK_SIGN_COUNT = 100000;
+
+    /**
+     * 批量签名一次最多签名的数据条数
+     * Maximum digests of a batch signature
+     */
+    int MAX_BATCH_SIGN_COUNT = 1000;
+
     Comparator<String> PUBKEY_COMPARATOR = new Comparator<String>() {
         private Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
 
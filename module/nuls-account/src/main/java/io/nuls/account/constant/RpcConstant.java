@@ -79,6 +79,10 @@ public interface RpcConstant {
      * 签名数据
      */
     String SIGNATURE = "signature";
+    /**
+     * 签名数据列表
+     */
+    String SIGNATURE_LIST = "signatureList";
 
 
     /**
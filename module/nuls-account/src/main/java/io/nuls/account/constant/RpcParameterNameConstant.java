@@ -140,6 +140,21 @@ public interface RpcParameterNameConstant {
      */
     String SIG = "sig";
 
+    /**
+     * the list of data hex
+     */
+    String DATA_LIST = "dataList";
+
+    /**
+     * unlock time (seconds)
+     */
+    String UNLOCK_TIME = "unlockTime";
+
+    /**
+     * maximum signatures during the unlock
+     */
+    String SIGN_COUNT = "signCount";
+
 
 
 }
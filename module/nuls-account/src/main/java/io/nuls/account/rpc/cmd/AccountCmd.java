@@ -1136,6 +1136,169 @@ public class AccountCmd extends BaseCmd {
         return success(map);
     }
 
+    /**
+     * 批量数据摘要签名
+     * batch data digest signature
+     *
+     * @param params [chainId,address,password,dataList]
+     * @return
+     */
+    @CmdAnnotation(cmd = "ac_batchSignDigest", version = 1.0, description = "批量数据摘要签名/Batch data digest signature")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
+            @Parameter(parameterName = "address", parameterType = "String", parameterDes = "账户地址"),
+            @Parameter(parameterName = "password", parameterType = "String", parameterDes = "账户密码"),
+            @Parameter(parameterName = "dataList", requestType = @TypeDescriptor(value = List.class, collectionElement = String.class), parameterDes = "待签名数据列表")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+            @Key(name = RpcConstant.SIGNATURE_LIST, valueType = List.class, valueElement = String.class, description = "签名后数据列表, 与待签名数据顺序一致")
+    }))
+    public Response batchSignDigest(Map params) {
+        Map<String, List<String>> map = new HashMap<>(AccountConstant.INIT_CAPACITY_2);
+        Chain chain = null;
+        try {
+            // check parameters
+            Preconditions.checkNotNull(params, AccountErrorCode.NULL_PARAMETER);
+            Object chainIdObj = params.get(RpcParameterNameConstant.CHAIN_ID);
+            Object addressObj = params.get(RpcParameterNameConstant.ADDRESS);
+            Object passwordObj = params.get(RpcParameterNameConstant.PASSWORD);
+            Object dataListObj = params.get(RpcParameterNameConstant.DATA_LIST);
+            if (chainIdObj == null || addressObj == null || passwordObj == null || dataListObj == null) {
+                throw new NulsRuntimeException(AccountErrorCode.NULL_PARAMETER);
+            }
+
+            // parse params
+            chain = chainManager.getChain((Integer) chainIdObj);
+            if (null == chain) {
+                throw new NulsRuntimeException(AccountErrorCode.CHAIN_NOT_EXIST);
+            }
+            //账户地址
+            String address = (String) addressObj;
+            //账户密码
+            String password = (String) passwordObj;
+            //待签名的数据, 解码为字节数组
+            List<String> dataList = (List<String>) dataListObj;
+            List<byte[]> digests = new ArrayList<>(dataList.size());
+            for (String dataStr : dataList) {
+                digests.add(RPCUtil.decode(dataStr));
+            }
+            //sign digest data
+            List<P2PHKSignature> signatures = accountService.batchSignDigest(digests, chain.getChainId(), address, password);
+            List<String> signatureList = new ArrayList<>(signatures.size());
+            try {
+                for (P2PHKSignature signature : signatures) {
+                    signatureList.add(RPCUtil.encode(signature.serialize()));
+                }
+            } catch (IOException e) {
+                throw new NulsRuntimeException(AccountErrorCode.SERIALIZE_ERROR);
+            }
+            map.put(RpcConstant.SIGNATURE_LIST, signatureList);
+        } catch (NulsRuntimeException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (NulsException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            errorLogProcess(chain, e);
+            return failed(AccountErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+        return success(map);
+    }
+
+    /**
+     * 解锁账户, 在解锁时间和签名次数内签名不再解密私钥, 签名时仍需提供密码
+     * unlock account, signatures within the unlock time and count no longer decrypt the private key
+     *
+     * @param params [chainId,address,password,unlockTime,signCount]
+     * @return
+     */
+    @CmdAnnotation(cmd = "ac_unlockAccount", version = 1.0, description = "解锁账户/Unlock account")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
+            @Parameter(parameterName = "address", parameterType = "String", parameterDes = "账户地址"),
+            @Parameter(parameterName = "password", parameterType = "String", parameterDes = "账户密码"),
+            @Parameter(parameterName = "unlockTime", requestType = @TypeDescriptor(value = int.class), parameterDes = "解锁时间(秒), 最长3600"),
+            @Parameter(parameterName = "signCount", requestType = @TypeDescriptor(value = int.class), parameterDes = "解锁期间最多签名次数, 最多100000")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+            @Key(name = RpcConstant.VALUE, valueType = Boolean.class, description = "是否解锁成功")
+    }))
+    public Response unlockAccount(Map params) {
+        Map<String, Boolean> map = new HashMap<>(AccountConstant.INIT_CAPACITY_2);
+        Chain chain = null;
+        try {
+            // check parameters
+            Preconditions.checkNotNull(params, AccountErrorCode.NULL_PARAMETER);
+            Object chainIdObj = params.get(RpcParameterNameConstant.CHAIN_ID);
+            Object addressObj = params.get(RpcParameterNameConstant.ADDRESS);
+            Object passwordObj = params.get(RpcParameterNameConstant.PASSWORD);
+            Object unlockTimeObj = params.get(RpcParameterNameConstant.UNLOCK_TIME);
+            Object signCountObj = params.get(RpcParameterNameConstant.SIGN_COUNT);
+            if (chainIdObj == null || addressObj == null || passwordObj == null || unlockTimeObj == null || signCountObj == null) {
+                throw new NulsRuntimeException(AccountErrorCode.NULL_PARAMETER);
+            }
+            chain = chainManager.getChain((Integer) chainIdObj);
+            if (null == chain) {
+                throw new NulsRuntimeException(AccountErrorCode.CHAIN_NOT_EXIST);
+            }
+            accountService.unlockAccount(chain.getChainId(), (String) addressObj, (String) passwordObj,
+                    (Integer) unlockTimeObj, (Integer) signCountObj);
+            map.put(RpcConstant.VALUE, true);
+        } catch (NulsRuntimeException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (NulsException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            errorLogProcess(chain, e);
+            return failed(AccountErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+        return success(map);
+    }
+
+    /**
+     * 锁定账户, 清除解锁时缓存的私钥
+     * lock account, wipe the private key cached by the unlock
+     *
+     * @param params [chainId,address]
+     * @return
+     */
+    @CmdAnnotation(cmd = "ac_lockAccount", version = 1.0, description = "锁定账户/Lock account")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
+            @Parameter(parameterName = "address", parameterType = "String", parameterDes = "账户地址")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+            @Key(name = RpcConstant.VALUE, valueType = Boolean.class, description = "账户之前是否处于解锁状态")
+    }))
+    public Response lockAccount(Map params) {
+        Map<String, Boolean> map = new HashMap<>(AccountConstant.INIT_CAPACITY_2);
+        Chain chain = null;
+        try {
+            // check parameters
+            Preconditions.checkNotNull(params, AccountErrorCode.NULL_PARAMETER);
+            Object chainIdObj = params.get(RpcParameterNameConstant.CHAIN_ID);
+            Object addressObj = params.get(RpcParameterNameConstant.ADDRESS);
+            if (chainIdObj == null || addressObj == null) {
+                throw new NulsRuntimeException(AccountErrorCode.NULL_PARAMETER);
+            }
+            chain = chainManager.getChain((Integer) chainIdObj);
+            if (null == chain) {
+                throw new NulsRuntimeException(AccountErrorCode.CHAIN_NOT_EXIST);
+            }
+            map.put(RpcConstant.VALUE, accountService.lockAccount(chain.getChainId(), (String) addressObj));
+        } catch (NulsRuntimeException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            errorLogProcess(chain, e);
+            return failed(AccountErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+        return success(map);
+    }
+
     /**
      * 验证数据签名
      * verify sign
@@ -272,4 +272,40 @@ public interface AccountService {
      * @throws NulsException nulsException
      */
     BlockSignature signBlockDigest(byte[] digest, int chainId, String address, String password) throws NulsException;
+
+    /**
+     * 批量数据摘要签名, 同一账户只解密一次私钥
+     * batch sign digest data, the private key is decrypted only once
+     *
+     * @param digests  data digests.
+     * @param chainId
+     * @param address  address of account.
+     * @param password password of account.
+     * @return the signatures in the order of digests.
+     * @throws NulsException nulsException
+     */
+    List<P2PHKSignature> batchSignDigest(List<byte[]> digests, int chainId, String address, String password) throws NulsException;
+
+    /**
+     * 解锁账户, 解锁期间签名使用缓存的私钥
+     * unlock account, signatures during the unlock use the cached private key
+     *
+     * @param chainId
+     * @param address    address of account.
+     * @param password   password of account.
+     * @param unlockTime unlock time (seconds).
+     * @param signCount  maximum signatures during the unlock.
+     * @throws NulsException nulsException
+     */
+    void unlockAccount(int chainId, String address, String password, int unlockTime, int signCount) throws NulsException;
+
+    /**
+     * 锁定账户, 清除缓存的私钥
+     * lock account, wipe the cached private key
+     *
+     * @param chainId
+     * @param address address of account.
+     * @return whether the account was unlocked
+     */
+    boolean lockAccount(int chainId, String address);
 }
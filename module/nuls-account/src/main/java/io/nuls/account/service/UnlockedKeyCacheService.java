@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.account.service;
+
+import io.nuls.account.constant.AccountConstant;
+import io.nuls.account.constant.AccountErrorCode;
+import io.nuls.account.model.bo.Account;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已解锁账户私钥缓存服务类
+ * 账户主动解锁后, 在有效时间和签名次数内签名不再用密码解密私钥;
+ * 签名时仍需提供正确的密码, 到期、次数用完、锁定或修改密码后清零缓存的私钥
+ * Unlocked key cache service
+ */
+public class UnlockedKeyCacheService {
+
+    private static final UnlockedKeyCacheService INSTANCE = new UnlockedKeyCacheService();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * 已解锁的账户, key为账户地址
+     * Unlocked accounts, key is the address
+     */
+    private final Map<String, UnlockedKey> unlockedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 到期清零私钥
+     */
+    private final ScheduledThreadPoolExecutor cleaner = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("unlocked-key-cleaner"));
+
+    private UnlockedKeyCacheService() {
+        cleaner.setRemoveOnCancelPolicy(true);
+    }
+
+    public static UnlockedKeyCacheService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 已解锁的私钥, 私钥只在本对象内保存, 签名时用预先计算的公钥创建ECKey
+     */
+    private static class UnlockedKey {
+        private final byte[] priKey;
+        private final ECPoint pubKey;
+        private final byte[] salt;
+        private final byte[] passwordHash;
+        private final long expireTime;
+        private int remainingCount;
+        private boolean destroyed;
+
+        private UnlockedKey(byte[] priKey, ECPoint pubKey, String password, long expireTime, int signCount) {
+            this.priKey = priKey;
+            this.pubKey = pubKey;
+            this.salt = new byte[16];
+            RANDOM.nextBytes(salt);
+            this.passwordHash = hashPassword(salt, password);
+            this.expireTime = expireTime;
+            this.remainingCount = signCount;
+        }
+
+        private static byte[] hashPassword(byte[] salt, String password) {
+            byte[] pwd = password.getBytes(StandardCharsets.UTF_8);
+            byte[] data = new byte[salt.length + pwd.length];
+            System.arraycopy(salt, 0, data, 0, salt.length);
+            System.arraycopy(pwd, 0, data, salt.length, pwd.length);
+            byte[] hash = Sha256Hash.hash(data);
+            Arrays.fill(data, (byte) 0);
+            Arrays.fill(pwd, (byte) 0);
+            return hash;
+        }
+
+        /**
+         * 使用count次签名, 已失效或密码不一致时返回null
+         */
+        private synchronized ECKey acquire(String password, int count) {
+            if (destroyed || password == null || System.currentTimeMillis() >= expireTime || remainingCount < count) {
+                return null;
+            }
+            if (!MessageDigest.isEqual(passwordHash, hashPassword(salt, password))) {
+                return null;
+            }
+            remainingCount -= count;
+            return ECKey.fromPrivateAndPrecalculatedPublic(new BigInteger(1, priKey), pubKey);
+        }
+
+        private synchronized boolean isAvailable() {
+            return !destroyed && System.currentTimeMillis() < expireTime && remainingCount > 0;
+        }
+
+        private synchronized void destroy() {
+            destroyed = true;
+            Arrays.fill(priKey, (byte) 0);
+            Arrays.fill(passwordHash, (byte) 0);
+        }
+    }
+
+    /**
+     * 解锁账户, 在unlockTime秒内最多签名signCount次, 重复解锁时覆盖之前的解锁
+     * Unlock the account for at most signCount signatures within unlockTime seconds
+     */
+    public void unlock(Account account, String password, int unlockTime, int signCount) throws NulsException {
+        if (!account.isEncrypted()) {
+            throw new NulsException(AccountErrorCode.ACCOUNT_UNENCRYPTED);
+        }
+        if (unlockTime <= 0 || unlockTime > AccountConstant.MAX_UNLOCK_TIME
+                || signCount <= 0 || signCount > AccountConstant.MAX_UNLOCK_SIGN_COUNT) {
+            throw new NulsException(AccountErrorCode.PARAMETER_ERROR);
+        }
+        //验证密码并解密私钥
+        byte[] priKey = account.getPriKey(password);
+        ECPoint pubKey = ECKey.fromPrivate(new BigInteger(1, priKey)).getPubKeyPoint();
+        String address = account.getAddress().getBase58();
+        UnlockedKey unlockedKey = new UnlockedKey(priKey, pubKey, password, System.currentTimeMillis() + unlockTime * 1000L, signCount);
+        UnlockedKey old = unlockedKeys.put(address, unlockedKey);
+        if (old != null) {
+            old.destroy();
+        }
+        cleaner.schedule(() -> remove(address, unlockedKey), unlockTime, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 锁定账户, 清零缓存的私钥
+     * Lock the account and wipe the cached private key
+     */
+    public boolean lock(String address) {
+        UnlockedKey unlockedKey = unlockedKeys.remove(address);
+        if (unlockedKey == null) {
+            return false;
+        }
+        unlockedKey.destroy();
+        return true;
+    }
+
+    public boolean isUnlocked(String address) {
+        UnlockedKey unlockedKey = unlockedKeys.get(address);
+        return unlockedKey != null && unlockedKey.isAvailable();
+    }
+
+    /**
+     * 获取签名用的ECKey, 账户已解锁且密码一致时使用缓存的私钥, 否则用密码解密私钥
+     * Get the ECKey for signing, from the unlocked key if available, otherwise decrypted by password
+     *
+     * @param count 本次签名次数
+     */
+    public ECKey getEcKey(Account account, String password, int count) throws NulsException {
+        if (account.isEncrypted()) {
+            String address = account.getAddress().getBase58();
+            UnlockedKey unlockedKey = unlockedKeys.get(address);
+            if (unlockedKey != null) {
+                ECKey ecKey = unlockedKey.acquire(password, count);
+                if (ecKey != null) {
+                    return ecKey;
+                }
+                if (!unlockedKey.isAvailable()) {
+                    remove(address, unlockedKey);
+                }
+            }
+        }
+        return account.getEcKey(password);
+    }
+
+    public ECKey getEcKey(Account account, String password) throws NulsException {
+        return getEcKey(account, password, 1);
+    }
+
+    private void remove(String address, UnlockedKey unlockedKey) {
+        if (unlockedKeys.remove(address, unlockedKey)) {
+            unlockedKey.destroy();
+        }
+    }
+}
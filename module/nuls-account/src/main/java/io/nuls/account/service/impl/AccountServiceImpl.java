@@ -38,6 +38,7 @@ import io.nuls.account.service.AccountCacheService;
 import io.nuls.account.service.AccountKeyStoreService;
 import io.nuls.account.service.AccountService;
 import io.nuls.account.service.AliasService;
+import io.nuls.account.service.UnlockedKeyCacheService;
 import io.nuls.account.storage.AccountStorageService;
 import io.nuls.account.util.AccountTool;
 import io.nuls.account.util.LoggerUtil;
@@ -85,6 +86,8 @@ public class AccountServiceImpl implements AccountService {
 
     private AccountCacheService accountCacheService = AccountCacheService.getInstance();
 
+    private UnlockedKeyCacheService unlockedKeyCacheService = UnlockedKeyCacheService.getInstance();
+
 
     @Override
     public List<Account> createAccount(Chain chain, int count, String password) {
@@ -288,6 +291,8 @@ public class AccountServiceImpl implements AccountService {
             account.unlock(oldPassword);
             //Encrypting the account by the new password
             account.encrypt(newPassword, true);
+            //the unlocked key was verified by the old password
+            unlockedKeyCacheService.lock(account.getAddress().getBase58());
             AccountPO po = new AccountPO(account);
             //save the account to the database
             boolean result = accountStorageService.updateAccount(po);
@@ -423,6 +428,7 @@ public class AccountServiceImpl implements AccountService {
             result = accountStorageService.removeAccount(account.getAddress());
             //Delete the account from the cache
             accountCacheService.getLocalAccountMaps().remove(account.getAddress().getBase58());
+            unlockedKeyCacheService.lock(account.getAddress().getBase58());
 
             //build event data
             HashMap<String, Object> eventData = new HashMap<>();
@@ -705,7 +711,7 @@ public class AccountServiceImpl implements AccountService {
             throw new NulsRuntimeException(AccountErrorCode.ACCOUNT_NOT_EXIST);
         }
         //根据密码获得ECKey get ECKey from Password
-        ECKey ecKey = account.getEcKey(password);
+        ECKey ecKey = unlockedKeyCacheService.getEcKey(account, password);
         try {
             byte[] signBytes = SignatureUtil.signDigest(digest, ecKey).serialize();
             return new P2PHKSignature(signBytes, ecKey.getPubKey());
@@ -726,7 +732,7 @@ public class AccountServiceImpl implements AccountService {
             throw new NulsRuntimeException(AccountErrorCode.ACCOUNT_NOT_EXIST);
         }
         //根据密码获得ECKey get ECKey from Password
-        ECKey ecKey = account.getEcKey(password);
+        ECKey ecKey = unlockedKeyCacheService.getEcKey(account, password);
         NulsSignData signData = SignatureUtil.signDigest(digest, ecKey);
         BlockSignature blockSign = new BlockSignature();
         blockSign.setSignData(signData);
@@ -734,4 +740,52 @@ public class AccountServiceImpl implements AccountService {
         return blockSign;
     }
 
+    @Override
+    public List<P2PHKSignature> batchSignDigest(List<byte[]> digests, int chainId, String address, String password) throws NulsException {
+        if (null == digests || digests.isEmpty() || digests.size() > AccountConstant.MAX_BATCH_SIGN_COUNT) {
+            throw new NulsRuntimeException(AccountErrorCode.PARAMETER_ERROR);
+        }
+        for (byte[] digest : digests) {
+            if (null == digest || digest.length == 0) {
+                throw new NulsRuntimeException(AccountErrorCode.PARAMETER_ERROR);
+            }
+        }
+        //check whether the account exists
+        Account account = this.getAccountByAddress(chainId, address);
+        if (null == account) {
+            throw new NulsRuntimeException(AccountErrorCode.ACCOUNT_NOT_EXIST);
+        }
+        //整批只获取一次ECKey get ECKey once for the whole batch
+        ECKey ecKey = unlockedKeyCacheService.getEcKey(account, password, digests.size());
+        byte[] pubKey = ecKey.getPubKey();
+        List<P2PHKSignature> signatures = new ArrayList<>(digests.size());
+        try {
+            for (byte[] digest : digests) {
+                signatures.add(new P2PHKSignature(SignatureUtil.signDigest(digest, ecKey).serialize(), pubKey));
+            }
+        } catch (IOException e) {
+            LoggerUtil.LOG.error(e.getMessage());
+            throw new NulsRuntimeException(AccountErrorCode.IO_ERROR);
+        }
+        return signatures;
+    }
+
+    @Override
+    public void unlockAccount(int chainId, String address, String password, int unlockTime, int signCount) throws NulsException {
+        //check whether the account exists
+        Account account = this.getAccountByAddress(chainId, address);
+        if (null == account) {
+            throw new NulsRuntimeException(AccountErrorCode.ACCOUNT_NOT_EXIST);
+        }
+        unlockedKeyCacheService.unlock(account, password, unlockTime, signCount);
+    }
+
+    @Override
+    public boolean lockAccount(int chainId, String address) {
+        if (!AddressTool.validAddress(chainId, address)) {
+            throw new NulsRuntimeException(AccountErrorCode.ADDRESS_ERROR);
+        }
+        return unlockedKeyCacheService.lock(address);
+    }
+
 }
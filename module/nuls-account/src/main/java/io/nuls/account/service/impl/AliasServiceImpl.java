@@ -41,6 +41,7 @@ import io.nuls.account.service.AccountCacheService;
 import io.nuls.account.service.AccountService;
 import io.nuls.account.service.AliasService;
 import io.nuls.account.service.TransactionService;
+import io.nuls.account.service.UnlockedKeyCacheService;
 import io.nuls.account.storage.AccountStorageService;
 import io.nuls.account.storage.AliasStorageService;
 import io.nuls.account.storage.MultiSigAccountStorageService;
@@ -108,6 +109,8 @@ public class AliasServiceImpl implements AliasService, InitializingBean {
 
     private AccountCacheService accountCacheService = AccountCacheService.getInstance();
 
+    private UnlockedKeyCacheService unlockedKeyCacheService = UnlockedKeyCacheService.getInstance();
+
     @Override
     public void afterPropertiesSet() {
     }
@@ -344,7 +347,7 @@ public class AliasServiceImpl implements AliasService, InitializingBean {
     private Transaction signTransaction(Transaction transaction, Account account, String password) throws NulsException {
         TransactionSignature transactionSignature = new TransactionSignature();
         List<P2PHKSignature> p2PHKSignatures = new ArrayList<>();
-        ECKey eckey = account.getEcKey(password);
+        ECKey eckey = unlockedKeyCacheService.getEcKey(account, password);
         P2PHKSignature p2PHKSignature = SignatureUtil.createSignatureByEckey(transaction, eckey);
         p2PHKSignatures.add(p2PHKSignature);
         transactionSignature.setP2PHKSignatures(p2PHKSignatures);
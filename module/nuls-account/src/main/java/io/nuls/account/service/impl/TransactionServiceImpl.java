@@ -43,6 +43,7 @@ import io.nuls.account.service.AccountService;
 import io.nuls.account.service.AliasService;
 import io.nuls.account.service.MultiSignAccountService;
 import io.nuls.account.service.TransactionService;
+import io.nuls.account.service.UnlockedKeyCacheService;
 import io.nuls.account.storage.AliasStorageService;
 import io.nuls.account.util.LoggerUtil;
 import io.nuls.account.util.Preconditions;
@@ -97,6 +98,8 @@ public class TransactionServiceImpl implements TransactionService {
     @Autowired
     private AliasStorageService aliasStorageService;
 
+    private UnlockedKeyCacheService unlockedKeyCacheService = UnlockedKeyCacheService.getInstance();
+
     @Override
     public Result transferTxValidate(Chain chain, Transaction tx) throws NulsException {
         return txValidator.validate(chain, tx);
@@ -293,7 +296,7 @@ public class TransactionServiceImpl implements TransactionService {
             transactionSignature.setM(multiSigAccount.getM());
             transactionSignature.setPubKeyList(multiSigAccount.getPubKeyList());
         }
-        ECKey eckey = account.getEcKey(password);
+        ECKey eckey = unlockedKeyCacheService.getEcKey(account, password);
         P2PHKSignature p2PHKSignature = SignatureUtil.createSignatureByEckey(transaction, eckey);
         p2PHKSignatures.add(p2PHKSignature);
         transactionSignature.setP2PHKSignatures(p2PHKSignatures);
@@ -445,7 +448,7 @@ public class TransactionServiceImpl implements TransactionService {
             if (null == account) {
                 throw new NulsRuntimeException(AccountErrorCode.ACCOUNT_NOT_EXIST);
             }
-            ECKey ecKey = account.getEcKey(from.getPassword());
+            ECKey ecKey = unlockedKeyCacheService.getEcKey(account, from.getPassword());
             signEcKeys.add(ecKey);
         }
         try {
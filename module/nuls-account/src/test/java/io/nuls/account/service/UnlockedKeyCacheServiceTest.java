@@ -0,0 +1,166 @@
+package io.nuls.account.service;
+
+import io.nuls.account.constant.AccountErrorCode;
+import io.nuls.account.model.bo.Account;
+import io.nuls.account.service.impl.AccountServiceImpl;
+import io.nuls.account.util.AccountTool;
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 账户解锁缓存与批量签名测试, 以及单条签名和批量签名的速度对比
+ */
+public class UnlockedKeyCacheServiceTest {
+
+    private static final int CHAIN_ID = 2;
+    private static final String PASSWORD = "nuls123456";
+
+    private UnlockedKeyCacheService unlockedKeyCacheService = UnlockedKeyCacheService.getInstance();
+    private AccountService accountService;
+    private Account account;
+    private String address;
+
+    @Before
+    public void before() throws Exception {
+        account = AccountTool.createAccount(CHAIN_ID);
+        account.encrypt(PASSWORD);
+        address = account.getAddress().getBase58();
+        AccountCacheService.getInstance().getLocalAccountMaps().put(address, account);
+        accountService = new AccountServiceImpl();
+    }
+
+    @After
+    public void after() {
+        unlockedKeyCacheService.lock(address);
+        AccountCacheService.getInstance().getLocalAccountMaps().remove(address);
+    }
+
+    private static byte[] digest(int i) {
+        return Sha256Hash.hash(("digest" + i).getBytes());
+    }
+
+    private void assertSignature(byte[] digest, P2PHKSignature signature) {
+        assertArrayEquals(account.getPubKey(), signature.getPublicKey());
+        assertTrue(ECKey.verify(digest, signature.getSignData().getSignBytes(), account.getPubKey()));
+    }
+
+    private void assertPasswordWrong(Runnable runnable) {
+        try {
+            runnable.run();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof NulsException);
+            assertEquals(AccountErrorCode.PASSWORD_IS_WRONG, ((NulsException) e.getCause()).getErrorCode());
+        }
+    }
+
+    private P2PHKSignature sign(int i, String password) {
+        try {
+            return accountService.signDigest(digest(i), CHAIN_ID, address, password);
+        } catch (NulsException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void unlockBounds() throws Exception {
+        assertSignature(digest(0), sign(0, PASSWORD));
+
+        accountService.unlockAccount(CHAIN_ID, address, PASSWORD, 60, 3);
+        assertTrue(unlockedKeyCacheService.isUnlocked(address));
+        // 解锁期间仍然需要正确的密码
+        assertPasswordWrong(() -> sign(1, "wrong123456"));
+        for (int i = 0; i < 3; i++) {
+            assertSignature(digest(i), sign(i, PASSWORD));
+        }
+        // 次数用完后恢复为用密码解密私钥
+        assertFalse(unlockedKeyCacheService.isUnlocked(address));
+        assertSignature(digest(3), sign(3, PASSWORD));
+
+        // 批量签名按条数计入次数
+        accountService.unlockAccount(CHAIN_ID, address, PASSWORD, 60, 10);
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            digests.add(digest(i));
+        }
+        List<P2PHKSignature> signatures = accountService.batchSignDigest(digests, CHAIN_ID, address, PASSWORD);
+        for (int i = 0; i < 8; i++) {
+            assertSignature(digests.get(i), signatures.get(i));
+        }
+        assertTrue(unlockedKeyCacheService.isUnlocked(address));
+        assertTrue(accountService.lockAccount(CHAIN_ID, address));
+        assertFalse(unlockedKeyCacheService.isUnlocked(address));
+        assertFalse(accountService.lockAccount(CHAIN_ID, address));
+
+        // 到期后失效
+        accountService.unlockAccount(CHAIN_ID, address, PASSWORD, 1, 10);
+        Thread.sleep(1100);
+        assertFalse(unlockedKeyCacheService.isUnlocked(address));
+        assertSignature(digest(9), sign(9, PASSWORD));
+
+        // 错误密码、超出上限的参数和未加密账户不能解锁
+        try {
+            accountService.unlockAccount(CHAIN_ID, address, "wrong123456", 60, 10);
+            fail();
+        } catch (NulsException e) {
+            assertEquals(AccountErrorCode.PASSWORD_IS_WRONG, e.getErrorCode());
+        }
+        try {
+            accountService.unlockAccount(CHAIN_ID, address, PASSWORD, 3601, 10);
+            fail();
+        } catch (NulsException e) {
+            assertEquals(AccountErrorCode.PARAMETER_ERROR, e.getErrorCode());
+        }
+        try {
+            unlockedKeyCacheService.unlock(AccountTool.createAccount(CHAIN_ID), null, 60, 10);
+            fail();
+        } catch (NulsException e) {
+            assertEquals(AccountErrorCode.ACCOUNT_UNENCRYPTED, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        int count = 2000;
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            digests.add(digest(i));
+        }
+        // 预热
+        for (int i = 0; i < 200; i++) {
+            sign(i, PASSWORD);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sign(i, PASSWORD);
+        }
+        long single = count * 1000000000L / (System.nanoTime() - start);
+
+        accountService.unlockAccount(CHAIN_ID, address, PASSWORD, 60, count);
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            sign(i, PASSWORD);
+        }
+        long unlocked = count * 1000000000L / (System.nanoTime() - start);
+        accountService.lockAccount(CHAIN_ID, address);
+
+        start = System.nanoTime();
+        for (int i = 0; i < count; i += 100) {
+            accountService.batchSignDigest(digests.subList(i, i + 100), CHAIN_ID, address, PASSWORD);
+        }
+        long batch = count * 1000000000L / (System.nanoTime() - start);
+        System.out.println("每秒签名数 单条签名:" + single + ", 解锁后单条签名:" + unlocked + ", 批量签名(每批100条):" + batch);
+        assertTrue(unlocked > single);
+        assertTrue(batch > single);
+    }
+}
@@ -64,9 +64,11 @@ public class RpcServerManager {
         // Create test web application context.
         WebappContext webappContext = new WebappContext("NULS-V2-SDK-PROVIDER-SERVER", "/");
 
-        ServletRegistration servletRegistration = webappContext.addServlet("jersey-servlet", ServletContainer.class);
+        ServletRegistration.Dynamic servletRegistration = webappContext.addServlet("jersey-servlet", ServletContainer.class);
         servletRegistration.setInitParameter("javax.ws.rs.Application", "io.nuls.provider.api.config.NulsResourceConfig");
         servletRegistration.addMapping("/*");
+        // 接口等待模块rpc返回时挂起请求, 不占用worker线程
+        servletRegistration.setAsyncSupported(true);
 
         httpServer = new HttpServer();
         NetworkListener listener = new NetworkListener("grizzly2", ip, port);
@@ -28,6 +28,9 @@ import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
 import io.nuls.provider.api.filter.RpcServerFilter;
 import io.nuls.provider.api.jsonrpc.JsonRpcContext;
 import io.nuls.provider.api.jsonrpc.RpcMethodInvoker;
+import io.nuls.provider.api.jsonrpc.RpcResultCache;
+import io.nuls.provider.rpctools.BlockTools;
+import io.nuls.base.api.provider.Result;
 import io.nuls.core.core.annotation.Controller;
 import io.nuls.core.core.annotation.RpcMethod;
 import io.nuls.core.core.ioc.SpringLiteContext;
@@ -58,6 +61,19 @@ public class NulsResourceConfig extends ResourceConfig {
             }
             initJsonRpcMethodHandlers(object);
         }
+        initJsonRpcResultCache();
+    }
+
+    private void initJsonRpcResultCache() {
+        Config config = SpringLiteContext.getBean(Config.class);
+        BlockTools blockTools = SpringLiteContext.getBean(BlockTools.class);
+        JsonRpcContext.RPC_RESULT_CACHE = new RpcResultCache(() -> {
+            Result<String> result = blockTools.latestHeight(config.getChainId());
+            if (result.isFailed() || result.getData() == null) {
+                return -1;
+            }
+            return Long.parseLong(String.valueOf(result.getData()));
+        }, JsonRpcContext.CACHE_HEIGHT_CHECK_INTERVAL, JsonRpcContext.CACHE_MAX_SIZE);
     }
 
     private void initJsonRpcMethodHandlers(Object bean) {
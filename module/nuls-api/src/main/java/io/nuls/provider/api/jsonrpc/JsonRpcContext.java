@@ -29,4 +29,26 @@ import java.util.Map;
 public class JsonRpcContext {
 
     public static final Map<String, RpcMethodInvoker> RPC_METHOD_INVOKER_MAP = new HashMap<>();
+
+    /**
+     * 批量请求中最多并发执行的请求数
+     */
+    public static final int BATCH_PARALLELISM = 8;
+    /**
+     * 执行批量请求的线程数
+     */
+    public static final int BATCH_THREAD_COUNT = 16;
+    /**
+     * 查询主链高度的间隔(毫秒), 出块间隔为2秒
+     */
+    public static final long CACHE_HEIGHT_CHECK_INTERVAL = 500;
+    /**
+     * 每个高度最多缓存的结果数, 按条数而不是字节数限制, 完整区块不进入缓存
+     */
+    public static final int CACHE_MAX_SIZE = 10000;
+
+    /**
+     * 只读方法的结果缓存, 为null时不缓存
+     */
+    public static volatile RpcResultCache RPC_RESULT_CACHE;
 }
@@ -24,6 +24,8 @@
 package io.nuls.provider.api.jsonrpc;
 
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 import io.nuls.provider.model.jsonrpc.RpcForm;
 import io.nuls.provider.model.jsonrpc.RpcResult;
 import io.nuls.provider.model.jsonrpc.RpcResultError;
@@ -34,8 +36,14 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author: PierreLuo
@@ -45,6 +53,9 @@ import java.util.Map;
 @Component
 public class JsonRpcServer {
 
+    private static final ExecutorService BATCH_EXECUTOR = ThreadUtils.createThreadPool(JsonRpcContext.BATCH_THREAD_COUNT, 0,
+            new NulsThreadFactory("jsonrpc-batch"));
+
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     public Object dispatcher(Object form) {
@@ -60,15 +71,43 @@ public class JsonRpcServer {
         }
     }
 
+    /**
+     * 批量请求之间相互独立, 由当前线程和线程池共同并发执行, 结果按请求顺序返回
+     */
     private Object dispatcherList(List<Map<String, Object>> forms) {
-        List<RpcResult> list = new ArrayList<>();
-        for(Map<String, Object> form : forms) {
-            list.add(dispatcher(form));
+        int size = forms.size();
+        RpcResult[] results = new RpcResult[size];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < size) {
+                results[i] = dispatcher(forms.get(i));
+            }
+        };
+        List<Future<?>> futures = new ArrayList<>();
+        int parallelism = Math.min(size, JsonRpcContext.BATCH_PARALLELISM);
+        for (int i = 1; i < parallelism; i++) {
+            try {
+                futures.add(BATCH_EXECUTOR.submit(worker));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
         }
-        if(list.size() == 1) {
-            return list.get(0);
+        if(size == 1) {
+            return results[0];
         }
-        return list;
+        return Arrays.asList(results);
     }
 
     private RpcResult dispatcher(Map<String, Object> form) {
@@ -84,7 +123,14 @@ public class JsonRpcServer {
             Log.warn("Can't find the method:{}", method);
             return responseError("-32601", "Can't find the method", id);
         }
-        RpcResult result = invoker.invoke((List<Object>) form.get("params"));
+        List<Object> params = (List<Object>) form.get("params");
+        RpcResultCache cache = JsonRpcContext.RPC_RESULT_CACHE;
+        RpcResult result;
+        if (invoker.isCacheable() && cache != null) {
+            result = RpcResultCache.copy(cache.get(method, params, () -> invoker.invoke(params)));
+        } else {
+            result = invoker.invoke(params);
+        }
         result.setId(id);
         return result;
     }
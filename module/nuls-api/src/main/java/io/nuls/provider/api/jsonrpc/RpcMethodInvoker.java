@@ -37,9 +37,16 @@ public class RpcMethodInvoker {
 
     private Method method;
 
+    private boolean cacheable;
+
     public RpcMethodInvoker(Object bean, Method method) {
         this.bean = bean;
         this.method = method;
+        this.cacheable = method.getAnnotation(RpcCacheable.class) != null;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
     }
 
     public RpcResult invoke(List<Object> jsonParams) {
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.nuls.provider.api.jsonrpc;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.provider.model.jsonrpc.RpcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 只读json-rpc方法的结果缓存, 按主链高度失效
+ * 主链高度按固定间隔查询一次, 高度变化时丢弃上一个高度缓存的全部结果;
+ * 相同请求并发到达时只调用一次模块接口, 其余请求等待同一个结果
+ */
+public class RpcResultCache {
+
+    /**
+     * 同一主链高度下缓存的结果
+     */
+    private static class Generation {
+        private final long height;
+        private final Map<String, CompletableFuture<RpcResult>> results = new ConcurrentHashMap<>();
+
+        private Generation(long height) {
+            this.height = height;
+        }
+    }
+
+    private final LongSupplier heightSupplier;
+    private final long heightCheckInterval;
+    private final int maxSize;
+
+    private volatile Generation current = new Generation(-1);
+    private volatile long lastCheckTime;
+
+    /**
+     * @param heightSupplier      查询最新主链高度, 查询失败返回-1
+     * @param heightCheckInterval 查询主链高度的间隔(毫秒), 即缓存结果最长的滞后时间
+     * @param maxSize             每个高度最多缓存的结果数, 超过后不再缓存
+     */
+    public RpcResultCache(LongSupplier heightSupplier, long heightCheckInterval, int maxSize) {
+        this.heightSupplier = heightSupplier;
+        this.heightCheckInterval = heightCheckInterval;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 从缓存获取结果, 不存在时调用loader, 只缓存成功的结果
+     * 返回的对象在多个请求间共享, 调用方需要通过{@link #copy(RpcResult)}复制后再修改
+     */
+    public RpcResult get(String method, List<Object> params, Supplier<RpcResult> loader) {
+        Generation generation = generation();
+        if (generation.height < 0) {
+            return loader.get();
+        }
+        String key;
+        try {
+            key = method + JSONUtils.obj2json(params);
+        } catch (Exception e) {
+            return loader.get();
+        }
+        CompletableFuture<RpcResult> future = generation.results.get(key);
+        if (future == null) {
+            if (generation.results.size() >= maxSize) {
+                return loader.get();
+            }
+            CompletableFuture<RpcResult> created = new CompletableFuture<>();
+            future = generation.results.putIfAbsent(key, created);
+            if (future == null) {
+                return load(generation, key, created, loader);
+            }
+        }
+        return future.join();
+    }
+
+    private RpcResult load(Generation generation, String key, CompletableFuture<RpcResult> future, Supplier<RpcResult> loader) {
+        RpcResult result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException e) {
+            generation.results.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        if (result == null || result.getError() != null) {
+            generation.results.remove(key, future);
+        }
+        future.complete(result);
+        return result;
+    }
+
+    private Generation generation() {
+        if (System.currentTimeMillis() - lastCheckTime < heightCheckInterval) {
+            return current;
+        }
+        synchronized (this) {
+            if (System.currentTimeMillis() - lastCheckTime < heightCheckInterval) {
+                return current;
+            }
+            long height;
+            try {
+                height = heightSupplier.getAsLong();
+            } catch (Exception e) {
+                Log.warn("get latest height failed, {}", e.getMessage());
+                height = -1;
+            }
+            lastCheckTime = System.currentTimeMillis();
+            if (height != current.height) {
+                current = new Generation(height);
+            }
+            return current;
+        }
+    }
+
+    public static RpcResult copy(RpcResult result) {
+        if (result == null) {
+            return null;
+        }
+        RpcResult copy = new RpcResult();
+        copy.setResult(result.getResult());
+        copy.setError(result.getError());
+        return copy;
+    }
+}
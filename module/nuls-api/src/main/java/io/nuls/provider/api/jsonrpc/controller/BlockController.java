@@ -34,6 +34,7 @@ import io.nuls.core.core.annotation.RpcMethod;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.rpc.model.*;
 import io.nuls.provider.api.config.Config;
+import io.nuls.provider.api.jsonrpc.RpcCacheable;
 import io.nuls.provider.api.config.Context;
 import io.nuls.provider.api.manager.BeanCopierManager;
 import io.nuls.provider.model.dto.block.BlockDto;
@@ -97,6 +98,7 @@ public class BlockController {
     }
 
     @RpcMethod("getHeaderByHeight")
+    @RpcCacheable
     @ApiOperation(description = "根据区块高度查询区块头", order = 201)
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID"),
@@ -137,6 +139,7 @@ public class BlockController {
     }
 
     @RpcMethod("getHeaderByHash")
+    @RpcCacheable
     @ApiOperation(description = "根据区块hash查询区块头", order = 202)
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID"),
@@ -177,6 +180,7 @@ public class BlockController {
 
 
     @RpcMethod("getBestBlockHeader")
+    @RpcCacheable
     @ApiOperation(description = "查询最新区块头信息", order = 203)
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
@@ -384,6 +388,7 @@ public class BlockController {
     }
 
     @RpcMethod("getLatestHeight")
+    @RpcCacheable
     @ApiOperation(description = "获取最新主链高度", order = 209)
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
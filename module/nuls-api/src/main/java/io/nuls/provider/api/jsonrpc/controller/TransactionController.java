@@ -27,6 +27,7 @@ import io.nuls.base.api.provider.block.BlockService;
 import io.nuls.base.api.provider.block.facade.BlockHeaderData;
 import io.nuls.base.api.provider.block.facade.GetBlockHeaderByHeightReq;
 import io.nuls.provider.api.config.Context;
+import io.nuls.provider.api.jsonrpc.RpcCacheable;
 import io.nuls.base.RPCUtil;
 import io.nuls.base.api.provider.Result;
 import io.nuls.base.api.provider.ServiceManager;
@@ -90,6 +91,7 @@ public class TransactionController {
     BlockService blockService = ServiceManager.get(BlockService.class);
 
     @RpcMethod("getTx")
+    @RpcCacheable
     @ApiOperation(description = "根据hash获取交易", order = 301)
     @Parameters({
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
@@ -66,6 +66,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import java.math.BigInteger;
 import java.util.HashMap;
@@ -104,22 +106,26 @@ public class AccountLedgerResource {
             @Parameter(parameterName = "balanceDto", parameterDes = "账户余额表单", requestType = @TypeDescriptor(value = BalanceForm.class))
     })
     @ResponseData(name = "返回值", responseType = @TypeDescriptor(value = AccountBalanceDto.class))
-    public RpcClientResult getBalance(@PathParam("address") String address, BalanceForm form) {
+    public void getBalance(@PathParam("address") String address, BalanceForm form, @Suspended AsyncResponse asyncResponse) {
         if (!AddressTool.validAddress(config.getChainId(), address)) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "address is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "address is invalid")));
+            return;
         }
         if (form.getAssetChainId() < 1 || form.getAssetChainId() > 65535) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "assetChainId is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "assetChainId is invalid")));
+            return;
         }
         if (form.getAssetId() < 1 || form.getAssetId() > 65535) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "assetId is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "assetId is invalid")));
+            return;
         }
-        Result<AccountBalance> balanceResult = legderTools.getBalanceAndNonce(config.getChainId(), form.getAssetChainId(), form.getAssetId(), address);
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(balanceResult);
-        if (clientResult.isSuccess()) {
-            clientResult.setData(new AccountBalanceDto((AccountBalance) clientResult.getData()));
-        }
-        return clientResult;
+        ResultUtil.resume(asyncResponse, legderTools.getBalanceAndNonceAsync(config.getChainId(), form.getAssetChainId(), form.getAssetId(), address).thenApply(balanceResult -> {
+            RpcClientResult clientResult = ResultUtil.getRpcClientResult(balanceResult);
+            if (clientResult.isSuccess()) {
+                clientResult.setData(new AccountBalanceDto((AccountBalance) clientResult.getData()));
+            }
+            return clientResult;
+        }));
     }
 
     @POST
@@ -132,12 +138,12 @@ public class AccountLedgerResource {
     @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
             @Key(name = "value", description = "交易hash")
     }))
-    public RpcClientResult validate(TxForm form) {
+    public void validate(TxForm form, @Suspended AsyncResponse asyncResponse) {
         if (form == null || StringUtils.isBlank(form.getTxHex())) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "form is empty"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "form is empty")));
+            return;
         }
-        Result result = transactionTools.validateTx(config.getChainId(), form.getTxHex());
-        return ResultUtil.getRpcClientResult(result);
+        ResultUtil.resume(asyncResponse, transactionTools.validateTxAsync(config.getChainId(), form.getTxHex()).thenApply(ResultUtil::getRpcClientResult));
     }
 
     @POST
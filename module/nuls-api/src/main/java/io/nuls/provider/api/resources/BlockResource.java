@@ -57,6 +57,8 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 /**
@@ -148,18 +150,19 @@ public class BlockResource {
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(description = "查询最新区块", order = 204, detailDesc = "包含区块打包的所有交易信息，此接口返回数据量较多，谨慎调用")
     @ResponseData(name = "返回值", responseType = @TypeDescriptor(value = BlockDto.class))
-    public RpcClientResult getBestBlock() {
-        Result<Block> result = blockTools.getBestBlock(Context.getChainId());
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
-        if (clientResult.isSuccess()) {
-            try {
-                clientResult.setData(new BlockDto((Block) clientResult.getData()));
-            } catch (NulsException e) {
-                Log.error(e);
-                return ResultUtil.getNulsExceptionRpcClientResult(e);
+    public void getBestBlock(@Suspended AsyncResponse asyncResponse) {
+        ResultUtil.resume(asyncResponse, blockTools.getBestBlockAsync(Context.getChainId()).thenApply(result -> {
+            RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
+            if (clientResult.isSuccess()) {
+                try {
+                    clientResult.setData(new BlockDto((Block) clientResult.getData()));
+                } catch (NulsException e) {
+                    Log.error(e);
+                    return ResultUtil.getNulsExceptionRpcClientResult(e);
+                }
             }
-        }
-        return clientResult;
+            return clientResult;
+        }));
     }
 
     @GET
@@ -170,23 +173,12 @@ public class BlockResource {
             @Parameter(parameterName = "height", requestType = @TypeDescriptor(value = Long.class), parameterDes = "区块高度")
     })
     @ResponseData(name = "返回值", responseType = @TypeDescriptor(value = BlockDto.class))
-    public RpcClientResult getBlockByHeight(@PathParam("height") Long height) {
+    public void getBlockByHeight(@PathParam("height") Long height, @Suspended AsyncResponse asyncResponse) {
         if (height == null || height < 0) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "height is invalid"));
-        }
-        Result<Block> result = blockTools.getBlockByHeight(config.getChainId(), height);
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
-        if (clientResult.isSuccess()) {
-            try {
-                if (clientResult.getData() != null) {
-                    clientResult.setData(new BlockDto((Block) clientResult.getData()));
-                }
-            } catch (NulsException e) {
-                Log.error(e);
-                return ResultUtil.getNulsExceptionRpcClientResult(e);
-            }
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "height is invalid")));
+            return;
         }
-        return clientResult;
+        ResultUtil.resume(asyncResponse, blockTools.getBlockByHeightAsync(config.getChainId(), height).thenApply(this::toBlockDtoResult));
     }
 
     @GET
@@ -197,11 +189,15 @@ public class BlockResource {
             @Parameter(parameterName = "hash", parameterDes = "区块hash")
     })
     @ResponseData(name = "返回值", responseType = @TypeDescriptor(value = BlockDto.class))
-    public RpcClientResult getBlockByHash(@PathParam("hash") String hash) {
+    public void getBlockByHash(@PathParam("hash") String hash, @Suspended AsyncResponse asyncResponse) {
         if (hash == null || !ValidateUtil.validHash(hash)) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is invalid")));
+            return;
         }
-        Result<Block> result = blockTools.getBlockByHash(config.getChainId(), hash);
+        ResultUtil.resume(asyncResponse, blockTools.getBlockByHashAsync(config.getChainId(), hash).thenApply(this::toBlockDtoResult));
+    }
+
+    private RpcClientResult toBlockDtoResult(Result<Block> result) {
         RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
         if (clientResult.isSuccess()) {
             try {
@@ -224,13 +220,12 @@ public class BlockResource {
             @Parameter(parameterName = "height", requestType = @TypeDescriptor(value = Long.class), parameterDes = "区块高度")
     })
     @ResponseData(name = "返回值", description = "返回区块序列化后的HEX字符串", responseType = @TypeDescriptor(value = String.class))
-    public RpcClientResult getBlockSerializationByHeight(@PathParam("height") Long height) {
+    public void getBlockSerializationByHeight(@PathParam("height") Long height, @Suspended AsyncResponse asyncResponse) {
         if (height == null || height < 0) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "height is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "height is invalid")));
+            return;
         }
-        Result<String> result = blockTools.getBlockSerializationByHeight(config.getChainId(), height);
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
-        return clientResult;
+        ResultUtil.resume(asyncResponse, blockTools.getBlockSerializationByHeightAsync(config.getChainId(), height).thenApply(ResultUtil::getRpcClientResult));
     }
 
     @GET
@@ -241,12 +236,11 @@ public class BlockResource {
             @Parameter(parameterName = "hash", parameterDes = "区块hash")
     })
     @ResponseData(name = "返回值", description = "返回区块序列化后的HEX字符串", responseType = @TypeDescriptor(value = String.class))
-    public RpcClientResult getBlockSerializationByHash(@PathParam("hash") String hash) {
+    public void getBlockSerializationByHash(@PathParam("hash") String hash, @Suspended AsyncResponse asyncResponse) {
         if (hash == null || !ValidateUtil.validHash(hash)) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is invalid"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is invalid")));
+            return;
         }
-        Result<String> result = blockTools.getBlockSerializationByHash(config.getChainId(), hash);
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
-        return clientResult;
+        ResultUtil.resume(asyncResponse, blockTools.getBlockSerializationByHashAsync(config.getChainId(), hash).thenApply(ResultUtil::getRpcClientResult));
     }
 }
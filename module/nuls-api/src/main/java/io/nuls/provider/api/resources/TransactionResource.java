@@ -23,12 +23,7 @@
  */
 package io.nuls.provider.api.resources;
 
-import io.nuls.base.api.provider.ServiceManager;
-import io.nuls.base.api.provider.block.BlockService;
-import io.nuls.base.api.provider.block.facade.BlockHeaderData;
-import io.nuls.base.api.provider.block.facade.GetBlockHeaderByHeightReq;
 import io.nuls.provider.api.config.Config;
-import io.nuls.base.api.provider.Result;
 import io.nuls.core.constant.CommonCodeConstanst;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -49,7 +44,10 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author: PierreLuo
@@ -64,8 +62,8 @@ public class TransactionResource {
     Config config;
     @Autowired
     TransactionTools transactionTools;
-
-    BlockService blockService = ServiceManager.get(BlockService.class);
+    @Autowired
+    BlockTools blockTools;
 
     @GET
     @Path("/{hash}")
@@ -75,23 +73,26 @@ public class TransactionResource {
             @Parameter(parameterName = "hash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易hash")
     })
     @ResponseData(name = "返回值", responseType = @TypeDescriptor(value = TransactionDto.class))
-    public RpcClientResult getTx(@PathParam("hash") String hash) {
+    public void getTx(@PathParam("hash") String hash, @Suspended AsyncResponse asyncResponse) {
         if (hash == null) {
-            return RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is empty"));
+            asyncResponse.resume(RpcClientResult.getFailed(new ErrorData(CommonCodeConstanst.PARAMETER_ERROR.getCode(), "hash is empty")));
+            return;
         }
-        Result<TransactionDto> result = transactionTools.getTx(config.getChainId(), hash);
-        RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
-        if (clientResult.isSuccess()) {
+        ResultUtil.resume(asyncResponse, transactionTools.getTxAsync(config.getChainId(), hash).thenCompose(result -> {
+            RpcClientResult clientResult = ResultUtil.getRpcClientResult(result);
+            if (!clientResult.isSuccess()) {
+                return CompletableFuture.completedFuture(clientResult);
+            }
             TransactionDto txDto = (TransactionDto) clientResult.getData();
-            if (txDto.getBlockHeight() >= 0) {
-                GetBlockHeaderByHeightReq req = new GetBlockHeaderByHeightReq(txDto.getBlockHeight());
-                req.setChainId(config.getChainId());
-                Result<BlockHeaderData> blockResult = blockService.getBlockHeaderByHeight(req);
-                if (blockResult.isSuccess()) {
-                    txDto.setBlockHash(blockResult.getData().getHash());
-                }
+            if (txDto.getBlockHeight() < 0) {
+                return CompletableFuture.completedFuture(clientResult);
             }
-        }
-        return clientResult;
+            return blockTools.getBlockHashByHeightAsync(config.getChainId(), txDto.getBlockHeight()).thenApply(blockResult -> {
+                if (blockResult.isSuccess() && blockResult.getData() != null) {
+                    txDto.setBlockHash(blockResult.getData());
+                }
+                return clientResult;
+            });
+        }));
     }
 }
@@ -4,6 +4,7 @@ import io.nuls.base.api.provider.Result;
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.data.Block;
 import io.nuls.base.data.Transaction;
+import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.crypto.HexUtil;
@@ -17,6 +18,7 @@ import io.nuls.provider.utils.Log;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -35,32 +37,17 @@ public class BlockTools implements CallRpc {
      * @return
      */
     public Result<Block> getBlockByHeight(int chainId, long height) {
-        Map<String, Object> param = new HashMap<>(2);
-        param.put("chainId", chainId);
-        param.put("height", height);
         try {
-            Block block = callRpc(ModuleE.BL.name, "getBlockByHeight", param, (Function<Map, Block>) res -> {
-                if (res == null || res.isEmpty()) {
-                    return null;
-                }
-                Block _block = new Block();
-                try {
-                    _block.parse(new NulsByteBuffer(HexUtil.decode((String) res.get("value"))));
-                    for(Transaction tx : _block.getTxs()) {
-                        tx.setStatus(TxStatusEnum.CONFIRMED);
-                    }
-                } catch (NulsException e) {
-                    Log.error(e);
-                    return null;
-                }
-                return _block;
-            });
-            return new Result(block);
+            return new Result(callRpc(ModuleE.BL.name, "getBlockByHeight", heightParam(chainId, height), (Function<Map, Block>) this::toBlock));
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<Block>> getBlockByHeightAsync(int chainId, long height) {
+        return toResult(callRpcAsync(ModuleE.BL.name, "getBlockByHeight", heightParam(chainId, height), (Function<Map, Block>) this::toBlock));
+    }
+
     /**
      * 根据hash获取区块
      *
@@ -69,32 +56,17 @@ public class BlockTools implements CallRpc {
      * @return
      */
     public Result<Block> getBlockByHash(int chainId, String hash) {
-        Map<String, Object> param = new HashMap<>(2);
-        param.put("chainId", chainId);
-        param.put("hash", hash);
         try {
-            Block block = callRpc(ModuleE.BL.name, "getBlockByHash", param, (Function<Map, Block>) res -> {
-                if (res == null || res.isEmpty()) {
-                    return null;
-                }
-                Block _block = new Block();
-                try {
-                    _block.parse(new NulsByteBuffer(HexUtil.decode((String) res.get("value"))));
-                    for(Transaction tx : _block.getTxs()) {
-                        tx.setStatus(TxStatusEnum.CONFIRMED);
-                    }
-                } catch (NulsException e) {
-                    Log.error(e);
-                    return null;
-                }
-                return _block;
-            });
-            return new Result(block);
+            return new Result(callRpc(ModuleE.BL.name, "getBlockByHash", hashParam(chainId, hash), (Function<Map, Block>) this::toBlock));
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<Block>> getBlockByHashAsync(int chainId, String hash) {
+        return toResult(callRpcAsync(ModuleE.BL.name, "getBlockByHash", hashParam(chainId, hash), (Function<Map, Block>) this::toBlock));
+    }
+
     /**
      * 获取最新区块
      *
@@ -105,28 +77,38 @@ public class BlockTools implements CallRpc {
         Map<String, Object> param = new HashMap<>(2);
         param.put("chainId", chainId);
         try {
-            Block block = callRpc(ModuleE.BL.name, "latestBlock", param, (Function<Map, Block>) res -> {
-                if (res == null || res.isEmpty()) {
-                    return null;
-                }
-                Block _block = new Block();
-                try {
-                    _block.parse(new NulsByteBuffer(HexUtil.decode((String) res.get("value"))));
-                    for(Transaction tx : _block.getTxs()) {
-                        tx.setStatus(TxStatusEnum.CONFIRMED);
-                    }
-                } catch (NulsException e) {
-                    Log.error(e);
-                    return null;
-                }
-                return _block;
-            });
-            return new Result(block);
+            return new Result(callRpc(ModuleE.BL.name, "latestBlock", param, (Function<Map, Block>) this::toBlock));
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<Block>> getBestBlockAsync(int chainId) {
+        Map<String, Object> param = new HashMap<>(2);
+        param.put("chainId", chainId);
+        return toResult(callRpcAsync(ModuleE.BL.name, "latestBlock", param, (Function<Map, Block>) this::toBlock));
+    }
+
+    /**
+     * 根据高度获取区块头hash
+     */
+    public CompletableFuture<Result<String>> getBlockHashByHeightAsync(int chainId, long height) {
+        return toResult(callRpcAsync(ModuleE.BL.abbr, "getBlockHeaderPoByHeight", heightParam(chainId, height), (Function<Map, String>) res -> {
+            String value = res == null ? null : (String) res.get("value");
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            BlockHeaderPo header = new BlockHeaderPo();
+            try {
+                header.parse(new NulsByteBuffer(HexUtil.decode(value)));
+            } catch (NulsException e) {
+                Log.error(e);
+                return null;
+            }
+            return header.getHash().toHex();
+        }));
+    }
+
     public Result<Map> getInfo(int chainId) {
         Map<String, Object> params = new HashMap<>();
         params.put(Constants.CHAIN_ID, chainId);
@@ -158,22 +140,17 @@ public class BlockTools implements CallRpc {
      * @return
      */
     public Result<String> getBlockSerializationByHeight(int chainId, long height) {
-        Map<String, Object> param = new HashMap<>(2);
-        param.put("chainId", chainId);
-        param.put("height", height);
         try {
-            String block = callRpc(ModuleE.BL.name, "getBlockByHeight", param, (Function<Map, String>) res -> {
-                if (res == null || res.isEmpty()) {
-                    return null;
-                }
-                return (String) res.get("value");
-            });
-            return new Result(block);
+            return new Result(callRpc(ModuleE.BL.name, "getBlockByHeight", heightParam(chainId, height), (Function<Map, String>) this::toBlockHex));
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<String>> getBlockSerializationByHeightAsync(int chainId, long height) {
+        return toResult(callRpcAsync(ModuleE.BL.name, "getBlockByHeight", heightParam(chainId, height), (Function<Map, String>) this::toBlockHex));
+    }
+
     /**
      * 根据hash获取区块序列化字符串
      *
@@ -182,22 +159,17 @@ public class BlockTools implements CallRpc {
      * @return
      */
     public Result<String> getBlockSerializationByHash(int chainId, String hash) {
-        Map<String, Object> param = new HashMap<>(2);
-        param.put("chainId", chainId);
-        param.put("hash", hash);
         try {
-            String block = callRpc(ModuleE.BL.name, "getBlockByHash", param, (Function<Map, String>) res -> {
-                if (res == null || res.isEmpty()) {
-                    return null;
-                }
-                return (String) res.get("value");
-            });
-            return new Result(block);
+            return new Result(callRpc(ModuleE.BL.name, "getBlockByHash", hashParam(chainId, hash), (Function<Map, String>) this::toBlockHex));
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<String>> getBlockSerializationByHashAsync(int chainId, String hash) {
+        return toResult(callRpcAsync(ModuleE.BL.name, "getBlockByHash", hashParam(chainId, hash), (Function<Map, String>) this::toBlockHex));
+    }
+
     public Result<String> latestHeight(int chainId) {
         Map<String, Object> param = new HashMap<>(2);
         param.put("chainId", chainId);
@@ -214,4 +186,46 @@ public class BlockTools implements CallRpc {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
+
+    private Map<String, Object> heightParam(int chainId, long height) {
+        Map<String, Object> param = new HashMap<>(2);
+        param.put("chainId", chainId);
+        param.put("height", height);
+        return param;
+    }
+
+    private Map<String, Object> hashParam(int chainId, String hash) {
+        Map<String, Object> param = new HashMap<>(2);
+        param.put("chainId", chainId);
+        param.put("hash", hash);
+        return param;
+    }
+
+    private Block toBlock(Map res) {
+        if (res == null || res.isEmpty()) {
+            return null;
+        }
+        Block _block = new Block();
+        try {
+            _block.parse(new NulsByteBuffer(HexUtil.decode((String) res.get("value"))));
+            for(Transaction tx : _block.getTxs()) {
+                tx.setStatus(TxStatusEnum.CONFIRMED);
+            }
+        } catch (NulsException e) {
+            Log.error(e);
+            return null;
+        }
+        return _block;
+    }
+
+    private String toBlockHex(Map res) {
+        if (res == null || res.isEmpty()) {
+            return null;
+        }
+        return (String) res.get("value");
+    }
+
+    private <T> CompletableFuture<Result<T>> toResult(CompletableFuture<T> future) {
+        return CallRpc.failToResult(future.thenApply(data -> new Result<>(data)), e -> Result.fail(e.getCode(), e.getMessage()));
+    }
 }
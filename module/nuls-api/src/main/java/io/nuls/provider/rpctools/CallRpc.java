@@ -7,9 +7,14 @@ import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.processor.ResponseMessageProcessor;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
 /**
@@ -19,6 +24,12 @@ import java.util.function.Function;
  */
 public interface CallRpc {
 
+    /**
+     * 异步调用的返回结果在该线程池中解析, 不占用rpc连接的IO线程
+     */
+    ExecutorService CALLBACK_EXECUTOR = ThreadUtils.createThreadPool(Runtime.getRuntime().availableProcessors(), 0,
+            new NulsThreadFactory("api-rpc-callback"));
+
     default  <T,R> R callRpc(String module, String method, Map<String, Object> params, Function<T, R> callback) {
         Log.debug("call {} rpc , method : {},param : {}",module,method,params);
         Response cmdResp = null;
@@ -29,6 +40,39 @@ public interface CallRpc {
             Log.warn("Calling remote interface failed. module:{} - interface:{} - message:{}", module, method, e.getMessage());
             throw new NulsRuntimeException(CommonCodeConstanst.FAILED, e.getMessage());
         }
+        return handleResponse(module, method, cmdResp, callback);
+    }
+
+    /**
+     * 异步调用, 不阻塞调用线程; 调用失败时返回的future以NulsRuntimeException异常完成
+     */
+    default <T, R> CompletableFuture<R> callRpcAsync(String module, String method, Map<String, Object> params, Function<T, R> callback) {
+        Log.debug("call {} rpc async, method : {},param : {}", module, method, params);
+        return ResponseMessageProcessor.requestAsync(module, method, params)
+                .handleAsync((cmdResp, e) -> {
+                    if (e != null) {
+                        Log.warn("Calling remote interface failed. module:{} - interface:{} - message:{}", module, method, e.getMessage());
+                        throw new NulsRuntimeException(CommonCodeConstanst.FAILED, e.getMessage());
+                    }
+                    Log.debug("result : {}", cmdResp);
+                    return handleResponse(module, method, cmdResp, callback);
+                }, CALLBACK_EXECUTOR);
+    }
+
+    /**
+     * 把异步调用的NulsRuntimeException转换为失败的Result, 与同步调用的处理方式一致
+     */
+    static <R> CompletableFuture<R> failToResult(CompletableFuture<R> future, Function<NulsRuntimeException, R> fail) {
+        return future.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof NulsRuntimeException) {
+                return fail.apply((NulsRuntimeException) cause);
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private <T, R> R handleResponse(String module, String method, Response cmdResp, Function<T, R> callback) {
         if (!cmdResp.isSuccess()) {
             String comment = cmdResp.getResponseComment();
             if(StringUtils.isBlank(comment)) {
@@ -12,6 +12,7 @@ import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -27,31 +28,43 @@ public class LegderTools implements CallRpc {
      * Get the available balance and nonce
      */
     public Result<AccountBalance> getBalanceAndNonce(int chainId, int assetChainId, int assetId, String address) {
+        try {
+            return callRpc(ModuleE.LG.abbr, "getBalanceNonce", balanceParam(chainId, assetChainId, assetId, address),
+                    (Function<Map<String, Object>, Result<AccountBalance>>) this::toBalance);
+        } catch (NulsRuntimeException e) {
+            return Result.fail(e.getCode(), e.getMessage());
+        }
+    }
+
+    public CompletableFuture<Result<AccountBalance>> getBalanceAndNonceAsync(int chainId, int assetChainId, int assetId, String address) {
+        return CallRpc.failToResult(callRpcAsync(ModuleE.LG.abbr, "getBalanceNonce", balanceParam(chainId, assetChainId, assetId, address),
+                (Function<Map<String, Object>, Result<AccountBalance>>) this::toBalance), e -> Result.fail(e.getCode(), e.getMessage()));
+    }
+
+    private Map<String, Object> balanceParam(int chainId, int assetChainId, int assetId, String address) {
         Map<String, Object> params = new HashMap(4);
         params.put(Constants.CHAIN_ID, chainId);
         params.put("assetChainId", assetChainId);
         params.put("address", address);
         params.put("assetId", assetId);
-        try {
-            return callRpc(ModuleE.LG.abbr, "getBalanceNonce", params, (Function<Map<String, Object>, Result<AccountBalance>>) map -> {
-                if (map == null) {
-                    return null;
-                }
-                AccountBalance balanceInfo = new AccountBalance();
-                balanceInfo.setBalance(map.get("available").toString());
-                balanceInfo.setTimeLock(map.get("timeHeightLocked").toString());
-                balanceInfo.setConsensusLock(map.get("permanentLocked").toString());
-                balanceInfo.setFreeze(map.get("freeze").toString());
-                balanceInfo.setNonce((String) map.get("nonce"));
-                balanceInfo.setTotalBalance(new BigInteger(balanceInfo.getBalance())
-                        .add(new BigInteger(balanceInfo.getConsensusLock()))
-                        .add(new BigInteger(balanceInfo.getTimeLock())).toString());
-                balanceInfo.setNonceType((Integer) map.get("nonceType"));
-                return new Result<>(balanceInfo);
-            });
-        } catch (NulsRuntimeException e) {
-            return Result.fail(e.getCode(), e.getMessage());
+        return params;
+    }
+
+    private Result<AccountBalance> toBalance(Map<String, Object> map) {
+        if (map == null) {
+            return null;
         }
+        AccountBalance balanceInfo = new AccountBalance();
+        balanceInfo.setBalance(map.get("available").toString());
+        balanceInfo.setTimeLock(map.get("timeHeightLocked").toString());
+        balanceInfo.setConsensusLock(map.get("permanentLocked").toString());
+        balanceInfo.setFreeze(map.get("freeze").toString());
+        balanceInfo.setNonce((String) map.get("nonce"));
+        balanceInfo.setTotalBalance(new BigInteger(balanceInfo.getBalance())
+                .add(new BigInteger(balanceInfo.getConsensusLock()))
+                .add(new BigInteger(balanceInfo.getTimeLock())).toString());
+        balanceInfo.setNonceType((Integer) map.get("nonceType"));
+        return new Result<>(balanceInfo);
     }
 
     public Result<List> getAllAsset(int chainId) {
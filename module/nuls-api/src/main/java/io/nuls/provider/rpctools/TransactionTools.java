@@ -16,6 +16,7 @@ import io.nuls.provider.rpctools.vo.TxRegisterDetail;
 import io.nuls.provider.utils.ResultUtil;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -41,6 +42,14 @@ public class TransactionTools implements CallRpc {
         }
     }
 
+    public CompletableFuture<Result> validateTxAsync(int chainId, String txStr) {
+        Map<String, Object> params = new HashMap<>(2);
+        params.put("chainId", chainId);
+        params.put("tx", txStr);
+        return CallRpc.failToResult(callRpcAsync(ModuleE.TX.abbr, "tx_verifyTx", params, (Function<Map<String, Object>, Result>) res -> new Result(res)),
+                e -> Result.fail(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 广播新交易
      */
@@ -90,29 +99,39 @@ public class TransactionTools implements CallRpc {
         params.put(Constants.CHAIN_ID, chainId);
         params.put("txHash", txHash);
         try {
-            return callRpc(ModuleE.TX.abbr, "tx_getTxClient", params, (Function<Map<String, Object>, Result<TransactionDto>>) res -> {
-                if (res == null || res.get("tx") == null) {
-                    return Result.fail(CommonCodeConstanst.DATA_NOT_FOUND.getCode(), CommonCodeConstanst.DATA_NOT_FOUND.getMsg());
-                }
-                String txStr = (String) res.get("tx");
-                Long height = Long.parseLong(res.get("height").toString());
-                Integer status = (Integer) res.get("status");
-                Transaction tx = new Transaction();
-                try {
-                    tx.parse(new NulsByteBuffer(HexUtil.decode(txStr)));
-                    TransactionDto txDto = new TransactionDto(tx);
-                    txDto.setBlockHeight(height);
-                    txDto.setStatus(status);
-                    return new Result(txDto);
-                } catch (NulsException e) {
-                    return ResultUtil.getNulsExceptionResult(e);
-                }
-            });
+            return callRpc(ModuleE.TX.abbr, "tx_getTxClient", params, (Function<Map<String, Object>, Result<TransactionDto>>) this::toTransactionDto);
         } catch (NulsRuntimeException e) {
             return Result.fail(e.getCode(), e.getMessage());
         }
     }
 
+    public CompletableFuture<Result<TransactionDto>> getTxAsync(int chainId, String txHash) {
+        Map<String, Object> params = new HashMap(4);
+        params.put(Constants.CHAIN_ID, chainId);
+        params.put("txHash", txHash);
+        return CallRpc.failToResult(callRpcAsync(ModuleE.TX.abbr, "tx_getTxClient", params,
+                (Function<Map<String, Object>, Result<TransactionDto>>) this::toTransactionDto), e -> Result.fail(e.getCode(), e.getMessage()));
+    }
+
+    private Result<TransactionDto> toTransactionDto(Map<String, Object> res) {
+        if (res == null || res.get("tx") == null) {
+            return Result.fail(CommonCodeConstanst.DATA_NOT_FOUND.getCode(), CommonCodeConstanst.DATA_NOT_FOUND.getMsg());
+        }
+        String txStr = (String) res.get("tx");
+        Long height = Long.parseLong(res.get("height").toString());
+        Integer status = (Integer) res.get("status");
+        Transaction tx = new Transaction();
+        try {
+            tx.parse(new NulsByteBuffer(HexUtil.decode(txStr)));
+            TransactionDto txDto = new TransactionDto(tx);
+            txDto.setBlockHeight(height);
+            txDto.setStatus(status);
+            return new Result(txDto);
+        } catch (NulsException e) {
+            return ResultUtil.getNulsExceptionResult(e);
+        }
+    }
+
     public Result<TransactionDto> getConfirmedTx(int chainId, String txHash) {
         Map<String, Object> params = new HashMap(4);
         params.put(Constants.CHAIN_ID, chainId);
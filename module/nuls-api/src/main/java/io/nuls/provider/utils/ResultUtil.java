@@ -33,6 +33,10 @@ import io.nuls.provider.model.RpcClientResult;
 import io.nuls.provider.model.jsonrpc.RpcResult;
 import io.nuls.provider.model.jsonrpc.RpcResultError;
 
+import javax.ws.rs.container.AsyncResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * @author: PierreLuo
  * @date: 2019-06-28
@@ -60,6 +64,19 @@ public class ResultUtil {
         }
     }
 
+    /**
+     * 异步处理完成后返回结果, 处理异常时与同步接口抛出异常的处理方式一致
+     */
+    public static void resume(AsyncResponse asyncResponse, CompletableFuture<RpcClientResult> future) {
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                asyncResponse.resume(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                asyncResponse.resume(result);
+            }
+        });
+    }
+
     public static RpcClientResult getRpcClientResult(io.nuls.core.basic.Result result) {
         if (result.isFailed()) {
             String msg = result.getMsg();
@@ -0,0 +1,222 @@
+package io.nuls.provider.api.jsonrpc;
+
+import io.nuls.core.core.annotation.RpcMethod;
+import io.nuls.provider.api.jsonrpc.controller.BlockController;
+import io.nuls.provider.model.jsonrpc.RpcResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * 模拟浏览器类客户端的批量请求, 检查批量请求并发执行、结果顺序以及按高度失效的结果缓存
+ */
+public class JsonRpcServerTest {
+
+    /**
+     * 模拟一次模块接口调用的耗时
+     */
+    private static final long MODULE_DELAY = 20;
+
+    /**
+     * 桩接口, 每次调用都计入模块调用次数
+     */
+    public static class StubController {
+        final AtomicInteger moduleCalls = new AtomicInteger();
+        final AtomicLong height = new AtomicLong(100);
+
+        private void module() {
+            moduleCalls.incrementAndGet();
+            try {
+                Thread.sleep(MODULE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @RpcCacheable
+        public RpcResult getBestBlockHeader(List<Object> params) {
+            module();
+            return RpcResult.success(height.get());
+        }
+
+        @RpcCacheable
+        public RpcResult getHeaderByHeight(List<Object> params) {
+            module();
+            return RpcResult.success("header-" + params.get(1));
+        }
+
+        @RpcCacheable
+        public RpcResult getTx(List<Object> params) {
+            module();
+            return RpcResult.dataNotFound();
+        }
+
+        public RpcResult broadcastTx(List<Object> params) {
+            module();
+            return RpcResult.success(true);
+        }
+    }
+
+    private static final String[] METHODS = {"getBestBlockHeader", "getHeaderByHeight", "getTx", "broadcastTx"};
+
+    private StubController controller;
+    private JsonRpcServer server;
+
+    @Before
+    public void before() throws Exception {
+        controller = new StubController();
+        server = new JsonRpcServer();
+        for (String method : METHODS) {
+            JsonRpcContext.RPC_METHOD_INVOKER_MAP.put(method, new RpcMethodInvoker(controller, StubController.class.getMethod(method, List.class)));
+        }
+        JsonRpcContext.RPC_RESULT_CACHE = null;
+    }
+
+    @After
+    public void after() {
+        for (String method : METHODS) {
+            JsonRpcContext.RPC_METHOD_INVOKER_MAP.remove(method);
+        }
+        JsonRpcContext.RPC_RESULT_CACHE = null;
+    }
+
+    private Map<String, Object> form(Object id, String method, Object... params) {
+        Map<String, Object> form = new HashMap<>();
+        form.put("jsonrpc", "2.0");
+        form.put("id", id);
+        form.put("method", method);
+        form.put("params", new ArrayList<>(Arrays.asList(params)));
+        return form;
+    }
+
+    /**
+     * 浏览器首页: 最新区块头和最近若干个区块头
+     */
+    private List<Map<String, Object>> explorerBatch(int client) {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        batch.add(form(client * 100, "getBestBlockHeader", 1));
+        for (int i = 0; i < 15; i++) {
+            batch.add(form(client * 100 + i + 1, "getHeaderByHeight", 1, 100 - i));
+        }
+        return batch;
+    }
+
+    @Test
+    public void batchOrder() {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            batch.add(i % 4 == 3 ? form(i, "notExist") : form(i, "getHeaderByHeight", 1, i));
+        }
+        List<RpcResult> results = (List<RpcResult>) server.dispatcher(batch);
+        assertEquals(40, results.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(String.valueOf(i), results.get(i).getId());
+            if (i % 4 == 3) {
+                assertEquals("-32601", results.get(i).getError().getCode());
+            } else {
+                assertEquals("header-" + i, results.get(i).getResult());
+            }
+        }
+        RpcResult single = (RpcResult) server.dispatcher(Collections.singletonList(form(7, "getHeaderByHeight", 1, 7)));
+        assertEquals("7", single.getId());
+    }
+
+    @Test
+    public void cacheInvalidatedByHeight() {
+        JsonRpcContext.RPC_RESULT_CACHE = new RpcResultCache(controller.height::get, 0, 100);
+        RpcResult first = (RpcResult) server.dispatcher(form(1, "getBestBlockHeader", 1));
+        RpcResult second = (RpcResult) server.dispatcher(form(2, "getBestBlockHeader", 1));
+        assertEquals(1, controller.moduleCalls.get());
+        assertEquals("1", first.getId());
+        assertEquals("2", second.getId());
+        assertEquals(100L, second.getResult());
+
+        controller.height.incrementAndGet();
+        RpcResult third = (RpcResult) server.dispatcher(form(3, "getBestBlockHeader", 1));
+        assertEquals(2, controller.moduleCalls.get());
+        assertEquals(101L, third.getResult());
+
+        // 参数不同、失败结果和未标记缓存的方法都不使用缓存
+        server.dispatcher(form(4, "getHeaderByHeight", 1, 1));
+        server.dispatcher(form(5, "getHeaderByHeight", 1, 2));
+        server.dispatcher(form(6, "getTx", 1, "hash"));
+        server.dispatcher(form(7, "getTx", 1, "hash"));
+        server.dispatcher(form(8, "broadcastTx", 1, "tx"));
+        server.dispatcher(form(9, "broadcastTx", 1, "tx"));
+        assertEquals(8, controller.moduleCalls.get());
+
+        // 查询高度失败时不缓存
+        JsonRpcContext.RPC_RESULT_CACHE = new RpcResultCache(() -> -1, 0, 100);
+        server.dispatcher(form(10, "getBestBlockHeader", 1));
+        server.dispatcher(form(11, "getBestBlockHeader", 1));
+        assertEquals(10, controller.moduleCalls.get());
+    }
+
+    @Test
+    public void explorerWorkload() throws Exception {
+        int clients = 20;
+        // 原实现: 逐个顺序执行且不缓存
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            for (Map<String, Object> form : explorerBatch(c)) {
+                JsonRpcContext.RPC_METHOD_INVOKER_MAP.get(form.get("method")).invoke((List<Object>) form.get("params"));
+            }
+        }
+        long sequentialCost = (System.nanoTime() - start) / clients / 1000000;
+        int sequentialCalls = controller.moduleCalls.getAndSet(0);
+
+        JsonRpcContext.RPC_RESULT_CACHE = new RpcResultCache(controller.height::get, 500, 10000);
+        ExecutorService clientPool = Executors.newFixedThreadPool(4);
+        List<Future<Long>> costs = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            costs.add(clientPool.submit(() -> {
+                long begin = System.nanoTime();
+                List<RpcResult> results = (List<RpcResult>) server.dispatcher(explorerBatch(client));
+                assertEquals(100L, results.get(0).getResult());
+                assertEquals("header-86", results.get(15).getResult());
+                return (System.nanoTime() - begin) / 1000000;
+            }));
+        }
+        long batchCost = 0;
+        for (Future<Long> cost : costs) {
+            batchCost += cost.get();
+        }
+        clientPool.shutdown();
+        batchCost /= clients;
+        int batchCalls = controller.moduleCalls.get();
+        System.out.println(clients + "个客户端, 每个批量16个请求, 单个请求" + MODULE_DELAY + "ms");
+        System.out.println("顺序执行 平均批量耗时(ms):" + sequentialCost + ", 模块调用次数:" + sequentialCalls);
+        System.out.println("并发执行+缓存 平均批量耗时(ms):" + batchCost + ", 模块调用次数:" + batchCalls);
+        assertEquals(clients * 16, sequentialCalls);
+        // 同一高度下相同请求只调用一次模块接口
+        assertEquals(16, batchCalls);
+        assertTrue(batchCost < sequentialCost / 2);
+    }
+
+    /**
+     * 缓存按条数限制, 返回完整区块或区块序列化数据的方法不能进入缓存
+     */
+    @Test
+    public void fullBlockNotCached() {
+        Set<String> cached = new HashSet<>();
+        for (Method method : BlockController.class.getMethods()) {
+            RpcMethod rpcMethod = method.getAnnotation(RpcMethod.class);
+            if (rpcMethod != null && method.getAnnotation(RpcCacheable.class) != null) {
+                cached.add(rpcMethod.value());
+            }
+        }
+        assertTrue(cached.contains("getHeaderByHeight"));
+        for (String name : new String[]{"getBestBlock", "getBlockByHeight", "getBlockByHash", "getBlockSerializationByHeight", "getBlockSerializationByHash"}) {
+            assertFalse(name, cached.contains(name));
+        }
+    }
+}
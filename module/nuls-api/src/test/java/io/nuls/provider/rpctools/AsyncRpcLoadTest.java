@@ -0,0 +1,152 @@
+package io.nuls.provider.rpctools;
+
+import io.netty.channel.*;
+import io.netty.channel.local.LocalChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.nuls.base.api.provider.Result;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.rpc.netty.processor.container.RequestContainer;
+import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.provider.rpctools.vo.AccountBalance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地桩模块模拟慢速的账本模块, 对比同步调用与异步调用在固定工作线程数下的吞吐量和p99延迟
+ */
+public class AsyncRpcLoadTest {
+
+    /**
+     * 桩模块响应延迟
+     */
+    private static final long MODULE_DELAY = 100;
+    /**
+     * 与http服务的工作线程数一致
+     */
+    private static final int WORKER_COUNT = 4;
+    private static final int REQUEST_COUNT = 200;
+
+    private DefaultEventLoopGroup group;
+    private ScheduledExecutorService responder;
+    private LegderTools legderTools;
+
+    /**
+     * 截获发往模块的请求, 延迟后按messageId完成对应的ResponseContainer
+     */
+    private class StubModuleHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            TextWebSocketFrame frame = (TextWebSocketFrame) msg;
+            Map<String, Object> message;
+            try {
+                message = JSONUtils.json2map(frame.content().toString(StandardCharsets.UTF_8));
+            } finally {
+                frame.release();
+            }
+            promise.setSuccess();
+            String messageId = (String) message.get("MessageID");
+            Map<String, Object> request = (Map<String, Object>) message.get("MessageData");
+            String cmd = ((Map<String, Object>) request.get("RequestMethods")).keySet().iterator().next();
+            responder.schedule(() -> {
+                Map<String, Object> balance = new HashMap<>();
+                balance.put("available", "100000000");
+                balance.put("timeHeightLocked", "0");
+                balance.put("permanentLocked", "0");
+                balance.put("freeze", "0");
+                balance.put("nonce", "0000000000000000");
+                balance.put("nonceType", 1);
+                Response response = MessageUtil.newSuccessResponse(messageId);
+                Map<String, Object> data = new HashMap<>();
+                data.put(cmd, balance);
+                response.setResponseData(data);
+                ResponseContainer container = RequestContainer.getResponseContainer(messageId);
+                if (container != null) {
+                    container.getFuture().complete(response);
+                }
+            }, MODULE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Before
+    public void before() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        responder = Executors.newSingleThreadScheduledExecutor();
+        Channel channel = new LocalChannel();
+        channel.pipeline().addLast(new StubModuleHandler());
+        group.register(channel).sync();
+        ConnectManager.ROLE_CHANNEL_MAP.put(ModuleE.LG.abbr, channel);
+        legderTools = new LegderTools();
+        // 预热, 避免类加载耗时计入统计
+        assertTrue(legderTools.getBalanceAndNonce(1, 1, 1, "warmup").isSuccess());
+        assertTrue(legderTools.getBalanceAndNonceAsync(1, 1, 1, "warmup").get().isSuccess());
+    }
+
+    @After
+    public void after() {
+        ConnectManager.ROLE_CHANNEL_MAP.remove(ModuleE.LG.abbr);
+        responder.shutdownNow();
+        group.shutdownGracefully();
+    }
+
+    @Test
+    public void syncVsAsync() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(WORKER_COUNT);
+        try {
+            long[] sync = run(workers, (start, latencies) -> {
+                Result<AccountBalance> result = legderTools.getBalanceAndNonce(1, 1, 1, "address");
+                assertEquals("100000000", result.getData().getBalance());
+                latencies.add(System.nanoTime() - start);
+                return CompletableFuture.completedFuture(null);
+            });
+            long[] async = run(workers, (start, latencies) -> legderTools.getBalanceAndNonceAsync(1, 1, 1, "address")
+                    .thenAccept(result -> {
+                        assertEquals("100000000", result.getData().getBalance());
+                        latencies.add(System.nanoTime() - start);
+                    }));
+            System.out.println(REQUEST_COUNT + "个请求, " + WORKER_COUNT + "个工作线程, 模块延迟" + MODULE_DELAY + "ms");
+            System.out.println("同步调用 吞吐量(次/秒):" + sync[0] + ", p99(ms):" + sync[1]);
+            System.out.println("异步调用 吞吐量(次/秒):" + async[0] + ", p99(ms):" + async[1]);
+            // 同步调用受工作线程数限制, 异步调用的吞吐量应明显更高
+            assertTrue(async[0] > sync[0] * 2);
+            assertTrue(async[1] < sync[1]);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private interface Call {
+        CompletableFuture<Void> apply(long start, Queue<Long> latencies);
+    }
+
+    /**
+     * 所有请求同时到达, 由工作线程处理, 返回吞吐量和p99延迟
+     */
+    private long[] run(ExecutorService workers, Call call) throws Exception {
+        Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        List<Future<CompletableFuture<Void>>> submitted = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            submitted.add(workers.submit(() -> call.apply(begin, latencies)));
+        }
+        for (Future<CompletableFuture<Void>> future : submitted) {
+            future.get().get(30, TimeUnit.SECONDS);
+        }
+        long cost = System.nanoTime() - begin;
+        assertEquals(REQUEST_COUNT, latencies.size());
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1) / 1000000;
+        return new long[]{REQUEST_COUNT * 1000000000L / cost, p99};
+    }
+}
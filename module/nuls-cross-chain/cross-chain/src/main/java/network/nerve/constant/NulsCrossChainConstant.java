@@ -97,6 +97,21 @@ public interface NulsCrossChainConstant {
 
     long RPC_TIME_OUT = 5 * 1000L;
 
+    /**
+     * 链内跨链交易签名验证线程数
+     */
+    int SIGN_VERIFY_THREAD_COUNT = 4;
+
+    /**
+     * 签名拜占庭统计线程每次最多处理的签名消息数
+     */
+    int SIGN_BYZANTINE_BATCH_SIZE = 1000;
+
+    /**
+     * 缓存的跨链交易签名对应Hash数量
+     */
+    int SIGN_VERIFY_HASH_CACHE_SIZE = 2000;
+
     int CTX_STAGE_WAIT_RECEIVE = 1;
     Integer CTX_STATE_PROCESSING = 2;
 
@@ -5,6 +5,7 @@ import io.nuls.base.data.Transaction;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.thread.ThreadUtils;
 import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.constant.NulsCrossChainConstant;
 import network.nerve.model.bo.config.ConfigBean;
 import network.nerve.model.bo.message.UntreatedMessage;
 import network.nerve.model.bo.message.WaitBroadSignMessage;
@@ -13,6 +14,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -81,6 +83,35 @@ public class Chain {
      * */
     private LinkedBlockingQueue<UntreatedMessage> getCtxStateQueue;
 
+    /**
+     * 签名验证通过，待拜占庭统计的本链节点签名消息
+     * */
+    private LinkedBlockingQueue<UntreatedMessage> signVerifiedQueue;
+
+    /**
+     * 签名已更新但还未保存的跨链交易Hash
+     * */
+    private LinkedBlockingQueue<NulsHash> signPersistQueue;
+
+    /**
+     * 签名已更新但还未保存的跨链交易，拜占庭统计时优先从这里读取签名状态
+     * key:交易缓存Hash
+     * value:跨链交易
+     * */
+    private Map<NulsHash, Transaction> unsavedSignCtxMap;
+
+    /**
+     * 跨链交易签名对应的Hash（平行链跨链转账交易为转换后的主网协议交易Hash）
+     * key:交易缓存Hash
+     * value:签名对应的交易Hash
+     * */
+    private Map<NulsHash, NulsHash> signVerifyHashMap;
+
+    /**
+     * 保存未确认签名状态与拜占庭统计互斥执行，防止旧的签名状态覆盖已确认的交易状态
+     * */
+    private final ReentrantLock signCtxLock = new ReentrantLock();
+
 
     /**
      * 线程池
@@ -148,6 +179,11 @@ public class Chain {
      * 处理跨链交易的线程池
      * */
     private final ExecutorService crossTxThreadPool = ThreadUtils.createThreadPool(4, 10000, new NulsThreadFactory("CROSS_TX_THREAD_POOL"));
+
+    /**
+     * 链内签名消息处理线程池（签名验证、拜占庭统计、签名状态保存）
+     * */
+    private final ExecutorService signThreadPool = ThreadUtils.createThreadPool(NulsCrossChainConstant.SIGN_VERIFY_THREAD_COUNT + 2, 0, new NulsThreadFactory("CROSS_SIGN_THREAD_POOL"));
     public Chain(){
         otherHashNodeIdMap = new ConcurrentHashMap<>();
         ctxStateMap = new ConcurrentHashMap<>();
@@ -157,6 +193,15 @@ public class Chain {
         signMessageByzantineQueue = new LinkedBlockingQueue<>();
         otherCtxMessageQueue = new LinkedBlockingQueue<>();
         getCtxStateQueue = new LinkedBlockingQueue<>();
+        signVerifiedQueue = new LinkedBlockingQueue<>();
+        signPersistQueue = new LinkedBlockingQueue<>();
+        unsavedSignCtxMap = new ConcurrentHashMap<>();
+        signVerifyHashMap = Collections.synchronizedMap(new LinkedHashMap<NulsHash, NulsHash>(NulsCrossChainConstant.INIT_CAPACITY_16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<NulsHash, NulsHash> eldest) {
+                return size() > NulsCrossChainConstant.SIGN_VERIFY_HASH_CACHE_SIZE;
+            }
+        });
         futureMessageMap = new ConcurrentHashMap<>();
         verifierList = new ArrayList<>();
         mainChain = false;
@@ -259,6 +304,30 @@ public class Chain {
         this.getCtxStateQueue = getCtxStateQueue;
     }
 
+    public LinkedBlockingQueue<UntreatedMessage> getSignVerifiedQueue() {
+        return signVerifiedQueue;
+    }
+
+    public LinkedBlockingQueue<NulsHash> getSignPersistQueue() {
+        return signPersistQueue;
+    }
+
+    public Map<NulsHash, Transaction> getUnsavedSignCtxMap() {
+        return unsavedSignCtxMap;
+    }
+
+    public Map<NulsHash, NulsHash> getSignVerifyHashMap() {
+        return signVerifyHashMap;
+    }
+
+    public ReentrantLock getSignCtxLock() {
+        return signCtxLock;
+    }
+
+    public ExecutorService getSignThreadPool() {
+        return signThreadPool;
+    }
+
     public Map<NulsHash, List<UntreatedMessage>> getFutureMessageMap() {
         return futureMessageMap;
     }
@@ -29,6 +29,7 @@ import network.nerve.rpc.call.ChainManagerCall;
 import network.nerve.rpc.call.TransactionCall;
 import network.nerve.utils.CommonUtil;
 import network.nerve.utils.LoggerUtil;
+import network.nerve.utils.MessageUtil;
 import network.nerve.utils.TxUtil;
 import network.nerve.utils.manager.ChainManager;
 import network.nerve.utils.manager.CoinDataManager;
@@ -254,12 +255,12 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
                         convertHash = TxUtil.friendConvertToMain(chain, ctx, TxType.CROSS_CHAIN).getHash();
                     }
                     if (!convertHashService.save(convertHash, ctxHash, chainId)) {
-                        rollbackCtx(convertHashList, ctxStatusList, otherCtxList, chainId);
+                        rollbackCtx(chain, convertHashList, ctxStatusList, otherCtxList);
                         return false;
                     }
                     convertHashList.add(convertHash);
                     if (!otherCtxService.save(convertHash, ctx, chainId)) {
-                        rollbackCtx(convertHashList, ctxStatusList, otherCtxList, chainId);
+                        rollbackCtx(chain, convertHashList, ctxStatusList, otherCtxList);
                         return false;
                     }
                     otherCtxList.add(convertHash);
@@ -267,7 +268,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
                     if (!config.isMainNet()) {
                         NulsHash convertHash = TxUtil.friendConvertToMain(chain, ctx, TxType.CROSS_CHAIN).getHash();
                         if (!convertHashService.save(convertHash, ctxHash, chainId)) {
-                            rollbackCtx(convertHashList, ctxStatusList, otherCtxList, chainId);
+                            rollbackCtx(chain, convertHashList, ctxStatusList, otherCtxList);
                             return false;
                         }
                         convertHashList.add(convertHash);
@@ -276,7 +277,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
                     if (chainId != fromChainId) {
                         ctx.setTransactionSignature(null);
                         if (!otherCtxService.save(ctxHash, ctx, chainId)) {
-                            rollbackCtx(convertHashList, ctxStatusList, otherCtxList, chainId);
+                            rollbackCtx(chain, convertHashList, ctxStatusList, otherCtxList);
                             return false;
                         }
                         otherCtxList.add(ctxHash);
@@ -345,7 +346,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
                             continue;
                         }
                     }
-                    if (!ctxStatusService.delete(ctxHash, chainId) || !convertHashService.delete(ctxHash, chainId)) {
+                    if (!MessageUtil.deleteCtxStatus(chain, ctxHash) || !convertHashService.delete(ctxHash, chainId)) {
                         return false;
                     }
                 } else if (chainId == toChainId) {
@@ -364,7 +365,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
                             continue;
                         }
                     }
-                    if (!ctxStatusService.delete(ctxHash, chainId) || !convertHashService.delete(ctxHash, chainId)) {
+                    if (!MessageUtil.deleteCtxStatus(chain, ctxHash) || !convertHashService.delete(ctxHash, chainId)) {
                         return false;
                     }
                 }
@@ -529,7 +530,8 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
         return Result.getSuccess(SUCCESS).setData(result);
     }
 
-    private void rollbackCtx(List<NulsHash> convertHashList, List<NulsHash> ctxStatusList, List<NulsHash> otherCtxList, int chainId) {
+    private void rollbackCtx(Chain chain, List<NulsHash> convertHashList, List<NulsHash> ctxStatusList, List<NulsHash> otherCtxList) {
+        int chainId = chain.getChainId();
         for (NulsHash convertHash : convertHashList) {
             convertHashService.delete(convertHash, chainId);
         }
@@ -539,7 +541,7 @@ public class NulsCrossChainServiceImpl implements CrossChainService {
         for (NulsHash ctxStatusHash : ctxStatusList) {
             CtxStatusPO ctxStatusPO = ctxStatusService.get(ctxStatusHash, chainId);
             ctxStatusPO.setStatus(TxStatusEnum.UNCONFIRM.getStatus());
-            ctxStatusService.save(ctxStatusHash, ctxStatusPO, chainId);
+            MessageUtil.saveCtxStatus(chain, ctxStatusHash, ctxStatusPO);
         }
     }
 }
@@ -28,6 +28,7 @@ import network.nerve.constant.NulsCrossChainConstant;
 import network.nerve.constant.ParamConstant;
 import network.nerve.model.bo.Chain;
 import network.nerve.model.bo.NodeType;
+import network.nerve.model.bo.message.UntreatedMessage;
 import network.nerve.model.bo.message.WaitBroadSignMessage;
 import network.nerve.model.po.CtxStatusPO;
 import network.nerve.model.po.SendCtxHashPO;
@@ -71,42 +72,177 @@ public class MessageUtil {
     private static SendHeightService sendHeightService;
 
     /**
-     * 对本链广播的交易进行处理
+     * 验证本链节点广播过来的跨链交易签名
+     * 签名对应的交易Hash缓存在内存中，同一交易的签名消息不需要每次都从数据库读取交易
      *
      * @param chain   本链信息
-     * @param hash    交易缓存HASH
-     * @param chainId 发送链ID
-     * @param nodeId  发送节点ID
-     * @param hashHex 交易Hash字符串（用于日志打印）
+     * @param message 签名消息
+     * @return 签名是否正确
      */
-    public static void handleSignMessage(Chain chain, NulsHash hash, int chainId, String nodeId, BroadCtxSignMessage messageBody, String hashHex) {
+    public static boolean verifySignMessage(Chain chain, UntreatedMessage message) {
+        NulsHash cacheHash = message.getCacheHash();
+        BroadCtxSignMessage messageBody = (BroadCtxSignMessage) message.getMessage();
+        if (messageBody.getSignature() == null) {
+            return false;
+        }
         try {
-            int handleChainId = chain.getChainId();
-            CtxStatusPO ctxStatusPO = ctxStatusService.get(hash, handleChainId);
-            //如果交易在本节点已确认则无需再签名处理
-            if (ctxStatusPO.getStatus() != TxStatusEnum.UNCONFIRM.getStatus() || messageBody.getSignature() == null) {
-                chain.getLogger().info("跨链交易在本节点已经处理完成,Hash:{}\n\n", hashHex);
-                return;
+            NulsHash verifyHash = chain.getSignVerifyHashMap().get(cacheHash);
+            if (verifyHash == null) {
+                int handleChainId = chain.getChainId();
+                CtxStatusPO ctxStatusPO = ctxStatusService.get(cacheHash, handleChainId);
+                //如果交易在本节点已确认则无需再签名处理
+                if (ctxStatusPO == null || ctxStatusPO.getStatus() != TxStatusEnum.UNCONFIRM.getStatus()) {
+                    chain.getLogger().info("跨链交易在本节点已经处理完成,Hash:{}\n\n", cacheHash.toHex());
+                    return false;
+                }
+                Transaction convertCtx = ctxStatusPO.getTx();
+                if (!config.isMainNet() && convertCtx.getType() == config.getCrossCtxType()) {
+                    convertCtx = convertCtxService.get(cacheHash, handleChainId);
+                }
+                verifyHash = convertCtx.getHash();
+                chain.getSignVerifyHashMap().put(cacheHash, verifyHash);
             }
-            String signHex = HexUtil.encode(messageBody.getSignature());
             P2PHKSignature p2PHKSignature = new P2PHKSignature();
             p2PHKSignature.parse(messageBody.getSignature(), 0);
-            Transaction convertCtx = ctxStatusPO.getTx();
-            if (!config.isMainNet() && convertCtx.getType() == config.getCrossCtxType()) {
-                convertCtx = convertCtxService.get(hash, handleChainId);
-            }
             //验证签名是否正确，如果是跨链转账交易，这签名对应的主网协议签名
-            if (!ECKey.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
-                chain.getLogger().info("签名验证错误，hash:{},签名:{}\n\n", hashHex, signHex);
-                return;
+            if (!ECKey.verify(verifyHash.getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+                chain.getLogger().info("签名验证错误，hash:{},签名:{}\n\n", cacheHash.toHex(), HexUtil.encode(messageBody.getSignature()));
+                return false;
             }
-            MessageUtil.signByzantine(chain, chainId, hash, ctxStatusPO.getTx(), messageBody, hashHex, signHex, nodeId);
+            return true;
         } catch (NulsException e) {
             chain.getLogger().error(e);
-        } catch (IOException io) {
-            chain.getLogger().error(io);
+            return false;
         }
+    }
 
+    /**
+     * 对同一笔跨链交易已验证通过的签名消息做拜占庭统计
+     * 签名状态优先从还未保存的交易中读取，拜占庭未通过时只更新内存中的签名状态，由签名状态保存线程写入数据库
+     *
+     * @param chain       本链信息
+     * @param cacheHash   交易缓存HASH
+     * @param messageList 已验证通过的签名消息
+     */
+    @SuppressWarnings("unchecked")
+    public static void handleSignMessages(Chain chain, NulsHash cacheHash, List<UntreatedMessage> messageList) {
+        String nativeHex = cacheHash.toHex();
+        List<UntreatedMessage> broadMessageList = new ArrayList<>();
+        chain.getSignCtxLock().lock();
+        try {
+            Transaction ctx = chain.getUnsavedSignCtxMap().get(cacheHash);
+            if (ctx == null) {
+                CtxStatusPO ctxStatusPO = ctxStatusService.get(cacheHash, chain.getChainId());
+                if (ctxStatusPO == null || ctxStatusPO.getStatus() != TxStatusEnum.UNCONFIRM.getStatus()) {
+                    chain.getLogger().info("跨链交易在本节点已经处理完成,Hash:{}\n\n", nativeHex);
+                    return;
+                }
+                ctx = ctxStatusPO.getTx();
+            }
+            //去掉本节点已经收到过的签名，已经收到的签名不需要再广播
+            TransactionSignature signature = new TransactionSignature();
+            Set<String> signHexSet = new HashSet<>();
+            if (ctx.getTransactionSignature() != null) {
+                signature.parse(ctx.getTransactionSignature(), 0);
+                for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
+                    signHexSet.add(HexUtil.encode(sign.serialize()));
+                }
+            } else {
+                signature.setP2PHKSignatures(new ArrayList<>());
+            }
+            for (UntreatedMessage message : messageList) {
+                byte[] signBytes = ((BroadCtxSignMessage) message.getMessage()).getSignature();
+                String signHex = HexUtil.encode(signBytes);
+                if (!signHexSet.add(signHex)) {
+                    chain.getLogger().debug("本节点已经收到过该跨链交易的该签名,Hash:{},签名:{}\n\n", nativeHex, signHex);
+                    continue;
+                }
+                P2PHKSignature p2PHKSignature = new P2PHKSignature();
+                p2PHKSignature.parse(signBytes, 0);
+                signature.getP2PHKSignatures().add(p2PHKSignature);
+                broadMessageList.add(message);
+            }
+            if (broadMessageList.isEmpty()) {
+                return;
+            }
+            //交易签名拜占庭
+            List<String> packAddressList;
+            if (ctx.getType() == TxType.VERIFIER_INIT) {
+                packAddressList = (List<String>) ConsensusCall.getSeedNodeList(chain).get(ParamConstant.PARAM_PACK_ADDRESS_LIST);
+            } else {
+                packAddressList = chain.getVerifierList();
+            }
+            if (signByzantineInChain(chain, ctx, signature, packAddressList, cacheHash, false)) {
+                chain.getUnsavedSignCtxMap().remove(cacheHash);
+                chain.getSignVerifyHashMap().remove(cacheHash);
+            } else {
+                chain.getUnsavedSignCtxMap().put(cacheHash, ctx);
+                chain.getSignPersistQueue().offer(cacheHash);
+            }
+        } catch (NulsException | IOException e) {
+            chain.getLogger().error(e);
+            return;
+        } finally {
+            chain.getSignCtxLock().unlock();
+        }
+        for (UntreatedMessage message : broadMessageList) {
+            NetWorkCall.broadcast(message.getChainId(), message.getMessage(), message.getNodeId(), CommandConstant.BROAD_CTX_SIGN_MESSAGE, false);
+        }
+        chain.getLogger().info("将新收到的跨链交易签名广播给链接到的其他节点,Hash:{},签名数:{}\n\n", nativeHex, broadMessageList.size());
+    }
+
+    /**
+     * 保存拜占庭统计后还未保存的跨链交易签名状态，同一交易多次更新的签名只保存最新的一次
+     *
+     * @param chain     本链信息
+     * @param cacheHash 交易缓存HASH
+     */
+    public static void saveUnsavedSignCtx(Chain chain, NulsHash cacheHash) {
+        chain.getSignCtxLock().lock();
+        try {
+            Transaction ctx = chain.getUnsavedSignCtxMap().remove(cacheHash);
+            if (ctx != null) {
+                ctxStatusService.save(cacheHash, new CtxStatusPO(ctx, TxStatusEnum.UNCONFIRM.getStatus()), chain.getChainId());
+            }
+        } finally {
+            chain.getSignCtxLock().unlock();
+        }
+    }
+
+    /**
+     * 签名拜占庭以外的地方保存跨链交易状态，丢弃内存中还未保存的签名状态，避免签名状态保存线程用旧数据覆盖
+     *
+     * @param chain       本链信息
+     * @param cacheHash   交易缓存HASH
+     * @param ctxStatusPO 跨链交易状态
+     * @return 保存是否成功
+     */
+    public static boolean saveCtxStatus(Chain chain, NulsHash cacheHash, CtxStatusPO ctxStatusPO) {
+        chain.getSignCtxLock().lock();
+        try {
+            chain.getUnsavedSignCtxMap().remove(cacheHash);
+            return ctxStatusService.save(cacheHash, ctxStatusPO, chain.getChainId());
+        } finally {
+            chain.getSignCtxLock().unlock();
+        }
+    }
+
+    /**
+     * 删除跨链交易状态，同时清除内存中还未保存的签名状态和签名验证Hash
+     *
+     * @param chain     本链信息
+     * @param cacheHash 交易缓存HASH
+     * @return 删除是否成功
+     */
+    public static boolean deleteCtxStatus(Chain chain, NulsHash cacheHash) {
+        chain.getSignCtxLock().lock();
+        try {
+            chain.getUnsavedSignCtxMap().remove(cacheHash);
+            chain.getSignVerifyHashMap().remove(cacheHash);
+            return ctxStatusService.delete(cacheHash, chain.getChainId());
+        } finally {
+            chain.getSignCtxLock().unlock();
+        }
     }
 
     /**
@@ -141,45 +277,22 @@ public class MessageUtil {
     }
 
     /**
-     * 交易签名拜占庭处理
+     * 交易签名拜占庭验证
      *
-     * @param chain       本链信息
-     * @param chainId     发送链ID
-     * @param realHash    本链协议跨链交易Hash
-     * @param ctx         跨链交易
-     * @param messageBody 消息
-     * @param nativeHex   交易Hash字符串
-     * @param signHex     交易签名字符串
+     * @param chain           本链信息
+     * @param ctx             跨链交易
+     * @param signature       签名列表
+     * @param packAddressList 验证账户列表
+     * @return 拜占庭验证是否通过
      */
-    @SuppressWarnings("unchecked")
-    public static void signByzantine(Chain chain, int chainId, NulsHash realHash, Transaction ctx, BroadCtxSignMessage messageBody, String nativeHex, String signHex, String excludeNodes) throws NulsException, IOException {
-        //判断节点是否已经收到并广播过该签名，如果已经广播过则不需要再广播
-        TransactionSignature signature = new TransactionSignature();
-        if (ctx.getTransactionSignature() != null) {
-            signature.parse(ctx.getTransactionSignature(), 0);
-            for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
-                if (Arrays.equals(messageBody.getSignature(), sign.serialize())) {
-                    chain.getLogger().debug("本节点已经收到过该跨链交易的该签名,Hash:{},签名:{}\n\n", nativeHex, signHex);
-                    return;
-                }
-            }
-        } else {
-            List<P2PHKSignature> p2PHKSignatureList = new ArrayList<>();
-            signature.setP2PHKSignatures(p2PHKSignatureList);
-        }
-        P2PHKSignature p2PHKSignature = new P2PHKSignature();
-        p2PHKSignature.parse(messageBody.getSignature(), 0);
-        signature.getP2PHKSignatures().add(p2PHKSignature);
-        //交易签名拜占庭
-        List<String> packAddressList;
-        if (ctx.getType() == TxType.VERIFIER_INIT) {
-            packAddressList = (List<String>) ConsensusCall.getSeedNodeList(chain).get(ParamConstant.PARAM_PACK_ADDRESS_LIST);
-        } else {
-            packAddressList = chain.getVerifierList();
+    public static boolean signByzantineInChain(Chain chain, Transaction ctx, TransactionSignature signature, List<String> packAddressList, NulsHash realHash) throws NulsException, IOException {
+        chain.getSignCtxLock().lock();
+        try {
+            chain.getUnsavedSignCtxMap().remove(realHash);
+            return signByzantineInChain(chain, ctx, signature, packAddressList, realHash, true);
+        } finally {
+            chain.getSignCtxLock().unlock();
         }
-        signByzantineInChain(chain, ctx, signature, packAddressList, realHash);
-        NetWorkCall.broadcast(chainId, messageBody, excludeNodes, CommandConstant.BROAD_CTX_SIGN_MESSAGE, false);
-        chain.getLogger().info("将新收到的跨链交易签名广播给链接到的其他节点,Hash:{},签名:{}\n\n", nativeHex, signHex);
     }
 
     /**
@@ -189,19 +302,20 @@ public class MessageUtil {
      * @param ctx             跨链交易
      * @param signature       签名列表
      * @param packAddressList 验证账户列表
+     * @param persist         拜占庭验证未通过时是否保存交易签名状态，为false时由调用方保存
      * @return 拜占庭验证是否通过
      */
-    public static boolean signByzantineInChain(Chain chain, Transaction ctx, TransactionSignature signature, List<String> packAddressList, NulsHash realHash) throws NulsException, IOException {
+    public static boolean signByzantineInChain(Chain chain, Transaction ctx, TransactionSignature signature, List<String> packAddressList, NulsHash realHash, boolean persist) throws NulsException, IOException {
         if (ctx.getType() == TxType.VERIFIER_INIT) {
-            return verifierInitLocalByzantine(chain, ctx, signature, packAddressList, realHash);
+            return verifierInitLocalByzantine(chain, ctx, signature, packAddressList, realHash, persist);
         } else if (ctx.getType() == TxType.VERIFIER_CHANGE) {
-            return verifierChangeLocalByzantine(chain, ctx, signature, realHash);
+            return verifierChangeLocalByzantine(chain, ctx, signature, realHash, persist);
         } else {
-            return crossTransferLocalByzantine(chain, ctx, signature, realHash);
+            return crossTransferLocalByzantine(chain, ctx, signature, realHash, persist);
         }
     }
 
-    private static boolean verifierInitLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, List<String> packAddressList, NulsHash realHash) throws  IOException {
+    private static boolean verifierInitLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, List<String> packAddressList, NulsHash realHash, boolean persist) throws  IOException {
         List<String> handleAddressList = new ArrayList<>(packAddressList);
         int agentCount = handleAddressList.size();
         //交易签名拜占庭
@@ -230,11 +344,13 @@ public class MessageUtil {
         } else {
             ctx.setTransactionSignature(signature.serialize());
         }
-        ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        if (persist) {
+            ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        }
         return false;
     }
 
-    private static boolean verifierChangeLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, NulsHash realHash) throws NulsException, IOException {
+    private static boolean verifierChangeLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, NulsHash realHash, boolean persist) throws NulsException, IOException {
         List<String> handleAddressList;
         try {
             chain.getSwitchVerifierLock().readLock().lock();
@@ -270,11 +386,13 @@ public class MessageUtil {
         } else {
             ctx.setTransactionSignature(signature.serialize());
         }
-        ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        if (persist) {
+            ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        }
         return false;
     }
 
-    private static boolean crossTransferLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, NulsHash realHash) throws NulsException, IOException {
+    private static boolean crossTransferLocalByzantine(Chain chain, Transaction ctx, TransactionSignature signature, NulsHash realHash, boolean persist) throws NulsException, IOException {
         List<String> handleAddressList;
         long broadHeight = chainManager.getChainHeaderMap().get(chain.getChainId()).getHeight();
         try {
@@ -309,7 +427,9 @@ public class MessageUtil {
         } else {
             ctx.setTransactionSignature(signature.serialize());
         }
-        ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        if (persist) {
+            ctxStatusService.save(realHash, ctxStatusPO, chain.getChainId());
+        }
         return false;
     }
 
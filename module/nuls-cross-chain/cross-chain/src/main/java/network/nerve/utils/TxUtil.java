@@ -265,7 +265,7 @@ public class TxUtil {
                 MessageUtil.signByzantineInChain(chain, ctx, transactionSignature, packers,hash);
                 NetWorkCall.broadcast(chainId, message, CommandConstant.BROAD_CTX_SIGN_MESSAGE, false);
             }else{
-                ctxStatusService.save(hash, ctxStatusPO, chainId);
+                MessageUtil.saveCtxStatus(chain, hash, ctxStatusPO);
             }
             //将收到的签名消息加入消息队列
             if (chain.getFutureMessageMap().containsKey(hash)) {
@@ -333,7 +333,7 @@ public class TxUtil {
             */
             chain.getWaitBroadSignMap().get(hash).add(new WaitBroadSignMessage(null, message));
         }else{
-            ctxStatusService.save(hash, ctxStatusPO, chainId);
+            MessageUtil.saveCtxStatus(chain, hash, ctxStatusPO);
         }
         if (!config.isMainNet()) {
             convertHashService.save(hash, hash, chainId);
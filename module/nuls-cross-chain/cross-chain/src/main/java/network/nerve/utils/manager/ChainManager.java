@@ -22,6 +22,8 @@ import network.nerve.utils.thread.handler.GetCtxStateHandler;
 import network.nerve.utils.thread.handler.HashMessageHandler;
 import network.nerve.utils.thread.handler.OtherCtxMessageHandler;
 import network.nerve.utils.thread.handler.SignMessageByzantineHandler;
+import network.nerve.utils.thread.handler.SignMessagePersistHandler;
+import network.nerve.utils.thread.handler.SignMessageThresholdHandler;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -140,7 +142,12 @@ public class ChainManager {
             chain.getThreadPool().execute(new HashMessageHandler(chain));
             chain.getThreadPool().execute(new OtherCtxMessageHandler(chain));
             chain.getThreadPool().execute(new GetCtxStateHandler(chain));
-            chain.getThreadPool().execute(new SignMessageByzantineHandler(chain));
+            //链内签名消息分为签名验证、拜占庭统计、签名状态保存三个阶段并行处理
+            for (int i = 0; i < NulsCrossChainConstant.SIGN_VERIFY_THREAD_COUNT; i++) {
+                chain.getSignThreadPool().execute(new SignMessageByzantineHandler(chain));
+            }
+            chain.getSignThreadPool().execute(new SignMessageThresholdHandler(chain));
+            chain.getSignThreadPool().execute(new SignMessagePersistHandler(chain));
             int syncStatus = BlockCall.getBlockStatus(chain);
             chain.getLogger().info("The current status of the node is:{}",syncStatus);
             chain.setSyncStatus(syncStatus);
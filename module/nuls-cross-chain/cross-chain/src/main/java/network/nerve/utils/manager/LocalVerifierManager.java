@@ -9,9 +9,9 @@ import network.nerve.model.bo.Chain;
 import network.nerve.model.po.CtxStatusPO;
 import network.nerve.model.po.LocalVerifierPO;
 import network.nerve.model.po.SendCtxHashPO;
-import network.nerve.srorage.CtxStatusService;
 import network.nerve.srorage.LocalVerifierService;
 import network.nerve.srorage.SendHeightService;
+import network.nerve.utils.MessageUtil;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,8 +22,6 @@ public class LocalVerifierManager {
     private static LocalVerifierService localVerifierService;
     @Autowired
     private static SendHeightService sendHeightService;
-    @Autowired
-    private static CtxStatusService ctxStatusService;
 
     /**
      * 加载本地验证人列表
@@ -82,7 +80,7 @@ public class LocalVerifierManager {
             }
             //跨链交易状态不用回滚
             CtxStatusPO ctxStatusPO = new CtxStatusPO(ctx, TxStatusEnum.CONFIRMED.getStatus());
-            saveResult = ctxStatusService.save(txHash, ctxStatusPO, chain.getChainId());
+            saveResult = MessageUtil.saveCtxStatus(chain, txHash, ctxStatusPO);
             if(!saveResult){
                 chain.getLogger().error("Transaction processing status save error");
                 return false;
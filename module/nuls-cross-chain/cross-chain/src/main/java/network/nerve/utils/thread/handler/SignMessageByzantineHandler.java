@@ -1,12 +1,12 @@
 package network.nerve.utils.thread.handler;
 
-import io.nuls.crosschain.base.message.BroadCtxSignMessage;
 import network.nerve.model.bo.Chain;
 import network.nerve.model.bo.message.UntreatedMessage;
 import network.nerve.utils.MessageUtil;
 
 /**
- * 链内节点广播过来的跨链交易签名拜占庭验证处理线程
+ * 链内节点广播过来的跨链交易签名验证处理线程，验证通过的签名消息交给签名拜占庭统计线程处理
+ * 本线程可以同时运行多个
  *
  * @author tag
  * 2019/8/8
@@ -24,9 +24,13 @@ public class SignMessageByzantineHandler implements Runnable{
         while (chain.getSignMessageByzantineQueue() != null) {
             try {
                 UntreatedMessage untreatedMessage = chain.getSignMessageByzantineQueue().take();
-                String nativeHex = untreatedMessage.getCacheHash().toHex();
-                chain.getLogger().debug("开始对链内节点{}广播过来的跨链交易签名消息做签名拜占庭验证,Hash：{}", untreatedMessage.getNodeId(), nativeHex);
-                MessageUtil.handleSignMessage(chain, untreatedMessage.getCacheHash(), untreatedMessage.getChainId(), untreatedMessage.getNodeId(),(BroadCtxSignMessage)untreatedMessage.getMessage(), nativeHex);
+                chain.getLogger().debug("开始对链内节点{}广播过来的跨链交易签名消息做签名验证,Hash：{}", untreatedMessage.getNodeId(), untreatedMessage.getCacheHash().toHex());
+                if (MessageUtil.verifySignMessage(chain, untreatedMessage)) {
+                    chain.getSignVerifiedQueue().offer(untreatedMessage);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
                 chain.getLogger().error(e);
             }
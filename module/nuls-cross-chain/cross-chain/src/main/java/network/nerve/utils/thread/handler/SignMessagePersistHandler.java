@@ -0,0 +1,41 @@
+package network.nerve.utils.thread.handler;
+
+import io.nuls.base.data.NulsHash;
+import network.nerve.model.bo.Chain;
+import network.nerve.utils.MessageUtil;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 链内跨链交易签名状态保存线程
+ * 拜占庭统计未通过的交易签名状态由本线程写入数据库，同一交易在保存前的多次更新合并为一次保存
+ */
+public class SignMessagePersistHandler implements Runnable {
+    private Chain chain;
+
+    public SignMessagePersistHandler(Chain chain) {
+        this.chain = chain;
+    }
+
+    @Override
+    public void run() {
+        Set<NulsHash> hashSet = new LinkedHashSet<>();
+        while (chain.getSignPersistQueue() != null) {
+            try {
+                hashSet.add(chain.getSignPersistQueue().take());
+                chain.getSignPersistQueue().drainTo(hashSet);
+                for (NulsHash hash : hashSet) {
+                    MessageUtil.saveUnsavedSignCtx(chain, hash);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                chain.getLogger().error(e);
+            } finally {
+                hashSet.clear();
+            }
+        }
+    }
+}
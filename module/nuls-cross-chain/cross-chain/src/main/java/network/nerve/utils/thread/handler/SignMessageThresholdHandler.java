@@ -0,0 +1,49 @@
+package network.nerve.utils.thread.handler;
+
+import io.nuls.base.data.NulsHash;
+import network.nerve.constant.NulsCrossChainConstant;
+import network.nerve.model.bo.Chain;
+import network.nerve.model.bo.message.UntreatedMessage;
+import network.nerve.utils.MessageUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 链内跨链交易签名拜占庭统计线程
+ * 一次取出所有已验证的签名消息，按跨链交易分组后统计，同一交易的多个签名只需读取和更新一次签名状态
+ */
+public class SignMessageThresholdHandler implements Runnable {
+    private Chain chain;
+
+    public SignMessageThresholdHandler(Chain chain) {
+        this.chain = chain;
+    }
+
+    @Override
+    public void run() {
+        List<UntreatedMessage> messageList = new ArrayList<>();
+        while (chain.getSignVerifiedQueue() != null) {
+            try {
+                messageList.add(chain.getSignVerifiedQueue().take());
+                chain.getSignVerifiedQueue().drainTo(messageList, NulsCrossChainConstant.SIGN_BYZANTINE_BATCH_SIZE - 1);
+                Map<NulsHash, List<UntreatedMessage>> ctxMessageMap = new LinkedHashMap<>();
+                for (UntreatedMessage message : messageList) {
+                    ctxMessageMap.computeIfAbsent(message.getCacheHash(), hash -> new ArrayList<>()).add(message);
+                }
+                for (Map.Entry<NulsHash, List<UntreatedMessage>> entry : ctxMessageMap.entrySet()) {
+                    MessageUtil.handleSignMessages(chain, entry.getKey(), entry.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                chain.getLogger().error(e);
+            } finally {
+                messageList.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package io.nuls.test.utils;
+
+import io.netty.channel.*;
+import io.netty.channel.local.LocalChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.base.signture.TransactionSignature;
+import io.nuls.core.constant.TxStatusEnum;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.log.logback.LoggerBuilder;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.rpc.netty.processor.container.RequestContainer;
+import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
+import io.nuls.crosschain.base.constant.CommandConstant;
+import io.nuls.crosschain.base.message.BroadCtxSignMessage;
+import network.nerve.constant.NulsCrossChainConfig;
+import network.nerve.constant.NulsCrossChainConstant;
+import network.nerve.model.bo.Chain;
+import network.nerve.model.bo.message.UntreatedMessage;
+import network.nerve.model.po.CtxStatusPO;
+import network.nerve.model.po.SendCtxHashPO;
+import network.nerve.rpc.call.NetWorkCall;
+import network.nerve.srorage.ConvertCtxService;
+import network.nerve.srorage.CtxStatusService;
+import network.nerve.srorage.SendHeightService;
+import network.nerve.utils.manager.ChainManager;
+import network.nerve.utils.thread.handler.SignMessageByzantineHandler;
+import network.nerve.utils.thread.handler.SignMessagePersistHandler;
+import network.nerve.utils.thread.handler.SignMessageThresholdHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * 本地模拟多个验证人对平行链跨链转账交易签名，对比逐条处理签名消息与分阶段并行处理的每秒完成拜占庭的跨链转账数
+ */
+public class SignMessagePipelineTest {
+
+    private static final int CHAIN_ID = 5;
+    private static final int VERIFIER_COUNT = 15;
+    private static final int BYZANTINE_RATIO = 66;
+    /**
+     * 签名数达到拜占庭的跨链转账数
+     */
+    private static final int TRANSFER_COUNT = 300;
+    /**
+     * 只收到部分签名，签名数不足拜占庭的跨链转账数
+     */
+    private static final int PARTIAL_COUNT = 20;
+    private static final int PARTIAL_SIGN_COUNT = 5;
+    /**
+     * 模拟数据库读写耗时
+     */
+    private static final long STORAGE_DELAY_NANOS = 50000;
+
+    /**
+     * 模拟数据库存储，读取时反序列化，记录最后一笔跨链转账拜占庭通过的时间
+     */
+    static class MemoryCtxStatusService implements CtxStatusService {
+        Map<NulsHash, byte[]> db = new ConcurrentHashMap<>();
+        AtomicLong saveCount = new AtomicLong();
+        CountDownLatch confirmLatch = new CountDownLatch(TRANSFER_COUNT);
+        volatile long confirmTime;
+
+        @Override
+        public boolean save(NulsHash atxHash, CtxStatusPO ctx, int chainID) {
+            LockSupport.parkNanos(STORAGE_DELAY_NANOS);
+            try {
+                db.put(atxHash, ctx.serialize());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            saveCount.incrementAndGet();
+            if (ctx.getStatus() == TxStatusEnum.CONFIRMED.getStatus()) {
+                confirmLatch.countDown();
+                confirmTime = System.nanoTime();
+            }
+            return true;
+        }
+
+        @Override
+        public CtxStatusPO get(NulsHash atxHash, int chainID) {
+            LockSupport.parkNanos(STORAGE_DELAY_NANOS);
+            byte[] bytes = db.get(atxHash);
+            if (bytes == null) {
+                return null;
+            }
+            try {
+                CtxStatusPO po = new CtxStatusPO();
+                po.parse(bytes, 0);
+                return po;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean delete(NulsHash atxHash, int chainID) {
+            return db.remove(atxHash) != null;
+        }
+
+        @Override
+        public List<CtxStatusPO> getList(int chainID) {
+            return null;
+        }
+    }
+
+    static class MemoryConvertCtxService implements ConvertCtxService {
+        Map<NulsHash, byte[]> db = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean save(NulsHash atxHash, Transaction ctx, int chainID) {
+            try {
+                db.put(atxHash, ctx.serialize());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            return true;
+        }
+
+        @Override
+        public Transaction get(NulsHash atxHash, int chainID) {
+            LockSupport.parkNanos(STORAGE_DELAY_NANOS);
+            try {
+                Transaction tx = new Transaction();
+                tx.parse(db.get(atxHash), 0);
+                return tx;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean delete(NulsHash atxHash, int chainID) {
+            return db.remove(atxHash) != null;
+        }
+
+        @Override
+        public List<Transaction> getList(int chainID) {
+            return null;
+        }
+    }
+
+    static class MemorySendHeightService implements SendHeightService {
+        Map<Long, SendCtxHashPO> db = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean save(long height, SendCtxHashPO po, int chainID) {
+            db.put(height, po);
+            return true;
+        }
+
+        @Override
+        public SendCtxHashPO get(long height, int chainID) {
+            return db.get(height);
+        }
+
+        @Override
+        public boolean delete(long height, int chainID) {
+            return db.remove(height) != null;
+        }
+
+        @Override
+        public Map<Long, SendCtxHashPO> getList(int chainID) {
+            return db;
+        }
+    }
+
+    /**
+     * 模拟网络模块，广播请求直接返回成功
+     */
+    private static class StubNetworkHandler extends ChannelOutboundHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            TextWebSocketFrame frame = (TextWebSocketFrame) msg;
+            Map<String, Object> message;
+            try {
+                message = JSONUtils.json2map(frame.content().toString(StandardCharsets.UTF_8));
+            } finally {
+                frame.release();
+            }
+            promise.setSuccess();
+            String messageId = (String) message.get("MessageID");
+            Map<String, Object> value = new HashMap<>();
+            value.put("value", true);
+            Map<String, Object> data = new HashMap<>();
+            data.put("nw_broadcast", value);
+            Response response = MessageUtil.newSuccessResponse(messageId);
+            response.setResponseData(data);
+            ResponseContainer container = RequestContainer.getResponseContainer(messageId);
+            if (container != null) {
+                container.getFuture().complete(response);
+            }
+        }
+    }
+
+    private DefaultEventLoopGroup group;
+    private Chain chain;
+    private MemoryCtxStatusService ctxStatusService;
+    private MemoryConvertCtxService convertCtxService;
+    private List<ECKey> verifierKeys;
+    private List<Transaction> transferList;
+    private List<UntreatedMessage> messageList;
+
+    @Before
+    public void before() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        Channel channel = new LocalChannel();
+        channel.pipeline().addLast(new StubNetworkHandler());
+        group.register(channel).sync();
+        ConnectManager.ROLE_CHANNEL_MAP.put(ModuleE.NW.abbr, channel);
+
+        NulsCrossChainConfig config = new NulsCrossChainConfig();
+        config.setChainId(CHAIN_ID);
+        config.setByzantineRatio(BYZANTINE_RATIO);
+        config.setMainNet(false);
+        config.setCrossCtxType(TxType.CROSS_CHAIN);
+        chain = new Chain();
+        chain.setConfig(config);
+        chain.setLogger(LoggerBuilder.getLogger("cross_chain_test"));
+        verifierKeys = new ArrayList<>();
+        List<String> verifierList = new ArrayList<>();
+        for (int i = 0; i < VERIFIER_COUNT; i++) {
+            ECKey key = new ECKey();
+            verifierKeys.add(key);
+            verifierList.add(AddressTool.getAddressString(key.getPubKey(), CHAIN_ID));
+        }
+        chain.setVerifierList(verifierList);
+        ChainManager chainManager = new ChainManager();
+        BlockHeader header = new BlockHeader();
+        header.setHeight(100);
+        chainManager.getChainHeaderMap().put(CHAIN_ID, header);
+
+        ctxStatusService = new MemoryCtxStatusService();
+        convertCtxService = new MemoryConvertCtxService();
+        setStaticField("config", config);
+        setStaticField("chainManager", chainManager);
+        setStaticField("ctxStatusService", ctxStatusService);
+        setStaticField("convertCtxService", convertCtxService);
+        setStaticField("sendHeightService", new MemorySendHeightService());
+        createMessages();
+    }
+
+    @After
+    public void after() {
+        ConnectManager.ROLE_CHANNEL_MAP.remove(ModuleE.NW.abbr);
+        chain.getSignThreadPool().shutdownNow();
+        group.shutdownGracefully();
+    }
+
+    private static void setStaticField(String name, Object value) throws Exception {
+        Field field = network.nerve.utils.MessageUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+
+    private static Transaction transfer(String remark) {
+        Transaction tx = new Transaction();
+        tx.setType(TxType.CROSS_CHAIN);
+        tx.setTime(1600000000L);
+        tx.setRemark(remark.getBytes());
+        return tx;
+    }
+
+    private UntreatedMessage message(Transaction ctx, NulsHash signHash, ECKey key, int node) throws Exception {
+        BroadCtxSignMessage messageBody = new BroadCtxSignMessage();
+        messageBody.setLocalHash(ctx.getHash());
+        messageBody.setSignature(SignatureUtil.createSignatureByEckey(signHash, key).serialize());
+        return new UntreatedMessage(CHAIN_ID, "node" + node, messageBody, ctx.getHash());
+    }
+
+    /**
+     * 每笔跨链转账由所有验证人对转换后的主网协议交易签名，另外附带一条重复签名和一条错误签名，消息到达顺序随机
+     */
+    private void createMessages() throws Exception {
+        transferList = new ArrayList<>();
+        messageList = new ArrayList<>();
+        for (int i = 0; i < TRANSFER_COUNT + PARTIAL_COUNT; i++) {
+            Transaction ctx = transfer("transfer" + i);
+            Transaction convertCtx = transfer("main" + i);
+            transferList.add(ctx);
+            convertCtxService.save(ctx.getHash(), convertCtx, CHAIN_ID);
+            int signCount = i < TRANSFER_COUNT ? VERIFIER_COUNT : PARTIAL_SIGN_COUNT;
+            for (int k = 0; k < signCount; k++) {
+                messageList.add(message(ctx, convertCtx.getHash(), verifierKeys.get(k), k));
+            }
+            messageList.add(message(ctx, convertCtx.getHash(), verifierKeys.get(0), VERIFIER_COUNT));
+            messageList.add(message(ctx, ctx.getHash(), verifierKeys.get(1), VERIFIER_COUNT));
+        }
+        Collections.shuffle(messageList, new Random(50));
+    }
+
+    private void resetStatus() {
+        ctxStatusService.db.clear();
+        for (Transaction ctx : transferList) {
+            Transaction unsigned = transfer(new String(ctx.getRemark()));
+            ctxStatusService.save(ctx.getHash(), new CtxStatusPO(unsigned, TxStatusEnum.UNCONFIRM.getStatus()), CHAIN_ID);
+        }
+        ctxStatusService.saveCount.set(0);
+        ctxStatusService.confirmLatch = new CountDownLatch(TRANSFER_COUNT);
+    }
+
+    private void startPipeline() {
+        for (int i = 0; i < NulsCrossChainConstant.SIGN_VERIFY_THREAD_COUNT; i++) {
+            chain.getSignThreadPool().execute(new SignMessageByzantineHandler(chain));
+        }
+        chain.getSignThreadPool().execute(new SignMessageThresholdHandler(chain));
+        chain.getSignThreadPool().execute(new SignMessagePersistHandler(chain));
+    }
+
+    /**
+     * 等待所有消息处理完且签名状态都已保存
+     */
+    private void awaitIdle() throws Exception {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!chain.getSignMessageByzantineQueue().isEmpty() || !chain.getSignVerifiedQueue().isEmpty()
+                || !chain.getSignPersistQueue().isEmpty() || !chain.getUnsavedSignCtxMap().isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertTrue(chain.getUnsavedSignCtxMap().isEmpty());
+    }
+
+    /**
+     * 签名数足够的交易都已确认且只保留验证人的正确签名，签名不足的交易保存了收到的全部正确签名
+     */
+    private void assertSignState() throws Exception {
+        int byzantineCount = VERIFIER_COUNT * BYZANTINE_RATIO / NulsCrossChainConstant.MAGIC_NUM_100;
+        for (int i = 0; i < transferList.size(); i++) {
+            NulsHash hash = transferList.get(i).getHash();
+            CtxStatusPO po = ctxStatusService.get(hash, CHAIN_ID);
+            TransactionSignature signature = new TransactionSignature();
+            signature.parse(po.getTx().getTransactionSignature(), 0);
+            NulsHash signHash = convertCtxService.get(hash, CHAIN_ID).getHash();
+            Set<String> signers = new HashSet<>();
+            for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
+                assertTrue(ECKey.verify(signHash.getBytes(), sign.getSignData().getSignBytes(), sign.getPublicKey()));
+                assertTrue(signers.add(AddressTool.getAddressString(sign.getPublicKey(), CHAIN_ID)));
+            }
+            assertTrue(chain.getVerifierList().containsAll(signers));
+            if (i < TRANSFER_COUNT) {
+                assertEquals(TxStatusEnum.CONFIRMED.getStatus(), po.getStatus());
+                assertTrue(signers.size() >= byzantineCount);
+            } else {
+                assertEquals(TxStatusEnum.UNCONFIRM.getStatus(), po.getStatus());
+                assertEquals(PARTIAL_SIGN_COUNT, signers.size());
+            }
+        }
+    }
+
+    /**
+     * 原实现：每条签名消息都从数据库读取交易，验证签名后做拜占庭统计并保存
+     */
+    private void handleSequentially(UntreatedMessage message) throws Exception {
+        NulsHash hash = message.getCacheHash();
+        BroadCtxSignMessage messageBody = (BroadCtxSignMessage) message.getMessage();
+        CtxStatusPO ctxStatusPO = ctxStatusService.get(hash, CHAIN_ID);
+        if (ctxStatusPO.getStatus() != TxStatusEnum.UNCONFIRM.getStatus() || messageBody.getSignature() == null) {
+            return;
+        }
+        P2PHKSignature p2PHKSignature = new P2PHKSignature();
+        p2PHKSignature.parse(messageBody.getSignature(), 0);
+        Transaction convertCtx = convertCtxService.get(hash, CHAIN_ID);
+        if (!ECKey.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+            return;
+        }
+        Transaction ctx = ctxStatusPO.getTx();
+        TransactionSignature signature = new TransactionSignature();
+        if (ctx.getTransactionSignature() != null) {
+            signature.parse(ctx.getTransactionSignature(), 0);
+            for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
+                if (Arrays.equals(messageBody.getSignature(), sign.serialize())) {
+                    return;
+                }
+            }
+        } else {
+            signature.setP2PHKSignatures(new ArrayList<>());
+        }
+        signature.getP2PHKSignatures().add(p2PHKSignature);
+        network.nerve.utils.MessageUtil.signByzantineInChain(chain, ctx, signature, chain.getVerifierList(), hash);
+        NetWorkCall.broadcast(message.getChainId(), messageBody, message.getNodeId(), CommandConstant.BROAD_CTX_SIGN_MESSAGE, false);
+    }
+
+    @Test
+    public void sequentialVsPipeline() throws Exception {
+        // 原实现: 单线程逐条处理
+        resetStatus();
+        long start = System.nanoTime();
+        for (UntreatedMessage message : messageList) {
+            handleSequentially(message);
+        }
+        assertTrue(ctxStatusService.confirmLatch.await(0, TimeUnit.SECONDS));
+        long sequential = TRANSFER_COUNT * 1000000000L / (ctxStatusService.confirmTime - start);
+        long sequentialSaves = ctxStatusService.saveCount.get();
+        assertSignState();
+
+        resetStatus();
+        startPipeline();
+        start = System.nanoTime();
+        chain.getSignMessageByzantineQueue().addAll(messageList);
+        assertTrue(ctxStatusService.confirmLatch.await(30, TimeUnit.SECONDS));
+        long pipeline = TRANSFER_COUNT * 1000000000L / (ctxStatusService.confirmTime - start);
+        awaitIdle();
+        long pipelineSaves = ctxStatusService.saveCount.get();
+        assertSignState();
+
+        System.out.println(VERIFIER_COUNT + "个验证人, " + messageList.size() + "条签名消息, 数据库读写耗时" + STORAGE_DELAY_NANOS / 1000 + "us");
+        System.out.println("逐条处理 每秒完成跨链转账数:" + sequential + ", 保存次数:" + sequentialSaves);
+        System.out.println("分阶段处理 每秒完成跨链转账数:" + pipeline + ", 保存次数:" + pipelineSaves);
+        assertTrue(pipeline > sequential);
+        assertTrue(pipelineSaves < sequentialSaves);
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.receipt;
+
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.converter.core.heterogeneous.receipt.interfaces.IReceiptBatchQuery;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异构链交易收据查询，交易解析、确认和重发等各处共用
+ * <p>
+ * 未命中缓存的查询先放入请求队列，由分发线程把队列中已有的请求合并为一次批量查询，
+ * 同一笔交易同时只会查询一次；查询到的收据按交易hash缓存，超出数量时淘汰最久未访问的收据。
+ * 缓存同时记录收据所在的区块高度和hash：调用方指定区块hash与缓存不一致时重新查询，
+ * 区块回滚时清除回滚高度及之后区块的收据。交易未打包时不缓存
+ *
+ * @param <R> 异构链交易收据类型
+ */
+public class HeterogeneousReceiptService<R> {
+
+    private final IReceiptBatchQuery<R> query;
+    private final int maxBatchSize;
+    private final int cacheSize;
+    private final int dispatchThreads;
+    private final long timeoutMillis;
+
+    private final LinkedBlockingQueue<String> requestQueue = new LinkedBlockingQueue<>();
+    private final Map<String, CompletableFuture<R>> pendingMap = new ConcurrentHashMap<>();
+    /**
+     * 交易hash -> 收据，按访问顺序淘汰；区块高度 -> 该高度已缓存收据的交易hash
+     */
+    private final LinkedHashMap<String, R> cache;
+    private final TreeMap<Long, Set<String>> heightIndex = new TreeMap<>();
+    private ThreadPoolExecutor dispatchPool;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong queryCount = new AtomicLong();
+
+    public HeterogeneousReceiptService(IReceiptBatchQuery<R> query, int maxBatchSize, int cacheSize, int dispatchThreads, long timeoutMillis) {
+        this.query = query;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.cacheSize = Math.max(1, cacheSize);
+        this.dispatchThreads = Math.max(1, dispatchThreads);
+        this.timeoutMillis = timeoutMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, R> eldest) {
+                if (size() <= HeterogeneousReceiptService.this.cacheSize) {
+                    return false;
+                }
+                removeIndex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 查询交易收据
+     *
+     * @return 交易未打包时返回null
+     */
+    public R getReceipt(String txHash) throws Exception {
+        return getReceipt(txHash, null);
+    }
+
+    /**
+     * 查询交易收据，缓存的收据不在指定区块时重新查询
+     *
+     * @param blockHash 交易所在区块hash，为空时不校验
+     * @return 交易未打包时返回null
+     */
+    public R getReceipt(String txHash, String blockHash) throws Exception {
+        if (txHash == null) {
+            return null;
+        }
+        requestCount.incrementAndGet();
+        String key = txHash.toLowerCase();
+        R receipt = getCached(key, blockHash);
+        if (receipt != null) {
+            cacheHitCount.incrementAndGet();
+            return receipt;
+        }
+        return await(request(key));
+    }
+
+    /**
+     * 不使用缓存，重新查询交易收据，用于交易确认前的再次验证(期间交易所在区块可能已被回滚)
+     *
+     * @return 交易未打包时返回null
+     */
+    public R refreshReceipt(String txHash) throws Exception {
+        if (txHash == null) {
+            return null;
+        }
+        requestCount.incrementAndGet();
+        String key = txHash.toLowerCase();
+        synchronized (cache) {
+            R receipt = cache.remove(key);
+            if (receipt != null) {
+                removeIndex(key, receipt);
+            }
+        }
+        return await(request(key));
+    }
+
+    private R await(CompletableFuture<R> future) throws Exception {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 预先批量查询未缓存的交易收据，不等待查询结果
+     */
+    public void prefetch(Collection<String> txHashes) {
+        for (String txHash : txHashes) {
+            if (txHash == null) {
+                continue;
+            }
+            String key = txHash.toLowerCase();
+            if (getCached(key, null) == null) {
+                request(key);
+            }
+        }
+    }
+
+    /**
+     * 区块回滚时调用，清除指定高度及之后区块的收据
+     */
+    public void invalidateFromHeight(long height) {
+        synchronized (cache) {
+            SortedMap<Long, Set<String>> tail = heightIndex.tailMap(height);
+            for (Set<String> txHashes : tail.values()) {
+                for (String txHash : txHashes) {
+                    cache.remove(txHash);
+                }
+            }
+            tail.clear();
+        }
+    }
+
+    private R getCached(String key, String blockHash) {
+        synchronized (cache) {
+            R receipt = cache.get(key);
+            if (receipt == null || blockHash == null || blockHash.equalsIgnoreCase(query.getBlockHash(receipt))) {
+                return receipt;
+            }
+            cache.remove(key);
+            removeIndex(key, receipt);
+            return null;
+        }
+    }
+
+    private void putCache(String key, R receipt) {
+        //先取区块高度，收据数据不完整时不修改缓存
+        long height = query.getBlockHeight(receipt);
+        synchronized (cache) {
+            R old = cache.put(key, receipt);
+            if (old != null) {
+                removeIndex(key, old);
+            }
+            heightIndex.computeIfAbsent(height, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void removeIndex(String key, R receipt) {
+        long height = query.getBlockHeight(receipt);
+        Set<String> txHashes = heightIndex.get(height);
+        if (txHashes != null) {
+            txHashes.remove(key);
+            if (txHashes.isEmpty()) {
+                heightIndex.remove(height);
+            }
+        }
+    }
+
+    private CompletableFuture<R> request(String key) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        CompletableFuture<R> pending = pendingMap.putIfAbsent(key, future);
+        if (pending != null) {
+            return pending;
+        }
+        requestQueue.offer(key);
+        startDispatch();
+        return future;
+    }
+
+    private synchronized void startDispatch() {
+        if (dispatchPool != null) {
+            return;
+        }
+        dispatchPool = ThreadUtils.createThreadPool(dispatchThreads, 0,
+                new NulsThreadFactory(query.getSymbol().toLowerCase() + "-receipt-batch"));
+        for (int i = 0; i < dispatchThreads; i++) {
+            dispatchPool.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * 取出请求队列中已有的请求(不超过批量上限)合并查询，查询期间新到的请求进入下一批
+     * 处理一批请求出现异常时，这一批中还未完成的请求以异常结束，分发线程继续处理后续请求
+     */
+    private void dispatch() {
+        List<String> batch = new ArrayList<>(maxBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.clear();
+                batch.add(requestQueue.take());
+                requestQueue.drainTo(batch, maxBatchSize - 1);
+                execute(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                completeExceptionally(batch, e);
+            }
+        }
+    }
+
+    private void execute(List<String> txHashes) {
+        List<R> receipts;
+        try {
+            batchCount.incrementAndGet();
+            queryCount.addAndGet(txHashes.size());
+            receipts = query.queryReceipts(txHashes);
+        } catch (Exception e) {
+            completeExceptionally(txHashes, e);
+            return;
+        }
+        for (int i = 0; i < txHashes.size(); i++) {
+            String txHash = txHashes.get(i);
+            R receipt = receipts != null && i < receipts.size() ? receipts.get(i) : null;
+            try {
+                if (receipt != null) {
+                    putCache(txHash, receipt);
+                }
+            } catch (Exception e) {
+                //例如收据缺少区块高度，不缓存，此次查询以异常结束
+                completeExceptionally(Collections.singletonList(txHash), e);
+                continue;
+            }
+            CompletableFuture<R> future = pendingMap.remove(txHash);
+            if (future != null) {
+                future.complete(receipt);
+            }
+        }
+    }
+
+    private void completeExceptionally(List<String> txHashes, Exception e) {
+        for (String txHash : txHashes) {
+            CompletableFuture<R> future = pendingMap.remove(txHash);
+            if (future != null) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (dispatchPool != null) {
+            dispatchPool.shutdownNow();
+            dispatchPool = null;
+        }
+    }
+
+    public int getCacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * 收据查询次数、命中缓存次数、批量请求次数和通过批量请求查询的收据数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getQueryCount() {
+        return queryCount.get();
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.receipt.interfaces;
+
+import java.util.List;
+
+/**
+ * 异构链交易收据的批量查询
+ *
+ * @param <R> 异构链交易收据类型
+ */
+public interface IReceiptBatchQuery<R> {
+
+    /**
+     * 异构链符号，用于线程命名
+     */
+    String getSymbol();
+
+    /**
+     * 一次请求批量查询交易收据，结果与参数顺序一致，交易未打包时对应位置为null
+     */
+    List<R> queryReceipts(List<String> txHashes) throws Exception;
+
+    /**
+     * 收据所在区块的高度
+     */
+    long getBlockHeight(R receipt);
+
+    /**
+     * 收据所在区块的hash
+     */
+    String getBlockHash(R receipt);
+}
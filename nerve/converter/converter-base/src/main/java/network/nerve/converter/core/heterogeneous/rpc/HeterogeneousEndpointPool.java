@@ -0,0 +1,375 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.rpc;
+
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointCall;
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointClientFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异构链RPC节点池，只用于读请求，发送交易和查询nonce仍使用钱包API当前固定的节点
+ * <p>
+ * 每个节点记录最近请求的耗时分布、失败率和最近一次探测到的区块高度，
+ * 读请求优先发给已同步到请求高度的节点，按健康度排序后发给最优的节点；超过延迟预算(该节点耗时的P95，限定在最小和最大预算之间)仍未返回时，
+ * 向次优节点发送一个对冲请求，取先成功返回的结果；最优节点直接失败时立即改用次优节点。
+ * 未完成的请求不取消，完成后仍计入节点的统计，慢节点因此会被排到后面。
+ * 每次读请求最多等待timeoutMillis，超时抛出TimeoutException，由调用方改用钱包API当前节点的重试和切换逻辑
+ *
+ * @param <C> 异构链RPC客户端类型
+ */
+public class HeterogeneousEndpointPool<C> {
+
+    /**
+     * 每个节点保留的请求耗时和请求结果的样本数
+     */
+    static final int LATENCY_WINDOW = 128;
+    static final int RESULT_WINDOW = 32;
+    /**
+     * 样本不足时使用最大延迟预算
+     */
+    private static final int MIN_HEDGE_SAMPLES = 10;
+    /**
+     * 健康度评分(越小越好)：耗时P90 * (1 + 失败率 * ERROR_PENALTY) + 失败率 * ERROR_PENALTY_MILLIS + 低于请求高度的区块数 * LAG_PENALTY_MILLIS，
+     * 失败率超过一半的节点再加UNHEALTHY_PENALTY_MILLIS，只在其他节点都不可用时使用
+     */
+    private static final double ERROR_PENALTY = 20;
+    private static final long ERROR_PENALTY_MILLIS = 5000;
+    private static final long LAG_PENALTY_MILLIS = 1000;
+    private static final long UNHEALTHY_PENALTY_MILLIS = 60000;
+
+    private final String symbol;
+    private final IEndpointClientFactory<C> factory;
+    private final long minHedgeMillis;
+    private final long maxHedgeMillis;
+    private final long timeoutMillis;
+    private final List<Endpoint<C>> endpoints = new ArrayList<>();
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong failoverCount = new AtomicLong();
+
+    public HeterogeneousEndpointPool(String symbol, Collection<String> urls, IEndpointClientFactory<C> factory,
+                                     long minHedgeMillis, long maxHedgeMillis, long timeoutMillis, int threads) throws Exception {
+        this.symbol = symbol;
+        this.factory = factory;
+        this.minHedgeMillis = minHedgeMillis;
+        this.maxHedgeMillis = Math.max(minHedgeMillis, maxHedgeMillis);
+        this.timeoutMillis = Math.max(this.maxHedgeMillis, timeoutMillis);
+        for (String url : new LinkedHashSet<>(urls)) {
+            endpoints.add(new Endpoint<>(url, factory.create(url)));
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException(symbol + " endpoint pool without rpc address");
+        }
+        this.executor = ThreadUtils.createThreadPool(Math.max(2, threads), 0,
+                new NulsThreadFactory(symbol.toLowerCase() + "-endpoint-pool"));
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * 读请求，只发给已同步到最高已知区块的节点(都不满足时不限制)
+     */
+    public <R> R read(String name, IEndpointCall<C, R> call) throws Exception {
+        return read(name, getMaxHead(), call);
+    }
+
+    /**
+     * 读请求，只发给已同步到指定高度的节点(都不满足时不限制)，如按高度查询区块
+     *
+     * @param name 请求名称，用于异常信息
+     */
+    public <R> R read(String name, long requiredHeight, IEndpointCall<C, R> call) throws Exception {
+        requestCount.incrementAndGet();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        List<Endpoint<C>> ranked = rank(requiredHeight);
+        Endpoint<C> first = ranked.get(0);
+        CompletableFuture<R> firstFuture = submit(first, call);
+        if (ranked.size() == 1) {
+            return unwrap(firstFuture, name, deadline);
+        }
+        try {
+            return firstFuture.get(Math.min(hedgeBudget(first), timeoutMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            hedgeCount.incrementAndGet();
+        } catch (ExecutionException e) {
+            failoverCount.incrementAndGet();
+            return unwrap(submit(ranked.get(1), call), name, deadline);
+        }
+        CompletableFuture<R> hedgeFuture = submit(ranked.get(1), call);
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        firstFuture.whenComplete((r, e) -> complete(result, remaining, r, e));
+        hedgeFuture.whenComplete((r, e) -> {
+            if (e == null && result.complete(r)) {
+                hedgeWinCount.incrementAndGet();
+                return;
+            }
+            complete(result, remaining, r, e);
+        });
+        return unwrap(result, name, deadline);
+    }
+
+    /**
+     * 并行查询所有节点的最新区块高度并记录，返回查询后健康度最优的节点的高度
+     * 等待最大延迟预算后仍未返回的节点不再等待，所有节点都失败时抛出最后一个异常，超时未返回时抛出TimeoutException
+     */
+    public long probeHeads(IEndpointCall<C, Long> headCall) throws Exception {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (Endpoint<C> endpoint : endpoints) {
+            futures.add(submit(endpoint, client -> {
+                Long head = headCall.call(client);
+                if (head != null) {
+                    endpoint.head = head;
+                }
+                return head;
+            }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(maxHedgeMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // 已返回的节点结果仍然有效
+        }
+        boolean answered = false;
+        for (CompletableFuture<Long> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                answered = true;
+                break;
+            }
+        }
+        if (!answered) {
+            // 没有节点在预算内返回时等待任一节点返回
+            CompletableFuture<Long> any = new CompletableFuture<>();
+            AtomicInteger remaining = new AtomicInteger(futures.size());
+            for (CompletableFuture<Long> future : futures) {
+                future.whenComplete((r, e) -> complete(any, remaining, r, e));
+            }
+            unwrap(any, "probeHeads", deadline);
+        }
+        long head = rank(getMaxHead()).get(0).head;
+        return head > 0 ? head : getMaxHead();
+    }
+
+    public long getMaxHead() {
+        long max = 0;
+        for (Endpoint<C> endpoint : endpoints) {
+            max = Math.max(max, endpoint.head);
+        }
+        return max;
+    }
+
+    private <R> CompletableFuture<R> submit(Endpoint<C> endpoint, IEndpointCall<C, R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    R r = call.call(endpoint.client);
+                    endpoint.record((System.nanoTime() - start) / 1000000, true);
+                    future.complete(r);
+                } catch (Throwable e) {
+                    endpoint.record((System.nanoTime() - start) / 1000000, false);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 任一请求成功即返回结果，全部失败时返回最后一个异常
+     */
+    private static <R> void complete(CompletableFuture<R> result, AtomicInteger remaining, R r, Throwable e) {
+        if (e == null) {
+            result.complete(r);
+        } else if (remaining.decrementAndGet() == 0) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 等待请求结果，超过截止时间仍未返回时抛出TimeoutException
+     */
+    private <R> R unwrap(CompletableFuture<R> future, String name, long deadline) throws Exception {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException(symbol + " " + name + " time out");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new ExecutionException(symbol + " " + name + " failed", cause);
+        }
+    }
+
+    private long hedgeBudget(Endpoint<C> endpoint) {
+        if (endpoint.samples() < MIN_HEDGE_SAMPLES) {
+            return maxHedgeMillis;
+        }
+        return Math.min(maxHedgeMillis, Math.max(minHedgeMillis, endpoint.percentile(0.95)));
+    }
+
+    private List<Endpoint<C>> rank(long requiredHeight) {
+        List<Endpoint<C>> candidates = new ArrayList<>();
+        for (Endpoint<C> endpoint : endpoints) {
+            if (endpoint.head >= requiredHeight) {
+                candidates.add(endpoint);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(endpoints);
+        }
+        Map<Endpoint<C>, Double> scores = new HashMap<>();
+        for (Endpoint<C> endpoint : candidates) {
+            scores.put(endpoint, endpoint.score(requiredHeight));
+        }
+        candidates.sort(Comparator.comparingDouble(scores::get));
+        return candidates;
+    }
+
+    public List<Endpoint<C>> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * 读请求次数、对冲请求次数、对冲请求先返回的次数、最优节点失败后改用次优节点的次数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Endpoint<C> endpoint : endpoints) {
+            factory.close(endpoint.client);
+        }
+    }
+
+    /**
+     * 节点及其最近的请求统计
+     */
+    public static class Endpoint<C> {
+        private final String url;
+        private final C client;
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private final boolean[] results = new boolean[RESULT_WINDOW];
+        private long latencyCount;
+        private long resultCount;
+        private volatile long head;
+
+        Endpoint(String url, C client) {
+            this.url = url;
+            this.client = client;
+        }
+
+        synchronized void record(long millis, boolean success) {
+            // 失败的请求只计入失败率，避免快速失败拉低耗时
+            if (success) {
+                latencies[(int) (latencyCount++ % LATENCY_WINDOW)] = millis;
+            }
+            results[(int) (resultCount++ % RESULT_WINDOW)] = success;
+        }
+
+        synchronized int samples() {
+            return (int) Math.min(latencyCount, LATENCY_WINDOW);
+        }
+
+        /**
+         * 最近请求耗时的百分位数(毫秒)，没有样本时为0
+         */
+        public synchronized long percentile(double p) {
+            int n = samples();
+            if (n == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, n);
+            Arrays.sort(sorted);
+            return sorted[Math.min(n - 1, (int) Math.ceil(p * n) - 1)];
+        }
+
+        public synchronized double errorRate() {
+            int n = (int) Math.min(resultCount, RESULT_WINDOW);
+            if (n == 0) {
+                return 0;
+            }
+            int failed = 0;
+            for (int i = 0; i < n; i++) {
+                if (!results[i]) {
+                    failed++;
+                }
+            }
+            return (double) failed / n;
+        }
+
+        double score(long requiredHeight) {
+            double errorRate = errorRate();
+            double score = percentile(0.9) * (1 + errorRate * ERROR_PENALTY) + errorRate * ERROR_PENALTY_MILLIS
+                    + Math.max(0, requiredHeight - head) * LAG_PENALTY_MILLIS;
+            if (errorRate > 0.5) {
+                score += UNHEALTHY_PENALTY_MILLIS;
+            }
+            return score;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getHead() {
+            return head;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s p50:%dms p99:%dms error:%.2f head:%d", url, percentile(0.5), percentile(0.99), errorRate(), head);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.syncblock;
+
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.crypto.KeccakHash;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.ITransferLogQuery;
+import network.nerve.converter.model.bo.HeterogeneousTransferLog;
+
+import java.util.*;
+
+/**
+ * 使用事件日志检测ERC20充值交易
+ * <p>
+ * 原方式对区块中每一笔发往ERC20合约的交易都查询一次交易收据，再判断Transfer事件的接收地址是否为多签地址。
+ * 这里先用区块头的logsBloom判断区块内是否可能有 Transfer(任意地址, 多签地址) 事件，不可能时无需任何查询；
+ * 可能时用eth_getLogs按区块范围查询这些事件(追块时一次查询后续多个区块)，只有事件中的交易才需要按原方式解析
+ * <p>
+ * 事件中的区块hash与解析的区块不一致(查询事件前后发生分叉)，或者logsBloom命中但区块范围查询没有结果时，单独查询一次该区块；
+ * 仍然无法确定时返回null，由调用方按原方式逐笔解析，保证检测结果与原方式一致
+ */
+public class DepositLogFilter {
+
+    public static final String ERC20_TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+    private static final int BLOOM_BYTES = 256;
+
+    private final ITransferLogQuery query;
+    private final int rangeSize;
+    private volatile long latestHeight;
+
+    private long rangeFrom = -1;
+    private long rangeTo = -1;
+    private List<String> rangeTopics = Collections.emptyList();
+    private Map<Long, List<HeterogeneousTransferLog>> rangeLogs = new HashMap<>();
+
+    private long bloomSkipCount;
+    private long logQueryCount;
+
+    public DepositLogFilter(ITransferLogQuery query, int rangeSize) {
+        this.query = query;
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    /**
+     * 网络最新高度，范围查询不超过此高度
+     */
+    public void setLatestHeight(long latestHeight) {
+        this.latestHeight = latestHeight;
+    }
+
+    /**
+     * @return 区块内有ERC20转入多签地址事件的交易hash(小写)，无法确定时返回null
+     */
+    public synchronized Set<String> findTransferTxHashes(long height, String blockHash, String logsBloom) throws Exception {
+        List<String> toTopics = toTopics(query.getListeningAddresses());
+        if (toTopics.isEmpty()) {
+            return null;
+        }
+        byte[] bloom = decodeBloom(logsBloom);
+        if (bloom != null && !mayContainTransferTo(bloom, toTopics)) {
+            bloomSkipCount++;
+            return Collections.emptySet();
+        }
+        boolean loaded = false;
+        if (height < rangeFrom || height > rangeTo || !toTopics.equals(rangeTopics)) {
+            loadRange(height, Math.max(height, Math.min(height + rangeSize - 1, latestHeight)), toTopics);
+            loaded = true;
+        }
+        List<HeterogeneousTransferLog> logs = rangeLogs.getOrDefault(height, Collections.emptyList());
+        // 之前的范围查询没有本区块的事件时，可能是查询后区块发生了变化，单独查询一次
+        if ((logs.isEmpty() && !loaded) || !matchBlock(logs, blockHash)) {
+            logQueryCount++;
+            logs = query.queryTransferLogs(height, height, toTopics);
+            if (!matchBlock(logs, blockHash)) {
+                return null;
+            }
+        }
+        Set<String> txHashes = new HashSet<>();
+        for (HeterogeneousTransferLog log : logs) {
+            txHashes.add(log.getTxHash().toLowerCase());
+        }
+        return txHashes;
+    }
+
+    private void loadRange(long from, long to, List<String> toTopics) throws Exception {
+        logQueryCount++;
+        Map<Long, List<HeterogeneousTransferLog>> logMap = new HashMap<>();
+        for (HeterogeneousTransferLog log : query.queryTransferLogs(from, to, toTopics)) {
+            logMap.computeIfAbsent(log.getBlockHeight(), k -> new ArrayList<>()).add(log);
+        }
+        rangeFrom = from;
+        rangeTo = to;
+        rangeTopics = toTopics;
+        rangeLogs = logMap;
+    }
+
+    private boolean matchBlock(List<HeterogeneousTransferLog> logs, String blockHash) {
+        for (HeterogeneousTransferLog log : logs) {
+            if (!blockHash.equalsIgnoreCase(log.getBlockHash())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 地址补齐为32字节的topic
+     */
+    static List<String> toTopics(Collection<String> addresses) {
+        List<String> topics = new ArrayList<>();
+        for (String address : addresses) {
+            String hex = address.toLowerCase();
+            if (hex.startsWith("0x")) {
+                hex = hex.substring(2);
+            }
+            topics.add("0x000000000000000000000000" + hex);
+        }
+        Collections.sort(topics);
+        return topics;
+    }
+
+    private static byte[] decodeBloom(String logsBloom) {
+        if (logsBloom == null) {
+            return null;
+        }
+        String hex = logsBloom.startsWith("0x") ? logsBloom.substring(2) : logsBloom;
+        if (hex.length() != BLOOM_BYTES * 2) {
+            return null;
+        }
+        return HexUtil.decode(hex);
+    }
+
+    private static boolean mayContainTransferTo(byte[] bloom, List<String> toTopics) {
+        if (!bloomContains(bloom, HexUtil.decode(ERC20_TRANSFER_TOPIC.substring(2)))) {
+            return false;
+        }
+        for (String topic : toTopics) {
+            if (bloomContains(bloom, HexUtil.decode(topic.substring(2)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以太坊黄皮书中的M3:2048，取keccak256的前三组双字节的低11位作为位置
+     */
+    static boolean bloomContains(byte[] bloom, byte[] value) {
+        byte[] hash = KeccakHash.keccakBytes(value, 256);
+        for (int i = 0; i < 6; i += 2) {
+            int bit = ((hash[i] & 0xff) << 8 | (hash[i + 1] & 0xff)) & 2047;
+            if ((bloom[BLOOM_BYTES - 1 - bit / 8] & (1 << (bit % 8))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized long getBloomSkipCount() {
+        return bloomSkipCount;
+    }
+
+    public synchronized long getLogQueryCount() {
+        return logQueryCount;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.syncblock;
+
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.IBlockScanChain;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异构链区块扫描，各条异构链的区块同步定时任务共用
+ * <p>
+ * 本地区块落后网络高度时，由多个线程按高度顺序并发拉取区块，同时拉取的区块数不超过窗口大小，
+ * 拉取到的区块按高度顺序逐个验证父hash后解析提交；本地最新区块与网络不一致或追块过程中父hash不连续时，
+ * 回退本地区块，下一轮重新验证
+ *
+ * @param <B> 异构链区块类型
+ */
+public class HeterogeneousBlockScanner<B> {
+
+    private final IBlockScanChain<B> chain;
+    private ThreadPoolExecutor fetchPool;
+    private boolean firstSync = true;
+    /**
+     * 最近一次追块解析的区块数和耗时
+     */
+    private int lastCatchUpBlocks;
+    private long lastCatchUpMillis;
+
+    public HeterogeneousBlockScanner(IBlockScanChain<B> chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * 执行一轮区块扫描
+     *
+     * @return 本轮解析的区块数
+     */
+    public int scan() throws Exception {
+        // 当前网络最新的区块
+        long latestHeight = chain.getLatestHeight();
+        // 本地最新的区块
+        Long localHeight = chain.getLocalHeight();
+        if (localHeight == null) {
+            // 当启动节点时，本地区块为空，将从网络最新高度开始同步
+            return syncFromLatest(latestHeight, false);
+        }
+        // 当启动节点时，本地最新高度落后网络高度太多，则从网络最新高度开始同步
+        if (firstSync && latestHeight - localHeight > chain.getMaxCatchUpBlocks()) {
+            return syncFromLatest(latestHeight, true);
+        }
+        firstSync = false;
+        // 验证本地最新区块是否正确
+        String localHash = checkLocalBlock(localHeight);
+        if (localHash == null) {
+            return 0;
+        }
+        localHeight = chain.getLocalHeight();
+        if (latestHeight <= localHeight) {
+            return 0;
+        }
+        return catchUp(localHeight, localHash, latestHeight);
+    }
+
+    private int syncFromLatest(long latestHeight, boolean clearLocal) throws Exception {
+        B block = chain.getBlock(latestHeight);
+        if (block == null) {
+            chain.logger().info("获取不到{}区块，等待下轮执行", chain.getSymbol());
+            return 0;
+        }
+        if (clearLocal) {
+            chain.deleteAllLocalBlock();
+        }
+        chain.analysisBlock(block);
+        firstSync = false;
+        return 1;
+    }
+
+    /**
+     * 本地最新区块与网络不一致时逐个回退，直到一致或本地区块为空
+     *
+     * @return 验证通过的本地最新区块hash，获取区块失败或本地区块已清空时返回null
+     */
+    private String checkLocalBlock(long localHeight) throws Exception {
+        while (true) {
+            String hash = chain.getBlockHash(localHeight);
+            if (hash == null) {
+                chain.logger().error("获取{}区块失败", chain.getSymbol());
+                return null;
+            }
+            String localHash = chain.getLocalHash(localHeight);
+            if (hash.equals(localHash)) {
+                return localHash;
+            }
+            chain.logger().error("{}区块分叉, 回退本地区块: {}", chain.getSymbol(), localHeight);
+            chain.deleteLocalBlock(localHeight);
+            Long height = chain.getLocalHeight();
+            if (height == null) {
+                return null;
+            }
+            localHeight = height;
+        }
+    }
+
+    /**
+     * 并发拉取(localHeight, latestHeight]的区块，按高度顺序解析
+     */
+    private int catchUp(long localHeight, String localHash, long latestHeight) {
+        long startTime = System.currentTimeMillis();
+        ThreadPoolExecutor pool = getFetchPool();
+        Deque<Future<B>> window = new ArrayDeque<>();
+        long fetchHeight = localHeight + 1;
+        long preHeight = localHeight;
+        String preHash = localHash;
+        int count = 0;
+        try {
+            while (fetchHeight <= latestHeight && window.size() < chain.getFetchWindow()) {
+                window.add(fetch(pool, fetchHeight++));
+            }
+            while (!window.isEmpty()) {
+                B block = window.poll().get();
+                if (block == null) {
+                    chain.logger().info("获取不到{}区块[{}]，等待下轮执行", chain.getSymbol(), preHeight + 1);
+                    break;
+                }
+                // 父hash不连续，说明拉取过程中发生了分叉，回退上一区块，下一轮重新验证
+                if (!preHash.equals(chain.getParentHash(block))) {
+                    chain.logger().error("{}区块分叉, 高度: {}, 回退本地区块: {}", chain.getSymbol(), chain.getHeight(block), preHeight);
+                    chain.deleteLocalBlock(preHeight);
+                    break;
+                }
+                chain.analysisBlock(block);
+                count++;
+                preHeight = chain.getHeight(block);
+                preHash = chain.getHash(block);
+                if (fetchHeight <= latestHeight) {
+                    window.add(fetch(pool, fetchHeight++));
+                }
+            }
+        } catch (Exception e) {
+            chain.logger().error("syncHeight error ", e instanceof ExecutionException ? e.getCause() : e);
+        } finally {
+            for (Future<B> future : window) {
+                future.cancel(true);
+            }
+        }
+        lastCatchUpBlocks = count;
+        lastCatchUpMillis = System.currentTimeMillis() - startTime;
+        if (count > 1) {
+            chain.logger().info("{}追块完成, 区块数: {}, 耗时: {}ms, {} 块/秒", chain.getSymbol(), count, lastCatchUpMillis,
+                    count * 1000L / Math.max(1L, lastCatchUpMillis));
+        }
+        return count;
+    }
+
+    private Future<B> fetch(ThreadPoolExecutor pool, long height) {
+        return pool.submit(() -> chain.getBlock(height));
+    }
+
+    private synchronized ThreadPoolExecutor getFetchPool() {
+        if (fetchPool == null) {
+            fetchPool = ThreadUtils.createThreadPool(Math.max(1, chain.getFetchThreads()), 0,
+                    new NulsThreadFactory(chain.getSymbol().toLowerCase() + "-block-fetch"));
+        }
+        return fetchPool;
+    }
+
+    public synchronized void shutdown() {
+        if (fetchPool != null) {
+            fetchPool.shutdownNow();
+            fetchPool = null;
+        }
+    }
+
+    public int getLastCatchUpBlocks() {
+        return lastCatchUpBlocks;
+    }
+
+    public long getLastCatchUpMillis() {
+        return lastCatchUpMillis;
+    }
+}
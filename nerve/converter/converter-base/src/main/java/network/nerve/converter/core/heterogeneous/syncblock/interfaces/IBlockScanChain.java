@@ -0,0 +1,99 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.syncblock.interfaces;
+
+import io.nuls.core.log.logback.NulsLogger;
+
+/**
+ * 异构链区块扫描参数，由各条异构链提供区块查询、本地区块记录和区块解析，扫描流程由HeterogeneousBlockScanner统一处理
+ *
+ * @param <B> 异构链区块类型
+ */
+public interface IBlockScanChain<B> {
+
+    /**
+     * 异构链名称，用于日志和拉取区块的线程名
+     */
+    String getSymbol();
+
+    NulsLogger logger();
+
+    /**
+     * 异构链网络最新高度
+     */
+    long getLatestHeight() throws Exception;
+
+    /**
+     * 根据高度获取包含交易的完整区块，获取不到时返回null
+     */
+    B getBlock(long height) throws Exception;
+
+    /**
+     * 根据高度获取区块hash(只查询区块头)，获取不到时返回null
+     */
+    String getBlockHash(long height) throws Exception;
+
+    long getHeight(B block);
+
+    String getHash(B block);
+
+    String getParentHash(B block);
+
+    /**
+     * 本地最新区块高度，本地没有区块时返回null
+     */
+    Long getLocalHeight();
+
+    /**
+     * 本地保存的区块hash，不存在时返回null
+     */
+    String getLocalHash(long height);
+
+    /**
+     * 解析区块并保存为本地最新区块，调用顺序与区块高度一致
+     */
+    void analysisBlock(B block) throws Exception;
+
+    /**
+     * 删除本地最新区块(区块分叉)，上一区块成为本地最新区块
+     */
+    void deleteLocalBlock(long height) throws Exception;
+
+    void deleteAllLocalBlock() throws Exception;
+
+    /**
+     * 并发拉取区块的线程数
+     */
+    int getFetchThreads();
+
+    /**
+     * 追块时已拉取但未解析的最大区块数
+     */
+    int getFetchWindow();
+
+    /**
+     * 节点启动后第一次同步时，本地区块落后在此区块数以内则追块，否则丢弃本地区块从网络最新高度开始同步
+     */
+    long getMaxCatchUpBlocks();
+}
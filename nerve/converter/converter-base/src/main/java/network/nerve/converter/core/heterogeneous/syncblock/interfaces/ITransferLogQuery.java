@@ -0,0 +1,47 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.heterogeneous.syncblock.interfaces;
+
+import network.nerve.converter.model.bo.HeterogeneousTransferLog;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按区块范围查询ERC20 Transfer事件(eth_getLogs)，由各条EVM异构链提供
+ */
+public interface ITransferLogQuery {
+
+    /**
+     * 当前监听的多签地址(小写)
+     */
+    Collection<String> getListeningAddresses();
+
+    /**
+     * 查询[fromHeight, toHeight]内topics为 [Transfer, 任意, toTopics之一] 的事件
+     *
+     * @param toTopics 接收地址补齐32字节后的topic
+     */
+    List<HeterogeneousTransferLog> queryTransferLogs(long fromHeight, long toHeight, List<String> toTopics) throws Exception;
+}
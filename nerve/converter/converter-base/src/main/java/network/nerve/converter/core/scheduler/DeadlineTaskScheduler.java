@@ -0,0 +1,450 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.scheduler;
+
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.converter.core.scheduler.interfaces.ITaskHandler;
+import network.nerve.converter.core.scheduler.interfaces.ITaskStore;
+
+import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * 按截止时间调度的持久化任务，替代定时轮询队列
+ * <p>
+ * 每个任务记录自己的状态和下一次执行的时间(或等待的区块高度)，到期、到达高度或被主动唤醒时才执行，
+ * 未就绪的任务不会阻塞其他任务。同一分组同时只执行一个任务，不同分组的任务由工作线程并发执行；
+ * 有序分组内的任务按提交顺序逐个完成。任务执行后的状态通过ITaskStore持久化，重启后按保存的时间恢复调度
+ *
+ * @param <T> 任务数据类型
+ */
+public class DeadlineTaskScheduler<T> {
+
+    private static final int DORMANT = 0;
+    private static final int WAITING = 1;
+    private static final int READY = 2;
+    private static final int RUNNING = 3;
+
+    private static final Comparator<Task<?>> BY_DEADLINE = (a, b) -> {
+        int c = Long.compare(a.deadline, b.deadline);
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private final String name;
+    private final ITaskHandler<T> handler;
+    private final ITaskStore<T> store;
+    private final int threads;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, Task<T>> tasks = new HashMap<>();
+    private final Map<String, Group<T>> groups = new LinkedHashMap<>();
+    /**
+     * 等待到期的任务，按截止时间排序；等待区块高度的任务，按高度索引
+     */
+    private final TreeSet<Task<T>> timerQueue = new TreeSet<>(BY_DEADLINE);
+    private final TreeMap<Long, Set<Task<T>>> heightWaiters = new TreeMap<>();
+    private long height;
+    private long seq;
+    private long firstSeq;
+
+    private ThreadPoolExecutor workers;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong executeCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong doneCount = new AtomicLong();
+
+    public DeadlineTaskScheduler(String name, int threads, ITaskHandler<T> handler, ITaskStore<T> store,
+                                 long baseBackoffMillis, long maxBackoffMillis) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.handler = handler;
+        this.store = store;
+        this.baseBackoffMillis = Math.max(1, baseBackoffMillis);
+        this.maxBackoffMillis = Math.max(this.baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        workers = ThreadUtils.createThreadPool(threads, 0, new NulsThreadFactory(name));
+        dispatcher = new Thread(this::dispatch, name + "-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public synchronized void shutdown() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            dispatcher = null;
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * 提交任务，在runAt(毫秒)之后执行；已存在同一id的任务时替换任务数据并按新的时间调度，正在执行的任务执行完后再执行一次
+     * 任务数据由调用方先行持久化
+     *
+     * @param first 有序分组内排在所有已提交任务之前
+     */
+    public void submit(String id, T payload, long runAt, boolean first) {
+        lock.lock();
+        try {
+            Task<T> task = tasks.get(id);
+            if (task != null) {
+                if (task.state == RUNNING) {
+                    task.resubmitted = payload;
+                } else {
+                    task.payload = payload;
+                    if (task.state == DORMANT) {
+                        task.deadline = runAt;
+                    } else {
+                        schedule(task, runAt, Long.MAX_VALUE);
+                    }
+                }
+                return;
+            }
+            String groupName = handler.getGroup(payload);
+            Group<T> group = groups.computeIfAbsent(groupName, k -> new Group<>(handler.isOrdered(k)));
+            task = new Task<>(id, payload, group, first ? --firstSeq : ++seq);
+            task.deadline = runAt;
+            tasks.put(id, task);
+            if (group.ordered) {
+                group.members.put(task.seq, task);
+                Task<T> head = group.members.firstEntry().getValue();
+                if (head != task) {
+                    return;
+                }
+                // 排到最前面的任务取代原来未执行的队首任务
+                Task<T> second = group.members.higherEntry(task.seq) == null ? null : group.members.higherEntry(task.seq).getValue();
+                if (second != null && second.state != RUNNING) {
+                    unschedule(second);
+                    second.state = DORMANT;
+                }
+            }
+            schedule(task, runAt, Long.MAX_VALUE);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 新区块事件，唤醒等待该高度的任务
+     */
+    public void onHeight(long newHeight) {
+        lock.lock();
+        try {
+            if (newHeight <= height) {
+                return;
+            }
+            height = newHeight;
+            SortedMap<Long, Set<Task<T>>> reached = heightWaiters.headMap(newHeight, true);
+            List<Task<T>> list = new ArrayList<>();
+            for (Set<Task<T>> set : reached.values()) {
+                list.addAll(set);
+            }
+            for (Task<T> task : list) {
+                makeReady(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 唤醒等待中的任务立即执行，如任务等待的外部条件已满足
+     */
+    public void wake(String id) {
+        lock.lock();
+        try {
+            Task<T> task = tasks.get(id);
+            if (task != null && task.state == WAITING) {
+                makeReady(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 移除任务并删除持久化数据，正在执行的任务执行完后移除
+     */
+    public void remove(String id) {
+        lock.lock();
+        try {
+            Task<T> task = tasks.get(id);
+            if (task == null) {
+                return;
+            }
+            if (task.state == RUNNING) {
+                task.removed = true;
+                return;
+            }
+            finish(task);
+        } finally {
+            lock.unlock();
+        }
+        store.delete(id);
+    }
+
+    /**
+     * 按提交顺序返回满足条件的任务数据
+     */
+    public List<T> getTasks(Predicate<T> filter) {
+        lock.lock();
+        try {
+            List<Task<T>> list = new ArrayList<>(tasks.values());
+            list.sort(Comparator.comparingLong(t -> t.seq));
+            List<T> result = new ArrayList<>();
+            for (Task<T> task : list) {
+                if (filter.test(task.payload)) {
+                    result.add(task.payload);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return tasks.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void schedule(Task<T> task, long runAt, long waitHeight) {
+        unschedule(task);
+        task.deadline = runAt;
+        if (runAt <= System.currentTimeMillis() || waitHeight <= height) {
+            makeReady(task);
+            return;
+        }
+        task.state = WAITING;
+        if (runAt != Long.MAX_VALUE) {
+            timerQueue.add(task);
+        }
+        if (waitHeight != Long.MAX_VALUE) {
+            task.waitHeight = waitHeight;
+            heightWaiters.computeIfAbsent(waitHeight, k -> new HashSet<>()).add(task);
+        }
+        changed.signal();
+    }
+
+    /**
+     * 执行后再次调度；有序分组执行期间有任务排到了前面时，等待该任务完成
+     */
+    private void reschedule(Task<T> task, long runAt, long waitHeight) {
+        Group<T> group = task.group;
+        if (group.ordered && group.members.firstKey() != task.seq) {
+            task.deadline = runAt;
+            return;
+        }
+        schedule(task, runAt, waitHeight);
+    }
+
+    private void unschedule(Task<T> task) {
+        if (task.state == WAITING) {
+            timerQueue.remove(task);
+            Set<Task<T>> set = heightWaiters.get(task.waitHeight);
+            if (set != null && set.remove(task) && set.isEmpty()) {
+                heightWaiters.remove(task.waitHeight);
+            }
+        } else if (task.state == READY) {
+            task.group.ready.remove(task);
+        }
+    }
+
+    private void makeReady(Task<T> task) {
+        unschedule(task);
+        task.state = READY;
+        task.group.ready.add(task);
+        changed.signal();
+    }
+
+    /**
+     * 移除任务，有序分组的下一个任务成为队首并按其时间调度
+     */
+    private void finish(Task<T> task) {
+        unschedule(task);
+        tasks.remove(task.id);
+        Group<T> group = task.group;
+        if (group.ordered) {
+            boolean wasHead = group.members.firstKey() == task.seq;
+            group.members.remove(task.seq);
+            if (wasHead && !group.members.isEmpty()) {
+                Task<T> head = group.members.firstEntry().getValue();
+                if (head.state == DORMANT) {
+                    schedule(head, head.deadline, Long.MAX_VALUE);
+                }
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                while (!timerQueue.isEmpty() && timerQueue.first().deadline <= now) {
+                    makeReady(timerQueue.first());
+                }
+                for (Group<T> group : groups.values()) {
+                    if (group.running || group.ready.isEmpty()) {
+                        continue;
+                    }
+                    Task<T> task = group.ready.pollFirst();
+                    task.state = RUNNING;
+                    group.running = true;
+                    workers.execute(() -> execute(task));
+                }
+                long wait = timerQueue.isEmpty() ? TimeUnit.SECONDS.toMillis(60) : timerQueue.first().deadline - now;
+                if (wait > 0) {
+                    changed.await(wait, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // 线程池已关闭
+                if (!running) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void execute(Task<T> task) {
+        executeCount.incrementAndGet();
+        TaskResult result;
+        try {
+            result = handler.handle(task.id, task.payload);
+            task.failures = 0;
+        } catch (Throwable e) {
+            failureCount.incrementAndGet();
+            task.failures++;
+            long delay = baseBackoffMillis << Math.min(task.failures - 1, 20);
+            result = TaskResult.retryAfter(Math.min(delay, maxBackoffMillis));
+        }
+        boolean delete = false;
+        T payload;
+        lock.lock();
+        try {
+            task.group.running = false;
+            task.state = DORMANT;
+            if (task.removed) {
+                finish(task);
+                delete = true;
+            } else if (task.resubmitted != null) {
+                task.payload = task.resubmitted;
+                task.resubmitted = null;
+                reschedule(task, System.currentTimeMillis(), Long.MAX_VALUE);
+            } else if (result.isDone()) {
+                doneCount.incrementAndGet();
+                finish(task);
+                delete = true;
+            } else {
+                reschedule(task, result.getRunAt(), result.getWaitHeight());
+            }
+            payload = task.payload;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (delete) {
+            store.delete(task.id);
+        } else if (!result.isDone()) {
+            store.save(task.id, payload, result.getRunAt());
+        }
+    }
+
+    /**
+     * 任务执行次数、执行异常次数、完成的任务数
+     */
+    public long getExecuteCount() {
+        return executeCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getDoneCount() {
+        return doneCount.get();
+    }
+
+    private static class Group<T> {
+        private final boolean ordered;
+        private final TreeSet<Task<T>> ready = new TreeSet<>(BY_DEADLINE);
+        /**
+         * 有序分组的全部任务，按提交顺序
+         */
+        private final TreeMap<Long, Task<T>> members = new TreeMap<>();
+        private boolean running;
+
+        Group(boolean ordered) {
+            this.ordered = ordered;
+        }
+    }
+
+    private static class Task<T> {
+        private final String id;
+        private final Group<T> group;
+        private final long seq;
+        private T payload;
+        private T resubmitted;
+        private int state = DORMANT;
+        private long deadline;
+        private long waitHeight;
+        private int failures;
+        private boolean removed;
+
+        Task(String id, T payload, Group<T> group, long seq) {
+            this.id = id;
+            this.payload = payload;
+            this.group = group;
+            this.seq = seq;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.scheduler;
+
+/**
+ * 任务执行一次后的结果：已完成，或下一次执行的条件(到达指定区块高度或指定时间，先满足的为准)
+ */
+public class TaskResult {
+
+    private static final TaskResult DONE = new TaskResult(true, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final boolean done;
+    private final long waitHeight;
+    private final long runAt;
+
+    private TaskResult(boolean done, long waitHeight, long runAt) {
+        this.done = done;
+        this.waitHeight = waitHeight;
+        this.runAt = runAt;
+    }
+
+    public static TaskResult done() {
+        return DONE;
+    }
+
+    /**
+     * 在指定时间(毫秒)再次执行
+     */
+    public static TaskResult retryAt(long runAt) {
+        return new TaskResult(false, Long.MAX_VALUE, runAt);
+    }
+
+    public static TaskResult retryAfter(long delayMillis) {
+        return retryAt(System.currentTimeMillis() + delayMillis);
+    }
+
+    /**
+     * 区块高度到达height时再次执行，没有高度事件时最晚在runAt执行
+     */
+    public static TaskResult waitHeight(long height, long runAt) {
+        return new TaskResult(false, height, runAt);
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getWaitHeight() {
+        return waitHeight;
+    }
+
+    public long getRunAt() {
+        return runAt;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.scheduler.interfaces;
+
+import network.nerve.converter.core.scheduler.TaskResult;
+
+/**
+ * 调度任务的执行
+ *
+ * @param <T> 任务数据类型
+ */
+public interface ITaskHandler<T> {
+
+    /**
+     * 任务所属的分组，同一分组同时只执行一个任务，不同分组的任务并发执行
+     */
+    String getGroup(T task);
+
+    /**
+     * 分组内的任务是否必须按提交顺序逐个完成，前一个任务完成前后面的任务不执行
+     */
+    boolean isOrdered(String group);
+
+    /**
+     * 执行一次任务，返回完成或下一次执行的条件；抛出异常时按失败次数退避后重试
+     */
+    TaskResult handle(String id, T task) throws Exception;
+}
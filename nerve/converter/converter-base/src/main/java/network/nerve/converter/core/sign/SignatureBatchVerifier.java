@@ -0,0 +1,219 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.core.sign;
+
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.converter.core.sign.interfaces.ISignatureCheck;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 签名批量验证
+ * <p>
+ * 同一交易的一批签名消息由线程池并发验证，已确认有效的签名数达到需要的数量后不再验证其余签名；
+ * 验证结果按(交易hash, 签名者, 签名数据)缓存，节点之间相互转发的同一签名只验证一次，
+ * 超出缓存数量时淘汰最久未访问的结果。
+ * 验证线程池的等待队列有上限，队列已满时由提交验证的线程自己验证
+ */
+public class SignatureBatchVerifier {
+
+    private final int cacheSize;
+    private final LinkedHashMap<String, Boolean> cache;
+    private final ThreadPoolExecutor verifyPool;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong verifyCount = new AtomicLong();
+    private final AtomicLong skipCount = new AtomicLong();
+
+    public SignatureBatchVerifier(String name, int threads, int cacheSize) {
+        this(name, threads, 0, cacheSize);
+    }
+
+    /**
+     * @param queueSize 验证线程池的等待队列长度，小于等于0时不限制
+     */
+    public SignatureBatchVerifier(String name, int threads, int queueSize, int cacheSize) {
+        this.cacheSize = Math.max(1, cacheSize);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > SignatureBatchVerifier.this.cacheSize;
+            }
+        };
+        this.verifyPool = ThreadUtils.createThreadPool(Math.max(1, threads), queueSize, new NulsThreadFactory(name));
+        this.verifyPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 签名验证结果的缓存key
+     */
+    public static String cacheKey(byte[] hash, byte[] signer, byte[] sign) {
+        byte[] data = new byte[hash.length + signer.length + sign.length];
+        System.arraycopy(hash, 0, data, 0, hash.length);
+        System.arraycopy(signer, 0, data, hash.length, signer.length);
+        System.arraycopy(sign, 0, data, hash.length + signer.length, sign.length);
+        return HexUtil.encode(Sha256Hash.hash(data));
+    }
+
+    /**
+     * 验证单个签名，使用缓存的验证结果
+     */
+    public <T> boolean verify(T item, String key, ISignatureCheck<T> check) throws Exception {
+        requestCount.incrementAndGet();
+        Boolean cached = getCached(key);
+        if (cached != null) {
+            cacheHitCount.incrementAndGet();
+            return cached;
+        }
+        return verifyAndCache(item, key, check);
+    }
+
+    /**
+     * 并发验证同一交易的一批签名，缓存key相同的签名只验证一次
+     *
+     * @param required 需要的有效签名数，已确认的有效签名达到该数量后不再验证其余签名，小于等于0时全部验证
+     * @return 验证通过的签名，按输入顺序
+     */
+    public <T> List<T> verifyBatch(List<T> items, Function<T, String> keyFunction, ISignatureCheck<T> check, int required) throws InterruptedException {
+        int size = items.size();
+        boolean[] valid = new boolean[size];
+        Set<String> keys = new HashSet<>();
+        List<Integer> pending = new ArrayList<>();
+        List<String> pendingKeys = new ArrayList<>();
+        int validCount = 0;
+        for (int i = 0; i < size; i++) {
+            requestCount.incrementAndGet();
+            String key = keyFunction.apply(items.get(i));
+            if (!keys.add(key)) {
+                // 同一批中重复的签名
+                cacheHitCount.incrementAndGet();
+                continue;
+            }
+            Boolean cached = getCached(key);
+            if (cached != null) {
+                cacheHitCount.incrementAndGet();
+                if (cached) {
+                    valid[i] = true;
+                    validCount++;
+                }
+                continue;
+            }
+            pending.add(i);
+            pendingKeys.add(key);
+        }
+        if (required > 0 && validCount >= required) {
+            skipCount.addAndGet(pending.size());
+            return collect(items, valid);
+        }
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(verifyPool);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int p = 0; p < pending.size(); p++) {
+            int index = pending.get(p);
+            String key = pendingKeys.get(p);
+            futures.add(completionService.submit(() -> {
+                try {
+                    return verifyAndCache(items.get(index), key, check) ? index : -1;
+                } catch (Exception e) {
+                    return -1;
+                }
+            }));
+        }
+        try {
+            for (int done = 0; done < futures.size(); done++) {
+                int index = completionService.take().get();
+                if (index >= 0) {
+                    valid[index] = true;
+                    validCount++;
+                    if (required > 0 && validCount >= required) {
+                        break;
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            // 验证任务内部已处理异常
+        } finally {
+            for (Future<Integer> future : futures) {
+                if (future.cancel(false)) {
+                    skipCount.incrementAndGet();
+                }
+            }
+        }
+        return collect(items, valid);
+    }
+
+    public void shutdown() {
+        verifyPool.shutdownNow();
+    }
+
+    private static <T> List<T> collect(List<T> items, boolean[] valid) {
+        List<T> list = new ArrayList<>();
+        for (int i = 0; i < valid.length; i++) {
+            if (valid[i]) {
+                list.add(items.get(i));
+            }
+        }
+        return list;
+    }
+
+    private Boolean getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private <T> boolean verifyAndCache(T item, String key, ISignatureCheck<T> check) throws Exception {
+        verifyCount.incrementAndGet();
+        boolean result = check.verify(item);
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 验证请求数、命中缓存(包括同一批中重复)的次数、实际验证次数、达到需要的数量后跳过验证的次数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getVerifyCount() {
+        return verifyCount.get();
+    }
+
+    public long getSkipCount() {
+        return skipCount.get();
+    }
+}
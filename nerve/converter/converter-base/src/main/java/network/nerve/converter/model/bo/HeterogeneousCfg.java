@@ -89,6 +89,16 @@ public class HeterogeneousCfg {
      */
     private String filterAddresses;
 
+    /**
+     * 是否按ERC20 Transfer事件日志过滤区块中需要解析的交易，开启后不再逐笔查询ERC20转账交易的收据
+     */
+    private boolean depositLogFilter;
+
+    /**
+     * 是否把读请求按健康度分发到所有配置的RPC节点，并对慢请求发送对冲请求；发送交易和查询nonce不受影响
+     */
+    private boolean endpointPool;
+
     public int getChainId() {
         return chainId;
     }
@@ -208,4 +218,20 @@ public class HeterogeneousCfg {
     public void setFilterAddresses(String filterAddresses) {
         this.filterAddresses = filterAddresses;
     }
+
+    public boolean isDepositLogFilter() {
+        return depositLogFilter;
+    }
+
+    public void setDepositLogFilter(boolean depositLogFilter) {
+        this.depositLogFilter = depositLogFilter;
+    }
+
+    public boolean isEndpointPool() {
+        return endpointPool;
+    }
+
+    public void setEndpointPool(boolean endpointPool) {
+        this.endpointPool = endpointPool;
+    }
 }
@@ -0,0 +1,256 @@
+package network.nerve.converter.core.heterogeneous.receipt;
+
+import network.nerve.converter.core.heterogeneous.receipt.interfaces.IReceiptBatchQuery;
+import network.nerve.converter.core.heterogeneous.syncblock.MockJsonRpcServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 交易收据批量查询和缓存：并发查询合并、区块回滚后重新查询、未打包交易不缓存、缓存数量上限，
+ * 以及一批提现交易从解析到确认的请求往返次数和确认耗时
+ */
+public class HeterogeneousReceiptServiceTest {
+
+    private final Map<String, Map<String, Object>> receipts = new ConcurrentHashMap<>();
+    private MockJsonRpcServer server;
+    private HeterogeneousReceiptService<Map<String, Object>> service;
+
+    @Before
+    public void before() throws Exception {
+        server = new MockJsonRpcServer((method, params) -> {
+            if ("eth_getTransactionReceipt".equals(method)) {
+                return receipts.get(params.get(0));
+            }
+            throw new IllegalArgumentException("unsupported method");
+        });
+        service = newService(100, 4096);
+    }
+
+    @After
+    public void after() {
+        service.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testConcurrentRequestsCoalesced() throws Exception {
+        server.latencyMillis = 5;
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            hashes.add(addReceipt(i, 10 + i / 10));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        for (int round = 0; round < 2; round++) {
+            for (String hash : hashes) {
+                futures.add(pool.submit(() -> service.getReceipt(hash)));
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertEquals(hashes.get(i % hashes.size()), futures.get(i).get().get("transactionHash"));
+        }
+        pool.shutdown();
+        Assert.assertEquals(100, service.getQueryCount());
+        Assert.assertEquals(100, server.getRequestCount("eth_getTransactionReceipt"));
+        Assert.assertTrue("round trips: " + server.getRoundTrips(), server.getRoundTrips() < 50);
+    }
+
+    @Test
+    public void testReorgInvalidatesCache() throws Exception {
+        String hash = addReceipt(1, 100);
+        Assert.assertEquals(blockHash(100, 0), service.getReceipt(hash).get("blockHash"));
+        service.getReceipt(hash, blockHash(100, 0));
+        Assert.assertEquals(1, server.getRequestCount());
+
+        // 分叉后交易被打包到新的区块
+        receipts.put(hash, receipt(hash, 101, 1));
+        Assert.assertEquals(blockHash(100, 0), service.getReceipt(hash).get("blockHash"));
+        Assert.assertEquals(blockHash(101, 1), service.getReceipt(hash, blockHash(101, 1)).get("blockHash"));
+        Assert.assertEquals(2, server.getRequestCount());
+
+        receipts.put(hash, receipt(hash, 102, 2));
+        service.invalidateFromHeight(101);
+        Assert.assertEquals(blockHash(102, 2), service.getReceipt(hash).get("blockHash"));
+        Assert.assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testPendingTxNotCached() throws Exception {
+        String hash = String.format("0x%064x", 77);
+        Assert.assertNull(service.getReceipt(hash));
+        receipts.put(hash, receipt(hash, 5, 0));
+        Assert.assertNotNull(service.getReceipt(hash));
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testMalformedReceiptDoesNotStopDispatch() throws Exception {
+        // 部分节点对未打包交易返回缺少区块高度的收据
+        String pending = String.format("0x%064x", 78);
+        Map<String, Object> receipt = receipt(pending, 5, 0);
+        receipt.put("blockNumber", null);
+        receipts.put(pending, receipt);
+        try {
+            service.getReceipt(pending);
+            Assert.fail();
+        } catch (NullPointerException e) {
+            // 此次查询以异常结束
+        }
+        Assert.assertEquals(0, service.getCacheSize());
+
+        String hash = addReceipt(1, 100);
+        Assert.assertEquals(hash, service.getReceipt(hash).get("transactionHash"));
+        receipts.put(pending, receipt(pending, 6, 0));
+        Assert.assertEquals(blockHash(6, 0), service.getReceipt(pending).get("blockHash"));
+    }
+
+    @Test
+    public void testRefreshBypassesCache() throws Exception {
+        String hash = addReceipt(1, 100);
+        Assert.assertEquals(blockHash(100, 0), service.getReceipt(hash).get("blockHash"));
+        // 交易所在区块被回滚，本地尚未同步到回滚
+        receipts.remove(hash);
+        Assert.assertNotNull(service.getReceipt(hash));
+        Assert.assertNull(service.refreshReceipt(hash));
+        Assert.assertEquals(2, server.getRequestCount());
+        receipts.put(hash, receipt(hash, 101, 1));
+        Assert.assertEquals(blockHash(101, 1), service.refreshReceipt(hash).get("blockHash"));
+        Assert.assertEquals(blockHash(101, 1), service.getReceipt(hash).get("blockHash"));
+        Assert.assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testCacheBounded() throws Exception {
+        service.shutdown();
+        service = newService(100, 10);
+        for (int i = 0; i < 50; i++) {
+            service.getReceipt(addReceipt(i, i));
+        }
+        Assert.assertEquals(10, service.getCacheSize());
+        // 淘汰后的收据回滚时不会出错，回滚高度之后的收据被清除
+        service.invalidateFromHeight(45);
+        Assert.assertEquals(5, service.getCacheSize());
+    }
+
+    /**
+     * 一批提现交易分布在多个区块中：区块解析时查询每笔提现交易的收据，之后确认任务再次验证每笔交易的收据
+     * 对比逐笔查询与批量查询加缓存的请求往返次数和全部确认的耗时
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void benchmarkWithdrawBurst() throws Exception {
+        int withdrawals = Integer.getInteger("receipt.withdrawals", 300);
+        int perBlock = 20;
+        List<List<String>> blocks = new ArrayList<>();
+        for (int i = 0; i < withdrawals; i++) {
+            if (i % perBlock == 0) {
+                blocks.add(new ArrayList<>());
+            }
+            blocks.get(blocks.size() - 1).add(addReceipt(i, 1000 + i / perBlock));
+        }
+        server.latencyMillis = 5;
+        for (boolean batch : new boolean[]{false, true}) {
+            service.shutdown();
+            service = newService(100, 4096);
+            server.resetStatistics();
+            long start = System.currentTimeMillis();
+            List<String> confirmQueue = new ArrayList<>();
+            // 区块解析
+            for (List<String> block : blocks) {
+                if (batch) {
+                    service.prefetch(block);
+                }
+                for (String hash : block) {
+                    Map<String, Object> receipt = batch ? service.getReceipt(hash, (String) receipts.get(hash).get("blockHash"))
+                            : (Map<String, Object>) MockJsonRpcServer.call(server.getUrl(), "eth_getTransactionReceipt", hash);
+                    Assert.assertEquals("0x1", receipt.get("status"));
+                    confirmQueue.add(hash);
+                }
+            }
+            // 确认任务再次验证
+            if (batch) {
+                service.prefetch(confirmQueue);
+            }
+            int confirmed = 0;
+            for (String hash : confirmQueue) {
+                Map<String, Object> receipt = batch ? service.getReceipt(hash)
+                        : (Map<String, Object>) MockJsonRpcServer.call(server.getUrl(), "eth_getTransactionReceipt", hash);
+                if (receipt != null && "0x1".equals(receipt.get("status"))) {
+                    confirmed++;
+                }
+            }
+            long cost = System.currentTimeMillis() - start;
+            Assert.assertEquals(withdrawals, confirmed);
+            System.out.println((batch ? "batch + cache" : "one by one") + ", withdrawals:" + withdrawals + ", blocks:" + blocks.size()
+                    + ", round trips:" + server.getRoundTrips() + ", receipts queried:" + server.getRequestCount("eth_getTransactionReceipt")
+                    + ", bytes:" + server.getResponseBytes() + ", confirm all:" + cost + "ms");
+        }
+    }
+
+    private HeterogeneousReceiptService<Map<String, Object>> newService(int batchSize, int cacheSize) {
+        return new HeterogeneousReceiptService<>(new RpcReceiptQuery(server.getUrl()), batchSize, cacheSize, 2, 10000);
+    }
+
+    private String addReceipt(int index, long height) {
+        String hash = String.format("0x%064x", index);
+        receipts.put(hash, receipt(hash, height, 0));
+        return hash;
+    }
+
+    private static Map<String, Object> receipt(String hash, long height, int fork) {
+        Map<String, Object> receipt = new LinkedHashMap<>();
+        receipt.put("transactionHash", hash);
+        receipt.put("blockNumber", "0x" + Long.toHexString(height));
+        receipt.put("blockHash", blockHash(height, fork));
+        receipt.put("status", "0x1");
+        receipt.put("gasUsed", "0x2dc6c");
+        receipt.put("logs", Collections.emptyList());
+        return receipt;
+    }
+
+    private static String blockHash(long height, int fork) {
+        return String.format("0x%056x%08x", height, fork);
+    }
+
+    private static class RpcReceiptQuery implements IReceiptBatchQuery<Map<String, Object>> {
+        private final String url;
+
+        RpcReceiptQuery(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public String getSymbol() {
+            return "MOCK";
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<Map<String, Object>> queryReceipts(List<String> txHashes) throws Exception {
+            List<List<?>> paramsList = new ArrayList<>();
+            for (String txHash : txHashes) {
+                paramsList.add(Collections.singletonList(txHash));
+            }
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Object receipt : MockJsonRpcServer.callBatch(url, "eth_getTransactionReceipt", paramsList)) {
+                result.add((Map<String, Object>) receipt);
+            }
+            return result;
+        }
+
+        @Override
+        public long getBlockHeight(Map<String, Object> receipt) {
+            return Long.decode((String) receipt.get("blockNumber"));
+        }
+
+        @Override
+        public String getBlockHash(Map<String, Object> receipt) {
+            return (String) receipt.get("blockHash");
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package network.nerve.converter.core.heterogeneous.rpc;
+
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointCall;
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointClientFactory;
+import network.nerve.converter.core.heterogeneous.syncblock.MockJsonRpcServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异构链RPC节点池：避开慢节点和失败率高的节点、不使用落后的节点查询新区块、节点失败时改用其他节点、节点都不返回时超时，
+ * 以及单个固定节点和节点池(不对冲/对冲)按高度查询区块的尾延迟
+ */
+public class HeterogeneousEndpointPoolTest {
+
+    private static final long CHAIN_HEAD = 1000;
+
+    private final List<FakeEndpoint> fakeEndpoints = new ArrayList<>();
+    private final List<HeterogeneousEndpointPool<String>> pools = new ArrayList<>();
+
+    @After
+    public void after() {
+        for (HeterogeneousEndpointPool<String> pool : pools) {
+            pool.shutdown();
+        }
+        for (FakeEndpoint endpoint : fakeEndpoints) {
+            endpoint.server.close();
+        }
+    }
+
+    @Test
+    public void testRouteToHealthiestEndpoint() throws Exception {
+        FakeEndpoint slow = newEndpoint(40, 0, 0, 0, 0);
+        FakeEndpoint faulty = newEndpoint(2, 0, 0, 0.5, 0);
+        FakeEndpoint healthy = newEndpoint(5, 0, 0, 0, 0);
+        HeterogeneousEndpointPool<String> pool = newPool(fakeEndpoints, 1000, 1000);
+        for (int i = 0; i < 100; i++) {
+            pool.probeHeads(HEAD_CALL);
+            Assert.assertNotNull(pool.read("getBlockByHeight", CHAIN_HEAD, blockCall(CHAIN_HEAD)));
+        }
+        long slowCount = slow.server.getRequestCount("eth_getBlockByNumber");
+        long faultyCount = faulty.server.getRequestCount("eth_getBlockByNumber");
+        long healthyCount = healthy.server.getRequestCount("eth_getBlockByNumber");
+        Assert.assertTrue(slowCount + " " + faultyCount + " " + healthyCount, healthyCount > 90);
+    }
+
+    @Test
+    public void testLaggingEndpointNotUsedForNewBlocks() throws Exception {
+        FakeEndpoint lagging = newEndpoint(0, 0, 0, 0, 3);
+        newEndpoint(10, 0, 0, 0, 0);
+        newEndpoint(10, 0, 0, 0, 0);
+        HeterogeneousEndpointPool<String> pool = newPool(fakeEndpoints, 1, 100);
+        Assert.assertEquals(CHAIN_HEAD, pool.probeHeads(HEAD_CALL));
+        for (int i = 0; i < 50; i++) {
+            Assert.assertNotNull(pool.read("getBlockByHeight", CHAIN_HEAD, blockCall(CHAIN_HEAD)));
+        }
+        Assert.assertEquals(0, lagging.server.getRequestCount("eth_getBlockByNumber"));
+        // 落后节点已同步的区块仍可以从该节点查询
+        for (int i = 0; i < 20; i++) {
+            Assert.assertNotNull(pool.read("getBlockByHeight", CHAIN_HEAD - 10, blockCall(CHAIN_HEAD - 10)));
+        }
+        Assert.assertTrue(lagging.server.getRequestCount("eth_getBlockByNumber") > 0);
+    }
+
+    @Test
+    public void testFailoverWhenEndpointDown() throws Exception {
+        FakeEndpoint down = newEndpoint(0, 0, 0, 0, 0);
+        newEndpoint(5, 0, 0, 0, 0);
+        HeterogeneousEndpointPool<String> pool = newPool(fakeEndpoints, 1000, 1000);
+        down.server.close();
+        for (int i = 0; i < 50; i++) {
+            Assert.assertNotNull(pool.read("getBlockByHeight", blockCall(CHAIN_HEAD)));
+        }
+        Assert.assertTrue(pool.getFailoverCount() > 0);
+        Assert.assertTrue(pool.getFailoverCount() < 10);
+    }
+
+    @Test
+    public void testReadTimesOutWhenAllEndpointsHang() throws Exception {
+        newEndpoint(3000, 0, 0, 0, 0);
+        newEndpoint(3000, 0, 0, 0, 0);
+        HeterogeneousEndpointPool<String> pool = newPool(fakeEndpoints, 50, 100, 500);
+        long start = System.currentTimeMillis();
+        try {
+            pool.read("getBlockByHeight", blockCall(CHAIN_HEAD));
+            Assert.fail();
+        } catch (TimeoutException e) {
+            // 调用方改用钱包API的重试逻辑
+        }
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertTrue("cost: " + cost, cost < 1500);
+    }
+
+    /**
+     * 三个节点都会偶尔变慢：固定节点A有15%的请求慢100ms，B有5%的请求失败和3%的请求变慢，C有5%的请求变慢
+     */
+    @Test
+    public void benchmarkTailLatency() throws Exception {
+        int count = 200;
+        FakeEndpoint a = newEndpoint(3, 0.15, 100, 0, 0);
+        newEndpoint(4, 0.03, 100, 0.05, 0);
+        newEndpoint(4, 0.05, 100, 0, 0);
+        report("single endpoint", measure(null, Collections.singletonList(a), count));
+        HeterogeneousEndpointPool<String> unhedged = newPool(fakeEndpoints, 1000, 1000);
+        report("pool, no hedge", measure(unhedged, null, count));
+        HeterogeneousEndpointPool<String> hedged = newPool(fakeEndpoints, 10, 50);
+        long[] latencies = measure(hedged, null, count);
+        report("pool, hedged", latencies);
+        System.out.println("hedged requests: " + hedged.getHedgeCount() + ", hedge wins: " + hedged.getHedgeWinCount()
+                + ", failover: " + hedged.getFailoverCount());
+        for (HeterogeneousEndpointPool.Endpoint<String> endpoint : hedged.getEndpoints()) {
+            System.out.println(endpoint);
+        }
+        Assert.assertTrue(latencies[count * 95 / 100 - 1] < 80);
+    }
+
+    private long[] measure(HeterogeneousEndpointPool<String> pool, List<FakeEndpoint> single, int count) throws Exception {
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (pool != null && i % 10 == 0) {
+                pool.probeHeads(HEAD_CALL);
+            }
+            long start = System.nanoTime();
+            Object block;
+            if (pool != null) {
+                block = pool.read("getBlockByHeight", CHAIN_HEAD, blockCall(CHAIN_HEAD));
+            } else {
+                block = blockCall(CHAIN_HEAD).call(single.get(0).server.getUrl());
+            }
+            Assert.assertNotNull(block);
+            latencies[i] = (System.nanoTime() - start) / 1000000;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static void report(String name, long[] sorted) {
+        System.out.println(String.format("%s getBlockByHeight p50:%dms p95:%dms p99:%dms max:%dms", name,
+                sorted[sorted.length / 2 - 1], sorted[sorted.length * 95 / 100 - 1], sorted[sorted.length * 99 / 100 - 1], sorted[sorted.length - 1]));
+    }
+
+    private static final IEndpointCall<String, Long> HEAD_CALL = url ->
+            Long.decode((String) MockJsonRpcServer.call(url, "eth_blockNumber"));
+
+    private static IEndpointCall<String, Object> blockCall(long height) {
+        return url -> MockJsonRpcServer.call(url, "eth_getBlockByNumber", "0x" + Long.toHexString(height), true);
+    }
+
+    private HeterogeneousEndpointPool<String> newPool(List<FakeEndpoint> endpoints, long minHedgeMillis, long maxHedgeMillis) throws Exception {
+        return newPool(endpoints, minHedgeMillis, maxHedgeMillis, 30000);
+    }
+
+    private HeterogeneousEndpointPool<String> newPool(List<FakeEndpoint> endpoints, long minHedgeMillis, long maxHedgeMillis, long timeoutMillis) throws Exception {
+        List<String> urls = new ArrayList<>();
+        for (FakeEndpoint endpoint : endpoints) {
+            urls.add(endpoint.server.getUrl());
+        }
+        HeterogeneousEndpointPool<String> pool = new HeterogeneousEndpointPool<>("ETH", urls, new IEndpointClientFactory<String>() {
+            @Override
+            public String create(String url) {
+                return url;
+            }
+
+            @Override
+            public void close(String client) {
+            }
+        }, minHedgeMillis, maxHedgeMillis, timeoutMillis, 8);
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * @param latencyMillis 每个请求的延迟
+     * @param spikeRate     变慢的请求比例
+     * @param spikeMillis   变慢的请求额外的延迟
+     * @param faultRate     失败的请求比例
+     * @param lag           落后的区块数
+     */
+    private FakeEndpoint newEndpoint(long latencyMillis, double spikeRate, long spikeMillis, double faultRate, long lag) throws Exception {
+        FakeEndpoint endpoint = new FakeEndpoint();
+        long head = CHAIN_HEAD - lag;
+        endpoint.server = new MockJsonRpcServer((method, params) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latencyMillis + (random.nextDouble() < spikeRate ? spikeMillis : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (random.nextDouble() < faultRate) {
+                throw new IllegalStateException("fault");
+            }
+            if ("eth_blockNumber".equals(method)) {
+                return "0x" + Long.toHexString(head);
+            }
+            if ("eth_getBlockByNumber".equals(method)) {
+                long height = Long.decode((String) params.get(0));
+                if (height > head) {
+                    return null;
+                }
+                Map<String, Object> block = new LinkedHashMap<>();
+                block.put("number", params.get(0));
+                block.put("hash", String.format("0x%064x", height));
+                block.put("transactions", new ArrayList<>());
+                return block;
+            }
+            throw new IllegalArgumentException("unsupported method");
+        });
+        fakeEndpoints.add(endpoint);
+        return endpoint;
+    }
+
+    private static class FakeEndpoint {
+        private MockJsonRpcServer server;
+    }
+}
@@ -0,0 +1,380 @@
+package network.nerve.converter.core.heterogeneous.syncblock;
+
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.crypto.KeccakHash;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.ITransferLogQuery;
+import network.nerve.converter.model.bo.HeterogeneousTransferLog;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 对比逐笔查询交易收据和事件日志过滤两种方式检测充值交易：检测结果一致，以及请求次数、响应字节数和耗时
+ */
+public class DepositLogFilterTest {
+
+    private static final String TRANSFER = DepositLogFilter.ERC20_TRANSFER_TOPIC;
+    private static final String MULTISIG = "0x" + "ab".repeat(20);
+
+    private MockEvmChain chain;
+    private MockJsonRpcServer server;
+
+    @Before
+    public void before() throws Exception {
+        chain = new MockEvmChain(new Random(7));
+        server = new MockJsonRpcServer(chain::handle);
+    }
+
+    @After
+    public void after() {
+        server.close();
+    }
+
+    @Test
+    public void testSameDepositsAsReceiptScan() throws Exception {
+        chain.generate(300, 150);
+        List<String> legacy = scan(false, 300);
+        List<String> filtered = scan(true, 300);
+        Assert.assertTrue(legacy.size() > 10);
+        Assert.assertEquals(legacy, filtered);
+    }
+
+    /**
+     * 范围查询之后区块发生分叉，新的区块中有充值交易
+     */
+    @Test
+    public void testReorgAfterRangeQuery() throws Exception {
+        chain.generate(100, 50);
+        DepositLogFilter filter = new DepositLogFilter(new RpcLogQuery(server.getUrl()), 50);
+        filter.setLatestHeight(100);
+        Map<String, Object> block = block(10);
+        filter.findTransferTxHashes(10, (String) block.get("hash"), (String) block.get("logsBloom"));
+
+        String depositTx = chain.replaceWithDeposit(12);
+        block = block(12);
+        Set<String> txHashes = filter.findTransferTxHashes(12, (String) block.get("hash"), (String) block.get("logsBloom"));
+        Assert.assertNotNull(txHashes);
+        Assert.assertTrue(txHashes.contains(depositTx));
+    }
+
+    /**
+     * 每个请求延迟1ms，对比两种方式扫描相同区块的请求次数、响应字节数和耗时
+     */
+    @Test
+    public void benchmarkDetection() throws Exception {
+        int blocks = Integer.getInteger("deposit.blocks", 500);
+        chain.generate(blocks, 150);
+        server.latencyMillis = 1;
+        for (boolean useLogs : new boolean[]{false, true}) {
+            server.resetStatistics();
+            long start = System.currentTimeMillis();
+            List<String> deposits = scan(useLogs, blocks);
+            long cost = System.currentTimeMillis() - start;
+            System.out.println((useLogs ? "log filter" : "receipt scan") + ", blocks:" + blocks + ", deposits:" + deposits.size()
+                    + ", requests:" + server.getRequestCount() + " (receipt:" + server.getRequestCount("eth_getTransactionReceipt")
+                    + ", getLogs:" + server.getRequestCount("eth_getLogs") + "), bytes:" + server.getResponseBytes()
+                    + ", cost:" + cost + "ms, lag:" + cost * 1000 / blocks + "us per block");
+        }
+    }
+
+    /**
+     * 按高度顺序扫描区块，返回检测到的充值交易和发往多签地址的交易
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> scan(boolean useLogs, int blocks) throws Exception {
+        DepositLogFilter filter = new DepositLogFilter(new RpcLogQuery(server.getUrl()), 100);
+        filter.setLatestHeight(blocks);
+        List<String> result = new ArrayList<>();
+        for (long height = 1; height <= blocks; height++) {
+            Map<String, Object> block = block(height);
+            Set<String> candidates = null;
+            if (useLogs) {
+                candidates = filter.findTransferTxHashes(height, (String) block.get("hash"), (String) block.get("logsBloom"));
+            }
+            for (Map<String, Object> tx : (List<Map<String, Object>>) block.get("transactions")) {
+                String to = (String) tx.get("to");
+                if (candidates != null && !MULTISIG.equals(to) && !candidates.contains(tx.get("hash"))) {
+                    continue;
+                }
+                String deposit = detect(tx);
+                if (deposit != null) {
+                    result.add(deposit);
+                }
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> block(long height) throws Exception {
+        return (Map<String, Object>) MockJsonRpcServer.call(server.getUrl(), "eth_getBlockByNumber", "0x" + Long.toHexString(height), true);
+    }
+
+    /**
+     * 与各EVM链AnalysisTxHelper相同的判断：发往多签地址的交易，发往ERC20合约且收据中第一个Transfer事件转入多签地址的交易
+     */
+    @SuppressWarnings("unchecked")
+    private String detect(Map<String, Object> tx) throws Exception {
+        String hash = (String) tx.get("hash");
+        String to = (String) tx.get("to");
+        if (MULTISIG.equals(to)) {
+            return ("0x".equals(tx.get("input")) ? "native:" : "call:") + hash;
+        }
+        if (!chain.erc20Set.contains(to)) {
+            return null;
+        }
+        Map<String, Object> receipt = (Map<String, Object>) MockJsonRpcServer.call(server.getUrl(), "eth_getTransactionReceipt", hash);
+        if (receipt == null || !"0x1".equals(receipt.get("status"))) {
+            return null;
+        }
+        for (Map<String, Object> log : (List<Map<String, Object>>) receipt.get("logs")) {
+            List<String> topics = (List<String>) log.get("topics");
+            if (topics.get(0).equals(TRANSFER)) {
+                if (!MULTISIG.equals("0x" + topics.get(2).substring(26))) {
+                    return null;
+                }
+                return new BigInteger(((String) log.get("data")).substring(2), 16).signum() > 0 ? "erc20:" + hash : null;
+            }
+        }
+        return null;
+    }
+
+    private static class RpcLogQuery implements ITransferLogQuery {
+        private final String url;
+
+        RpcLogQuery(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public Collection<String> getListeningAddresses() {
+            return Collections.singleton(MULTISIG);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public List<HeterogeneousTransferLog> queryTransferLogs(long fromHeight, long toHeight, List<String> toTopics) throws Exception {
+            Map<String, Object> filter = new LinkedHashMap<>();
+            filter.put("fromBlock", "0x" + Long.toHexString(fromHeight));
+            filter.put("toBlock", "0x" + Long.toHexString(toHeight));
+            filter.put("topics", Arrays.asList(TRANSFER, null, toTopics));
+            List<HeterogeneousTransferLog> list = new ArrayList<>();
+            for (Map<String, Object> log : (List<Map<String, Object>>) MockJsonRpcServer.call(url, "eth_getLogs", filter)) {
+                list.add(new HeterogeneousTransferLog(Long.decode((String) log.get("blockNumber")), (String) log.get("blockHash"), (String) log.get("transactionHash")));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * 模拟的EVM链：大部分交易是ERC20转账，少量ERC20转入多签地址(部分执行失败)、ETH转入多签地址、调用多签合约，
+     * 以及通过其他合约转入多签地址或多个Transfer事件中第二个转入多签地址的交易(原方式不认为是充值)
+     */
+    private static class MockEvmChain {
+        private final Random random;
+        private final List<String> erc20List = Arrays.asList(address(1), address(2), address(3));
+        private final Set<String> erc20Set = new HashSet<>(erc20List);
+        private final String unknownToken = address(4);
+        private final String router = address(5);
+        private final List<Map<String, Object>> blocks = new ArrayList<>();
+        private final Map<String, Map<String, Object>> receipts = new HashMap<>();
+        private long txIndex;
+
+        MockEvmChain(Random random) {
+            this.random = random;
+        }
+
+        synchronized void generate(int count, int txCount) {
+            blocks.add(newBlock(0, Collections.emptyList()));
+            for (int height = 1; height <= count; height++) {
+                List<Map<String, Object>> txs = new ArrayList<>();
+                for (int i = 0; i < txCount; i++) {
+                    txs.add(newTx(height));
+                }
+                blocks.add(newBlock(height, txs));
+            }
+        }
+
+        /**
+         * 分叉：替换指定高度的区块，新的区块中只有一笔ERC20转入多签地址的交易
+         */
+        synchronized String replaceWithDeposit(int height) {
+            Map<String, Object> tx = transfer(height, erc20List.get(0), MULTISIG, true);
+            Map<String, Object> block = newBlock(height, Collections.singletonList(tx));
+            block.put("hash", String.format("0x%064x", 1000000 + height));
+            for (Map<String, Object> log : logs(tx)) {
+                log.put("blockHash", block.get("hash"));
+            }
+            blocks.set(height, block);
+            return (String) tx.get("hash");
+        }
+
+        private Map<String, Object> newTx(int height) {
+            double r = random.nextDouble();
+            String token = erc20List.get(random.nextInt(erc20List.size()));
+            if (r < 0.6) {
+                return transfer(height, random.nextInt(10) == 0 ? unknownToken : token, randomAddress(), true);
+            } else if (r < 0.61) {
+                return transfer(height, random.nextInt(5) == 0 ? unknownToken : token, MULTISIG, random.nextInt(5) != 0);
+            } else if (r < 0.615) {
+                return tx(height, randomAddress(), MULTISIG, "0x" + Long.toHexString(1 + random.nextInt(100000)), "0x");
+            } else if (r < 0.62) {
+                return tx(height, randomAddress(), MULTISIG, "0x0", "0x0889d1f0");
+            } else if (r < 0.625) {
+                // 通过路由合约转入多签地址
+                Map<String, Object> tx = tx(height, randomAddress(), router, "0x0", "0x7ff36ab5");
+                receipt(tx, true, Collections.singletonList(transferLog(height, token, MULTISIG, tx)));
+                return tx;
+            } else if (r < 0.63) {
+                // 第一个Transfer事件转入其他地址，第二个转入多签地址
+                Map<String, Object> tx = tx(height, randomAddress(), token, "0x0", "0xa9059cbb");
+                receipt(tx, true, Arrays.asList(transferLog(height, token, randomAddress(), tx), transferLog(height, token, MULTISIG, tx)));
+                return tx;
+            }
+            return tx(height, randomAddress(), randomAddress(), "0x" + Long.toHexString(1 + random.nextInt(100000)), "0x");
+        }
+
+        private Map<String, Object> transfer(int height, String token, String to, boolean success) {
+            Map<String, Object> tx = tx(height, randomAddress(), token, "0x0", "0xa9059cbb" + to.substring(2));
+            receipt(tx, success, success ? Collections.singletonList(transferLog(height, token, to, tx)) : Collections.emptyList());
+            return tx;
+        }
+
+        private Map<String, Object> tx(int height, String from, String to, String value, String input) {
+            Map<String, Object> tx = new LinkedHashMap<>();
+            tx.put("hash", String.format("0x%064x", ++txIndex));
+            tx.put("blockNumber", "0x" + Long.toHexString(height));
+            tx.put("from", from);
+            tx.put("to", to);
+            tx.put("value", value);
+            tx.put("gas", "0x5208");
+            tx.put("gasPrice", "0x4a817c800");
+            tx.put("nonce", "0x" + Long.toHexString(random.nextInt(1000)));
+            tx.put("input", input);
+            tx.put("v", "0x25");
+            tx.put("r", "0x" + HexUtil.encode(KeccakHash.keccakBytes(((String) tx.get("hash")).getBytes(), 256)));
+            tx.put("s", "0x" + HexUtil.encode(KeccakHash.keccakBytes(((String) tx.get("r")).getBytes(), 256)));
+            return tx;
+        }
+
+        private Map<String, Object> transferLog(int height, String token, String to, Map<String, Object> tx) {
+            Map<String, Object> log = new LinkedHashMap<>();
+            log.put("address", token);
+            log.put("topics", Arrays.asList(TRANSFER, "0x000000000000000000000000" + ((String) tx.get("from")).substring(2),
+                    "0x000000000000000000000000" + to.substring(2)));
+            log.put("data", String.format("0x%064x", 1 + random.nextInt(1000000)));
+            log.put("blockNumber", "0x" + Long.toHexString(height));
+            log.put("transactionHash", tx.get("hash"));
+            return log;
+        }
+
+        private void receipt(Map<String, Object> tx, boolean success, List<Map<String, Object>> logs) {
+            Map<String, Object> receipt = new LinkedHashMap<>();
+            receipt.put("transactionHash", tx.get("hash"));
+            receipt.put("blockNumber", tx.get("blockNumber"));
+            receipt.put("status", success ? "0x1" : "0x0");
+            receipt.put("gasUsed", "0xc350");
+            receipt.put("logs", logs);
+            receipts.put((String) tx.get("hash"), receipt);
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Map<String, Object>> logs(Map<String, Object> tx) {
+            Map<String, Object> receipt = receipts.get(tx.get("hash"));
+            return receipt == null ? Collections.emptyList() : (List<Map<String, Object>>) receipt.get("logs");
+        }
+
+        private Map<String, Object> newBlock(int height, List<Map<String, Object>> txs) {
+            String hash = String.format("0x%064x", height);
+            byte[] bloom = new byte[256];
+            for (Map<String, Object> tx : txs) {
+                for (Map<String, Object> log : logs(tx)) {
+                    log.put("blockHash", hash);
+                    bloomAdd(bloom, (String) log.get("address"));
+                    for (Object topic : (List<?>) log.get("topics")) {
+                        bloomAdd(bloom, (String) topic);
+                    }
+                }
+            }
+            Map<String, Object> block = new LinkedHashMap<>();
+            block.put("number", "0x" + Long.toHexString(height));
+            block.put("hash", hash);
+            block.put("parentHash", String.format("0x%064x", Math.max(0, height - 1)));
+            block.put("timestamp", "0x" + Long.toHexString(1600000000L + height * 13));
+            block.put("logsBloom", "0x" + HexUtil.encode(bloom));
+            block.put("transactions", txs);
+            return block;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized Object handle(String method, List<?> params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    return "0x" + Long.toHexString(blocks.size() - 1);
+                case "eth_getBlockByNumber":
+                    int height = Long.decode((String) params.get(0)).intValue();
+                    return height < blocks.size() ? blocks.get(height) : null;
+                case "eth_getTransactionReceipt":
+                    return receipts.get(params.get(0));
+                case "eth_getLogs":
+                    Map<String, Object> filter = (Map<String, Object>) params.get(0);
+                    List<Object> topics = (List<Object>) filter.get("topics");
+                    List<Map<String, Object>> result = new ArrayList<>();
+                    long to = Math.min(Long.decode((String) filter.get("toBlock")), blocks.size() - 1);
+                    for (long h = Long.decode((String) filter.get("fromBlock")); h <= to; h++) {
+                        for (Map<String, Object> tx : (List<Map<String, Object>>) blocks.get((int) h).get("transactions")) {
+                            if (!"0x1".equals(receipts.getOrDefault(tx.get("hash"), Collections.emptyMap()).get("status"))) {
+                                continue;
+                            }
+                            for (Map<String, Object> log : logs(tx)) {
+                                if (matchTopics((List<String>) log.get("topics"), topics)) {
+                                    result.add(log);
+                                }
+                            }
+                        }
+                    }
+                    return result;
+                default:
+                    throw new IllegalArgumentException("unsupported method");
+            }
+        }
+
+        private static boolean matchTopics(List<String> logTopics, List<Object> filterTopics) {
+            for (int i = 0; i < filterTopics.size(); i++) {
+                Object filter = filterTopics.get(i);
+                if (filter == null) {
+                    continue;
+                }
+                if (i >= logTopics.size()) {
+                    return false;
+                }
+                if (filter instanceof List ? !((List<?>) filter).contains(logTopics.get(i)) : !filter.equals(logTopics.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String randomAddress() {
+            byte[] bytes = new byte[20];
+            random.nextBytes(bytes);
+            return "0x" + HexUtil.encode(bytes);
+        }
+
+        private static String address(int i) {
+            return String.format("0x%040x", i);
+        }
+
+        private static void bloomAdd(byte[] bloom, String hex) {
+            byte[] hash = KeccakHash.keccakBytes(HexUtil.decode(hex.substring(2)), 256);
+            for (int i = 0; i < 6; i += 2) {
+                int bit = ((hash[i] & 0xff) << 8 | (hash[i + 1] & 0xff)) & 2047;
+                bloom[255 - bit / 8] |= (1 << (bit % 8));
+            }
+        }
+    }
+}
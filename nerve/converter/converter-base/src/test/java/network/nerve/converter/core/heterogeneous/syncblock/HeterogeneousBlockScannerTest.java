@@ -0,0 +1,349 @@
+package network.nerve.converter.core.heterogeneous.syncblock;
+
+import io.nuls.core.log.logback.NulsLogger;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.IBlockScanChain;
+import network.nerve.converter.utils.LoggerUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 使用本地模拟的JSON-RPC节点(eth_blockNumber, eth_getBlockByNumber)验证区块扫描：
+ * 停机后追块按高度顺序解析、最新区块分叉和追块过程中分叉的回退，以及追块速度
+ */
+public class HeterogeneousBlockScannerTest {
+
+    private MockChain mockChain;
+    private MockJsonRpcServer server;
+    private HeterogeneousBlockScanner<Map<String, Object>> scanner;
+
+    @Before
+    public void before() throws Exception {
+        mockChain = new MockChain();
+        server = new MockJsonRpcServer(mockChain::handle);
+    }
+
+    @After
+    public void after() {
+        if (scanner != null) {
+            scanner.shutdown();
+        }
+        server.close();
+    }
+
+    /**
+     * 停机后追块：并发拉取的解析顺序和结果与逐块拉取一致
+     */
+    @Test
+    public void testCatchUpInOrder() throws Exception {
+        mockChain.grow(500);
+        for (int threads : new int[]{1, 8}) {
+            ScanChain chain = newChain(threads, 32, 1000);
+            chain.saveLocal(100, mockChain.hash(100));
+            scanner = new HeterogeneousBlockScanner<>(chain);
+            Assert.assertEquals(400, scanner.scan());
+            Assert.assertEquals(400, chain.analysedHeights.size());
+            for (int i = 0; i < chain.analysedHeights.size(); i++) {
+                Assert.assertEquals(101L + i, chain.analysedHeights.get(i).longValue());
+            }
+            Assert.assertEquals(mockChain.hash(500), chain.getLocalHash(500));
+            // 没有新区块时不再解析
+            Assert.assertEquals(0, scanner.scan());
+            scanner.shutdown();
+        }
+    }
+
+    /**
+     * 启动时落后太多则从网络最新高度开始同步
+     */
+    @Test
+    public void testFirstSyncTooFarBehind() throws Exception {
+        mockChain.grow(500);
+        ScanChain chain = newChain(4, 16, 100);
+        chain.saveLocal(100, mockChain.hash(100));
+        scanner = new HeterogeneousBlockScanner<>(chain);
+        Assert.assertEquals(1, scanner.scan());
+        Assert.assertEquals(Collections.singletonList(500L), chain.analysedHeights);
+        Assert.assertEquals(500L, chain.getLocalHeight().longValue());
+        Assert.assertNull(chain.getLocalHash(100));
+    }
+
+    /**
+     * 本地最新区块分叉：逐个回退到分叉点，之后同步新的链
+     */
+    @Test
+    public void testReorgAtTip() throws Exception {
+        mockChain.grow(200);
+        ScanChain chain = newChain(4, 16, 1000);
+        chain.saveLocal(100, mockChain.hash(100));
+        scanner = new HeterogeneousBlockScanner<>(chain);
+        Assert.assertEquals(100, scanner.scan());
+        mockChain.fork(199);
+        mockChain.grow(205);
+        scanner.scan();
+        Assert.assertEquals(205L, chain.getLocalHeight().longValue());
+        assertLocalMatchesChain(chain);
+        Assert.assertEquals(Arrays.asList(199L, 200L, 201L, 202L, 203L, 204L, 205L),
+                chain.analysedHeights.subList(chain.analysedHeights.size() - 7, chain.analysedHeights.size()));
+    }
+
+    /**
+     * 追块过程中分叉：父hash不连续时回退，下一轮继续同步到新的链
+     */
+    @Test
+    public void testReorgDuringCatchUp() throws Exception {
+        mockChain.grow(300);
+        mockChain.forkOnRequest(250, 248);
+        ScanChain chain = newChain(8, 32, 1000);
+        chain.saveLocal(100, mockChain.hash(100));
+        scanner = new HeterogeneousBlockScanner<>(chain);
+        for (int i = 0; i < 10 && !mockChain.hash(300).equals(chain.getLocalHash(300)); i++) {
+            scanner.scan();
+        }
+        Assert.assertEquals(300L, chain.getLocalHeight().longValue());
+        assertLocalMatchesChain(chain);
+        // 每个解析的区块都与前一个解析的区块相连
+        for (int i = 1; i < chain.analysedBlocks.size(); i++) {
+            Map<String, Object> block = chain.analysedBlocks.get(i);
+            long height = chain.getHeight(block);
+            for (int j = i - 1; j >= 0; j--) {
+                if (chain.getHeight(chain.analysedBlocks.get(j)) == height - 1) {
+                    Assert.assertEquals(chain.getHash(chain.analysedBlocks.get(j)), chain.getParentHash(block));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 模拟节点每个请求延迟5ms，停机2000个区块后的追块速度
+     */
+    @Test
+    public void benchmarkCatchUp() throws Exception {
+        int blocks = Integer.getInteger("scan.blocks", 2000);
+        mockChain.grow(blocks);
+        server.latencyMillis = 5;
+        for (int[] param : new int[][]{{1, 1}, {4, 16}, {8, 32}, {16, 64}}) {
+            ScanChain chain = newChain(param[0], param[1], blocks);
+            chain.saveLocal(0, mockChain.hash(0));
+            scanner = new HeterogeneousBlockScanner<>(chain);
+            Assert.assertEquals(blocks, scanner.scan());
+            System.out.println("threads:" + param[0] + ", window:" + param[1] + ", blocks:" + scanner.getLastCatchUpBlocks()
+                    + ", cost:" + scanner.getLastCatchUpMillis() + "ms, "
+                    + scanner.getLastCatchUpBlocks() * 1000L / Math.max(1L, scanner.getLastCatchUpMillis()) + " blocks/s");
+            scanner.shutdown();
+        }
+    }
+
+    private void assertLocalMatchesChain(ScanChain chain) {
+        for (Map.Entry<Long, String> entry : chain.localBlocks.entrySet()) {
+            Assert.assertEquals(mockChain.hash(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private ScanChain newChain(int threads, int window, long maxCatchUpBlocks) {
+        return new ScanChain(server.getUrl(), threads, window, maxCatchUpBlocks);
+    }
+
+    /**
+     * 模拟的异构链节点，区块hash由分叉序号和高度决定
+     */
+    private static class MockChain {
+        private final List<Integer> forkIds = new ArrayList<>();
+        private int forkId;
+        private long forkOnRequestHeight = -1;
+        private long forkFromHeight;
+
+        synchronized void grow(long height) {
+            while (forkIds.size() <= height) {
+                forkIds.add(forkId);
+            }
+        }
+
+        synchronized void fork(long fromHeight) {
+            forkId++;
+            for (long h = fromHeight; h < forkIds.size(); h++) {
+                forkIds.set((int) h, forkId);
+            }
+        }
+
+        /**
+         * 第一次请求指定高度的区块时，从forkFromHeight开始分叉
+         */
+        synchronized void forkOnRequest(long requestHeight, long fromHeight) {
+            this.forkOnRequestHeight = requestHeight;
+            this.forkFromHeight = fromHeight;
+        }
+
+        synchronized String hash(long height) {
+            if (height < 0 || height >= forkIds.size()) {
+                return null;
+            }
+            return String.format("0x%08x%056x", forkIds.get((int) height), height);
+        }
+
+        synchronized Map<String, Object> block(long height, boolean fullTx) {
+            if (height == forkOnRequestHeight) {
+                forkOnRequestHeight = -1;
+                fork(forkFromHeight);
+            }
+            String hash = hash(height);
+            if (hash == null) {
+                return null;
+            }
+            Map<String, Object> block = new LinkedHashMap<>();
+            block.put("number", "0x" + Long.toHexString(height));
+            block.put("hash", hash);
+            block.put("parentHash", height == 0 ? String.format("0x%064x", 0) : hash(height - 1));
+            block.put("timestamp", "0x" + Long.toHexString(1600000000L + height * 3));
+            List<Object> txs = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String txHash = String.format("0x%s%08x", hash.substring(10), i);
+                if (fullTx) {
+                    Map<String, Object> tx = new LinkedHashMap<>();
+                    tx.put("hash", txHash);
+                    tx.put("from", String.format("0x%040x", i));
+                    tx.put("to", String.format("0x%040x", i + 1));
+                    tx.put("value", "0xde0b6b3a7640000");
+                    tx.put("input", "0x");
+                    txs.add(tx);
+                } else {
+                    txs.add(txHash);
+                }
+            }
+            block.put("transactions", txs);
+            return block;
+        }
+
+        Object handle(String method, List<?> params) {
+            switch (method) {
+                case "eth_blockNumber":
+                    synchronized (this) {
+                        return "0x" + Long.toHexString(forkIds.size() - 1);
+                    }
+                case "eth_getBlockByNumber":
+                    return block(Long.decode((String) params.get(0)), (Boolean) params.get(1));
+                default:
+                    throw new IllegalArgumentException("unsupported method");
+            }
+        }
+    }
+
+    /**
+     * 通过JSON-RPC查询模拟节点，本地区块与各异构链的LocalBlockHelper一样只保留最近的三个区块
+     */
+    private static class ScanChain implements IBlockScanChain<Map<String, Object>> {
+        private final String rpcAddress;
+        private final int fetchThreads;
+        private final int fetchWindow;
+        private final long maxCatchUpBlocks;
+        private final TreeMap<Long, String> localBlocks = new TreeMap<>();
+        private final List<Long> analysedHeights = new ArrayList<>();
+        private final List<Map<String, Object>> analysedBlocks = new ArrayList<>();
+
+        ScanChain(String rpcAddress, int fetchThreads, int fetchWindow, long maxCatchUpBlocks) {
+            this.rpcAddress = rpcAddress;
+            this.fetchThreads = fetchThreads;
+            this.fetchWindow = fetchWindow;
+            this.maxCatchUpBlocks = maxCatchUpBlocks;
+        }
+
+        void saveLocal(long height, String hash) {
+            localBlocks.put(height, hash);
+        }
+
+        private Object rpc(String method, Object... params) throws Exception {
+            return MockJsonRpcServer.call(rpcAddress, method, params);
+        }
+
+        @Override
+        public String getSymbol() {
+            return "MOCK";
+        }
+
+        @Override
+        public NulsLogger logger() {
+            return LoggerUtil.LOG;
+        }
+
+        @Override
+        public long getLatestHeight() throws Exception {
+            return Long.decode((String) rpc("eth_blockNumber"));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> getBlock(long height) throws Exception {
+            return (Map<String, Object>) rpc("eth_getBlockByNumber", "0x" + Long.toHexString(height), true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public String getBlockHash(long height) throws Exception {
+            Map<String, Object> header = (Map<String, Object>) rpc("eth_getBlockByNumber", "0x" + Long.toHexString(height), false);
+            return header == null ? null : (String) header.get("hash");
+        }
+
+        @Override
+        public long getHeight(Map<String, Object> block) {
+            return Long.decode((String) block.get("number"));
+        }
+
+        @Override
+        public String getHash(Map<String, Object> block) {
+            return (String) block.get("hash");
+        }
+
+        @Override
+        public String getParentHash(Map<String, Object> block) {
+            return (String) block.get("parentHash");
+        }
+
+        @Override
+        public synchronized Long getLocalHeight() {
+            return localBlocks.isEmpty() ? null : localBlocks.lastKey();
+        }
+
+        @Override
+        public synchronized String getLocalHash(long height) {
+            return localBlocks.get(height);
+        }
+
+        @Override
+        public synchronized void analysisBlock(Map<String, Object> block) {
+            long height = getHeight(block);
+            analysedHeights.add(height);
+            analysedBlocks.add(block);
+            localBlocks.put(height, getHash(block));
+            localBlocks.remove(height - 3);
+        }
+
+        @Override
+        public synchronized void deleteLocalBlock(long height) {
+            localBlocks.remove(height);
+        }
+
+        @Override
+        public synchronized void deleteAllLocalBlock() {
+            localBlocks.clear();
+        }
+
+        @Override
+        public int getFetchThreads() {
+            return fetchThreads;
+        }
+
+        @Override
+        public int getFetchWindow() {
+            return fetchWindow;
+        }
+
+        @Override
+        public long getMaxCatchUpBlocks() {
+            return maxCatchUpBlocks;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package network.nerve.converter.core.heterogeneous.syncblock;
+
+import com.sun.net.httpserver.HttpServer;
+import io.nuls.core.parse.JSONUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地模拟的异构链JSON-RPC节点，支持批量请求，统计请求往返次数、各方法的请求次数和响应字节数
+ */
+public class MockJsonRpcServer implements Closeable {
+
+    public interface Handler {
+        Object handle(String method, List<?> params) throws Exception;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, AtomicLong> requestCount = new ConcurrentHashMap<>();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+    public volatile long latencyMillis;
+
+    public MockJsonRpcServer(Handler handler) throws IOException {
+        // 关闭Nagle算法，否则每个请求有约40ms的延迟
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(32);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            byte[] response;
+            try (InputStream in = exchange.getRequestBody()) {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                roundTrips.incrementAndGet();
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                Object result;
+                if (body.trim().startsWith("[")) {
+                    List<Object> results = new ArrayList<>();
+                    for (Map request : JSONUtils.json2list(body, Map.class)) {
+                        results.add(handle(handler, request));
+                    }
+                    result = results;
+                } else {
+                    result = handle(handler, JSONUtils.json2map(body));
+                }
+                response = JSONUtils.obj2json(result).getBytes(StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                response = new byte[0];
+            }
+            responseBytes.addAndGet(response.length);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    private Map<String, Object> handle(Handler handler, Map<?, ?> request) throws Exception {
+        String method = (String) request.get("method");
+        requestCount.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jsonrpc", "2.0");
+        result.put("id", request.get("id"));
+        result.put("result", handler.handle(method, (List<?>) request.get("params")));
+        return result;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount(String method) {
+        AtomicLong count = requestCount.get(method);
+        return count == null ? 0 : count.get();
+    }
+
+    public long getRequestCount() {
+        long total = 0;
+        for (AtomicLong count : requestCount.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    /**
+     * HTTP请求往返次数，一次批量请求只算一次
+     */
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    public void resetStatistics() {
+        requestCount.clear();
+        responseBytes.set(0);
+        roundTrips.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static Object call(String url, String method, Object... params) throws Exception {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("jsonrpc", "2.0");
+        request.put("method", method);
+        request.put("params", Arrays.asList(params));
+        request.put("id", 1);
+        return JSONUtils.json2map(post(url, request)).get("result");
+    }
+
+    /**
+     * 批量调用同一个方法，按参数顺序返回结果
+     */
+    public static List<Object> callBatch(String url, String method, List<List<?>> paramsList) throws Exception {
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (int i = 0; i < paramsList.size(); i++) {
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("jsonrpc", "2.0");
+            request.put("method", method);
+            request.put("params", paramsList.get(i));
+            request.put("id", i);
+            requests.add(request);
+        }
+        Object[] results = new Object[paramsList.size()];
+        for (Map response : JSONUtils.json2list(post(url, requests), Map.class)) {
+            results[((Number) response.get("id")).intValue()] = response.get("result");
+        }
+        return Arrays.asList(results);
+    }
+
+    private static String post(String url, Object body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(JSONUtils.obj2json(body).getBytes(StandardCharsets.UTF_8));
+        }
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
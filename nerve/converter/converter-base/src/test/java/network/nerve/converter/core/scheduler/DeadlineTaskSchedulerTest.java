@@ -0,0 +1,339 @@
+package network.nerve.converter.core.scheduler;
+
+import network.nerve.converter.core.scheduler.interfaces.ITaskHandler;
+import network.nerve.converter.core.scheduler.interfaces.ITaskStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按截止时间调度的持久化任务：卡住的任务不阻塞其他任务、有序分组按顺序执行、高度事件唤醒、
+ * 分组内互斥、重启后恢复，以及与定时轮询队列相比的后续处理延迟和CPU耗时
+ */
+public class DeadlineTaskSchedulerTest {
+
+    private final Map<String, Long> stored = new ConcurrentHashMap<>();
+    private final List<DeadlineTaskScheduler<FakeTask>> schedulers = new ArrayList<>();
+
+    @After
+    public void after() {
+        for (DeadlineTaskScheduler<FakeTask> scheduler : schedulers) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testStuckTaskDoesNotBlockOthers() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        DeadlineTaskScheduler<FakeTask> scheduler = newScheduler(handler, 4);
+        FakeTask stuck = new FakeTask("stuck", "withdraw-1", false);
+        stuck.stuck = true;
+        submit(scheduler, stuck);
+        for (int i = 0; i < 100; i++) {
+            submit(scheduler, new FakeTask("tx" + i, "withdraw-" + (i % 3), false));
+        }
+        Assert.assertTrue(handler.done.await(5, TimeUnit.SECONDS, 100));
+        waitSize(scheduler, 1);
+        Assert.assertTrue(stored.containsKey("stuck"));
+        Assert.assertTrue(scheduler.getFailureCount() > 0);
+    }
+
+    @Test
+    public void testOrderedGroupRunsInSubmitOrder() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        DeadlineTaskScheduler<FakeTask> scheduler = newScheduler(handler, 4);
+        FakeTask head = new FakeTask("bank0", "bank", true);
+        head.failTimes = 2;
+        submit(scheduler, head);
+        for (int i = 1; i < 5; i++) {
+            submit(scheduler, new FakeTask("bank" + i, "bank", true));
+        }
+        // 排到最前面执行
+        FakeTask reset = new FakeTask("reset", "bank", true);
+        scheduler.submit(reset.id, reset, 0, true);
+        Assert.assertTrue(handler.done.await(5, TimeUnit.SECONDS, 6));
+        Assert.assertEquals(Arrays.asList("reset", "bank0", "bank1", "bank2", "bank3", "bank4"), handler.doneOrder);
+    }
+
+    @Test
+    public void testHeightEventWakesTask() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        DeadlineTaskScheduler<FakeTask> scheduler = newScheduler(handler, 2);
+        FakeTask task = new FakeTask("tx", "fee", false);
+        task.confirmHeight = 10;
+        submit(scheduler, task);
+        Thread.sleep(100);
+        Assert.assertEquals(1, scheduler.getExecuteCount());
+        handler.height = 9;
+        scheduler.onHeight(9);
+        Thread.sleep(50);
+        Assert.assertEquals(2, scheduler.getExecuteCount());
+        long start = System.currentTimeMillis();
+        handler.height = 10;
+        scheduler.onHeight(10);
+        Assert.assertTrue(handler.done.await(1, TimeUnit.SECONDS, 1));
+        Assert.assertTrue(System.currentTimeMillis() - start < 500);
+        waitSize(scheduler, 0);
+        Assert.assertFalse(stored.containsKey("tx"));
+    }
+
+    @Test
+    public void testGroupMutualExclusion() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        handler.workMillis = 5;
+        DeadlineTaskScheduler<FakeTask> scheduler = newScheduler(handler, 8);
+        for (int i = 0; i < 80; i++) {
+            submit(scheduler, new FakeTask("tx" + i, "group-" + (i % 4), false));
+        }
+        Assert.assertTrue(handler.done.await(5, TimeUnit.SECONDS, 80));
+        for (int max : handler.maxConcurrentByGroup.values()) {
+            Assert.assertEquals(1, max);
+        }
+        Assert.assertTrue(handler.maxConcurrent.get() > 1);
+    }
+
+    @Test
+    public void testRestoreAfterRestart() throws Exception {
+        FakeHandler handler = new FakeHandler();
+        handler.retryMillis = 500;
+        DeadlineTaskScheduler<FakeTask> scheduler = newScheduler(handler, 2);
+        Map<String, FakeTask> all = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            FakeTask task = new FakeTask("tx" + i, "fee", false);
+            task.confirmHeight = 5;
+            all.put(task.id, task);
+            submit(scheduler, task);
+        }
+        Thread.sleep(100);
+        scheduler.shutdown();
+        Assert.assertEquals(10, stored.size());
+        for (long nextRunTime : stored.values()) {
+            Assert.assertTrue(nextRunTime > System.currentTimeMillis());
+        }
+
+        FakeHandler restarted = new FakeHandler();
+        restarted.height = 5;
+        DeadlineTaskScheduler<FakeTask> recovered = newScheduler(restarted, 2);
+        for (Map.Entry<String, Long> entry : new HashMap<>(stored).entrySet()) {
+            recovered.submit(entry.getKey(), all.get(entry.getKey()), entry.getValue(), false);
+        }
+        // 等待区块高度的条件不持久化，按保存的下一次执行时间恢复
+        Thread.sleep(50);
+        Assert.assertEquals(0, recovered.getExecuteCount());
+        Assert.assertTrue(restarted.done.await(5, TimeUnit.SECONDS, 10));
+        waitSize(recovered, 0);
+        Assert.assertTrue(stored.isEmpty());
+    }
+
+    /**
+     * 2000个待处理任务，5%一直失败：定时轮询队列(队首失败时本轮结束，放到队尾)与按截止时间调度相比，
+     * 正常任务从提交到处理完成的延迟，以及之后只剩卡住的任务时的CPU耗时
+     */
+    @Test
+    public void benchmarkFollowUpLatency() throws Exception {
+        int count = 2000;
+        long period = 50;
+        List<FakeTask> tasks = newBenchmarkTasks(count);
+        int normal = 0;
+        for (FakeTask task : tasks) {
+            normal += task.stuck ? 0 : 1;
+        }
+
+        // 定时轮询队列
+        FakeHandler pollHandler = new FakeHandler();
+        pollHandler.workMillis = 1;
+        LinkedBlockingDeque<FakeTask> queue = new LinkedBlockingDeque<>(tasks);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        long start = System.currentTimeMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            while (!queue.isEmpty()) {
+                FakeTask task = queue.peekFirst();
+                try {
+                    pollHandler.handle(task.id, task);
+                    queue.remove();
+                } catch (Exception e) {
+                    queue.addLast(queue.poll());
+                    return;
+                }
+            }
+        }, 0, period, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(pollHandler.done.await(60, TimeUnit.SECONDS, normal));
+        report("polling queue", pollHandler, start);
+        long cpu = cpuMillis(2000);
+        executor.shutdownNow();
+        System.out.println("polling queue idle cpu with stuck tasks: " + cpu + "ms/2s");
+
+        FakeHandler handler = new FakeHandler();
+        handler.workMillis = 1;
+        DeadlineTaskScheduler<FakeTask> scheduler = new DeadlineTaskScheduler<>("bench-task", 4, handler, newStore(), period, 30000);
+        schedulers.add(scheduler);
+        scheduler.start();
+        start = System.currentTimeMillis();
+        for (FakeTask task : newBenchmarkTasks(count)) {
+            scheduler.submit(task.id, task, 0, false);
+        }
+        Assert.assertTrue(handler.done.await(60, TimeUnit.SECONDS, normal));
+        report("deadline scheduler", handler, start);
+        System.out.println("deadline scheduler idle cpu with stuck tasks: " + cpuMillis(2000) + "ms/2s, executions: "
+                + scheduler.getExecuteCount() + ", failures: " + scheduler.getFailureCount());
+    }
+
+    private static void waitSize(DeadlineTaskScheduler<FakeTask> scheduler, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (scheduler.size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(size, scheduler.size());
+    }
+
+    private static List<FakeTask> newBenchmarkTasks(int count) {
+        Random random = new Random(7);
+        List<FakeTask> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FakeTask task = new FakeTask("tx" + i, "withdraw-" + (i % 4), false);
+            task.stuck = random.nextInt(20) == 0;
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void report(String name, FakeHandler handler, long start) {
+        List<Long> latencies = new ArrayList<>();
+        for (long time : handler.doneTimes) {
+            latencies.add(time - start);
+        }
+        Collections.sort(latencies);
+        int n = latencies.size();
+        System.out.println(String.format("%s: %d tasks, follow-up latency p50:%dms p99:%dms max:%dms", name, n,
+                latencies.get(n / 2), latencies.get(n * 99 / 100), latencies.get(n - 1)));
+    }
+
+    private static long cpuMillis(long windowMillis) throws InterruptedException {
+        com.sun.management.OperatingSystemMXBean os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long before = os.getProcessCpuTime();
+        Thread.sleep(windowMillis);
+        return (os.getProcessCpuTime() - before) / 1000000;
+    }
+
+    private void submit(DeadlineTaskScheduler<FakeTask> scheduler, FakeTask task) {
+        stored.put(task.id, 0L);
+        scheduler.submit(task.id, task, 0, false);
+    }
+
+    private DeadlineTaskScheduler<FakeTask> newScheduler(FakeHandler handler, int threads) {
+        DeadlineTaskScheduler<FakeTask> scheduler = new DeadlineTaskScheduler<>("test-task", threads, handler, newStore(), 10, 1000);
+        schedulers.add(scheduler);
+        scheduler.start();
+        return scheduler;
+    }
+
+    private ITaskStore<FakeTask> newStore() {
+        return new ITaskStore<>() {
+            @Override
+            public void save(String id, FakeTask task, long nextRunTime) {
+                stored.put(id, nextRunTime);
+            }
+
+            @Override
+            public void delete(String id) {
+                stored.remove(id);
+            }
+        };
+    }
+
+    private static class FakeTask {
+        private final String id;
+        private final String group;
+        private final boolean ordered;
+        private boolean stuck;
+        private int failTimes;
+        private long confirmHeight;
+
+        FakeTask(String id, String group, boolean ordered) {
+            this.id = id;
+            this.group = group;
+            this.ordered = ordered;
+        }
+    }
+
+    /**
+     * 模拟后续处理：未到确认高度时等待下一个区块，卡住的任务一直抛出异常
+     */
+    private static class FakeHandler implements ITaskHandler<FakeTask> {
+        private final CountLatch done = new CountLatch();
+        private final List<String> doneOrder = Collections.synchronizedList(new ArrayList<>());
+        private final List<Long> doneTimes = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, AtomicInteger> runningByGroup = new ConcurrentHashMap<>();
+        private final Map<String, Integer> maxConcurrentByGroup = new ConcurrentHashMap<>();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private volatile long height;
+        private long workMillis;
+        private long retryMillis = 60000;
+
+        @Override
+        public String getGroup(FakeTask task) {
+            return task.group;
+        }
+
+        @Override
+        public boolean isOrdered(String group) {
+            return "bank".equals(group);
+        }
+
+        @Override
+        public TaskResult handle(String id, FakeTask task) throws Exception {
+            int groupRunning = runningByGroup.computeIfAbsent(task.group, k -> new AtomicInteger()).incrementAndGet();
+            maxConcurrentByGroup.merge(task.group, groupRunning, Math::max);
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (workMillis > 0) {
+                    Thread.sleep(workMillis);
+                }
+                if (task.stuck) {
+                    throw new IllegalStateException("stuck");
+                }
+                if (task.failTimes > 0) {
+                    task.failTimes--;
+                    throw new IllegalStateException("fail");
+                }
+                if (height < task.confirmHeight) {
+                    return TaskResult.waitHeight(height + 1, System.currentTimeMillis() + retryMillis);
+                }
+                doneOrder.add(id);
+                doneTimes.add(System.currentTimeMillis());
+                done.countUp();
+                return TaskResult.done();
+            } finally {
+                running.decrementAndGet();
+                runningByGroup.get(task.group).decrementAndGet();
+            }
+        }
+    }
+
+    private static class CountLatch {
+        private int count;
+
+        synchronized void countUp() {
+            count++;
+            notifyAll();
+        }
+
+        synchronized boolean await(long timeout, TimeUnit unit, int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+            while (count < expected) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                wait(wait);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package network.nerve.converter.core.sign;
+
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.crypto.Sha256Hash;
+import network.nerve.converter.core.sign.interfaces.ISignatureCheck;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * 签名批量验证：无效签名、同一批中重复的签名、缓存的验证结果、达到需要的签名数后不再验证，
+ * 以及100个虚拟银行成员时收集到拜占庭签名数的耗时(与逐条验证并重新统计签名数相比)
+ */
+public class SignatureBatchVerifierTest {
+
+    private static final ISignatureCheck<Sign> CHECK = sign -> ECKey.verify(sign.hash, sign.signature, sign.pubKey);
+
+    private SignatureBatchVerifier verifier;
+
+    @Before
+    public void before() {
+        verifier = new SignatureBatchVerifier("sign-verify-test", 4, 10000);
+    }
+
+    @After
+    public void after() {
+        verifier.shutdown();
+    }
+
+    @Test
+    public void testInvalidSignatureRejectedAndCached() throws Exception {
+        byte[] hash = randomHash(1);
+        List<ECKey> keys = newKeys(4);
+        List<Sign> signs = new ArrayList<>();
+        for (ECKey key : keys) {
+            signs.add(sign(hash, key));
+        }
+        // 用另一个交易hash的签名冒充
+        Sign forged = sign(randomHash(2), keys.get(0));
+        forged = new Sign(hash, forged.pubKey, forged.signature);
+        signs.add(forged);
+
+        List<Sign> valid = verifier.verifyBatch(signs, Sign::key, CHECK, 0);
+        Assert.assertEquals(signs.subList(0, 4), valid);
+        Assert.assertEquals(5, verifier.getVerifyCount());
+
+        valid = verifier.verifyBatch(signs, Sign::key, CHECK, 0);
+        Assert.assertEquals(4, valid.size());
+        Assert.assertEquals(5, verifier.getVerifyCount());
+        Assert.assertFalse(verifier.verify(forged, forged.key(), CHECK));
+        Assert.assertTrue(verifier.verify(signs.get(0), signs.get(0).key(), CHECK));
+        Assert.assertEquals(5, verifier.getVerifyCount());
+    }
+
+    @Test
+    public void testDuplicateInBatchVerifiedOnce() throws Exception {
+        byte[] hash = randomHash(3);
+        Sign sign = sign(hash, new ECKey());
+        List<Sign> valid = verifier.verifyBatch(Arrays.asList(sign, sign, sign), Sign::key, CHECK, 0);
+        Assert.assertEquals(1, valid.size());
+        Assert.assertEquals(1, verifier.getVerifyCount());
+    }
+
+    @Test
+    public void testStopVerifyingAfterRequired() throws Exception {
+        byte[] hash = randomHash(4);
+        List<Sign> signs = new ArrayList<>();
+        for (ECKey key : newKeys(100)) {
+            signs.add(sign(hash, key));
+        }
+        List<Sign> valid = verifier.verifyBatch(signs, Sign::key, CHECK, 10);
+        Assert.assertTrue(valid.size() >= 10);
+        Assert.assertTrue(verifier.getVerifyCount() < 100);
+        Assert.assertTrue(verifier.getSkipCount() > 0);
+
+        // 缓存中已有足够的有效签名时不再验证
+        long verifyCount = verifier.getVerifyCount();
+        valid = verifier.verifyBatch(signs, Sign::key, CHECK, valid.size());
+        Assert.assertEquals(verifyCount, verifier.getVerifyCount());
+    }
+
+    /**
+     * 100个虚拟银行成员对同一交易签名，每个签名被其他节点转发共收到3次，乱序到达，需要67个签名
+     * 逐条处理：判断是否已收到、验证签名、加入签名列表并重新统计有效签名数
+     * 批量处理：每次取出已到达的消息(最多16条)，批量并发验证，达到签名数后结束
+     * 并发验证的收益取决于CPU核数，单核时两者的耗时接近
+     */
+    @Test
+    public void benchmarkSignatureCollection() throws Exception {
+        int validators = 100;
+        int required = 67;
+        List<ECKey> keys = newKeys(validators);
+        for (int round = 0; round < 5; round++) {
+            byte[] hash = randomHash(100 + round);
+            List<Sign> messages = new ArrayList<>();
+            for (ECKey key : keys) {
+                Sign sign = sign(hash, key);
+                for (int i = 0; i < 3; i++) {
+                    messages.add(sign);
+                }
+            }
+            Collections.shuffle(messages, new Random(round));
+
+            long start = System.nanoTime();
+            int verified = 0;
+            List<Sign> collected = new ArrayList<>();
+            for (Sign message : messages) {
+                boolean exist = false;
+                for (Sign sign : collected) {
+                    if (Arrays.equals(sign.signature, message.signature)) {
+                        exist = true;
+                        break;
+                    }
+                }
+                if (exist) {
+                    continue;
+                }
+                verified++;
+                if (!ECKey.verify(message.hash, message.signature, message.pubKey)) {
+                    continue;
+                }
+                collected.add(message);
+                Set<String> signers = new HashSet<>();
+                for (Sign sign : collected) {
+                    signers.add(HexUtil.encode(sign.pubKey));
+                }
+                if (signers.size() >= required) {
+                    break;
+                }
+            }
+            long sequential = System.nanoTime() - start;
+
+            SignatureBatchVerifier batchVerifier = new SignatureBatchVerifier("sign-verify-bench", Runtime.getRuntime().availableProcessors(), 10000);
+            try {
+                start = System.nanoTime();
+                Set<String> signers = new HashSet<>();
+                for (int from = 0; from < messages.size() && signers.size() < required; from += 16) {
+                    // 与处理签名消息时相同，先排除已收集到的签名者
+                    List<Sign> batch = new ArrayList<>();
+                    for (Sign sign : messages.subList(from, Math.min(messages.size(), from + 16))) {
+                        if (!signers.contains(HexUtil.encode(sign.pubKey))) {
+                            batch.add(sign);
+                        }
+                    }
+                    for (Sign sign : batchVerifier.verifyBatch(batch, Sign::key, CHECK, required - signers.size())) {
+                        signers.add(HexUtil.encode(sign.pubKey));
+                    }
+                }
+                long batched = System.nanoTime() - start;
+                Assert.assertTrue(signers.size() >= required);
+                System.out.println(String.format("round %d, %d cpus, sequential: %.1fms (%d verified), batched: %.1fms (%d verified, %d cache hits)",
+                        round, Runtime.getRuntime().availableProcessors(), sequential / 1e6, verified, batched / 1e6,
+                        batchVerifier.getVerifyCount(), batchVerifier.getCacheHitCount()));
+            } finally {
+                batchVerifier.shutdown();
+            }
+        }
+    }
+
+    private static List<ECKey> newKeys(int count) {
+        List<ECKey> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(new ECKey());
+        }
+        return keys;
+    }
+
+    private static byte[] randomHash(int seed) {
+        byte[] data = new byte[32];
+        new Random(seed).nextBytes(data);
+        return Sha256Hash.hash(data);
+    }
+
+    private static Sign sign(byte[] hash, ECKey key) {
+        return new Sign(hash, key.getPubKey(), key.sign(hash));
+    }
+
+    private static class Sign {
+        private final byte[] hash;
+        private final byte[] pubKey;
+        private final byte[] signature;
+
+        Sign(byte[] hash, byte[] pubKey, byte[] signature) {
+            this.hash = hash;
+            this.pubKey = pubKey;
+            this.signature = signature;
+        }
+
+        String key() {
+            return SignatureBatchVerifier.cacheKey(hash, pubKey, signature);
+        }
+    }
+}
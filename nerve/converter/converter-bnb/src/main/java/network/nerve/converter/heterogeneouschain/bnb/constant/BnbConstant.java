@@ -54,6 +54,30 @@ public interface BnbConstant {
     int RESEND_TIME = 50;
     int DEFAULT_INTERVAL_WAITTING = 5;
     int MAX_MANAGERS = 15;
+    /**
+     * 区块扫描：并发拉取区块的线程数，追块时已拉取未解析的最大区块数，启动时最多追块数(约3秒一个区块，即停机两小时以内)
+     */
+    int BLOCK_SCAN_FETCH_THREADS = 4;
+    int BLOCK_SCAN_FETCH_WINDOW = 16;
+    long BLOCK_SCAN_MAX_CATCH_UP_BLOCKS = 2400;
+    /**
+     * 按事件日志过滤充值交易时，一次查询的区块数量
+     */
+    int DEPOSIT_LOG_QUERY_RANGE = 100;
+    /**
+     * 交易收据查询：一次批量请求的最大收据数，缓存的收据数，批量请求的线程数，等待查询结果的超时时间
+     */
+    int RECEIPT_BATCH_SIZE = 100;
+    int RECEIPT_CACHE_SIZE = 4096;
+    int RECEIPT_DISPATCH_THREADS = 2;
+    long RECEIPT_TIMEOUT_MILLIS = 60000;
+    /**
+     * 读请求节点池：对冲请求的最小和最大延迟预算，每次读请求的最长等待时间(超时后改用当前API)，节点池的线程数
+     */
+    long ENDPOINT_HEDGE_MIN_MILLIS = 300;
+    long ENDPOINT_HEDGE_MAX_MILLIS = 2000;
+    long ENDPOINT_READ_TIMEOUT_MILLIS = 20000;
+    int ENDPOINT_POOL_THREADS = 8;
 
     String METHOD_HASH_CREATEORSIGNWITHDRAW = "0xab6c2b10";
     String METHOD_HASH_CREATEORSIGNMANAGERCHANGE = "0x00719226";
@@ -7,6 +7,9 @@ import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.StringUtils;
 import network.nerve.converter.config.ConverterConfig;
 import network.nerve.converter.constant.ConverterErrorCode;
+import network.nerve.converter.core.heterogeneous.rpc.HeterogeneousEndpointPool;
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointCall;
+import network.nerve.converter.core.heterogeneous.rpc.interfaces.IEndpointClientFactory;
 import network.nerve.converter.heterogeneouschain.bnb.constant.BnbConstant;
 import network.nerve.converter.heterogeneouschain.bnb.context.BnbContext;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbAccountHelper;
@@ -23,9 +26,11 @@ import org.web3j.crypto.Credentials;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.crypto.TransactionEncoder;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.DefaultBlockParameterNumber;
 import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.response.*;
 import org.web3j.protocol.exceptions.ClientConnectionException;
 import org.web3j.protocol.http.HttpService;
@@ -61,6 +66,10 @@ public class BNBWalletApi implements WalletApi {
     private BnbAccountHelper bnbAccountHelper;
 
     protected Web3j web3j;
+    /**
+     * 读请求使用的节点池，发送交易和查询nonce固定使用web3j
+     */
+    private volatile HeterogeneousEndpointPool<Web3j> endpointPool;
 
     protected String rpcAddress;
     int switchStatus = 0;
@@ -236,6 +245,14 @@ public class BNBWalletApi implements WalletApi {
 
     @Override
     public long getBlockHeight() throws Exception {
+        HeterogeneousEndpointPool<Web3j> pool = this.getEndpointPool();
+        if (pool != null) {
+            try {
+                return pool.probeHeads(client -> client.ethBlockNumber().send().getBlockNumber().longValue());
+            } catch (Exception e) {
+                getLog().warn("节点池查询区块高度失败，改用当前API: {}", e.getMessage());
+            }
+        }
         BigInteger blockHeight = this.timeOutWrapperFunction("getBlockHeight", null, args -> {
             return web3j.ethBlockNumber().send().getBlockNumber();
         });
@@ -280,8 +297,8 @@ public class BNBWalletApi implements WalletApi {
 
     @Override
     public Block getBlock(String hash) throws Exception {
-        EthBlock.Block block = this.timeOutWrapperFunction("getBlock", hash, args -> {
-            return web3j.ethGetBlockByHash(args, true).send().getBlock();
+        EthBlock.Block block = this.readWrapperFunction("getBlock", client -> {
+            return client.ethGetBlockByHash(hash, true).send().getBlock();
         });
         if(block == null) {
             return null;
@@ -318,8 +335,8 @@ public class BNBWalletApi implements WalletApi {
      * Date: 2018/4/16 15:23
      */
     public EthBlock.Block getBlockByHeight(Long height) throws Exception {
-        EthBlock.Block block = this.timeOutWrapperFunction("getBlockByHeight", height, args -> {
-            return web3j.ethGetBlockByNumber(new DefaultBlockParameterNumber(args), true).send().getBlock();
+        EthBlock.Block block = this.readWrapperFunction("getBlockByHeight", height, client -> {
+            return client.ethGetBlockByNumber(new DefaultBlockParameterNumber(height), true).send().getBlock();
         });
         if (block == null) {
             getLog().error("获取区块为空");
@@ -331,8 +348,8 @@ public class BNBWalletApi implements WalletApi {
      * 根据高度获取区块头
      */
     public EthBlock.Block getBlockHeaderByHeight(Long height) throws Exception {
-        EthBlock.Block header = this.timeOutWrapperFunction("getBlockHeaderByHeight", height, args -> {
-            return web3j.ethGetBlockByNumber(new DefaultBlockParameterNumber(args), false).send().getBlock();
+        EthBlock.Block header = this.readWrapperFunction("getBlockHeaderByHeight", height, client -> {
+            return client.ethGetBlockByNumber(new DefaultBlockParameterNumber(height), false).send().getBlock();
         });
         if (header == null) {
             getLog().error("获取区块头为空");
@@ -385,9 +402,9 @@ public class BNBWalletApi implements WalletApi {
      * 获取交易详情
      */
     public org.web3j.protocol.core.methods.response.Transaction getTransactionByHash(String txHash) throws Exception {
-        return this.timeOutWrapperFunction("getTransactionByHash", txHash, args -> {
+        return this.readWrapperFunction("getTransactionByHash", client -> {
             org.web3j.protocol.core.methods.response.Transaction transaction = null;
-            EthTransaction send = web3j.ethGetTransactionByHash(args).send();
+            EthTransaction send = client.ethGetTransactionByHash(txHash).send();
             if (send.getTransaction().isPresent()) {
                 transaction = send.getTransaction().get();
             }
@@ -636,8 +653,8 @@ public class BNBWalletApi implements WalletApi {
     }
 
     public TransactionReceipt getTxReceipt(String txHash) throws Exception {
-        return this.timeOutWrapperFunction("getTxReceipt", txHash, args -> {
-            Optional<TransactionReceipt> result = web3j.ethGetTransactionReceipt(args).send().getTransactionReceipt();
+        return this.readWrapperFunction("getTxReceipt", client -> {
+            Optional<TransactionReceipt> result = client.ethGetTransactionReceipt(txHash).send().getTransactionReceipt();
             if (result == null || result.isEmpty()) {
                 return null;
             }
@@ -645,6 +662,55 @@ public class BNBWalletApi implements WalletApi {
         });
     }
 
+    /**
+     * 一次请求批量查询交易收据，结果与参数顺序一致，交易未打包时对应位置为null
+     */
+    public List<TransactionReceipt> getTxReceipts(List<String> txHashes) throws Exception {
+        return this.readWrapperFunction("getTxReceipts", client -> {
+            BatchRequest batch = client.newBatch();
+            for (String txHash : txHashes) {
+                batch.add(client.ethGetTransactionReceipt(txHash));
+            }
+            Map<Long, TransactionReceipt> receiptMap = new HashMap<>();
+            for (Response<?> response : batch.send().getResponses()) {
+                if (response.hasError()) {
+                    throw new IOException("批量查询交易收据失败: " + response.getError().getMessage());
+                }
+                if (response.getResult() != null) {
+                    receiptMap.put(response.getId(), (TransactionReceipt) response.getResult());
+                }
+            }
+            List<TransactionReceipt> receipts = new ArrayList<>(txHashes.size());
+            for (Request<?, ?> request : batch.getRequests()) {
+                receipts.add(receiptMap.get(request.getId()));
+            }
+            return receipts;
+        });
+    }
+
+    /**
+     * 查询指定高度范围内执行成功的交易中，转入指定地址的ERC20 Transfer事件
+     *
+     * @param toTopics 转入地址补齐为32字节的topic
+     */
+    public List<Log> getTransferLogs(long fromHeight, long toHeight, String transferTopic, List<String> toTopics) throws Exception {
+        return this.readWrapperFunction("getTransferLogs", toHeight, client -> {
+            org.web3j.protocol.core.methods.request.EthFilter filter = new org.web3j.protocol.core.methods.request.EthFilter(
+                    new DefaultBlockParameterNumber(fromHeight), new DefaultBlockParameterNumber(toHeight), Collections.emptyList());
+            filter.addSingleTopic(transferTopic);
+            filter.addNullTopic();
+            filter.addOptionalTopics(toTopics.toArray(new String[toTopics.size()]));
+            List<EthLog.LogResult> results = client.ethGetLogs(filter).send().getLogs();
+            List<Log> logs = new ArrayList<>();
+            if (results != null) {
+                for (EthLog.LogResult result : results) {
+                    logs.add((Log) result.get());
+                }
+            }
+            return logs;
+        });
+    }
+
     /**
      * 调用合约的view/constant函数
      */
@@ -830,6 +896,71 @@ public class BNBWalletApi implements WalletApi {
     }
 
 
+    /**
+     * 查询区块、交易、收据和事件日志等读请求，开启节点池时分发到健康度最优的节点，并对慢请求发送对冲请求，
+     * 只使用已同步到最高已知区块的节点；节点池失败或超时时改用当前API，按原有逻辑重试和切换API
+     */
+    private <R> R readWrapperFunction(String functionName, IEndpointCall<Web3j, R> call) throws Exception {
+        HeterogeneousEndpointPool<Web3j> pool = this.getEndpointPool();
+        if (pool != null) {
+            try {
+                return pool.read(functionName, call);
+            } catch (Exception e) {
+                getLog().warn("节点池读请求[{}]失败，改用当前API: {}", functionName, e.getMessage());
+            }
+        }
+        return this.timeOutWrapperFunction(functionName, null, args -> call.call(web3j));
+    }
+
+    /**
+     * 同上，只使用已同步到指定高度的节点
+     */
+    private <R> R readWrapperFunction(String functionName, long requiredHeight, IEndpointCall<Web3j, R> call) throws Exception {
+        HeterogeneousEndpointPool<Web3j> pool = this.getEndpointPool();
+        if (pool != null) {
+            try {
+                return pool.read(functionName, requiredHeight, call);
+            } catch (Exception e) {
+                getLog().warn("节点池读请求[{}]失败，改用当前API: {}", functionName, e.getMessage());
+            }
+        }
+        return this.timeOutWrapperFunction(functionName, null, args -> call.call(web3j));
+    }
+
+    /**
+     * 配置开启且有多个普通API时创建节点池；当前使用应急API时读请求也使用应急API
+     */
+    private HeterogeneousEndpointPool<Web3j> getEndpointPool() throws Exception {
+        if (!BnbContext.getConfig().isEndpointPool() || BnbContext.getConfig().getMainRpcAddress().equals(this.rpcAddress)) {
+            return null;
+        }
+        if (endpointPool == null) {
+            synchronized (this) {
+                if (endpointPool == null) {
+                    Set<String> urls = new LinkedHashSet<>(BnbContext.RPC_ADDRESS_LIST);
+                    urls.addAll(BnbContext.STANDBY_RPC_ADDRESS_LIST);
+                    urls.remove(BnbContext.getConfig().getMainRpcAddress());
+                    if (urls.size() < 2) {
+                        return null;
+                    }
+                    endpointPool = new HeterogeneousEndpointPool<>(BnbConstant.BNB_SYMBOL, urls, new IEndpointClientFactory<>() {
+                        @Override
+                        public Web3j create(String url) {
+                            return Web3j.build(new HttpService(url));
+                        }
+
+                        @Override
+                        public void close(Web3j client) {
+                            client.shutdown();
+                        }
+                    }, BnbConstant.ENDPOINT_HEDGE_MIN_MILLIS, BnbConstant.ENDPOINT_HEDGE_MAX_MILLIS, BnbConstant.ENDPOINT_READ_TIMEOUT_MILLIS, BnbConstant.ENDPOINT_POOL_THREADS);
+                    getLog().info("初始化 BNB 读请求节点池: {}", urls);
+                }
+            }
+        }
+        return endpointPool;
+    }
+
     private <T, R> R timeOutWrapperFunction(String functionName, T arg, ExceptionFunction<T, R> fucntion) throws Exception {
         return this.timeOutWrapperFunctionReal(functionName, fucntion, 0, arg);
     }
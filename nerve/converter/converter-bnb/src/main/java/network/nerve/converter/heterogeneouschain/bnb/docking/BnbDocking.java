@@ -80,6 +80,7 @@ public class BnbDocking implements IHeterogeneousChainDocking {
     private static final BnbDocking DOCKING = new BnbDocking();
 
     protected BNBWalletApi bnbWalletApi;
+    protected BnbTxReceiptHelper bnbTxReceiptHelper;
     protected BnbListener bnbListener;
     protected BnbERC20Helper bnbERC20Helper;
     protected ConverterConfig converterConfig;
@@ -502,7 +503,7 @@ public class BnbDocking implements IHeterogeneousChainDocking {
             blockHeight = tx.getBlockNumber().longValue();
         }
         if(signers == null || signers.isEmpty()) {
-            TransactionReceipt txReceipt = bnbWalletApi.getTxReceipt(txHash);
+            TransactionReceipt txReceipt = bnbTxReceiptHelper.getTxReceipt(txHash);
             signers = bnbParseTxHelper.parseSigners(txReceipt, from);
         }
         if (txTime == null) {
@@ -1246,6 +1247,10 @@ public class BnbDocking implements IHeterogeneousChainDocking {
         this.bnbInvokeTxHelper = bnbInvokeTxHelper;
     }
 
+    public void setBnbTxReceiptHelper(BnbTxReceiptHelper bnbTxReceiptHelper) {
+        this.bnbTxReceiptHelper = bnbTxReceiptHelper;
+    }
+
     public void setBnbParseTxHelper(BnbParseTxHelper bnbParseTxHelper) {
         this.bnbParseTxHelper = bnbParseTxHelper;
     }
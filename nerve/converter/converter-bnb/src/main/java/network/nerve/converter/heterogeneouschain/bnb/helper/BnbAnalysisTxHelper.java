@@ -58,6 +58,8 @@ public class BnbAnalysisTxHelper implements IBnbAnalysisTx {
     @Autowired
     private BNBWalletApi bnbWalletApi;
     @Autowired
+    private BnbTxReceiptHelper bnbTxReceiptHelper;
+    @Autowired
     private BnbListener bnbListener;
     @Autowired
     private BnbParseTxHelper bnbParseTxHelper;
@@ -138,7 +140,7 @@ public class BnbAnalysisTxHelper implements IBnbAnalysisTx {
             }
             // ERC20充值交易
             if (bnbERC20Helper.isERC20(tx.getTo(), po)) {
-                TransactionReceipt txReceipt = bnbWalletApi.getTxReceipt(bnbTxHash);
+                TransactionReceipt txReceipt = bnbTxReceiptHelper.getTxReceipt(bnbTxHash, tx.getBlockHash());
                 if (bnbERC20Helper.hasERC20WithListeningAddress(txReceipt, po, toAddress -> bnbListener.isListeningAddress(toAddress))) {
                     // 检查是否是NERVE资产绑定的ERC20，是则检查多签合约内是否已经注册此定制的ERC20，否则充值异常
                     if (BnbContext.getConverterCoreApi().isBoundHeterogeneousAsset(BnbConstant.BNB_CHAIN_ID, po.getAssetId())
@@ -237,7 +239,7 @@ public class BnbAnalysisTxHelper implements IBnbAnalysisTx {
         txPo.setTxTime(txTime);
         txPo.setFrom(tx.getFrom());
         // 判断交易是否成功，更改状态，解析交易的事件
-        TransactionReceipt txReceipt = bnbWalletApi.getTxReceipt(bnbTxHash);
+        TransactionReceipt txReceipt = bnbTxReceiptHelper.getTxReceipt(bnbTxHash, tx.getBlockHash());
         if (txReceipt == null || !txReceipt.isStatusOK()) {
             txPo.setStatus(MultiSignatureStatus.FAILED);
         } else {
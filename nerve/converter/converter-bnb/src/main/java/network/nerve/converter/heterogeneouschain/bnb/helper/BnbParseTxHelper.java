@@ -62,6 +62,8 @@ public class BnbParseTxHelper {
     @Autowired
     private BNBWalletApi bnbWalletApi;
     @Autowired
+    private BnbTxReceiptHelper bnbTxReceiptHelper;
+    @Autowired
     private BnbListener bnbListener;
 
     public boolean isCompletedTransaction(String nerveTxHash) throws Exception {
@@ -114,7 +116,7 @@ public class BnbParseTxHelper {
         if (bnbListener.isListeningAddress(tx.getTo()) &&
                 BnbConstant.METHOD_HASH_CREATEORSIGNWITHDRAW.equals(methodNameHash)) {
             if (txReceipt == null) {
-                txReceipt = bnbWalletApi.getTxReceipt(txHash);
+                txReceipt = bnbTxReceiptHelper.getTxReceipt(txHash);
             }
             isWithdraw = this.parseWithdrawTxReceipt(txReceipt, txInfo);
             if (!isWithdraw) {
@@ -165,7 +167,7 @@ public class BnbParseTxHelper {
         HeterogeneousTransactionInfo txInfo = BnbUtil.newTransactionInfo(tx);
         boolean isDeposit = false;
         if (txReceipt == null) {
-            txReceipt = bnbWalletApi.getTxReceipt(txHash);
+            txReceipt = bnbTxReceiptHelper.getTxReceipt(txHash);
         }
         do {
             // BNB充值交易的固定接收地址,金额大于0, 没有input
@@ -247,7 +249,7 @@ public class BnbParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = bnbWalletApi.getTxReceipt(txHash);
+            txReceipt = bnbTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
@@ -284,7 +286,7 @@ public class BnbParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = bnbWalletApi.getTxReceipt(txHash);
+            txReceipt = bnbTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
@@ -0,0 +1,103 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.heterogeneouschain.bnb.helper;
+
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import network.nerve.converter.core.heterogeneous.receipt.HeterogeneousReceiptService;
+import network.nerve.converter.core.heterogeneous.receipt.interfaces.IReceiptBatchQuery;
+import network.nerve.converter.heterogeneouschain.bnb.constant.BnbConstant;
+import network.nerve.converter.heterogeneouschain.bnb.core.BNBWalletApi;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * BNB交易收据查询，合并为批量请求并缓存，交易解析、确认和重发等各处共用
+ */
+@Component
+public class BnbTxReceiptHelper implements IReceiptBatchQuery<TransactionReceipt> {
+
+    @Autowired
+    private BNBWalletApi bnbWalletApi;
+
+    private final HeterogeneousReceiptService<TransactionReceipt> receiptService = new HeterogeneousReceiptService<>(this,
+            BnbConstant.RECEIPT_BATCH_SIZE, BnbConstant.RECEIPT_CACHE_SIZE, BnbConstant.RECEIPT_DISPATCH_THREADS, BnbConstant.RECEIPT_TIMEOUT_MILLIS);
+
+    /**
+     * 查询交易收据，交易未打包时返回null
+     */
+    public TransactionReceipt getTxReceipt(String txHash) throws Exception {
+        return receiptService.getReceipt(txHash);
+    }
+
+    /**
+     * 查询指定区块中的交易收据，缓存的收据不在此区块时重新查询
+     */
+    public TransactionReceipt getTxReceipt(String txHash, String blockHash) throws Exception {
+        return receiptService.getReceipt(txHash, blockHash);
+    }
+
+    /**
+     * 不使用缓存，重新查询交易收据，确认交易前再次验证时使用
+     */
+    public TransactionReceipt refreshTxReceipt(String txHash) throws Exception {
+        return receiptService.refreshReceipt(txHash);
+    }
+
+    /**
+     * 预先批量查询交易收据，不等待查询结果
+     */
+    public void prefetch(Collection<String> txHashes) {
+        receiptService.prefetch(txHashes);
+    }
+
+    /**
+     * 本地区块回滚时，清除此高度及之后区块的收据
+     */
+    public void invalidateFromHeight(long height) {
+        receiptService.invalidateFromHeight(height);
+    }
+
+    @Override
+    public String getSymbol() {
+        return BnbConstant.BNB_SYMBOL;
+    }
+
+    @Override
+    public List<TransactionReceipt> queryReceipts(List<String> txHashes) throws Exception {
+        return bnbWalletApi.getTxReceipts(txHashes);
+    }
+
+    @Override
+    public long getBlockHeight(TransactionReceipt receipt) {
+        return receipt.getBlockNumber().longValue();
+    }
+
+    @Override
+    public String getBlockHash(TransactionReceipt receipt) {
+        return receipt.getBlockHash();
+    }
+}
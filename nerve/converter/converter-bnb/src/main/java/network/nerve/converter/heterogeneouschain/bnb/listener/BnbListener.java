@@ -26,6 +26,7 @@ package network.nerve.converter.heterogeneouschain.bnb.listener;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.model.StringUtils;
 
+import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -64,6 +65,13 @@ public class BnbListener {
         return listeningTxHashSet.contains(txHash);
     }
 
+    /**
+     * 全部监听地址
+     */
+    public Set<String> getListeningAddressSet() {
+        return Collections.unmodifiableSet(listeningAddressSet);
+    }
+
     /**
      * 增加监听地址
      */
@@ -94,6 +94,8 @@ public class BnbRegister implements IHeterogeneousChainRegister {
     @Autowired
     private BnbParseTxHelper bnbParseTxHelper;
     @Autowired
+    private BnbTxReceiptHelper bnbTxReceiptHelper;
+    @Autowired
     private BnbAnalysisTxHelper bnbAnalysisTxHelper;
     @Autowired
     private BnbResendHelper bnbResendHelper;
@@ -176,6 +178,7 @@ public class BnbRegister implements IHeterogeneousChainRegister {
         docking.setBnbUpgradeContractSwitchHelper(bnbUpgradeContractSwitchHelper);
         docking.setBnbInvokeTxHelper(bnbInvokeTxHelper);
         docking.setBnbParseTxHelper(bnbParseTxHelper);
+        docking.setBnbTxReceiptHelper(bnbTxReceiptHelper);
         docking.setBnbAnalysisTxHelper(bnbAnalysisTxHelper);
         docking.setBnbResendHelper(bnbResendHelper);
         docking.setBnbPendingTxHelper(bnbPendingTxHelper);
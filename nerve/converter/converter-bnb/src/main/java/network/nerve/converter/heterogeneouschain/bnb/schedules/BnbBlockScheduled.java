@@ -25,14 +25,19 @@ package network.nerve.converter.heterogeneouschain.bnb.schedules;
 
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
 import network.nerve.converter.config.ConverterConfig;
+import network.nerve.converter.core.heterogeneous.syncblock.HeterogeneousBlockScanner;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.IBlockScanChain;
 import network.nerve.converter.heterogeneouschain.bnb.callback.BnbCallBackManager;
+import network.nerve.converter.heterogeneouschain.bnb.constant.BnbConstant;
 import network.nerve.converter.heterogeneouschain.bnb.context.BnbContext;
 import network.nerve.converter.heterogeneouschain.bnb.core.BNBWalletApi;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbBlockAnalysisHelper;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbCommonHelper;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbAnalysisTxHelper;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbLocalBlockHelper;
+import network.nerve.converter.heterogeneouschain.bnb.helper.BnbTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.bnb.model.BnbSimpleBlockHeader;
 import network.nerve.converter.utils.LoggerUtil;
 import org.web3j.protocol.core.methods.response.EthBlock;
@@ -45,11 +50,13 @@ import java.math.BigInteger;
  * @date: 2020-02-20
  */
 @Component("bnbBlockScheduled")
-public class BnbBlockScheduled implements Runnable {
+public class BnbBlockScheduled implements Runnable, IBlockScanChain<EthBlock.Block> {
 
     @Autowired
     private BnbLocalBlockHelper bnbLocalBlockHelper;
     @Autowired
+    private BnbTxReceiptHelper bnbTxReceiptHelper;
+    @Autowired
     private BNBWalletApi bnbWalletApi;
     @Autowired
     private ConverterConfig converterConfig;
@@ -62,7 +69,7 @@ public class BnbBlockScheduled implements Runnable {
     @Autowired
     private BnbCallBackManager bnbCallBackManager;
 
-    private boolean firstSync = true;
+    private final HeterogeneousBlockScanner<EthBlock.Block> blockScanner = new HeterogeneousBlockScanner<>(this);
     private boolean clearDB = false;
 
 
@@ -107,78 +114,95 @@ public class BnbBlockScheduled implements Runnable {
             BnbContext.logger().error("清理充值交易hash再次验证的集合失败", e);
         }
         try {
-
-            // 当前BNB网络最新的区块
-            long blockHeightFromEth = bnbWalletApi.getBlockHeight();
-            // 本地最新的区块
-            BnbSimpleBlockHeader localMax = bnbLocalBlockHelper.getLatestLocalBlockHeader();
-            if (localMax == null) {
-                // 当启动节点时，本地区块为空，将从BNB网络最新高度开始同步
-                EthBlock.Block block = bnbWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    BnbContext.logger().info("获取不到BNB区块，等待下轮执行");
-                    return;
-                }
-                bnbBlockAnalysisHelper.analysisEthBlock(block, bnbAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-            Long localBlockHeight = localMax.getHeight();
-            // 当启动节点时，本地最新高度与BNB网络区块高度相差两个区块及以上时，则从BNB网络高度开始同步
-            if (firstSync && blockHeightFromEth - localBlockHeight >= 2) {
-                EthBlock.Block block = bnbWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    BnbContext.logger().info("获取不到BNB区块，等待下轮执行");
-                    return;
-                }
-                bnbLocalBlockHelper.deleteAllLocalBlockHeader();
-                bnbBlockAnalysisHelper.analysisEthBlock(block, bnbAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-
-            // 验证最新区块是否正确
-            int resultCode = checkNewestBlock(localMax);
-            if (resultCode == 0) {
-                BnbContext.logger().error("获取BNB区块失败");
-                return;
-            } else if (resultCode == 1) {
-                BnbContext.logger().error("BNB区块分叉");
-                bnbLocalBlockHelper.deleteByHeightAndUpdateMemory(localBlockHeight);
-                return;
-            }
-
-            long size = blockHeightFromEth - localBlockHeight;
-            for (int i = 1; i <= size; i++) {
-                localBlockHeight = localBlockHeight + 1;
-                /**
-                 * 同步并解析数据
-                 */
-                try {
-                    EthBlock.Block block = bnbWalletApi.getBlockByHeight(localBlockHeight);
-                    if(block == null) {
-                        BnbContext.logger().info("获取不到BNB区块，等待下轮执行");
-                        break;
-                    }
-                    bnbBlockAnalysisHelper.analysisEthBlock(block, bnbAnalysisTxHelper);
-                } catch (Exception e) {
-                    BnbContext.logger().error("syncHeight error ", e);
-                    break;
-                }
-            }
+            blockScanner.scan();
         } catch (Exception e) {
             BnbContext.logger().error("同步BNB区块失败, 错误: {}", e);
         }
     }
 
-    private int checkNewestBlock(BnbSimpleBlockHeader max) throws Exception {
-        EthBlock.Block block = bnbWalletApi.getBlockHeaderByHeight(max.getHeight().longValue());
-        if (block == null) {
-            return 0;
-        } else if (block.getHash().equals(max.getHash())) {
-            return 2;
-        } else {
-            return 1;
-        }
+    @Override
+    public String getSymbol() {
+        return BnbConstant.BNB_SYMBOL;
+    }
+
+    @Override
+    public NulsLogger logger() {
+        return BnbContext.logger();
+    }
+
+    @Override
+    public long getLatestHeight() throws Exception {
+        long latestHeight = bnbWalletApi.getBlockHeight();
+        bnbBlockAnalysisHelper.setLatestHeight(latestHeight);
+        return latestHeight;
+    }
+
+    @Override
+    public EthBlock.Block getBlock(long height) throws Exception {
+        return bnbWalletApi.getBlockByHeight(height);
+    }
+
+    @Override
+    public String getBlockHash(long height) throws Exception {
+        EthBlock.Block header = bnbWalletApi.getBlockHeaderByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public long getHeight(EthBlock.Block block) {
+        return block.getNumber().longValue();
+    }
+
+    @Override
+    public String getHash(EthBlock.Block block) {
+        return block.getHash();
+    }
+
+    @Override
+    public String getParentHash(EthBlock.Block block) {
+        return block.getParentHash();
+    }
+
+    @Override
+    public Long getLocalHeight() {
+        BnbSimpleBlockHeader localMax = bnbLocalBlockHelper.getLatestLocalBlockHeader();
+        return localMax == null ? null : localMax.getHeight();
+    }
+
+    @Override
+    public String getLocalHash(long height) {
+        BnbSimpleBlockHeader header = bnbLocalBlockHelper.findByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public void analysisBlock(EthBlock.Block block) throws Exception {
+        bnbBlockAnalysisHelper.analysisEthBlock(block, bnbAnalysisTxHelper);
+    }
+
+    @Override
+    public void deleteLocalBlock(long height) throws Exception {
+        bnbLocalBlockHelper.deleteByHeightAndUpdateMemory(height);
+        bnbTxReceiptHelper.invalidateFromHeight(height);
+    }
+
+    @Override
+    public void deleteAllLocalBlock() throws Exception {
+        bnbLocalBlockHelper.deleteAllLocalBlockHeader();
+    }
+
+    @Override
+    public int getFetchThreads() {
+        return BnbConstant.BLOCK_SCAN_FETCH_THREADS;
+    }
+
+    @Override
+    public int getFetchWindow() {
+        return BnbConstant.BLOCK_SCAN_FETCH_WINDOW;
+    }
+
+    @Override
+    public long getMaxCatchUpBlocks() {
+        return BnbConstant.BLOCK_SCAN_MAX_CATCH_UP_BLOCKS;
     }
 }
@@ -58,7 +58,9 @@ import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -77,6 +79,8 @@ public class BnbConfirmTxScheduled implements Runnable {
     @Autowired
     private BNBWalletApi bnbWalletApi;
     @Autowired
+    private BnbTxReceiptHelper bnbTxReceiptHelper;
+    @Autowired
     private ConverterConfig converterConfig;
     @Autowired
     private BnbUnconfirmedTxStorageService bnbUnconfirmedTxStorageService;
@@ -119,6 +123,14 @@ public class BnbConfirmTxScheduled implements Runnable {
             BnbContext.INIT_UNCONFIRMEDTX_QUEUE_LATCH.await();
             long ethNewestHeight = bnbWalletApi.getBlockHeight();
             int size = BnbContext.UNCONFIRMED_TX_QUEUE.size();
+            // 已解析到所在高度的交易在确认时需要再次查询收据，预先合并为批量查询
+            List<String> packedTxHashes = new ArrayList<>();
+            for (BnbUnconfirmedTxPo unconfirmedTxPo : BnbContext.UNCONFIRMED_TX_QUEUE) {
+                if (unconfirmedTxPo.getBlockHeight() != null) {
+                    packedTxHashes.add(unconfirmedTxPo.getTxHash());
+                }
+            }
+            bnbTxReceiptHelper.prefetch(packedTxHashes);
             for (int i = 0; i < size; i++) {
                 po = BnbContext.UNCONFIRMED_TX_QUEUE.poll();
                 if (po == null) {
@@ -637,7 +649,7 @@ public class BnbConfirmTxScheduled implements Runnable {
      * 检查eth交易是否被打包
      */
     private boolean checkPacked(String bnbTxHash) throws Exception {
-        TransactionReceipt txReceipt = bnbWalletApi.getTxReceipt(bnbTxHash);
+        TransactionReceipt txReceipt = bnbTxReceiptHelper.getTxReceipt(bnbTxHash);
         return txReceipt != null;
     }
 
@@ -647,7 +659,7 @@ public class BnbConfirmTxScheduled implements Runnable {
     private boolean validateDepositTxConfirmedInEthNet(String bnbTxHash, boolean ifContractAsset) throws Exception {
         boolean validateTx = false;
         do {
-            TransactionReceipt receipt = bnbWalletApi.getTxReceipt(bnbTxHash);
+            TransactionReceipt receipt = bnbTxReceiptHelper.refreshTxReceipt(bnbTxHash);
             if (receipt == null) {
                 logger().error("再次验证交易[{}]失败，获取不到receipt", bnbTxHash);
                 break;
@@ -672,7 +684,7 @@ public class BnbConfirmTxScheduled implements Runnable {
         BroadcastTxValidateStatus status;
         String bnbTxHash = po.getTxHash();
         do {
-            TransactionReceipt receipt = bnbWalletApi.getTxReceipt(bnbTxHash);
+            TransactionReceipt receipt = bnbTxReceiptHelper.refreshTxReceipt(bnbTxHash);
             if (receipt == null) {
                 boolean timeOut = System.currentTimeMillis() - po.getCreateDate() > BnbConstant.MINUTES_20;
                 logger().error("再次验证交易[{}]失败，获取不到receipt", bnbTxHash);
@@ -9,6 +9,7 @@ import network.nerve.converter.heterogeneouschain.bnb.base.Base;
 import network.nerve.converter.heterogeneouschain.bnb.constant.BnbConstant;
 import network.nerve.converter.heterogeneouschain.bnb.context.BnbContext;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbERC20Helper;
+import network.nerve.converter.heterogeneouschain.bnb.helper.BnbTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.bnb.helper.BnbParseTxHelper;
 import network.nerve.converter.heterogeneouschain.bnb.model.BnbUnconfirmedTxPo;
 import network.nerve.converter.heterogeneouschain.bnb.utils.BnbUtil;
@@ -698,6 +699,9 @@ public class BNBWalletApiTest extends Base {
         Transaction tx = bnbWalletApi.getTransactionByHash(directTxHash);
         BnbParseTxHelper helper = new BnbParseTxHelper();
         BeanUtilTest.setBean(helper, "bnbWalletApi", bnbWalletApi);
+        BnbTxReceiptHelper receiptHelper = new BnbTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "bnbWalletApi", bnbWalletApi);
+        BeanUtilTest.setBean(helper, "bnbTxReceiptHelper", receiptHelper);
         BnbUnconfirmedTxPo po = new BnbUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
         System.out.println(crossOut);
@@ -721,6 +725,9 @@ public class BNBWalletApiTest extends Base {
         Transaction tx = bnbWalletApi.getTransactionByHash(directTxHash);
         BnbParseTxHelper helper = new BnbParseTxHelper();
         BeanUtilTest.setBean(helper, "bnbWalletApi", bnbWalletApi);
+        BnbTxReceiptHelper receiptHelper = new BnbTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "bnbWalletApi", bnbWalletApi);
+        BeanUtilTest.setBean(helper, "bnbTxReceiptHelper", receiptHelper);
         BeanUtilTest.setBean(helper, "ethERC20Helper", new MockEthERC20Helper());
         BnbUnconfirmedTxPo po = new BnbUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
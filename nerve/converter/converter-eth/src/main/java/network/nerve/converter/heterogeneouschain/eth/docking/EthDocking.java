@@ -78,6 +78,7 @@ public class EthDocking implements IHeterogeneousChainDocking {
     private static HeterogeneousAssetInfo ethereum;
     private static final EthDocking DOCKING = new EthDocking();
     protected ETHWalletApi ethWalletApi;
+    protected EthTxReceiptHelper ethTxReceiptHelper;
     protected EthListener ethListener;
     protected EthERC20Helper ethERC20Helper;
     protected ConverterConfig converterConfig;
@@ -490,7 +491,7 @@ public class EthDocking implements IHeterogeneousChainDocking {
             blockHeight = tx.getBlockNumber().longValue();
         }
         if(signers == null || signers.isEmpty()) {
-            TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(txHash);
+            TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
             signers = ethParseTxHelper.parseSigners(txReceipt);
         }
         if (txTime == null) {
@@ -1172,6 +1173,10 @@ public class EthDocking implements IHeterogeneousChainDocking {
         this.ethTxStorageService = ethTxStorageService;
     }
 
+    public void setEthTxReceiptHelper(EthTxReceiptHelper ethTxReceiptHelper) {
+        this.ethTxReceiptHelper = ethTxReceiptHelper;
+    }
+
     public void setEthParseTxHelper(EthParseTxHelper ethParseTxHelper) {
         this.ethParseTxHelper = ethParseTxHelper;
     }
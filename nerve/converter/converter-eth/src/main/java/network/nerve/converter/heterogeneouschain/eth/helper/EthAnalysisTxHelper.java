@@ -59,6 +59,8 @@ public class EthAnalysisTxHelper implements IEthAnalysisTx {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthListener ethListener;
     @Autowired
     private EthParseTxHelper ethParseTxHelper;
@@ -128,7 +130,7 @@ public class EthAnalysisTxHelper implements IEthAnalysisTx {
             }
             // ERC20充值交易
             if (ethERC20Helper.isERC20(tx.getTo(), po)) {
-                TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+                TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash, tx.getBlockHash());
                 if (ethERC20Helper.hasERC20WithListeningAddress(txReceipt, po, toAddress -> ethListener.isListeningAddress(toAddress))) {
                     isDepositTx = true;
                     txType = HeterogeneousChainTxType.DEPOSIT;
@@ -199,7 +201,7 @@ public class EthAnalysisTxHelper implements IEthAnalysisTx {
         txPo.setBlockHeight(blockHeight);
         txPo.setTxTime(txTime);
         // 判断是否为签名完成的交易，更改状态，解析交易的多签地址列表
-        TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+        TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash, tx.getBlockHash());
         if (txReceipt == null || !txReceipt.isStatusOK()) {
             // 当前节点发出的交易，交易失败，重发三十次，仍然失败的话，则丢弃交易
             if (ethResendHelper.currentNodeSent(ethTxHash) && ethResendHelper.canResend(nerveTxHash)) {
@@ -25,12 +25,23 @@ package network.nerve.converter.heterogeneouschain.eth.helper;
 
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import network.nerve.converter.core.heterogeneous.syncblock.DepositLogFilter;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.ITransferLogQuery;
+import network.nerve.converter.heterogeneouschain.eth.constant.EthConstant;
+import network.nerve.converter.heterogeneouschain.eth.context.EthContext;
+import network.nerve.converter.heterogeneouschain.eth.core.ETHWalletApi;
 import network.nerve.converter.heterogeneouschain.eth.helper.interfaces.IEthAnalysisTx;
+import network.nerve.converter.heterogeneouschain.eth.listener.EthListener;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSimpleBlockHeader;
+import network.nerve.converter.model.bo.HeterogeneousTransferLog;
 import network.nerve.converter.utils.LoggerUtil;
 import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.Log;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 解析以太坊区块，监听指定地址和指定交易并回调Nerve核心
@@ -39,10 +50,20 @@ import java.util.List;
  * @date: 2020-02-20
  */
 @Component
-public class EthBlockAnalysisHelper {
+public class EthBlockAnalysisHelper implements ITransferLogQuery {
 
     @Autowired
     private EthLocalBlockHelper ethLocalBlockHelper;
+    @Autowired
+    private ETHWalletApi ethWalletApi;
+    @Autowired
+    private EthListener ethListener;
+    @Autowired
+    private EthERC20Helper ethERC20Helper;
+    @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+
+    private final DepositLogFilter depositLogFilter = new DepositLogFilter(this, EthConstant.DEPOSIT_LOG_QUERY_RANGE);
 
     /**
      * 解析以太坊区块
@@ -53,8 +74,22 @@ public class EthBlockAnalysisHelper {
         int size;
         if (ethTransactionResults != null && (size = ethTransactionResults.size()) > 0) {
             long txTime = block.getTimestamp().longValue();
+            Set<String> transferTxHashes = this.findTransferTxHashes(block);
+            List<org.web3j.protocol.core.methods.response.Transaction> txList = new ArrayList<>(size);
+            List<String> receiptTxHashes = new ArrayList<>();
             for (int i = 0; i < size; i++) {
                 org.web3j.protocol.core.methods.response.Transaction tx = (org.web3j.protocol.core.methods.response.Transaction) ethTransactionResults.get(i).get();
+                if (transferTxHashes != null && !this.needAnalysis(tx, transferTxHashes)) {
+                    continue;
+                }
+                txList.add(tx);
+                if (this.needReceipt(tx)) {
+                    receiptTxHashes.add(tx.getHash());
+                }
+            }
+            // 解析时需要查询收据的交易，预先合并为批量查询
+            ethTxReceiptHelper.prefetch(receiptTxHashes);
+            for (org.web3j.protocol.core.methods.response.Transaction tx : txList) {
                 ethAnalysisTx.analysisTx(tx, txTime, blockHeight);
             }
         }
@@ -72,6 +107,69 @@ public class EthBlockAnalysisHelper {
         }
     }
 
+    /**
+     * 更新当前网络最新高度，按事件日志过滤时一次查询的区块不超过最新高度
+     */
+    public void setLatestHeight(long latestHeight) {
+        depositLogFilter.setLatestHeight(latestHeight);
+    }
+
+    /**
+     * 开启事件日志过滤时，返回区块中转入监听地址的ERC20 Transfer事件所在的交易hash
+     * 未开启、查询失败或查询结果与区块不一致时返回null，解析区块中的全部交易
+     */
+    private Set<String> findTransferTxHashes(EthBlock.Block block) {
+        if (!EthContext.getConfig().isDepositLogFilter()) {
+            return null;
+        }
+        try {
+            return depositLogFilter.findTransferTxHashes(block.getNumber().longValue(), block.getHash(), block.getLogsBloom());
+        } catch (Exception e) {
+            EthContext.logger().warn("按事件日志过滤交易失败, 解析区块全部交易, 高度: {}, 错误: {}", block.getNumber(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 与交易解析的判断顺序一致：广播的交易、发往监听地址的交易，其余交易只有ERC20转入监听地址时才会被识别为充值
+     */
+    private boolean needAnalysis(org.web3j.protocol.core.methods.response.Transaction tx, Set<String> transferTxHashes) {
+        if (tx.getTo() == null) {
+            return false;
+        }
+        return ethListener.isListeningTx(tx.getHash())
+                || ethListener.isListeningAddress(tx.getTo().toLowerCase())
+                || transferTxHashes.contains(tx.getHash().toLowerCase());
+    }
+
+    /**
+     * 广播的交易、发往监听地址或ERC20合约的交易，解析时需要查询收据
+     */
+    private boolean needReceipt(org.web3j.protocol.core.methods.response.Transaction tx) {
+        if (tx.getTo() == null) {
+            return false;
+        }
+        String to = tx.getTo().toLowerCase();
+        return ethListener.isListeningTx(tx.getHash())
+                || ethListener.isListeningAddress(to)
+                || ethERC20Helper.getERC20ByContractAddress(to) != null;
+    }
+
+    @Override
+    public Collection<String> getListeningAddresses() {
+        return ethListener.getListeningAddressSet();
+    }
+
+    @Override
+    public List<HeterogeneousTransferLog> queryTransferLogs(long fromHeight, long toHeight, List<String> toTopics) throws Exception {
+        List<Log> logs = ethWalletApi.getTransferLogs(fromHeight, toHeight, DepositLogFilter.ERC20_TRANSFER_TOPIC, toTopics);
+        List<HeterogeneousTransferLog> result = new ArrayList<>(logs.size());
+        for (Log log : logs) {
+            result.add(new HeterogeneousTransferLog(log.getBlockNumber().longValue(), log.getBlockHash(), log.getTransactionHash()));
+        }
+        return result;
+    }
+
 
 
 }
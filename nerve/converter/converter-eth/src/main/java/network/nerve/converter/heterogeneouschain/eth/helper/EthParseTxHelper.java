@@ -60,6 +60,8 @@ public class EthParseTxHelper {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthListener ethListener;
 
     public boolean isCompletedTransaction(String nerveTxHash) throws Exception {
@@ -96,7 +98,7 @@ public class EthParseTxHelper {
         if (ethListener.isListeningAddress(tx.getTo()) &&
                 EthConstant.METHOD_HASH_CREATEORSIGNWITHDRAW.equals(methodNameHash)) {
             if (txReceipt == null) {
-                txReceipt = ethWalletApi.getTxReceipt(txHash);
+                txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
             }
             isWithdraw = this.parseWithdrawTxReceipt(txReceipt, txInfo);
             if (!isWithdraw) {
@@ -147,7 +149,7 @@ public class EthParseTxHelper {
         HeterogeneousTransactionInfo txInfo = EthUtil.newTransactionInfo(tx);
         boolean isDeposit = false;
         if (txReceipt == null) {
-            txReceipt = ethWalletApi.getTxReceipt(txHash);
+            txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
         }
         do {
             // ETH充值交易的固定接收地址,金额大于0, 没有input
@@ -211,7 +213,7 @@ public class EthParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = ethWalletApi.getTxReceipt(txHash);
+            txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
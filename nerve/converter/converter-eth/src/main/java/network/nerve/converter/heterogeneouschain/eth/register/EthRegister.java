@@ -97,6 +97,8 @@ public class EthRegister implements IHeterogeneousChainRegister {
     @Autowired
     private EthParseTxHelper ethParseTxHelper;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthAnalysisTxHelper ethAnalysisTxHelper;
     @Autowired
     private EthCommonHelper ethCommonHelper;
@@ -187,6 +189,7 @@ public class EthRegister implements IHeterogeneousChainRegister {
         ethDocking.setEthERC20Helper(ethERC20Helper);
         ethDocking.setEthTxStorageService(ethTxStorageService);
         ethDocking.setEthParseTxHelper(ethParseTxHelper);
+        ethDocking.setEthTxReceiptHelper(ethTxReceiptHelper);
         ethDocking.setEthCallBackManager(ethCallBackManager);
         ethDocking.setEthAnalysisTxHelper(ethAnalysisTxHelper);
         ethDocking.setEthCommonHelper(ethCommonHelper);
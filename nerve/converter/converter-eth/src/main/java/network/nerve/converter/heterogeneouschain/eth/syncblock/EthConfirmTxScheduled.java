@@ -39,6 +39,7 @@ import network.nerve.converter.heterogeneouschain.eth.helper.EthLocalBlockHelper
 import network.nerve.converter.heterogeneouschain.eth.helper.EthParseTxHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthResendHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthStorageHelper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.listener.EthListener;
 import network.nerve.converter.heterogeneouschain.eth.model.EthRecoveryDto;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSendTransactionPo;
@@ -60,6 +61,8 @@ import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingDeque;
 
 import static network.nerve.converter.heterogeneouschain.eth.constant.EthConstant.*;
@@ -76,6 +79,8 @@ public class EthConfirmTxScheduled implements Runnable {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private ConverterConfig converterConfig;
     @Autowired
     private EthUnconfirmedTxStorageService ethUnconfirmedTxStorageService;
@@ -116,6 +121,14 @@ public class EthConfirmTxScheduled implements Runnable {
             EthContext.INIT_UNCONFIRMEDTX_QUEUE_LATCH.await();
             long ethNewestHeight = ethWalletApi.getBlockHeight();
             int size = EthContext.UNCONFIRMED_TX_QUEUE.size();
+            // 已解析到所在高度的交易在确认时需要再次查询收据，预先合并为批量查询
+            List<String> packedTxHashes = new ArrayList<>();
+            for (EthUnconfirmedTxPo unconfirmedTxPo : EthContext.UNCONFIRMED_TX_QUEUE) {
+                if (unconfirmedTxPo.getBlockHeight() != null) {
+                    packedTxHashes.add(unconfirmedTxPo.getTxHash());
+                }
+            }
+            ethTxReceiptHelper.prefetch(packedTxHashes);
             for (int i = 0; i < size; i++) {
                 po = EthContext.UNCONFIRMED_TX_QUEUE.poll();
                 if (po == null) {
@@ -581,7 +594,7 @@ public class EthConfirmTxScheduled implements Runnable {
      * 检查eth交易是否被打包
      */
     private boolean checkPacked(String ethTxHash) throws Exception {
-        TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+        TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash);
         return txReceipt != null;
     }
 
@@ -617,7 +630,7 @@ public class EthConfirmTxScheduled implements Runnable {
     private boolean validateDepositTxConfirmedInEthNet(String ethTxHash, boolean ifContractAsset) throws Exception {
         boolean validateTx = false;
         do {
-            TransactionReceipt receipt = ethWalletApi.getTxReceipt(ethTxHash);
+            TransactionReceipt receipt = ethTxReceiptHelper.refreshTxReceipt(ethTxHash);
             if (receipt == null) {
                 logger().error("再次验证交易[{}]失败，获取不到receipt", ethTxHash);
                 break;
@@ -684,7 +697,7 @@ public class EthConfirmTxScheduled implements Runnable {
         BroadcastTxValidateStatus status;
         String ethTxHash = po.getTxHash();
         do {
-            TransactionReceipt receipt = ethWalletApi.getTxReceipt(ethTxHash);
+            TransactionReceipt receipt = ethTxReceiptHelper.refreshTxReceipt(ethTxHash);
             if (receipt == null) {
                 boolean timeOut = System.currentTimeMillis() - po.getCreateDate() > EthConstant.MINUTES_20;
                 /*
@@ -34,6 +34,7 @@ import network.nerve.converter.enums.HeterogeneousChainTxType;
 import network.nerve.converter.heterogeneouschain.eth.constant.EthConstant;
 import network.nerve.converter.heterogeneouschain.eth.context.EthContext;
 import network.nerve.converter.heterogeneouschain.eth.docking.EthDocking;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.model.EthAccount;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSendTransactionPo;
 import network.nerve.converter.heterogeneouschain.eth.model.EthUnconfirmedTxPo;
@@ -170,7 +171,7 @@ public class EthIIDocking extends EthDocking {
             blockHeight = tx.getBlockNumber().longValue();
         }
         if(signers == null || signers.isEmpty()) {
-            TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(txHash);
+            TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
             signers = ethIIParseTxHelper.parseSigners(txReceipt, from);
         }
         if (txTime == null) {
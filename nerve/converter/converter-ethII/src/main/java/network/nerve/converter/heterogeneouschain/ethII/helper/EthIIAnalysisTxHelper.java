@@ -33,6 +33,7 @@ import network.nerve.converter.heterogeneouschain.eth.enums.MultiSignatureStatus
 import network.nerve.converter.heterogeneouschain.eth.helper.EthERC20Helper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthResendHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthStorageHelper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.interfaces.IEthAnalysisTx;
 import network.nerve.converter.heterogeneouschain.eth.listener.EthListener;
 import network.nerve.converter.heterogeneouschain.eth.model.EthInput;
@@ -62,6 +63,8 @@ public class EthIIAnalysisTxHelper implements IEthAnalysisTx {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthListener ethListener;
     @Autowired
     private EthIIParseTxHelper ethIIParseTxHelper;
@@ -144,7 +147,7 @@ public class EthIIAnalysisTxHelper implements IEthAnalysisTx {
             }
             // ERC20充值交易
             if (ethERC20Helper.isERC20(tx.getTo(), po)) {
-                TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+                TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash, tx.getBlockHash());
                 if (ethERC20Helper.hasERC20WithListeningAddress(txReceipt, po, toAddress -> ethListener.isListeningAddress(toAddress))) {
                     // 检查是否是NERVE资产绑定的ERC20，是则检查多签合约内是否已经注册此定制的ERC20，否则充值异常
                     if (EthContext.getConverterCoreApi().isBoundHeterogeneousAsset(EthConstant.ETH_CHAIN_ID, po.getAssetId())
@@ -243,7 +246,7 @@ public class EthIIAnalysisTxHelper implements IEthAnalysisTx {
         txPo.setTxTime(txTime);
         txPo.setFrom(tx.getFrom());
         // 判断交易是否成功，更改状态，解析交易的事件
-        TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+        TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash, tx.getBlockHash());
         if (txReceipt == null || !txReceipt.isStatusOK()) {
             txPo.setStatus(MultiSignatureStatus.FAILED);
         } else {
@@ -30,6 +30,7 @@ import network.nerve.converter.heterogeneouschain.eth.constant.EthConstant;
 import network.nerve.converter.heterogeneouschain.eth.context.EthContext;
 import network.nerve.converter.heterogeneouschain.eth.core.ETHWalletApi;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthERC20Helper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.listener.EthListener;
 import network.nerve.converter.heterogeneouschain.eth.model.EthInput;
 import network.nerve.converter.heterogeneouschain.eth.storage.EthTxStorageService;
@@ -67,6 +68,8 @@ public class EthIIParseTxHelper {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthListener ethListener;
 
     public boolean isMinterERC20(String erc20) throws Exception {
@@ -104,7 +107,7 @@ public class EthIIParseTxHelper {
         if (ethListener.isListeningAddress(tx.getTo()) &&
                 EthIIConstant.METHOD_HASH_CREATEORSIGNWITHDRAW.equals(methodNameHash)) {
             if (txReceipt == null) {
-                txReceipt = ethWalletApi.getTxReceipt(txHash);
+                txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
             }
             isWithdraw = this.parseWithdrawTxReceipt(txReceipt, txInfo);
             if (!isWithdraw) {
@@ -155,7 +158,7 @@ public class EthIIParseTxHelper {
         HeterogeneousTransactionInfo txInfo = EthUtil.newTransactionInfo(tx);
         boolean isDeposit = false;
         if (txReceipt == null) {
-            txReceipt = ethWalletApi.getTxReceipt(txHash);
+            txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
         }
         do {
             // ETH充值交易的固定接收地址,金额大于0, 没有input
@@ -237,7 +240,7 @@ public class EthIIParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = ethWalletApi.getTxReceipt(txHash);
+            txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
@@ -274,7 +277,7 @@ public class EthIIParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = ethWalletApi.getTxReceipt(txHash);
+            txReceipt = ethTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
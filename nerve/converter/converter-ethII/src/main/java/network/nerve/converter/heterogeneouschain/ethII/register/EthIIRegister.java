@@ -92,6 +92,8 @@ public class EthIIRegister implements IHeterogeneousChainRegister {
     @Autowired
     private EthParseTxHelper ethParseTxHelper;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private EthAnalysisTxHelper ethAnalysisTxHelper;
     @Autowired
     private EthCommonHelper ethCommonHelper;
@@ -206,6 +208,7 @@ public class EthIIRegister implements IHeterogeneousChainRegister {
         docking.setEthERC20Helper(ethERC20Helper);
         docking.setEthTxStorageService(ethTxStorageService);
         docking.setEthParseTxHelper(ethParseTxHelper);
+        docking.setEthTxReceiptHelper(ethTxReceiptHelper);
         docking.setEthCallBackManager(ethCallBackManager);
         docking.setEthAnalysisTxHelper(ethAnalysisTxHelper);
         docking.setEthCommonHelper(ethCommonHelper);
@@ -25,13 +25,18 @@ package network.nerve.converter.heterogeneouschain.ethII.schedules;
 
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
 import network.nerve.converter.config.ConverterConfig;
+import network.nerve.converter.core.heterogeneous.syncblock.HeterogeneousBlockScanner;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.IBlockScanChain;
 import network.nerve.converter.heterogeneouschain.eth.callback.EthCallBackManager;
+import network.nerve.converter.heterogeneouschain.eth.constant.EthConstant;
 import network.nerve.converter.heterogeneouschain.eth.context.EthContext;
 import network.nerve.converter.heterogeneouschain.eth.core.ETHWalletApi;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthBlockAnalysisHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthCommonHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthLocalBlockHelper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSimpleBlockHeader;
 import network.nerve.converter.heterogeneouschain.eth.syncblock.SyncEthBlockInitial;
 import network.nerve.converter.heterogeneouschain.ethII.helper.EthIIAnalysisTxHelper;
@@ -46,11 +51,13 @@ import java.math.BigInteger;
  * @date: 2020-02-20
  */
 @Component("ethIIBlockScheduled")
-public class EthIIBlockScheduled implements Runnable {
+public class EthIIBlockScheduled implements Runnable, IBlockScanChain<EthBlock.Block> {
 
     @Autowired
     private EthLocalBlockHelper ethLocalBlockHelper;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
     private SyncEthBlockInitial syncEthBlockInitial;
@@ -65,7 +72,7 @@ public class EthIIBlockScheduled implements Runnable {
     @Autowired
     private EthCallBackManager ethCallBackManager;
 
-    private boolean firstSync = true;
+    private final HeterogeneousBlockScanner<EthBlock.Block> blockScanner = new HeterogeneousBlockScanner<>(this);
     private boolean clearDB = false;
 
 
@@ -110,78 +117,95 @@ public class EthIIBlockScheduled implements Runnable {
             EthContext.logger().error("清理充值交易hash再次验证的集合失败", e);
         }
         try {
-
-            // 当前ETH网络最新的区块
-            long blockHeightFromEth = ethWalletApi.getBlockHeight();
-            // 本地最新的区块
-            EthSimpleBlockHeader localMax = ethLocalBlockHelper.getLatestLocalBlockHeader();
-            if (localMax == null) {
-                // 当启动节点时，本地区块为空，将从ETH网络最新高度开始同步
-                EthBlock.Block block = ethWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    EthContext.logger().info("获取不到ETH区块，等待下轮执行");
-                    return;
-                }
-                ethBlockAnalysisHelper.analysisEthBlock(block, ethIIAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-            Long localBlockHeight = localMax.getHeight();
-            // 当启动节点时，本地最新高度与ETH网络区块高度相差两个区块及以上时，则从ETH网络高度开始同步
-            if (firstSync && blockHeightFromEth - localBlockHeight >= 2) {
-                EthBlock.Block block = ethWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    EthContext.logger().info("获取不到ETH区块，等待下轮执行");
-                    return;
-                }
-                ethLocalBlockHelper.deleteAllLocalBlockHeader();
-                ethBlockAnalysisHelper.analysisEthBlock(block, ethIIAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-
-            // 验证最新区块是否正确
-            int resultCode = checkNewestBlock(localMax);
-            if (resultCode == 0) {
-                EthContext.logger().error("获取ETH区块失败");
-                return;
-            } else if (resultCode == 1) {
-                EthContext.logger().error("ETH区块分叉");
-                ethLocalBlockHelper.deleteByHeightAndUpdateMemory(localBlockHeight);
-                return;
-            }
-
-            long size = blockHeightFromEth - localBlockHeight;
-            for (int i = 1; i <= size; i++) {
-                localBlockHeight = localBlockHeight + 1;
-                /**
-                 * 同步并解析数据
-                 */
-                try {
-                    EthBlock.Block block = ethWalletApi.getBlockByHeight(localBlockHeight);
-                    if(block == null) {
-                        EthContext.logger().info("获取不到ETH区块，等待下轮执行");
-                        break;
-                    }
-                    ethBlockAnalysisHelper.analysisEthBlock(block, ethIIAnalysisTxHelper);
-                } catch (Exception e) {
-                    EthContext.logger().error("syncHeight error ", e);
-                    break;
-                }
-            }
+            blockScanner.scan();
         } catch (Exception e) {
             EthContext.logger().error("同步ETH区块失败, 错误: {}", e);
         }
     }
 
-    private int checkNewestBlock(EthSimpleBlockHeader max) throws Exception {
-        EthBlock.Block block = ethWalletApi.getBlockHeaderByHeight(max.getHeight().longValue());
-        if (block == null) {
-            return 0;
-        } else if (block.getHash().equals(max.getHash())) {
-            return 2;
-        } else {
-            return 1;
-        }
+    @Override
+    public String getSymbol() {
+        return EthConstant.ETH_SYMBOL;
+    }
+
+    @Override
+    public NulsLogger logger() {
+        return EthContext.logger();
+    }
+
+    @Override
+    public long getLatestHeight() throws Exception {
+        long latestHeight = ethWalletApi.getBlockHeight();
+        ethBlockAnalysisHelper.setLatestHeight(latestHeight);
+        return latestHeight;
+    }
+
+    @Override
+    public EthBlock.Block getBlock(long height) throws Exception {
+        return ethWalletApi.getBlockByHeight(height);
+    }
+
+    @Override
+    public String getBlockHash(long height) throws Exception {
+        EthBlock.Block header = ethWalletApi.getBlockHeaderByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public long getHeight(EthBlock.Block block) {
+        return block.getNumber().longValue();
+    }
+
+    @Override
+    public String getHash(EthBlock.Block block) {
+        return block.getHash();
+    }
+
+    @Override
+    public String getParentHash(EthBlock.Block block) {
+        return block.getParentHash();
+    }
+
+    @Override
+    public Long getLocalHeight() {
+        EthSimpleBlockHeader localMax = ethLocalBlockHelper.getLatestLocalBlockHeader();
+        return localMax == null ? null : localMax.getHeight();
+    }
+
+    @Override
+    public String getLocalHash(long height) {
+        EthSimpleBlockHeader header = ethLocalBlockHelper.findByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public void analysisBlock(EthBlock.Block block) throws Exception {
+        ethBlockAnalysisHelper.analysisEthBlock(block, ethIIAnalysisTxHelper);
+    }
+
+    @Override
+    public void deleteLocalBlock(long height) throws Exception {
+        ethLocalBlockHelper.deleteByHeightAndUpdateMemory(height);
+        ethTxReceiptHelper.invalidateFromHeight(height);
+    }
+
+    @Override
+    public void deleteAllLocalBlock() throws Exception {
+        ethLocalBlockHelper.deleteAllLocalBlockHeader();
+    }
+
+    @Override
+    public int getFetchThreads() {
+        return EthConstant.BLOCK_SCAN_FETCH_THREADS;
+    }
+
+    @Override
+    public int getFetchWindow() {
+        return EthConstant.BLOCK_SCAN_FETCH_WINDOW;
+    }
+
+    @Override
+    public long getMaxCatchUpBlocks() {
+        return EthConstant.BLOCK_SCAN_MAX_CATCH_UP_BLOCKS;
     }
 }
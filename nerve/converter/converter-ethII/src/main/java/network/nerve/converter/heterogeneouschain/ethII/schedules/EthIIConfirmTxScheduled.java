@@ -40,6 +40,7 @@ import network.nerve.converter.heterogeneouschain.eth.helper.EthLocalBlockHelper
 import network.nerve.converter.heterogeneouschain.eth.helper.EthParseTxHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthResendHelper;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthStorageHelper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.listener.EthListener;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSendTransactionPo;
 import network.nerve.converter.heterogeneouschain.eth.model.EthSimpleBlockHeader;
@@ -64,7 +65,9 @@ import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -83,6 +86,8 @@ public class EthIIConfirmTxScheduled implements Runnable {
     @Autowired
     private ETHWalletApi ethWalletApi;
     @Autowired
+    private EthTxReceiptHelper ethTxReceiptHelper;
+    @Autowired
     private ConverterConfig converterConfig;
     @Autowired
     private EthUnconfirmedTxStorageService ethUnconfirmedTxStorageService;
@@ -129,6 +134,14 @@ public class EthIIConfirmTxScheduled implements Runnable {
             EthContext.INIT_UNCONFIRMEDTX_QUEUE_LATCH.await();
             long ethNewestHeight = ethWalletApi.getBlockHeight();
             int size = EthContext.UNCONFIRMED_TX_QUEUE.size();
+            // 已解析到所在高度的交易在确认时需要再次查询收据，预先合并为批量查询
+            List<String> packedTxHashes = new ArrayList<>();
+            for (EthUnconfirmedTxPo unconfirmedTxPo : EthContext.UNCONFIRMED_TX_QUEUE) {
+                if (unconfirmedTxPo.getBlockHeight() != null) {
+                    packedTxHashes.add(unconfirmedTxPo.getTxHash());
+                }
+            }
+            ethTxReceiptHelper.prefetch(packedTxHashes);
             for (int i = 0; i < size; i++) {
                 po = EthContext.UNCONFIRMED_TX_QUEUE.poll();
                 if (po == null) {
@@ -647,7 +660,7 @@ public class EthIIConfirmTxScheduled implements Runnable {
      * 检查eth交易是否被打包
      */
     private boolean checkPacked(String ethTxHash) throws Exception {
-        TransactionReceipt txReceipt = ethWalletApi.getTxReceipt(ethTxHash);
+        TransactionReceipt txReceipt = ethTxReceiptHelper.getTxReceipt(ethTxHash);
         return txReceipt != null;
     }
 
@@ -657,7 +670,7 @@ public class EthIIConfirmTxScheduled implements Runnable {
     private boolean validateDepositTxConfirmedInEthNet(String ethTxHash, boolean ifContractAsset) throws Exception {
         boolean validateTx = false;
         do {
-            TransactionReceipt receipt = ethWalletApi.getTxReceipt(ethTxHash);
+            TransactionReceipt receipt = ethTxReceiptHelper.refreshTxReceipt(ethTxHash);
             if (receipt == null) {
                 logger().error("再次验证交易[{}]失败，获取不到receipt", ethTxHash);
                 break;
@@ -682,7 +695,7 @@ public class EthIIConfirmTxScheduled implements Runnable {
         BroadcastTxValidateStatus status;
         String ethTxHash = po.getTxHash();
         do {
-            TransactionReceipt receipt = ethWalletApi.getTxReceipt(ethTxHash);
+            TransactionReceipt receipt = ethTxReceiptHelper.refreshTxReceipt(ethTxHash);
             if (receipt == null) {
                 boolean timeOut = System.currentTimeMillis() - po.getCreateDate() > EthConstant.MINUTES_20;
                 logger().error("再次验证交易[{}]失败，获取不到receipt", ethTxHash);
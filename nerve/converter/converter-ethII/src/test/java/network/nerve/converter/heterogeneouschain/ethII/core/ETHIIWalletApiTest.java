@@ -8,6 +8,7 @@ import network.nerve.converter.enums.HeterogeneousChainTxType;
 import network.nerve.converter.heterogeneouschain.eth.constant.EthConstant;
 import network.nerve.converter.heterogeneouschain.eth.context.EthContext;
 import network.nerve.converter.heterogeneouschain.eth.helper.EthERC20Helper;
+import network.nerve.converter.heterogeneouschain.eth.helper.EthTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.eth.model.EthUnconfirmedTxPo;
 import network.nerve.converter.heterogeneouschain.eth.utils.EthUtil;
 import network.nerve.converter.heterogeneouschain.ethII.base.BaseII;
@@ -704,6 +705,9 @@ public class ETHIIWalletApiTest extends BaseII {
         Transaction tx = ethWalletApi.getTransactionByHash(directTxHash);
         EthIIParseTxHelper helper = new EthIIParseTxHelper();
         BeanUtilTest.setBean(helper, "ethWalletApi", ethWalletApi);
+        EthTxReceiptHelper receiptHelper = new EthTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "ethWalletApi", ethWalletApi);
+        BeanUtilTest.setBean(helper, "ethTxReceiptHelper", receiptHelper);
         EthUnconfirmedTxPo po = new EthUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
         System.out.println(crossOut);
@@ -727,6 +731,9 @@ public class ETHIIWalletApiTest extends BaseII {
         Transaction tx = ethWalletApi.getTransactionByHash(directTxHash);
         EthIIParseTxHelper helper = new EthIIParseTxHelper();
         BeanUtilTest.setBean(helper, "ethWalletApi", ethWalletApi);
+        EthTxReceiptHelper receiptHelper = new EthTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "ethWalletApi", ethWalletApi);
+        BeanUtilTest.setBean(helper, "ethTxReceiptHelper", receiptHelper);
         BeanUtilTest.setBean(helper, "ethERC20Helper", new MockEthERC20Helper());
         EthUnconfirmedTxPo po = new EthUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
@@ -78,6 +78,7 @@ public class HtDocking implements IHeterogeneousChainDocking {
     private static final HtDocking DOCKING = new HtDocking();
 
     protected HtWalletApi htWalletApi;
+    protected HtTxReceiptHelper htTxReceiptHelper;
     protected HtListener htListener;
     protected HtERC20Helper htERC20Helper;
     protected ConverterConfig converterConfig;
@@ -500,7 +501,7 @@ public class HtDocking implements IHeterogeneousChainDocking {
             blockHeight = tx.getBlockNumber().longValue();
         }
         if(signers == null || signers.isEmpty()) {
-            TransactionReceipt txReceipt = htWalletApi.getTxReceipt(txHash);
+            TransactionReceipt txReceipt = htTxReceiptHelper.getTxReceipt(txHash);
             signers = htParseTxHelper.parseSigners(txReceipt, from);
         }
         if (txTime == null) {
@@ -1244,6 +1245,10 @@ public class HtDocking implements IHeterogeneousChainDocking {
         this.htInvokeTxHelper = htInvokeTxHelper;
     }
 
+    public void setHtTxReceiptHelper(HtTxReceiptHelper htTxReceiptHelper) {
+        this.htTxReceiptHelper = htTxReceiptHelper;
+    }
+
     public void setHtParseTxHelper(HtParseTxHelper htParseTxHelper) {
         this.htParseTxHelper = htParseTxHelper;
     }
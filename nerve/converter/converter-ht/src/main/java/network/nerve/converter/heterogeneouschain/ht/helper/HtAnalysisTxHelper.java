@@ -58,6 +58,8 @@ public class HtAnalysisTxHelper implements IHtAnalysisTx {
     @Autowired
     private HtWalletApi htWalletApi;
     @Autowired
+    private HtTxReceiptHelper htTxReceiptHelper;
+    @Autowired
     private HtListener htListener;
     @Autowired
     private HtParseTxHelper htParseTxHelper;
@@ -138,7 +140,7 @@ public class HtAnalysisTxHelper implements IHtAnalysisTx {
             }
             // ERC20充值交易
             if (htERC20Helper.isERC20(tx.getTo(), po)) {
-                TransactionReceipt txReceipt = htWalletApi.getTxReceipt(htTxHash);
+                TransactionReceipt txReceipt = htTxReceiptHelper.getTxReceipt(htTxHash, tx.getBlockHash());
                 if (htERC20Helper.hasERC20WithListeningAddress(txReceipt, po, toAddress -> htListener.isListeningAddress(toAddress))) {
                     // 检查是否是NERVE资产绑定的ERC20，是则检查多签合约内是否已经注册此定制的ERC20，否则充值异常
                     if (HtContext.getConverterCoreApi().isBoundHeterogeneousAsset(HtConstant.HT_CHAIN_ID, po.getAssetId())
@@ -237,7 +239,7 @@ public class HtAnalysisTxHelper implements IHtAnalysisTx {
         txPo.setTxTime(txTime);
         txPo.setFrom(tx.getFrom());
         // 判断交易是否成功，更改状态，解析交易的事件
-        TransactionReceipt txReceipt = htWalletApi.getTxReceipt(htTxHash);
+        TransactionReceipt txReceipt = htTxReceiptHelper.getTxReceipt(htTxHash, tx.getBlockHash());
         if (txReceipt == null || !txReceipt.isStatusOK()) {
             txPo.setStatus(MultiSignatureStatus.FAILED);
         } else {
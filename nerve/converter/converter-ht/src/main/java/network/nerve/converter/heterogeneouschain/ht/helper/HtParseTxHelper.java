@@ -62,6 +62,8 @@ public class HtParseTxHelper {
     @Autowired
     private HtWalletApi htWalletApi;
     @Autowired
+    private HtTxReceiptHelper htTxReceiptHelper;
+    @Autowired
     private HtListener htListener;
 
     public boolean isCompletedTransaction(String nerveTxHash) throws Exception {
@@ -114,7 +116,7 @@ public class HtParseTxHelper {
         if (htListener.isListeningAddress(tx.getTo()) &&
                 HtConstant.METHOD_HASH_CREATEORSIGNWITHDRAW.equals(methodNameHash)) {
             if (txReceipt == null) {
-                txReceipt = htWalletApi.getTxReceipt(txHash);
+                txReceipt = htTxReceiptHelper.getTxReceipt(txHash);
             }
             isWithdraw = this.parseWithdrawTxReceipt(txReceipt, txInfo);
             if (!isWithdraw) {
@@ -165,7 +167,7 @@ public class HtParseTxHelper {
         HeterogeneousTransactionInfo txInfo = HtUtil.newTransactionInfo(tx);
         boolean isDeposit = false;
         if (txReceipt == null) {
-            txReceipt = htWalletApi.getTxReceipt(txHash);
+            txReceipt = htTxReceiptHelper.getTxReceipt(txHash);
         }
         do {
             // HT充值交易的固定接收地址,金额大于0, 没有input
@@ -247,7 +249,7 @@ public class HtParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = htWalletApi.getTxReceipt(txHash);
+            txReceipt = htTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
@@ -284,7 +286,7 @@ public class HtParseTxHelper {
         }
         String txHash = tx.getHash();
         if (txReceipt == null) {
-            txReceipt = htWalletApi.getTxReceipt(txHash);
+            txReceipt = htTxReceiptHelper.getTxReceipt(txHash);
         }
         List<Log> logs = txReceipt.getLogs();
         if (logs == null || logs.isEmpty()) {
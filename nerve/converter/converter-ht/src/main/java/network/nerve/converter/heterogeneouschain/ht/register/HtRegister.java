@@ -94,6 +94,8 @@ public class HtRegister implements IHeterogeneousChainRegister {
     @Autowired
     private HtParseTxHelper htParseTxHelper;
     @Autowired
+    private HtTxReceiptHelper htTxReceiptHelper;
+    @Autowired
     private HtAnalysisTxHelper htAnalysisTxHelper;
     @Autowired
     private HtResendHelper htResendHelper;
@@ -176,6 +178,7 @@ public class HtRegister implements IHeterogeneousChainRegister {
         docking.setHtUpgradeContractSwitchHelper(htUpgradeContractSwitchHelper);
         docking.setHtInvokeTxHelper(htInvokeTxHelper);
         docking.setHtParseTxHelper(htParseTxHelper);
+        docking.setHtTxReceiptHelper(htTxReceiptHelper);
         docking.setHtAnalysisTxHelper(htAnalysisTxHelper);
         docking.setHtResendHelper(htResendHelper);
         docking.setHtPendingTxHelper(htPendingTxHelper);
@@ -25,14 +25,19 @@ package network.nerve.converter.heterogeneouschain.ht.schedules;
 
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.log.logback.NulsLogger;
 import network.nerve.converter.config.ConverterConfig;
+import network.nerve.converter.core.heterogeneous.syncblock.HeterogeneousBlockScanner;
+import network.nerve.converter.core.heterogeneous.syncblock.interfaces.IBlockScanChain;
 import network.nerve.converter.heterogeneouschain.ht.callback.HtCallBackManager;
+import network.nerve.converter.heterogeneouschain.ht.constant.HtConstant;
 import network.nerve.converter.heterogeneouschain.ht.context.HtContext;
 import network.nerve.converter.heterogeneouschain.ht.core.HtWalletApi;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtAnalysisTxHelper;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtBlockAnalysisHelper;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtCommonHelper;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtLocalBlockHelper;
+import network.nerve.converter.heterogeneouschain.ht.helper.HtTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.ht.model.HtSimpleBlockHeader;
 import network.nerve.converter.utils.LoggerUtil;
 import org.web3j.protocol.core.methods.response.EthBlock;
@@ -45,11 +50,13 @@ import java.math.BigInteger;
  * @date: 2020-02-20
  */
 @Component("htBlockScheduled")
-public class HtBlockScheduled implements Runnable {
+public class HtBlockScheduled implements Runnable, IBlockScanChain<EthBlock.Block> {
 
     @Autowired
     private HtLocalBlockHelper htLocalBlockHelper;
     @Autowired
+    private HtTxReceiptHelper htTxReceiptHelper;
+    @Autowired
     private HtWalletApi htWalletApi;
     @Autowired
     private ConverterConfig converterConfig;
@@ -62,7 +69,7 @@ public class HtBlockScheduled implements Runnable {
     @Autowired
     private HtCallBackManager htCallBackManager;
 
-    private boolean firstSync = true;
+    private final HeterogeneousBlockScanner<EthBlock.Block> blockScanner = new HeterogeneousBlockScanner<>(this);
     private boolean clearDB = false;
 
 
@@ -107,78 +114,95 @@ public class HtBlockScheduled implements Runnable {
             HtContext.logger().error("清理充值交易hash再次验证的集合失败", e);
         }
         try {
-
-            // 当前HT网络最新的区块
-            long blockHeightFromEth = htWalletApi.getBlockHeight();
-            // 本地最新的区块
-            HtSimpleBlockHeader localMax = htLocalBlockHelper.getLatestLocalBlockHeader();
-            if (localMax == null) {
-                // 当启动节点时，本地区块为空，将从HT网络最新高度开始同步
-                EthBlock.Block block = htWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    HtContext.logger().info("获取不到HT区块，等待下轮执行");
-                    return;
-                }
-                htBlockAnalysisHelper.analysisEthBlock(block, htAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-            Long localBlockHeight = localMax.getHeight();
-            // 当启动节点时，本地最新高度与HT网络区块高度相差两个区块及以上时，则从HT网络高度开始同步
-            if (firstSync && blockHeightFromEth - localBlockHeight >= 2) {
-                EthBlock.Block block = htWalletApi.getBlockByHeight(blockHeightFromEth);
-                if(block == null) {
-                    HtContext.logger().info("获取不到HT区块，等待下轮执行");
-                    return;
-                }
-                htLocalBlockHelper.deleteAllLocalBlockHeader();
-                htBlockAnalysisHelper.analysisEthBlock(block, htAnalysisTxHelper);
-                firstSync = false;
-                return;
-            }
-
-            // 验证最新区块是否正确
-            int resultCode = checkNewestBlock(localMax);
-            if (resultCode == 0) {
-                HtContext.logger().error("获取HT区块失败");
-                return;
-            } else if (resultCode == 1) {
-                HtContext.logger().error("HT区块分叉");
-                htLocalBlockHelper.deleteByHeightAndUpdateMemory(localBlockHeight);
-                return;
-            }
-
-            long size = blockHeightFromEth - localBlockHeight;
-            for (int i = 1; i <= size; i++) {
-                localBlockHeight = localBlockHeight + 1;
-                /**
-                 * 同步并解析数据
-                 */
-                try {
-                    EthBlock.Block block = htWalletApi.getBlockByHeight(localBlockHeight);
-                    if(block == null) {
-                        HtContext.logger().info("获取不到HT区块，等待下轮执行");
-                        break;
-                    }
-                    htBlockAnalysisHelper.analysisEthBlock(block, htAnalysisTxHelper);
-                } catch (Exception e) {
-                    HtContext.logger().error("syncHeight error ", e);
-                    break;
-                }
-            }
+            blockScanner.scan();
         } catch (Exception e) {
             HtContext.logger().error("同步HT区块失败, 错误: {}", e);
         }
     }
 
-    private int checkNewestBlock(HtSimpleBlockHeader max) throws Exception {
-        EthBlock.Block block = htWalletApi.getBlockHeaderByHeight(max.getHeight().longValue());
-        if (block == null) {
-            return 0;
-        } else if (block.getHash().equals(max.getHash())) {
-            return 2;
-        } else {
-            return 1;
-        }
+    @Override
+    public String getSymbol() {
+        return HtConstant.HT_SYMBOL;
+    }
+
+    @Override
+    public NulsLogger logger() {
+        return HtContext.logger();
+    }
+
+    @Override
+    public long getLatestHeight() throws Exception {
+        long latestHeight = htWalletApi.getBlockHeight();
+        htBlockAnalysisHelper.setLatestHeight(latestHeight);
+        return latestHeight;
+    }
+
+    @Override
+    public EthBlock.Block getBlock(long height) throws Exception {
+        return htWalletApi.getBlockByHeight(height);
+    }
+
+    @Override
+    public String getBlockHash(long height) throws Exception {
+        EthBlock.Block header = htWalletApi.getBlockHeaderByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public long getHeight(EthBlock.Block block) {
+        return block.getNumber().longValue();
+    }
+
+    @Override
+    public String getHash(EthBlock.Block block) {
+        return block.getHash();
+    }
+
+    @Override
+    public String getParentHash(EthBlock.Block block) {
+        return block.getParentHash();
+    }
+
+    @Override
+    public Long getLocalHeight() {
+        HtSimpleBlockHeader localMax = htLocalBlockHelper.getLatestLocalBlockHeader();
+        return localMax == null ? null : localMax.getHeight();
+    }
+
+    @Override
+    public String getLocalHash(long height) {
+        HtSimpleBlockHeader header = htLocalBlockHelper.findByHeight(height);
+        return header == null ? null : header.getHash();
+    }
+
+    @Override
+    public void analysisBlock(EthBlock.Block block) throws Exception {
+        htBlockAnalysisHelper.analysisEthBlock(block, htAnalysisTxHelper);
+    }
+
+    @Override
+    public void deleteLocalBlock(long height) throws Exception {
+        htLocalBlockHelper.deleteByHeightAndUpdateMemory(height);
+        htTxReceiptHelper.invalidateFromHeight(height);
+    }
+
+    @Override
+    public void deleteAllLocalBlock() throws Exception {
+        htLocalBlockHelper.deleteAllLocalBlockHeader();
+    }
+
+    @Override
+    public int getFetchThreads() {
+        return HtConstant.BLOCK_SCAN_FETCH_THREADS;
+    }
+
+    @Override
+    public int getFetchWindow() {
+        return HtConstant.BLOCK_SCAN_FETCH_WINDOW;
+    }
+
+    @Override
+    public long getMaxCatchUpBlocks() {
+        return HtConstant.BLOCK_SCAN_MAX_CATCH_UP_BLOCKS;
     }
 }
@@ -58,7 +58,9 @@ import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -76,6 +78,8 @@ public class HtConfirmTxScheduled implements Runnable {
     @Autowired
     private HtWalletApi htWalletApi;
     @Autowired
+    private HtTxReceiptHelper htTxReceiptHelper;
+    @Autowired
     private ConverterConfig converterConfig;
     @Autowired
     private HtUnconfirmedTxStorageService htUnconfirmedTxStorageService;
@@ -118,6 +122,14 @@ public class HtConfirmTxScheduled implements Runnable {
             HtContext.INIT_UNCONFIRMEDTX_QUEUE_LATCH.await();
             long ethNewestHeight = htWalletApi.getBlockHeight();
             int size = HtContext.UNCONFIRMED_TX_QUEUE.size();
+            // 已解析到所在高度的交易在确认时需要再次查询收据，预先合并为批量查询
+            List<String> packedTxHashes = new ArrayList<>();
+            for (HtUnconfirmedTxPo unconfirmedTxPo : HtContext.UNCONFIRMED_TX_QUEUE) {
+                if (unconfirmedTxPo.getBlockHeight() != null) {
+                    packedTxHashes.add(unconfirmedTxPo.getTxHash());
+                }
+            }
+            htTxReceiptHelper.prefetch(packedTxHashes);
             for (int i = 0; i < size; i++) {
                 po = HtContext.UNCONFIRMED_TX_QUEUE.poll();
                 if (po == null) {
@@ -636,7 +648,7 @@ public class HtConfirmTxScheduled implements Runnable {
      * 检查eth交易是否被打包
      */
     private boolean checkPacked(String htTxHash) throws Exception {
-        TransactionReceipt txReceipt = htWalletApi.getTxReceipt(htTxHash);
+        TransactionReceipt txReceipt = htTxReceiptHelper.getTxReceipt(htTxHash);
         return txReceipt != null;
     }
 
@@ -646,7 +658,7 @@ public class HtConfirmTxScheduled implements Runnable {
     private boolean validateDepositTxConfirmedInEthNet(String htTxHash, boolean ifContractAsset) throws Exception {
         boolean validateTx = false;
         do {
-            TransactionReceipt receipt = htWalletApi.getTxReceipt(htTxHash);
+            TransactionReceipt receipt = htTxReceiptHelper.refreshTxReceipt(htTxHash);
             if (receipt == null) {
                 logger().error("再次验证交易[{}]失败，获取不到receipt", htTxHash);
                 break;
@@ -671,7 +683,7 @@ public class HtConfirmTxScheduled implements Runnable {
         BroadcastTxValidateStatus status;
         String htTxHash = po.getTxHash();
         do {
-            TransactionReceipt receipt = htWalletApi.getTxReceipt(htTxHash);
+            TransactionReceipt receipt = htTxReceiptHelper.refreshTxReceipt(htTxHash);
             if (receipt == null) {
                 boolean timeOut = System.currentTimeMillis() - po.getCreateDate() > HtConstant.MINUTES_20;
                 logger().error("再次验证交易[{}]失败，获取不到receipt", htTxHash);
@@ -9,6 +9,7 @@ import network.nerve.converter.heterogeneouschain.ht.base.Base;
 import network.nerve.converter.heterogeneouschain.ht.constant.HtConstant;
 import network.nerve.converter.heterogeneouschain.ht.context.HtContext;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtERC20Helper;
+import network.nerve.converter.heterogeneouschain.ht.helper.HtTxReceiptHelper;
 import network.nerve.converter.heterogeneouschain.ht.helper.HtParseTxHelper;
 import network.nerve.converter.heterogeneouschain.ht.model.HtUnconfirmedTxPo;
 import network.nerve.converter.heterogeneouschain.ht.utils.HtUtil;
@@ -775,6 +776,9 @@ public class HtWalletApiTest extends Base {
         Transaction tx = htWalletApi.getTransactionByHash(directTxHash);
         HtParseTxHelper helper = new HtParseTxHelper();
         BeanUtilTest.setBean(helper, "htWalletApi", htWalletApi);
+        HtTxReceiptHelper receiptHelper = new HtTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "htWalletApi", htWalletApi);
+        BeanUtilTest.setBean(helper, "htTxReceiptHelper", receiptHelper);
         HtUnconfirmedTxPo po = new HtUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
         System.out.println(crossOut);
@@ -798,6 +802,9 @@ public class HtWalletApiTest extends Base {
         Transaction tx = htWalletApi.getTransactionByHash(directTxHash);
         HtParseTxHelper helper = new HtParseTxHelper();
         BeanUtilTest.setBean(helper, "htWalletApi", htWalletApi);
+        HtTxReceiptHelper receiptHelper = new HtTxReceiptHelper();
+        BeanUtilTest.setBean(receiptHelper, "htWalletApi", htWalletApi);
+        BeanUtilTest.setBean(helper, "htTxReceiptHelper", receiptHelper);
         BeanUtilTest.setBean(helper, "htERC20Helper", new MockHtERC20Helper());
         HtUnconfirmedTxPo po = new HtUnconfirmedTxPo();
         boolean crossOut = helper.validationEthDepositByCrossOut(tx, po);
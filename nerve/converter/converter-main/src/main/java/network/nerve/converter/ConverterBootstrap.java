@@ -52,6 +52,7 @@ import network.nerve.converter.config.ConverterContext;
 import network.nerve.converter.constant.ConverterConstant;
 import network.nerve.converter.constant.ConverterDBConstant;
 import network.nerve.converter.core.context.HeterogeneousChainManager;
+import network.nerve.converter.helper.SignatureVerifyHelper;
 import network.nerve.converter.manager.ChainManager;
 import network.nerve.converter.model.bo.Chain;
 import network.nerve.converter.rpc.call.BlockCall;
@@ -81,6 +82,8 @@ public class ConverterBootstrap extends RpcModule {
     private AddressPrefixDatas addressPrefixDatas;
     @Autowired
     private HeterogeneousChainManager heterogeneousChainManager;
+    @Autowired
+    private SignatureVerifyHelper signatureVerifyHelper;
 
     public static void main(String[] args) throws NoSuchFieldException, IllegalAccessException {
         initSys();
@@ -98,6 +101,8 @@ public class ConverterBootstrap extends RpcModule {
             chainManager.initChain();
             initHeterogeneousChainInfo();
             ModuleHelper.init(this);
+            //模块停止时关闭签名验证线程
+            Runtime.getRuntime().addShutdownHook(new Thread(signatureVerifyHelper::shutdown, "cv-shutdown"));
         } catch (Exception e) {
             Log.error("Converter init error!", e);
             throw new RuntimeException(e);
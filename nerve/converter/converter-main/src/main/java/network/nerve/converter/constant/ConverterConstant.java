@@ -45,6 +45,11 @@ public interface ConverterConstant {
     String CV_PENDING_THREAD = "cv_pending_thread";
     long CV_TASK_INITIALDELAY = 120;
     long CV_TASK_PERIOD = 3;
+    /**
+     * 待处理队列并发执行的线程数, 执行异常后重试的最大间隔(毫秒)
+     */
+    int CV_PENDING_TASK_THREADS = 4;
+    long CV_PENDING_TASK_MAX_BACKOFF = 60000L;
     String CV_PENDING_PROPOSAL_THREAD = "cv_pending_proposal_thread";
     /**
      * 收集交易签名队列处理器
@@ -52,6 +57,14 @@ public interface ConverterConstant {
     String CV_SIGN_THREAD = "cv_sign_thread";
     long CV_SIGN_TASK_INITIALDELAY = 120;
     long CV_SIGN_TASK_PERIOD = 3;
+    /**
+     * 签名验证线程, 验证线程数上限, 验证队列长度(队列满时由提交验证的线程自己验证), 签名验证结果缓存数量, 每次批量处理的签名消息数量
+     */
+    String CV_SIGN_VERIFY_THREAD = "cv_sign_verify_thread";
+    int CV_SIGN_VERIFY_THREAD_COUNT = 4;
+    int CV_SIGN_VERIFY_QUEUE_SIZE = 1024;
+    int CV_SIGN_VERIFY_CACHE_SIZE = 20000;
+    int CV_SIGN_BATCH_SIZE = 256;
 
     /**
      * 收集交易签名队列处理器
@@ -50,6 +50,7 @@ import network.nerve.converter.enums.ByzantineStateEnum;
 import network.nerve.converter.enums.HeterogeneousTxTypeEnum;
 import network.nerve.converter.enums.ProposalTypeEnum;
 import network.nerve.converter.helper.HeterogeneousAssetHelper;
+import network.nerve.converter.helper.SignatureVerifyHelper;
 import network.nerve.converter.message.*;
 import network.nerve.converter.model.HeterogeneousSign;
 import network.nerve.converter.model.bo.*;
@@ -99,6 +100,8 @@ public class MessageServiceImpl implements MessageService {
 
     @Autowired
     private HeterogeneousAssetHelper heterogeneousAssetHelper;
+    @Autowired
+    private SignatureVerifyHelper signatureVerifyHelper;
 
     @Autowired
     private ProposalStorageService proposalStorageService;
@@ -505,6 +508,10 @@ public class MessageServiceImpl implements MessageService {
             }
             // 存储更新后的 compSignPO
             componentSignStorageService.save(chain, compSignPO);
+            if (bztPass) {
+                // 唤醒等待拜占庭签名的后续处理任务
+                chain.getPendingTxScheduler().wake(txHash);
+            }
         }
     }
 
@@ -543,56 +550,64 @@ public class MessageServiceImpl implements MessageService {
      * @throws NulsException
      */
     private void withdrawMessageProcess(Chain chain, String nodeId, Transaction tx, ComponentSignMessage message) throws NulsException {
-        synchronized (objectWithdrawLock) {
-            NulsHash hash = tx.getHash();
-            String txHash = hash.toHex();
-            // 判断是否收到过该消息
-            ComponentSignByzantinePO compSignPO = componentSignStorageService.get(chain, hash.toHex());
-            if (isExistMessage(compSignPO, message)) {
-                return;
-            }
-            compSignPO = initCompSignPO(compSignPO, hash);
-            HeterogeneousSign sign = message.getListSign().get(0);
-            int signAddressChainId = sign.getHeterogeneousAddress().getChainId();
-            String signAddress = sign.getHeterogeneousAddress().getAddress();
-            LoggerUtil.LOG.debug("[异构链地址签名消息-处理withdraw], 收到节点[{}]  hash: {}, 签名地址:{}-{}",
-                    nodeId, txHash, signAddressChainId, signAddress);
-            // 验证
-            WithdrawalTxData txData = ConverterUtil.getInstance(tx.getTxData(), WithdrawalTxData.class);
-            CoinData coinData = ConverterUtil.getInstance(tx.getCoinData(), CoinData.class);
-            HeterogeneousAssetInfo assetInfo = null;
-            CoinTo withdrawCoinTo = null;
-            byte[] withdrawalBlackhole = AddressTool.getAddress(ConverterContext.WITHDRAWAL_BLACKHOLE_PUBKEY, chain.getChainId());
-            for (CoinTo coinTo : coinData.getTo()) {
-                if (Arrays.equals(withdrawalBlackhole, coinTo.getAddress())) {
-                    assetInfo = heterogeneousAssetHelper.getHeterogeneousAssetInfo(txData.getHeterogeneousChainId(), coinTo.getAssetsChainId(), coinTo.getAssetsId());
-                    if (assetInfo != null) {
-                        withdrawCoinTo = coinTo;
-                        break;
-                    }
+        NulsHash hash = tx.getHash();
+        String txHash = hash.toHex();
+        HeterogeneousSign sign = message.getListSign().get(0);
+        int signAddressChainId = sign.getHeterogeneousAddress().getChainId();
+        String signAddress = sign.getHeterogeneousAddress().getAddress();
+        LoggerUtil.LOG.debug("[异构链地址签名消息-处理withdraw], 收到节点[{}]  hash: {}, 签名地址:{}-{}",
+                nodeId, txHash, signAddressChainId, signAddress);
+        // 验证
+        WithdrawalTxData txData = ConverterUtil.getInstance(tx.getTxData(), WithdrawalTxData.class);
+        CoinData coinData = ConverterUtil.getInstance(tx.getCoinData(), CoinData.class);
+        HeterogeneousAssetInfo assetInfo = null;
+        CoinTo withdrawCoinTo = null;
+        byte[] withdrawalBlackhole = AddressTool.getAddress(ConverterContext.WITHDRAWAL_BLACKHOLE_PUBKEY, chain.getChainId());
+        for (CoinTo coinTo : coinData.getTo()) {
+            if (Arrays.equals(withdrawalBlackhole, coinTo.getAddress())) {
+                assetInfo = heterogeneousAssetHelper.getHeterogeneousAssetInfo(txData.getHeterogeneousChainId(), coinTo.getAssetsChainId(), coinTo.getAssetsId());
+                if (assetInfo != null) {
+                    withdrawCoinTo = coinTo;
+                    break;
                 }
             }
-            if (null == assetInfo) {
-                chain.getLogger().error("[异构链地址签名消息-withdraw] no withdrawCoinTo. hash:{}", tx.getHash().toHex());
-                throw new NulsException(ConverterErrorCode.DATA_ERROR);
-            }
-            int heterogeneousChainId = assetInfo.getChainId();
-            BigInteger amount = withdrawCoinTo.getAmount();
-            String toAddress = txData.getHeterogeneousAddress();
-            IHeterogeneousChainDocking docking = heterogeneousDockingManager.getHeterogeneousDocking(heterogeneousChainId);
-            // 根据交易验证签名正确性
-            Boolean msgPass = docking.verifySignWithdrawII(
+        }
+        if (null == assetInfo) {
+            chain.getLogger().error("[异构链地址签名消息-withdraw] no withdrawCoinTo. hash:{}", tx.getHash().toHex());
+            throw new NulsException(ConverterErrorCode.DATA_ERROR);
+        }
+        int heterogeneousChainId = assetInfo.getChainId();
+        BigInteger amount = withdrawCoinTo.getAmount();
+        String toAddress = txData.getHeterogeneousAddress();
+        IHeterogeneousChainDocking docking = heterogeneousDockingManager.getHeterogeneousDocking(heterogeneousChainId);
+        // 根据交易验证签名正确性, 在加锁之前验证, 不同提现交易的签名消息可以同时验证; 其他节点转发的同一签名只验证一次
+        int assetId = assetInfo.getAssetId();
+        boolean msgPass;
+        try {
+            msgPass = signatureVerifyHelper.verifyComponentSign(txHash, sign, s -> docking.verifySignWithdrawII(
                     signAddress,
                     txHash,
                     toAddress,
                     amount,
-                    assetInfo.getAssetId(),
-                    HexUtil.encode(sign.getSignature()));
-            if (!msgPass) {
-                LoggerUtil.LOG.error("[异构链地址签名消息 - 签名验证失败-withdraw], 收到节点[{}], txhash: {}, 异构链Id:{}, 签名地址:{}, 签名hex:{}",
-                        nodeId, txHash, heterogeneousChainId, signAddress, HexUtil.encode(sign.getSignature()));
+                    assetId,
+                    HexUtil.encode(s.getSignature())));
+        } catch (NulsException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new NulsException(ConverterErrorCode.DATA_ERROR, e);
+        }
+        if (!msgPass) {
+            LoggerUtil.LOG.error("[异构链地址签名消息 - 签名验证失败-withdraw], 收到节点[{}], txhash: {}, 异构链Id:{}, 签名地址:{}, 签名hex:{}",
+                    nodeId, txHash, heterogeneousChainId, signAddress, HexUtil.encode(sign.getSignature()));
+            return;
+        }
+        synchronized (objectWithdrawLock) {
+            // 判断是否收到过该消息
+            ComponentSignByzantinePO compSignPO = componentSignStorageService.get(chain, hash.toHex());
+            if (isExistMessage(compSignPO, message)) {
                 return;
             }
+            compSignPO = initCompSignPO(compSignPO, hash);
             // 验证通过, 转发消息
             NetWorkCall.broadcast(chain, message, nodeId, ConverterCmdConstant.COMPONENT_SIGN);
 
@@ -608,7 +623,8 @@ public class MessageServiceImpl implements MessageService {
                 broadcastCurrentSign(chain, hash, compSignPO, signStrData, new HeterogeneousAddress(heterogeneousChainId, currentHaddress), message.getVirtualBankTotal());
             }
             boolean byzantinePass = processComponentSignMsgByzantine(chain, message, compSignPO);
-            if (byzantinePass && !compSignPO.getByzantinePass()) {
+            boolean bztPass = byzantinePass && !compSignPO.getByzantinePass();
+            if (bztPass) {
                 // 创建异构链交易
                 StringBuilder signatureDataBuilder = new StringBuilder();
                 // 拼接所有签名
@@ -634,6 +650,10 @@ public class MessageServiceImpl implements MessageService {
             }
             // 存储更新后的 compSignPO
             componentSignStorageService.save(chain, compSignPO);
+            if (bztPass) {
+                // 唤醒等待拜占庭签名的后续处理任务
+                chain.getPendingTxScheduler().wake(txHash);
+            }
         }
     }
 
@@ -24,21 +24,20 @@
 
 package network.nerve.converter.core.processor;
 
-import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.base.signture.P2PHKSignature;
 import io.nuls.base.signture.TransactionSignature;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.crypto.ECKey;
-import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import network.nerve.converter.constant.ConverterCmdConstant;
 import network.nerve.converter.constant.ConverterErrorCode;
 import network.nerve.converter.enums.ByzantineStateEnum;
 import network.nerve.converter.message.BroadcastHashSignMessage;
+import network.nerve.converter.helper.SignatureVerifyHelper;
 import network.nerve.converter.model.bo.Chain;
+import network.nerve.converter.model.bo.UntreatedMessage;
 import network.nerve.converter.model.po.TransactionPO;
 import network.nerve.converter.rpc.call.NetWorkCall;
 import network.nerve.converter.rpc.call.TransactionCall;
@@ -47,10 +46,8 @@ import network.nerve.converter.utils.LoggerUtil;
 import network.nerve.converter.utils.VirtualBankUtil;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 
 /**
  * 消息交易处理类
@@ -63,6 +60,11 @@ public class TransactionMsgProcessor {
 
     @Autowired
     private static TxStorageService txStorageService;
+    @Autowired
+    private static SignatureVerifyHelper signatureVerifyHelper;
+
+    private static final Function<UntreatedMessage, P2PHKSignature> SIGN_FUNCTION =
+            msg -> ((BroadcastHashSignMessage) msg.getMessage()).getP2PHKSignature();
 
     /**
      * 对本链广播的交易进行处理
@@ -73,54 +75,100 @@ public class TransactionMsgProcessor {
      * @param hashHex 交易Hash字符串（用于日志打印）
      */
     public static void handleSignMessageByzantine(Chain chain, NulsHash hash, String nodeId, BroadcastHashSignMessage messageBody, String hashHex) {
+        List<UntreatedMessage> messageList = new ArrayList<>();
+        messageList.add(new UntreatedMessage(chain.getChainId(), nodeId, messageBody, hash));
+        handleSignMessageByzantine(chain, hash, messageList);
+    }
+
+    /**
+     * 批量处理本链广播的同一交易的签名消息
+     * 排除重复的签名(相同的签名公钥和签名数据)、交易中已有签名的地址和不是虚拟银行成员的签名后并发验证, 有效签名数达到拜占庭签名数后不再验证其余签名,
+     * 验证通过的签名按地址去重后一次加入交易并进行拜占庭验证, 再分别转发给其他节点;
+     * 伪造签名(冒用地址或复制其他成员的签名数据)不会排除真实签名, 去重后不足拜占庭签名数时继续验证未验证的签名
+     *
+     * @param chain       本链信息
+     * @param hash        交易缓存HASH
+     * @param messageList 收到的签名消息
+     */
+    public static void handleSignMessageByzantine(Chain chain, NulsHash hash, List<UntreatedMessage> messageList) {
+        String hashHex = hash.toHex();
         try {
             TransactionPO txPO = txStorageService.get(chain, hash);
             //如果交易已经拜占庭成功了, 就不用再广播该交易的签名
-            if (txPO.getStatus() != ByzantineStateEnum.UNTREATED.getStatus() || messageBody.getP2PHKSignature() == null) {
+            if (null == txPO || txPO.getStatus() != ByzantineStateEnum.UNTREATED.getStatus()) {
                 LoggerUtil.LOG.info("交易在本节点已经处理完成,Hash:{}\n\n", hashHex);
                 return;
             }
-            P2PHKSignature p2PHKSignature = messageBody.getP2PHKSignature();
             Transaction tx = txPO.getTx();
-            String signHex = HexUtil.encode(p2PHKSignature.getBytes());
             // 判断之前是否有收到过该签名(交易里面是否已含有该签名)
             TransactionSignature signature = new TransactionSignature();
+            // 交易中已有(已验证)签名的地址
+            Set<String> signAddressSet = new HashSet<>();
             if (tx.getTransactionSignature() != null) {
                 signature.parse(tx.getTransactionSignature(), 0);
                 for (P2PHKSignature sign : signature.getP2PHKSignatures()) {
-                    if (Arrays.equals(messageBody.getP2PHKSignature().getBytes(), sign.serialize())) {
-                        LoggerUtil.LOG.debug("本节点已经收到过该交易的该签名,Hash:{}, 签名地址:{}\n\n", hashHex,
-                                AddressTool.getStringAddressByBytes(AddressTool.getAddress(p2PHKSignature.getPublicKey(), chain.getChainId())));
-                        return;
-                    }
+                    signAddressSet.add(SignatureVerifyHelper.getSignAddress(sign, chain.getChainId()));
                 }
             } else {
                 List<P2PHKSignature> p2PHKSignatureList = new ArrayList<>();
                 signature.setP2PHKSignatures(p2PHKSignatureList);
             }
-
             // 判断签名发送者是否有资格签名(是否当前虚拟银行成员)
-            String signAddress = AddressTool.getStringAddressByBytes(AddressTool.getAddress(p2PHKSignature.getPublicKey(), chain.getChainId()));
-            if (!chain.isVirtualBankBySignAddr(signAddress)) {
-                //签名地址不是虚拟银行节点
-                chain.getLogger().error(ConverterErrorCode.SIGNER_NOT_VIRTUAL_BANK_AGENT.getMsg());
+            List<UntreatedMessage> verifyList = SignatureVerifyHelper.filterTxSigns(signature.getP2PHKSignatures(), signAddressSet,
+                    messageList, SIGN_FUNCTION, chain.getChainId(), signAddress -> {
+                        if (!chain.isVirtualBankBySignAddr(signAddress)) {
+                            //签名地址不是虚拟银行节点
+                            chain.getLogger().error(ConverterErrorCode.SIGNER_NOT_VIRTUAL_BANK_AGENT.getMsg());
+                            return false;
+                        }
+                        return true;
+                    });
+            if (verifyList.isEmpty()) {
                 return;
             }
-            //验证签名本身正确性
-            if (!ECKey.verify(tx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
-                LoggerUtil.LOG.error("[非法签名] 签名验证不通过!. hash:{}, 签名地址:{}, 签名hex:{}\n\n",
-                        tx.getHash().toHex(),
-                        AddressTool.getStringAddressByBytes(AddressTool.getAddress(p2PHKSignature.getPublicKey(), chain.getChainId())),
-                        signHex);
+            //验证签名本身正确性, 达到拜占庭签名数后其余签名不再验证
+            int required = VirtualBankUtil.getByzantineCount(chain)
+                    - VirtualBankUtil.getSignCountWithoutMisMatchSigns(chain, signature, chain.getMapVirtualBank().keySet());
+            List<UntreatedMessage> passList = new ArrayList<>();
+            List<UntreatedMessage> remaining = signatureVerifyHelper.verifyTxSigns(tx.getHash().getBytes(), verifyList, SIGN_FUNCTION,
+                    chain.getChainId(), signAddressSet, required, passList);
+            if (passList.isEmpty()) {
                 return;
             }
-            // 把当前签名加入签名列表
-            signature.getP2PHKSignatures().add(p2PHKSignature);
-            signByzantine(chain, txPO, messageBody, signature, nodeId);
+            // 把验证通过的签名加入签名列表
+            for (UntreatedMessage untreatedMessage : passList) {
+                signature.getP2PHKSignatures().add(((BroadcastHashSignMessage) untreatedMessage.getMessage()).getP2PHKSignature());
+            }
+            saveSignByzantine(chain, txPO, signature);
+            if (!remaining.isEmpty() && txPO.getStatus() == ByzantineStateEnum.UNTREATED.getStatus()) {
+                // 拜占庭仍未通过(例如统计期间虚拟银行成员发生变化)时, 验证其余签名并加入交易
+                List<UntreatedMessage> extraList = new ArrayList<>();
+                signatureVerifyHelper.verifyTxSigns(tx.getHash().getBytes(), remaining, SIGN_FUNCTION,
+                        chain.getChainId(), signAddressSet, 0, extraList);
+                if (!extraList.isEmpty()) {
+                    for (UntreatedMessage untreatedMessage : extraList) {
+                        signature.getP2PHKSignatures().add(((BroadcastHashSignMessage) untreatedMessage.getMessage()).getP2PHKSignature());
+                    }
+                    saveSignByzantine(chain, txPO, signature);
+                    passList.addAll(extraList);
+                }
+            }
+            if (passList.size() < verifyList.size()) {
+                // 其余签名未通过验证、与已通过的签名地址重复, 或拜占庭已通过无需再验证
+                LoggerUtil.LOG.info("[签名验证] hash:{}, 收到签名数:{}, 验证通过:{}, 未通过、重复或无需验证:{}",
+                        hashHex, verifyList.size(), passList.size(), verifyList.size() - passList.size());
+            }
+            for (UntreatedMessage untreatedMessage : passList) {
+                // 广播这个收到的签名
+                NetWorkCall.broadcast(chain, untreatedMessage.getMessage(), untreatedMessage.getNodeId(), ConverterCmdConstant.NEW_HASH_SIGN_MESSAGE);
+            }
+            LoggerUtil.LOG.info("广播签名消息给其他节点, Hash:{}, 签名数:{}", hashHex, passList.size());
         } catch (NulsException e) {
             chain.getLogger().error(e);
         } catch (IOException io) {
             chain.getLogger().error(io);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -136,7 +184,16 @@ public class TransactionMsgProcessor {
      * @throws IOException
      */
     public static void signByzantine(Chain chain, TransactionPO txPO, BroadcastHashSignMessage messageBody, TransactionSignature signature, String excludeNodes) throws NulsException, IOException {
+        saveSignByzantine(chain, txPO, signature);
+        // 广播这个收到的签名
+        NetWorkCall.broadcast(chain, messageBody, excludeNodes, ConverterCmdConstant.NEW_HASH_SIGN_MESSAGE);
+        LoggerUtil.LOG.info("广播签名消息给其他节点, Hash:{}, ", txPO.getTx().getHash().toHex());
+    }
 
+    /**
+     * 交易签名拜占庭验证, 通过后发送交易, 并保存交易签名
+     */
+    private static void saveSignByzantine(Chain chain, TransactionPO txPO, TransactionSignature signature) throws NulsException, IOException {
         Transaction tx = txPO.getTx();
         if (signByzantineInChain(chain, tx, signature)) {
             // 表示交易已经拜占庭验证成功
@@ -153,9 +210,6 @@ public class TransactionMsgProcessor {
             }
         }
         txStorageService.save(chain, txPO);
-        // 广播这个收到的签名
-        NetWorkCall.broadcast(chain, messageBody, excludeNodes, ConverterCmdConstant.NEW_HASH_SIGN_MESSAGE);
-        LoggerUtil.LOG.info("广播签名消息给其他节点, Hash:{}, ", tx.getHash().toHex());
     }
 
     /**
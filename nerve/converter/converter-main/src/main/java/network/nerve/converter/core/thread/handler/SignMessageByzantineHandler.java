@@ -24,12 +24,18 @@
 
 package network.nerve.converter.core.thread.handler;
 
+import io.nuls.base.data.NulsHash;
+import network.nerve.converter.constant.ConverterConstant;
 import network.nerve.converter.core.processor.TransactionMsgProcessor;
-import network.nerve.converter.message.BroadcastHashSignMessage;
 import network.nerve.converter.model.bo.Chain;
 import network.nerve.converter.model.bo.UntreatedMessage;
 import network.nerve.converter.utils.LoggerUtil;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author: Loki
  * @date: 2020/4/14
@@ -46,15 +52,21 @@ public class SignMessageByzantineHandler implements Runnable {
     public void run() {
         while (chain.getSignMessageByzantineQueue() != null) {
             try {
-                UntreatedMessage untreatedMessage = chain.getSignMessageByzantineQueue().take();
-                String nativeHex = untreatedMessage.getCacheHash().toHex();
-                LoggerUtil.LOG.debug("[处理线程]开始对节点[{}]广播的交易签名消息拜占庭验证, Hash：{}", untreatedMessage.getNodeId(), nativeHex);
-                TransactionMsgProcessor.handleSignMessageByzantine(
-                        chain,
-                        untreatedMessage.getCacheHash(),
-                        untreatedMessage.getNodeId(),
-                        (BroadcastHashSignMessage)untreatedMessage.getMessage(),
-                        nativeHex);
+                // 取出已收到的全部签名消息(最多CV_SIGN_BATCH_SIZE条), 按交易分组批量验证
+                List<UntreatedMessage> messageList = new ArrayList<>();
+                messageList.add(chain.getSignMessageByzantineQueue().take());
+                chain.getSignMessageByzantineQueue().drainTo(messageList, ConverterConstant.CV_SIGN_BATCH_SIZE - 1);
+                Map<NulsHash, List<UntreatedMessage>> hashMessageMap = new LinkedHashMap<>();
+                for (UntreatedMessage untreatedMessage : messageList) {
+                    hashMessageMap.computeIfAbsent(untreatedMessage.getCacheHash(), k -> new ArrayList<>()).add(untreatedMessage);
+                }
+                for (Map.Entry<NulsHash, List<UntreatedMessage>> entry : hashMessageMap.entrySet()) {
+                    LoggerUtil.LOG.debug("[处理线程]开始对交易签名消息拜占庭验证, Hash：{}, 消息数:{}", entry.getKey().toHex(), entry.getValue().size());
+                    TransactionMsgProcessor.handleSignMessageByzantine(chain, entry.getKey(), entry.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
                 chain.getLogger().error(e);
             }
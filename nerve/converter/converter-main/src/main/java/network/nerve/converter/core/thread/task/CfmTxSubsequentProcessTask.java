@@ -45,6 +45,9 @@ import network.nerve.converter.core.business.HeterogeneousService;
 import network.nerve.converter.core.business.VirtualBankService;
 import network.nerve.converter.core.heterogeneous.docking.interfaces.IHeterogeneousChainDocking;
 import network.nerve.converter.core.heterogeneous.docking.management.HeterogeneousDockingManager;
+import network.nerve.converter.core.scheduler.TaskResult;
+import network.nerve.converter.core.scheduler.interfaces.ITaskHandler;
+import network.nerve.converter.core.scheduler.interfaces.ITaskStore;
 import network.nerve.converter.enums.ProposalTypeEnum;
 import network.nerve.converter.helper.HeterogeneousAssetHelper;
 import network.nerve.converter.message.ComponentSignMessage;
@@ -60,20 +63,27 @@ import network.nerve.converter.utils.ConverterUtil;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 import static network.nerve.converter.config.ConverterContext.FEE_ADDITIONAL_HEIGHT;
 import static network.nerve.converter.constant.ConverterConstant.HETEROGENEOUS_VERSION_1;
 import static network.nerve.converter.constant.ConverterConstant.HETEROGENEOUS_VERSION_2;
 
 /**
- * 交易确认后续处理定时任务
+ * 交易确认后续处理任务
  * 处理交易后续的异构链组件的调用,关联生成新的交易等
+ * 由DeadlineTaskScheduler调度: 虚拟银行变更/重置按顺序逐个处理, 提现按异构链分组, 其他交易为一组,
+ * 不同分组并发执行, 未就绪的交易等待新区块、拜占庭签名通过或重试时间, 不阻塞其他交易;
+ * 虚拟银行变更与提现调用异构链通过Chain.heterogeneousChangeBankLock互斥, 保证关门后不再发出新的提现
  *
  * @author: Loki
  * @date: 2020-03-10
  */
-public class CfmTxSubsequentProcessTask implements Runnable {
+public class CfmTxSubsequentProcessTask implements ITaskHandler<TxSubsequentProcessPO>, ITaskStore<TxSubsequentProcessPO> {
+    private static final String GROUP_BANK = "bank";
+    private static final String GROUP_WITHDRAWAL = "withdrawal-";
+    private static final String GROUP_OTHER = "other";
+
     private Chain chain;
 
     public CfmTxSubsequentProcessTask(Chain chain) {
@@ -94,156 +104,167 @@ public class CfmTxSubsequentProcessTask implements Runnable {
     private ComponentSignStorageService componentSignStorageService = SpringLiteContext.getBean(ComponentSignStorageService.class);
 
     @Override
-    public void run() {
-        try {
-            LinkedBlockingDeque<TxSubsequentProcessPO> pendingTxQueue = chain.getPendingTxQueue();
-            out:
-            while (!pendingTxQueue.isEmpty()) {
-                // 只取出,不移除头部元素
-                TxSubsequentProcessPO pendingPO = pendingTxQueue.peekFirst();
-                Transaction tx = pendingPO.getTx();
-                if (!pendingPO.getRetry() && null != asyncProcessedTxStorageService.getComponentCall(chain, tx.getHash().toHex())) {
-                    // 判断已执行过, 从队列中移除, 并从持久库中移除
-                    chain.getLogger().info("[异构链待处理队列] 已执行过,移除交易, hash:{}", tx.getHash().toHex());
-                    // 并且从持久化库中移除
-                    txSubsequentProcessStorageService.delete(chain, tx.getHash().toHex());
-                    // 执行成功移除队列头部元素
-                    pendingTxQueue.remove();
-                    continue;
-                }
-                // 判断是否已确认
-                if (null == TransactionCall.getConfirmedTx(chain, tx.getHash())) {
-                    if (pendingPO.getIsConfirmedVerifyCount() > ConverterConstant.CONFIRMED_VERIFY_COUNT) {
-                        chain.getLogger().error("[异构链待处理队列] 交易未确认(移除处理), hash:{}", tx.getHash().toHex());
-                        // 并且从持久化库中移除
-                        txSubsequentProcessStorageService.delete(chain, tx.getHash().toHex());
-                        // 移除
-                        pendingTxQueue.remove();
-                        continue;
-                    }
-                    pendingPO.setIsConfirmedVerifyCount(pendingPO.getIsConfirmedVerifyCount() + 1);
-                    // 终止本次执行，等待下一次执行再次检查交易是否确认
-                    break;
-                }
-                switch (tx.getType()) {
-                    case TxType.CHANGE_VIRTUAL_BANK:
-                        // 处理银行变更
-                        if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_1) {
-                            if (chain.getHeterogeneousChangeBankExecuting().get()) {
-                                // 有虚拟银行变更异构链交易正在执行中, 暂停新的异构处理
-                                chain.getLogger().info("[Task-CHANGE_VIRTUAL_BANK] pause new change 正在执行虚拟银行变更异构链交易, 暂停新的银行变更异构处理!");
-                                break out;
-                            }
-                            changeVirtualBankProcessor();
-                            // 后续已批量处理完成
-                            continue;
-                        } else if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_2) {
-                            if (!changeVirtualBankByzantineProcessor(pendingPO)) {
-                                break out;
-                            }
-                        }
-                        break;
-                    case TxType.WITHDRAWAL:
-                        // 处理提现
-                        if (chain.getHeterogeneousChangeBankExecuting().get()) {
-                            // 有虚拟银行变更异构链交易正在执行中, 暂停新的异构处理
-                            chain.getLogger().info("[Task-change_virtual_bank] pause withdrawal 正在执行虚拟银行变更异构链交易, 暂停新的提现异构处理!");
-                            break out;
-                        }
-                        if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_1) {
-                            withdrawalProcessor(pendingPO);
-                        } else if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_2) {
-                            if (pendingPO.isWithdrawExceedErrorTime(10)) {
-                                chain.getLogger().warn("[withdraw] 提现手续费不足，重试次数超过限制，暂停处理当前提前任务, txHash: {}", tx.getHash().toHex());
-                                throw new NulsException(ConverterErrorCode.INSUFFICIENT_FEE_OF_WITHDRAW);
-                            }
-                            if (!withdrawalByzantineProcessor(pendingPO)) {
-                                TxSubsequentProcessPO po = chain.getPendingTxQueue().poll();
-                                chain.getPendingTxQueue().addLast(po);
-                                continue;
-                            }
-                        }
-                        break;
-                    case TxType.CONFIRM_WITHDRAWAL:
-                        // 确认提现交易 处理补贴手续费交易
-                        confirmWithdrawalDistributionFee(pendingPO);
-                        break;
-                    case TxType.INITIALIZE_HETEROGENEOUS:
-                        // 初始化加入新的异构链
-                        initializeHeterogeneousProcessor(pendingPO);
-                        break;
-                    case TxType.HETEROGENEOUS_CONTRACT_ASSET_REG_PENDING:
-                        // 处理异构链合约资产注册
-                        heterogeneousContractAssetRegCompleteProcessor(pendingPO);
-                        break;
-                    case TxType.CONFIRM_PROPOSAL:
-                        // 确认提案补贴手续费
-                        confirmProposalDistributionFee(pendingPO);
-                        break;
-                    case TxType.RESET_HETEROGENEOUS_VIRTUAL_BANK:
-                        resetHeterogeneousVirtualBank(pendingPO);
-                        // 后续已批量处理完成
-                        break;
-                    default:
-                }
-                if (chain.getCurrentIsDirector().get()) {
-                    // 存储已执行成功的交易hash, 执行过的不再执行 (当前节点处于同步区块模式时,也要存该hash, 表示已执行过)
-                    ComponentCalledPO callPO = new ComponentCalledPO(
-                            tx.getHash().toHex(),
-                            pendingPO.getBlockHeader().getHeight(),
-                            false);
-                    asyncProcessedTxStorageService.saveComponentCall(chain, callPO, pendingPO.getCurrentQuit());
+    public String getGroup(TxSubsequentProcessPO pendingPO) {
+        Transaction tx = pendingPO.getTx();
+        switch (tx.getType()) {
+            case TxType.CHANGE_VIRTUAL_BANK:
+            case TxType.RESET_HETEROGENEOUS_VIRTUAL_BANK:
+                return GROUP_BANK;
+            case TxType.WITHDRAWAL:
+                try {
+                    WithdrawalTxData txData = ConverterUtil.getInstance(tx.getTxData(), WithdrawalTxData.class);
+                    return GROUP_WITHDRAWAL + txData.getHeterogeneousChainId();
+                } catch (NulsException e) {
+                    chain.getLogger().error(e);
+                    return GROUP_WITHDRAWAL;
                 }
+            default:
+                return GROUP_OTHER;
+        }
+    }
 
-                chain.getLogger().info("[异构链待处理队列] 执行成功移除交易, hash:{}", tx.getHash().toHex());
-                // 并且从持久化库中移除
-                txSubsequentProcessStorageService.delete(chain, tx.getHash().toHex());
-                // 执行成功移除队列头部元素
-                pendingTxQueue.remove();
+    @Override
+    public boolean isOrdered(String group) {
+        return GROUP_BANK.equals(group);
+    }
+
+    @Override
+    public TaskResult handle(String txHash, TxSubsequentProcessPO pendingPO) throws Exception {
+        try {
+            return process(pendingPO);
+        } catch (NulsException e) {
+            if (ConverterErrorCode.INSUFFICIENT_FEE_OF_WITHDRAW.equals(e.getErrorCode())) {
+                return TaskResult.retryAfter(TimeUnit.SECONDS.toMillis(ConverterConstant.CV_TASK_PERIOD));
             }
+            chain.getLogger().error(e);
+            throw e;
         } catch (Exception e) {
+            chain.getLogger().error(e);
+            throw e;
+        }
+    }
 
-            /**
-             * 如果队首交易可以变换位置, 则放入队尾,
-             * 否则按顺序遍历,扫描一个可以变位置的元素, 放入队首
-             */
-            try {
-                TxSubsequentProcessPO pendingPO = chain.getPendingTxQueue().peekFirst();
-                if (null == pendingPO) {
-                    return;
-                }
-                if (TxType.CHANGE_VIRTUAL_BANK != pendingPO.getTx().getType()) {
-                    TxSubsequentProcessPO po = chain.getPendingTxQueue().poll();
-                    chain.getPendingTxQueue().addLast(po);
-                } else {
-                    /**
-                     * 当前处理的是虚拟银行变更(已抛异常), 就从后面去一个不是虚拟银行变更的交易放到队首
-                     */
-                    Iterator<TxSubsequentProcessPO> it = chain.getPendingTxQueue().iterator();
-                    TxSubsequentProcessPO toFirstPO = null;
-                    while (it.hasNext()) {
-                        TxSubsequentProcessPO po = it.next();
-                        if (TxType.CHANGE_VIRTUAL_BANK != po.getTx().getType()) {
-                            toFirstPO = po;
-                            it.remove();
-                            break;
+    @Override
+    public void save(String txHash, TxSubsequentProcessPO pendingPO, long nextRunTime) {
+        pendingPO.setNextProcessTime(nextRunTime);
+        txSubsequentProcessStorageService.save(chain, pendingPO);
+    }
+
+    @Override
+    public void delete(String txHash) {
+        txSubsequentProcessStorageService.delete(chain, txHash);
+    }
+
+    private TaskResult process(TxSubsequentProcessPO pendingPO) throws Exception {
+        Transaction tx = pendingPO.getTx();
+        if (!pendingPO.getRetry() && null != asyncProcessedTxStorageService.getComponentCall(chain, tx.getHash().toHex())) {
+            // 判断已执行过, 移除任务(同时从持久库中移除)
+            chain.getLogger().info("[异构链待处理队列] 已执行过,移除交易, hash:{}", tx.getHash().toHex());
+            return TaskResult.done();
+        }
+        // 判断是否已确认
+        if (null == TransactionCall.getConfirmedTx(chain, tx.getHash())) {
+            if (pendingPO.getIsConfirmedVerifyCount() > ConverterConstant.CONFIRMED_VERIFY_COUNT) {
+                chain.getLogger().error("[异构链待处理队列] 交易未确认(移除处理), hash:{}", tx.getHash().toHex());
+                return TaskResult.done();
+            }
+            pendingPO.setIsConfirmedVerifyCount(pendingPO.getIsConfirmedVerifyCount() + 1);
+            // 等待下一个区块再次检查交易是否确认
+            return waitNextBlock();
+        }
+        switch (tx.getType()) {
+            case TxType.CHANGE_VIRTUAL_BANK:
+                // 处理银行变更, 检查关门状态、调用异构链和关门期间不会有提现调用异构链
+                chain.getHeterogeneousChangeBankLock().writeLock().lock();
+                try {
+                    if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_1) {
+                        if (chain.getHeterogeneousChangeBankExecuting().get()) {
+                            // 有虚拟银行变更异构链交易正在执行中, 暂停新的异构处理
+                            chain.getLogger().info("[Task-CHANGE_VIRTUAL_BANK] pause new change 正在执行虚拟银行变更异构链交易, 暂停新的银行变更异构处理!");
+                            return waitNextBlock();
+                        }
+                        changeVirtualBankProcessor();
+                        // 后续已批量处理完成
+                        return TaskResult.done();
+                    } else if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_2) {
+                        if (!changeVirtualBankByzantineProcessor(pendingPO)) {
+                            // 等待拜占庭签名通过(收到签名消息时唤醒)
+                            return retryLater();
                         }
                     }
-                    if (null != toFirstPO) {
-                        chain.getPendingTxQueue().addFirst(toFirstPO);
-                    }
+                } finally {
+                    chain.getHeterogeneousChangeBankLock().writeLock().unlock();
                 }
-            } catch (Exception ex) {
-                chain.getLogger().error(ex);
-            }
-
-            if (e instanceof NulsException) {
-                if (ConverterErrorCode.INSUFFICIENT_FEE_OF_WITHDRAW.equals(((NulsException) e).getErrorCode())) {
-                    return;
+                break;
+            case TxType.WITHDRAWAL:
+                // 处理提现, 检查关门状态到调用异构链期间不会开始执行虚拟银行变更
+                chain.getHeterogeneousChangeBankLock().readLock().lock();
+                try {
+                    if (chain.getHeterogeneousChangeBankExecuting().get()) {
+                        // 有虚拟银行变更异构链交易正在执行中, 暂停新的异构处理
+                        chain.getLogger().info("[Task-change_virtual_bank] pause withdrawal 正在执行虚拟银行变更异构链交易, 暂停新的提现异构处理!");
+                        return waitNextBlock();
+                    }
+                    if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_1) {
+                        withdrawalProcessor(pendingPO);
+                    } else if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_2) {
+                        if (pendingPO.isWithdrawExceedErrorTime(10)) {
+                            chain.getLogger().warn("[withdraw] 提现手续费不足，重试次数超过限制，暂停处理当前提前任务, txHash: {}", tx.getHash().toHex());
+                            throw new NulsException(ConverterErrorCode.INSUFFICIENT_FEE_OF_WITHDRAW);
+                        }
+                        if (!withdrawalByzantineProcessor(pendingPO)) {
+                            return retryLater();
+                        }
+                    }
+                } finally {
+                    chain.getHeterogeneousChangeBankLock().readLock().unlock();
                 }
-            }
-            chain.getLogger().error(e);
+                break;
+            case TxType.CONFIRM_WITHDRAWAL:
+                // 确认提现交易 处理补贴手续费交易
+                confirmWithdrawalDistributionFee(pendingPO);
+                break;
+            case TxType.INITIALIZE_HETEROGENEOUS:
+                // 初始化加入新的异构链
+                initializeHeterogeneousProcessor(pendingPO);
+                break;
+            case TxType.HETEROGENEOUS_CONTRACT_ASSET_REG_PENDING:
+                // 处理异构链合约资产注册
+                heterogeneousContractAssetRegCompleteProcessor(pendingPO);
+                break;
+            case TxType.CONFIRM_PROPOSAL:
+                // 确认提案补贴手续费
+                confirmProposalDistributionFee(pendingPO);
+                break;
+            case TxType.RESET_HETEROGENEOUS_VIRTUAL_BANK:
+                resetHeterogeneousVirtualBank(pendingPO);
+                // 后续已批量处理完成
+                break;
+            default:
         }
+        if (chain.getCurrentIsDirector().get()) {
+            // 存储已执行成功的交易hash, 执行过的不再执行 (当前节点处于同步区块模式时,也要存该hash, 表示已执行过)
+            ComponentCalledPO callPO = new ComponentCalledPO(
+                    tx.getHash().toHex(),
+                    pendingPO.getBlockHeader().getHeight(),
+                    false);
+            asyncProcessedTxStorageService.saveComponentCall(chain, callPO, pendingPO.getCurrentQuit());
+        }
+        chain.getLogger().info("[异构链待处理队列] 执行成功移除交易, hash:{}", tx.getHash().toHex());
+        // 执行成功移除任务(同时从持久化库中移除)
+        return TaskResult.done();
+    }
+
+    /**
+     * 等待下一个区块, 最晚一个处理周期后再次处理
+     */
+    private TaskResult waitNextBlock() {
+        return TaskResult.waitHeight(chain.getLatestBasicBlock().getHeight() + 1,
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ConverterConstant.CV_TASK_PERIOD));
+    }
+
+    private TaskResult retryLater() {
+        return TaskResult.retryAfter(TimeUnit.SECONDS.toMillis(ConverterConstant.CV_TASK_PERIOD));
     }
 
     /**
@@ -252,7 +273,7 @@ public class CfmTxSubsequentProcessTask implements Runnable {
      * 判断并发送异构链交易
      *
      * @param pendingPO
-     * @return true:需要删除队列的元素(已调用异构链, 或无需, 无权限执行等) false: 放队尾
+     * @return true:需要删除队列的元素(已调用异构链, 或无需, 无权限执行等) false: 等待拜占庭签名通过后再处理
      * @throws Exception
      */
     private boolean changeVirtualBankByzantineProcessor(TxSubsequentProcessPO pendingPO) throws Exception {
@@ -382,23 +403,6 @@ public class CfmTxSubsequentProcessTask implements Runnable {
         }
         // 存储更新后的 compSignPO
         componentSignStorageService.save(chain, compSignPO);
-
-        // 2020/12/24 虚拟银行变更等待拜占庭过程中,把队列后面交易提到前面来执行,防止无限循环等待
-        if (!rs) {
-            Iterator<TxSubsequentProcessPO> it = chain.getPendingTxQueue().iterator();
-            TxSubsequentProcessPO toFirstPO = null;
-            while (it.hasNext()) {
-                TxSubsequentProcessPO po = it.next();
-                if (TxType.CHANGE_VIRTUAL_BANK != po.getTx().getType()) {
-                    toFirstPO = po;
-                    it.remove();
-                    break;
-                }
-            }
-            if (null != toFirstPO) {
-                chain.getPendingTxQueue().addFirst(toFirstPO);
-            }
-        }
         return rs;
     }
 
@@ -446,7 +450,7 @@ public class CfmTxSubsequentProcessTask implements Runnable {
      * 判断并发送异构链交易
      *
      * @param pendingPO
-     * @return true:需要删除队列的元素(已调用异构链, 或无需, 无权限执行等) false: 放队尾
+     * @return true:需要删除队列的元素(已调用异构链, 或无需, 无权限执行等) false: 等待拜占庭签名通过后再处理
      * @throws NulsException
      */
     private boolean withdrawalByzantineProcessor(TxSubsequentProcessPO pendingPO) throws NulsException {
@@ -623,10 +627,10 @@ public class CfmTxSubsequentProcessTask implements Runnable {
             }
 
         }
-        // 从队列移除元素
-        chain.getPendingTxQueue().removeAll(mergeList);
         for (TxSubsequentProcessPO po : mergeList) {
             String hash = po.getTx().getHash().toHex();
+            // 移除已合并处理的任务
+            chain.getPendingTxScheduler().remove(hash);
             if (chain.getCurrentIsDirector().get()) {
                 // 存储已执行成功的交易hash, 执行过的不再执行.
                 ComponentCalledPO callPO = new ComponentCalledPO(
@@ -650,18 +654,9 @@ public class CfmTxSubsequentProcessTask implements Runnable {
      * @throws NulsException
      */
     private List<TxSubsequentProcessPO> getChangeVirtualBankTxs(Integer count) {
-        List<TxSubsequentProcessPO> mergeList = new ArrayList<>();
-        Iterator<TxSubsequentProcessPO> it = chain.getPendingTxQueue().iterator();
-        int current = 0;
-        while (it.hasNext()) {
-            TxSubsequentProcessPO po = it.next();
-            Transaction tx = po.getTx();
-            if (tx.getType() == TxType.CHANGE_VIRTUAL_BANK) {
-                mergeList.add(po);
-                if (null != count && count == ++current) {
-                    break;
-                }
-            }
+        List<TxSubsequentProcessPO> mergeList = chain.getPendingTxScheduler().getTasks(po -> po.getTx().getType() == TxType.CHANGE_VIRTUAL_BANK);
+        if (null != count && mergeList.size() > count) {
+            return new ArrayList<>(mergeList.subList(0, count));
         }
         return mergeList;
     }
@@ -964,10 +959,10 @@ public class CfmTxSubsequentProcessTask implements Runnable {
          * 2.发起重置异构链交易 (只有种子节点执行)
          */
         List<TxSubsequentProcessPO> changeVirtualBankTxs = getChangeVirtualBankTxs(null);
-        // 1.移除队列中已被处理的元素
-        chain.getPendingTxQueue().removeAll(changeVirtualBankTxs);
+        // 1.移除已被处理的任务
         for (TxSubsequentProcessPO po : changeVirtualBankTxs) {
             String hash = po.getTx().getHash().toHex();
+            chain.getPendingTxScheduler().remove(hash);
             // 存储已执行成功的交易hash, 执行过的不再执行 (当前节点处于同步区块模式时,也要存该hash, 表示已执行过)
             ComponentCalledPO callPO = new ComponentCalledPO(
                     hash,
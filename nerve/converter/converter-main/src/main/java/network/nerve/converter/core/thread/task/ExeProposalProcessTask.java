@@ -316,7 +316,7 @@ public class ExeProposalProcessTask implements Runnable {
         BlockHeader header = new BlockHeader();
         header.setHeight(chain.getLatestBasicBlock().getHeight());
         txSubsequentPO.setBlockHeader(header);
-        chain.getPendingTxQueue().offer(txSubsequentPO);
+        chain.offerPendingTx(txSubsequentPO);
         txSubsequentProcessStorageService.save(chain, txSubsequentPO);
         chain.getLogger().info("[提现提案-放入执行异构链提现task中] hash:{}", txHash);
         // 存储更新后的 compSignPO
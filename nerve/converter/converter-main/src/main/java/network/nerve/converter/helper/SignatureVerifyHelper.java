@@ -0,0 +1,166 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package network.nerve.converter.helper;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.HexUtil;
+import network.nerve.converter.constant.ConverterConstant;
+import network.nerve.converter.core.sign.SignatureBatchVerifier;
+import network.nerve.converter.core.sign.interfaces.ISignatureCheck;
+import network.nerve.converter.model.HeterogeneousSign;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 签名消息的验证, 本链交易签名和异构链组件签名共用验证线程和验证结果缓存
+ */
+@Component
+public class SignatureVerifyHelper {
+
+    private final SignatureBatchVerifier verifier = new SignatureBatchVerifier(ConverterConstant.CV_SIGN_VERIFY_THREAD,
+            Math.min(ConverterConstant.CV_SIGN_VERIFY_THREAD_COUNT, Runtime.getRuntime().availableProcessors()),
+            ConverterConstant.CV_SIGN_VERIFY_QUEUE_SIZE, ConverterConstant.CV_SIGN_VERIFY_CACHE_SIZE);
+
+    /**
+     * 并发验证同一交易的本链签名, 有效签名数达到required后不再验证其余签名
+     *
+     * @param txHash   交易hash
+     * @param list     签名消息
+     * @param function 从签名消息中取出签名
+     * @return 验证通过的签名消息
+     */
+    public <T> List<T> verifyTxSigns(byte[] txHash, List<T> list, Function<T, P2PHKSignature> function, int required) throws InterruptedException {
+        return verifier.verifyBatch(list,
+                item -> {
+                    P2PHKSignature sign = function.apply(item);
+                    return SignatureBatchVerifier.cacheKey(txHash, sign.getPublicKey(), sign.getSignData().getSignBytes());
+                },
+                item -> {
+                    P2PHKSignature sign = function.apply(item);
+                    return ECKey.verify(txHash, sign.getSignData().getSignBytes(), sign.getPublicKey());
+                },
+                required);
+    }
+
+    /**
+     * 排除交易中已有签名的地址、重复的签名和不是虚拟银行成员的签名, 返回需要验证的签名消息
+     * 重复签名按(签名公钥, 签名数据)判断: 伪造消息可以复制其他成员的签名数据并换上自己的公钥,
+     * 只按签名数据去重时, 先到的伪造消息会使真实签名被当作重复签名排除
+     *
+     * @param existSigns     交易中已有(已验证)的签名
+     * @param signAddressSet 交易中已有签名的地址
+     * @param isSigner       签名地址是否有资格签名
+     */
+    public static <T> List<T> filterTxSigns(List<P2PHKSignature> existSigns, Set<String> signAddressSet, List<T> list,
+                                            Function<T, P2PHKSignature> function, int chainId, Predicate<String> isSigner) {
+        Set<String> signKeySet = new HashSet<>();
+        for (P2PHKSignature sign : existSigns) {
+            signKeySet.add(signKey(sign));
+        }
+        List<T> verifyList = new ArrayList<>();
+        for (T item : list) {
+            P2PHKSignature sign = function.apply(item);
+            if (null == sign || null == sign.getPublicKey() || null == sign.getSignData()) {
+                continue;
+            }
+            String signAddress = getSignAddress(sign, chainId);
+            if (signAddressSet.contains(signAddress) || !signKeySet.add(signKey(sign))) {
+                continue;
+            }
+            if (!isSigner.test(signAddress)) {
+                continue;
+            }
+            verifyList.add(item);
+        }
+        return verifyList;
+    }
+
+    /**
+     * 验证签名消息, 有效签名数达到required后不再验证其余签名(required小于等于0时全部验证)
+     * 验证通过后才记录签名地址, 同一地址只取第一个有效签名; 地址重复导致有效签名不足时继续验证未验证的签名
+     *
+     * @param signAddressSet 已有有效签名的地址, 验证通过的签名地址会加入其中
+     * @param passList       验证通过且地址不重复的签名消息
+     * @return 未验证的签名消息
+     */
+    public <T> List<T> verifyTxSigns(byte[] txHash, List<T> list, Function<T, P2PHKSignature> function, int chainId,
+                                     Set<String> signAddressSet, int required, List<T> passList) throws InterruptedException {
+        List<T> remaining = list;
+        int passCount = 0;
+        do {
+            List<T> verified = verifyTxSigns(txHash, remaining, function, required - passCount);
+            Set<T> verifiedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (T item : verified) {
+                verifiedSet.add(item);
+                if (signAddressSet.add(getSignAddress(function.apply(item), chainId))) {
+                    passList.add(item);
+                    passCount++;
+                }
+            }
+            if (verified.isEmpty() || required <= 0) {
+                // 全部已验证
+                return new ArrayList<>();
+            }
+            List<T> next = new ArrayList<>();
+            for (T item : remaining) {
+                if (!verifiedSet.contains(item)) {
+                    next.add(item);
+                }
+            }
+            remaining = next;
+        } while (!remaining.isEmpty() && passCount < required);
+        return remaining;
+    }
+
+    /**
+     * 验证异构链组件签名, 同一签名只验证一次
+     */
+    public boolean verifyComponentSign(String txHash, HeterogeneousSign sign, ISignatureCheck<HeterogeneousSign> check) throws Exception {
+        String key = SignatureBatchVerifier.cacheKey(txHash.getBytes(StandardCharsets.UTF_8),
+                (sign.getHeterogeneousAddress().getChainId() + ":" + sign.getHeterogeneousAddress().getAddress()).getBytes(StandardCharsets.UTF_8),
+                sign.getSignature());
+        return verifier.verify(sign, key, check);
+    }
+
+    /**
+     * 模块停止时关闭验证线程
+     */
+    public void shutdown() {
+        verifier.shutdown();
+    }
+
+    private static String signKey(P2PHKSignature sign) {
+        return HexUtil.encode(sign.getPublicKey()) + HexUtil.encode(sign.getSignData().getSignBytes());
+    }
+
+    public static String getSignAddress(P2PHKSignature sign, int chainId) {
+        return AddressTool.getStringAddressByBytes(AddressTool.getAddress(sign.getPublicKey(), chainId));
+    }
+}
@@ -27,6 +27,7 @@ package network.nerve.converter.manager;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.protocol.ProtocolLoader;
+import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.io.IoUtils;
@@ -41,6 +42,7 @@ import network.nerve.converter.config.ConverterConfig;
 import network.nerve.converter.constant.ConverterConstant;
 import network.nerve.converter.constant.ConverterDBConstant;
 import network.nerve.converter.core.api.ConverterCoreApi;
+import network.nerve.converter.core.scheduler.DeadlineTaskScheduler;
 import network.nerve.converter.core.thread.handler.SignMessageByzantineHandler;
 import network.nerve.converter.core.thread.task.CfmTxSubsequentProcessTask;
 import network.nerve.converter.core.thread.task.ExeProposalProcessTask;
@@ -183,13 +185,23 @@ public class ChainManager {
             chain.getLogger().warn("MapVirtualBank log print error ");
         }
 
-        // 加载待调用异构组件的交易
+        // 加载待调用异构组件的交易, 按保存的下一次处理时间恢复调度
+        CfmTxSubsequentProcessTask pendingTxHandler = new CfmTxSubsequentProcessTask(chain);
+        chain.setPendingTxScheduler(new DeadlineTaskScheduler<>(ConverterConstant.CV_PENDING_THREAD,
+                ConverterConstant.CV_PENDING_TASK_THREADS, pendingTxHandler, pendingTxHandler,
+                TimeUnit.SECONDS.toMillis(ConverterConstant.CV_TASK_PERIOD), ConverterConstant.CV_PENDING_TASK_MAX_BACKOFF));
         List<TxSubsequentProcessPO> listPending = txSubsequentProcessStorageService.findAll(chain);
         if (null != listPending && !listPending.isEmpty()) {
-            chain.getPendingTxQueue().addAll(listPending);
+            for (TxSubsequentProcessPO po : listPending) {
+                if (po.getTx().getType() == TxType.RESET_HETEROGENEOUS_VIRTUAL_BANK) {
+                    chain.offerFirstPendingTx(po);
+                } else {
+                    chain.offerPendingTx(po);
+                }
+            }
         }
         try {
-            chain.getLogger().info("PendingTxQueue : {}", JSONUtils.obj2json(chain.getPendingTxQueue()));
+            chain.getLogger().info("PendingTxQueue : {}", JSONUtils.obj2json(listPending));
         } catch (JsonProcessingException e) {
             chain.getLogger().warn("PendingTxQueue log print error ");
         }
@@ -303,10 +315,11 @@ public class ChainManager {
 
 
     public void createScheduler(Chain chain) {
+        // 延迟启动待处理交易的调度, 之前提交的任务在启动后按各自的时间执行
         ScheduledThreadPoolExecutor collectorExecutor = ThreadUtils.createScheduledThreadPool(1,
                 new NulsThreadFactory(ConverterConstant.CV_PENDING_THREAD));
-        collectorExecutor.scheduleWithFixedDelay(new CfmTxSubsequentProcessTask(chain),
-                ConverterConstant.CV_TASK_INITIALDELAY, ConverterConstant.CV_TASK_PERIOD, TimeUnit.SECONDS);
+        collectorExecutor.schedule(() -> chain.getPendingTxScheduler().start(),
+                ConverterConstant.CV_TASK_INITIALDELAY, TimeUnit.SECONDS);
 
         ScheduledThreadPoolExecutor exeProposalExecutor = ThreadUtils.createScheduledThreadPool(1,
                 new NulsThreadFactory(ConverterConstant.CV_PENDING_PROPOSAL_THREAD));
@@ -2,6 +2,7 @@ package network.nerve.converter.model.bo;
 
 import io.nuls.base.data.NulsHash;
 import io.nuls.core.log.logback.NulsLogger;
+import network.nerve.converter.core.scheduler.DeadlineTaskScheduler;
 import network.nerve.converter.model.po.ExeProposalPO;
 import network.nerve.converter.model.po.ProposalPO;
 import network.nerve.converter.model.po.TxSubsequentProcessPO;
@@ -11,6 +12,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * 链的基础数据和运行状态数据
@@ -54,9 +56,9 @@ public class Chain {
     private List<HeterogeneousCfg> listHeterogeneous = new ArrayList<>();
 
     /**
-     * 待处理
+     * 待处理交易的确认后续处理任务, 按下一次处理时间或等待的区块高度调度
      */
-    private LinkedBlockingDeque<TxSubsequentProcessPO> pendingTxQueue = new LinkedBlockingDeque<>();
+    private DeadlineTaskScheduler<TxSubsequentProcessPO> pendingTxScheduler;
 
     /**
      * 待执行提案
@@ -100,6 +102,12 @@ public class Chain {
      */
     private AtomicBoolean heterogeneousChangeBankExecuting = new AtomicBoolean(false);
 
+    /**
+     * 虚拟银行变更检查并设置heterogeneousChangeBankExecuting(关门)、调用异构链期间持有写锁,
+     * 提现检查关门状态并调用异构链期间持有读锁, 不同异构链的提现仍可并发执行
+     */
+    private final ReentrantReadWriteLock heterogeneousChangeBankLock = new ReentrantReadWriteLock();
+
     /**
      * 正在执行取消节点银行资格的提案
      */
@@ -167,8 +175,28 @@ public class Chain {
         this.listHeterogeneous = listHeterogeneous;
     }
 
-    public LinkedBlockingDeque<TxSubsequentProcessPO> getPendingTxQueue() {
-        return pendingTxQueue;
+    public DeadlineTaskScheduler<TxSubsequentProcessPO> getPendingTxScheduler() {
+        return pendingTxScheduler;
+    }
+
+    public void setPendingTxScheduler(DeadlineTaskScheduler<TxSubsequentProcessPO> pendingTxScheduler) {
+        this.pendingTxScheduler = pendingTxScheduler;
+    }
+
+    /**
+     * 添加待处理交易, 调用方已持久化
+     */
+    public boolean offerPendingTx(TxSubsequentProcessPO po) {
+        pendingTxScheduler.submit(po.getTx().getHash().toHex(), po, po.getNextProcessTime(), false);
+        return true;
+    }
+
+    /**
+     * 添加待处理交易, 排在已有的虚拟银行相关交易之前处理
+     */
+    public boolean offerFirstPendingTx(TxSubsequentProcessPO po) {
+        pendingTxScheduler.submit(po.getTx().getHash().toHex(), po, po.getNextProcessTime(), true);
+        return true;
     }
 
 
@@ -196,6 +224,10 @@ public class Chain {
         return heterogeneousChangeBankExecuting;
     }
 
+    public ReentrantReadWriteLock getHeterogeneousChangeBankLock() {
+        return heterogeneousChangeBankLock;
+    }
+
     public AtomicBoolean getExeDisqualifyBankProposal() {
         return exeDisqualifyBankProposal;
     }
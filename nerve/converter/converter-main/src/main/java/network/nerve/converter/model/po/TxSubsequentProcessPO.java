@@ -102,6 +102,11 @@ public class TxSubsequentProcessPO implements Serializable {
      */
     private boolean retry;
 
+    /**
+     * 下一次处理的时间(毫秒), 重启后按该时间恢复调度
+     */
+    private long nextProcessTime;
+
     private transient int withdrawErrorTimes;
     private transient int withdrawErrorTotalTimes;
 
@@ -231,4 +236,12 @@ public class TxSubsequentProcessPO implements Serializable {
     public void setRetry(boolean retry) {
         this.retry = retry;
     }
+
+    public long getNextProcessTime() {
+        return nextProcessTime;
+    }
+
+    public void setNextProcessTime(long nextProcessTime) {
+        this.nextProcessTime = nextProcessTime;
+    }
 }
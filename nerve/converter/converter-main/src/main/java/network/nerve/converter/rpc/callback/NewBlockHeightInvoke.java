@@ -57,6 +57,8 @@ public class NewBlockHeightInvoke extends BaseInvoke {
         chain.getLatestBasicBlock().setHeight(height);
         chain.getLatestBasicBlock().setTime(time);
         chain.getLatestBasicBlock().setSyncStatusEnum(syncStatusEnum);
+        // 唤醒等待新区块的交易确认后续处理任务
+        chain.getPendingTxScheduler().onHeight(height);
 
         if(height == 0){
             return;
@@ -591,7 +591,7 @@ public class BusinessCmd extends BaseCmd {
                 header.setHeight(chain.getLatestBasicBlock().getHeight());
                 pendingPO.setBlockHeader(header);
                 txSubsequentProcessStorageService.save(chain, pendingPO);
-                map.put("value", chain.getPendingTxQueue().offer(pendingPO));
+                map.put("value", chain.offerPendingTx(pendingPO));
             }
             return success(map);
         } catch (NulsRuntimeException e) {
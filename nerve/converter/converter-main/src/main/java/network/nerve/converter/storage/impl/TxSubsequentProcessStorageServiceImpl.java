@@ -49,7 +49,7 @@ public class TxSubsequentProcessStorageServiceImpl implements TxSubsequentProces
 
 
     @Override
-    public boolean save(Chain chain, TxSubsequentProcessPO po) {
+    public synchronized boolean save(Chain chain, TxSubsequentProcessPO po) {
         if (po == null) {
             return false;
         }
@@ -66,7 +66,8 @@ public class TxSubsequentProcessStorageServiceImpl implements TxSubsequentProces
                     List<String> list = new ArrayList<>();
                     list.add(txHash);
                     listPO.setListTxHash(list);
-                } else {
+                } else if (!listPO.getListTxHash().contains(txHash)) {
+                    // 任务执行后会再次保存, key列表中不重复添加
                     listPO.getListTxHash().add(txHash);
                 }
                 result = ConverterDBUtil.putModel(DB_PENDING_PREFIX + chainId, PENDING_TX_ALL_KEY, listPO);
@@ -85,7 +86,7 @@ public class TxSubsequentProcessStorageServiceImpl implements TxSubsequentProces
     }
 
     @Override
-    public void delete(Chain chain, String txHash) {
+    public synchronized void delete(Chain chain, String txHash) {
         try {
             int chainId = chain.getChainId();
             RocksDBService.delete(DB_PENDING_PREFIX + chainId, stringToBytes(txHash));
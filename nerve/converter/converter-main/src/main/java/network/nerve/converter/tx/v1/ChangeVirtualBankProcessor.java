@@ -571,7 +571,7 @@ public class ChangeVirtualBankProcessor implements TransactionProcessor {
                         pendingPO.setCurrentDirector(currentDirector);
                         pendingPO.setCurrenVirtualBankTotal(currenVirtualBankTotal);
                         txSubsequentProcessStorageService.save(chain, pendingPO);
-                        chain.getPendingTxQueue().offer(pendingPO);
+                        chain.offerPendingTx(pendingPO);
                     }
                 } else if (chain.getCurrentHeterogeneousVersion() == HETEROGENEOUS_VERSION_2) {
                     // 同步模式不需要执行虚拟银行多签/合约成员变更, 当前是管理员(可以是当前加入的) 或者当前退出的
@@ -589,7 +589,7 @@ public class ChangeVirtualBankProcessor implements TransactionProcessor {
                         pendingPO.setCurrentDirector(currentDirector);
                         pendingPO.setCurrenVirtualBankTotal(currenVirtualBankTotal);
                         txSubsequentProcessStorageService.save(chain, pendingPO);
-                        chain.getPendingTxQueue().offer(pendingPO);
+                        chain.offerPendingTx(pendingPO);
                     }
                 }
                 ConsensusCall.sendVirtualBank(chain, height);
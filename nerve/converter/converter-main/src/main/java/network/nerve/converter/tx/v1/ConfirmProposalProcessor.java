@@ -213,7 +213,7 @@ public class ConfirmProposalProcessor implements TransactionProcessor {
                             pendingPO.setBlockHeader(blockHeader);
                             pendingPO.setSyncStatusEnum(SyncStatusEnum.getEnum(syncStatus));
                             txSubsequentProcessStorageService.save(chain, pendingPO);
-                            chain.getPendingTxQueue().offer(pendingPO);
+                            chain.offerPendingTx(pendingPO);
                         }
                     }
                 }
@@ -178,7 +178,7 @@ public class ConfirmWithdrawalProcessor implements TransactionProcessor {
                     pendingPO.setBlockHeader(blockHeader);
                     pendingPO.setSyncStatusEnum(SyncStatusEnum.getEnum(syncStatus));
                     txSubsequentProcessStorageService.save(chain, pendingPO);
-                    chain.getPendingTxQueue().offer(pendingPO);
+                    chain.offerPendingTx(pendingPO);
 
                 }
                 chain.getLogger().info("[commit] 确认提现交易 hash:{}", tx.getHash().toHex());
@@ -131,7 +131,7 @@ public class HeterogeneousContractAssetRegPendingProcessor implements Transactio
                         pendingPO.setBlockHeader(blockHeader);
                         pendingPO.setSyncStatusEnum(SyncStatusEnum.getEnum(syncStatus));
                         txSubsequentProcessStorageService.save(chain, pendingPO);
-                        chain.getPendingTxQueue().offer(pendingPO);
+                        chain.offerPendingTx(pendingPO);
                         if(chain.getLogger().isDebugEnabled()) {
                             chain.getLogger().info("[commit] 合约资产注册等待交易 hash:{}", tx.getHash().toHex());
                         }
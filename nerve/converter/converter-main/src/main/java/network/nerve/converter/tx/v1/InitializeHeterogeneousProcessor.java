@@ -163,7 +163,7 @@ public class InitializeHeterogeneousProcessor implements TransactionProcessor {
                     pendingPO.setBlockHeader(blockHeader);
                     pendingPO.setSyncStatusEnum(SyncStatusEnum.getEnum(syncStatus));
                     txSubsequentProcessStorageService.save(chain, pendingPO);
-                    chain.getPendingTxQueue().offer(pendingPO);
+                    chain.offerPendingTx(pendingPO);
                     chain.getLogger().info("[commit] 初始化异构链交易 hash:{}", tx.getHash().toHex());
                 }
             }
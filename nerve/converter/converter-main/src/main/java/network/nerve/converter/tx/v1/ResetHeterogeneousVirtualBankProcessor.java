@@ -145,7 +145,7 @@ public class ResetHeterogeneousVirtualBankProcessor implements TransactionProces
                         pendingPO.setCurrentDirector(true);
                         pendingPO.setCurrenVirtualBankTotal(chain.getMapVirtualBank().size());
                         txSubsequentProcessStorageService.save(chain, pendingPO);
-                        chain.getPendingTxQueue().offerFirst(pendingPO);
+                        chain.offerFirstPendingTx(pendingPO);
                         chain.getLogger().info("[commit] 重置虚拟银行异构链(合约) hash:{}", tx.getHash().toHex());
                     }
                     heterogeneousService.saveResetVirtualBankStatus(chain, true);
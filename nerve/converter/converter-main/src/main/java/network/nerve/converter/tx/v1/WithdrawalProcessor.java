@@ -302,7 +302,7 @@ public class WithdrawalProcessor implements TransactionProcessor {
                         pendingPO.setSyncStatusEnum(SyncStatusEnum.getEnum(syncStatus));
                         pendingPO.setCurrenVirtualBankTotal(chain.getMapVirtualBank().size());
                         txSubsequentProcessStorageService.save(chain, pendingPO);
-                        chain.getPendingTxQueue().offer(pendingPO);
+                        chain.offerPendingTx(pendingPO);
                         chain.getLogger().info("[commit] 提现交易 hash:{}", tx.getHash().toHex());
                     }
                 }
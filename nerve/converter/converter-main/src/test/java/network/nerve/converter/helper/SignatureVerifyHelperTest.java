@@ -0,0 +1,103 @@
+package network.nerve.converter.helper;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.NulsSignData;
+import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.Sha256Hash;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 本链交易签名的筛选和验证: 伪造签名不能排除真实签名
+ */
+public class SignatureVerifyHelperTest {
+
+    private static final int CHAIN_ID = 9;
+    private static final Function<P2PHKSignature, P2PHKSignature> FUNCTION = sign -> sign;
+
+    private SignatureVerifyHelper helper;
+    private byte[] txHash;
+    private List<ECKey> members;
+    private Set<String> memberAddressSet;
+
+    @Before
+    public void before() {
+        helper = new SignatureVerifyHelper();
+        txHash = Sha256Hash.hash("tx".getBytes());
+        members = new ArrayList<>();
+        memberAddressSet = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            ECKey key = new ECKey();
+            members.add(key);
+            memberAddressSet.add(AddressTool.getStringAddressByBytes(AddressTool.getAddress(key.getPubKey(), CHAIN_ID)));
+        }
+    }
+
+    @After
+    public void after() {
+        helper.shutdown();
+    }
+
+    private static P2PHKSignature sign(byte[] signBytes, ECKey key) {
+        NulsSignData signData = new NulsSignData();
+        signData.setSignBytes(signBytes);
+        return new P2PHKSignature(signData, key.getPubKey());
+    }
+
+    private List<P2PHKSignature> select(List<P2PHKSignature> existSigns, List<P2PHKSignature> messages, int required) throws InterruptedException {
+        Set<String> signAddressSet = new HashSet<>();
+        for (P2PHKSignature sign : existSigns) {
+            signAddressSet.add(SignatureVerifyHelper.getSignAddress(sign, CHAIN_ID));
+        }
+        List<P2PHKSignature> verifyList = SignatureVerifyHelper.filterTxSigns(existSigns, signAddressSet, messages, FUNCTION,
+                CHAIN_ID, memberAddressSet::contains);
+        List<P2PHKSignature> passList = new ArrayList<>();
+        helper.verifyTxSigns(txHash, verifyList, FUNCTION, CHAIN_ID, signAddressSet, required, passList);
+        return passList;
+    }
+
+    @Test
+    public void testCopiedSignDataDoesNotShadowGenuineSign() throws Exception {
+        ECKey a = members.get(0);
+        ECKey b = members.get(1);
+        P2PHKSignature genuine = sign(a.sign(txHash), a);
+        // 复制A的签名数据, 换上成员B的公钥, 先于A的真实签名到达
+        P2PHKSignature forged = sign(genuine.getSignData().getSignBytes(), b);
+        List<P2PHKSignature> passList = select(Collections.emptyList(), Arrays.asList(forged, genuine), 3);
+        assertEquals(Collections.singletonList(genuine), passList);
+    }
+
+    @Test
+    public void testForgedSignDoesNotShadowSameAddress() throws Exception {
+        ECKey a = members.get(0);
+        // 冒用A的公钥, 签名数据是其他交易的签名
+        P2PHKSignature forged = sign(a.sign(Sha256Hash.hash("other".getBytes())), a);
+        P2PHKSignature genuine = sign(a.sign(txHash), a);
+        P2PHKSignature other = sign(members.get(2).sign(txHash), members.get(2));
+        List<P2PHKSignature> passList = select(Collections.emptyList(), Arrays.asList(forged, genuine, other, genuine), 1);
+        // 只需要一个有效签名, 伪造签名占用验证名额后继续验证其余签名
+        assertTrue(passList.size() >= 1);
+        for (P2PHKSignature sign : passList) {
+            assertTrue(sign == genuine || sign == other);
+        }
+    }
+
+    @Test
+    public void testExistSignsAndOutsidersExcluded() throws Exception {
+        P2PHKSignature exist = sign(members.get(0).sign(txHash), members.get(0));
+        P2PHKSignature again = sign(members.get(0).sign(txHash), members.get(0));
+        ECKey outsider = new ECKey();
+        P2PHKSignature outsiderSign = sign(outsider.sign(txHash), outsider);
+        P2PHKSignature valid = sign(members.get(3).sign(txHash), members.get(3));
+        List<P2PHKSignature> passList = select(Collections.singletonList(exist), Arrays.asList(again, outsiderSign, valid, valid), 0);
+        assertEquals(Collections.singletonList(valid), passList);
+    }
+}
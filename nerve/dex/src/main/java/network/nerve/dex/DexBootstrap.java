@@ -21,7 +21,10 @@ import network.nerve.dex.context.DexConfig;
 import network.nerve.dex.context.DexConstant;
 import network.nerve.dex.context.DexContext;
 import network.nerve.dex.context.DexDBConstant;
+import network.nerve.dex.manager.DepthPublisher;
 import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexService;
+import network.nerve.dex.manager.OrderBookCheckpointManager;
 import network.nerve.dex.manager.ScheduleManager;
 import network.nerve.dex.tx.DexTxCommitAdvice;
 import network.nerve.dex.tx.DexTxRollbackAdvice;
@@ -45,6 +48,12 @@ public class DexBootstrap extends RpcModule {
     private DexManager dexManager;
     @Autowired
     private ScheduleManager scheduleManager;
+    @Autowired
+    private DexService dexService;
+    @Autowired
+    private OrderBookCheckpointManager checkpointManager;
+    @Autowired
+    private DepthPublisher depthPublisher;
 
 
     public static void main(String[] args) throws Exception {
@@ -94,12 +103,20 @@ public class DexBootstrap extends RpcModule {
             ProtocolLoader.load(dexConfig.getChainId());
             ModuleHelper.init(this);
             dexManager.init();
+            //模块停止时关闭撮合、盘口快照和深度推送线程池
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "dex-shutdown"));
         } catch (Exception e) {
             Log.error("NulsDexBootstrap init error!");
             throw new RuntimeException(e);
         }
     }
 
+    private void shutdown() {
+        dexService.shutdown();
+        checkpointManager.shutdown();
+        depthPublisher.shutdown();
+    }
+
     /**
      * 初始化系统编码
      * Initialization System Coding
@@ -127,6 +144,8 @@ public class DexBootstrap extends RpcModule {
         DexUtil.createTable(DexDBConstant.DB_NAME_COIN_TRADING_EDIT_INFO);
         DexUtil.createTable(DexDBConstant.DB_NAME_NONCE_ORDER);
         DexUtil.createTable(DexDBConstant.DB_NAME_HEIGHT);
+        DexUtil.createTable(DexDBConstant.DB_NAME_DEAL_HISTORY);
+        DexUtil.createTable(DexDBConstant.DB_NAME_ORDER_LOG);
     }
 
 
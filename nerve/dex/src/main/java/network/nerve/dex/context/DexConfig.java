@@ -29,6 +29,14 @@ public class DexConfig implements ModuleConfig {
     private int sysFeeScale;
 
     private String createTradingAmount;
+    /**
+     * 每隔多少个区块保存一次盘口快照，未配置时使用默认值
+     */
+    private int orderBookCheckpointInterval;
+    /**
+     * 录制dex交易流的目录，用于离线重放和性能测试，未配置时不录制
+     */
+    private String txRecordPath;
 
 
     public String getLanguage() {
@@ -90,4 +98,20 @@ public class DexConfig implements ModuleConfig {
     public void setSysFeeScale(int sysFeeScale) {
         this.sysFeeScale = sysFeeScale;
     }
+
+    public int getOrderBookCheckpointInterval() {
+        return orderBookCheckpointInterval;
+    }
+
+    public void setOrderBookCheckpointInterval(int orderBookCheckpointInterval) {
+        this.orderBookCheckpointInterval = orderBookCheckpointInterval;
+    }
+
+    public String getTxRecordPath() {
+        return txRecordPath;
+    }
+
+    public void setTxRecordPath(String txRecordPath) {
+        this.txRecordPath = txRecordPath;
+    }
 }
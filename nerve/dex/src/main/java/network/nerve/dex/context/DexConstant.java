@@ -34,9 +34,20 @@ public interface DexConstant {
 
     int NONCE_LENGTH = 8;
 
+    //K线周期(秒)，每个周期都是前一个周期的整数倍，回滚时由前一个周期的K线重新合并
+    int[] CANDLE_PERIODS = {60, 300, 900, 1800, 3600, 14400, 86400};
+    //K线周期名称，与CANDLE_PERIODS一一对应
+    String[] CANDLE_PERIOD_NAMES = {"1m", "5m", "15m", "30m", "1h", "4h", "1d"};
+
     BigDecimal PROP = new BigDecimal(10000);
 
     String SYS_FILE_ENCODING = "file.encoding";
 
     String DEX_CONFIG_FILE = "dex-config-";
+
+    //默认每隔多少个区块保存一次盘口快照
+    int ORDER_BOOK_CHECKPOINT_INTERVAL = 1000;
+
+    //等待推送的盘口深度变化上限，超过后丢弃，客户端发现序号不连续时重新查询快照
+    int DEPTH_PUBLISH_QUEUE_SIZE = 100000;
 }
@@ -10,4 +10,8 @@ public class DexDBConstant {
     public static final String DB_NAME_TRADING_DEAL = "trading_deal";
     public static final String DB_NAME_NONCE_ORDER = "nonce_order";
     public static final String DB_NAME_HEIGHT = "dex_height";
+    //成交历史和K线索引，同一张表保证每个区块的索引更新可以在一个批量写入中完成
+    public static final String DB_NAME_DEAL_HISTORY = "trading_deal_history";
+    //挂单变化日志，节点启动时重新读取盘口快照之后有变化的挂单
+    public static final String DB_NAME_ORDER_LOG = "trading_order_log";
 }
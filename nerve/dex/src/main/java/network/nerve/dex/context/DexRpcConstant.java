@@ -13,4 +13,7 @@ public class DexRpcConstant {
 
     public static final String GET_BALANCE_NONCE = "getBalanceNonce";
 
+    //盘口深度变化推送（按事件订阅）
+    public static final String DEPTH_UPDATE = "dx_depthUpdate";
+
 }
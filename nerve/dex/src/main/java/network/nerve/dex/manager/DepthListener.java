@@ -0,0 +1,18 @@
+package network.nerve.dex.manager;
+
+import network.nerve.dex.model.bean.DepthLevel;
+
+/**
+ * 盘口深度变化监听
+ * 在币对盘口的锁内回调，同一币对的变化按sequence顺序依次通知，实现中不能有耗时操作
+ */
+public interface DepthListener {
+
+    /**
+     * @param container 发生变化的币对盘口
+     * @param sequence  变化序号，同一币对内连续递增
+     * @param type      买盘或卖盘
+     * @param level     变化后的价格档位
+     */
+    void onDepthChange(TradingContainer container, long sequence, byte type, DepthLevel level);
+}
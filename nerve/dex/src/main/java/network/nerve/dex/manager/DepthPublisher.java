@@ -0,0 +1,93 @@
+package network.nerve.dex.manager;
+
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexRpcConstant;
+import network.nerve.dex.model.bean.DepthLevel;
+import network.nerve.dex.util.LoggerUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 盘口深度变化推送
+ * 通过ConnectManager的事件订阅机制，将正式盘口每个价格档位的变化推送给订阅了dx_depthUpdate的客户端，
+ * 每条推送带有币对内连续递增的sequence，客户端先查询dx_getDepth快照，再按顺序应用序号更大的推送
+ * <p>
+ * 盘口在持有容器锁时回调，这里只记录变化的档位，由单独的推送线程按加入顺序推送，同一币对的推送保持序号顺序；
+ * 推送积压超过上限时丢弃新的变化，客户端发现序号不连续时重新查询快照
+ */
+@Component
+public class DepthPublisher implements DepthListener {
+
+    private ExecutorService executor;
+    private boolean stopped;
+
+    @Override
+    public void onDepthChange(TradingContainer container, long sequence, byte type, DepthLevel level) {
+        if (!hasSubscriber()) {
+            return;
+        }
+        Map<String, Object> data = new HashMap<>(8);
+        data.put("tradingHash", container.getCoinTrading().getHash().toHex());
+        data.put("sequence", sequence);
+        data.put("type", type);
+        data.put("price", level.getPrice().toString());
+        data.put("amount", level.getAmount().toString());
+        data.put("orderCount", level.getOrderCount());
+
+        ExecutorService executor = getExecutor();
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> publish(data));
+        } catch (RejectedExecutionException e) {
+            LoggerUtil.dexLog.warn("Depth update queue is full, drop update, tradingHash:{}, sequence:{}", data.get("tradingHash"), sequence);
+        }
+    }
+
+    private void publish(Map<String, Object> data) {
+        try {
+            Map<String, Object> responseData = new HashMap<>(2);
+            responseData.put(DexRpcConstant.DEPTH_UPDATE, data);
+            Response response = MessageUtil.newSuccessResponse("");
+            response.setResponseData(responseData);
+            ConnectManager.eventTrigger(DexRpcConstant.DEPTH_UPDATE, response);
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error(e);
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null && !stopped) {
+            executor = ThreadUtils.createThreadPool(1, DexConstant.DEPTH_PUBLISH_QUEUE_SIZE, new NulsThreadFactory("dex-depth"));
+        }
+        return executor;
+    }
+
+    /**
+     * 模块停止时关闭推送线程，不再推送深度变化
+     */
+    public synchronized void shutdown() {
+        stopped = true;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private boolean hasSubscriber() {
+        List<Message> messageList = ConnectManager.CMD_SUBSCRIBE_MESSAGE_MAP.get(DexRpcConstant.DEPTH_UPDATE);
+        return messageList != null && !messageList.isEmpty();
+    }
+}
@@ -12,6 +12,7 @@ import network.nerve.dex.storage.CoinTradingStorageService;
 import network.nerve.dex.storage.TradingOrderStorageService;
 import network.nerve.dex.util.DexUtil;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,10 @@ public class DexManager {
     private CoinTradingStorageService tradingStorageService;
     @Autowired
     private TradingOrderStorageService orderStorageService;
+    @Autowired
+    private DepthPublisher depthPublisher;
+    @Autowired
+    private OrderBookCheckpointManager checkpointManager;
 
     /**
      * 存放本链已注册的所有资产信息
@@ -94,6 +99,7 @@ public class DexManager {
      */
     public void addCoinTrading(CoinTradingPo tradingPo) {
         TradingContainer container = new TradingContainer(tradingPo);
+        container.setDepthListener(depthPublisher);
         String hash = container.getCoinTrading().getHash().toHex();
         tradingContainerMap.put(hash, container);
         //缓存币对id
@@ -111,7 +117,7 @@ public class DexManager {
         if (container == null) {
             return;
         }
-        if (!container.getBuyOrderList().isEmpty() || !container.getSellOrderList().isEmpty()) {
+        if (!container.isEmpty()) {
             throw new NulsException(DexErrorCode.TRADING_MORE_ORDER_EXIST);
         }
         tradingKeyMap.remove(DexUtil.getCoinTradingKey1(tradingPo));
@@ -171,6 +177,34 @@ public class DexManager {
         container.removeTradingOrder(orderPo);
     }
 
+    /**
+     * 查询地址的挂单，tradingHash为null时查询所有币对
+     * 结果先按币对hash排序，同一币对内按挂单的区块高度和交易序号排序
+     *
+     * @param address     挂单地址
+     * @param tradingHash 币对hash
+     * @return 挂单列表
+     */
+    public List<TradingOrderPo> getAddressOrders(byte[] address, String tradingHash) throws NulsException {
+        if (tradingHash != null) {
+            TradingContainer container = tradingContainerMap.get(tradingHash);
+            if (container == null) {
+                throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "CoinTrading not exist");
+            }
+            return container.getAddressOrders(address);
+        }
+        List<String> hashList = new ArrayList<>(tradingContainerMap.keySet());
+        Collections.sort(hashList);
+        List<TradingOrderPo> list = new ArrayList<>();
+        for (String hash : hashList) {
+            TradingContainer container = tradingContainerMap.get(hash);
+            if (container != null) {
+                list.addAll(container.getAddressOrders(address));
+            }
+        }
+        return list;
+    }
+
     /**
      * 初始化Dex模块管理器
      */
@@ -180,6 +214,13 @@ public class DexManager {
         for (CoinTradingPo tradingPo : tradingList) {
             this.addCoinTrading(tradingPo);
         }
+        //优先从盘口快照恢复，快照不可用时重新创建盘口
+        if (checkpointManager.load(this)) {
+            return;
+        }
+        for (CoinTradingPo tradingPo : tradingList) {
+            this.addCoinTrading(tradingPo);
+        }
         //查询所有挂单信息，缓存到盘口
         List<TradingOrderPo> orderList = orderStorageService.queryAll();
         Collections.sort(orderList);
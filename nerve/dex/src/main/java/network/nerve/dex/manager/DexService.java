@@ -9,6 +9,8 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 import network.nerve.dex.context.DexConfig;
 import network.nerve.dex.context.DexConstant;
 import network.nerve.dex.context.DexErrorCode;
@@ -24,7 +26,11 @@ import network.nerve.dex.model.txData.*;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 @Component
 public class DexService {
@@ -48,16 +54,22 @@ public class DexService {
     //存放每次打包区块时匹配成功的挂单交易
     private Map<String, TradingOrderPo> tempOrderPoMap = new HashMap<>();
     //每次打包时，临时缓存需要取消委托挂单的orderHash
-    private Set<String> tempCancelOrderSet = new HashSet<>();
+    private Set<NulsHash> tempCancelOrderSet = new HashSet<>();
+    //本次打包中已复制到临时缓存的盘口，其余盘口在临时缓存中直接引用原盘口，不做修改
+    private Set<String> copiedContainerSet = new HashSet<>();
 
 
     private ReentrantLock lock = new ReentrantLock();
+    //打包前撮合已有盘口时使用的线程数，为1时按顺序撮合
+    private int matchingThreads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService matchingExecutor;
 
     /**
      * 节点打包dex模块交易逻辑：
      * 注： 由于一个区块打包时间有限，因此一个区块最多允许生成成交交易的上限为（tempCacheSize）
-     * 1. 每次打包时，将所有交易对的盘口数据复制一定数量（tempCacheSize）的委托单到临时缓存里（tempDexManager）
-     * 2. 循环所有临时缓存的交易对盘口，若有可以匹配的挂单，则生成成交交易
+     * 1. 每次打包时，临时缓存（tempDexManager）先直接引用所有交易对的盘口，只有本次打包会修改的盘口，
+     * 才复制一定数量（tempCacheSize）的委托单到临时缓存里（写时复制），打包耗时不再随交易对和挂单数量增长
+     * 2. 循环所有临时缓存的交易对盘口，若有可以匹配的挂单，则生成成交交易（多个交易对时按交易对并行撮合，再按顺序合并）
      * 3. 若发现有新增的委托买(卖)单交易，需要判断新增挂单的盘口内是否有可以匹配成交的买(卖)单
      * 打包区块撮合成交并非是最终的区块确认存储，不能直接去修改盘口内已有买(卖)单数据，因此打包时撮合的流程是：
      * 1.针对本次新增买(卖)单，复制对应盘口内一定数量买盘和卖盘到临时缓存中
@@ -76,10 +88,9 @@ public class DexService {
 
 //            long time0, time1, time2;
 //            time0 = System.currentTimeMillis();
-            //首先复制所有交易对到临时盘口中
+            //首先将所有交易对引用到临时盘口中，需要修改时再复制
             for (TradingContainer container : dexManager.getAllContainer().values()) {
-                TradingContainer copy = container.copy(dexPackingSize);
-                tempDexManager.addContainer(copy);
+                tempDexManager.addContainer(container);
             }
 //            time1 = System.currentTimeMillis();
 //            if (time1 - time0 > 50) {
@@ -88,8 +99,18 @@ public class DexService {
 
             List<CancelDeal> cancelList = new ArrayList<>();
             //每次打包前先判断当前所有临时盘口里是否还有可以匹配的订单，如果有则优先生成成交订单
+            List<TradingContainer> matchingList = new ArrayList<>();
             for (TradingContainer container : tempDexManager.getAllContainer().values()) {
-                matchingOrder(container, blockTime);
+                if (canMatching(container)) {
+                    matchingList.add(container);
+                }
+            }
+            if (matchingThreads > 1 && matchingList.size() > 1) {
+                parallelMatching(matchingList, blockTime);
+            } else {
+                for (TradingContainer container : matchingList) {
+                    matchingOrder(getWritableContainer(container.getCoinTrading().getHash().toHex()), blockTime);
+                }
             }
 //            time2 = System.currentTimeMillis();
 //            if (time2 - time1 > 100) {
@@ -121,7 +142,7 @@ public class DexService {
                     //记录本次打包中撤销挂单的orderHash，撤销挂单的不再进行价格匹配成交
                     orderCancel = new TradingOrderCancel();
                     orderCancel.parse(new NulsByteBuffer(tx.getTxData()));
-                    tempCancelOrderSet.add(HexUtil.encode(orderCancel.getOrderHash()));
+                    tempCancelOrderSet.add(new NulsHash(orderCancel.getOrderHash()));
 
                     String orderKey = HexUtil.encode(orderCancel.getOrderHash());
                     TradingOrderPo orderPo = tempOrderPoMap.get(orderKey);
@@ -145,7 +166,7 @@ public class DexService {
                     } else {
                         po.setLeftQuoteAmount(BigInteger.ZERO);
                     }
-                    TradingContainer container = tempDexManager.getTradingContainer(po.getTradingHash().toHex());
+                    TradingContainer container = getWritableContainer(po.getTradingHash().toHex());
                     container.addTradingOrder(po);
 
                     matchingOrder(container, blockTime);
@@ -304,21 +325,164 @@ public class DexService {
         }
     }
 
+    /**
+     * 获取本次打包可修改的临时盘口，第一次修改时才复制原盘口的前dexPackingSize条买单和卖单
+     * 替换临时缓存中同一个key的值，不改变临时缓存的遍历顺序
+     *
+     * @param hash 币对hash
+     * @return 临时盘口
+     */
+    private TradingContainer getWritableContainer(String hash) {
+        TradingContainer container = tempDexManager.getTradingContainer(hash);
+        if (container == null || copiedContainerSet.contains(hash)) {
+            return container;
+        }
+        TradingContainer copy = container.copy(dexPackingSize);
+        tempDexManager.addContainer(copy);
+        copiedContainerSet.add(hash);
+        return copy;
+    }
+
+    /**
+     * 判断盘口内是否有可以撮合的挂单
+     * 未复制的盘口只读检查：复制后的挂单状态都是未完成，因此直接比较买一和卖一价格，与复制后撮合的判断结果一致
+     *
+     * @param container 临时盘口
+     * @return 是否需要撮合
+     */
+    private boolean canMatching(TradingContainer container) {
+        if (copiedContainerSet.contains(container.getCoinTrading().getHash().toHex())) {
+            return true;
+        }
+        BigInteger buyPrice = container.getFirstBuyPrice();
+        BigInteger sellPrice = container.getFirstSellPrice();
+        if (buyPrice == null || sellPrice == null) {
+            return false;
+        }
+        return buyPrice.compareTo(sellPrice) >= 0;
+    }
+
+    /**
+     * 按币对并行撮合打包前已有的盘口
+     * 各币对的挂单互不相关，每个币对在各自复制的盘口上撮合，成交交易先放在币对自己的列表里，
+     * 再按照顺序撮合时的币对顺序合并，保证生成的交易与顺序撮合完全一致：
+     * 1. 合并后未超过打包上限的币对，直接使用并行撮合的盘口和成交交易
+     * 2. 合并后会超过打包上限的币对，在原盘口上按顺序撮合方式重新撮合到上限为止，之后的币对不再撮合
+     *
+     * @param containerList 按临时缓存顺序排列的需要撮合的盘口
+     * @param blockTime     区块时间
+     */
+    private void parallelMatching(List<TradingContainer> containerList, long blockTime) throws IOException, NulsException {
+        List<Future<PairMatchingResult>> futureList = new ArrayList<>(containerList.size());
+        ExecutorService executor = getMatchingExecutor();
+        for (TradingContainer container : containerList) {
+            futureList.add(executor.submit(() -> {
+                PairMatchingResult result = new PairMatchingResult(container.copy(dexPackingSize));
+                //打包前撤销挂单集合为空，只需判断挂单是否已完成
+                matchingOrder(result.container, blockTime, result.dealTxList, result.orderPoMap, order -> !order.isOver());
+                return result;
+            }));
+        }
+        int i = 0;
+        try {
+            for (; i < futureList.size(); i++) {
+                PairMatchingResult result = futureList.get(i).get();
+                String hash = result.container.getCoinTrading().getHash().toHex();
+                if (dealTxList.size() + result.dealTxList.size() > dexPackingSize) {
+                    matchingOrder(getWritableContainer(hash), blockTime);
+                    break;
+                }
+                tempDexManager.addContainer(result.container);
+                copiedContainerSet.add(hash);
+                dealTxList.addAll(result.dealTxList);
+                tempOrderPoMap.putAll(result.orderPoMap);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NulsException(DexErrorCode.FAILED);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            LoggerUtil.dexLog.error(e.getCause());
+            throw new NulsException(DexErrorCode.FAILED);
+        } finally {
+            //达到打包上限后剩余币对的撮合结果不再使用
+            for (; i < futureList.size(); i++) {
+                futureList.get(i).cancel(false);
+            }
+        }
+    }
+
+    private synchronized ExecutorService getMatchingExecutor() {
+        if (matchingExecutor == null) {
+            matchingExecutor = ThreadUtils.createThreadPool(matchingThreads, 0, new NulsThreadFactory("dex-matching"));
+        }
+        return matchingExecutor;
+    }
+
+    /**
+     * 设置打包前撮合已有盘口时使用的线程数
+     *
+     * @param matchingThreads 线程数，为1时按顺序撮合
+     */
+    public synchronized void setMatchingThreads(int matchingThreads) {
+        if (matchingThreads < 1) {
+            matchingThreads = 1;
+        }
+        if (matchingExecutor != null && matchingThreads != this.matchingThreads) {
+            matchingExecutor.shutdown();
+            matchingExecutor = null;
+        }
+        this.matchingThreads = matchingThreads;
+    }
+
+    /**
+     * 模块停止时关闭撮合线程池，正在撮合的币对执行完后线程退出
+     */
+    public synchronized void shutdown() {
+        if (matchingExecutor != null) {
+            matchingExecutor.shutdown();
+            matchingExecutor = null;
+        }
+    }
+
+    /**
+     * 单个币对并行撮合的结果
+     */
+    private static class PairMatchingResult {
+        private final TradingContainer container;
+        private final List<Transaction> dealTxList = new ArrayList<>();
+        private final Map<String, TradingOrderPo> orderPoMap = new HashMap<>();
+
+        private PairMatchingResult(TradingContainer container) {
+            this.container = container;
+        }
+    }
+
     /**
      * 循环临时缓存盘口内的买单和卖单，进行撮合成交
      */
     private void matchingOrder(TradingContainer container, long blockTime) throws IOException {
+        matchingOrder(container, blockTime, dealTxList, tempOrderPoMap, this::isMatchable);
+    }
+
+    /**
+     * 在指定盘口内撮合成交，成交交易和匹配过的挂单分别放入dealList和orderPoMap
+     */
+    private void matchingOrder(TradingContainer container, long blockTime, List<Transaction> dealList,
+                               Map<String, TradingOrderPo> orderPoMap, Predicate<TradingOrderPo> matchable) throws IOException {
         TradingOrderPo buyOrder;
         TradingOrderPo sellOrder;
 
         boolean b = true;
         while (b) {
             //每次生成成交单数量，达到上限后，不再继续撮合
-            if (dealTxList.size() >= dexPackingSize) {
+            if (dealList.size() >= dexPackingSize) {
                 return;
             }
-            sellOrder = getFirstSellOrder(container.getSellOrderList());
-            buyOrder = getFirstBuyOrder(container.getBuyOrderList());
+            sellOrder = container.getFirstSellOrder(matchable);
+            buyOrder = container.getFirstBuyOrder(matchable);
 
             if (buyOrder == null || sellOrder == null) {
                 //说明买盘或卖盘已没有挂单可以匹配
@@ -330,13 +494,13 @@ public class DexService {
                 //匹配成功的订单，生成成交交易
                 //如果是买单主动吃单，则用卖单价作为成交价，反之用买单价作为成交价
                 if (buyOrder.compareTo(sellOrder) > 0) {
-                    createDealTx(container, buyOrder, sellOrder, DexConstant.BUY_TAKER, blockTime);
+                    dealList.add(createDealTx(container, buyOrder, sellOrder, DexConstant.BUY_TAKER, blockTime));
                 } else {
-                    createDealTx(container, buyOrder, sellOrder, DexConstant.SELL_TAKER, blockTime);
+                    dealList.add(createDealTx(container, buyOrder, sellOrder, DexConstant.SELL_TAKER, blockTime));
                 }
                 //将匹配过的委托单存放在临时缓存里
-                tempOrderPoMap.put(sellOrder.getOrderHash().toHex(), sellOrder);
-                tempOrderPoMap.put(buyOrder.getOrderHash().toHex(), buyOrder);
+                orderPoMap.put(sellOrder.getOrderHash().toHex(), sellOrder);
+                orderPoMap.put(buyOrder.getOrderHash().toHex(), buyOrder);
             }
         }
     }
@@ -354,7 +518,7 @@ public class DexService {
      *
      * @return
      */
-    private void createDealTx(TradingContainer container, TradingOrderPo buyOrder, TradingOrderPo sellOrder, byte taker, long blockTime) throws IOException {
+    private Transaction createDealTx(TradingContainer container, TradingOrderPo buyOrder, TradingOrderPo sellOrder, byte taker, long blockTime) throws IOException {
         CoinTradingPo tradingPo = container.getCoinTrading();
         BigInteger price;
         if (taker == DexConstant.BUY_TAKER) {
@@ -403,7 +567,6 @@ public class DexService {
         }
         tx.setTxData(deal.serialize());
         tx.setHash(NulsHash.calcHash(tx.serializeForHash()));
-        dealTxList.add(tx);
 
         buyOrder.setNonce(DexUtil.getNonceByHash(tx.getHash()));
         buyOrder.setLeftQuoteAmount(buyOrder.getLeftQuoteAmount().subtract(deal.getQuoteAmount()));
@@ -413,50 +576,18 @@ public class DexService {
         sellOrder.setNonce(DexUtil.getNonceByHash(tx.getHash()));
         sellOrder.setDealAmount(sellOrder.getDealAmount().add(deal.getBaseAmount()));
         sellOrder.setOver(isSellOver);
+        return tx;
     }
 
     /**
-     * 买盘是价格从高到底排序好的，每次因从价格最高的第一条开始取出进行撮合
-     * 若买单已被撤销，继续取出下一条进行撮合验证
-     *
-     * @param buyOrderList
-     * @return
-     */
-    private TradingOrderPo getFirstBuyOrder(NavigableMap<BigInteger, Map<String, TradingOrderPo>> buyOrderList) {
-        if (buyOrderList.isEmpty()) {
-            return null;
-        }
-        for (Map.Entry<BigInteger, Map<String, TradingOrderPo>> entry : buyOrderList.entrySet()) {
-            Map<String, TradingOrderPo> map = entry.getValue();
-            for (TradingOrderPo buyOrder : map.values()) {
-                if (!buyOrder.isOver() && !tempCancelOrderSet.contains(buyOrder.getOrderHash().toHex())) {
-                    return buyOrder;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * 卖盘是价格从低到高排序好的，每次因从卖单价格最低的一条开始取出进行撮合
-     * 若卖单已被撤销，继续取出下一条进行撮合验证
+     * 买盘按价格从高到低、卖盘按价格从低到高，每次从第一条开始取出进行撮合
+     * 若挂单已完成或已被撤销，继续取出下一条进行撮合验证
      *
-     * @param sellOrderList
+     * @param order
      * @return
      */
-    private TradingOrderPo getFirstSellOrder(NavigableMap<BigInteger, Map<String, TradingOrderPo>> sellOrderList) {
-        if (sellOrderList.isEmpty()) {
-            return null;
-        }
-        for (Map.Entry<BigInteger, Map<String, TradingOrderPo>> entry : sellOrderList.entrySet()) {
-            Map<String, TradingOrderPo> map = entry.getValue();
-            for (TradingOrderPo buyOrder : map.values()) {
-                if (!buyOrder.isOver() && !tempCancelOrderSet.contains(buyOrder.getOrderHash().toHex())) {
-                    return buyOrder;
-                }
-            }
-        }
-        return null;
+    private boolean isMatchable(TradingOrderPo order) {
+        return !order.isOver() && !tempCancelOrderSet.contains(order.getOrderHash());
     }
 
     private Map<String, List<Transaction>> returnTxMap() {
@@ -482,6 +613,7 @@ public class DexService {
         dealTxList.clear();
         tempDexManager.clear();
         tempCancelOrderSet.clear();
+        copiedContainerSet.clear();
         tempOrderPoMap.clear();
         removeTxList.clear();
     }
@@ -0,0 +1,300 @@
+package network.nerve.dex.manager;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.exception.NulsException;
+import network.nerve.dex.context.DexConfig;
+import network.nerve.dex.context.DexContext;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.util.LoggerUtil;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * dex交易流录制
+ * 配置了txRecordPath时，节点启动后提交第一个区块前先记录当前的运行参数、全部币对和挂单，
+ * 之后按顺序记录每个区块提交和回滚的dex交易，用于在不依赖其他模块的情况下离线重放撮合、打包验证和提交
+ * <p>
+ * 文件格式：magic(4) version(4)，运行参数，币对列表和挂单列表，之后每个区块为
+ * type(1) height(8) time(8) txCount(4) [txLength(4) tx]...，直到文件结束
+ */
+@Component
+public class DexTxRecorder {
+
+    public static final byte COMMIT = 1;
+    public static final byte ROLLBACK = 2;
+
+    private static final int MAGIC = 0x44585243;
+    private static final int VERSION = 1;
+
+    @Autowired
+    private DexConfig dexConfig;
+    @Autowired
+    private DexManager dexManager;
+
+    private DataOutputStream out;
+    //录制出错后不再继续录制，不影响区块提交
+    private boolean failed;
+
+    /**
+     * 区块提交前调用，第一次调用时创建录制文件并记录当前状态
+     */
+    public synchronized void beforeCommit(BlockHeader blockHeader) {
+        if (out != null || failed || dexConfig.getTxRecordPath() == null || dexConfig.getTxRecordPath().isEmpty()) {
+            return;
+        }
+        try {
+            File folder = new File(dexConfig.getTxRecordPath());
+            if (!folder.exists()) {
+                folder.mkdirs();
+            }
+            File file = new File(folder, "dex-" + blockHeader.getHeight() + ".rec");
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+            writeState(blockHeader.getHeight());
+            out.flush();
+            LoggerUtil.dexLog.info("Dex tx record started, file:" + file.getPath());
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 区块提交完成后记录本区块的dex交易
+     */
+    public synchronized void recordCommit(List<Transaction> txList, BlockHeader blockHeader) {
+        write(COMMIT, txList, blockHeader);
+    }
+
+    /**
+     * 区块回滚完成后记录本区块的dex交易，录制开始前的区块回滚不做记录
+     */
+    public synchronized void recordRollback(List<Transaction> txList, BlockHeader blockHeader) {
+        write(ROLLBACK, txList, blockHeader);
+    }
+
+    private void write(byte type, List<Transaction> txList, BlockHeader blockHeader) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(type);
+            out.writeLong(blockHeader.getHeight());
+            out.writeLong(blockHeader.getTime());
+            out.writeInt(txList.size());
+            for (Transaction tx : txList) {
+                writeBytes(out, tx.serialize());
+            }
+            out.flush();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 币对按hash排序，挂单按区块高度和交易序号排序
+     */
+    private void writeState(long height) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(height);
+        out.writeInt(dexConfig.getChainId());
+        out.writeInt(dexConfig.getAssetId());
+        writeBytes(out, DexContext.sysFeeAddress == null ? new byte[0] : DexContext.sysFeeAddress);
+        out.writeUTF(DexContext.sysFeeScaleDecimal == null ? "0" : DexContext.sysFeeScaleDecimal.toString());
+        out.writeLong(DexContext.skipHeight);
+        out.writeLong(DexContext.priceSkipHeight);
+
+        List<String> hashList = new ArrayList<>(dexManager.getAllContainer().keySet());
+        Collections.sort(hashList);
+        List<TradingOrderPo> orderList = new ArrayList<>();
+        out.writeInt(hashList.size());
+        for (String hash : hashList) {
+            TradingContainer container = dexManager.getTradingContainer(hash);
+            CoinTradingPo tradingPo = container.getCoinTrading();
+            out.write(tradingPo.getHash().getBytes());
+            writeBytes(out, tradingPo.serialize());
+            orderList.addAll(container.getCheckpointOrders());
+        }
+        Collections.sort(orderList);
+        out.writeInt(orderList.size());
+        for (TradingOrderPo po : orderList) {
+            out.write(po.getOrderHash().getBytes());
+            writeBytes(out, po.serialize());
+        }
+    }
+
+    private void fail(Exception e) {
+        LoggerUtil.dexLog.error("Failure to record dex tx, recording stopped");
+        LoggerUtil.dexLog.error(e);
+        failed = true;
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            out = null;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * 录制的一个区块
+     */
+    public static class RecordBlock {
+        private final byte type;
+        private final long height;
+        private final long time;
+        private final List<Transaction> txList;
+
+        public RecordBlock(byte type, long height, long time, List<Transaction> txList) {
+            this.type = type;
+            this.height = height;
+            this.time = time;
+            this.txList = txList;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public long getHeight() {
+            return height;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public List<Transaction> getTxList() {
+            return txList;
+        }
+    }
+
+    /**
+     * 读取录制文件，创建时读出录制开始时的状态，之后按顺序读取区块
+     */
+    public static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final long startHeight;
+        private final int chainId;
+        private final int assetId;
+        private final byte[] sysFeeAddress;
+        private final BigDecimal sysFeeScale;
+        private final long skipHeight;
+        private final long priceSkipHeight;
+        private final List<CoinTradingPo> tradingList = new ArrayList<>();
+        private final List<TradingOrderPo> orderList = new ArrayList<>();
+
+        public Reader(File file) throws IOException, NulsException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                in.close();
+                throw new IOException("dex tx record format error, file:" + file.getPath());
+            }
+            startHeight = in.readLong();
+            chainId = in.readInt();
+            assetId = in.readInt();
+            sysFeeAddress = readBytes(in);
+            sysFeeScale = new BigDecimal(in.readUTF());
+            skipHeight = in.readLong();
+            priceSkipHeight = in.readLong();
+            byte[] hash = new byte[NulsHash.HASH_LENGTH];
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                in.readFully(hash);
+                CoinTradingPo tradingPo = new CoinTradingPo();
+                tradingPo.parse(new NulsByteBuffer(readBytes(in)));
+                tradingPo.setHash(new NulsHash(hash.clone()));
+                tradingList.add(tradingPo);
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                in.readFully(hash);
+                TradingOrderPo po = new TradingOrderPo();
+                po.parse(new NulsByteBuffer(readBytes(in)));
+                po.setOrderHash(new NulsHash(hash.clone()));
+                orderList.add(po);
+            }
+        }
+
+        /**
+         * @return 下一个区块，文件已读完时返回null
+         */
+        public RecordBlock next() throws IOException, NulsException {
+            int type = in.read();
+            if (type < 0) {
+                return null;
+            }
+            long height = in.readLong();
+            long time = in.readLong();
+            int count = in.readInt();
+            List<Transaction> txList = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Transaction tx = new Transaction();
+                tx.parse(new NulsByteBuffer(readBytes(in)));
+                txList.add(tx);
+            }
+            return new RecordBlock((byte) type, height, time, txList);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        public long getStartHeight() {
+            return startHeight;
+        }
+
+        public int getChainId() {
+            return chainId;
+        }
+
+        public int getAssetId() {
+            return assetId;
+        }
+
+        public byte[] getSysFeeAddress() {
+            return sysFeeAddress;
+        }
+
+        public BigDecimal getSysFeeScale() {
+            return sysFeeScale;
+        }
+
+        public long getSkipHeight() {
+            return skipHeight;
+        }
+
+        public long getPriceSkipHeight() {
+            return priceSkipHeight;
+        }
+
+        public List<CoinTradingPo> getTradingList() {
+            return tradingList;
+        }
+
+        public List<TradingOrderPo> getOrderList() {
+            return orderList;
+        }
+    }
+}
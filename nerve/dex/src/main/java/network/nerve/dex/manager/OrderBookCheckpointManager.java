@@ -0,0 +1,296 @@
+package network.nerve.dex.manager;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.dex.context.DexConfig;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.storage.TradingOrderStorageService;
+import network.nerve.dex.util.LoggerUtil;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * 盘口快照
+ * 每隔一定区块数在后台把节点盘口的全部挂单按盘口顺序写入快照文件，快照同时记录开始时挂单变化日志的序号
+ * 节点启动时顺序读取快照文件恢复盘口，再从挂单表重新读取日志序号之后有变化的挂单，
+ * 结果与从挂单表加载全部挂单并排序后逐条加入盘口一致，但不需要一次性读出整张挂单表
+ * <p>
+ * 快照文件格式：magic(4) version(4) height(8) logSequence(8)，之后每条挂单为 1(1) orderHash(32) length(4) data，
+ * 以 0(1) 结束，最后是之前全部内容的CRC32(8)
+ */
+@Component
+public class OrderBookCheckpointManager {
+
+    private static final int MAGIC = 0x44584350;
+    private static final int VERSION = 1;
+    private static final String FOLDER_NAME = "checkpoint";
+    private static final String FILE_NAME = "orderbook.ckpt";
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    @Autowired
+    private DexConfig dexConfig;
+    @Autowired
+    private TradingOrderStorageService orderStorageService;
+
+    private File folder;
+    /**
+     * 最近一次保存或加载的快照对应的区块高度
+     */
+    private volatile long checkpointHeight;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExecutorService executor;
+    private boolean stopped;
+
+    private File getFolder() {
+        if (folder == null) {
+            folder = new File(dexConfig.getDataFolder(), FOLDER_NAME);
+        }
+        return folder;
+    }
+
+    public void setFolder(File folder) {
+        this.folder = folder;
+    }
+
+    private int getInterval() {
+        int interval = dexConfig.getOrderBookCheckpointInterval();
+        return interval <= 0 ? DexConstant.ORDER_BOOK_CHECKPOINT_INTERVAL : interval;
+    }
+
+    /**
+     * 区块提交完成后调用，距上次快照超过间隔时在后台保存快照
+     * 此时本区块对挂单表和盘口的修改都已完成，当前的日志序号之前的修改都已反映在盘口中
+     */
+    public void afterCommit(long height, DexManager dexManager) {
+        if (Math.abs(height - checkpointHeight) < getInterval() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        ExecutorService executor = getExecutor();
+        if (executor == null) {
+            running.set(false);
+            return;
+        }
+        long sequence = orderStorageService.getOrderLogSequence();
+        try {
+            executor.execute(() -> {
+                try {
+                    writeCheckpoint(height, sequence, dexManager);
+                } catch (Exception e) {
+                    LoggerUtil.dexLog.error("Failure to save order book checkpoint, height:" + height);
+                    LoggerUtil.dexLog.error(e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //模块正在停止
+            running.set(false);
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null && !stopped) {
+            executor = ThreadUtils.createThreadPool(1, 0, new NulsThreadFactory("dex-checkpoint"));
+        }
+        return executor;
+    }
+
+    /**
+     * 模块停止时关闭快照线程，等待正在保存的快照写完，之后不再保存新的快照
+     * 快照先写入临时文件再替换，超时未写完时中断也不会破坏已有的快照文件
+     */
+    public void shutdown() {
+        ExecutorService executor;
+        synchronized (this) {
+            stopped = true;
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 保存盘口快照，逐个盘口持有容器锁复制挂单，保存期间提交或回滚的区块修改的挂单都记录在序号之后的日志中
+     *
+     * @param height   快照对应的区块高度，仅用于记录
+     * @param sequence 开始保存时挂单变化日志的序号
+     */
+    public void writeCheckpoint(long height, long sequence, DexManager dexManager) throws Exception {
+        long start = System.currentTimeMillis();
+        File folder = getFolder();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        File tmpFile = new File(folder, FILE_NAME + ".tmp");
+        List<String> hashList = new ArrayList<>(dexManager.getAllContainer().keySet());
+        Collections.sort(hashList);
+        long count = 0;
+        try (FileOutputStream fos = new FileOutputStream(tmpFile)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fos, 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(height);
+            out.writeLong(sequence);
+            for (String hash : hashList) {
+                TradingContainer container = dexManager.getTradingContainer(hash);
+                if (container == null) {
+                    continue;
+                }
+                for (TradingOrderPo po : container.getCheckpointOrders()) {
+                    byte[] data = po.serialize();
+                    out.writeByte(1);
+                    out.write(po.getOrderHash().getBytes());
+                    out.writeInt(data.length);
+                    out.write(data);
+                    count++;
+                }
+            }
+            out.writeByte(0);
+            out.writeLong(crc.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), getFile().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointHeight = height;
+        orderStorageService.pruneOrderLog(sequence);
+        LoggerUtil.dexLog.info("Order book checkpoint saved, height:{}, orders:{}, use:{}ms", height, count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 从快照恢复盘口，再用日志序号之后有变化的挂单的当前数据更新盘口
+     * 调用前需已创建全部币对的空盘口；返回false时盘口中可能已有部分挂单，需重新创建盘口后从挂单表加载
+     *
+     * @return 恢复成功返回true，没有快照或快照不可用时返回false
+     */
+    public boolean load(DexManager dexManager) {
+        File file = getFile();
+        if (!file.exists()) {
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            CRC32 crc = new CRC32();
+            long height;
+            long sequence;
+            long count = 0;
+            //快照中排序最靠后的挂单
+            TradingOrderPo lastOrder = null;
+            try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16), crc))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    LoggerUtil.dexLog.warn("Order book checkpoint format error, file:" + file.getPath());
+                    return false;
+                }
+                height = in.readLong();
+                sequence = in.readLong();
+                byte[] hash = new byte[NulsHash.HASH_LENGTH];
+                while (in.readByte() == 1) {
+                    in.readFully(hash);
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    TradingOrderPo po = new TradingOrderPo();
+                    po.parse(new NulsByteBuffer(data));
+                    po.setOrderHash(new NulsHash(hash.clone()));
+                    dexManager.addTradingOrder(po);
+                    if (lastOrder == null || po.compareTo(lastOrder) > 0) {
+                        lastOrder = po;
+                    }
+                    count++;
+                }
+                long value = crc.getValue();
+                if (in.readLong() != value) {
+                    LoggerUtil.dexLog.warn("Order book checkpoint checksum error, file:" + file.getPath());
+                    return false;
+                }
+            }
+            int replayCount = replay(dexManager, sequence, lastOrder);
+            if (replayCount < 0) {
+                LoggerUtil.dexLog.warn("Order book checkpoint replay out of order, height:" + height);
+                return false;
+            }
+            checkpointHeight = height;
+            LoggerUtil.dexLog.info("Order book loaded from checkpoint, height:{}, orders:{}, replay orders:{}, use:{}ms",
+                    height, count, replayCount, System.currentTimeMillis() - start);
+            return true;
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error("Failure to load order book checkpoint, file:" + file.getPath());
+            LoggerUtil.dexLog.error(e);
+            return false;
+        }
+    }
+
+    /**
+     * 快照中的挂单只在原位置更新或删除，新加入盘口的挂单追加在对应价格档位末尾，
+     * 因此新加入的挂单必须都排在快照中全部挂单之后(区块回滚恢复了快照之前的挂单时不满足)
+     *
+     * @return 有变化的挂单数，无法保证与从挂单表加载的顺序一致时返回-1
+     */
+    private int replay(DexManager dexManager, long sequence, TradingOrderPo lastOrder) throws Exception {
+        Set<NulsHash> hashSet = orderStorageService.queryChangedOrders(sequence);
+        List<TradingOrderPo> addList = new ArrayList<>();
+        for (NulsHash hash : hashSet) {
+            TradingOrderPo po = orderStorageService.query(hash.getBytes());
+            TradingContainer container = null;
+            TradingOrderPo bookOrder = null;
+            if (po != null) {
+                container = dexManager.getTradingContainer(po.getTradingHash().toHex());
+                bookOrder = container == null ? null : container.getTradingOrder(hash);
+            } else {
+                for (TradingContainer c : dexManager.getAllContainer().values()) {
+                    bookOrder = c.getTradingOrder(hash);
+                    if (bookOrder != null) {
+                        container = c;
+                        break;
+                    }
+                }
+            }
+            if (po == null) {
+                if (bookOrder != null) {
+                    container.removeTradingOrder(bookOrder);
+                }
+            } else if (bookOrder != null) {
+                container.updateTradingOrder(po);
+            } else {
+                addList.add(po);
+            }
+        }
+        Collections.sort(addList);
+        if (!addList.isEmpty() && lastOrder != null && addList.get(0).compareTo(lastOrder) < 0) {
+            return -1;
+        }
+        for (TradingOrderPo po : addList) {
+            dexManager.addTradingOrder(po);
+        }
+        return hashSet.size();
+    }
+
+    private File getFile() {
+        return new File(getFolder(), FILE_NAME);
+    }
+}
@@ -0,0 +1,364 @@
+package network.nerve.dex.manager;
+
+import io.nuls.base.data.NulsHash;
+import network.nerve.dex.model.po.TradingOrderPo;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 单边盘口（买盘或卖盘）的价格档位引擎
+ * 价格档位以long作为key（价格按计价币种最小单位计，超出long范围的价格单独存放），
+ * 每个价格档位内的挂单按照加入顺序组成先进先出的双向链表，通过订单hash索引到链表节点，增删改都是O(1)
+ * 每个价格档位同时累计档位内挂单的剩余数量，通过本类的增删改接口修改挂单时同步更新，用于盘口深度查询
+ * <p>
+ * 遍历顺序与原 ConcurrentSkipListMap + LinkedHashMap 的结构完全一致：
+ * 卖盘价格从低到高，买盘价格从高到低，同一价格先加入的挂单在前；已存在的挂单重复加入时只替换数据不改变位置
+ * <p>
+ * 本类非线程安全，由 TradingContainer 负责同一交易对的并发控制
+ */
+public class PriceLevelBook {
+
+    /**
+     * 价格档位，档位内挂单为先进先出队列
+     */
+    public static class PriceLevel {
+        private final BigInteger price;
+        private OrderNode head;
+        private OrderNode tail;
+        private int size;
+        /**
+         * 档位内挂单剩余未成交的交易币数量
+         */
+        private BigInteger amount = BigInteger.ZERO;
+
+        private PriceLevel(BigInteger price) {
+            this.price = price;
+        }
+
+        public BigInteger getPrice() {
+            return price;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public BigInteger getAmount() {
+            return amount;
+        }
+
+        public OrderNode getHead() {
+            return head;
+        }
+    }
+
+    /**
+     * 挂单在价格档位队列中的节点
+     */
+    public static class OrderNode {
+        private TradingOrderPo order;
+        private final PriceLevel level;
+        private OrderNode prev;
+        private OrderNode next;
+
+        private OrderNode(TradingOrderPo order, PriceLevel level) {
+            this.order = order;
+            this.level = level;
+        }
+
+        public TradingOrderPo getOrder() {
+            return order;
+        }
+
+        public OrderNode getNext() {
+            return next;
+        }
+    }
+
+    private final boolean descending;
+    /**
+     * 可以用long表示的价格档位
+     */
+    private final TreeMap<Long, PriceLevel> levels = new TreeMap<>();
+    /**
+     * 超出long范围的价格档位，一般不会出现，按需创建
+     */
+    private TreeMap<BigInteger, PriceLevel> overflowLevels;
+
+    private final Map<NulsHash, OrderNode> orderIndex = new HashMap<>();
+    /**
+     * 当前最优价格档位，撮合时绝大多数情况只需访问该档位
+     */
+    private PriceLevel bestLevel;
+
+    /**
+     * @param descending true:价格从高到低(买盘) false:价格从低到高(卖盘)
+     */
+    public PriceLevelBook(boolean descending) {
+        this.descending = descending;
+    }
+
+    private static boolean isLongPrice(BigInteger price) {
+        return price.bitLength() < Long.SIZE;
+    }
+
+    private PriceLevel getLevel(BigInteger price) {
+        if (isLongPrice(price)) {
+            return levels.get(price.longValue());
+        }
+        return overflowLevels == null ? null : overflowLevels.get(price);
+    }
+
+    private PriceLevel getOrCreateLevel(BigInteger price) {
+        PriceLevel level = getLevel(price);
+        if (level != null) {
+            return level;
+        }
+        level = new PriceLevel(price);
+        if (isLongPrice(price)) {
+            levels.put(price.longValue(), level);
+        } else {
+            if (overflowLevels == null) {
+                overflowLevels = new TreeMap<>();
+            }
+            overflowLevels.put(price, level);
+        }
+        if (bestLevel == null || isBetter(price, bestLevel.price)) {
+            bestLevel = level;
+        }
+        return level;
+    }
+
+    private void removeLevel(PriceLevel level) {
+        if (isLongPrice(level.price)) {
+            levels.remove(level.price.longValue());
+        } else if (overflowLevels != null) {
+            overflowLevels.remove(level.price);
+        }
+        if (level == bestLevel) {
+            bestLevel = nextLevel(null);
+        }
+    }
+
+    private boolean isBetter(BigInteger price, BigInteger other) {
+        int compare = price.compareTo(other);
+        return descending ? compare > 0 : compare < 0;
+    }
+
+    /**
+     * 按盘口优先级返回指定档位的下一个档位，level为null时返回最优档位
+     */
+    private PriceLevel nextLevel(PriceLevel level) {
+        Map.Entry<Long, PriceLevel> entry;
+        Map.Entry<BigInteger, PriceLevel> overflowEntry;
+        if (level == null) {
+            if (descending) {
+                overflowEntry = overflowLevels == null ? null : overflowLevels.lastEntry();
+                if (overflowEntry != null) {
+                    return overflowEntry.getValue();
+                }
+                entry = levels.lastEntry();
+                return entry == null ? null : entry.getValue();
+            }
+            entry = levels.firstEntry();
+            if (entry != null) {
+                return entry.getValue();
+            }
+            overflowEntry = overflowLevels == null ? null : overflowLevels.firstEntry();
+            return overflowEntry == null ? null : overflowEntry.getValue();
+        }
+        if (isLongPrice(level.price)) {
+            long key = level.price.longValue();
+            entry = descending ? levels.lowerEntry(key) : levels.higherEntry(key);
+            if (entry != null) {
+                return entry.getValue();
+            }
+            if (descending || overflowLevels == null) {
+                return null;
+            }
+            overflowEntry = overflowLevels.firstEntry();
+            return overflowEntry == null ? null : overflowEntry.getValue();
+        }
+        overflowEntry = descending ? overflowLevels.lowerEntry(level.price) : overflowLevels.higherEntry(level.price);
+        if (overflowEntry != null) {
+            return overflowEntry.getValue();
+        }
+        if (!descending) {
+            return null;
+        }
+        entry = levels.lastEntry();
+        return entry == null ? null : entry.getValue();
+    }
+
+    /**
+     * 添加挂单到对应价格档位队尾，已存在的挂单只替换数据
+     */
+    public void add(TradingOrderPo order) {
+        OrderNode node = orderIndex.get(order.getOrderHash());
+        if (node != null && node.level.price.equals(order.getPrice())) {
+            node.level.amount = node.level.amount.subtract(node.order.getLeftAmount()).add(order.getLeftAmount());
+            node.order = order;
+            return;
+        }
+        if (node != null) {
+            unlink(node);
+        }
+        PriceLevel level = getOrCreateLevel(order.getPrice());
+        node = new OrderNode(order, level);
+        if (level.tail == null) {
+            level.head = node;
+        } else {
+            level.tail.next = node;
+            node.prev = level.tail;
+        }
+        level.tail = node;
+        level.size++;
+        level.amount = level.amount.add(order.getLeftAmount());
+        orderIndex.put(order.getOrderHash(), node);
+    }
+
+    /**
+     * 查询指定价格档位上的挂单
+     */
+    public TradingOrderPo get(BigInteger price, NulsHash orderHash) {
+        OrderNode node = orderIndex.get(orderHash);
+        if (node == null || !node.level.price.equals(price)) {
+            return null;
+        }
+        return node.order;
+    }
+
+    /**
+     * 按订单hash查询盘口内的挂单
+     */
+    public TradingOrderPo get(NulsHash orderHash) {
+        OrderNode node = orderIndex.get(orderHash);
+        return node == null ? null : node.order;
+    }
+
+    /**
+     * 用新的挂单数据更新盘口内的挂单，并同步档位累计数量
+     *
+     * @return 盘口内的挂单，不存在时返回null
+     */
+    public TradingOrderPo update(TradingOrderPo order) {
+        OrderNode node = orderIndex.get(order.getOrderHash());
+        if (node == null || !node.level.price.equals(order.getPrice())) {
+            return null;
+        }
+        BigInteger oldAmount = node.order.getLeftAmount();
+        node.order.copyFrom(order);
+        node.level.amount = node.level.amount.subtract(oldAmount).add(node.order.getLeftAmount());
+        return node.order;
+    }
+
+    /**
+     * 从指定价格档位上删除挂单，档位为空时删除档位
+     */
+    public TradingOrderPo remove(BigInteger price, NulsHash orderHash) {
+        OrderNode node = orderIndex.get(orderHash);
+        if (node == null || !node.level.price.equals(price)) {
+            return null;
+        }
+        unlink(node);
+        return node.order;
+    }
+
+    private void unlink(OrderNode node) {
+        PriceLevel level = node.level;
+        if (node.prev == null) {
+            level.head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            level.tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        level.size--;
+        level.amount = level.amount.subtract(node.order.getLeftAmount());
+        orderIndex.remove(node.order.getOrderHash());
+        if (level.size == 0) {
+            removeLevel(level);
+        }
+    }
+
+    /**
+     * 查询指定价格的档位，不存在时返回null
+     */
+    public PriceLevel getPriceLevel(BigInteger price) {
+        return getLevel(price);
+    }
+
+    /**
+     * 按盘口优先级顺序返回价格档位
+     */
+    public List<PriceLevel> getLevels() {
+        return getLevels(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按盘口优先级顺序返回前limit个价格档位
+     */
+    public List<PriceLevel> getLevels(int limit) {
+        List<PriceLevel> list = new ArrayList<>(Math.min(limit, levelCount()));
+        for (PriceLevel level = bestLevel; level != null && list.size() < limit; level = nextLevel(level)) {
+            list.add(level);
+        }
+        return list;
+    }
+
+    /**
+     * 按盘口优先级找到第一条满足条件的挂单
+     */
+    public TradingOrderPo findFirst(Predicate<TradingOrderPo> predicate) {
+        for (PriceLevel level = bestLevel; level != null; level = nextLevel(level)) {
+            for (OrderNode node = level.head; node != null; node = node.next) {
+                if (predicate.test(node.order)) {
+                    return node.order;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 最优价格，盘口为空时返回null
+     */
+    public BigInteger firstPrice() {
+        return bestLevel == null ? null : bestLevel.price;
+    }
+
+    /**
+     * 按盘口优先级顺序返回前limit条挂单
+     */
+    public List<TradingOrderPo> getOrders(int limit) {
+        List<TradingOrderPo> list = new ArrayList<>(Math.min(limit, orderIndex.size()));
+        for (PriceLevel level = bestLevel; level != null; level = nextLevel(level)) {
+            for (OrderNode node = level.head; node != null; node = node.next) {
+                if (list.size() >= limit) {
+                    return list;
+                }
+                list.add(node.order);
+            }
+        }
+        return list;
+    }
+
+    public boolean isEmpty() {
+        return orderIndex.isEmpty();
+    }
+
+    public int size() {
+        return orderIndex.size();
+    }
+
+    public int levelCount() {
+        return levels.size() + (overflowLevels == null ? 0 : overflowLevels.size());
+    }
+}
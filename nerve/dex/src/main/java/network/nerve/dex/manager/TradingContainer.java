@@ -1,38 +1,58 @@
 package network.nerve.dex.manager;
 
+import io.nuls.base.data.NulsHash;
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
 import network.nerve.dex.context.DexConstant;
 import network.nerve.dex.context.DexErrorCode;
+import network.nerve.dex.model.bean.DepthInfo;
+import network.nerve.dex.model.bean.DepthLevel;
 import network.nerve.dex.model.po.CoinTradingPo;
 import network.nerve.dex.model.po.TradingOrderPo;
 
-import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
 
 /**
  * 币对盘口管理容器
- * 存放币对的买单和卖单
+ * 存放币对的买单和卖单，同一币对的读写通过容器对象锁串行执行
  */
 public class TradingContainer {
 
     private CoinTradingPo coinTrading;
 
-    private NavigableMap<BigInteger, Map<String, TradingOrderPo>> sellOrderList;
-
-    private NavigableMap<BigInteger, Map<String, TradingOrderPo>> buyOrderList;
+    /**
+     * 卖盘，按照价格正序排列
+     */
+    private PriceLevelBook sellBook;
+    /**
+     * 买盘，按照价格倒序排列
+     */
+    private PriceLevelBook buyBook;
+    /**
+     * 盘口深度变化序号，每次增删改挂单递增
+     */
+    private long depthSequence;
+    /**
+     * 盘口深度变化监听，只有节点的正式盘口才设置，打包用的临时盘口不通知
+     */
+    private DepthListener depthListener;
+    /**
+     * 按挂单地址索引的挂单，与盘口引用同一挂单对象
+     * 只有节点的正式盘口维护，打包用的临时盘口为null
+     */
+    private Map<ByteArrayWrapper, Map<NulsHash, TradingOrderPo>> addressOrderMap;
 
     public TradingContainer() {
-        //卖单按照价格正序排列
-        sellOrderList = new ConcurrentSkipListMap<>(Comparator.naturalOrder());
-        //买单按照价格倒序排列
-        buyOrderList = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+        sellBook = new PriceLevelBook(false);
+        buyBook = new PriceLevelBook(true);
     }
 
     public TradingContainer(CoinTradingPo coinTrading) {
         this();
         this.coinTrading = coinTrading;
+        this.addressOrderMap = new HashMap<>();
     }
 
     /**
@@ -56,25 +76,16 @@ public class TradingContainer {
      *
      * @param po
      */
-    public void addTradingOrder(TradingOrderPo po) {
-        if (po.getType() == DexConstant.TRADING_ORDER_BUY_TYPE) {
-            addToTradingOrder(buyOrderList, po);
-        } else {
-            addToTradingOrder(sellOrderList, po);
+    public synchronized void addTradingOrder(TradingOrderPo po) {
+        getBook(po.getType()).add(po);
+        if (addressOrderMap != null) {
+            addressOrderMap.computeIfAbsent(new ByteArrayWrapper(po.getAddress()), k -> new HashMap<>()).put(po.getOrderHash(), po);
         }
+        depthChanged(po.getType(), po.getPrice());
     }
 
-    private void addToTradingOrder(NavigableMap<BigInteger, Map<String, TradingOrderPo>> orderList, TradingOrderPo o1) {
-        String lock = coinTrading.getHash().toHex() + o1.getPrice();
-        orderList.compute(o1.getPrice(), (key, list) -> {
-            synchronized (lock) {
-                if (list == null) {
-                    list = new LinkedHashMap<>();
-                }
-                list.put(o1.getOrderHash().toHex(), o1);
-            }
-            return list;
-        });
+    private PriceLevelBook getBook(byte type) {
+        return type == DexConstant.TRADING_ORDER_BUY_TYPE ? buyBook : sellBook;
     }
 
     /**
@@ -82,118 +93,206 @@ public class TradingContainer {
      *
      * @param o1
      */
-    public void updateTradingOrder(TradingOrderPo o1) throws NulsException {
-        TradingOrderPo oldOrder;
-        if (o1.getType() == DexConstant.TRADING_ORDER_BUY_TYPE) {
-            if (buyOrderList.isEmpty()) {
-                throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "tradingOrder not found");
-            }
-            oldOrder = getTradingOrder(buyOrderList, o1.getPrice(), o1.getOrderHash().toHex());
-            if (oldOrder == null) {
-                throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "tradingOrder not found");
-            }
-            oldOrder.copyFrom(o1);
-        } else {
-            if (sellOrderList.isEmpty()) {
-                throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "tradingOrder not found");
-            }
-            oldOrder = getTradingOrder(sellOrderList, o1.getPrice(), o1.getOrderHash().toHex());
-            if (oldOrder == null) {
-                throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "tradingOrder not found");
+    public synchronized void updateTradingOrder(TradingOrderPo o1) throws NulsException {
+        TradingOrderPo oldOrder = getBook(o1.getType()).update(o1);
+        if (oldOrder == null) {
+            throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "tradingOrder not found");
+        }
+        depthChanged(o1.getType(), o1.getPrice());
+    }
+
+    /**
+     * 将挂单从盘口内移除
+     *
+     * @param o1
+     */
+    public synchronized void removeTradingOrder(TradingOrderPo o1) {
+        TradingOrderPo removed = getBook(o1.getType()).remove(o1.getPrice(), o1.getOrderHash());
+        if (removed == null) {
+            return;
+        }
+        if (addressOrderMap != null) {
+            ByteArrayWrapper address = new ByteArrayWrapper(removed.getAddress());
+            Map<NulsHash, TradingOrderPo> orderMap = addressOrderMap.get(address);
+            if (orderMap != null) {
+                orderMap.remove(removed.getOrderHash());
+                if (orderMap.isEmpty()) {
+                    addressOrderMap.remove(address);
+                }
             }
-            oldOrder.copyFrom(o1);
         }
+        depthChanged(o1.getType(), o1.getPrice());
+    }
+
+    /**
+     * 按订单hash查询盘口内的挂单
+     */
+    public synchronized TradingOrderPo getTradingOrder(NulsHash orderHash) {
+        TradingOrderPo po = buyBook.get(orderHash);
+        return po != null ? po : sellBook.get(orderHash);
+    }
+
+    /**
+     * 按盘口顺序复制全部挂单用于保存盘口快照
+     * 同一价格档位内按挂单的区块高度和交易序号排序，与节点启动时从挂单表加载后的顺序一致
+     */
+    public synchronized List<TradingOrderPo> getCheckpointOrders() {
+        List<TradingOrderPo> list = new ArrayList<>(buyBook.size() + sellBook.size());
+        addCheckpointOrders(buyBook, list);
+        addCheckpointOrders(sellBook, list);
+        return list;
     }
 
-    private TradingOrderPo getTradingOrder(NavigableMap<BigInteger, Map<String, TradingOrderPo>> orderList, BigInteger price, String hash) {
-        String lock = coinTrading.getHash().toHex() + price;
-        synchronized (lock) {
-            Map<String, TradingOrderPo> list = orderList.get(price);
-            if (list == null) {
-                return null;
+    private void addCheckpointOrders(PriceLevelBook book, List<TradingOrderPo> list) {
+        for (PriceLevelBook.PriceLevel level : book.getLevels()) {
+            int start = list.size();
+            for (PriceLevelBook.OrderNode node = level.getHead(); node != null; node = node.getNext()) {
+                list.add(node.getOrder().copy());
             }
-            return list.get(hash);
+            Collections.sort(list.subList(start, list.size()));
         }
     }
 
     /**
-     * 将挂单从盘口内移除
+     * 查询地址在当前币对的全部挂单，按挂单的区块高度和交易序号排序
+     * 返回挂单的副本，只能在节点的正式盘口上查询
      *
-     * @param o1
+     * @param address 挂单地址
+     * @return 挂单列表
      */
+    public synchronized List<TradingOrderPo> getAddressOrders(byte[] address) {
+        Map<NulsHash, TradingOrderPo> orderMap = addressOrderMap.get(new ByteArrayWrapper(address));
+        if (orderMap == null) {
+            return new ArrayList<>();
+        }
+        List<TradingOrderPo> list = new ArrayList<>(orderMap.size());
+        for (TradingOrderPo po : orderMap.values()) {
+            list.add(po.copy());
+        }
+        Collections.sort(list);
+        return list;
+    }
 
-    public void removeTradingOrder(TradingOrderPo o1) {
-        if (o1.getType() == DexConstant.TRADING_ORDER_BUY_TYPE) {
-            removeTradingOrder(buyOrderList, o1);
+    private void depthChanged(byte type, BigInteger price) {
+        depthSequence++;
+        if (depthListener == null) {
+            return;
+        }
+        PriceLevelBook.PriceLevel level = getBook(type).getPriceLevel(price);
+        if (level == null) {
+            depthListener.onDepthChange(this, depthSequence, type, new DepthLevel(price, BigInteger.ZERO, 0));
         } else {
-            removeTradingOrder(sellOrderList, o1);
+            depthListener.onDepthChange(this, depthSequence, type, new DepthLevel(price, level.getAmount(), level.getSize()));
         }
     }
 
-    private TradingOrderPo removeTradingOrder(NavigableMap<BigInteger, Map<String, TradingOrderPo>> orderList, TradingOrderPo o1) {
-        String lock = coinTrading.getHash().toHex() + o1.getPrice();
-        synchronized (lock) {
-            Map<String, TradingOrderPo> list = orderList.get(o1.getPrice());
-            if (list == null) {
-                return null;
-            }
-            list.remove(o1.getOrderHash().toHex());
-            if (list.isEmpty()) {
-                orderList.remove(o1.getPrice());
-            }
-            return o1;
+    /**
+     * 查询盘口深度快照，买盘和卖盘各返回前limit个价格档位
+     * 打包时临时盘口会直接修改挂单数据，档位累计数量只对节点的正式盘口有效
+     *
+     * @param limit 档位数量
+     * @return 深度快照
+     */
+    public synchronized DepthInfo getDepth(int limit) {
+        DepthInfo depthInfo = new DepthInfo();
+        depthInfo.setTradingHash(coinTrading.getHash().toHex());
+        depthInfo.setSequence(depthSequence);
+        depthInfo.setBids(toDepthLevels(buyBook.getLevels(limit)));
+        depthInfo.setAsks(toDepthLevels(sellBook.getLevels(limit)));
+        return depthInfo;
+    }
+
+    private List<DepthLevel> toDepthLevels(List<PriceLevelBook.PriceLevel> levels) {
+        List<DepthLevel> list = new ArrayList<>(levels.size());
+        for (PriceLevelBook.PriceLevel level : levels) {
+            list.add(new DepthLevel(level.getPrice(), level.getAmount(), level.getSize()));
         }
+        return list;
     }
 
-    public CoinTradingPo getCoinTrading() {
-        return coinTrading;
+    public synchronized long getDepthSequence() {
+        return depthSequence;
     }
 
-    public void setCoinTrading(CoinTradingPo coinTrading) {
-        this.coinTrading = coinTrading;
+    public synchronized void setDepthListener(DepthListener depthListener) {
+        this.depthListener = depthListener;
+    }
+
+    /**
+     * 按价格优先、时间优先找到买盘第一条满足条件的挂单
+     */
+    public synchronized TradingOrderPo getFirstBuyOrder(Predicate<TradingOrderPo> predicate) {
+        return buyBook.findFirst(predicate);
     }
 
-    public NavigableMap<BigInteger, Map<String, TradingOrderPo>> getSellOrderList() {
-        return sellOrderList;
+    /**
+     * 按价格优先、时间优先找到卖盘第一条满足条件的挂单
+     */
+    public synchronized TradingOrderPo getFirstSellOrder(Predicate<TradingOrderPo> predicate) {
+        return sellBook.findFirst(predicate);
     }
 
-    public void setSellOrderList(NavigableMap<BigInteger, Map<String, TradingOrderPo>> sellOrderList) {
-        this.sellOrderList = sellOrderList;
+    /**
+     * 买一价，买盘为空时返回null
+     */
+    public synchronized BigInteger getFirstBuyPrice() {
+        return buyBook.firstPrice();
     }
 
-    public NavigableMap<BigInteger, Map<String, TradingOrderPo>> getBuyOrderList() {
-        return buyOrderList;
+    /**
+     * 卖一价，卖盘为空时返回null
+     */
+    public synchronized BigInteger getFirstSellPrice() {
+        return sellBook.firstPrice();
     }
 
-    public void setBuyOrderList(NavigableMap<BigInteger, Map<String, TradingOrderPo>> buyOrderList) {
-        this.buyOrderList = buyOrderList;
+    /**
+     * 按盘口顺序返回买盘前limit条挂单
+     */
+    public synchronized List<TradingOrderPo> getBuyOrders(int limit) {
+        return buyBook.getOrders(limit);
     }
 
-    public TradingContainer copy(int orderSize) {
+    /**
+     * 按盘口顺序返回卖盘前limit条挂单
+     */
+    public synchronized List<TradingOrderPo> getSellOrders(int limit) {
+        return sellBook.getOrders(limit);
+    }
+
+    public synchronized boolean isEmpty() {
+        return buyBook.isEmpty() && sellBook.isEmpty();
+    }
+
+    public CoinTradingPo getCoinTrading() {
+        return coinTrading;
+    }
+
+    public void setCoinTrading(CoinTradingPo coinTrading) {
+        this.coinTrading = coinTrading;
+    }
+
+    /**
+     * 盘口引擎本身非线程安全，直接访问时需持有当前容器的锁
+     */
+    public PriceLevelBook getSellBook() {
+        return sellBook;
+    }
+
+    public PriceLevelBook getBuyBook() {
+        return buyBook;
+    }
+
+    public synchronized TradingContainer copy(int orderSize) {
         TradingContainer copy = new TradingContainer();
         copy.setCoinTrading(this.coinTrading.copy());
-        //复制盘口买单的前orderSize条
-        int count = 0;
-
-        for (Map.Entry<BigInteger, Map<String, TradingOrderPo>> entry : this.getBuyOrderList().entrySet()) {
-            if (count > orderSize) break;
-            Map<String, TradingOrderPo> map = entry.getValue();
-            for (TradingOrderPo orderPo : map.values()) {
-                copy.addTradingOrder(orderPo.copy());
-                count++;
-                if (count > orderSize) break;
-            }
+        //复制盘口买单和卖单的前orderSize条（含第orderSize+1条）
+        int limit = orderSize == Integer.MAX_VALUE ? orderSize : orderSize + 1;
+        for (TradingOrderPo orderPo : buyBook.getOrders(limit)) {
+            copy.buyBook.add(orderPo.copy());
         }
-        //复制盘口卖单的前orderSize条
-        count = 0;
-        for (Map.Entry<BigInteger, Map<String, TradingOrderPo>> entry : this.getSellOrderList().entrySet()) {
-            if (count > orderSize) break;
-            Map<String, TradingOrderPo> map = entry.getValue();
-            for (TradingOrderPo orderPo : map.values()) {
-                copy.addTradingOrder(orderPo.copy());
-                count++;
-                if (count > orderSize) break;
-            }
+        for (TradingOrderPo orderPo : sellBook.getOrders(limit)) {
+            copy.sellBook.add(orderPo.copy());
         }
         return copy;
     }
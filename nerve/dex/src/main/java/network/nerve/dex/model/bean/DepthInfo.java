@@ -0,0 +1,50 @@
+package network.nerve.dex.model.bean;
+
+import java.util.List;
+
+/**
+ * 币对盘口深度快照
+ * sequence为快照对应的深度变化序号，客户端在快照之后只需应用序号更大的深度变化推送
+ */
+public class DepthInfo {
+
+    private String tradingHash;
+
+    private long sequence;
+
+    private List<DepthLevel> bids;
+
+    private List<DepthLevel> asks;
+
+    public String getTradingHash() {
+        return tradingHash;
+    }
+
+    public void setTradingHash(String tradingHash) {
+        this.tradingHash = tradingHash;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public List<DepthLevel> getBids() {
+        return bids;
+    }
+
+    public void setBids(List<DepthLevel> bids) {
+        this.bids = bids;
+    }
+
+    public List<DepthLevel> getAsks() {
+        return asks;
+    }
+
+    public void setAsks(List<DepthLevel> asks) {
+        this.asks = asks;
+    }
+}
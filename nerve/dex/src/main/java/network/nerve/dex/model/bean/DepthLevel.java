@@ -0,0 +1,51 @@
+package network.nerve.dex.model.bean;
+
+import java.math.BigInteger;
+
+/**
+ * 盘口深度的一个价格档位
+ */
+public class DepthLevel {
+
+    private BigInteger price;
+    /**
+     * 档位内挂单剩余未成交的交易币数量，为0时表示档位已删除
+     */
+    private BigInteger amount;
+
+    private int orderCount;
+
+    public DepthLevel() {
+
+    }
+
+    public DepthLevel(BigInteger price, BigInteger amount, int orderCount) {
+        this.price = price;
+        this.amount = amount;
+        this.orderCount = orderCount;
+    }
+
+    public BigInteger getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigInteger price) {
+        this.price = price;
+    }
+
+    public BigInteger getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigInteger amount) {
+        this.amount = amount;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,168 @@
+package network.nerve.dex.model.po;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseNulsData;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * 交易对某个周期的一根K线
+ * 交易对hash、周期和开始时间组成存储的key，不参与序列化
+ */
+public class CandlePo extends BaseNulsData {
+    //交易对hash
+    private transient NulsHash tradingHash;
+    //周期(秒)
+    private transient int period;
+    //K线开始时间(秒)，为周期的整数倍
+    private transient long time;
+    //开盘价
+    private BigInteger open;
+    //最高价
+    private BigInteger high;
+    //最低价
+    private BigInteger low;
+    //收盘价
+    private BigInteger close;
+    //交易币种成交量
+    private BigInteger baseVolume;
+    //计价币种成交量
+    private BigInteger quoteVolume;
+    //成交笔数
+    private long count;
+
+    public CandlePo() {
+
+    }
+
+    public CandlePo(NulsHash tradingHash, int period, long time) {
+        this.tradingHash = tradingHash;
+        this.period = period;
+        this.time = time;
+        this.baseVolume = BigInteger.ZERO;
+        this.quoteVolume = BigInteger.ZERO;
+    }
+
+    /**
+     * 按成交顺序追加一笔成交
+     */
+    public void addDeal(DealRecordPo record) {
+        BigInteger price = record.getPrice();
+        if (count == 0) {
+            open = price;
+            high = price;
+            low = price;
+        } else {
+            high = high.max(price);
+            low = low.min(price);
+        }
+        close = price;
+        baseVolume = baseVolume.add(record.getBaseAmount());
+        quoteVolume = quoteVolume.add(record.getQuoteAmount());
+        count++;
+    }
+
+    /**
+     * 按时间顺序合并更小周期的K线
+     */
+    public void merge(CandlePo candle) {
+        if (count == 0) {
+            open = candle.open;
+            high = candle.high;
+            low = candle.low;
+        } else {
+            high = high.max(candle.high);
+            low = low.min(candle.low);
+        }
+        close = candle.close;
+        baseVolume = baseVolume.add(candle.baseVolume);
+        quoteVolume = quoteVolume.add(candle.quoteVolume);
+        count += candle.count;
+    }
+
+    @Override
+    public int size() {
+        int size = SerializeUtils.sizeOfBigInteger() * 6;
+        size += SerializeUtils.sizeOfUint32();
+        return size;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.writeBigInteger(open);
+        stream.writeBigInteger(high);
+        stream.writeBigInteger(low);
+        stream.writeBigInteger(close);
+        stream.writeBigInteger(baseVolume);
+        stream.writeBigInteger(quoteVolume);
+        stream.writeUint32(count);
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        open = byteBuffer.readBigInteger();
+        high = byteBuffer.readBigInteger();
+        low = byteBuffer.readBigInteger();
+        close = byteBuffer.readBigInteger();
+        baseVolume = byteBuffer.readBigInteger();
+        quoteVolume = byteBuffer.readBigInteger();
+        count = byteBuffer.readUint32();
+    }
+
+    public NulsHash getTradingHash() {
+        return tradingHash;
+    }
+
+    public void setTradingHash(NulsHash tradingHash) {
+        this.tradingHash = tradingHash;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(int period) {
+        this.period = period;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public BigInteger getOpen() {
+        return open;
+    }
+
+    public BigInteger getHigh() {
+        return high;
+    }
+
+    public BigInteger getLow() {
+        return low;
+    }
+
+    public BigInteger getClose() {
+        return close;
+    }
+
+    public BigInteger getBaseVolume() {
+        return baseVolume;
+    }
+
+    public BigInteger getQuoteVolume() {
+        return quoteVolume;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
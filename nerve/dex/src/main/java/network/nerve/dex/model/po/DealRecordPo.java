@@ -0,0 +1,185 @@
+package network.nerve.dex.model.po;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.NulsOutputStreamBuffer;
+import io.nuls.base.data.BaseNulsData;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.exception.NulsRuntimeException;
+import io.nuls.core.parse.SerializeUtils;
+import network.nerve.dex.model.txData.TradingDeal;
+import network.nerve.dex.util.LoggerUtil;
+
+import java.io.IOException;
+import java.math.BigInteger;
+
+/**
+ * 成交历史索引记录
+ * 交易对hash、成交时间、区块高度和交易在区块中的序号组成存储的key，不参与序列化
+ */
+public class DealRecordPo extends BaseNulsData {
+    //交易对hash
+    private transient NulsHash tradingHash;
+    //成交时间(秒)
+    private transient long time;
+    //区块高度
+    private transient long height;
+    //成交交易在区块dex交易中的序号
+    private transient int index;
+    //成交交易hash
+    private NulsHash dealHash;
+    //成交价
+    private BigInteger price;
+    //交易币种成交量
+    private BigInteger baseAmount;
+    //计价币种成交量
+    private BigInteger quoteAmount;
+    //买单卖单完成状态
+    private byte type;
+    //主动吃单方
+    private byte taker;
+
+    public DealRecordPo() {
+
+    }
+
+    public DealRecordPo(NulsHash dealHash, TradingDeal deal, long time, long height, int index) {
+        this.dealHash = dealHash;
+        this.tradingHash = new NulsHash(deal.getTradingHash());
+        this.time = time;
+        this.height = height;
+        this.index = index;
+        this.price = deal.getPrice();
+        this.baseAmount = deal.getBaseAmount();
+        this.quoteAmount = deal.getQuoteAmount();
+        this.type = deal.getType();
+        this.taker = deal.getTaker();
+    }
+
+    /**
+     * 由成交交易生成成交历史索引记录，提交和回滚使用同一份记录，成交时间使用成交交易的时间(秒)
+     *
+     * @param tx     成交交易
+     * @param height 区块高度
+     * @param index  成交交易在区块dex交易中的序号
+     */
+    public static DealRecordPo fromDealTx(Transaction tx, long height, int index) {
+        try {
+            TradingDeal deal = new TradingDeal();
+            deal.parse(new NulsByteBuffer(tx.getTxData()));
+            return new DealRecordPo(tx.getHash(), deal, tx.getTime(), height, index);
+        } catch (NulsException e) {
+            LoggerUtil.dexLog.error(e);
+            throw new NulsRuntimeException(e.getErrorCode());
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = NulsHash.HASH_LENGTH;
+        size += SerializeUtils.sizeOfBigInteger() * 3;
+        size += 2;
+        return size;
+    }
+
+    @Override
+    protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        stream.write(dealHash.getBytes());
+        stream.writeBigInteger(price);
+        stream.writeBigInteger(baseAmount);
+        stream.writeBigInteger(quoteAmount);
+        stream.writeByte(type);
+        stream.writeByte(taker);
+    }
+
+    @Override
+    public void parse(NulsByteBuffer byteBuffer) throws NulsException {
+        dealHash = byteBuffer.readHash();
+        price = byteBuffer.readBigInteger();
+        baseAmount = byteBuffer.readBigInteger();
+        quoteAmount = byteBuffer.readBigInteger();
+        type = byteBuffer.readByte();
+        taker = byteBuffer.readByte();
+    }
+
+    public NulsHash getTradingHash() {
+        return tradingHash;
+    }
+
+    public void setTradingHash(NulsHash tradingHash) {
+        this.tradingHash = tradingHash;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    public void setHeight(long height) {
+        this.height = height;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public NulsHash getDealHash() {
+        return dealHash;
+    }
+
+    public void setDealHash(NulsHash dealHash) {
+        this.dealHash = dealHash;
+    }
+
+    public BigInteger getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigInteger price) {
+        this.price = price;
+    }
+
+    public BigInteger getBaseAmount() {
+        return baseAmount;
+    }
+
+    public void setBaseAmount(BigInteger baseAmount) {
+        this.baseAmount = baseAmount;
+    }
+
+    public BigInteger getQuoteAmount() {
+        return quoteAmount;
+    }
+
+    public void setQuoteAmount(BigInteger quoteAmount) {
+        this.quoteAmount = quoteAmount;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public void setType(byte type) {
+        this.type = type;
+    }
+
+    public byte getTaker() {
+        return taker;
+    }
+
+    public void setTaker(byte taker) {
+        this.taker = taker;
+    }
+}
@@ -1,5 +1,6 @@
 package network.nerve.dex.rpc;
 
+import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.NulsHash;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -12,20 +13,40 @@ import io.nuls.core.rpc.model.Parameters;
 import io.nuls.core.rpc.model.TypeDescriptor;
 import io.nuls.core.rpc.model.message.Response;
 import network.nerve.dex.context.DexConfig;
+import network.nerve.dex.context.DexConstant;
 import network.nerve.dex.context.DexErrorCode;
+import network.nerve.dex.context.DexRpcConstant;
 import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.bean.DepthInfo;
+import network.nerve.dex.model.bean.DepthLevel;
+import network.nerve.dex.model.po.CandlePo;
 import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.DealRecordPo;
 import network.nerve.dex.model.po.TradingOrderPo;
 import network.nerve.dex.storage.CoinTradingStorageService;
+import network.nerve.dex.storage.TradingDealHistoryStorageService;
 import network.nerve.dex.storage.TradingOrderStorageService;
 import network.nerve.dex.util.LoggerUtil;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
 public class DexTradingResource extends BaseCmd {
 
+    //盘口深度默认和最大返回的价格档位数
+    private static final int DEFAULT_DEPTH_SIZE = 50;
+    private static final int MAX_DEPTH_SIZE = 500;
+    //成交历史和K线默认和最大返回的条数
+    private static final int DEFAULT_HISTORY_SIZE = 100;
+    private static final int MAX_HISTORY_SIZE = 500;
+    //地址挂单分页默认和最大每页条数
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private DexConfig dexConfig;
     @Autowired
@@ -33,6 +54,8 @@ public class DexTradingResource extends BaseCmd {
     @Autowired
     private CoinTradingStorageService coinTradingStorageService;
     @Autowired
+    private TradingDealHistoryStorageService dealHistoryStorageService;
+    @Autowired
     private DexManager dexManager;
 
     @CmdAnnotation(cmd = "dx_getCoinTrading", version = 1.0, description = "get CoinTrading info")
@@ -92,4 +115,255 @@ public class DexTradingResource extends BaseCmd {
             return failed(DexErrorCode.SYS_UNKOWN_EXCEPTION);
         }
     }
+
+    /**
+     * 分页查询地址的当前挂单，数据来自节点盘口内按地址维护的挂单索引
+     */
+    @CmdAnnotation(cmd = "dx_getAddressOrders", version = 1.0, description = "get open orders of an address")
+    @Parameters(value = {
+            @Parameter(parameterName = "address", requestType = @TypeDescriptor(value = String.class), parameterDes = "挂单地址"),
+            @Parameter(parameterName = "tradingHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易对hash，为空时查询所有交易对", canNull = true),
+            @Parameter(parameterName = "pageNumber", requestType = @TypeDescriptor(value = int.class), parameterDes = "页码，从1开始", canNull = true),
+            @Parameter(parameterName = "pageSize", requestType = @TypeDescriptor(value = int.class), parameterDes = "每页条数", canNull = true)
+    })
+    public Response getAddressOrders(Map params) {
+        try {
+            String address = (String) params.get("address");
+            if (address == null || !AddressTool.validAddress(dexConfig.getChainId(), address)) {
+                throw new NulsException(DexErrorCode.PARAMETER_ERROR, "address error");
+            }
+            String tradingHash = (String) params.get("tradingHash");
+            int pageNumber = params.get("pageNumber") == null ? 1 : Integer.parseInt(params.get("pageNumber").toString());
+            int pageSize = params.get("pageSize") == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(params.get("pageSize").toString());
+            if (pageNumber <= 0 || pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+                throw new NulsException(DexErrorCode.PARAMETER_ERROR, "pageSize must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            List<TradingOrderPo> orderList = dexManager.getAddressOrders(AddressTool.getAddress(address), tradingHash);
+            int start = (int) Math.min((long) (pageNumber - 1) * pageSize, orderList.size());
+            int end = Math.min(start + pageSize, orderList.size());
+            List<Map<String, Object>> list = new ArrayList<>(end - start);
+            for (TradingOrderPo orderPo : orderList.subList(start, end)) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("orderHash", orderPo.getOrderHash().toHex());
+                map.put("tradingHash", orderPo.getTradingHash().toHex());
+                map.put("type", orderPo.getType());
+                map.put("price", orderPo.getPrice().toString());
+                map.put("amount", orderPo.getAmount().toString());
+                map.put("dealAmount", orderPo.getDealAmount().toString());
+                map.put("leftAmount", orderPo.getLeftAmount().toString());
+                map.put("leftQuoteAmount", orderPo.getLeftQuoteAmount().toString());
+                map.put("blockHeight", orderPo.getBlockHeight());
+                list.add(map);
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("pageNumber", pageNumber);
+            result.put("pageSize", pageSize);
+            result.put("totalCount", orderList.size());
+            result.put("list", list);
+            return success(result);
+        } catch (NulsException e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(DexErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
+    @CmdAnnotation(cmd = "dx_getDepth", version = 1.0, description = "get order book depth snapshot")
+    @Parameters(value = {
+            @Parameter(parameterName = "tradingHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易对hash"),
+            @Parameter(parameterName = "size", requestType = @TypeDescriptor(value = int.class), parameterDes = "买盘和卖盘各返回的价格档位数", canNull = true)
+    })
+    public Response getDepth(Map params) {
+        try {
+            return success(depthToMap(queryDepth(params)));
+        } catch (NulsException e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(DexErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
+    /**
+     * 按事件订阅盘口深度变化，订阅时返回当前深度快照，之后由DepthPublisher推送每个价格档位的变化
+     */
+    @CmdAnnotation(cmd = DexRpcConstant.DEPTH_UPDATE, version = 1.0, description = "subscribe order book depth updates")
+    @Parameters(value = {
+            @Parameter(parameterName = "tradingHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易对hash"),
+            @Parameter(parameterName = "size", requestType = @TypeDescriptor(value = int.class), parameterDes = "买盘和卖盘各返回的价格档位数", canNull = true)
+    })
+    public Response depthUpdate(Map params) {
+        return getDepth(params);
+    }
+
+    /**
+     * 查询交易对在时间范围内的成交记录，从最新的成交开始返回
+     */
+    @CmdAnnotation(cmd = "dx_getDealHistory", version = 1.0, description = "get trading deal history")
+    @Parameters(value = {
+            @Parameter(parameterName = "tradingHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易对hash"),
+            @Parameter(parameterName = "startTime", requestType = @TypeDescriptor(value = long.class), parameterDes = "开始时间(秒)", canNull = true),
+            @Parameter(parameterName = "endTime", requestType = @TypeDescriptor(value = long.class), parameterDes = "结束时间(秒)", canNull = true),
+            @Parameter(parameterName = "size", requestType = @TypeDescriptor(value = int.class), parameterDes = "返回条数", canNull = true)
+    })
+    public Response getDealHistory(Map params) {
+        try {
+            NulsHash tradingHash = parseTradingHash(params);
+            long startTime = parseLong(params, "startTime", 0);
+            long endTime = parseLong(params, "endTime", Long.MAX_VALUE);
+            int size = parseHistorySize(params);
+            List<DealRecordPo> records = dealHistoryStorageService.queryDeals(tradingHash, startTime, endTime, size);
+            List<Map<String, Object>> list = new ArrayList<>(records.size());
+            for (DealRecordPo record : records) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("dealHash", record.getDealHash().toHex());
+                map.put("time", record.getTime());
+                map.put("height", record.getHeight());
+                map.put("price", record.getPrice().toString());
+                map.put("baseAmount", record.getBaseAmount().toString());
+                map.put("quoteAmount", record.getQuoteAmount().toString());
+                map.put("type", record.getType());
+                map.put("taker", record.getTaker());
+                list.add(map);
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("tradingHash", tradingHash.toHex());
+            result.put("list", list);
+            return success(result);
+        } catch (NulsException e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(DexErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
+    /**
+     * 查询交易对在时间范围内的K线，返回其中最新的size根，按时间从早到晚排列
+     */
+    @CmdAnnotation(cmd = "dx_getCandles", version = 1.0, description = "get trading OHLCV candles")
+    @Parameters(value = {
+            @Parameter(parameterName = "tradingHash", requestType = @TypeDescriptor(value = String.class), parameterDes = "交易对hash"),
+            @Parameter(parameterName = "period", requestType = @TypeDescriptor(value = String.class), parameterDes = "K线周期:1m,5m,15m,30m,1h,4h,1d"),
+            @Parameter(parameterName = "startTime", requestType = @TypeDescriptor(value = long.class), parameterDes = "开始时间(秒)", canNull = true),
+            @Parameter(parameterName = "endTime", requestType = @TypeDescriptor(value = long.class), parameterDes = "结束时间(秒)", canNull = true),
+            @Parameter(parameterName = "size", requestType = @TypeDescriptor(value = int.class), parameterDes = "返回条数", canNull = true)
+    })
+    public Response getCandles(Map params) {
+        try {
+            NulsHash tradingHash = parseTradingHash(params);
+            int period = parsePeriod((String) params.get("period"));
+            long startTime = parseLong(params, "startTime", 0);
+            long endTime = parseLong(params, "endTime", Long.MAX_VALUE);
+            int size = parseHistorySize(params);
+            List<CandlePo> candles = dealHistoryStorageService.queryCandles(tradingHash, period, startTime, endTime, size);
+            List<Map<String, Object>> list = new ArrayList<>(candles.size());
+            for (CandlePo candle : candles) {
+                Map<String, Object> map = new HashMap<>();
+                map.put("time", candle.getTime());
+                map.put("open", candle.getOpen().toString());
+                map.put("high", candle.getHigh().toString());
+                map.put("low", candle.getLow().toString());
+                map.put("close", candle.getClose().toString());
+                map.put("baseVolume", candle.getBaseVolume().toString());
+                map.put("quoteVolume", candle.getQuoteVolume().toString());
+                map.put("count", candle.getCount());
+                list.add(map);
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("tradingHash", tradingHash.toHex());
+            result.put("period", params.get("period"));
+            result.put("list", list);
+            return success(result);
+        } catch (NulsException e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error(e);
+            return failed(DexErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
+    private NulsHash parseTradingHash(Map params) throws NulsException {
+        String tradingHash = (String) params.get("tradingHash");
+        if (tradingHash == null || !NulsHash.validHash(tradingHash)) {
+            throw new NulsException(DexErrorCode.PARAMETER_ERROR, "tradingHash error");
+        }
+        return NulsHash.fromHex(tradingHash);
+    }
+
+    private int parsePeriod(String period) throws NulsException {
+        for (int i = 0; i < DexConstant.CANDLE_PERIOD_NAMES.length; i++) {
+            if (DexConstant.CANDLE_PERIOD_NAMES[i].equals(period)) {
+                return DexConstant.CANDLE_PERIODS[i];
+            }
+        }
+        throw new NulsException(DexErrorCode.PARAMETER_ERROR, "unsupported period:" + period);
+    }
+
+    private long parseLong(Map params, String name, long defaultValue) throws NulsException {
+        if (params.get(name) == null) {
+            return defaultValue;
+        }
+        long value = Long.parseLong(params.get(name).toString());
+        if (value < 0) {
+            throw new NulsException(DexErrorCode.PARAMETER_ERROR, name + " must not be negative");
+        }
+        return value;
+    }
+
+    private int parseHistorySize(Map params) throws NulsException {
+        if (params.get("size") == null) {
+            return DEFAULT_HISTORY_SIZE;
+        }
+        int size = Integer.parseInt(params.get("size").toString());
+        if (size <= 0 || size > MAX_HISTORY_SIZE) {
+            throw new NulsException(DexErrorCode.PARAMETER_ERROR, "size must be between 1 and " + MAX_HISTORY_SIZE);
+        }
+        return size;
+    }
+
+    private DepthInfo queryDepth(Map params) throws NulsException {
+        String tradingHash = (String) params.get("tradingHash");
+        if (tradingHash == null) {
+            throw new NulsException(DexErrorCode.PARAMETER_ERROR, "tradingHash is null");
+        }
+        TradingContainer container = dexManager.getTradingContainer(tradingHash);
+        if (container == null) {
+            throw new NulsException(DexErrorCode.DATA_NOT_FOUND, "coinTrading not found");
+        }
+        int size = DEFAULT_DEPTH_SIZE;
+        if (params.get("size") != null) {
+            size = Integer.parseInt(params.get("size").toString());
+            if (size <= 0 || size > MAX_DEPTH_SIZE) {
+                throw new NulsException(DexErrorCode.PARAMETER_ERROR, "size must be between 1 and " + MAX_DEPTH_SIZE);
+            }
+        }
+        return container.getDepth(size);
+    }
+
+    private Map<String, Object> depthToMap(DepthInfo depthInfo) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("tradingHash", depthInfo.getTradingHash());
+        map.put("sequence", depthInfo.getSequence());
+        map.put("bids", levelsToList(depthInfo.getBids()));
+        map.put("asks", levelsToList(depthInfo.getAsks()));
+        return map;
+    }
+
+    private List<Map<String, Object>> levelsToList(List<DepthLevel> levels) {
+        List<Map<String, Object>> list = new ArrayList<>(levels.size());
+        for (DepthLevel level : levels) {
+            Map<String, Object> map = new HashMap<>(4);
+            map.put("price", level.getPrice().toString());
+            map.put("amount", level.getAmount().toString());
+            map.put("orderCount", level.getOrderCount());
+            list.add(map);
+        }
+        return list;
+    }
 }
@@ -0,0 +1,41 @@
+package network.nerve.dex.storage;
+
+import io.nuls.base.data.NulsHash;
+import network.nerve.dex.model.po.CandlePo;
+import network.nerve.dex.model.po.DealRecordPo;
+
+import java.util.List;
+
+/**
+ * 成交历史和K线索引
+ * 每个区块的成交记录和受影响的K线在一次批量写入中完成，区块回滚时删除成交记录并重新计算受影响的K线
+ */
+public interface TradingDealHistoryStorageService {
+
+    /**
+     * 保存一个区块内的全部成交记录，并累加到各周期K线
+     * 已经保存过的成交记录会被跳过，同一区块重复提交不会重复累加
+     *
+     * @param records 按区块内交易顺序排列的成交记录
+     */
+    void saveBlockDeals(List<DealRecordPo> records) throws Exception;
+
+    /**
+     * 删除一个区块内的全部成交记录，并重新计算受影响的各周期K线
+     *
+     * @param records 该区块内的成交记录，只使用交易对hash、成交时间和区块高度
+     */
+    void rollbackBlockDeals(List<DealRecordPo> records) throws Exception;
+
+    /**
+     * 查询交易对在[startTime, endTime]内的成交记录，从最新的成交开始返回，最多limit条
+     */
+    List<DealRecordPo> queryDeals(NulsHash tradingHash, long startTime, long endTime, int limit) throws Exception;
+
+    /**
+     * 查询交易对在[startTime, endTime]内开始的K线，返回其中最新的limit根，按时间从早到晚排列
+     *
+     * @param period K线周期(秒)，必须是DexConstant.CANDLE_PERIODS之一
+     */
+    List<CandlePo> queryCandles(NulsHash tradingHash, int period, long startTime, long endTime, int limit) throws Exception;
+}
@@ -5,6 +5,7 @@ import io.nuls.core.exception.NulsException;
 import network.nerve.dex.model.po.TradingOrderPo;
 
 import java.util.List;
+import java.util.Set;
 
 public interface TradingOrderStorageService {
 
@@ -26,5 +27,20 @@ public interface TradingOrderStorageService {
 
     void saveHeight(long height);
 
+    /**
+     * 挂单变化日志的当前序号，挂单表每次修改前先记录一条日志
+     */
+    long getOrderLogSequence();
+
+    /**
+     * 查询序号大于sequence的挂单变化日志中的挂单hash
+     */
+    Set<NulsHash> queryChangedOrders(long sequence);
+
+    /**
+     * 删除序号小于sequence的挂单变化日志，保留sequence这一条用于节点重启后恢复日志序号
+     */
+    void pruneOrderLog(long sequence) throws Exception;
+
     long getHeight();
 }
@@ -0,0 +1,258 @@
+package network.nerve.dex.storage.impl;
+
+import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.core.annotation.Component;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.BatchOperation;
+import io.nuls.core.rockdb.service.RocksDBService;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexDBConstant;
+import network.nerve.dex.context.DexErrorCode;
+import network.nerve.dex.model.po.CandlePo;
+import network.nerve.dex.model.po.DealRecordPo;
+import network.nerve.dex.storage.TradingDealHistoryStorageService;
+import org.rocksdb.RocksIterator;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * 成交记录key: 'D' + 交易对hash + 成交时间 + 区块高度 + 区块内序号
+ * K线key:     'K' + 交易对hash + 周期序号 + 开始时间
+ * 数值均为大端序，同一交易对的成交记录和同一周期的K线在表内按时间顺序连续存放，时间范围查询只需一次seek
+ */
+@Component
+public class TradingDealHistoryStorageServiceImpl implements TradingDealHistoryStorageService {
+
+    private static final byte DEAL_PREFIX = 'D';
+    private static final byte CANDLE_PREFIX = 'K';
+
+    private static final int DEAL_KEY_LENGTH = 1 + NulsHash.HASH_LENGTH + 8 + 8 + 4;
+    private static final int CANDLE_KEY_LENGTH = 1 + NulsHash.HASH_LENGTH + 1 + 8;
+    private static final int TIME_OFFSET = 1 + NulsHash.HASH_LENGTH;
+
+    private final String table = DexDBConstant.DB_NAME_DEAL_HISTORY;
+
+    @Override
+    public void saveBlockDeals(List<DealRecordPo> records) throws Exception {
+        if (records.isEmpty()) {
+            return;
+        }
+        BatchOperation batch = RocksDBService.createWriteBatch(table);
+        //本区块内更新过的K线
+        Map<String, CandlePo> candleMap = new LinkedHashMap<>();
+        for (DealRecordPo record : records) {
+            byte[] key = dealKey(record.getTradingHash(), record.getTime(), record.getHeight(), record.getIndex());
+            if (RocksDBService.get(table, key) != null) {
+                continue;
+            }
+            batch.put(key, record.serialize());
+            for (int i = 0; i < DexConstant.CANDLE_PERIODS.length; i++) {
+                int period = DexConstant.CANDLE_PERIODS[i];
+                long time = record.getTime() - record.getTime() % period;
+                String candleKey = HexUtil.encode(candleKey(record.getTradingHash(), i, time));
+                CandlePo candle = candleMap.get(candleKey);
+                if (candle == null) {
+                    candle = queryCandle(record.getTradingHash(), i, time);
+                    if (candle == null) {
+                        candle = new CandlePo(record.getTradingHash(), period, time);
+                    }
+                    candleMap.put(candleKey, candle);
+                }
+                candle.addDeal(record);
+            }
+        }
+        for (Map.Entry<String, CandlePo> entry : candleMap.entrySet()) {
+            batch.put(HexUtil.decode(entry.getKey()), entry.getValue().serialize());
+        }
+        batch.executeBatch();
+    }
+
+    @Override
+    public void rollbackBlockDeals(List<DealRecordPo> records) throws Exception {
+        if (records.isEmpty()) {
+            return;
+        }
+        BatchOperation batch = RocksDBService.createWriteBatch(table);
+        //按交易对、成交时间和区块高度删除该区块的全部成交记录
+        Set<String> deletedKeys = new HashSet<>();
+        Set<String> prefixSet = new HashSet<>();
+        try (RocksIterator iterator = RocksDBManager.getTable(table).newIterator()) {
+            for (DealRecordPo record : records) {
+                byte[] prefix = Arrays.copyOf(dealKey(record.getTradingHash(), record.getTime(), record.getHeight(), 0), DEAL_KEY_LENGTH - 4);
+                if (!prefixSet.add(HexUtil.encode(prefix))) {
+                    continue;
+                }
+                for (iterator.seek(prefix); iterator.isValid() && startsWith(iterator.key(), prefix); iterator.next()) {
+                    byte[] key = iterator.key();
+                    deletedKeys.add(HexUtil.encode(key));
+                    batch.delete(key);
+                }
+            }
+        }
+        //由剩余的成交记录重新计算最小周期的K线，更大周期的K线由前一个周期的K线合并，K线为null表示已没有成交需要删除
+        Map<String, CandlePo> candleMap = new LinkedHashMap<>();
+        for (int i = 0; i < DexConstant.CANDLE_PERIODS.length; i++) {
+            int period = DexConstant.CANDLE_PERIODS[i];
+            for (DealRecordPo record : records) {
+                long time = record.getTime() - record.getTime() % period;
+                String candleKey = HexUtil.encode(candleKey(record.getTradingHash(), i, time));
+                if (candleMap.containsKey(candleKey)) {
+                    continue;
+                }
+                CandlePo candle;
+                if (i == 0) {
+                    candle = aggregateDeals(record.getTradingHash(), time, period, deletedKeys);
+                } else {
+                    candle = mergeCandles(record.getTradingHash(), i, time, candleMap);
+                }
+                candleMap.put(candleKey, candle);
+            }
+        }
+        for (Map.Entry<String, CandlePo> entry : candleMap.entrySet()) {
+            if (entry.getValue() == null) {
+                batch.delete(HexUtil.decode(entry.getKey()));
+            } else {
+                batch.put(HexUtil.decode(entry.getKey()), entry.getValue().serialize());
+            }
+        }
+        batch.executeBatch();
+    }
+
+    private CandlePo aggregateDeals(NulsHash tradingHash, long time, int period, Set<String> deletedKeys) throws NulsException {
+        CandlePo candle = new CandlePo(tradingHash, period, time);
+        byte[] prefix = Arrays.copyOf(dealKey(tradingHash, time, 0, 0), TIME_OFFSET);
+        try (RocksIterator iterator = RocksDBManager.getTable(table).newIterator()) {
+            for (iterator.seek(dealKey(tradingHash, time, 0, 0)); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if (!startsWith(key, prefix) || readLong(key, TIME_OFFSET) >= time + period) {
+                    break;
+                }
+                if (deletedKeys.contains(HexUtil.encode(key))) {
+                    continue;
+                }
+                candle.addDeal(parseDeal(tradingHash, key, iterator.value()));
+            }
+        }
+        return candle.getCount() == 0 ? null : candle;
+    }
+
+    private CandlePo mergeCandles(NulsHash tradingHash, int periodIndex, long time, Map<String, CandlePo> candleMap) throws NulsException {
+        int period = DexConstant.CANDLE_PERIODS[periodIndex];
+        int childPeriod = DexConstant.CANDLE_PERIODS[periodIndex - 1];
+        CandlePo candle = new CandlePo(tradingHash, period, time);
+        for (long childTime = time; childTime < time + period; childTime += childPeriod) {
+            String childKey = HexUtil.encode(candleKey(tradingHash, periodIndex - 1, childTime));
+            CandlePo child;
+            if (candleMap.containsKey(childKey)) {
+                child = candleMap.get(childKey);
+            } else {
+                child = queryCandle(tradingHash, periodIndex - 1, childTime);
+            }
+            if (child != null) {
+                candle.merge(child);
+            }
+        }
+        return candle.getCount() == 0 ? null : candle;
+    }
+
+    @Override
+    public List<DealRecordPo> queryDeals(NulsHash tradingHash, long startTime, long endTime, int limit) throws Exception {
+        List<DealRecordPo> list = new ArrayList<>();
+        byte[] prefix = Arrays.copyOf(dealKey(tradingHash, 0, 0, 0), TIME_OFFSET);
+        try (RocksIterator iterator = RocksDBManager.getTable(table).newIterator()) {
+            for (iterator.seekForPrev(dealKey(tradingHash, endTime, Long.MAX_VALUE, Integer.MAX_VALUE)); iterator.isValid() && list.size() < limit; iterator.prev()) {
+                byte[] key = iterator.key();
+                if (!startsWith(key, prefix) || readLong(key, TIME_OFFSET) < startTime) {
+                    break;
+                }
+                list.add(parseDeal(tradingHash, key, iterator.value()));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<CandlePo> queryCandles(NulsHash tradingHash, int period, long startTime, long endTime, int limit) throws Exception {
+        int periodIndex = periodIndex(period);
+        List<CandlePo> list = new ArrayList<>();
+        byte[] prefix = Arrays.copyOf(candleKey(tradingHash, periodIndex, 0), TIME_OFFSET + 1);
+        try (RocksIterator iterator = RocksDBManager.getTable(table).newIterator()) {
+            for (iterator.seekForPrev(candleKey(tradingHash, periodIndex, endTime)); iterator.isValid() && list.size() < limit; iterator.prev()) {
+                byte[] key = iterator.key();
+                if (!startsWith(key, prefix)) {
+                    break;
+                }
+                long time = readLong(key, TIME_OFFSET + 1);
+                if (time < startTime) {
+                    break;
+                }
+                list.add(parseCandle(tradingHash, period, time, iterator.value()));
+            }
+        }
+        Collections.reverse(list);
+        return list;
+    }
+
+    private CandlePo queryCandle(NulsHash tradingHash, int periodIndex, long time) throws NulsException {
+        byte[] value = RocksDBService.get(table, candleKey(tradingHash, periodIndex, time));
+        if (value == null) {
+            return null;
+        }
+        return parseCandle(tradingHash, DexConstant.CANDLE_PERIODS[periodIndex], time, value);
+    }
+
+    private DealRecordPo parseDeal(NulsHash tradingHash, byte[] key, byte[] value) throws NulsException {
+        DealRecordPo record = new DealRecordPo();
+        record.parse(new NulsByteBuffer(value));
+        record.setTradingHash(tradingHash);
+        record.setTime(readLong(key, TIME_OFFSET));
+        record.setHeight(readLong(key, TIME_OFFSET + 8));
+        record.setIndex(ByteBuffer.wrap(key, TIME_OFFSET + 16, 4).getInt());
+        return record;
+    }
+
+    private CandlePo parseCandle(NulsHash tradingHash, int period, long time, byte[] value) throws NulsException {
+        CandlePo candle = new CandlePo(tradingHash, period, time);
+        candle.parse(new NulsByteBuffer(value));
+        return candle;
+    }
+
+    private static int periodIndex(int period) throws NulsException {
+        for (int i = 0; i < DexConstant.CANDLE_PERIODS.length; i++) {
+            if (DexConstant.CANDLE_PERIODS[i] == period) {
+                return i;
+            }
+        }
+        throw new NulsException(DexErrorCode.PARAMETER_ERROR, "unsupported candle period:" + period);
+    }
+
+    private static byte[] dealKey(NulsHash tradingHash, long time, long height, int index) {
+        return ByteBuffer.allocate(DEAL_KEY_LENGTH).put(DEAL_PREFIX).put(tradingHash.getBytes())
+                .putLong(time).putLong(height).putInt(index).array();
+    }
+
+    private static byte[] candleKey(NulsHash tradingHash, int periodIndex, long time) {
+        return ByteBuffer.allocate(CANDLE_KEY_LENGTH).put(CANDLE_PREFIX).put(tradingHash.getBytes())
+                .put((byte) periodIndex).putLong(time).array();
+    }
+
+    private static long readLong(byte[] key, int offset) {
+        return ByteBuffer.wrap(key, offset, 8).getLong();
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,7 +23,7 @@ public class TradingDealStorageServiceImpl implements TradingDealStorageService
         }
         TradingDealPo po = new TradingDealPo();
         po.parse(new NulsByteBuffer(value));
-        po.setTradingHash(hash);
+        po.setDealHash(hash);
         return po;
     }
 
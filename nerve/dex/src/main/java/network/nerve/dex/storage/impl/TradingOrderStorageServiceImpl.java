@@ -6,26 +6,39 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.exception.NulsRuntimeException;
 import io.nuls.core.parse.SerializeUtils;
+import io.nuls.core.rockdb.manager.RocksDBManager;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.BatchOperation;
 import io.nuls.core.rockdb.service.RocksDBService;
 import network.nerve.dex.context.DexDBConstant;
 import network.nerve.dex.model.po.TradingOrderPo;
 import network.nerve.dex.storage.TradingOrderStorageService;
 import network.nerve.dex.util.LoggerUtil;
+import org.rocksdb.RocksIterator;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class TradingOrderStorageServiceImpl implements TradingOrderStorageService {
 
+    /**
+     * 挂单变化日志序号，首次使用时从日志表最后一条记录恢复
+     */
+    private long orderLogSequence = -1;
+
     @Override
     public void save(TradingOrderPo po) throws Exception {
+        logOrderChange(po.getOrderHash());
         RocksDBService.put(DexDBConstant.DB_NAME_TRADING_ORDER, po.getOrderHash().getBytes(), po.serialize());
     }
 
     @Override
     public void delete(NulsHash orderHash) throws Exception {
+        logOrderChange(orderHash);
         RocksDBService.delete(DexDBConstant.DB_NAME_TRADING_ORDER, orderHash.getBytes());
     }
 
@@ -38,12 +51,14 @@ public class TradingOrderStorageServiceImpl implements TradingOrderStorageServic
      */
     @Override
     public void stop(TradingOrderPo po) throws Exception {
+        logOrderChange(po.getOrderHash());
         RocksDBService.delete(DexDBConstant.DB_NAME_TRADING_ORDER, po.getOrderHash().getBytes());
         RocksDBService.put(DexDBConstant.DB_NAME_TRADING_ORDER_BACK, po.getOrderHash().getBytes(), po.serialize());
     }
 
     @Override
     public void rollbackStop(TradingOrderPo po) throws Exception {
+        logOrderChange(po.getOrderHash());
         RocksDBService.delete(DexDBConstant.DB_NAME_TRADING_ORDER_BACK, po.getOrderHash().getBytes());
         RocksDBService.put(DexDBConstant.DB_NAME_TRADING_ORDER, po.getOrderHash().getBytes(), po.serialize());
     }
@@ -122,4 +137,64 @@ public class TradingOrderStorageServiceImpl implements TradingOrderStorageServic
         }
         return 0;
     }
+
+    /**
+     * 先记录日志再修改挂单表，节点异常退出时日志中只会多出未完成修改的挂单
+     */
+    private void logOrderChange(NulsHash orderHash) throws Exception {
+        long sequence;
+        synchronized (this) {
+            sequence = getOrderLogSequence() + 1;
+            orderLogSequence = sequence;
+        }
+        RocksDBService.put(DexDBConstant.DB_NAME_ORDER_LOG, sequenceKey(sequence), orderHash.getBytes());
+    }
+
+    @Override
+    public synchronized long getOrderLogSequence() {
+        if (orderLogSequence < 0) {
+            orderLogSequence = 0;
+            try (RocksIterator iterator = RocksDBManager.getTable(DexDBConstant.DB_NAME_ORDER_LOG).newIterator()) {
+                iterator.seekToLast();
+                if (iterator.isValid()) {
+                    orderLogSequence = ByteBuffer.wrap(iterator.key()).getLong();
+                }
+            }
+        }
+        return orderLogSequence;
+    }
+
+    @Override
+    public Set<NulsHash> queryChangedOrders(long sequence) {
+        Set<NulsHash> hashSet = new LinkedHashSet<>();
+        try (RocksIterator iterator = RocksDBManager.getTable(DexDBConstant.DB_NAME_ORDER_LOG).newIterator()) {
+            for (iterator.seek(sequenceKey(sequence + 1)); iterator.isValid(); iterator.next()) {
+                hashSet.add(new NulsHash(iterator.value()));
+            }
+        }
+        return hashSet;
+    }
+
+    @Override
+    public void pruneOrderLog(long sequence) throws Exception {
+        BatchOperation batch = RocksDBService.createWriteBatch(DexDBConstant.DB_NAME_ORDER_LOG);
+        int count = 0;
+        try (RocksIterator iterator = RocksDBManager.getTable(DexDBConstant.DB_NAME_ORDER_LOG).newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                if (ByteBuffer.wrap(key).getLong() >= sequence) {
+                    break;
+                }
+                batch.delete(key);
+                count++;
+            }
+        }
+        if (count > 0) {
+            batch.executeBatch();
+        }
+    }
+
+    private static byte[] sequenceKey(long sequence) {
+        return ByteBuffer.allocate(8).putLong(sequence).array();
+    }
 }
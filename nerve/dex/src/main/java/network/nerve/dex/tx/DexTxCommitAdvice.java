@@ -6,14 +6,20 @@ import io.nuls.base.protocol.CommonAdvice;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.exception.NulsRuntimeException;
 import network.nerve.dex.context.DexConfig;
 import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexTxRecorder;
+import network.nerve.dex.manager.OrderBookCheckpointManager;
+import network.nerve.dex.model.po.DealRecordPo;
 import network.nerve.dex.storage.CoinTradingStorageService;
+import network.nerve.dex.storage.TradingDealHistoryStorageService;
 import network.nerve.dex.storage.TradingDealStorageService;
 import network.nerve.dex.storage.TradingOrderStorageService;
 import network.nerve.dex.tx.v1.process.*;
 import network.nerve.dex.util.LoggerUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -30,6 +36,12 @@ public class DexTxCommitAdvice implements CommonAdvice {
     @Autowired
     private TradingDealStorageService tradingDealStorageService;
     @Autowired
+    private TradingDealHistoryStorageService dealHistoryStorageService;
+    @Autowired
+    private OrderBookCheckpointManager checkpointManager;
+    @Autowired
+    private DexTxRecorder txRecorder;
+    @Autowired
     private CoinTradingProcessor coinTradingProcessor;
     @Autowired
     private TradingOrderProcessor tradingOrderProcessor;
@@ -47,10 +59,12 @@ public class DexTxCommitAdvice implements CommonAdvice {
         if (txList.isEmpty()) {
             return;
         }
+        txRecorder.beforeCommit(blockHeader);
 //        long time1, time2;
 //        time1 = System.currentTimeMillis();
 
         Transaction tx;
+        List<DealRecordPo> dealRecords = new ArrayList<>();
         for (int i = 0; i < txList.size(); i++) {
             tx = txList.get(i);
             tx.setBlockHeight(blockHeader.getHeight());
@@ -63,13 +77,23 @@ public class DexTxCommitAdvice implements CommonAdvice {
                 orderCancelProcessor.cancelOrderCommit(tx);
             } else if (tx.getType() == TxType.TRADING_DEAL) {
                 tradingDealProcessor.tradingDealCommit(tx);
+                dealRecords.add(DealRecordPo.fromDealTx(tx, blockHeader.getHeight(), i));
             } else if (tx.getType() == TxType.EDIT_COIN_TRADING) {
                 editCoinTradingProcessor.editCoinTradingCommit(tx);
             } else if (tx.getType() == TxType.ORDER_CANCEL_CONFIRM) {
                 orderCancelConfirmProcessor.txCommit(tx);
             }
         }
+        try {
+            dealHistoryStorageService.saveBlockDeals(dealRecords);
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error("Failure to save deal history, height:" + blockHeader.getHeight());
+            LoggerUtil.dexLog.error(e);
+            throw new NulsRuntimeException(e);
+        }
         tradingOrderStorageService.saveHeight(blockHeader.getHeight());
+        checkpointManager.afterCommit(blockHeader.getHeight(), dexManager);
+        txRecorder.recordCommit(txList, blockHeader);
 //        time2 = System.currentTimeMillis();
 //        if (time2 - time1 > 100) {
 //            LoggerUtil.dexLog.info("----dex commit---- block height:{}, txCount:{}, use:{} ", blockHeader.getHeight(), txList.size(), (time2 - time1));
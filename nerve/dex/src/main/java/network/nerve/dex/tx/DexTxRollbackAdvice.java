@@ -6,13 +6,19 @@ import io.nuls.base.protocol.CommonAdvice;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.exception.NulsRuntimeException;
 import network.nerve.dex.context.DexConfig;
 import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexTxRecorder;
+import network.nerve.dex.model.po.DealRecordPo;
 import network.nerve.dex.storage.CoinTradingStorageService;
+import network.nerve.dex.storage.TradingDealHistoryStorageService;
 import network.nerve.dex.storage.TradingDealStorageService;
 import network.nerve.dex.storage.TradingOrderStorageService;
 import network.nerve.dex.tx.v1.process.*;
+import network.nerve.dex.util.LoggerUtil;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -29,6 +35,10 @@ public class DexTxRollbackAdvice implements CommonAdvice {
     @Autowired
     private TradingDealStorageService tradingDealStorageService;
     @Autowired
+    private TradingDealHistoryStorageService dealHistoryStorageService;
+    @Autowired
+    private DexTxRecorder txRecorder;
+    @Autowired
     private CoinTradingProcessor coinTradingProcessor;
     @Autowired
     private TradingOrderProcessor tradingOrderProcessor;
@@ -47,6 +57,7 @@ public class DexTxRollbackAdvice implements CommonAdvice {
             return;
         }
         Transaction tx;
+        List<DealRecordPo> dealRecords = new ArrayList<>();
         for (int i = txList.size() - 1; i >= 0; i--) {
             tx = txList.get(i);
             tx.setBlockHeight(blockHeader.getHeight());
@@ -58,11 +69,20 @@ public class DexTxRollbackAdvice implements CommonAdvice {
                 orderCancelProcessor.cancelOrderRollback(tx);
             } else if (tx.getType() == TxType.TRADING_DEAL) {
                 tradingDealProcessor.tradingDealRollback(tx);
+                dealRecords.add(DealRecordPo.fromDealTx(tx, blockHeader.getHeight(), i));
             } else if (tx.getType() == TxType.EDIT_COIN_TRADING) {
                 editCoinTradingProcessor.editCoinTradingRollback(tx);
             } else if (tx.getType() == TxType.ORDER_CANCEL_CONFIRM) {
                 orderCancelConfirmProcessor.txRollback(tx);
             }
         }
+        try {
+            dealHistoryStorageService.rollbackBlockDeals(dealRecords);
+        } catch (Exception e) {
+            LoggerUtil.dexLog.error("Failure to rollback deal history, height:" + blockHeader.getHeight());
+            LoggerUtil.dexLog.error(e);
+            throw new NulsRuntimeException(e);
+        }
+        txRecorder.recordRollback(txList, blockHeader);
     }
 }
@@ -13,6 +13,7 @@ import io.nuls.core.exception.NulsRuntimeException;
 import network.nerve.dex.context.DexConfig;
 import network.nerve.dex.context.DexConstant;
 import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.TradingContainer;
 import network.nerve.dex.model.po.TradingOrderPo;
 import network.nerve.dex.model.txData.CancelDeal;
 import network.nerve.dex.model.txData.TradingCancelTxData;
@@ -94,15 +95,20 @@ public class OrderCancelConfirmProcessor implements TransactionProcessor {
 
             //回滚的处理和commit的处理顺序完全相反
             //1.先反向处理取消委托挂单
+            //同一区块内可能有多笔撤销同一挂单的记录，撤单记录表按挂单hash保存只剩最后一笔，因此按交易数据里的撤单结果回滚
             CancelDeal cancelDeal;
             for (int i = txData.getCancelDealList().size() - 1; i >= 0; i--) {
                 cancelDeal = txData.getCancelDealList().get(i);
-                cancelDeal = orderCancelStorageService.query(cancelDeal.getOrderHash());
-                if (cancelDeal != null && cancelDeal.getStatus() == DexConstant.CANCEL_ORDER_SUCC) {
+                if (cancelDeal.getStatus() == DexConstant.CANCEL_ORDER_SUCC) {
                     TradingOrderPo orderPo = orderStorageService.queryFromBack(cancelDeal.getOrderHash());
                     //有可能是因为保存区块时，未完整保存需要做回滚，因此数据可能会查询不到
                     if (orderPo != null) {
                         orderStorageService.rollbackStop(orderPo);
+                        //将挂单重新放回盘口
+                        TradingContainer container = dexManager.getTradingContainer(orderPo.getTradingHash().toHex());
+                        if (container != null && container.getTradingOrder(orderPo.getOrderHash()) == null) {
+                            container.addTradingOrder(orderPo);
+                        }
                     }
                 }
                 orderCancelStorageService.delete(cancelDeal.getOrderHash());
@@ -161,20 +161,23 @@ public class TradingDealProcessor implements TransactionProcessor {
             if (dealPo == null) {
                 return;
             }
+            //成交记录不保存挂单成交前的nonce，从交易数据中取
+            TradingDeal deal = new TradingDeal();
+            deal.parse(new NulsByteBuffer(tx.getTxData()));
             //1.处理买单
             //查询持久化的买单数据
             TradingOrderPo buyOrder = orderStorageService.query(dealPo.getBuyHash().getBytes());
             if (buyOrder == null) {
                 //委托单表查询不到，就到历史备份表里去查询
                 buyOrder = orderStorageService.queryFromBack(dealPo.getBuyHash().getBytes());
+                //如果还是查询不到，说明就是本区块打包的委托单，并没有被保存，这样就直接返回，不做处理
+                if (buyOrder == null) {
+                    return;
+                }
                 buyOrder.setOver(false);
                 isBuyOver = true;
             }
-            //如果还是查询不到，说明就是本区块打包的委托单，并没有被保存，这样就直接返回，不做处理
-            if (buyOrder == null) {
-                return;
-            }
-            buyOrder.setNonce(dealPo.getBuyNonce());
+            buyOrder.setNonce(deal.getBuyNonce());
             buyOrder.setDealAmount(buyOrder.getDealAmount().subtract(dealPo.getBaseAmount()));
             buyOrder.setLeftQuoteAmount(buyOrder.getLeftQuoteAmount().add(dealPo.getQuoteAmount()));
 
@@ -182,13 +185,13 @@ public class TradingDealProcessor implements TransactionProcessor {
             TradingOrderPo sellOrder = orderStorageService.query(dealPo.getSellHash().getBytes());
             if (sellOrder == null) {
                 sellOrder = orderStorageService.queryFromBack(dealPo.getSellHash().getBytes());
+                if (sellOrder == null) {
+                    return;
+                }
                 sellOrder.setOver(false);
                 isSellOver = true;
             }
-            if (sellOrder == null) {
-                return;
-            }
-            sellOrder.setNonce(dealPo.getSellNonce());
+            sellOrder.setNonce(deal.getSellNonce());
             sellOrder.setDealAmount(sellOrder.getDealAmount().subtract(dealPo.getBaseAmount()));
 
             TradingContainer container = dexManager.getTradingContainer(dealPo.getTradingHash().toHex());
@@ -209,7 +212,7 @@ public class TradingDealProcessor implements TransactionProcessor {
             orderStorageService.save(buyOrder);
             orderStorageService.deleteBackData(dealPo.getSellHash().getBytes());
             orderStorageService.save(sellOrder);
-            tradingDealStorageService.delete(dealPo.getTradingHash());
+            tradingDealStorageService.delete(dealPo.getDealHash());
         } catch (NulsException e) {
             LoggerUtil.dexLog.error("Failure to DealOrder rollback, hash:" + tx.getHash().toHex());
             LoggerUtil.dexLog.error(e);
@@ -0,0 +1,182 @@
+package network.nerve.dex.test;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 地址挂单索引：随机挂单、部分成交、完全成交、撤单和区块回滚后与全盘口扫描结果的一致性，以及查询耗时对比
+ */
+public class DexAddressOrderIndexTest {
+
+    /**
+     * 每个区块随机执行若干操作并记录撤销日志，部分区块随后按相反顺序回滚，与提交和回滚时盘口的修改方式一致
+     */
+    @Test
+    public void testRandomOrderFlowsMatchFullScan() throws Exception {
+        Random random = new Random(36);
+        DexManager dexManager = new DexManager();
+        List<CoinTradingPo> tradingList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+            dexManager.addCoinTrading(trading);
+            tradingList.add(trading);
+        }
+        List<byte[]> addressList = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            addressList.add(DexTestUtil.randomAddress(random));
+        }
+        List<TradingOrderPo> openOrders = new ArrayList<>();
+
+        for (long height = 1; height <= 2000; height++) {
+            //撤销日志：{原挂单状态(新挂单为null), 操作后挂单状态(已移除为null)}
+            List<TradingOrderPo[]> undoLog = new ArrayList<>();
+            int ops = 1 + random.nextInt(10);
+            for (int i = 0; i < ops; i++) {
+                int op = random.nextInt(10);
+                if (op < 4 || openOrders.isEmpty()) {
+                    CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+                    byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                    TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(200), 100000000L, height, i);
+                    po.setAddress(addressList.get(random.nextInt(addressList.size())));
+                    dexManager.addTradingOrder(po);
+                    openOrders.add(po);
+                    undoLog.add(new TradingOrderPo[]{null, po});
+                } else if (op < 7) {
+                    //部分成交
+                    TradingOrderPo po = openOrders.get(random.nextInt(openOrders.size()));
+                    TradingOrderPo before = po.copy();
+                    TradingOrderPo update = po.copy();
+                    update.setDealAmount(po.getDealAmount().add(po.getLeftAmount().divide(BigInteger.valueOf(3))));
+                    getContainer(dexManager, po).updateTradingOrder(update);
+                    undoLog.add(new TradingOrderPo[]{before, po});
+                } else {
+                    //完全成交或撤单
+                    TradingOrderPo po = openOrders.remove(random.nextInt(openOrders.size()));
+                    getContainer(dexManager, po).removeTradingOrder(po);
+                    undoLog.add(new TradingOrderPo[]{po.copy(), null});
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                for (int i = undoLog.size() - 1; i >= 0; i--) {
+                    TradingOrderPo before = undoLog.get(i)[0];
+                    TradingOrderPo after = undoLog.get(i)[1];
+                    if (before == null) {
+                        dexManager.removeTradingOrder(after);
+                        openOrders.removeIf(po -> po.getOrderHash().equals(after.getOrderHash()));
+                    } else if (after == null) {
+                        dexManager.addTradingOrder(before);
+                        openOrders.add(before);
+                    } else {
+                        getContainer(dexManager, after).updateTradingOrder(before);
+                    }
+                }
+            }
+            if (height % 20 == 0) {
+                for (byte[] address : addressList) {
+                    assertIndex(dexManager, tradingList, address);
+                }
+            }
+        }
+        for (byte[] address : addressList) {
+            assertIndex(dexManager, tradingList, address);
+        }
+    }
+
+    /**
+     * 大盘口中查询单个地址的挂单：地址索引与全盘口扫描的耗时对比
+     */
+    @Test
+    public void benchmarkAddressOrders() {
+        Random random = new Random(37);
+        CoinTradingPo trading = DexTestUtil.newTrading(random, 2);
+        TradingContainer container = new TradingContainer(trading);
+        List<byte[]> addressList = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            addressList.add(DexTestUtil.randomAddress(random));
+        }
+        for (int i = 0; i < 200000; i++) {
+            byte type = i % 2 == 0 ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+            long price = type == DexConstant.TRADING_ORDER_BUY_TYPE ? 10000 - random.nextInt(2000) : 10001 + random.nextInt(2000);
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, price, 100000000L, i, 0);
+            po.setAddress(addressList.get(random.nextInt(addressList.size())));
+            container.addTradingOrder(po);
+        }
+        //全盘口扫描较慢，只取前200个地址对比
+        int rounds = 200;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int indexCount = 0;
+            for (int i = 0; i < rounds; i++) {
+                indexCount += container.getAddressOrders(addressList.get(i)).size();
+            }
+            long indexCost = System.nanoTime() - start;
+            start = System.nanoTime();
+            int scanCount = 0;
+            for (int i = 0; i < rounds; i++) {
+                scanCount += scan(container, addressList.get(i)).size();
+            }
+            long scanCost = System.nanoTime() - start;
+            Assert.assertEquals(scanCount, indexCount);
+            System.out.println("orders:200000, addresses:10000, address index:" + indexCost / rounds + "ns, full scan:" + scanCost / rounds + "ns");
+        }
+    }
+
+    private TradingContainer getContainer(DexManager dexManager, TradingOrderPo po) {
+        return dexManager.getTradingContainer(po.getTradingHash().toHex());
+    }
+
+    private void assertIndex(DexManager dexManager, List<CoinTradingPo> tradingList, byte[] address) throws Exception {
+        List<TradingOrderPo> all = new ArrayList<>();
+        List<String> hashList = new ArrayList<>();
+        for (CoinTradingPo trading : tradingList) {
+            hashList.add(trading.getHash().toHex());
+        }
+        Collections.sort(hashList);
+        for (String hash : hashList) {
+            TradingContainer container = dexManager.getTradingContainer(hash);
+            List<TradingOrderPo> expected = scan(container, address);
+            assertOrders(expected, container.getAddressOrders(address));
+            assertOrders(expected, dexManager.getAddressOrders(address, hash));
+            all.addAll(expected);
+        }
+        assertOrders(all, dexManager.getAddressOrders(address, null));
+    }
+
+    /**
+     * 遍历整个盘口找出地址的挂单
+     */
+    private List<TradingOrderPo> scan(TradingContainer container, byte[] address) {
+        ByteArrayWrapper wrapper = new ByteArrayWrapper(address);
+        List<TradingOrderPo> list = new ArrayList<>();
+        for (TradingOrderPo po : container.getBuyOrders(Integer.MAX_VALUE)) {
+            if (wrapper.equals(new ByteArrayWrapper(po.getAddress()))) {
+                list.add(po);
+            }
+        }
+        for (TradingOrderPo po : container.getSellOrders(Integer.MAX_VALUE)) {
+            if (wrapper.equals(new ByteArrayWrapper(po.getAddress()))) {
+                list.add(po);
+            }
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    private void assertOrders(List<TradingOrderPo> expected, List<TradingOrderPo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getOrderHash(), actual.get(i).getOrderHash());
+            Assert.assertEquals(expected.get(i).getDealAmount(), actual.get(i).getDealAmount());
+            Assert.assertEquals(expected.get(i).getLeftQuoteAmount(), actual.get(i).getLeftQuoteAmount());
+        }
+    }
+}
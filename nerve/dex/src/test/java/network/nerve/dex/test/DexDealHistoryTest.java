@@ -0,0 +1,284 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.RocksDBService;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexDBConstant;
+import network.nerve.dex.model.po.CandlePo;
+import network.nerve.dex.model.po.DealRecordPo;
+import network.nerve.dex.model.txData.TradingDeal;
+import network.nerve.dex.storage.TradingDealHistoryStorageService;
+import network.nerve.dex.storage.impl.TradingDealHistoryStorageServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * 成交历史和K线索引：逐块写入和回滚后与全量重新计算结果的一致性，以及写入和范围查询耗时
+ * 基准测试的成交数量可以通过 -Ddex.bench.trades 调整
+ */
+public class DexDealHistoryTest {
+
+    private File dataDir;
+    private TradingDealHistoryStorageService storageService;
+
+    @Before
+    public void before() throws Exception {
+        dataDir = Files.createTempDirectory("dex-deal-history").toFile();
+        RocksDBService.init(dataDir.getPath());
+        RocksDBService.createTable(DexDBConstant.DB_NAME_DEAL_HISTORY);
+        storageService = new TradingDealHistoryStorageServiceImpl();
+    }
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+        delete(dataDir);
+    }
+
+    @Test
+    public void testCommitAndRollbackMatchFullRebuild() throws Exception {
+        Random random = new Random(35);
+        List<NulsHash> tradingList = Arrays.asList(DexTestUtil.randomHash(random), DexTestUtil.randomHash(random), DexTestUtil.randomHash(random));
+        List<List<DealRecordPo>> blocks = new ArrayList<>();
+        long time = 1600000000L;
+        long height = 0;
+        for (int round = 1; round <= 400; round++) {
+            time += 1 + random.nextInt(600);
+            height++;
+            List<DealRecordPo> block = newBlock(random, tradingList, time, height, random.nextInt(12));
+            storageService.saveBlockDeals(block);
+            blocks.add(block);
+            //同一区块重复提交不会重复累加
+            if (random.nextInt(20) == 0) {
+                storageService.saveBlockDeals(block);
+            }
+            //回滚最近的若干个区块，再提交新的区块
+            if (round % 50 == 0) {
+                int count = 1 + random.nextInt(20);
+                for (int i = 0; i < count; i++) {
+                    List<DealRecordPo> last = blocks.remove(blocks.size() - 1);
+                    storageService.rollbackBlockDeals(last);
+                }
+                height -= count;
+            }
+        }
+
+        List<DealRecordPo> allDeals = new ArrayList<>();
+        for (List<DealRecordPo> block : blocks) {
+            allDeals.addAll(block);
+        }
+        for (NulsHash tradingHash : tradingList) {
+            List<DealRecordPo> deals = new ArrayList<>();
+            for (DealRecordPo record : allDeals) {
+                if (record.getTradingHash().equals(tradingHash)) {
+                    deals.add(record);
+                }
+            }
+            Collections.reverse(deals);
+            assertDeals(deals, storageService.queryDeals(tradingHash, 0, Long.MAX_VALUE, Integer.MAX_VALUE));
+            for (int i = 0; i < 50; i++) {
+                long start = 1600000000L + random.nextInt((int) (time - 1600000000L));
+                long end = start + random.nextInt(20000);
+                int limit = 1 + random.nextInt(30);
+                List<DealRecordPo> expected = new ArrayList<>();
+                for (DealRecordPo record : deals) {
+                    if (record.getTime() >= start && record.getTime() <= end && expected.size() < limit) {
+                        expected.add(record);
+                    }
+                }
+                assertDeals(expected, storageService.queryDeals(tradingHash, start, end, limit));
+            }
+
+            Collections.reverse(deals);
+            for (int period : DexConstant.CANDLE_PERIODS) {
+                List<CandlePo> expected = aggregate(tradingHash, period, deals);
+                assertCandles(expected, storageService.queryCandles(tradingHash, period, 0, Long.MAX_VALUE, Integer.MAX_VALUE));
+                //时间范围内最新的limit根
+                long start = expected.get(expected.size() / 4).getTime();
+                long end = expected.get(expected.size() * 3 / 4).getTime();
+                List<CandlePo> range = new ArrayList<>();
+                for (CandlePo candle : expected) {
+                    if (candle.getTime() >= start && candle.getTime() <= end) {
+                        range.add(candle);
+                    }
+                }
+                int limit = Math.max(1, range.size() / 2);
+                assertCandles(range.subList(range.size() - limit, range.size()), storageService.queryCandles(tradingHash, period, start, end, limit));
+            }
+        }
+    }
+
+    /**
+     * 提交和回滚由同一笔成交交易生成的记录，回滚后成交历史为空
+     */
+    @Test
+    public void testRecordFromDealTx() throws Exception {
+        Random random = new Random(37);
+        NulsHash tradingHash = DexTestUtil.randomHash(random);
+        TradingDeal deal = new TradingDeal();
+        deal.setTradingHash(tradingHash.getBytes());
+        deal.setBuyHash(DexTestUtil.randomHash(random).getBytes());
+        deal.setBuyNonce(new byte[DexConstant.NONCE_LENGTH]);
+        deal.setSellHash(DexTestUtil.randomHash(random).getBytes());
+        deal.setSellNonce(new byte[DexConstant.NONCE_LENGTH]);
+        deal.setPrice(BigInteger.valueOf(1000));
+        deal.setBaseAmount(BigInteger.valueOf(40000000));
+        deal.setQuoteAmount(BigInteger.valueOf(400));
+        deal.setBuyFee(BigInteger.ZERO);
+        deal.setSellFee(BigInteger.ZERO);
+        deal.setType(DexConstant.ORDER_SELL_OVER);
+        deal.setTaker(DexConstant.BUY_TAKER);
+        Transaction tx = new Transaction(TxType.TRADING_DEAL);
+        tx.setTime(1600000000L);
+        tx.setTxData(deal.serialize());
+
+        DealRecordPo record = DealRecordPo.fromDealTx(tx, 10, 3);
+        Assert.assertEquals(tx.getHash(), record.getDealHash());
+        Assert.assertEquals(tradingHash, record.getTradingHash());
+        Assert.assertEquals(tx.getTime(), record.getTime());
+        Assert.assertEquals(10, record.getHeight());
+        Assert.assertEquals(3, record.getIndex());
+        storageService.saveBlockDeals(Collections.singletonList(record));
+        assertDeals(Collections.singletonList(record), storageService.queryDeals(tradingHash, 0, Long.MAX_VALUE, 10));
+
+        storageService.rollbackBlockDeals(Collections.singletonList(DealRecordPo.fromDealTx(tx, 10, 3)));
+        Assert.assertTrue(storageService.queryDeals(tradingHash, 0, Long.MAX_VALUE, 10).isEmpty());
+        Assert.assertTrue(storageService.queryCandles(tradingHash, 60, 0, Long.MAX_VALUE, 10).isEmpty());
+    }
+
+    /**
+     * 逐块写入合成的成交历史，统计每个区块的索引写入耗时和范围查询耗时
+     */
+    @Test
+    public void benchmarkIngestAndRangeQuery() throws Exception {
+        int totalTrades = Integer.getInteger("dex.bench.trades", 200000);
+        int dealsPerBlock = 200;
+        Random random = new Random(36);
+        List<NulsHash> tradingList = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tradingList.add(DexTestUtil.randomHash(random));
+        }
+        long startTime = 1600000000L;
+        long time = startTime;
+        long height = 0;
+        long ingestCost = 0;
+        long maxIngestCost = 0;
+        for (int count = 0; count < totalTrades; count += dealsPerBlock) {
+            time += 2;
+            List<DealRecordPo> block = newBlock(random, tradingList, time, ++height, dealsPerBlock);
+            long start = System.nanoTime();
+            storageService.saveBlockDeals(block);
+            long cost = System.nanoTime() - start;
+            ingestCost += cost;
+            maxIngestCost = Math.max(maxIngestCost, cost);
+        }
+        System.out.println("trades:" + totalTrades + ", blocks:" + height + ", deals per block:" + dealsPerBlock
+                + ", ingest avg:" + ingestCost / height / 1000 + "us per block, max:" + maxIngestCost / 1000 + "us");
+
+        int rounds = 2000;
+        long dealCost = 0;
+        long candleCost = 0;
+        long dayCandleCost = 0;
+        for (int i = 0; i < rounds; i++) {
+            NulsHash tradingHash = tradingList.get(random.nextInt(tradingList.size()));
+            long end = startTime + (long) (random.nextDouble() * (time - startTime));
+            long start = System.nanoTime();
+            List<DealRecordPo> deals = storageService.queryDeals(tradingHash, 0, end, 100);
+            dealCost += System.nanoTime() - start;
+            Assert.assertFalse(deals.isEmpty());
+
+            start = System.nanoTime();
+            storageService.queryCandles(tradingHash, 60, end - 500 * 60, end, 500);
+            candleCost += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            storageService.queryCandles(tradingHash, 86400, 0, Long.MAX_VALUE, 500);
+            dayCandleCost += System.nanoTime() - start;
+        }
+        System.out.println("queryDeals(100):" + dealCost / rounds / 1000 + "us, queryCandles(1m, 500):" + candleCost / rounds / 1000
+                + "us, queryCandles(1d, all):" + dayCandleCost / rounds / 1000 + "us");
+
+        //回滚最后一个区块
+        List<DealRecordPo> last = newBlock(random, tradingList, time + 2, ++height, dealsPerBlock);
+        storageService.saveBlockDeals(last);
+        long start = System.nanoTime();
+        storageService.rollbackBlockDeals(last);
+        System.out.println("rollback block of " + dealsPerBlock + " deals:" + (System.nanoTime() - start) / 1000 + "us");
+    }
+
+    private List<DealRecordPo> newBlock(Random random, List<NulsHash> tradingList, long time, long height, int size) {
+        List<DealRecordPo> block = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            DealRecordPo record = new DealRecordPo();
+            record.setDealHash(DexTestUtil.randomHash(random));
+            record.setTradingHash(tradingList.get(random.nextInt(tradingList.size())));
+            record.setTime(time);
+            record.setHeight(height);
+            //区块内还有挂单等其他dex交易
+            record.setIndex(i * 2 + random.nextInt(2));
+            record.setPrice(BigInteger.valueOf(1000 + random.nextInt(100)));
+            record.setBaseAmount(BigInteger.valueOf(1 + random.nextInt(100000)));
+            record.setQuoteAmount(BigInteger.valueOf(1 + random.nextInt(100000)));
+            record.setType(DexConstant.ORDER_BUY_OVER);
+            record.setTaker(DexConstant.BUY_TAKER);
+            block.add(record);
+        }
+        return block;
+    }
+
+    private List<CandlePo> aggregate(NulsHash tradingHash, int period, List<DealRecordPo> deals) {
+        Map<Long, CandlePo> map = new TreeMap<>();
+        for (DealRecordPo record : deals) {
+            long time = record.getTime() - record.getTime() % period;
+            map.computeIfAbsent(time, k -> new CandlePo(tradingHash, period, k)).addDeal(record);
+        }
+        return new ArrayList<>(map.values());
+    }
+
+    private void assertDeals(List<DealRecordPo> expected, List<DealRecordPo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getDealHash(), actual.get(i).getDealHash());
+            Assert.assertEquals(expected.get(i).getTime(), actual.get(i).getTime());
+            Assert.assertEquals(expected.get(i).getHeight(), actual.get(i).getHeight());
+            Assert.assertEquals(expected.get(i).getIndex(), actual.get(i).getIndex());
+            Assert.assertEquals(expected.get(i).getPrice(), actual.get(i).getPrice());
+        }
+    }
+
+    private void assertCandles(List<CandlePo> expected, List<CandlePo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CandlePo e = expected.get(i);
+            CandlePo a = actual.get(i);
+            Assert.assertEquals(e.getTime(), a.getTime());
+            Assert.assertEquals(e.getOpen(), a.getOpen());
+            Assert.assertEquals(e.getHigh(), a.getHigh());
+            Assert.assertEquals(e.getLow(), a.getLow());
+            Assert.assertEquals(e.getClose(), a.getClose());
+            Assert.assertEquals(e.getBaseVolume(), a.getBaseVolume());
+            Assert.assertEquals(e.getQuoteVolume(), a.getQuoteVolume());
+            Assert.assertEquals(e.getCount(), a.getCount());
+        }
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,193 @@
+package network.nerve.dex.test;
+
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.channel.ConnectData;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexRpcConstant;
+import network.nerve.dex.manager.DepthPublisher;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.bean.DepthInfo;
+import network.nerve.dex.model.bean.DepthLevel;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 盘口深度：增量维护的档位数量与快照+推送重建结果的一致性，以及深度查询耗时和订阅推送扇出
+ */
+public class DexDepthTest {
+
+    /**
+     * 客户端在任意时刻取快照，之后只应用序号更大的推送，重建的深度需与盘口一致
+     */
+    @Test
+    public void testSnapshotAndDeltasRebuildDepth() throws Exception {
+        Random random = new Random(34);
+        CoinTradingPo trading = DexTestUtil.newTrading(random, 2);
+        TradingContainer container = new TradingContainer(trading);
+        List<Object[]> deltaList = new ArrayList<>();
+        container.setDepthListener((c, sequence, type, level) -> deltaList.add(new Object[]{sequence, type, level}));
+
+        List<TradingOrderPo> orders = new ArrayList<>();
+        DepthInfo snapshot = null;
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(10);
+            if (op < 5 || orders.isEmpty()) {
+                byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(200), 100000000L + random.nextInt(100000), i, 0);
+                orders.add(po);
+                container.addTradingOrder(po);
+            } else if (op < 8) {
+                //部分成交
+                TradingOrderPo po = orders.get(random.nextInt(orders.size()));
+                TradingOrderPo update = po.copy();
+                update.setDealAmount(po.getDealAmount().add(po.getLeftAmount().divide(BigInteger.valueOf(2))));
+                container.updateTradingOrder(update);
+            } else {
+                container.removeTradingOrder(orders.remove(random.nextInt(orders.size())));
+            }
+            if (i == 7000) {
+                snapshot = container.getDepth(Integer.MAX_VALUE);
+            }
+        }
+
+        Map<BigInteger, DepthLevel> bids = toMap(snapshot.getBids());
+        Map<BigInteger, DepthLevel> asks = toMap(snapshot.getAsks());
+        long lastSequence = snapshot.getSequence();
+        for (Object[] delta : deltaList) {
+            long sequence = (long) delta[0];
+            if (sequence <= snapshot.getSequence()) {
+                continue;
+            }
+            Assert.assertEquals(lastSequence + 1, sequence);
+            lastSequence = sequence;
+            DepthLevel level = (DepthLevel) delta[2];
+            Map<BigInteger, DepthLevel> side = (byte) delta[1] == DexConstant.TRADING_ORDER_BUY_TYPE ? bids : asks;
+            if (level.getOrderCount() == 0) {
+                side.remove(level.getPrice());
+            } else {
+                side.put(level.getPrice(), level);
+            }
+        }
+
+        DepthInfo current = container.getDepth(Integer.MAX_VALUE);
+        Assert.assertEquals(lastSequence, current.getSequence());
+        assertDepth(current.getBids(), bids);
+        assertDepth(current.getAsks(), asks);
+        //增量维护的数量与按挂单重新累计的结果一致
+        assertDepth(current.getBids(), aggregate(container.getBuyOrders(Integer.MAX_VALUE)));
+        assertDepth(current.getAsks(), aggregate(container.getSellOrders(Integer.MAX_VALUE)));
+    }
+
+    /**
+     * 深度查询耗时，以及通过ConnectManager事件订阅推送给本地订阅者的扇出耗时
+     */
+    @Test
+    public void benchmarkDepthQueryAndPush() throws Exception {
+        Random random = new Random(35);
+        CoinTradingPo trading = DexTestUtil.newTrading(random, 2);
+        TradingContainer container = new TradingContainer(trading);
+        List<TradingOrderPo> orders = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            byte type = i % 2 == 0 ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+            long price = type == DexConstant.TRADING_ORDER_BUY_TYPE ? 10000 - random.nextInt(2000) : 10001 + random.nextInt(2000);
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, price, 100000000L, i, 0);
+            orders.add(po);
+            container.addTradingOrder(po);
+        }
+        for (int i = 0; i < 2000; i++) {
+            container.getDepth(50);
+        }
+        int rounds = 10000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            container.getDepth(50);
+        }
+        System.out.println("orders:" + orders.size() + ", getDepth(50):" + (System.nanoTime() - start) / rounds + "ns");
+
+        DepthPublisher publisher = new DepthPublisher();
+        container.setDepthListener(publisher);
+        for (int subscribers : new int[]{1, 10, 100}) {
+            List<ConnectData> connectList = new ArrayList<>();
+            List<String> messageIdList = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                ConnectData connectData = new ConnectData(null);
+                Map<String, Object> params = new HashMap<>(2);
+                params.put("tradingHash", trading.getHash().toHex());
+                Request request = MessageUtil.newRequest(DexRpcConstant.DEPTH_UPDATE, params, "0", "0", "1");
+                Message message = MessageUtil.basicMessage(MessageType.Request);
+                message.setMessageData(JSONUtils.json2map(JSONUtils.obj2json(request)));
+                connectData.subscribeByEvent(message, request);
+                connectList.add(connectData);
+                messageIdList.add(message.getMessageID());
+            }
+            try {
+                int updates = 2000;
+                long firstSequence = container.getDepthSequence() + 1;
+                start = System.nanoTime();
+                for (int i = 0; i < updates; i++) {
+                    TradingOrderPo po = orders.get(random.nextInt(orders.size()));
+                    container.removeTradingOrder(po);
+                    container.addTradingOrder(po);
+                }
+                long cost = System.nanoTime() - start;
+                for (ConnectData connectData : connectList) {
+                    //推送线程异步推送
+                    long deadline = System.currentTimeMillis() + 10000;
+                    while (connectData.getRequestEventResponseQueue().size() < updates * 2 && System.currentTimeMillis() < deadline) {
+                        Thread.sleep(10);
+                    }
+                    Assert.assertEquals(updates * 2, connectData.getRequestEventResponseQueue().size());
+                    long expected = firstSequence;
+                    for (Response response : connectData.getRequestEventResponseQueue()) {
+                        Map data = (Map) ((Map) response.getResponseData()).get(DexRpcConstant.DEPTH_UPDATE);
+                        Assert.assertEquals(expected++, ((Long) data.get("sequence")).longValue());
+                    }
+                }
+                System.out.println("subscribers:" + subscribers + ", depth updates:" + updates * 2 + ", commit path:" + cost / (updates * 2) + "ns per update");
+            } finally {
+                for (int i = 0; i < subscribers; i++) {
+                    connectList.get(i).unsubscribe(messageIdList.get(i));
+                }
+            }
+        }
+        publisher.shutdown();
+    }
+
+    private Map<BigInteger, DepthLevel> toMap(List<DepthLevel> levels) {
+        Map<BigInteger, DepthLevel> map = new HashMap<>();
+        for (DepthLevel level : levels) {
+            map.put(level.getPrice(), level);
+        }
+        return map;
+    }
+
+    private Map<BigInteger, DepthLevel> aggregate(List<TradingOrderPo> orders) {
+        Map<BigInteger, DepthLevel> map = new HashMap<>();
+        for (TradingOrderPo po : orders) {
+            DepthLevel level = map.computeIfAbsent(po.getPrice(), k -> new DepthLevel(k, BigInteger.ZERO, 0));
+            level.setAmount(level.getAmount().add(po.getLeftAmount()));
+            level.setOrderCount(level.getOrderCount() + 1);
+        }
+        return map;
+    }
+
+    private void assertDepth(List<DepthLevel> expected, Map<BigInteger, DepthLevel> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (DepthLevel level : expected) {
+            DepthLevel other = actual.get(level.getPrice());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(level.getAmount(), other.getAmount());
+            Assert.assertEquals(level.getOrderCount(), other.getOrderCount());
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package network.nerve.dex.test;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.BatchOperation;
+import io.nuls.core.rockdb.service.RocksDBService;
+import network.nerve.dex.context.DexConfig;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexDBConstant;
+import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.OrderBookCheckpointManager;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.storage.CoinTradingStorageService;
+import network.nerve.dex.storage.TradingOrderStorageService;
+import network.nerve.dex.storage.impl.CoinTradingStorageServiceImpl;
+import network.nerve.dex.storage.impl.TradingOrderStorageServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * 盘口快照：快照加日志重放恢复的盘口与从挂单表全量加载的盘口一致(包括区块回滚和快照损坏时的回退)，
+ * 以及两种方式的启动耗时和堆内存峰值
+ * 基准测试的挂单数量可以通过 -Ddex.bench.orders 调整
+ */
+public class DexOrderBookCheckpointTest {
+
+    private File dataDir;
+    private File checkpointDir;
+    private CoinTradingStorageService tradingStorage;
+    private TradingOrderStorageService orderStorage;
+    private DexManager live;
+    private List<CoinTradingPo> tradingList;
+
+    @Before
+    public void before() throws Exception {
+        dataDir = Files.createTempDirectory("dex-checkpoint").toFile();
+        checkpointDir = new File(dataDir, "checkpoint");
+        RocksDBService.init(dataDir.getPath());
+        RocksDBService.createTable(DexDBConstant.DB_NAME_COIN_TRADING);
+        RocksDBService.createTable(DexDBConstant.DB_NAME_TRADING_ORDER);
+        RocksDBService.createTable(DexDBConstant.DB_NAME_TRADING_ORDER_BACK);
+        RocksDBService.createTable(DexDBConstant.DB_NAME_ORDER_LOG);
+        tradingStorage = new CoinTradingStorageServiceImpl();
+        orderStorage = new TradingOrderStorageServiceImpl();
+        live = new DexManager();
+        tradingList = new ArrayList<>();
+    }
+
+    @After
+    public void after() {
+        RocksDBManager.close();
+        delete(dataDir);
+    }
+
+    /**
+     * 随机挂单、成交、撤单和区块回滚，定期保存快照，模拟节点重启后恢复的盘口与全量加载一致
+     */
+    @Test
+    public void testCheckpointReplayMatchesFullLoad() throws Exception {
+        Random random = new Random(37);
+        addTradings(random, 3);
+        OrderBookCheckpointManager checkpointManager = newCheckpointManager(orderStorage);
+        List<TradingOrderPo> openOrders = new ArrayList<>();
+        int checkpointLoads = 0;
+        for (long height = 1; height <= 1500; height++) {
+            List<TradingOrderPo[]> undoLog = new ArrayList<>();
+            int ops = 1 + random.nextInt(10);
+            for (int i = 0; i < ops; i++) {
+                int op = random.nextInt(10);
+                if (op < 4 || openOrders.isEmpty()) {
+                    CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+                    byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                    TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(50), 100000000L, height, i);
+                    orderStorage.save(po);
+                    live.addTradingOrder(po);
+                    openOrders.add(po);
+                    undoLog.add(new TradingOrderPo[]{null, po});
+                } else if (op < 7) {
+                    //部分成交
+                    TradingOrderPo po = openOrders.get(random.nextInt(openOrders.size()));
+                    TradingOrderPo before = po.copy();
+                    TradingOrderPo update = po.copy();
+                    update.setDealAmount(po.getDealAmount().add(po.getLeftAmount().divide(BigInteger.valueOf(3))));
+                    orderStorage.save(update);
+                    getContainer(live, po).updateTradingOrder(update);
+                    undoLog.add(new TradingOrderPo[]{before, po});
+                } else {
+                    //完全成交或撤单
+                    TradingOrderPo po = openOrders.remove(random.nextInt(openOrders.size()));
+                    orderStorage.stop(po);
+                    live.removeTradingOrder(po);
+                    undoLog.add(new TradingOrderPo[]{po.copy(), null});
+                }
+            }
+            if (random.nextInt(5) == 0) {
+                rollback(undoLog, openOrders);
+            }
+            if (height % 100 == 0) {
+                checkpointManager.writeCheckpoint(height, orderStorage.getOrderLogSequence(), live);
+            }
+            if (height % 30 == 0) {
+                //节点重启：新的存储服务实例从日志表恢复日志序号
+                TradingOrderStorageService restartStorage = new TradingOrderStorageServiceImpl();
+                DexManager restored = newDexManager(restartStorage, newCheckpointManager(restartStorage));
+                restored.init();
+                assertBooks(fullLoad(), restored);
+                if (loadCheckpoint(restartStorage)) {
+                    checkpointLoads++;
+                }
+            }
+        }
+        Assert.assertTrue(checkpointLoads > 0);
+    }
+
+    /**
+     * 模块停止时等待后台正在保存的快照写完，之后提交的区块不再保存快照
+     */
+    @Test
+    public void testShutdownWaitsForCheckpoint() throws Exception {
+        Random random = new Random(39);
+        addTradings(random, 2);
+        for (int i = 0; i < 200; i++) {
+            CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, 900 + random.nextInt(50), 100000000L, 1, i);
+            orderStorage.save(po);
+            live.addTradingOrder(po);
+        }
+        OrderBookCheckpointManager checkpointManager = newCheckpointManager(orderStorage);
+        File file = new File(checkpointDir, "orderbook.ckpt");
+        checkpointManager.afterCommit(100, live);
+        checkpointManager.shutdown();
+        Assert.assertTrue(file.exists());
+        Assert.assertTrue(loadCheckpoint(orderStorage));
+
+        Assert.assertTrue(file.delete());
+        checkpointManager.afterCommit(300, live);
+        checkpointManager.shutdown();
+        Assert.assertFalse(file.exists());
+    }
+
+    /**
+     * 快照之后回滚区块恢复了快照之前撤销的挂单时，无法保证档位内顺序，回退到全量加载
+     */
+    @Test
+    public void testFallbackWhenRestoredOrderPrecedesCheckpoint() throws Exception {
+        Random random = new Random(38);
+        addTradings(random, 1);
+        CoinTradingPo trading = tradingList.get(0);
+        List<TradingOrderPo> openOrders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, 1000, 100000000L, 1, i);
+            orderStorage.save(po);
+            live.addTradingOrder(po);
+            openOrders.add(po);
+        }
+        //高度2撤销第一个挂单
+        TradingOrderPo canceled = openOrders.remove(0);
+        orderStorage.stop(canceled);
+        live.removeTradingOrder(canceled);
+        newCheckpointManager(orderStorage).writeCheckpoint(2, orderStorage.getOrderLogSequence(), live);
+        Assert.assertTrue(loadCheckpoint(orderStorage));
+
+        //回滚高度2，挂单恢复到档位最前面
+        orderStorage.rollbackStop(canceled);
+        live.addTradingOrder(canceled);
+        Assert.assertFalse(loadCheckpoint(orderStorage));
+        DexManager restored = newDexManager(orderStorage, newCheckpointManager(orderStorage));
+        restored.init();
+        assertBooks(fullLoad(), restored);
+        Assert.assertEquals(canceled.getOrderHash(), getContainer(restored, canceled).getBuyOrders(1).get(0).getOrderHash());
+    }
+
+    /**
+     * 快照文件损坏时校验失败，回退到全量加载
+     */
+    @Test
+    public void testCorruptCheckpointFallsBack() throws Exception {
+        Random random = new Random(39);
+        addTradings(random, 2);
+        for (int i = 0; i < 200; i++) {
+            CoinTradingPo trading = tradingList.get(i % 2);
+            byte type = i % 4 < 2 ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(50), 100000000L, 1 + i / 10, i % 10);
+            orderStorage.save(po);
+            live.addTradingOrder(po);
+        }
+        newCheckpointManager(orderStorage).writeCheckpoint(20, orderStorage.getOrderLogSequence(), live);
+        File file = new File(checkpointDir, "orderbook.ckpt");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int b = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 0xFF);
+        }
+        Assert.assertFalse(loadCheckpoint(orderStorage));
+        DexManager restored = newDexManager(orderStorage, newCheckpointManager(orderStorage));
+        restored.init();
+        assertBooks(fullLoad(), restored);
+    }
+
+    /**
+     * 挂单表全量加载与快照加日志重放的启动耗时和堆内存峰值对比
+     */
+    @Test
+    public void benchmarkStartup() throws Exception {
+        int totalOrders = Integer.getInteger("dex.bench.orders", 200000);
+        Random random = new Random(40);
+        addTradings(random, 20);
+        List<TradingOrderPo> orders = new ArrayList<>();
+        BatchOperation batch = RocksDBService.createWriteBatch(DexDBConstant.DB_NAME_TRADING_ORDER);
+        for (int i = 0; i < totalOrders; i++) {
+            CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+            byte type = i % 2 == 0 ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+            long price = type == DexConstant.TRADING_ORDER_BUY_TYPE ? 10000 - random.nextInt(2000) : 10001 + random.nextInt(2000);
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, price, 100000000L, i / 100, i % 100);
+            batch.put(po.getOrderHash().getBytes(), po.serialize());
+            live.addTradingOrder(po);
+            orders.add(po);
+            if (i % 10000 == 9999) {
+                batch.executeBatch();
+                batch = RocksDBService.createWriteBatch(DexDBConstant.DB_NAME_TRADING_ORDER);
+            }
+        }
+        batch.executeBatch();
+        long start = System.currentTimeMillis();
+        newCheckpointManager(orderStorage).writeCheckpoint(totalOrders / 100, orderStorage.getOrderLogSequence(), live);
+        System.out.println("orders:" + totalOrders + ", save checkpoint:" + (System.currentTimeMillis() - start) + "ms, file:"
+                + new File(checkpointDir, "orderbook.ckpt").length() / 1024 + "KB");
+        //快照之后的区块：部分成交和新挂单
+        for (int i = 0; i < 1000; i++) {
+            TradingOrderPo po = orders.get(random.nextInt(orders.size()));
+            TradingOrderPo update = po.copy();
+            update.setDealAmount(po.getDealAmount().add(po.getLeftAmount().divide(BigInteger.valueOf(3))));
+            orderStorage.save(update);
+            getContainer(live, po).updateTradingOrder(update);
+        }
+        for (int i = 0; i < 1000; i++) {
+            CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+            TradingOrderPo po = DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, 9000, 100000000L, totalOrders / 100 + 1 + i / 100, i % 100);
+            orderStorage.save(po);
+            live.addTradingOrder(po);
+        }
+        live = null;
+        orders = null;
+
+        File emptyDir = new File(dataDir, "empty");
+        for (int round = 0; round < 3; round++) {
+            TradingOrderStorageService storage = new TradingOrderStorageServiceImpl();
+            OrderBookCheckpointManager noCheckpoint = newCheckpointManager(storage);
+            noCheckpoint.setFolder(emptyDir);
+            DexManager full = newDexManager(storage, noCheckpoint);
+            resetPeak();
+            start = System.currentTimeMillis();
+            full.init();
+            long fullCost = System.currentTimeMillis() - start;
+            long fullPeak = heapPeak();
+            full = null;
+
+            storage = new TradingOrderStorageServiceImpl();
+            DexManager restored = newDexManager(storage, newCheckpointManager(storage));
+            resetPeak();
+            start = System.currentTimeMillis();
+            restored.init();
+            long checkpointCost = System.currentTimeMillis() - start;
+            long checkpointPeak = heapPeak();
+            restored = null;
+            System.out.println("orders:" + (totalOrders + 1000) + ", full load:" + fullCost + "ms, heap peak:" + fullPeak / 1024 / 1024
+                    + "MB; checkpoint load:" + checkpointCost + "ms, heap peak:" + checkpointPeak / 1024 / 1024 + "MB");
+        }
+    }
+
+    private void addTradings(Random random, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+            tradingStorage.save(trading);
+            live.addCoinTrading(trading);
+            tradingList.add(trading);
+        }
+    }
+
+    /**
+     * 按撤销日志的相反顺序恢复挂单表和盘口，与区块回滚的处理方式一致
+     */
+    private void rollback(List<TradingOrderPo[]> undoLog, List<TradingOrderPo> openOrders) throws Exception {
+        for (int i = undoLog.size() - 1; i >= 0; i--) {
+            TradingOrderPo before = undoLog.get(i)[0];
+            TradingOrderPo after = undoLog.get(i)[1];
+            if (before == null) {
+                orderStorage.delete(after.getOrderHash());
+                live.removeTradingOrder(after);
+                openOrders.removeIf(po -> po.getOrderHash().equals(after.getOrderHash()));
+            } else if (after == null) {
+                orderStorage.rollbackStop(before);
+                live.addTradingOrder(before);
+                openOrders.add(before);
+            } else {
+                orderStorage.save(before);
+                getContainer(live, after).updateTradingOrder(before);
+            }
+        }
+    }
+
+    /**
+     * 与DexManager.init未使用快照时的加载方式相同
+     */
+    private DexManager fullLoad() throws Exception {
+        DexManager dexManager = new DexManager();
+        for (CoinTradingPo trading : tradingStorage.queryAll()) {
+            dexManager.addCoinTrading(trading);
+        }
+        List<TradingOrderPo> orderList = orderStorage.queryAll();
+        Collections.sort(orderList);
+        for (TradingOrderPo po : orderList) {
+            dexManager.addTradingOrder(po);
+        }
+        return dexManager;
+    }
+
+    private boolean loadCheckpoint(TradingOrderStorageService storage) throws Exception {
+        DexManager dexManager = new DexManager();
+        for (CoinTradingPo trading : tradingStorage.queryAll()) {
+            dexManager.addCoinTrading(trading);
+        }
+        return newCheckpointManager(storage).load(dexManager);
+    }
+
+    private DexManager newDexManager(TradingOrderStorageService storage, OrderBookCheckpointManager checkpointManager) throws Exception {
+        DexManager dexManager = new DexManager();
+        setField(DexManager.class, dexManager, "tradingStorageService", tradingStorage);
+        setField(DexManager.class, dexManager, "orderStorageService", storage);
+        setField(DexManager.class, dexManager, "checkpointManager", checkpointManager);
+        return dexManager;
+    }
+
+    private OrderBookCheckpointManager newCheckpointManager(TradingOrderStorageService storage) throws Exception {
+        OrderBookCheckpointManager checkpointManager = new OrderBookCheckpointManager();
+        DexConfig dexConfig = new DexConfig();
+        dexConfig.setOrderBookCheckpointInterval(100);
+        setField(OrderBookCheckpointManager.class, checkpointManager, "dexConfig", dexConfig);
+        setField(OrderBookCheckpointManager.class, checkpointManager, "orderStorageService", storage);
+        checkpointManager.setFolder(checkpointDir);
+        return checkpointManager;
+    }
+
+    private static void setField(Class<?> clazz, Object target, String name, Object value) throws Exception {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private TradingContainer getContainer(DexManager dexManager, TradingOrderPo po) {
+        return dexManager.getTradingContainer(po.getTradingHash().toHex());
+    }
+
+    /**
+     * 逐个盘口比较买卖盘的挂单顺序和数据
+     */
+    private void assertBooks(DexManager expected, DexManager actual) {
+        Assert.assertEquals(expected.getAllContainer().keySet(), actual.getAllContainer().keySet());
+        for (String hash : expected.getAllContainer().keySet()) {
+            TradingContainer e = expected.getTradingContainer(hash);
+            TradingContainer a = actual.getTradingContainer(hash);
+            assertOrders(e.getBuyOrders(Integer.MAX_VALUE), a.getBuyOrders(Integer.MAX_VALUE));
+            assertOrders(e.getSellOrders(Integer.MAX_VALUE), a.getSellOrders(Integer.MAX_VALUE));
+        }
+    }
+
+    private void assertOrders(List<TradingOrderPo> expected, List<TradingOrderPo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getOrderHash(), actual.get(i).getOrderHash());
+            Assert.assertEquals(expected.get(i).getDealAmount(), actual.get(i).getDealAmount());
+            Assert.assertEquals(expected.get(i).getLeftQuoteAmount(), actual.get(i).getLeftQuoteAmount());
+        }
+    }
+
+    private static void resetPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
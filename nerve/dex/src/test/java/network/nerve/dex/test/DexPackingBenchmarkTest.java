@@ -0,0 +1,132 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.Transaction;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexService;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 打包基准测试：写时复制盘口 对比 每次打包复制全部盘口
+ * 默认 1000个币对 * 每边100条挂单，可通过 -Ddex.bench.pairs / -Ddex.bench.orders 放大到百万级挂单
+ */
+public class DexPackingBenchmarkTest {
+
+    private static final int PAIRS = Integer.getInteger("dex.bench.pairs", 1000);
+    private static final int ORDERS_PER_SIDE = Integer.getInteger("dex.bench.orders", 100);
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void benchmarkPacking() throws Exception {
+        Random random = new Random(31);
+        DexManager dexManager = new DexManager();
+        for (int i = 0; i < PAIRS; i++) {
+            CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+            dexManager.addCoinTrading(trading);
+            TradingContainer container = dexManager.getTradingContainer(trading.getHash().toHex());
+            //买卖盘不交叉，打包时只需检查不需撮合
+            for (int j = 0; j < ORDERS_PER_SIDE; j++) {
+                container.addTradingOrder(DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, 1000 - j % 50, 100000000L, j, 0));
+                container.addTradingOrder(DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_SELL_TYPE, 1100 + j % 50, 100000000L, j, 1));
+            }
+        }
+        DexService dexService = DexTestUtil.newDexService(dexManager);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 3; i++) {
+            copyAll(dexManager);
+            dexService.doPacking(new ArrayList<>(), 1, 1, false);
+        }
+
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            copyAll(dexManager);
+        }
+        long copyCost = (System.nanoTime() - start) / ROUNDS;
+        long copyBytes = (threadMXBean.getThreadAllocatedBytes(threadId) - bytes) / ROUNDS;
+
+        bytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            dexService.doPacking(new ArrayList<>(), 1, 1, false);
+        }
+        long packCost = (System.nanoTime() - start) / ROUNDS;
+        long packBytes = (threadMXBean.getThreadAllocatedBytes(threadId) - bytes) / ROUNDS;
+
+        System.out.println("pairs:" + PAIRS + ", orders:" + PAIRS * ORDERS_PER_SIDE * 2);
+        System.out.println("copy all containers: " + copyCost / 1000 + "us, " + copyBytes / 1024 + "KB per block");
+        System.out.println("copy on write packing: " + packCost / 1000 + "us, " + packBytes / 1024 + "KB per block");
+    }
+
+    /**
+     * 写时复制打包结果需与全部复制后打包一致，且不能修改原盘口
+     */
+    @Test
+    public void testCopyOnWriteKeepsBookAndResult() throws Exception {
+        Random random = new Random(131);
+        DexManager live = new DexManager();
+        DexManager copied = new DexManager();
+        for (int i = 0; i < 50; i++) {
+            CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+            live.addCoinTrading(trading);
+            TradingContainer container = live.getTradingContainer(trading.getHash().toHex());
+            //每5个币对有一个交叉盘口
+            int cross = i % 5 == 0 ? 30 : 0;
+            for (int j = 0; j < 40; j++) {
+                container.addTradingOrder(DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, 1000 + cross - j % 7, 100000000L + j * 1000, j, 0));
+                container.addTradingOrder(DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_SELL_TYPE, 1001 + j % 7, 150000000L - j * 1000, j, 1));
+            }
+        }
+        for (TradingContainer container : live.getAllContainer().values()) {
+            copied.addContainer(container.copy(Integer.MAX_VALUE));
+        }
+        Map<String, BigInteger> dealAmountBefore = dealAmounts(live);
+
+        List<String> first = hashes(DexTestUtil.newDexService(live).doPacking(new ArrayList<>(), 1, 1, false));
+        List<String> second = hashes(DexTestUtil.newDexService(live).doPacking(new ArrayList<>(), 1, 1, false));
+        List<String> expected = hashes(DexTestUtil.newDexService(copied).doPacking(new ArrayList<>(), 1, 1, false));
+
+        Assert.assertFalse(first.isEmpty());
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(expected, first);
+        Assert.assertEquals(dealAmountBefore, dealAmounts(live));
+    }
+
+    private void copyAll(DexManager dexManager) {
+        DexManager temp = new DexManager();
+        for (TradingContainer container : dexManager.getAllContainer().values()) {
+            temp.addContainer(container.copy(200));
+        }
+    }
+
+    private Map<String, BigInteger> dealAmounts(DexManager dexManager) {
+        Map<String, BigInteger> map = new HashMap<>();
+        for (TradingContainer container : dexManager.getAllContainer().values()) {
+            for (TradingOrderPo po : container.getBuyOrders(Integer.MAX_VALUE)) {
+                map.put(po.getOrderHash().toHex(), po.getDealAmount());
+            }
+            for (TradingOrderPo po : container.getSellOrders(Integer.MAX_VALUE)) {
+                map.put(po.getOrderHash().toHex(), po.getDealAmount());
+            }
+        }
+        return map;
+    }
+
+    private List<String> hashes(Map<String, List<Transaction>> result) {
+        List<String> list = new ArrayList<>();
+        for (Transaction tx : result.get("dealTxList")) {
+            list.add(tx.getHash().toHex());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,251 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.crypto.HexUtil;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexService;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.model.txData.TradingOrder;
+import network.nerve.dex.model.txData.TradingOrderCancel;
+import network.nerve.dex.storage.TradingOrderStorageService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 按币对并行撮合：与顺序撮合的结果一致性测试，以及币对数和线程数的吞吐对比
+ */
+public class DexParallelMatchingTest {
+
+    private static final int[] THREADS = {1, 2, 4, 8};
+
+    /**
+     * 成交数量超过打包上限，上限落在某个币对的撮合中间
+     */
+    @Test
+    public void testParallelMatchingOverLimit() throws Exception {
+        for (long seed = 0; seed < 5; seed++) {
+            Book book = newBook(seed, 80, 2, 12);
+            assertSameResult(book, new ArrayList<>());
+        }
+    }
+
+    /**
+     * 成交数量未超过打包上限，本区块还包含新的挂单和撤销挂单交易
+     */
+    @Test
+    public void testParallelMatchingWithTxs() throws Exception {
+        for (long seed = 10; seed < 15; seed++) {
+            Book book = newBook(seed, 60, 3, 3);
+            Random random = new Random(seed);
+            List<Transaction> txList = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                CoinTradingPo trading = book.tradingList.get(random.nextInt(book.tradingList.size()));
+                byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                txList.add(newOrderTx(random, trading, type, 990 + random.nextInt(30), 100000000L + random.nextInt(1000) * 100000L));
+                //撤销已有挂单，其中一部分已在打包前撮合
+                TradingOrderPo po = book.orderList.get(random.nextInt(book.orderList.size()));
+                txList.add(newCancelTx(random, po.getOrderHash()));
+            }
+            assertSameResult(book, txList);
+        }
+    }
+
+    /**
+     * 并行撮合吞吐：每个币对有少量可成交挂单，按币对数量和线程数对比打包耗时
+     */
+    @Test
+    public void benchmarkParallelMatching() throws Exception {
+        for (int pairs : new int[]{16, 64, 96}) {
+            Book book = newBook(1, pairs, 1, 2);
+            StringBuilder builder = new StringBuilder("pairs:" + pairs);
+            for (int threads : THREADS) {
+                DexService dexService = DexTestUtil.newDexService(book.dexManager, book.storage);
+                dexService.setMatchingThreads(threads);
+                for (int i = 0; i < 20; i++) {
+                    dexService.doPacking(new ArrayList<>(), 1, 1, false);
+                }
+                int rounds = 50;
+                long start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    dexService.doPacking(new ArrayList<>(), 1, 1, false);
+                }
+                builder.append(", threads ").append(threads).append(":").append((System.nanoTime() - start) / rounds / 1000).append("us");
+                dexService.setMatchingThreads(1);
+            }
+            System.out.println(builder);
+        }
+    }
+
+    private void assertSameResult(Book book, List<Transaction> txList) throws Exception {
+        DexService sequential = DexTestUtil.newDexService(book.dexManager, book.storage);
+        sequential.setMatchingThreads(1);
+        Map<String, List<Transaction>> expected = sequential.doPacking(new ArrayList<>(txList), 1, 1, false);
+        List<String> expectedDeal = serialize(expected.get("dealTxList"));
+        List<String> expectedRemove = serialize(expected.get("removeTxList"));
+        Assert.assertFalse(expectedDeal.isEmpty());
+        for (int threads : THREADS) {
+            DexService parallel = DexTestUtil.newDexService(book.dexManager, book.storage);
+            parallel.setMatchingThreads(threads);
+            Map<String, List<Transaction>> result = parallel.doPacking(new ArrayList<>(txList), 1, 1, false);
+            Assert.assertEquals(expectedDeal, serialize(result.get("dealTxList")));
+            Assert.assertEquals(expectedRemove, serialize(result.get("removeTxList")));
+            parallel.setMatchingThreads(1);
+        }
+    }
+
+    private List<String> serialize(List<Transaction> txList) throws Exception {
+        List<String> list = new ArrayList<>();
+        for (Transaction tx : txList) {
+            list.add(HexUtil.encode(tx.serialize()));
+        }
+        return list;
+    }
+
+    /**
+     * 每crossEvery个币对中有一个买卖盘交叉的币对，交叉部分挂单数为crossDepth
+     */
+    private Book newBook(long seed, int pairs, int crossEvery, int crossDepth) {
+        Random random = new Random(seed);
+        Book book = new Book();
+        for (int i = 0; i < pairs; i++) {
+            CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+            book.dexManager.addCoinTrading(trading);
+            book.tradingList.add(trading);
+            TradingContainer container = book.dexManager.getTradingContainer(trading.getHash().toHex());
+            int cross = i % crossEvery == 0 ? crossDepth : 0;
+            for (int j = 0; j < 20; j++) {
+                long buyPrice = j < cross ? 1010 + random.nextInt(10) : 1000 - random.nextInt(20);
+                long sellPrice = j < cross ? 990 + random.nextInt(10) : 1001 + random.nextInt(20);
+                book.add(container, DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_BUY_TYPE, buyPrice, 100000000L + random.nextInt(1000) * 100000L, j, 0));
+                book.add(container, DexTestUtil.newOrder(random, trading, DexConstant.TRADING_ORDER_SELL_TYPE, sellPrice, 100000000L + random.nextInt(1000) * 100000L, j, 1));
+            }
+        }
+        return book;
+    }
+
+    private Transaction newOrderTx(Random random, CoinTradingPo trading, byte type, long price, long amount) throws Exception {
+        TradingOrder order = new TradingOrder();
+        order.setTradingHash(trading.getHash().getBytes());
+        order.setAddress(DexTestUtil.randomAddress(random));
+        order.setType(type);
+        order.setPrice(BigInteger.valueOf(price));
+        order.setAmount(BigInteger.valueOf(amount));
+        order.setFeeAddress(new byte[0]);
+
+        CoinData coinData = new CoinData();
+        if (type == DexConstant.TRADING_ORDER_BUY_TYPE) {
+            BigInteger quote = BigInteger.valueOf(amount).multiply(BigInteger.valueOf(price)).divide(BigInteger.valueOf(100000000L));
+            coinData.addTo(new CoinTo(order.getAddress(), trading.getQuoteAssetChainId(), trading.getQuoteAssetId(), quote, DexConstant.DEX_LOCK_TIME));
+        } else {
+            coinData.addTo(new CoinTo(order.getAddress(), trading.getBaseAssetChainId(), trading.getBaseAssetId(), order.getAmount(), DexConstant.DEX_LOCK_TIME));
+        }
+        Transaction tx = new Transaction();
+        tx.setType(TxType.TRADING_ORDER);
+        tx.setTime(1);
+        tx.setCoinData(coinData.serialize());
+        tx.setTxData(order.serialize());
+        tx.setHash(NulsHash.calcHash(tx.serializeForHash()));
+        return tx;
+    }
+
+    private Transaction newCancelTx(Random random, NulsHash orderHash) throws Exception {
+        TradingOrderCancel cancel = new TradingOrderCancel();
+        cancel.setOrderHash(orderHash.getBytes());
+        Transaction tx = new Transaction();
+        tx.setType(TxType.TRADING_ORDER_CANCEL);
+        tx.setTime(1);
+        tx.setRemark(DexTestUtil.randomHash(random).getBytes());
+        tx.setTxData(cancel.serialize());
+        tx.setHash(NulsHash.calcHash(tx.serializeForHash()));
+        return tx;
+    }
+
+    private static class Book {
+        private final DexManager dexManager = new DexManager();
+        private final List<CoinTradingPo> tradingList = new ArrayList<>();
+        private final List<TradingOrderPo> orderList = new ArrayList<>();
+        private final MemoryOrderStorage storage = new MemoryOrderStorage();
+
+        private void add(TradingContainer container, TradingOrderPo po) {
+            container.addTradingOrder(po);
+            orderList.add(po);
+            storage.orderMap.put(po.getOrderHash(), po.copy());
+        }
+    }
+
+    /**
+     * 打包时撤销挂单只需要查询挂单
+     */
+    private static class MemoryOrderStorage implements TradingOrderStorageService {
+        private final Map<NulsHash, TradingOrderPo> orderMap = new HashMap<>();
+
+        @Override
+        public TradingOrderPo query(byte[] orderHash) {
+            TradingOrderPo po = orderMap.get(new NulsHash(orderHash));
+            return po == null ? null : po.copy();
+        }
+
+        @Override
+        public void save(TradingOrderPo po) {
+        }
+
+        @Override
+        public void delete(NulsHash orderHash) {
+        }
+
+        @Override
+        public void stop(TradingOrderPo po) {
+        }
+
+        @Override
+        public void rollbackStop(TradingOrderPo po) {
+        }
+
+        @Override
+        public TradingOrderPo queryFromBack(byte[] orderHash) {
+            return null;
+        }
+
+        @Override
+        public void deleteBackData(byte[] orderHash) {
+        }
+
+        @Override
+        public List<TradingOrderPo> queryAll() {
+            return new ArrayList<>(orderMap.values());
+        }
+
+        @Override
+        public void saveHeight(long height) {
+        }
+
+        @Override
+        public long getOrderLogSequence() {
+            return 0;
+        }
+
+        @Override
+        public Set<NulsHash> queryChangedOrders(long sequence) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void pruneOrderLog(long sequence) {
+        }
+
+        @Override
+        public long getHeight() {
+            return 0;
+        }
+    }
+}
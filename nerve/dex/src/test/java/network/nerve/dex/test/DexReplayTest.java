@@ -0,0 +1,209 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.*;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.exception.NulsException;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexErrorCode;
+import network.nerve.dex.model.po.CoinTradingPo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * dex交易流录制和重放：模拟出块节点生成录制文件(包含区块回滚)，离线重放后的盘口摘要与出块节点一致，
+ * 不同撮合线程数重放的结果也一致；以及按阶段统计的重放耗时
+ * 基准测试可以通过 -Ddex.replay.file 指定节点录制的文件，或通过 -Ddex.replay.blocks 调整模拟的区块数
+ */
+public class DexReplayTest {
+
+    private static final int CHAIN_ID = DexTestUtil.chainId;
+    private static final int ASSET_ID = 1;
+
+    private File tempDir;
+
+    @Before
+    public void before() throws Exception {
+        tempDir = Files.createTempDirectory("dex-replay").toFile();
+    }
+
+    @After
+    public void after() {
+        delete(tempDir);
+    }
+
+    @Test
+    public void testReplayMatchesProducerDigest() throws Exception {
+        Producer producer = produce(41, 5, 200, 30);
+        Assert.assertTrue(producer.rollbackCount > 0);
+        for (int threads : new int[]{1, 4}) {
+            try (DexReplayer replayer = DexReplayer.open(producer.recordFile, new File(tempDir, "replay-" + threads))) {
+                replayer.setMatchingThreads(threads);
+                replayer.replayAll();
+                Assert.assertEquals(HexUtil.encode(producer.digest), HexUtil.encode(replayer.stateDigest()));
+                Assert.assertEquals(producer.recordedTxCount, replayer.getTxCount());
+            }
+        }
+    }
+
+    /**
+     * 修改录制文件中的一笔成交交易后，打包验证不通过
+     */
+    @Test
+    public void testTamperedDealFailsVerification() throws Exception {
+        Producer producer = produce(42, 2, 40, 0);
+        byte[] data = Files.readAllBytes(producer.recordFile.toPath());
+        int offset = lastIndexOf(data, producer.lastDeal);
+        Assert.assertTrue(offset > 0);
+        //type(2) time(4) remark(1) txData长度(1或3)之后是成交交易数据里的币对hash
+        data[offset + 20] ^= 1;
+        Files.write(producer.recordFile.toPath(), data);
+        try (DexReplayer replayer = DexReplayer.open(producer.recordFile, new File(tempDir, "replay"))) {
+            try {
+                replayer.replayAll();
+                Assert.fail("tampered deal tx passed verification");
+            } catch (NulsException e) {
+                Assert.assertEquals(DexErrorCode.SYNC_BATCH_VALIDATE_ERROR, e.getErrorCode());
+            }
+        }
+    }
+
+    /**
+     * 按阶段统计重放耗时：挂单和撤单验证、打包验证(重新撮合)、提交
+     */
+    @Test
+    public void benchmarkReplay() throws Exception {
+        String path = System.getProperty("dex.replay.file");
+        File recordFile;
+        if (path != null) {
+            recordFile = new File(path);
+        } else {
+            recordFile = produce(43, 20, Integer.getInteger("dex.replay.blocks", 300), 0).recordFile;
+        }
+        String digest = null;
+        for (int round = 0; round < 3; round++) {
+            try (DexReplayer replayer = DexReplayer.open(recordFile, new File(tempDir, "bench-" + round))) {
+                long start = System.nanoTime();
+                replayer.replayAll();
+                long cost = System.nanoTime() - start;
+                long blocks = Math.max(1, replayer.getBlockCount());
+                System.out.println("blocks:" + replayer.getBlockCount() + ", txs:" + replayer.getTxCount()
+                        + ", validate:" + replayer.getValidateNanos() / blocks / 1000 + "us, verify packing:" + replayer.getVerifyNanos() / blocks / 1000
+                        + "us, commit:" + replayer.getCommitNanos() / blocks / 1000 + "us per block, total:" + cost / 1000000 + "ms, "
+                        + replayer.getTxCount() * 1000000000L / Math.max(1, cost) + " tx/s");
+                String roundDigest = HexUtil.encode(replayer.stateDigest());
+                if (digest != null) {
+                    Assert.assertEquals(digest, roundDigest);
+                }
+                digest = roundDigest;
+            }
+        }
+    }
+
+    /**
+     * 模拟出块节点：前若干个区块不录制，之后开启录制，每隔rollbackEvery个区块回滚最新区块并重新出块
+     */
+    private Producer produce(long seed, int pairs, int blocks, int rollbackEvery) throws Exception {
+        Random random = new Random(seed);
+        Producer producer = new Producer();
+        File recordDir = new File(tempDir, "record-" + seed);
+        List<CoinTradingPo> tradingList = new ArrayList<>();
+        //挂单hash和挂单地址，撤单交易的from地址必须是挂单地址
+        Map<NulsHash, byte[]> orderMap = new LinkedHashMap<>();
+        List<NulsHash> orderHashList = new ArrayList<>();
+        long time = 1600000000L;
+        try (DexReplayer node = new DexReplayer(new File(tempDir, "producer-" + seed), CHAIN_ID, ASSET_ID)) {
+            for (int i = 0; i < pairs; i++) {
+                CoinTradingPo trading = DexTestUtil.newTrading(random, i + 2);
+                node.addCoinTrading(trading);
+                tradingList.add(trading);
+            }
+            int warmBlocks = 10;
+            for (long height = 1; height <= warmBlocks + blocks; height++) {
+                if (height == warmBlocks + 1) {
+                    node.getDexConfig().setTxRecordPath(recordDir.getPath());
+                }
+                time += 2;
+                List<Transaction> blockTxList = newBlock(node, random, tradingList, orderMap, orderHashList, height, time);
+                if (rollbackEvery > 0 && height > warmBlocks && height % rollbackEvery == 0) {
+                    producer.recordedTxCount += blockTxList.size();
+                    node.rollback(blockTxList, height, time);
+                    producer.rollbackCount++;
+                    blockTxList = newBlock(node, random, tradingList, orderMap, orderHashList, height, time);
+                }
+                if (height > warmBlocks) {
+                    producer.recordedTxCount += blockTxList.size();
+                    for (Transaction tx : blockTxList) {
+                        if (tx.getType() == TxType.TRADING_DEAL) {
+                            producer.lastDeal = tx.serialize();
+                        }
+                    }
+                }
+            }
+            producer.digest = node.stateDigest();
+        }
+        File[] files = recordDir.listFiles();
+        Assert.assertNotNull(files);
+        Assert.assertEquals(1, files.length);
+        producer.recordFile = files[0];
+        return producer;
+    }
+
+    private List<Transaction> newBlock(DexReplayer node, Random random, List<CoinTradingPo> tradingList, Map<NulsHash, byte[]> orderMap,
+                                       List<NulsHash> orderHashList, long height, long time) throws Exception {
+        List<Transaction> txList = new ArrayList<>();
+        int count = 10 + random.nextInt(30);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(5) == 0 && !orderHashList.isEmpty()) {
+                NulsHash orderHash = orderHashList.get(random.nextInt(orderHashList.size()));
+                txList.add(DexTestUtil.newCancelTx(random, orderHash, orderMap.get(orderHash), time));
+            } else {
+                CoinTradingPo trading = tradingList.get(random.nextInt(tradingList.size()));
+                byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                long price = type == DexConstant.TRADING_ORDER_BUY_TYPE ? 980 + random.nextInt(30) : 990 + random.nextInt(30);
+                byte[] address = DexTestUtil.randomAddress(random);
+                Transaction tx = DexTestUtil.newOrderTx(trading, address, type, price, 100000000L + random.nextInt(1000) * 1000000L, time);
+                orderMap.put(tx.getHash(), address);
+                orderHashList.add(tx.getHash());
+                txList.add(tx);
+            }
+        }
+        List<Transaction> blockTxList = node.pack(txList, height, time);
+        node.commit(blockTxList, height, time);
+        return blockTxList;
+    }
+
+    private static int lastIndexOf(byte[] data, byte[] target) {
+        for (int i = data.length - target.length; i >= 0; i--) {
+            if (Arrays.equals(Arrays.copyOfRange(data, i, i + target.length), target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class Producer {
+        private File recordFile;
+        private byte[] digest;
+        //录制期间提交的交易数，包括之后被回滚的区块
+        private long recordedTxCount;
+        private int rollbackCount;
+        private byte[] lastDeal;
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
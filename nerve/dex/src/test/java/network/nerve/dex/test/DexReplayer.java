@@ -0,0 +1,297 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.RocksDBService;
+import network.nerve.dex.context.DexConfig;
+import network.nerve.dex.context.DexContext;
+import network.nerve.dex.context.DexDBConstant;
+import network.nerve.dex.manager.*;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.storage.CoinTradingStorageService;
+import network.nerve.dex.storage.TradingOrderStorageService;
+import network.nerve.dex.storage.impl.*;
+import network.nerve.dex.tx.DexTxCommitAdvice;
+import network.nerve.dex.tx.DexTxPackageProcessor;
+import network.nerve.dex.tx.DexTxRollbackAdvice;
+import network.nerve.dex.tx.v1.process.*;
+import network.nerve.dex.tx.v1.validate.*;
+import network.nerve.dex.util.DexUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * dex交易流离线重放：不依赖其他模块，在临时数据目录中创建dex模块的全部表，
+ * 按SpringLite的方式把正式的存储服务、盘口、验证器、打包处理器和提交回滚处理器装配在一起
+ * <p>
+ * 重放录制文件时每个区块依次执行：挂单和撤单验证、打包验证(重新撮合并与区块中的成交交易逐字节比对)、提交或回滚，
+ * 分别统计耗时；也可以直接调用pack和commit模拟出块节点生成录制文件
+ * 同一时间只能有一个实例(RocksDBService为全局单例)
+ */
+public class DexReplayer implements Closeable {
+
+    private final DexConfig dexConfig = new DexConfig();
+    private final DexManager dexManager = new DexManager();
+    private final DexService dexService = new DexService();
+    private final CoinTradingStorageService tradingStorageService = new CoinTradingStorageServiceImpl();
+    private final TradingOrderStorageService orderStorageService = new TradingOrderStorageServiceImpl();
+    private final TradingOrderValidator orderValidator = new TradingOrderValidator();
+    private final OrderCancelValidator cancelValidator = new OrderCancelValidator();
+    private final DexTxPackageProcessor packageProcessor = new DexTxPackageProcessor();
+    private final DexTxCommitAdvice commitAdvice = new DexTxCommitAdvice();
+    private final DexTxRollbackAdvice rollbackAdvice = new DexTxRollbackAdvice();
+    private final OrderBookCheckpointManager checkpointManager = new OrderBookCheckpointManager();
+
+    private DexTxRecorder.Reader reader;
+
+    private long blockCount;
+    private long txCount;
+    private long validateNanos;
+    private long verifyNanos;
+    private long commitNanos;
+
+    public DexReplayer(File dataDir, int chainId, int assetId) throws Exception {
+        RocksDBService.init(dataDir.getPath());
+        for (String table : new String[]{DexDBConstant.DB_NAME_COIN_TRADING, DexDBConstant.DB_NAME_TRADING_ORDER,
+                DexDBConstant.DB_NAME_TRADING_ORDER_BACK, DexDBConstant.DB_NAME_TRADING_ORDER_CANCEL, DexDBConstant.DB_NAME_TRADING_DEAL,
+                DexDBConstant.DB_NAME_COIN_TRADING_EDIT_INFO, DexDBConstant.DB_NAME_NONCE_ORDER, DexDBConstant.DB_NAME_HEIGHT,
+                DexDBConstant.DB_NAME_DEAL_HISTORY, DexDBConstant.DB_NAME_ORDER_LOG}) {
+            DexUtil.createTable(table);
+        }
+        dexConfig.setChainId(chainId);
+        dexConfig.setAssetId(assetId);
+        //重放时不保存盘口快照
+        dexConfig.setOrderBookCheckpointInterval(Integer.MAX_VALUE);
+        checkpointManager.setFolder(new File(dataDir, "checkpoint"));
+
+        List<Object> beans = new ArrayList<>(Arrays.asList(dexConfig, dexManager, dexService, tradingStorageService, orderStorageService,
+                new TradingOrderCancelStorageServiceImpl(), new TradingDealStorageServiceImpl(), new NonceOrderStorageServiceImpl(),
+                new TradingDealHistoryStorageServiceImpl(), orderValidator, cancelValidator, new CoinTradingValidator(),
+                new EditCoinTradingValidator(), new CoinTradingProcessor(), new TradingOrderProcessor(), new OrderCancelProcessor(),
+                new TradingDealProcessor(), new EditCoinTradingProcessor(), new OrderCancelConfirmProcessor(),
+                packageProcessor, commitAdvice, rollbackAdvice, checkpointManager, new DexTxRecorder()));
+        for (Object bean : beans) {
+            autowire(bean, beans);
+        }
+    }
+
+    /**
+     * 打开录制文件，在新的数据目录中恢复录制开始时的状态，与节点启动时从数据库加载盘口的方式相同
+     */
+    public static DexReplayer open(File recordFile, File dataDir) throws Exception {
+        DexTxRecorder.Reader reader = new DexTxRecorder.Reader(recordFile);
+        DexContext.sysFeeAddress = reader.getSysFeeAddress();
+        DexContext.sysFeeScaleDecimal = reader.getSysFeeScale();
+        DexContext.skipHeight = reader.getSkipHeight();
+        DexContext.priceSkipHeight = reader.getPriceSkipHeight();
+        DexReplayer replayer = new DexReplayer(dataDir, reader.getChainId(), reader.getAssetId());
+        replayer.reader = reader;
+        for (CoinTradingPo tradingPo : reader.getTradingList()) {
+            replayer.tradingStorageService.save(tradingPo);
+        }
+        for (TradingOrderPo po : reader.getOrderList()) {
+            replayer.orderStorageService.save(po);
+        }
+        replayer.orderStorageService.saveHeight(reader.getStartHeight() - 1);
+        replayer.dexManager.init();
+        return replayer;
+    }
+
+    /**
+     * 重放录制文件中的下一个区块
+     *
+     * @return 文件已读完时返回false
+     */
+    public boolean replayNext() throws Exception {
+        DexTxRecorder.RecordBlock block = reader.next();
+        if (block == null) {
+            return false;
+        }
+        if (block.getType() == DexTxRecorder.ROLLBACK) {
+            rollback(block.getTxList(), block.getHeight(), block.getTime());
+            return true;
+        }
+        List<Transaction> orderList = new ArrayList<>();
+        List<Transaction> cancelList = new ArrayList<>();
+        for (Transaction tx : block.getTxList()) {
+            if (tx.getType() == TxType.TRADING_ORDER) {
+                orderList.add(tx);
+            } else if (tx.getType() == TxType.TRADING_ORDER_CANCEL) {
+                cancelList.add(tx);
+            }
+        }
+        long start = System.nanoTime();
+        checkValid(orderValidator.validateTxs(orderList), block.getHeight());
+        checkValid(cancelValidator.validateTxs(cancelList), block.getHeight());
+        validateNanos += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        //与同步区块时相同，重新撮合并与区块中的成交交易比对，不一致时抛出异常
+        packageProcessor.packProduce(dexConfig.getChainId(), new ArrayList<>(block.getTxList()), 1, block.getHeight(), block.getTime());
+        verifyNanos += System.nanoTime() - start;
+
+        commit(block.getTxList(), block.getHeight(), block.getTime());
+        return true;
+    }
+
+    /**
+     * 重放录制文件中剩余的全部区块
+     */
+    public void replayAll() throws Exception {
+        while (replayNext()) {
+        }
+    }
+
+    /**
+     * 模拟出块节点打包：撮合生成成交交易，返回区块中的dex交易(未被移除的交易在前，成交交易在后)
+     */
+    public List<Transaction> pack(List<Transaction> txList, long height, long time) throws NulsException {
+        Map<String, List<Transaction>> map = dexService.doPacking(new ArrayList<>(txList), time, height, false);
+        Set<NulsHash> removeSet = new HashSet<>();
+        for (Transaction tx : map.get("removeTxList")) {
+            removeSet.add(tx.getHash());
+        }
+        List<Transaction> blockTxList = new ArrayList<>();
+        for (Transaction tx : txList) {
+            if (!removeSet.contains(tx.getHash())) {
+                blockTxList.add(tx);
+            }
+        }
+        blockTxList.addAll(map.get("dealTxList"));
+        return blockTxList;
+    }
+
+    public void commit(List<Transaction> txList, long height, long time) {
+        long start = System.nanoTime();
+        commitAdvice.begin(dexConfig.getChainId(), txList, newHeader(height, time), 0);
+        commitNanos += System.nanoTime() - start;
+        blockCount++;
+        txCount += txList.size();
+    }
+
+    public void rollback(List<Transaction> txList, long height, long time) {
+        long start = System.nanoTime();
+        rollbackAdvice.begin(dexConfig.getChainId(), txList, newHeader(height, time), 0);
+        commitNanos += System.nanoTime() - start;
+        blockCount++;
+    }
+
+    public void addCoinTrading(CoinTradingPo tradingPo) throws Exception {
+        tradingStorageService.save(tradingPo);
+        dexManager.addCoinTrading(tradingPo);
+    }
+
+    /**
+     * 盘口状态摘要：按币对hash顺序，依次对买盘和卖盘按盘口顺序的每条挂单的hash和数据计算SHA-256
+     */
+    public byte[] stateDigest() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        List<String> hashList = new ArrayList<>(dexManager.getAllContainer().keySet());
+        Collections.sort(hashList);
+        for (String hash : hashList) {
+            TradingContainer container = dexManager.getTradingContainer(hash);
+            digest.update(container.getCoinTrading().getHash().getBytes());
+            for (List<TradingOrderPo> list : Arrays.asList(container.getBuyOrders(Integer.MAX_VALUE), container.getSellOrders(Integer.MAX_VALUE))) {
+                digest.update(ByteBuffer.allocate(4).putInt(list.size()).array());
+                for (TradingOrderPo po : list) {
+                    digest.update(po.getOrderHash().getBytes());
+                    digest.update(po.serialize());
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    public void setMatchingThreads(int threads) {
+        dexService.setMatchingThreads(threads);
+    }
+
+    public DexConfig getDexConfig() {
+        return dexConfig;
+    }
+
+    public DexManager getDexManager() {
+        return dexManager;
+    }
+
+    public TradingOrderStorageService getOrderStorageService() {
+        return orderStorageService;
+    }
+
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    public long getTxCount() {
+        return txCount;
+    }
+
+    public long getValidateNanos() {
+        return validateNanos;
+    }
+
+    public long getVerifyNanos() {
+        return verifyNanos;
+    }
+
+    public long getCommitNanos() {
+        return commitNanos;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (Exception ignored) {
+        }
+        dexService.setMatchingThreads(1);
+        RocksDBManager.close();
+    }
+
+    private static void checkValid(Map<String, Object> result, long height) {
+        List<?> invalidList = (List<?>) result.get("txList");
+        if (!invalidList.isEmpty()) {
+            throw new IllegalStateException("invalid tx in block " + height + ", count:" + invalidList.size() + ", errorCode:" + result.get("errorCode"));
+        }
+    }
+
+    private static BlockHeader newHeader(long height, long time) {
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        header.setTime(time);
+        return header;
+    }
+
+    /**
+     * 按字段类型注入@Autowired依赖
+     */
+    private static void autowire(Object bean, List<Object> beans) throws IllegalAccessException {
+        for (Class<?> clazz = bean.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (!field.isAnnotationPresent(Autowired.class)) {
+                    continue;
+                }
+                for (Object candidate : beans) {
+                    if (field.getType().isInstance(candidate)) {
+                        field.setAccessible(true);
+                        field.set(bean, candidate);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.crypto.HexUtil;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingDealPo;
+import network.nerve.dex.storage.impl.TradingDealStorageServiceImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * 撤单确认和成交交易的回滚：回滚区块后盘口和挂单数据恢复到区块提交前的状态
+ */
+public class DexRollbackTest {
+
+    private File tempDir;
+    private DexReplayer node;
+    private CoinTradingPo trading;
+    private Random random;
+    private long time = 1600000000L;
+
+    @Before
+    public void before() throws Exception {
+        tempDir = Files.createTempDirectory("dex-rollback").toFile();
+        node = new DexReplayer(new File(tempDir, "data"), DexTestUtil.chainId, 1);
+        random = new Random(38);
+        trading = DexTestUtil.newTrading(random, 2);
+        node.addCoinTrading(trading);
+    }
+
+    @After
+    public void after() {
+        node.close();
+        delete(tempDir);
+    }
+
+    private List<Transaction> commitBlock(long height, Transaction... txs) throws Exception {
+        time += 2;
+        List<Transaction> blockTxList = node.pack(Arrays.asList(txs), height, time);
+        node.commit(blockTxList, height, time);
+        return blockTxList;
+    }
+
+    private TradingContainer container() {
+        return node.getDexManager().getTradingContainer(trading.getHash().toHex());
+    }
+
+    /**
+     * 同一区块内两笔撤销同一挂单的交易，回滚后挂单回到盘口
+     */
+    @Test
+    public void testCancelConfirmRollbackRestoresOrder() throws Exception {
+        byte[] address = DexTestUtil.randomAddress(random);
+        Transaction orderTx = DexTestUtil.newOrderTx(trading, address, DexConstant.TRADING_ORDER_BUY_TYPE, 1000, 100000000L, time);
+        commitBlock(1, orderTx);
+        Assert.assertNotNull(container().getTradingOrder(orderTx.getHash()));
+        String digest = HexUtil.encode(node.stateDigest());
+
+        List<Transaction> blockTxList = commitBlock(2, DexTestUtil.newCancelTx(random, orderTx.getHash(), address, time),
+                DexTestUtil.newCancelTx(random, orderTx.getHash(), address, time));
+        Assert.assertNull(container().getTradingOrder(orderTx.getHash()));
+
+        node.rollback(blockTxList, 2, time);
+        Assert.assertNotNull(container().getTradingOrder(orderTx.getHash()));
+        Assert.assertNotNull(node.getOrderStorageService().query(orderTx.getHash().getBytes()));
+        Assert.assertEquals(digest, HexUtil.encode(node.stateDigest()));
+    }
+
+    /**
+     * 部分成交回滚后买单的成交数量和nonce恢复，成交记录被删除
+     */
+    @Test
+    public void testDealRollbackRestoresOrders() throws Exception {
+        Transaction buyTx = DexTestUtil.newOrderTx(trading, DexTestUtil.randomAddress(random), DexConstant.TRADING_ORDER_BUY_TYPE, 1000, 100000000L, time);
+        commitBlock(1, buyTx);
+        String digest = HexUtil.encode(node.stateDigest());
+
+        Transaction sellTx = DexTestUtil.newOrderTx(trading, DexTestUtil.randomAddress(random), DexConstant.TRADING_ORDER_SELL_TYPE, 1000, 40000000L, time);
+        List<Transaction> blockTxList = commitBlock(2, sellTx);
+        NulsHash dealHash = null;
+        for (Transaction tx : blockTxList) {
+            if (tx.getType() == TxType.TRADING_DEAL) {
+                dealHash = tx.getHash();
+            }
+        }
+        Assert.assertNotNull(dealHash);
+        TradingDealStorageServiceImpl dealStorageService = new TradingDealStorageServiceImpl();
+        TradingDealPo dealPo = dealStorageService.query(dealHash);
+        Assert.assertEquals(trading.getHash(), dealPo.getTradingHash());
+        Assert.assertEquals(dealHash, dealPo.getDealHash());
+        Assert.assertNotEquals(digest, HexUtil.encode(node.stateDigest()));
+
+        node.rollback(blockTxList, 2, time);
+        Assert.assertNull(dealStorageService.query(dealHash));
+        Assert.assertNull(container().getTradingOrder(sellTx.getHash()));
+        Assert.assertEquals(digest, HexUtil.encode(node.stateDigest()));
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
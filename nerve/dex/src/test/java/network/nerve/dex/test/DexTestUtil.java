@@ -0,0 +1,152 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.*;
+import io.nuls.core.constant.TxType;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.context.DexContext;
+import network.nerve.dex.manager.DexManager;
+import network.nerve.dex.manager.DexService;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import network.nerve.dex.model.txData.TradingOrder;
+import network.nerve.dex.model.txData.TradingOrderCancel;
+import network.nerve.dex.storage.TradingOrderStorageService;
+import network.nerve.dex.util.DexUtil;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * 离线测试工具：不依赖其他模块构造币对、挂单和DexService
+ */
+public class DexTestUtil {
+
+    static int chainId = 5;
+
+    static {
+        DexContext.sysFeeScaleDecimal = new BigDecimal(2);
+        DexContext.sysFeeAddress = AddressTool.getAddress(new byte[20], chainId);
+    }
+
+    public static NulsHash randomHash(Random random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return new NulsHash(bytes);
+    }
+
+    public static byte[] randomAddress(Random random) {
+        byte[] bytes = new byte[20];
+        random.nextBytes(bytes);
+        return AddressTool.getAddress(bytes, chainId);
+    }
+
+    public static CoinTradingPo newTrading(Random random, int baseAssetId) {
+        CoinTradingPo po = new CoinTradingPo();
+        po.setHash(randomHash(random));
+        po.setAddress(randomAddress(random));
+        po.setBaseAssetChainId(chainId);
+        po.setBaseAssetId(baseAssetId);
+        po.setBaseDecimal((byte) 8);
+        po.setScaleBaseDecimal((byte) 6);
+        po.setQuoteAssetChainId(chainId);
+        po.setQuoteAssetId(1);
+        po.setQuoteDecimal((byte) 8);
+        po.setScaleQuoteDecimal((byte) 6);
+        po.setMinBaseAmount(BigInteger.valueOf(100));
+        po.setMinQuoteAmount(BigInteger.valueOf(100));
+        return po;
+    }
+
+    /**
+     * @param price  计价币种价格(已按quoteDecimal放大)
+     * @param amount 交易币种数量(已按baseDecimal放大)
+     */
+    public static TradingOrderPo newOrder(Random random, CoinTradingPo trading, byte type, long price, long amount, long height, int index) {
+        TradingOrderPo po = new TradingOrderPo();
+        po.setOrderHash(randomHash(random));
+        po.setTradingHash(trading.getHash());
+        po.setAddress(randomAddress(random));
+        po.setType(type);
+        po.setBlockHeight(height);
+        po.setIndex(index);
+        po.setAmount(BigInteger.valueOf(amount));
+        po.setDealAmount(BigInteger.ZERO);
+        po.setPrice(BigInteger.valueOf(price));
+        po.setNonce(DexUtil.getNonceByHash(po.getOrderHash()));
+        po.setFeeAddress(new byte[0]);
+        if (type == network.nerve.dex.context.DexConstant.TRADING_ORDER_BUY_TYPE) {
+            BigDecimal quote = new BigDecimal(amount).movePointLeft(8).multiply(new BigDecimal(price));
+            po.setLeftQuoteAmount(quote.toBigInteger());
+        } else {
+            po.setLeftQuoteAmount(BigInteger.ZERO);
+        }
+        return po;
+    }
+
+    public static DexService newDexService(DexManager dexManager) throws Exception {
+        return newDexService(dexManager, null);
+    }
+
+    public static DexService newDexService(DexManager dexManager, TradingOrderStorageService orderStorageService) throws Exception {
+        DexService dexService = new DexService();
+        Field field = DexService.class.getDeclaredField("dexManager");
+        field.setAccessible(true);
+        field.set(dexService, dexManager);
+        field = DexService.class.getDeclaredField("orderStorageService");
+        field.setAccessible(true);
+        field.set(dexService, orderStorageService);
+        return dexService;
+    }
+
+    /**
+     * 挂单交易，coinData按挂单类型锁定计价币种或交易币种
+     */
+    public static Transaction newOrderTx(CoinTradingPo trading, byte[] address, byte type, long price, long amount, long time) throws Exception {
+        TradingOrder order = new TradingOrder();
+        order.setTradingHash(trading.getHash().getBytes());
+        order.setAddress(address);
+        order.setType(type);
+        order.setPrice(BigInteger.valueOf(price));
+        order.setAmount(BigInteger.valueOf(amount));
+        order.setFeeAddress(new byte[0]);
+
+        CoinData coinData = new CoinData();
+        if (type == DexConstant.TRADING_ORDER_BUY_TYPE) {
+            //计价币种数量向上取整，保证按价格可兑换的数量不小于挂单数量
+            BigInteger quote = BigInteger.valueOf(amount).multiply(BigInteger.valueOf(price)).add(BigInteger.valueOf(99999999L)).divide(BigInteger.valueOf(100000000L));
+            coinData.addFrom(new CoinFrom(address, trading.getQuoteAssetChainId(), trading.getQuoteAssetId(), quote, new byte[8], (byte) 0));
+            coinData.addTo(new CoinTo(address, trading.getQuoteAssetChainId(), trading.getQuoteAssetId(), quote, DexConstant.DEX_LOCK_TIME));
+        } else {
+            coinData.addFrom(new CoinFrom(address, trading.getBaseAssetChainId(), trading.getBaseAssetId(), order.getAmount(), new byte[8], (byte) 0));
+            coinData.addTo(new CoinTo(address, trading.getBaseAssetChainId(), trading.getBaseAssetId(), order.getAmount(), DexConstant.DEX_LOCK_TIME));
+        }
+        Transaction tx = new Transaction();
+        tx.setType(TxType.TRADING_ORDER);
+        tx.setTime(time);
+        tx.setCoinData(coinData.serialize());
+        tx.setTxData(order.serialize());
+        tx.setHash(NulsHash.calcHash(tx.serializeForHash()));
+        return tx;
+    }
+
+    /**
+     * 撤单交易，remark随机以区分同一挂单的多笔撤单
+     */
+    public static Transaction newCancelTx(Random random, NulsHash orderHash, byte[] address, long time) throws Exception {
+        TradingOrderCancel cancel = new TradingOrderCancel();
+        cancel.setOrderHash(orderHash.getBytes());
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(address, chainId, 1, BigInteger.valueOf(100000), new byte[8], (byte) 0));
+        Transaction tx = new Transaction();
+        tx.setType(TxType.TRADING_ORDER_CANCEL);
+        tx.setTime(time);
+        tx.setRemark(randomHash(random).getBytes());
+        tx.setCoinData(coinData.serialize());
+        tx.setTxData(cancel.serialize());
+        tx.setHash(NulsHash.calcHash(tx.serializeForHash()));
+        return tx;
+    }
+}
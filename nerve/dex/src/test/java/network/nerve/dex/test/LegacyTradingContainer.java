@@ -0,0 +1,81 @@
+package network.nerve.dex.test;
+
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.model.po.TradingOrderPo;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * 原 ConcurrentSkipListMap + LinkedHashMap 结构的盘口，仅作为价格档位引擎差异测试的参照实现
+ */
+public class LegacyTradingContainer {
+
+    private NavigableMap<BigInteger, Map<String, TradingOrderPo>> sellOrderList = new ConcurrentSkipListMap<>(Comparator.naturalOrder());
+
+    private NavigableMap<BigInteger, Map<String, TradingOrderPo>> buyOrderList = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+
+    private NavigableMap<BigInteger, Map<String, TradingOrderPo>> getList(byte type) {
+        return type == DexConstant.TRADING_ORDER_BUY_TYPE ? buyOrderList : sellOrderList;
+    }
+
+    public void addTradingOrder(TradingOrderPo po) {
+        getList(po.getType()).computeIfAbsent(po.getPrice(), k -> new LinkedHashMap<>()).put(po.getOrderHash().toHex(), po);
+    }
+
+    public TradingOrderPo getTradingOrder(TradingOrderPo po) {
+        Map<String, TradingOrderPo> list = getList(po.getType()).get(po.getPrice());
+        return list == null ? null : list.get(po.getOrderHash().toHex());
+    }
+
+    public void removeTradingOrder(TradingOrderPo po) {
+        NavigableMap<BigInteger, Map<String, TradingOrderPo>> orderList = getList(po.getType());
+        Map<String, TradingOrderPo> list = orderList.get(po.getPrice());
+        if (list == null) {
+            return;
+        }
+        list.remove(po.getOrderHash().toHex());
+        if (list.isEmpty()) {
+            orderList.remove(po.getPrice());
+        }
+    }
+
+    public TradingOrderPo getFirstOrder(byte type, Predicate<TradingOrderPo> predicate) {
+        for (Map<String, TradingOrderPo> map : getList(type).values()) {
+            for (TradingOrderPo po : map.values()) {
+                if (predicate.test(po)) {
+                    return po;
+                }
+            }
+        }
+        return null;
+    }
+
+    public BigInteger getFirstPrice(byte type) {
+        NavigableMap<BigInteger, Map<String, TradingOrderPo>> orderList = getList(type);
+        return orderList.isEmpty() ? null : orderList.firstKey();
+    }
+
+    /**
+     * 与原 TradingContainer.copy 相同，复制前orderSize+1条挂单
+     */
+    public List<TradingOrderPo> getCopyOrders(byte type, int orderSize) {
+        List<TradingOrderPo> result = new ArrayList<>();
+        int count = 0;
+        for (Map<String, TradingOrderPo> map : getList(type).values()) {
+            if (count > orderSize) break;
+            for (TradingOrderPo orderPo : map.values()) {
+                result.add(orderPo);
+                count++;
+                if (count > orderSize) break;
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return buyOrderList.isEmpty() && sellOrderList.isEmpty();
+    }
+}
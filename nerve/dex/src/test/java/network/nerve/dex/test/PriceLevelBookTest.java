@@ -0,0 +1,158 @@
+package network.nerve.dex.test;
+
+import io.nuls.base.data.NulsHash;
+import network.nerve.dex.context.DexConstant;
+import network.nerve.dex.manager.TradingContainer;
+import network.nerve.dex.model.po.CoinTradingPo;
+import network.nerve.dex.model.po.TradingOrderPo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * 价格档位引擎与原盘口结构的随机差异测试，以及挂单吃单吞吐对比
+ */
+public class PriceLevelBookTest {
+
+    private static final BigInteger HUGE_PRICE = BigInteger.ONE.shiftLeft(70);
+
+    @Test
+    public void testRandomOperationsMatchLegacy() throws Exception {
+        Random random = new Random(32);
+        CoinTradingPo trading = DexTestUtil.newTrading(random, 2);
+        TradingContainer container = new TradingContainer(trading);
+        LegacyTradingContainer legacy = new LegacyTradingContainer();
+        List<TradingOrderPo> orders = new ArrayList<>();
+        Set<NulsHash> cancelSet = new HashSet<>();
+        Predicate<TradingOrderPo> matchable = po -> !po.isOver() && !cancelSet.contains(po.getOrderHash());
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(10);
+            if (op < 4 || orders.isEmpty()) {
+                byte type = random.nextBoolean() ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+                TradingOrderPo po = DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(200), 100000000L, i, 0);
+                if (random.nextInt(50) == 0) {
+                    //超出long范围的价格
+                    po.setPrice(HUGE_PRICE.add(BigInteger.valueOf(random.nextInt(3))));
+                }
+                orders.add(po);
+                container.addTradingOrder(po);
+                legacy.addTradingOrder(po.copy());
+            } else if (op < 6) {
+                TradingOrderPo po = orders.get(random.nextInt(orders.size()));
+                TradingOrderPo update = po.copy();
+                update.setDealAmount(po.getDealAmount().add(BigInteger.valueOf(random.nextInt(1000))));
+                container.updateTradingOrder(update);
+                legacy.getTradingOrder(po).copyFrom(update);
+            } else if (op < 7) {
+                //同一挂单重复加入，不改变在档位中的位置
+                TradingOrderPo po = orders.get(random.nextInt(orders.size())).copy();
+                container.addTradingOrder(po);
+                legacy.addTradingOrder(po.copy());
+                orders.set(indexOf(orders, po.getOrderHash()), po);
+            } else if (op < 9) {
+                TradingOrderPo po = orders.remove(random.nextInt(orders.size()));
+                container.removeTradingOrder(po);
+                legacy.removeTradingOrder(po);
+            } else {
+                TradingOrderPo po = orders.get(random.nextInt(orders.size()));
+                if (random.nextBoolean()) {
+                    cancelSet.add(po.getOrderHash());
+                } else {
+                    po.setOver(true);
+                    legacy.getTradingOrder(po).setOver(true);
+                }
+            }
+
+            assertSame(legacy.getFirstOrder(DexConstant.TRADING_ORDER_BUY_TYPE, matchable), container.getFirstBuyOrder(matchable));
+            assertSame(legacy.getFirstOrder(DexConstant.TRADING_ORDER_SELL_TYPE, matchable), container.getFirstSellOrder(matchable));
+            Assert.assertEquals(legacy.getFirstPrice(DexConstant.TRADING_ORDER_BUY_TYPE), container.getFirstBuyPrice());
+            Assert.assertEquals(legacy.getFirstPrice(DexConstant.TRADING_ORDER_SELL_TYPE), container.getFirstSellPrice());
+            Assert.assertEquals(legacy.isEmpty(), container.isEmpty());
+
+            if (i % 500 == 0) {
+                int orderSize = random.nextInt(300);
+                TradingContainer copy = container.copy(orderSize);
+                assertOrders(legacy.getCopyOrders(DexConstant.TRADING_ORDER_BUY_TYPE, orderSize), copy.getBuyOrders(Integer.MAX_VALUE));
+                assertOrders(legacy.getCopyOrders(DexConstant.TRADING_ORDER_SELL_TYPE, orderSize), copy.getSellOrders(Integer.MAX_VALUE));
+                assertOrders(legacy.getCopyOrders(DexConstant.TRADING_ORDER_BUY_TYPE, Integer.MAX_VALUE), container.getBuyOrders(Integer.MAX_VALUE));
+            }
+        }
+    }
+
+    /**
+     * 模拟撮合：不断挂单，并取出买一卖一成交后移除
+     */
+    @Test
+    public void benchmarkAddAndTake() {
+        Random random = new Random(33);
+        CoinTradingPo trading = DexTestUtil.newTrading(random, 2);
+        List<TradingOrderPo> orders = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            byte type = i % 2 == 0 ? DexConstant.TRADING_ORDER_BUY_TYPE : DexConstant.TRADING_ORDER_SELL_TYPE;
+            orders.add(DexTestUtil.newOrder(random, trading, type, 900 + random.nextInt(200), 100000000L, i, 0));
+        }
+        Predicate<TradingOrderPo> matchable = po -> !po.isOver();
+        //前几轮为预热
+        for (int round = 0; round < 8; round++) {
+            long start = System.nanoTime();
+            LegacyTradingContainer legacy = new LegacyTradingContainer();
+            for (TradingOrderPo po : orders) {
+                legacy.addTradingOrder(po);
+                TradingOrderPo buy = legacy.getFirstOrder(DexConstant.TRADING_ORDER_BUY_TYPE, matchable);
+                TradingOrderPo sell = legacy.getFirstOrder(DexConstant.TRADING_ORDER_SELL_TYPE, matchable);
+                if (buy != null && sell != null && buy.getPrice().compareTo(sell.getPrice()) >= 0) {
+                    legacy.removeTradingOrder(buy);
+                    legacy.removeTradingOrder(sell);
+                }
+            }
+            long legacyCost = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            TradingContainer container = new TradingContainer(trading);
+            for (TradingOrderPo po : orders) {
+                container.addTradingOrder(po);
+                TradingOrderPo buy = container.getFirstBuyOrder(matchable);
+                TradingOrderPo sell = container.getFirstSellOrder(matchable);
+                if (buy != null && sell != null && buy.getPrice().compareTo(sell.getPrice()) >= 0) {
+                    container.removeTradingOrder(buy);
+                    container.removeTradingOrder(sell);
+                }
+            }
+            long bookCost = System.nanoTime() - start;
+            if (round < 5) {
+                continue;
+            }
+            System.out.println("orders:" + orders.size() + ", legacy:" + legacyCost / 1000000 + "ms, price level book:" + bookCost / 1000000 + "ms");
+        }
+    }
+
+    private int indexOf(List<TradingOrderPo> orders, NulsHash hash) {
+        for (int i = 0; i < orders.size(); i++) {
+            if (orders.get(i).getOrderHash().equals(hash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void assertSame(TradingOrderPo expected, TradingOrderPo actual) {
+        if (expected == null) {
+            Assert.assertNull(actual);
+            return;
+        }
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getOrderHash(), actual.getOrderHash());
+        Assert.assertEquals(expected.getDealAmount(), actual.getDealAmount());
+    }
+
+    private void assertOrders(List<TradingOrderPo> expected, List<TradingOrderPo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+}
@@ -62,6 +62,7 @@ public interface CommandConstant {
     String CMD_MULTI_WITHDRAW = "cs_multiWithdraw";
     String CMD_GET_RATE_ADDITION = "cs_getRateAddition";
     String CMD_GET_REWARD_UNIT = "cs_getRewardUnit";
+    String CMD_LOCAL_SIGNER = "cs_localSigner";
 
     /**
      * 调用其他模块的RPC接口名称
@@ -138,4 +138,19 @@ public interface ConsensusConstant {
 
     String STACKING_CONFIG_FILE = "staking-asset";
 
+    /**
+     * 投票验证线程池等待队列长度，队列满后由分发线程自己验证
+     */
+    int VOTE_VERIFY_QUEUE_SIZE = 1024;
+
+    /**
+     * 投票处理线程检查停止标识的间隔（毫秒）
+     */
+    long VOTE_STOP_CHECK_INTERVAL = 500;
+
+    /**
+     * 本地签名器加载私钥失败后的重试间隔（毫秒）
+     */
+    long LOCAL_SIGNER_RETRY_INTERVAL = 60 * 1000L;
+
 }
@@ -0,0 +1,312 @@
+package network.nerve.pocbft.model.bo;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.model.ByteArrayWrapper;
+import network.nerve.pocbft.model.bo.tx.txdata.Agent;
+import network.nerve.pocbft.model.bo.tx.txdata.Deposit;
+import network.nerve.pocbft.model.po.DepositPo;
+import network.nerve.pocbft.utils.compare.AgentComparator;
+import network.nerve.pocbft.utils.compare.DepositComparator;
+import network.nerve.pocbft.utils.enumeration.DepositType;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 节点与委托信息索引，避免每次查询都遍历链上所有节点和委托
+ * Indexed registry of agents and deposits, so lookups no longer scan the whole agent/deposit list
+ *
+ * 索引：交易HASH、节点地址、出块地址、委托地址，以及按高度区间的有效数据索引
+ * Indexes: by tx hash, agent address, packing address, deposit address and by active height interval
+ *
+ * @author tag
+ * 2020/6/18
+ */
+public class AgentDepositRegistry {
+    private final Map<NulsHash, Agent> agentMap = new HashMap<>();
+    private final Map<ByteArrayWrapper, List<Agent>> agentAddressMap = new HashMap<>();
+    private final Map<ByteArrayWrapper, List<Agent>> packingAddressMap = new HashMap<>();
+    private final HeightIntervalIndex<Agent> agentHeightIndex = new HeightIntervalIndex<>();
+
+    private final Map<NulsHash, Deposit> depositMap = new HashMap<>();
+    private final Map<ByteArrayWrapper, List<Deposit>> depositAddressMap = new HashMap<>();
+    private final HeightIntervalIndex<Deposit> depositHeightIndex = new HeightIntervalIndex<>();
+
+    /**
+     * 本链主资产，用于区分权重固定的本链活期委托
+     * Local asset, used to tell apart the local current deposits that share one weight
+     */
+    private int localAssetChainId = -1;
+    private int localAssetId = -1;
+
+    /**
+     * 本链主资产活期委托的高度索引，其余委托的高度索引
+     * Height index of local current deposits, and of all other deposits
+     */
+    private final HeightIntervalIndex<Deposit> localCurrentHeightIndex = new HeightIntervalIndex<>();
+    private final HeightIntervalIndex<Deposit> settleHeightIndex = new HeightIntervalIndex<>();
+
+    /**
+     * 各账户未退出的本链主资产活期委托总额，委托提交、退出及回滚时增量维护
+     * Open local current stake per address, maintained incrementally on deposit commit, withdraw and rollback
+     */
+    private final Map<ByteArrayWrapper, BigInteger> localCurrentStakeMap = new HashMap<>();
+
+    /**
+     * 用节点列表重建节点索引
+     * Rebuild agent indexes from the given list
+     */
+    public synchronized void resetAgents(List<Agent> agentList) {
+        agentMap.clear();
+        agentAddressMap.clear();
+        packingAddressMap.clear();
+        agentHeightIndex.clear();
+        for (Agent agent : agentList) {
+            putAgent(agent);
+        }
+    }
+
+    public synchronized void putAgent(Agent agent) {
+        Agent old = agentMap.put(agent.getTxHash(), agent);
+        if (old != null) {
+            removeFromList(agentAddressMap, old.getAgentAddress(), old);
+            removeFromList(packingAddressMap, old.getPackingAddress(), old);
+        }
+        agentAddressMap.computeIfAbsent(new ByteArrayWrapper(agent.getAgentAddress()), k -> new ArrayList<>()).add(agent);
+        packingAddressMap.computeIfAbsent(new ByteArrayWrapper(agent.getPackingAddress()), k -> new ArrayList<>()).add(agent);
+        agentHeightIndex.put(agent.getTxHash(), agent, agent.getBlockHeight(), agent.getDelHeight());
+    }
+
+    /**
+     * 数据库保存成功后修改缓存中节点的注销高度和保证金，并同时刷新高度索引
+     * Update the cached agent's delHeight and deposit together with the height index, after the storage save succeeded
+     */
+    public synchronized Agent updateAgent(NulsHash txHash, long delHeight, BigInteger deposit) {
+        Agent agent = agentMap.get(txHash);
+        if (agent != null) {
+            agent.setDelHeight(delHeight);
+            agent.setDeposit(deposit);
+            agentHeightIndex.put(txHash, agent, agent.getBlockHeight(), delHeight);
+        }
+        return agent;
+    }
+
+    public synchronized Agent removeAgent(NulsHash txHash) {
+        Agent agent = agentMap.remove(txHash);
+        if (agent != null) {
+            removeFromList(agentAddressMap, agent.getAgentAddress(), agent);
+            removeFromList(packingAddressMap, agent.getPackingAddress(), agent);
+            agentHeightIndex.remove(txHash);
+        }
+        return agent;
+    }
+
+    public synchronized Agent getAgent(NulsHash txHash) {
+        return agentMap.get(txHash);
+    }
+
+    /**
+     * 指定节点地址创建的所有节点(包含已注销节点)
+     * All agents created by the address, including stopped ones
+     */
+    public synchronized List<Agent> getAgentsByAddress(byte[] agentAddress) {
+        List<Agent> list = agentAddressMap.get(new ByteArrayWrapper(agentAddress));
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    /**
+     * 使用指定出块地址的所有节点(包含已注销节点)
+     * All agents using the packing address, including stopped ones
+     */
+    public synchronized List<Agent> getAgentsByPackingAddress(byte[] packingAddress) {
+        List<Agent> list = packingAddressMap.get(new ByteArrayWrapper(packingAddress));
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    /**
+     * 指定高度有效的节点列表，按节点创建顺序排序
+     * Agents active at the given height, in creation order
+     */
+    public synchronized List<Agent> getActiveAgents(long height) {
+        List<Agent> list = agentHeightIndex.getActive(height);
+        list.sort(new AgentComparator());
+        return list;
+    }
+
+    /**
+     * 当前未注销的节点列表
+     * Agents that have not been stopped
+     */
+    public synchronized List<Agent> getValidAgents() {
+        List<Agent> list = agentHeightIndex.getOpen();
+        list.sort(new AgentComparator());
+        return list;
+    }
+
+    /**
+     * 用委托列表重建委托索引
+     * Rebuild deposit indexes from the given list
+     */
+    public synchronized void resetDeposits(List<Deposit> depositList) {
+        resetDeposits(depositList, localAssetChainId, localAssetId);
+    }
+
+    /**
+     * 用委托列表重建委托索引，并指定本链主资产
+     * Rebuild deposit indexes from the given list with the local asset
+     */
+    public synchronized void resetDeposits(List<Deposit> depositList, int localAssetChainId, int localAssetId) {
+        this.localAssetChainId = localAssetChainId;
+        this.localAssetId = localAssetId;
+        depositMap.clear();
+        depositAddressMap.clear();
+        depositHeightIndex.clear();
+        localCurrentHeightIndex.clear();
+        settleHeightIndex.clear();
+        localCurrentStakeMap.clear();
+        for (Deposit deposit : depositList) {
+            putDeposit(deposit);
+        }
+    }
+
+    public synchronized void putDeposit(Deposit deposit) {
+        Deposit old = depositMap.put(deposit.getTxHash(), deposit);
+        if (old != null) {
+            removeFromList(depositAddressMap, old.getAddress(), old);
+            addLocalCurrentStake(old, false);
+        }
+        depositAddressMap.computeIfAbsent(new ByteArrayWrapper(deposit.getAddress()), k -> new ArrayList<>()).add(deposit);
+        indexDeposit(deposit);
+        addLocalCurrentStake(deposit, true);
+    }
+
+    /**
+     * 数据库保存成功后修改缓存中委托的退出高度，并同时刷新高度索引
+     * Update the cached deposit's delHeight together with the height index, after the storage save succeeded
+     */
+    public synchronized Deposit updateDeposit(NulsHash txHash, long delHeight) {
+        Deposit deposit = depositMap.get(txHash);
+        if (deposit != null) {
+            addLocalCurrentStake(deposit, false);
+            deposit.setDelHeight(delHeight);
+            indexDeposit(deposit);
+            addLocalCurrentStake(deposit, true);
+        }
+        return deposit;
+    }
+
+    public synchronized Deposit removeDeposit(NulsHash txHash) {
+        Deposit deposit = depositMap.remove(txHash);
+        if (deposit != null) {
+            removeFromList(depositAddressMap, deposit.getAddress(), deposit);
+            depositHeightIndex.remove(txHash);
+            localCurrentHeightIndex.remove(txHash);
+            settleHeightIndex.remove(txHash);
+            addLocalCurrentStake(deposit, false);
+        }
+        return deposit;
+    }
+
+    public synchronized Deposit getDeposit(NulsHash txHash) {
+        return depositMap.get(txHash);
+    }
+
+    /**
+     * 指定账户的所有委托(包含已退出委托)
+     * All deposits of the address, including withdrawn ones
+     */
+    public synchronized List<Deposit> getDepositsByAddress(byte[] address) {
+        List<Deposit> list = depositAddressMap.get(new ByteArrayWrapper(address));
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    /**
+     * 指定高度有效的委托列表，按委托顺序排序
+     * Deposits active at the given height, in deposit order
+     */
+    public synchronized List<Deposit> getActiveDeposits(long height) {
+        List<Deposit> list = depositHeightIndex.getActive(height);
+        list.sort(new DepositComparator());
+        return list;
+    }
+
+    /**
+     * 共识奖励结算的委托快照，有效委托为生效高度在[0, maxBlockHeight]内且在endHeight时未退出的委托
+     * 本链主资产活期委托从增量维护的账户总额中扣除之后生效的委托、加回之后退出的委托，其余委托复制一份
+     * Settlement snapshot of deposits started within [0, maxBlockHeight] and still active at endHeight.
+     * The local current stake is derived from the incremental totals, the rest are copied
+     *
+     * @param maxBlockHeight 委托生效的最大高度/Highest start height counted
+     * @param endHeight      结算高度/Settlement end height
+     */
+    public synchronized DepositSettleSnapshot getSettleSnapshot(long maxBlockHeight, long endHeight) {
+        Map<ByteArrayWrapper, BigInteger> stakeMap = new HashMap<>(localCurrentStakeMap);
+        for (Deposit deposit : localCurrentHeightIndex.getOpenStartedOutside(maxBlockHeight)) {
+            stakeMap.merge(new ByteArrayWrapper(deposit.getAddress()), deposit.getDeposit().negate(), BigInteger::add);
+        }
+        for (Deposit deposit : localCurrentHeightIndex.getClosedAfter(endHeight, maxBlockHeight)) {
+            stakeMap.merge(new ByteArrayWrapper(deposit.getAddress()), deposit.getDeposit(), BigInteger::add);
+        }
+        stakeMap.values().removeIf(stake -> stake.signum() == 0);
+        List<Deposit> depositList = new ArrayList<>();
+        for (Deposit deposit : settleHeightIndex.getActive(endHeight)) {
+            if (deposit.getBlockHeight() <= maxBlockHeight) {
+                depositList.add(new Deposit(new DepositPo(deposit)));
+            }
+        }
+        depositList.sort(new DepositComparator());
+        return new DepositSettleSnapshot(stakeMap, depositList);
+    }
+
+    public synchronized int getAgentCount() {
+        return agentMap.size();
+    }
+
+    public synchronized int getDepositCount() {
+        return depositMap.size();
+    }
+
+    private boolean isLocalCurrent(Deposit deposit) {
+        return deposit.getAssetChainId() == localAssetChainId && deposit.getAssetId() == localAssetId
+                && deposit.getDepositType() != DepositType.REGULAR.getCode();
+    }
+
+    private void indexDeposit(Deposit deposit) {
+        depositHeightIndex.put(deposit.getTxHash(), deposit, deposit.getBlockHeight(), deposit.getDelHeight());
+        if (isLocalCurrent(deposit)) {
+            localCurrentHeightIndex.put(deposit.getTxHash(), deposit, deposit.getBlockHeight(), deposit.getDelHeight());
+        } else {
+            settleHeightIndex.put(deposit.getTxHash(), deposit, deposit.getBlockHeight(), deposit.getDelHeight());
+        }
+    }
+
+    /**
+     * 未退出的本链活期委托计入或移出账户总额
+     * Add an open local current deposit to, or take it from, its address total
+     */
+    private void addLocalCurrentStake(Deposit deposit, boolean add) {
+        if (deposit.getDelHeight() != -1L || !isLocalCurrent(deposit)) {
+            return;
+        }
+        ByteArrayWrapper address = new ByteArrayWrapper(deposit.getAddress());
+        BigInteger stake = localCurrentStakeMap.getOrDefault(address, BigInteger.ZERO);
+        stake = add ? stake.add(deposit.getDeposit()) : stake.subtract(deposit.getDeposit());
+        if (stake.signum() == 0) {
+            localCurrentStakeMap.remove(address);
+        } else {
+            localCurrentStakeMap.put(address, stake);
+        }
+    }
+
+    private static <T> void removeFromList(Map<ByteArrayWrapper, List<T>> map, byte[] key, T item) {
+        ByteArrayWrapper wrapper = new ByteArrayWrapper(key);
+        List<T> list = map.get(wrapper);
+        if (list == null) {
+            return;
+        }
+        list.remove(item);
+        if (list.isEmpty()) {
+            map.remove(wrapper);
+        }
+    }
+}
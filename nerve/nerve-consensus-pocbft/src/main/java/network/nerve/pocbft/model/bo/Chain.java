@@ -14,6 +14,7 @@ import network.nerve.pocbft.model.po.PunishLogPo;
 import network.nerve.pocbft.utils.enumeration.ConsensusStatus;
 import io.nuls.core.log.logback.NulsLogger;
 import network.nerve.pocbft.v1.cache.ConsensusCache;
+import network.nerve.pocbft.v1.entity.LocalSigner;
 
 import java.math.BigInteger;
 import java.util.*;
@@ -31,6 +32,11 @@ import java.util.concurrent.locks.ReentrantLock;
 public class Chain {
     private ConsensusCache consensusCache = new ConsensusCache();
 
+    /**
+     * 本地签名器，避免每次签名都调用账户模块
+     */
+    private LocalSigner localSigner = new LocalSigner(this);
+
     /**
      * 共识网络是否组好
      * 链接当前共识网络中80%的节点表示共识网络已组好
@@ -73,6 +79,12 @@ public class Chain {
      */
     private List<Deposit> depositList;
 
+    /**
+     * 节点与委托信息索引
+     * Indexed registry of agents and deposits
+     */
+    private final AgentDepositRegistry agentDepositRegistry = new AgentDepositRegistry();
+
     /**
      * 黄牌列表
      * Yellow punish list
@@ -212,6 +224,11 @@ public class Chain {
 
     public void setAgentList(List<Agent> agentList) {
         this.agentList = agentList;
+        this.agentDepositRegistry.resetAgents(agentList);
+    }
+
+    public AgentDepositRegistry getAgentDepositRegistry() {
+        return agentDepositRegistry;
     }
 
     public List<Deposit> getDepositList() {
@@ -220,6 +237,11 @@ public class Chain {
 
     public void setDepositList(List<Deposit> depositList) {
         this.depositList = depositList;
+        if (config == null) {
+            this.agentDepositRegistry.resetDeposits(depositList);
+        } else {
+            this.agentDepositRegistry.resetDeposits(depositList, config.getChainId(), config.getAssetId());
+        }
     }
 
     public List<PunishLogPo> getYellowPunishList() {
@@ -389,4 +411,8 @@ public class Chain {
     public void setConsensusCache(ConsensusCache consensusCache) {
         this.consensusCache = consensusCache;
     }
+
+    public LocalSigner getLocalSigner() {
+        return localSigner;
+    }
 }
@@ -0,0 +1,42 @@
+package network.nerve.pocbft.model.bo;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import network.nerve.pocbft.model.bo.tx.txdata.Deposit;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 共识奖励结算时的委托快照，在委托索引锁内生成，不受结算过程中新提交或回滚的委托影响
+ * Deposit snapshot for consensus award settlement, taken under the registry lock
+ *
+ * 本链主资产的活期委托权重固定，按账户汇总后的委托金额计算结果与逐条计算相同，其余委托需要逐条计算
+ * Local asset current deposits share one weight, so they are summed per address; other deposits are copied one by one
+ */
+public class DepositSettleSnapshot {
+    /**
+     * 各账户本链主资产活期委托总额
+     * Local asset current stake per address
+     */
+    private final Map<ByteArrayWrapper, BigInteger> localCurrentStake;
+
+    /**
+     * 需要逐条计算权重的委托副本
+     * Copies of the deposits whose weight is computed one by one
+     */
+    private final List<Deposit> depositList;
+
+    public DepositSettleSnapshot(Map<ByteArrayWrapper, BigInteger> localCurrentStake, List<Deposit> depositList) {
+        this.localCurrentStake = localCurrentStake;
+        this.depositList = depositList;
+    }
+
+    public Map<ByteArrayWrapper, BigInteger> getLocalCurrentStake() {
+        return localCurrentStake;
+    }
+
+    public List<Deposit> getDepositList() {
+        return depositList;
+    }
+}
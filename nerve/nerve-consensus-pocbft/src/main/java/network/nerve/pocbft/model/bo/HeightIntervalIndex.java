@@ -0,0 +1,139 @@
+package network.nerve.pocbft.model.bo;
+
+import io.nuls.base.data.NulsHash;
+
+import java.util.*;
+
+/**
+ * 按高度区间索引的数据集合，每条数据的有效区间为[blockHeight, delHeight)，delHeight为-1表示尚未退出
+ * Index of items by their active height interval [blockHeight, delHeight), delHeight -1 means still active
+ *
+ * 未退出的数据按生效高度排序，已退出的数据按退出高度排序，查询指定高度有效数据时只需访问两个有序子集
+ * Open items are ordered by start height and closed items by end height, so an active-at-height query
+ * only touches two ordered sub ranges instead of the whole collection
+ *
+ * @author tag
+ * 2020/6/18
+ */
+public class HeightIntervalIndex<T> {
+    /**
+     * 未退出数据，key为生效高度
+     * Items still active, keyed by start height
+     */
+    private final TreeMap<Long, Map<NulsHash, T>> openByStart = new TreeMap<>();
+
+    /**
+     * 已退出数据，key为退出高度
+     * Items already closed, keyed by end height
+     */
+    private final TreeMap<Long, Map<NulsHash, T>> closedByEnd = new TreeMap<>();
+
+    /**
+     * 数据当前所在的索引位置 [startHeight, endHeight]
+     * Position each item is currently indexed at
+     */
+    private final Map<NulsHash, long[]> positionMap = new HashMap<>();
+
+    public void put(NulsHash hash, T item, long startHeight, long endHeight) {
+        remove(hash);
+        if (endHeight == -1L) {
+            openByStart.computeIfAbsent(startHeight, k -> new LinkedHashMap<>()).put(hash, item);
+        } else {
+            closedByEnd.computeIfAbsent(endHeight, k -> new LinkedHashMap<>()).put(hash, item);
+        }
+        positionMap.put(hash, new long[]{startHeight, endHeight});
+    }
+
+    public void remove(NulsHash hash) {
+        long[] position = positionMap.remove(hash);
+        if (position == null) {
+            return;
+        }
+        TreeMap<Long, Map<NulsHash, T>> tree = position[1] == -1L ? openByStart : closedByEnd;
+        long key = position[1] == -1L ? position[0] : position[1];
+        Map<NulsHash, T> bucket = tree.get(key);
+        if (bucket != null) {
+            bucket.remove(hash);
+            if (bucket.isEmpty()) {
+                tree.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 获取指定高度有效的数据 (0 <= blockHeight <= height 且 (delHeight == -1 或 delHeight > height))
+     * Items active at the given height
+     *
+     * @param height 区块高度/block height
+     * @return 有效数据列表/active items
+     */
+    public List<T> getActive(long height) {
+        List<T> result = new ArrayList<>();
+        for (Map<NulsHash, T> bucket : openByStart.subMap(0L, true, height, true).values()) {
+            result.addAll(bucket.values());
+        }
+        for (Map<NulsHash, T> bucket : closedByEnd.tailMap(height, false).values()) {
+            for (Map.Entry<NulsHash, T> entry : bucket.entrySet()) {
+                long startHeight = positionMap.get(entry.getKey())[0];
+                if (startHeight >= 0L && startHeight <= height) {
+                    result.add(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取未退出且生效高度不在[0, height]内的数据
+     * Open items whose start height is outside [0, height]
+     */
+    public List<T> getOpenStartedOutside(long height) {
+        List<T> result = new ArrayList<>();
+        for (Map<NulsHash, T> bucket : openByStart.headMap(0L, false).values()) {
+            result.addAll(bucket.values());
+        }
+        for (Map<NulsHash, T> bucket : openByStart.tailMap(height, false).values()) {
+            result.addAll(bucket.values());
+        }
+        return result;
+    }
+
+    /**
+     * 获取在endHeight之后退出且生效高度在[0, startHeight]内的数据
+     * Items closed after endHeight whose start height is within [0, startHeight]
+     */
+    public List<T> getClosedAfter(long endHeight, long startHeight) {
+        List<T> result = new ArrayList<>();
+        for (Map<NulsHash, T> bucket : closedByEnd.tailMap(endHeight, false).values()) {
+            for (Map.Entry<NulsHash, T> entry : bucket.entrySet()) {
+                long itemStart = positionMap.get(entry.getKey())[0];
+                if (itemStart >= 0L && itemStart <= startHeight) {
+                    result.add(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取所有未退出的数据
+     * Items that have not been closed
+     */
+    public List<T> getOpen() {
+        List<T> result = new ArrayList<>();
+        for (Map<NulsHash, T> bucket : openByStart.subMap(0L, true, Long.MAX_VALUE, true).values()) {
+            result.addAll(bucket.values());
+        }
+        return result;
+    }
+
+    public int size() {
+        return positionMap.size();
+    }
+
+    public void clear() {
+        openByStart.clear();
+        closedByEnd.clear();
+        positionMap.clear();
+    }
+}
@@ -200,6 +200,10 @@ public class ChainConfig extends BaseNulsData {
     private Long v1_3_0Height;
     private Long v1_6_0Height;
     private Long v1_7_0Height;
+    /**
+     * 从该高度开始，本地生成的投票结果使用签名位图紧凑编码
+     */
+    private long compactVoteResultHeight = Long.MAX_VALUE;
     private BigInteger minStakingAmount;
     private BigInteger minAppendAndExitAmount;
     private Integer exitStakingLockHours;
@@ -636,6 +640,14 @@ public class ChainConfig extends BaseNulsData {
         this.v1_7_0Height = v1_7_0Height;
     }
 
+    public long getCompactVoteResultHeight() {
+        return compactVoteResultHeight;
+    }
+
+    public void setCompactVoteResultHeight(long compactVoteResultHeight) {
+        this.compactVoteResultHeight = compactVoteResultHeight;
+    }
+
     public Long getV1_6_0Height() {
         return v1_6_0Height;
     }
@@ -129,6 +129,17 @@ public class MeetingRound {
         return memberAddressSet;
     }
 
+    /**
+     * 按成员列表顺序返回打包地址，投票结果紧凑编码中的位图下标即对应这里的下标
+     */
+    public List<byte[]> getMemberPackingAddressList() {
+        List<byte[]> list = new ArrayList<>(memberList.size());
+        for (MeetingMember member : memberList) {
+            list.add(member.getAgent().getPackingAddress());
+        }
+        return list;
+    }
+
     public void setMemberAddressSet(Set<String> memberAddressSet) {
         this.memberAddressSet = memberAddressSet;
     }
@@ -3,6 +3,7 @@ package network.nerve.pocbft.model.po;
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.base.basic.NulsOutputStreamBuffer;
 import io.nuls.base.data.BaseNulsData;
+import io.nuls.base.data.NulsHash;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.parse.SerializeUtils;
 
@@ -19,6 +20,15 @@ public class AwardSettleRecordPo extends BaseNulsData {
      * 当前待结算的共识奖励结算信息
      */
     private AwardSettlePo lastestSettleResult;
+    /**
+     * 待结算信息中本地提前计算的结算明细是在该区块上计算的，加载时该区块仍在本链上才使用，否则重新计算
+     */
+    private long checkpointHeight;
+    private NulsHash checkpointHash;
+    /**
+     * 计算结算明细使用的结算日期
+     */
+    private String checkpointDate;
 
     @Override
     protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
@@ -30,6 +40,11 @@ public class AwardSettleRecordPo extends BaseNulsData {
             }
         }
         stream.writeNulsData(lastestSettleResult);
+        if (null != checkpointHash) {
+            stream.writeInt64(checkpointHeight);
+            stream.write(checkpointHash.getBytes());
+            stream.writeString(checkpointDate);
+        }
     }
 
     @Override
@@ -43,6 +58,11 @@ public class AwardSettleRecordPo extends BaseNulsData {
             this.recordList = recordList;
         }
         lastestSettleResult = byteBuffer.readNulsData(new AwardSettlePo());
+        if (!byteBuffer.isFinished()) {
+            checkpointHeight = byteBuffer.readInt64();
+            checkpointHash = byteBuffer.readHash();
+            checkpointDate = byteBuffer.readString();
+        }
     }
 
     @Override
@@ -54,6 +74,11 @@ public class AwardSettleRecordPo extends BaseNulsData {
             }
         }
         size += SerializeUtils.sizeOfNulsData(lastestSettleResult);
+        if (null != checkpointHash) {
+            size += SerializeUtils.sizeOfInt64();
+            size += NulsHash.HASH_LENGTH;
+            size += SerializeUtils.sizeOfString(checkpointDate);
+        }
         return size;
     }
 
@@ -73,5 +98,30 @@ public class AwardSettleRecordPo extends BaseNulsData {
         this.lastestSettleResult = lastestSettleResult;
     }
 
+    public long getCheckpointHeight() {
+        return checkpointHeight;
+    }
+
+    public NulsHash getCheckpointHash() {
+        return checkpointHash;
+    }
+
+    public String getCheckpointDate() {
+        return checkpointDate;
+    }
+
+    /**
+     * 记录结算明细的计算区块和结算日期
+     */
+    public void setCheckpoint(long checkpointHeight, NulsHash checkpointHash, String checkpointDate) {
+        this.checkpointHeight = checkpointHeight;
+        this.checkpointHash = checkpointHash;
+        this.checkpointDate = checkpointDate;
+    }
+
+    public void clearCheckpoint() {
+        setCheckpoint(0, null, null);
+    }
+
 
 }
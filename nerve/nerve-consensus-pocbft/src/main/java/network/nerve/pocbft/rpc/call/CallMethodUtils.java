@@ -27,6 +27,7 @@ import network.nerve.pocbft.model.bo.Chain;
 import network.nerve.pocbft.utils.LoggerUtil;
 import network.nerve.pocbft.utils.compare.BlockHeaderComparator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -158,6 +159,11 @@ public class CallMethodUtils {
      * @param header
      */
     public static void blockSignature(Chain chain, String address, BlockHeader header) throws NulsException {
+        BlockSignature localSignature = chain.getLocalSigner().sign(address, header.getHash().getBytes());
+        if (localSignature != null) {
+            header.setBlockSignature(localSignature);
+            return;
+        }
         try {
             Map<String, Object> callParams = new HashMap<>(4);
             callParams.put(Constants.CHAIN_ID, chain.getConfig().getChainId());
@@ -188,6 +194,14 @@ public class CallMethodUtils {
      * @return
      */
     public static byte[] signature(Chain chain, String address, byte[] data) throws NulsException {
+        BlockSignature localSignature = chain.getLocalSigner().sign(address, data);
+        if (localSignature != null) {
+            try {
+                return localSignature.serialize();
+            } catch (IOException e) {
+                throw new NulsException(e);
+            }
+        }
         try {
             Map<String, Object> callParams = new HashMap<>(4);
             callParams.put(Constants.CHAIN_ID, chain.getChainId());
@@ -232,4 +232,24 @@ public class ChainCmd extends BaseCmd {
         }
         return success(result.getData());
     }
+
+    /**
+     * 本地签名器管理
+     * */
+    @CmdAnnotation(cmd = CMD_LOCAL_SIGNER, version = 1.0, description = "本地签名器状态查询、私钥轮换及锁定/local signer status, key rotation and lock-out")
+    @Parameter(parameterName = PARAM_CHAIN_ID, requestType = @TypeDescriptor(value = int.class), parameterDes = "链id")
+    @Parameter(parameterName = PARAM_TYPE, requestType = @TypeDescriptor(value = int.class), parameterDes = "操作类型 0查询状态 1轮换私钥 2锁定 3解除锁定")
+    @Parameter(parameterName = PARAM_ADDRESS, parameterType = "String", canNull = true, parameterDes = "轮换的打包地址，为空时轮换当前地址")
+    @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+            @Key(name = "locked", valueType = Boolean.class, description = "是否已锁定"),
+            @Key(name = "loaded", valueType = Boolean.class, description = "私钥是否已加载"),
+            @Key(name = PARAM_ADDRESS, description = "已加载的打包地址")
+    }))
+    public Response localSigner(Map<String, Object> params) {
+        Result result = service.localSigner(params);
+        if (result.isFailed()) {
+            return failed(result.getErrorCode());
+        }
+        return success(result.getData());
+    }
 }
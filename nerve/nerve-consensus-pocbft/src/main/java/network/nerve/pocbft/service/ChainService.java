@@ -94,4 +94,11 @@ public interface ChainService {
      * @return Result
      * */
     Result getRewardUnit(Map<String,Object> params);
+
+    /**
+     * 本地签名器的状态查询、私钥轮换及锁定
+     * @param params
+     * @return Result
+     * */
+    Result localSigner(Map<String,Object> params);
 }
@@ -28,6 +28,7 @@ import io.nuls.core.parse.JSONUtils;
 import network.nerve.pocbft.constant.ConsensusErrorCode;
 import network.nerve.pocbft.model.dto.output.*;
 import network.nerve.pocbft.utils.manager.*;
+import network.nerve.pocbft.v1.entity.LocalSigner;
 import network.nerve.pocbft.v1.utils.RoundUtils;
 
 import static network.nerve.pocbft.constant.ParameterConstant.*;
@@ -516,6 +517,47 @@ public class ChainServiceImpl implements ChainService {
         return Result.getSuccess(ConsensusErrorCode.SUCCESS).setData(resultMap);
     }
 
+    /**
+     * 本地签名器管理：0查询状态，1轮换私钥，2锁定，3解除锁定
+     */
+    @Override
+    public Result localSigner(Map<String, Object> params) {
+        if (params == null || params.get(PARAM_CHAIN_ID) == null || params.get(PARAM_TYPE) == null) {
+            return Result.getFailed(ConsensusErrorCode.PARAM_ERROR);
+        }
+        int chainId = (Integer) params.get(PARAM_CHAIN_ID);
+        if (chainId <= MIN_VALUE) {
+            return Result.getFailed(ConsensusErrorCode.PARAM_ERROR);
+        }
+        Chain chain = chainManager.getChainMap().get(chainId);
+        if (chain == null) {
+            return Result.getFailed(ConsensusErrorCode.CHAIN_NOT_EXIST);
+        }
+        int type = Integer.parseInt(params.get(PARAM_TYPE).toString());
+        LocalSigner signer = chain.getLocalSigner();
+        switch (type) {
+            case 0:
+                break;
+            case 1:
+                try {
+                    signer.rotate((String) params.get(PARAM_ADDRESS));
+                } catch (NulsException e) {
+                    chain.getLogger().error(e);
+                    return Result.getFailed(e.getErrorCode());
+                }
+                break;
+            case 2:
+                signer.lock();
+                break;
+            case 3:
+                signer.unlock();
+                break;
+            default:
+                return Result.getFailed(ConsensusErrorCode.PARAM_ERROR);
+        }
+        return Result.getSuccess(ConsensusErrorCode.SUCCESS).setData(signer.getStatus());
+    }
+
     private double getBasicRate(int assetChainId, int assetId) {
         if (assetChainId == consensusConfig.getChainId() && assetId == consensusConfig.getAssetId()) {
             return consensusConfig.getLocalAssertBase();
@@ -252,24 +252,22 @@ public class DepositServiceImpl implements DepositService {
         if (chain == null) {
             return Result.getFailed(ConsensusErrorCode.CHAIN_NOT_EXIST);
         }
-        List<Deposit> depositList = chain.getDepositList();
-        List<Deposit> handleList = new ArrayList<>();
+        List<Deposit> handleList;
         long startBlockHeight = chain.getBestHeader().getHeight();
-        byte[] addressBytes = null;
         if (StringUtils.isNotBlank(address)) {
-            addressBytes = AddressTool.getAddress(address);
-        }
-        for (Deposit deposit : depositList) {
-            if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= startBlockHeight) {
-                continue;
-            }
-            if (deposit.getBlockHeight() > startBlockHeight || deposit.getBlockHeight() < 0L) {
-                continue;
-            }
-            if (addressBytes != null && !Arrays.equals(deposit.getAddress(), addressBytes)) {
-                continue;
+            handleList = new ArrayList<>();
+            byte[] addressBytes = AddressTool.getAddress(address);
+            for (Deposit deposit : chain.getAgentDepositRegistry().getDepositsByAddress(addressBytes)) {
+                if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= startBlockHeight) {
+                    continue;
+                }
+                if (deposit.getBlockHeight() > startBlockHeight || deposit.getBlockHeight() < 0L) {
+                    continue;
+                }
+                handleList.add(deposit);
             }
-            handleList.add(deposit);
+        } else {
+            handleList = chain.getAgentDepositRegistry().getActiveDeposits(startBlockHeight);
         }
         int start = pageNumber * pageSize - pageSize;
         int handleSize = handleList.size();
@@ -216,8 +216,7 @@ public class AppendAgentDepositProcessor implements TransactionProcessor {
         Agent agent = agentManager.getAgentByHash(chain, po.getAgentHash());
         BigInteger oldDeposit = agent.getDeposit();
         BigInteger newDeposit = oldDeposit.add(po.getAmount());
-        agent.setDeposit(newDeposit);
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, agent.getDelHeight(), newDeposit)){
             agentDepositManager.removeAppendDeposit(chain, po.getTxHash());
             chain.getLogger().error("Agent deposit modification failed");
             return false;
@@ -225,8 +224,7 @@ public class AppendAgentDepositProcessor implements TransactionProcessor {
 
         //保存追加保证金交易NONCE
         if(!AgentDepositNonceManager.addNonceCommit(chain, po.getAgentHash(), tx.getHash(), po.getAmount())){
-            agent.setDeposit(oldDeposit);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, agent.getDelHeight(), oldDeposit);
             agentDepositManager.removeAppendDeposit(chain, po.getTxHash());
             chain.getLogger().error("Failed to save the additional margin nonce record");
             return false;
@@ -248,20 +246,18 @@ public class AppendAgentDepositProcessor implements TransactionProcessor {
         Agent agent = agentManager.getAgentByHash(chain, po.getAgentHash());
         BigInteger newDeposit = agent.getDeposit();
         BigInteger oldDeposit = newDeposit.subtract(po.getAmount());
-        agent.setDeposit(oldDeposit);
         if(!AgentDepositNonceManager.addNonceRollBack(chain, po.getAgentHash(), tx.getHash())){
             chain.getLogger().error("Failed to rollback the additional margin nonce record");
             return false;
         }
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, agent.getDelHeight(), oldDeposit)){
             AgentDepositNonceManager.addNonceCommit(chain, po.getAgentHash(), tx.getHash(), po.getAmount());
             chain.getLogger().error("Agent deposit modification failed");
             return false;
         }
         //删除追加记录
         if(!agentDepositManager.removeAppendDeposit(chain, po.getTxHash())){
-            agent.setDeposit(newDeposit);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, agent.getDelHeight(), newDeposit);
             AgentDepositNonceManager.addNonceCommit(chain, po.getAgentHash(), tx.getHash(), po.getAmount());
             chain.getLogger().error("Failed to rollback the additional margin record");
             return false;
@@ -176,14 +176,11 @@ public class BatchMergeProcessor implements TransactionProcessor {
                 return false;
             }
             //设置退出共识高度
-            deposit.setDelHeight(header.getHeight());
-
-            boolean result = depositManager.updateDeposit(chain, deposit);
+            boolean result = depositManager.updateDeposit(chain, deposit, header.getHeight());
             if (!result) {
                 for (NulsHash rbHash : successList) {
                     deposit = depositManager.getDeposit(chain, rbHash);
-                    deposit.setDelHeight(-1L);
-                    depositManager.updateDeposit(chain, deposit);
+                    depositManager.updateDeposit(chain, deposit, -1L);
                 }
                 return false;
             }
@@ -223,13 +220,11 @@ public class BatchMergeProcessor implements TransactionProcessor {
                 chain.getLogger().error("Exit delegate height is different from rollback height");
                 return false;
             }
-            deposit.setDelHeight(-1L);
-            boolean result = depositManager.updateDeposit(chain, deposit);
+            boolean result = depositManager.updateDeposit(chain, deposit, -1L);
             if (!result) {
                 for (NulsHash rbHash : successList) {
                     deposit = depositManager.getDeposit(chain, rbHash);
-                    deposit.setDelHeight(header.getHeight());
-                    depositManager.updateDeposit(chain, deposit);
+                    depositManager.updateDeposit(chain, deposit, header.getHeight());
                 }
                 return false;
             }
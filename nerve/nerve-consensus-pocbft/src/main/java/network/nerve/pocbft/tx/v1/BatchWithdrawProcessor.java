@@ -182,21 +182,17 @@ public class BatchWithdrawProcessor implements TransactionProcessor {
                 return false;
             }
             //设置退出共识高度
-            deposit.setDelHeight(header.getHeight());
-
-            boolean result = depositManager.updateDeposit(chain, deposit);
+            boolean result = depositManager.updateDeposit(chain, deposit, header.getHeight());
             if(result){
                 result = this.stakingLimitService.sub(chain,chainManager.getAssetByAsset(deposit.getAssetChainId(),deposit.getAssetId()),deposit.getDeposit());
                 if(!result){
-                    deposit.setDelHeight(-1L);
-                    depositManager.updateDeposit(chain,deposit);
+                    depositManager.updateDeposit(chain, deposit, -1L);
                 }
             }
             if (!result) {
                 for (NulsHash rbHash : successList) {
                     deposit = depositManager.getDeposit(chain, rbHash);
-                    deposit.setDelHeight(-1L);
-                    depositManager.updateDeposit(chain, deposit);
+                    depositManager.updateDeposit(chain, deposit, -1L);
                     this.stakingLimitService.add(chain,chainManager.getAssetByAsset(deposit.getAssetChainId(),deposit.getAssetId()),deposit.getDeposit());
                 }
                 return false;
@@ -227,20 +223,17 @@ public class BatchWithdrawProcessor implements TransactionProcessor {
                 chain.getLogger().error("Exit delegate height is different from rollback height");
                 return false;
             }
-            deposit.setDelHeight(-1L);
-            boolean result = depositManager.updateDeposit(chain, deposit);
+            boolean result = depositManager.updateDeposit(chain, deposit, -1L);
             if(result){
                 result = this.stakingLimitService.add(chain,chainManager.getAssetByAsset(deposit.getAssetChainId(),deposit.getAssetId()),deposit.getDeposit());
                 if(!result){
-                    deposit.setDelHeight(header.getHeight());
-                    depositManager.updateDeposit(chain,deposit);
+                    depositManager.updateDeposit(chain, deposit, header.getHeight());
                 }
             }
             if (!result) {
                 for (NulsHash rbHash : successList) {
                     deposit = depositManager.getDeposit(chain, rbHash);
-                    deposit.setDelHeight(header.getHeight());
-                    depositManager.updateDeposit(chain, deposit);
+                    depositManager.updateDeposit(chain, deposit, header.getHeight());
                     this.stakingLimitService.sub(chain,chainManager.getAssetByAsset(deposit.getAssetChainId(),deposit.getAssetId()),deposit.getDeposit());
                 }
                 return false;
@@ -177,16 +177,14 @@ public class RedPunishProcessor implements TransactionProcessor {
         punishStorageService.save(punishLogPo, chainId);
 
         //修改惩罚节点信息
-        agent.setDelHeight(blockHeight);
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, blockHeight, agent.getDeposit())){
             punishStorageService.delete(punishLogPo.getKey(), chainId);
             return false;
         }
 
         //修改NONCE信息
         if(!AgentDepositNonceManager.unLockTxCommit(chain, agent.getTxHash(), tx, true)){
-            agent.setDelHeight(-1);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, -1, agent.getDeposit());
             punishStorageService.delete(punishLogPo.getKey(), chainId);
             chain.getLogger().error("Red punish update agent deposit nonce error");
             return false;
@@ -223,8 +221,7 @@ public class RedPunishProcessor implements TransactionProcessor {
         }
 
         //修改惩罚节点信息
-        agent.setDelHeight(-1L);
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, -1L, agent.getDeposit())){
             AgentDepositNonceManager.unLockTxCommit(chain, agent.getTxHash(), tx, true);
             chain.getLogger().error("Red punish tx agent data rollback error");
             return false;
@@ -234,8 +231,7 @@ public class RedPunishProcessor implements TransactionProcessor {
         byte[] key = ByteUtils.concatenate(punishData.getAddress(), new byte[]{PunishType.RED.getCode()}, SerializeUtils.uint64ToByteArray(blockHeight), new byte[]{0});
         if (!punishStorageService.delete(key, chainId)) {
             AgentDepositNonceManager.unLockTxCommit(chain, agent.getTxHash(), tx, true);
-            agent.setDelHeight(blockHeight);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, blockHeight, agent.getDeposit());
             chain.getLogger().error("Data save error!");
             return false;
         }
@@ -228,8 +228,7 @@ public class ReduceAgentDepositProcessor implements TransactionProcessor {
         Agent agent = agentManager.getAgentByHash(chain, po.getAgentHash());
         BigInteger oldDeposit = agent.getDeposit();
         BigInteger newDeposit = oldDeposit.subtract(po.getAmount());
-        agent.setDeposit(newDeposit);
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, agent.getDelHeight(), newDeposit)){
             agentDepositManager.removeReduceDeposit(chain, po.getTxHash());
             chain.getLogger().error("Agent deposit modification failed");
             return false;
@@ -237,8 +236,7 @@ public class ReduceAgentDepositProcessor implements TransactionProcessor {
 
         //节点保证金nonce信息变更
         if(!AgentDepositNonceManager.unLockTxCommit(chain, po.getAgentHash(), tx, false)){
-            agent.setDeposit(oldDeposit);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, agent.getDelHeight(), oldDeposit);
             agentDepositManager.removeReduceDeposit(chain, po.getTxHash());
             chain.getLogger().error("Failed to save the reduce margin nonce record");
             return false;
@@ -260,12 +258,11 @@ public class ReduceAgentDepositProcessor implements TransactionProcessor {
         Agent agent = agentManager.getAgentByHash(chain, po.getAgentHash());
         BigInteger newDeposit = agent.getDeposit();
         BigInteger oldDeposit = newDeposit.add(po.getAmount());
-        agent.setDeposit(oldDeposit);
         if(!AgentDepositNonceManager.unLockTxRollback(chain, po.getAgentHash(), tx, false)){
             chain.getLogger().error("Failed to rollback the reduce margin nonce record");
             return false;
         }
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, agent.getDelHeight(), oldDeposit)){
             AgentDepositNonceManager.unLockTxCommit(chain, po.getAgentHash(), tx, false);
             chain.getLogger().error("Agent deposit modification failed");
             return false;
@@ -273,8 +270,7 @@ public class ReduceAgentDepositProcessor implements TransactionProcessor {
         //删除追加记录
         if(!agentDepositManager.removeReduceDeposit(chain, po.getTxHash())){
             AgentDepositNonceManager.unLockTxCommit(chain, po.getAgentHash(), tx, false);
-            agent.setDeposit(oldDeposit.subtract(po.getAmount()));
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, agent.getDelHeight(), newDeposit);
             chain.getLogger().error("Failed to rollback the reduce agent deposit record");
             return false;
         }
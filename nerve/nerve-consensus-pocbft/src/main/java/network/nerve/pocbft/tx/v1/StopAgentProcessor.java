@@ -199,14 +199,12 @@ public class StopAgentProcessor implements TransactionProcessor {
             chain.getLogger().error("Agent does not exist or has been unregistered");
             return false;
         }
-        agent.setDelHeight(blockHeader.getHeight());
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, blockHeader.getHeight(), agent.getDeposit())){
             chain.getLogger().error("Stop agent tx commit error");
             return false;
         }
         if(!AgentDepositNonceManager.unLockTxCommit(chain,stopAgent.getCreateTxHash() , transaction, true)){
-            agent.setDelHeight(-1);
-            agentManager.updateAgent(chain, agent);
+            agentManager.updateAgent(chain, agent, -1, agent.getDeposit());
             chain.getLogger().error("Stop agent tx update nonce data commit error");
             return false;
         }
@@ -229,9 +227,8 @@ public class StopAgentProcessor implements TransactionProcessor {
         }
 
         Agent agent = agentManager.getAgentByHash(chain, stopAgent.getCreateTxHash());
-        agent.setDelHeight(-1);
         //保存数据库和缓存
-        if(!agentManager.updateAgent(chain, agent)){
+        if(!agentManager.updateAgent(chain, agent, -1, agent.getDeposit())){
             AgentDepositNonceManager.unLockTxCommit(chain, stopAgent.getCreateTxHash(), transaction, true);
             chain.getLogger().error("Stop agent tx rollback error");
             return false;
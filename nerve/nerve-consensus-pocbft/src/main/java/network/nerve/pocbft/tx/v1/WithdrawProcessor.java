@@ -183,14 +183,11 @@ public class WithdrawProcessor implements TransactionProcessor {
             return false;
         }
         //设置退出共识高度
-        deposit.setDelHeight(header.getHeight());
-
-        boolean result = depositManager.updateDeposit(chain, deposit);
+        boolean result = depositManager.updateDeposit(chain, deposit, header.getHeight());
         if (result) {
             result = this.stakingLimitService.sub(chain, chainManager.getAssetByAsset(deposit.getAssetChainId(), deposit.getAssetId()), deposit.getDeposit());
             if (!result) {
-                deposit.setDelHeight(-1L);
-                depositManager.updateDeposit(chain, deposit);
+                depositManager.updateDeposit(chain, deposit, -1L);
             }
         }
         return result;
@@ -215,13 +212,11 @@ public class WithdrawProcessor implements TransactionProcessor {
             chain.getLogger().error("Exit delegate height is different from rollback height");
             return false;
         }
-        deposit.setDelHeight(-1L);
-        boolean result = depositManager.updateDeposit(chain, deposit);
+        boolean result = depositManager.updateDeposit(chain, deposit, -1L);
         if (result) {
             result = this.stakingLimitService.add(chain, chainManager.getAssetByAsset(deposit.getAssetChainId(), deposit.getAssetId()), deposit.getDeposit());
             if (!result) {
-                deposit.setDelHeight(header.getHeight());
-                depositManager.updateDeposit(chain, deposit);
+                depositManager.updateDeposit(chain, deposit, header.getHeight());
             }
         }
         return result;
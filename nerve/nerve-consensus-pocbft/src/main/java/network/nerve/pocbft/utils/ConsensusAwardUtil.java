@@ -56,6 +56,11 @@ public class ConsensusAwardUtil {
      */
     private static AwardSettlePo lastestSettleResult;
 
+    /**
+     * 本地提前计算的结算明细所在区块高度，回滚到该高度及以下时结算明细失效，-1表示没有
+     */
+    private static long settleCheckpointHeight = -1;
+
     /**
      * 从喂价系统获取对应的数量的NVT
      *
@@ -82,17 +87,46 @@ public class ConsensusAwardUtil {
      * @return 对应数量的NVT
      */
     public static BigDecimal getRealAmount(int chainId, BigDecimal amount, StackingAsset stackingAsset, String date) throws NulsException {
+        return getRealAmount(chainId, amount, stackingAsset, date, null);
+    }
+
+    /**
+     * 从喂价系统获取对应的数量的NVT，同一次结算中相同资产同一天的喂价只查询一次
+     * Same as above, but final quotations are looked up once per key and date within one settlement
+     *
+     * @param amount     数量
+     * @param date       时间
+     * @param priceCache 本次结算的喂价缓存，为空则不缓存
+     * @return 对应数量的NVT
+     */
+    public static BigDecimal getRealAmount(int chainId, BigDecimal amount, StackingAsset stackingAsset, String date, Map<String, Double> priceCache) throws NulsException {
         if (stackingAsset.getChainId() == config.getChainId() && stackingAsset.getAssetId() == config.getAssetId()) {
             return amount;
         }
-        double price = CallMethodUtils.getRealAmount(chainId, stackingAsset.getOracleKey(), date);
-        double nervePrice = CallMethodUtils.getRealAmount(chainId, ConsensusConstant.DEFALT_KEY, date);
+        double price = getFinalPrice(chainId, stackingAsset.getOracleKey(), date, priceCache);
+        double nervePrice = getFinalPrice(chainId, ConsensusConstant.DEFALT_KEY, date, priceCache);
 
         BigDecimal realAmount = DoubleUtils.div(amount, Math.pow(10, stackingAsset.getDecimal()));
         BigDecimal nvtVal = DoubleUtils.div(DoubleUtils.mul(realAmount, price), new BigDecimal(nervePrice));
         return DoubleUtils.mul(nvtVal, Math.pow(10, 8));
     }
 
+    private static double getFinalPrice(int chainId, String key, String date, Map<String, Double> priceCache) throws NulsException {
+        if (priceCache == null) {
+            return CallMethodUtils.getRealAmount(chainId, key, date);
+        }
+        String cacheKey = key + "-" + date;
+        Double price = priceCache.get(cacheKey);
+        if (price == null) {
+            price = CallMethodUtils.getRealAmount(chainId, key, date);
+            //查询失败时返回0，不缓存
+            if (price != 0) {
+                priceCache.put(cacheKey, price);
+            }
+        }
+        return price;
+    }
+
     /**
      * 判断是否需要结算共识奖励
      *
@@ -167,6 +201,8 @@ public class ConsensusAwardUtil {
             String dateStr = getDateStr(blockHeader.getTime(), -1);
             AwardSettlePo nextSettlePo = new AwardSettlePo(newStartHeight, newEndHeight, dateStr);
             po.setLastestSettleResult(nextSettlePo);
+            po.clearCheckpoint();
+            settleCheckpointHeight = -1;
             chain.getLogger().info("已发放奖励!!!!{}-{}", po.getLastestSettleResult().getStartHeight(), po.getLastestSettleResult().getEndHeight());
             awardSettleRecordService.save(po, chain.getChainId());
             lastestSettleResult = nextSettlePo;
@@ -192,6 +228,10 @@ public class ConsensusAwardUtil {
      * @param preHeader   previous block header
      */
     public static void rollbackAndSwitchSettleRecord(Chain chain, BlockHeader preHeader, BlockHeader blockHeader) {
+        //回滚掉计算结算明细时所在的区块，则结算明细可能是用回滚掉的数据计算的，需要重新计算
+        if (preHeader != null && settleCheckpointHeight >= 0 && preHeader.getHeight() <= settleCheckpointHeight) {
+            invalidateSettleCheckpoint(chain);
+        }
         //如果回滚掉的区块是结算共识奖励区块，则需要将共识奖励记录回滚
         if (preHeader == null || preHeader.getHeight() == 0 || blockHeader.getTime() < preHeader.getTime()) {
             return;
@@ -202,6 +242,8 @@ public class ConsensusAwardUtil {
         try {
             AwardSettleRecordPo po = awardSettleRecordService.get(chain.getChainId());
             lastestSettleResult = po.getRecordList().remove(0);
+            po.clearCheckpoint();
+            settleCheckpointHeight = -1;
             awardSettleRecordService.save(po, chain.getChainId());
         } catch (Exception e) {
             chain.getLogger().error(e);
@@ -231,6 +273,15 @@ public class ConsensusAwardUtil {
             return;
         }
 
+        //结算明细未提前计算或已失效（例如计算时所在的区块被回滚），与验证区块时一样重新计算
+        if (!lastestSettleResult.isSettled() && (lastestSettleResult.getSettleDetails() == null || lastestSettleResult.getSettleDetails().isEmpty())) {
+            try {
+                lastestSettleResult.setSettleDetails(settleConsensusAward(chain, lastestSettleResult.getStartHeight(), lastestSettleResult.getEndHeight(), 0, dateStr));
+            } catch (NulsException e) {
+                chain.getLogger().error(e);
+            }
+        }
+
         // 尝试分块奖励
         List<CoinTo> details = lastestSettleResult.getSettleDetails();
         chain.getLogger().info(lastestSettleResult.getDate() + " packing: " + lastestSettleResult.getStartHeight() + "-" +
@@ -257,7 +308,7 @@ public class ConsensusAwardUtil {
                     chain.getLogger().warn("There is currently no consensus award to be settled");
                     return;
                 } else {
-                    lastestSettleResult = recordPo.getLastestSettleResult();
+                    lastestSettleResult = loadLastestSettleResult(chain, recordPo);
                 }
             }
             if (lastestSettleResult.isSettled()) {
@@ -270,6 +321,7 @@ public class ConsensusAwardUtil {
             }
             lastestSettleResult.setSettled(true);
             lastestSettleResult.setSettleDetails(settleConsensusAward(chain, lastestSettleResult.getStartHeight(), lastestSettleResult.getEndHeight(), 0, dateStr));
+            saveSettleCheckpoint(chain, dateStr);
         } catch (Exception e) {
             chain.getLogger().error(e);
         }
@@ -290,7 +342,7 @@ public class ConsensusAwardUtil {
                 chain.getLogger().warn("There is currently no consensus award to be settled");
                 return;
             } else {
-                lastestSettleResult = recordPo.getLastestSettleResult();
+                lastestSettleResult = loadLastestSettleResult(chain, recordPo);
             }
             if (lastestSettleResult.isSettled()) {
                 //已经计算过的就不算了
@@ -304,6 +356,110 @@ public class ConsensusAwardUtil {
             }
             lastestSettleResult.setSettled(true);
             lastestSettleResult.setSettleDetails(settleConsensusAward(chain, lastestSettleResult.getStartHeight(), lastestSettleResult.getEndHeight(), 0, dateStr));
+            saveSettleCheckpoint(chain, dateStr);
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
+    }
+
+    /**
+     * 将本地提前计算好的结算明细持久化，并记录计算时所在的区块和结算日期，重启后该区块仍在本链上时无需重新计算
+     * Persist the precomputed settle details with the block and date they were computed at
+     *
+     * @param chain chain info
+     * @param date  结算日期
+     */
+    private static void saveSettleCheckpoint(Chain chain, String date) {
+        try {
+            AwardSettleRecordPo recordPo = awardSettleRecordService.get(chain.getChainId());
+            if (recordPo == null || recordPo.getLastestSettleResult() == null) {
+                return;
+            }
+            AwardSettlePo stored = recordPo.getLastestSettleResult();
+            //结算区间已切换，则不再保存
+            if (stored.getStartHeight() != lastestSettleResult.getStartHeight() || stored.getEndHeight() != lastestSettleResult.getEndHeight()) {
+                return;
+            }
+            //结算明细基于计算结束时的本地数据，以计算结束时的最新区块作为检查点
+            BlockHeader bestHeader = chain.getBestHeader();
+            recordPo.setLastestSettleResult(lastestSettleResult);
+            recordPo.setCheckpoint(bestHeader.getHeight(), bestHeader.getHash(), date);
+            awardSettleRecordService.save(recordPo, chain.getChainId());
+            settleCheckpointHeight = bestHeader.getHeight();
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
+    }
+
+    /**
+     * 加载待结算信息，已提前计算的结算明细通过检查点校验后才使用，否则标记为未计算，由调用方重新计算
+     *
+     * @param chain    chain info
+     * @param recordPo 存储的共识奖励结算记录
+     */
+    private static AwardSettlePo loadLastestSettleResult(Chain chain, AwardSettleRecordPo recordPo) {
+        AwardSettlePo settlePo = recordPo.getLastestSettleResult();
+        settleCheckpointHeight = -1;
+        if (!settlePo.isSettled()) {
+            return settlePo;
+        }
+        if (isSettleCheckpointValid(chain, recordPo)) {
+            settleCheckpointHeight = recordPo.getCheckpointHeight();
+        } else {
+            chain.getLogger().warn("本地结算明细的检查点校验失败，重新计算，date:{},checkpointHeight:{},checkpointDate:{}",
+                    settlePo.getDate(), recordPo.getCheckpointHeight(), recordPo.getCheckpointDate());
+            settlePo.setSettled(false);
+            settlePo.setSettleDetails(new ArrayList<>());
+        }
+        return settlePo;
+    }
+
+    /**
+     * 结算明细检查点是否有效：使用的结算日期与待结算日期一致，且计算时所在的区块仍在本链上
+     * 计算区块不在本地缓存的区块头中时无法确认，视为无效
+     *
+     * @param chain    chain info
+     * @param recordPo 存储的共识奖励结算记录
+     */
+    static boolean isSettleCheckpointValid(Chain chain, AwardSettleRecordPo recordPo) {
+        AwardSettlePo settlePo = recordPo.getLastestSettleResult();
+        if (recordPo.getCheckpointHash() == null || !settlePo.getDate().equals(recordPo.getCheckpointDate())) {
+            return false;
+        }
+        if (recordPo.getCheckpointHeight() < settlePo.getEndHeight() || chain.getBlockHeaderList() == null) {
+            return false;
+        }
+        for (BlockHeader header : chain.getBlockHeaderList()) {
+            if (header.getHeight() == recordPo.getCheckpointHeight()) {
+                return recordPo.getCheckpointHash().equals(header.getHash());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算结算明细时所在的区块被回滚，清除本地提前计算的结算明细和检查点
+     *
+     * @param chain chain info
+     */
+    private static void invalidateSettleCheckpoint(Chain chain) {
+        settleCheckpointHeight = -1;
+        if (lastestSettleResult == null || !lastestSettleResult.isSettled()) {
+            return;
+        }
+        chain.getLogger().warn("计算结算明细时所在的区块已回滚，结算明细需重新计算，date:{}", lastestSettleResult.getDate());
+        lastestSettleResult.setSettled(false);
+        lastestSettleResult.setSettleDetails(new ArrayList<>());
+        try {
+            AwardSettleRecordPo recordPo = awardSettleRecordService.get(chain.getChainId());
+            if (recordPo == null || recordPo.getCheckpointHash() == null) {
+                return;
+            }
+            AwardSettlePo stored = recordPo.getLastestSettleResult();
+            stored.setSettled(false);
+            stored.setSettleDetails(new ArrayList<>());
+            recordPo.clearCheckpoint();
+            awardSettleRecordService.save(recordPo, chain.getChainId());
         } catch (Exception e) {
             chain.getLogger().error(e);
         }
@@ -327,7 +483,7 @@ public class ConsensusAwardUtil {
 //                chain.getLogger().warn("There is currently no consensus award to be settled");
                 return;
             } else {
-                lastestSettleResult = recordPo.getLastestSettleResult();
+                lastestSettleResult = loadLastestSettleResult(chain, recordPo);
             }
         }
 
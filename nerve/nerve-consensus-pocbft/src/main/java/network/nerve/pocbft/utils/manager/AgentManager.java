@@ -75,30 +75,28 @@ public class AgentManager {
             return false;
         }
         chain.getAgentList().add(agent);
+        chain.getAgentDepositRegistry().putAgent(agent);
         return true;
     }
 
     /**
-     * 修改指定链节点
-     * Modifying specified chain nodes
+     * 修改指定链节点，先保存数据库，保存成功后才修改缓存节点和高度索引，保存失败时缓存保持不变
+     * Modifying specified chain nodes, the cached agent is only changed after the storage save succeeded
      *
      * @param chain     chain info
-     * @param realAgent agent info
+     * @param agent     agent info
+     * @param delHeight 注销高度/Stop height
+     * @param deposit   保证金/Deposit
      */
-    public boolean updateAgent(Chain chain, Agent realAgent) {
-        if (!agentStorageService.save(new AgentPo(realAgent), chain.getChainId())) {
+    public boolean updateAgent(Chain chain, Agent agent, long delHeight, BigInteger deposit) {
+        AgentPo po = new AgentPo(agent);
+        po.setDelHeight(delHeight);
+        po.setDeposit(deposit);
+        if (!agentStorageService.save(po, chain.getChainId())) {
             chain.getLogger().error("Agent data update error!");
             return false;
         }
-
-        for (Agent agent : chain.getAgentList()) {
-            if (agent.getTxHash().equals(realAgent.getTxHash())) {
-                agent.setDelHeight(realAgent.getDelHeight());
-                agent.setDeposit(realAgent.getDeposit());
-                break;
-            }
-        }
-
+        chain.getAgentDepositRegistry().updateAgent(agent.getTxHash(), delHeight, deposit);
         return true;
     }
 
@@ -115,6 +113,7 @@ public class AgentManager {
             return false;
         }
         chain.getAgentList().removeIf(s -> s.getTxHash().equals(txHash));
+        chain.getAgentDepositRegistry().removeAgent(txHash);
         return true;
     }
 
@@ -126,12 +125,7 @@ public class AgentManager {
      * @param txHash 创建该节点交易的HASH/Creating the node transaction hash
      */
     public Agent getAgentByHash(Chain chain, NulsHash txHash) {
-        for (Agent agent : chain.getAgentList()) {
-            if (txHash.equals(agent.getTxHash())) {
-                return agent;
-            }
-        }
-        return null;
+        return chain.getAgentDepositRegistry().getAgent(txHash);
     }
 
     /**
@@ -142,13 +136,11 @@ public class AgentManager {
      * @param agentAddress 节点地址
      */
     public Agent getAgentByAddress(Chain chain, byte[] agentAddress) {
-        for (Agent agent : chain.getAgentList()) {
+        for (Agent agent : chain.getAgentDepositRegistry().getAgentsByAddress(agentAddress)) {
             if (agent.getDelHeight() > 0) {
                 continue;
             }
-            if (Arrays.equals(agentAddress, agent.getAgentAddress())) {
-                return agent;
-            }
+            return agent;
         }
         return null;
     }
@@ -161,8 +153,8 @@ public class AgentManager {
      * @param agentAddress 节点地址
      */
     public Agent getValidAgentByAddress(Chain chain, byte[] agentAddress) {
-        for (Agent agent : chain.getAgentList()) {
-            if (Arrays.equals(agentAddress, agent.getAgentAddress()) && agent.getDelHeight() == -1) {
+        for (Agent agent : chain.getAgentDepositRegistry().getAgentsByAddress(agentAddress)) {
+            if (agent.getDelHeight() == -1) {
                 return agent;
             }
         }
@@ -177,11 +169,8 @@ public class AgentManager {
      * @param packAddress 节点地址
      */
     public Agent getAgentByPackAddress(Chain chain, byte[] packAddress) {
-        for (Agent agent : chain.getAgentList()) {
-            if (agent.getDelHeight() != -1) {
-                continue;
-            }
-            if (Arrays.equals(packAddress, agent.getPackingAddress())) {
+        for (Agent agent : chain.getAgentDepositRegistry().getAgentsByPackingAddress(packAddress)) {
+            if (agent.getDelHeight() == -1) {
                 return agent;
             }
         }
@@ -277,17 +266,7 @@ public class AgentManager {
      * @return List<agent>
      **/
     public List<Agent> getAgentList(Chain chain, long height) {
-        List<Agent> agentList = new ArrayList<>();
-        for (Agent agent : chain.getAgentList()) {
-            if (agent.getDelHeight() != -1L && agent.getDelHeight() <= height) {
-                continue;
-            }
-            if (agent.getBlockHeight() > height || agent.getBlockHeight() < 0L) {
-                continue;
-            }
-            agentList.add(agent);
-        }
-        return agentList;
+        return chain.getAgentDepositRegistry().getActiveAgents(height);
     }
 
     /**
@@ -372,17 +351,7 @@ public class AgentManager {
     }
 
     private List<Agent> getValidAgentList(Chain chain) {
-        List<Agent> agentList = new ArrayList<>();
-        for (Agent agent : chain.getAgentList()) {
-            if (agent.getDelHeight() != -1L) {
-                continue;
-            }
-            if (agent.getBlockHeight() < 0L) {
-                continue;
-            }
-            agentList.add(agent);
-        }
-        return agentList;
+        return chain.getAgentDepositRegistry().getValidAgents();
     }
 
     /**
@@ -395,13 +364,7 @@ public class AgentManager {
      */
     private List<Agent> getBeforeAgentList(Chain chain, long height) {
         Map<NulsHash, Agent> agentMap = new HashMap<>(ConsensusConstant.INIT_CAPACITY_16);
-        for (Agent agent : chain.getAgentList()) {
-            if (agent.getDelHeight() != -1L && agent.getDelHeight() <= height) {
-                continue;
-            }
-            if (agent.getBlockHeight() > height || agent.getBlockHeight() < 0L) {
-                continue;
-            }
+        for (Agent agent : chain.getAgentDepositRegistry().getActiveAgents(height)) {
             try {
                 agentMap.put(agent.getTxHash(), agent.clone());
             } catch (CloneNotSupportedException e) {
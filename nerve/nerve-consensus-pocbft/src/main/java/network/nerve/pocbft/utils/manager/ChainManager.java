@@ -214,6 +214,11 @@ public class ChainManager {
             config.setMinStakingAmount(minStakingAmount);
             config.setMinAppendAndExitAmount(minAppendAndExitAmount);
             config.setExitStakingLockHours(exitStakingLockHours);
+            //未配置时不启用投票结果紧凑编码
+            Object compactVoteResultHeight = specConfigMap.get("compactVoteResultHeight");
+            if (null != compactVoteResultHeight) {
+                config.setCompactVoteResultHeight(Long.parseLong("" + compactVoteResultHeight));
+            }
 
 
             loacLimitCfg(specConfigMap, config);
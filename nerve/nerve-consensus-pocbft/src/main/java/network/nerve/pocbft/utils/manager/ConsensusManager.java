@@ -446,10 +446,13 @@ public class ConsensusManager {
      * @return Block
      */
     private static Block createBlock(Chain chain, BlockData blockData, byte[] packingAddress, String packingAddressString) {
+        //每次出块都验证账户，修改密码或删除账户后本地签名器立即丢弃私钥
         try {
             String password = chain.getConfig().getPassword();
-            CallMethodUtils.accountValid(chain.getConfig().getChainId(), packingAddressString, password);
+            Map callResult = CallMethodUtils.accountValid(chain.getConfig().getChainId(), packingAddressString, password);
+            chain.getLocalSigner().refresh(packingAddressString, (String) callResult.get(ParameterConstant.PARAM_PRI_KEY));
         } catch (NulsException e) {
+            chain.getLocalSigner().invalidate(packingAddressString);
             chain.getLogger().error(e);
             return null;
         }
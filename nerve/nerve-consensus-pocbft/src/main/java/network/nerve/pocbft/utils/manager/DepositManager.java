@@ -2,6 +2,7 @@ package network.nerve.pocbft.utils.manager;
 
 import network.nerve.pocbft.constant.ConsensusConstant;
 import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.DepositSettleSnapshot;
 import network.nerve.pocbft.model.bo.StackingAsset;
 import network.nerve.pocbft.model.bo.config.ConsensusChainConfig;
 import network.nerve.pocbft.model.bo.tx.txdata.Deposit;
@@ -11,6 +12,7 @@ import network.nerve.pocbft.utils.compare.DepositComparator;
 import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.NulsHash;
 import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.model.DoubleUtils;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import network.nerve.pocbft.storage.DepositStorageService;
@@ -20,7 +22,9 @@ import network.nerve.pocbft.utils.enumeration.DepositTimeType;
 import network.nerve.pocbft.utils.enumeration.DepositType;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -72,27 +76,26 @@ public class DepositManager {
             return false;
         }
         chain.getDepositList().add(deposit);
+        chain.getAgentDepositRegistry().putDeposit(deposit);
         return true;
     }
 
     /**
-     * 修改委托缓存
-     * modify delegation cache
+     * 修改委托退出高度，先保存数据库，保存成功后才修改缓存委托和高度索引，保存失败时缓存保持不变
+     * modify delegation cache, the cached deposit is only changed after the storage save succeeded
      *
-     * @param chain   chain
-     * @param deposit deposit info
+     * @param chain     chain
+     * @param deposit   deposit info
+     * @param delHeight 退出委托高度/Withdraw height
      */
-    public boolean updateDeposit(Chain chain, Deposit deposit) {
-        if (!depositStorageService.save(new DepositPo(deposit), chain.getChainId())) {
+    public boolean updateDeposit(Chain chain, Deposit deposit, long delHeight) {
+        DepositPo po = new DepositPo(deposit);
+        po.setDelHeight(delHeight);
+        if (!depositStorageService.save(po, chain.getChainId())) {
             chain.getLogger().error("Data save error!");
             return false;
         }
-        for (Deposit oldDeposit : chain.getDepositList()) {
-            if (oldDeposit.getTxHash().equals(deposit.getTxHash())) {
-                oldDeposit.setDelHeight(deposit.getDelHeight());
-                break;
-            }
-        }
+        chain.getAgentDepositRegistry().updateDeposit(deposit.getTxHash(), delHeight);
         return true;
     }
 
@@ -109,6 +112,7 @@ public class DepositManager {
             return false;
         }
         chain.getDepositList().removeIf(s -> s.getTxHash().equals(txHash));
+        chain.getAgentDepositRegistry().removeDeposit(txHash);
         return true;
     }
 
@@ -120,12 +124,7 @@ public class DepositManager {
      * @param txHash 创建该委托交易的Hash/Hash to create the delegated transaction
      */
     public Deposit getDeposit(Chain chain, NulsHash txHash) {
-        for (Deposit deposit : chain.getDepositList()) {
-            if (deposit.getTxHash().equals(txHash)) {
-                return deposit;
-            }
-        }
-        return null;
+        return chain.getAgentDepositRegistry().getDeposit(txHash);
     }
 
     /**
@@ -140,29 +139,17 @@ public class DepositManager {
     public BigDecimal getDepositByHeight(Chain chain, long startHeight, long endHeight, Map<String, BigDecimal> depositMap, BigDecimal totalAmount, String date) throws NulsException {
         BigDecimal realAmount;
         String address;
-        List<DepositPo> depositList;
         long depositLockEndTime = Integer.parseInt(date) * ConsensusConstant.ONE_DAY_SECONDS + ConsensusConstant.ONE_DAY_SECONDS + ConsensusConstant.ONE_DAY_SECONDS / 2;
-        try {
-            //这儿不能是有缓存中的数据，因为有可能中途有新数据插入
-            depositList = depositStorageService.getList(chain.getConfig().getChainId());
-        } catch (NulsException e) {
-            chain.getLogger().error(e);
-            return totalAmount;
-        }
-        if (depositList == null || depositList.isEmpty()) {
-            return totalAmount;
+        //有效委托，委托高度要小指定高度且退出委托高度大于指定高度
+        long maxBlockHeight = endHeight;
+        if (endHeight > chain.getConfig().getDepositAwardChangeHeight()) {
+            maxBlockHeight = Math.min(startHeight, endHeight);
         }
-        for (DepositPo deposit : depositList) {
-            //有效委托，委托高度要小指定高度且退出委托高度大于指定高度
-            if (deposit.getBlockHeight() > endHeight) {
-                continue;
-            }
-            if (deposit.getDelHeight() != -1 && deposit.getDelHeight() <= endHeight) {
-                continue;
-            }
-            if (endHeight > chain.getConfig().getDepositAwardChangeHeight() && deposit.getBlockHeight() > startHeight) {
-                continue;
-            }
+        //这儿不能直接使用缓存中的委托，因为有可能中途有新数据插入或委托退出
+        //快照在委托索引锁内生成：本链活期委托取增量维护的账户总额，其余委托复制一份，不需要从数据库反序列化全部委托
+        DepositSettleSnapshot snapshot = chain.getAgentDepositRegistry().getSettleSnapshot(maxBlockHeight, endHeight);
+        Map<String, Double> priceCache = new HashMap<>(ConsensusConstant.INIT_CAPACITY_16);
+        for (Deposit deposit : snapshot.getDepositList()) {
             StringBuilder ss = new StringBuilder();
             ss.append(AddressTool.getStringAddressByBytes(deposit.getAddress()));
             ss.append("-");
@@ -171,7 +158,7 @@ public class DepositManager {
             ss.append(deposit.getAssetId());
             ss.append("-");
             ss.append(deposit.getDeposit().toString());
-            realAmount = calcDepositBase(chain, deposit, date, depositLockEndTime, endHeight);
+            realAmount = calcDepositBase(chain, deposit, date, depositLockEndTime, endHeight, priceCache);
             ss.append("-real:");
             ss.append(realAmount.toString());
             totalAmount = totalAmount.add(realAmount);
@@ -183,6 +170,17 @@ public class DepositManager {
             chain.getLogger().info(ss.toString());
             depositMap.merge(address, realAmount, (oldValue, value) -> oldValue.add(value));
         }
+        //本链活期委托的权重相同且乘法没有舍入，按账户总额计算与逐条计算结果一致
+        if (!snapshot.getLocalCurrentStake().isEmpty()) {
+            BigDecimal weight = new BigDecimal(Math.sqrt(chain.getConfig().getLocalAssertBase())).setScale(4, BigDecimal.ROUND_HALF_UP);
+            for (Map.Entry<ByteArrayWrapper, BigInteger> entry : snapshot.getLocalCurrentStake().entrySet()) {
+                realAmount = DoubleUtils.mul(new BigDecimal(entry.getValue()), weight);
+                totalAmount = totalAmount.add(realAmount);
+                address = AddressTool.getStringAddressByBytes(entry.getKey().getBytes());
+                chain.getLogger().info("{}-{}-{}-{}-real:{}-total:{}", address, chain.getChainId(), chain.getAssetId(), entry.getValue(), realAmount, totalAmount);
+                depositMap.merge(address, realAmount, (oldValue, value) -> oldValue.add(value));
+            }
+        }
         return totalAmount;
     }
 
@@ -193,8 +191,9 @@ public class DepositManager {
      * @param chain   链信息
      * @param deposit 委托信息
      * @@param date        结算日期
+     * @param priceCache 本次结算的喂价缓存
      */
-    private BigDecimal calcDepositBase(Chain chain, DepositPo deposit, String date, long time, long endHeight) throws NulsException {
+    private BigDecimal calcDepositBase(Chain chain, Deposit deposit, String date, long time, long endHeight, Map<String, Double> priceCache) throws NulsException {
         BigDecimal realDeposit = new BigDecimal(deposit.getDeposit());
         double weightSqrt = 1;
         //如果委托资产为本链主资产则乘以相应的基数
@@ -206,7 +205,7 @@ public class DepositManager {
 //            weightSqrt = chain.getConfig().getMainAssertBase();
         } else {
             StackingAsset stackingAsset = chainManager.getAssetByAsset(deposit.getAssetChainId(), deposit.getAssetId());
-            realDeposit = ConsensusAwardUtil.getRealAmount(chain.getChainId(), realDeposit, stackingAsset, date);
+            realDeposit = ConsensusAwardUtil.getRealAmount(chain.getChainId(), realDeposit, stackingAsset, date, priceCache);
             weightSqrt = chain.getConfig().getWeight(deposit.getAssetChainId(), deposit.getAssetId());
             //流动性计划特殊处理代码
 //            if (deposit.getAssetChainId() == chain.getChainId() && (deposit.getAssetId() == 32 || deposit.getAssetId() == 33) && config.getV1_7_0Height() > endHeight && endHeight < config.getV1_7_0Height() + 30 * 43200) {
@@ -436,14 +436,12 @@ public class BlockValidator {
      */
     private boolean coinDataValidate(Chain chain, Transaction tx, network.nerve.pocbft.model.bo.tx.txdata.RedPunishData punishData) throws NulsException {
         Agent punishAgent = null;
-        for (Agent agent : chain.getAgentList()) {
+        for (Agent agent : chain.getAgentDepositRegistry().getAgentsByAddress(punishData.getAddress())) {
             if (agent.getDelHeight() > 0 && (tx.getBlockHeight() <= 0 || agent.getDelHeight() < tx.getBlockHeight())) {
                 continue;
             }
-            if (Arrays.equals(punishData.getAddress(), agent.getAgentAddress())) {
-                punishAgent = agent;
-                break;
-            }
+            punishAgent = agent;
+            break;
         }
         if (null == punishAgent) {
             Log.info(ConsensusErrorCode.AGENT_NOT_EXIST.getMsg());
@@ -18,6 +18,7 @@ import network.nerve.pocbft.v1.entity.VoteSummaryData;
 import network.nerve.pocbft.v1.message.VoteMessage;
 import network.nerve.pocbft.v1.message.VoteResultMessage;
 import network.nerve.pocbft.v1.utils.HashSetDuplicateProcessor;
+import network.nerve.pocbft.v1.utils.SignerBitmapUtils;
 
 import java.io.IOException;
 import java.util.*;
@@ -225,7 +226,11 @@ public class VoteController extends BasicObject {
     }
 
     public void cacheSignResult(VoteStageResult result) {
-        chain.getConsensusCache().cacheSignResult(result.getResultMessage());
+        VoteResultMessage message = result.getResultMessage();
+        if (!message.isCompact()) {
+            SignerBitmapUtils.compactForCache(chain, message, roundController.getRound(message.getRoundIndex(), message.getRoundStartTime()));
+        }
+        chain.getConsensusCache().cacheSignResult(message);
         //本高度的记录没用了
         this.clearMap(result.getHeight());
     }
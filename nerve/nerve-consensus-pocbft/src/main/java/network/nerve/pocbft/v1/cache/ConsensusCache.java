@@ -10,6 +10,7 @@ import network.nerve.pocbft.v1.utils.HashSetDuplicateProcessor;
 
 import java.security.Identity;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Eva
@@ -25,6 +26,11 @@ public class ConsensusCache {
      * VoteMessageQueue
      */
     private VoteMessageQueue voteMessageQueue = new VoteMessageQueue();
+    /**
+     * 已完成并行验证、等待有序处理的投票
+     */
+    private VerifiedVoteQueue verifiedVoteQueue = new VerifiedVoteQueue();
+    private VotePipelineStatistics votePipelineStatistics = new VotePipelineStatistics();
     private BlockHeaderQueue blockHeaderQueue = new BlockHeaderQueue();
     private IdentityMessageQueue identityMessageQueue = new IdentityMessageQueue();
     private IdentityMessageQueue disConnectMessageQueue = new IdentityMessageQueue();
@@ -48,6 +54,11 @@ public class ConsensusCache {
     private List<NulsHash> signResultList = new ArrayList<NulsHash>();
     private Map<NulsHash, VoteResultMessage> signResultMap = new HashMap<>();
 
+    /**
+     * 已验证过签名的打包地址公钥，用于验证紧凑编码的投票结果
+     */
+    private Map<String, byte[]> packingPubKeyMap = new ConcurrentHashMap<>();
+
     /**
      * 通知出块线程进行打包
      */
@@ -109,8 +120,21 @@ public class ConsensusCache {
         this.voteMessageQueue = voteMessageQueue;
     }
 
+    public Map<String, byte[]> getPackingPubKeyMap() {
+        return packingPubKeyMap;
+    }
+
+    public VerifiedVoteQueue getVerifiedVoteQueue() {
+        return verifiedVoteQueue;
+    }
+
+    public VotePipelineStatistics getVotePipelineStatistics() {
+        return votePipelineStatistics;
+    }
+
     public void clear() {
         voteMessageQueue.clear();
+        verifiedVoteQueue.clear();
         stageOneQueue.clear();
         stageTwoQueue.clear();
     }
@@ -10,7 +10,7 @@ public abstract class BasicRunnable implements Runnable {
     protected final Chain chain;
     protected final NulsLogger log;
 
-    protected boolean running = true;
+    protected volatile boolean running = true;
 
     public BasicRunnable(Chain chain) {
         this.chain = chain;
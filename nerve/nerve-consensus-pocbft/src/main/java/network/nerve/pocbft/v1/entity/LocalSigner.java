@@ -0,0 +1,259 @@
+package network.nerve.pocbft.v1.entity;
+
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.StringUtils;
+import network.nerve.pocbft.constant.ConsensusConstant;
+import network.nerve.pocbft.constant.ConsensusErrorCode;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.rpc.call.CallMethodUtils;
+
+import org.bouncycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static network.nerve.pocbft.constant.ParameterConstant.PARAM_ADDRESS;
+import static network.nerve.pocbft.constant.ParameterConstant.PARAM_PRI_KEY;
+
+/**
+ * 共识模块内的本地签名器
+ * 打包地址的私钥只在第一次签名（或轮换）时从账户模块取一次，之后区块和投票的签名都在本模块内完成，
+ * 不再每次通过RPC让账户模块解密keystore
+ * 出块时仍然每次验证账户，验证失败（修改密码、删除账户）时丢弃私钥，验证成功时用返回的私钥刷新
+ * <p>
+ * Local signer of the consensus module: the packing key is fetched from the account module once,
+ * blocks and votes are then signed in-process instead of an RPC round trip per signature
+ *
+ * @author Eva
+ */
+public class LocalSigner {
+
+    /**
+     * 从账户模块获取私钥（十六进制），失败时返回null或抛出异常
+     */
+    public interface KeyLoader {
+        String load(String address) throws NulsException;
+    }
+
+    private final Chain chain;
+
+    private final KeyLoader keyLoader;
+
+    /**
+     * 当前加载的签名上下文，锁定或轮换时整体替换
+     */
+    private volatile SignContext context;
+
+    /**
+     * 锁定后不再自动加载私钥，所有签名退回到账户模块
+     */
+    private volatile boolean locked;
+
+    /**
+     * 加载失败后在这个时间之前不再自动加载，避免每次签名都多一次RPC调用
+     */
+    private volatile long nextLoadTime;
+
+    public LocalSigner(Chain chain) {
+        this(chain, address -> (String) CallMethodUtils.accountValid(chain.getChainId(), address, chain.getConfig().getPassword()).get(PARAM_PRI_KEY));
+    }
+
+    public LocalSigner(Chain chain, KeyLoader keyLoader) {
+        this.chain = chain;
+        this.keyLoader = keyLoader;
+    }
+
+    /**
+     * 使用本地私钥签名，私钥不可用时返回null，调用方应退回到账户模块签名
+     *
+     * @param address 打包地址
+     * @param digest  待签名摘要
+     * @return 签名结果
+     */
+    public BlockSignature sign(String address, byte[] digest) {
+        SignContext ctx = this.context;
+        if (ctx == null || !ctx.address.equals(address)) {
+            if (locked || System.currentTimeMillis() < nextLoadTime) {
+                return null;
+            }
+            ctx = load(address);
+            if (ctx == null) {
+                return null;
+            }
+        }
+        return ctx.sign(digest);
+    }
+
+    /**
+     * 指定地址的私钥是否已加载
+     */
+    public boolean isLoaded(String address) {
+        SignContext ctx = this.context;
+        return ctx != null && ctx.address.equals(address);
+    }
+
+    /**
+     * 出块前验证账户成功后，使用账户模块返回的私钥刷新本地签名器，私钥变化时替换并清除旧私钥
+     *
+     * @param address   打包地址
+     * @param priKeyHex 账户模块返回的私钥
+     */
+    public synchronized void refresh(String address, String priKeyHex) {
+        if (locked || StringUtils.isBlank(priKeyHex)) {
+            return;
+        }
+        byte[] priKey = HexUtil.decode(priKeyHex);
+        SignContext ctx = this.context;
+        if (ctx != null && ctx.address.equals(address) && ctx.hasKey(priKey)) {
+            Arrays.fill(priKey, (byte) 0);
+            return;
+        }
+        replace(new SignContext(address, priKey));
+        this.nextLoadTime = 0;
+    }
+
+    /**
+     * 出块前验证账户失败时丢弃私钥，之后的签名退回到账户模块直到重新加载成功
+     *
+     * @param address 打包地址
+     */
+    public synchronized void invalidate(String address) {
+        SignContext ctx = this.context;
+        if (ctx != null && ctx.address.equals(address)) {
+            replace(null);
+            this.nextLoadTime = System.currentTimeMillis() + ConsensusConstant.LOCAL_SIGNER_RETRY_INTERVAL;
+            chain.getLogger().warn("打包账户验证失败，本地签名器已丢弃私钥：{}", address);
+        }
+    }
+
+    /**
+     * 重新从账户模块加载私钥（修改密码、更换打包地址后使用），并解除锁定
+     *
+     * @param address 打包地址，为空时轮换当前已加载的地址
+     */
+    public synchronized void rotate(String address) throws NulsException {
+        if (StringUtils.isBlank(address)) {
+            SignContext ctx = this.context;
+            if (ctx == null) {
+                throw new NulsException(ConsensusErrorCode.PARAM_ERROR);
+            }
+            address = ctx.address;
+        }
+        replace(null);
+        this.locked = false;
+        this.nextLoadTime = 0;
+        if (null == doLoad(address)) {
+            throw new NulsException(ConsensusErrorCode.ACCOUNT_VALID_ERROR);
+        }
+    }
+
+    /**
+     * 锁定：立即丢弃私钥，之后的签名全部交给账户模块
+     */
+    public synchronized void lock() {
+        this.locked = true;
+        replace(null);
+        chain.getLogger().info("本地签名器已锁定");
+    }
+
+    public synchronized void unlock() {
+        this.locked = false;
+        this.nextLoadTime = 0;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>(4);
+        SignContext ctx = this.context;
+        status.put("locked", locked);
+        status.put("loaded", ctx != null);
+        status.put(PARAM_ADDRESS, ctx == null ? null : ctx.address);
+        return status;
+    }
+
+    private synchronized SignContext load(String address) {
+        if (locked || System.currentTimeMillis() < nextLoadTime) {
+            return null;
+        }
+        SignContext ctx = this.context;
+        if (ctx != null && ctx.address.equals(address)) {
+            return ctx;
+        }
+        return doLoad(address);
+    }
+
+    private SignContext doLoad(String address) {
+        try {
+            String priKeyHex = keyLoader.load(address);
+            if (StringUtils.isNotBlank(priKeyHex)) {
+                SignContext ctx = new SignContext(address, HexUtil.decode(priKeyHex));
+                replace(ctx);
+                this.nextLoadTime = 0;
+                chain.getLogger().info("本地签名器已加载打包地址：{}", address);
+                return ctx;
+            }
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+        }
+        this.nextLoadTime = System.currentTimeMillis() + ConsensusConstant.LOCAL_SIGNER_RETRY_INTERVAL;
+        return null;
+    }
+
+    /**
+     * 替换签名上下文并清除旧私钥
+     */
+    private void replace(SignContext ctx) {
+        SignContext old = this.context;
+        this.context = ctx;
+        if (old != null && old != ctx) {
+            old.destroy();
+        }
+    }
+
+    /**
+     * 签名上下文，私钥以字节数组保存以便替换时清零，公钥预先计算
+     */
+    private static class SignContext {
+        private final String address;
+        private final byte[] priKey;
+        private final ECPoint publicKeyPoint;
+        private final byte[] publicKey;
+        private boolean destroyed;
+
+        SignContext(String address, byte[] priKey) {
+            this.address = address;
+            this.priKey = priKey;
+            ECKey ecKey = ECKey.fromPrivate(priKey);
+            this.publicKeyPoint = ecKey.getPubKeyPoint();
+            this.publicKey = ecKey.getPubKey();
+        }
+
+        synchronized boolean hasKey(byte[] key) {
+            return !destroyed && Arrays.equals(priKey, key);
+        }
+
+        /**
+         * 已清除的上下文返回null，调用方退回到账户模块签名
+         */
+        synchronized BlockSignature sign(byte[] digest) {
+            if (destroyed) {
+                return null;
+            }
+            ECKey ecKey = ECKey.fromPrivateAndPrecalculatedPublic(new BigInteger(1, priKey), publicKeyPoint);
+            BlockSignature signature = new BlockSignature();
+            signature.setSignData(SignatureUtil.signDigest(digest, ecKey));
+            signature.setPublicKey(publicKey);
+            return signature;
+        }
+
+        synchronized void destroy() {
+            destroyed = true;
+            Arrays.fill(priKey, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package network.nerve.pocbft.v1.entity;
+
+import network.nerve.pocbft.v1.message.VoteMessage;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行验证阶段的输出，按投票到达的顺序存放验证任务，由有序处理线程依次取出
+ * Output of the parallel verification stage, kept in arrival order for the ordered handling stage
+ *
+ * @author Eva
+ */
+public class VerifiedVoteQueue {
+
+    /**
+     * 验证结果为null表示该投票已被丢弃
+     */
+    private LinkedBlockingQueue<Future<VoteMessage>> verifiedQueue = new LinkedBlockingQueue<>(350000);
+
+    public void clear() {
+        this.verifiedQueue.clear();
+    }
+
+    public void put(Future<VoteMessage> future) throws InterruptedException {
+        this.verifiedQueue.put(future);
+    }
+
+    public Future<VoteMessage> take() throws InterruptedException {
+        return this.verifiedQueue.take();
+    }
+
+    public boolean offer(Future<VoteMessage> future, long timeout, TimeUnit unit) throws InterruptedException {
+        return this.verifiedQueue.offer(future, timeout, unit);
+    }
+
+    public Future<VoteMessage> poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.verifiedQueue.poll(timeout, unit);
+    }
+
+    public int size() {
+        return verifiedQueue.size();
+    }
+}
@@ -4,6 +4,7 @@ import io.nuls.core.log.Log;
 import network.nerve.pocbft.v1.message.VoteMessage;
 
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Eva
@@ -21,6 +22,7 @@ public class VoteMessageQueue {
 
     public boolean offer(VoteMessage msg) {
         try {
+            msg.setReceiveNanos(System.nanoTime());
             return this.voteMessageQueue.offer(msg);
         } catch (Exception e) {
             Log.error(e);
@@ -32,6 +34,10 @@ public class VoteMessageQueue {
         return this.voteMessageQueue.take();
     }
 
+    public VoteMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.voteMessageQueue.poll(timeout, unit);
+    }
+
     public int size() {
         return voteMessageQueue.size();
     }
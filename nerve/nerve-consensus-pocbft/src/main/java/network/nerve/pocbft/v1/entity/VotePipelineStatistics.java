@@ -0,0 +1,110 @@
+package network.nerve.pocbft.v1.entity;
+
+import io.nuls.core.log.logback.NulsLogger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 投票处理流水线的队列深度及各阶段耗时统计
+ * Queue depth and per-stage latency statistics of the vote processing pipeline
+ *
+ * @author Eva
+ */
+public class VotePipelineStatistics {
+
+    /**
+     * 统计日志输出间隔
+     */
+    private static final long PRINT_INTERVAL_MILLIS = 60000L;
+
+    /**
+     * 在接收队列中等待的时间
+     */
+    private final Stage queueStage = new Stage("queue");
+    /**
+     * 去重、hash计算、签名验证的并行阶段
+     */
+    private final Stage verifyStage = new Stage("verify");
+    /**
+     * 验证完成到被有序处理线程取出的等待时间
+     */
+    private final Stage reorderStage = new Stage("reorder");
+    /**
+     * 投票状态机的有序处理阶段
+     */
+    private final Stage handleStage = new Stage("handle");
+
+    private final AtomicLong discarded = new AtomicLong();
+
+    private long lastPrintTime = System.currentTimeMillis();
+
+    public Stage getQueueStage() {
+        return queueStage;
+    }
+
+    public Stage getVerifyStage() {
+        return verifyStage;
+    }
+
+    public Stage getReorderStage() {
+        return reorderStage;
+    }
+
+    public Stage getHandleStage() {
+        return handleStage;
+    }
+
+    public void discard() {
+        discarded.incrementAndGet();
+    }
+
+    /**
+     * 到达输出间隔时打印统计信息并重置计数，只由有序处理线程调用
+     *
+     * @param log            日志
+     * @param receiveDepth   接收队列深度
+     * @param verifyDepth    待验证任务数
+     * @param verifiedDepth  等待有序处理的任务数
+     */
+    public void printIfNeeded(NulsLogger log, int receiveDepth, int verifyDepth, int verifiedDepth) {
+        long now = System.currentTimeMillis();
+        if (now - lastPrintTime < PRINT_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPrintTime = now;
+        log.info("投票流水线：receiveQueue={},verifying={},verifiedQueue={},discarded={},{},{},{},{}",
+                receiveDepth, verifyDepth, verifiedDepth, discarded.getAndSet(0),
+                queueStage.drain(), verifyStage.drain(), reorderStage.drain(), handleStage.drain());
+    }
+
+    public static class Stage {
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                return;
+            }
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * 输出平均及最大耗时(微秒)并重置
+         */
+        String drain() {
+            long c = count.getAndSet(0);
+            long total = totalNanos.getAndSet(0);
+            long max = maxNanos.getAndSet(0);
+            long avg = c == 0 ? 0 : total / c;
+            return name + "[count=" + c + ",avgUs=" + avg / 1000 + ",maxUs=" + max / 1000 + "]";
+        }
+    }
+}
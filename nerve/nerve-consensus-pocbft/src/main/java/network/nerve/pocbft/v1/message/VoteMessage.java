@@ -74,6 +74,10 @@ public class VoteMessage extends BaseBusinessMessage {
     private NulsHash voteHash;
     private String sendNode;
     private String rawData;
+    /**
+     * 进入接收队列的时间(纳秒)，用于统计排队耗时
+     */
+    private long receiveNanos;
 
 
     public VoteMessage() {
@@ -280,4 +284,12 @@ public class VoteMessage extends BaseBusinessMessage {
         }
         return rawData;
     }
+
+    public long getReceiveNanos() {
+        return receiveNanos;
+    }
+
+    public void setReceiveNanos(long receiveNanos) {
+        this.receiveNanos = receiveNanos;
+    }
 }
@@ -25,6 +25,17 @@ import java.util.List;
  */
 public class VoteResultMessage extends BaseBusinessMessage {
 
+    /**
+     * 紧凑编码标识，写在voteStage字节的最高位，旧版本节点会因阶段不合法而忽略该消息
+     * Compact encoding flag, carried in the high bit of the voteStage byte
+     */
+    public static final byte COMPACT_SIGN_FLAG = (byte) 0x80;
+
+    /**
+     * 紧凑编码中每个签名的长度：r(32)+s(32)
+     */
+    public static final int RAW_SIGN_LENGTH = 64;
+
     /**
      * 投票的区块高度
      */
@@ -65,6 +76,16 @@ public class VoteResultMessage extends BaseBusinessMessage {
      */
     private List<byte[]> signList = new ArrayList<>();
 
+    /**
+     * 紧凑编码：按轮次成员列表下标标记签名者的位图
+     */
+    private byte[] signerBitmap;
+
+    /**
+     * 紧凑编码：按位图中签名者顺序排列的64字节原始签名
+     */
+    private List<byte[]> rawSignList = new ArrayList<>();
+
     /**
      * 发送节点ID，不序列化
      */
@@ -105,13 +126,21 @@ public class VoteResultMessage extends BaseBusinessMessage {
 
     @Override
     protected void serializeToStream(NulsOutputStreamBuffer stream) throws IOException {
+        boolean compact = isCompact();
         stream.writeInt64(height);
         stream.writeUint32(roundIndex);
         stream.writeUint16(packingIndexOfRound);
         stream.writeUint32(voteRoundIndex);
-        stream.writeByte(voteStage);
+        stream.writeByte(compact ? (byte) (voteStage | COMPACT_SIGN_FLAG) : voteStage);
         stream.write(blockHash.getBytes());
         stream.writeUint32(roundStartTime);
+        if (compact) {
+            stream.writeBytesWithLength(signerBitmap);
+            for (byte[] sign : rawSignList) {
+                stream.write(sign);
+            }
+            return;
+        }
         stream.writeVarInt(signList.size());
         for (byte[] sign : signList) {
             stream.writeBytesWithLength(sign);
@@ -149,9 +178,18 @@ public class VoteResultMessage extends BaseBusinessMessage {
         this.roundIndex = byteBuffer.readUint32();
         this.packingIndexOfRound = byteBuffer.readUint16();
         this.voteRoundIndex = byteBuffer.readUint32();
-        this.voteStage = byteBuffer.readByte();
+        byte stage = byteBuffer.readByte();
+        this.voteStage = (byte) (stage & ~COMPACT_SIGN_FLAG);
         this.blockHash = byteBuffer.readHash();
         this.roundStartTime = byteBuffer.readUint32();
+        if ((stage & COMPACT_SIGN_FLAG) != 0) {
+            this.signerBitmap = byteBuffer.readByLengthByte();
+            int count = bitCount(signerBitmap);
+            for (int i = 0; i < count; i++) {
+                this.rawSignList.add(byteBuffer.readBytes(RAW_SIGN_LENGTH));
+            }
+            return;
+        }
         int count = (int) byteBuffer.readVarInt();
         for (int i = 0; i < count; i++) {
             this.signList.add(byteBuffer.readByLengthByte());
@@ -161,6 +199,11 @@ public class VoteResultMessage extends BaseBusinessMessage {
     @Override
     public int size() {
         int size = getNormalFieldsSize();
+        if (isCompact()) {
+            size += SerializeUtils.sizeOfBytes(signerBitmap);
+            size += RAW_SIGN_LENGTH * rawSignList.size();
+            return size;
+        }
         size += VarInt.sizeOf(signList.size());
         for (byte[] sign : signList) {
             size += SerializeUtils.sizeOfBytes(sign);
@@ -168,6 +211,37 @@ public class VoteResultMessage extends BaseBusinessMessage {
         return size;
     }
 
+    private static int bitCount(byte[] bitmap) {
+        int count = 0;
+        for (byte b : bitmap) {
+            count += Integer.bitCount(b & 0xff);
+        }
+        return count;
+    }
+
+    /**
+     * 是否使用紧凑编码
+     */
+    public boolean isCompact() {
+        return signerBitmap != null;
+    }
+
+    /**
+     * 切换为紧凑编码，位图和签名由{@link network.nerve.pocbft.v1.utils.SignerBitmapUtils}根据轮次成员列表生成
+     */
+    public void setCompactSigns(byte[] signerBitmap, List<byte[]> rawSignList) {
+        this.signerBitmap = signerBitmap;
+        this.rawSignList = rawSignList;
+        this.signList = new ArrayList<>();
+    }
+
+    /**
+     * 签名数量，与编码方式无关
+     */
+    public int getSignCount() {
+        return isCompact() ? rawSignList.size() : signList.size();
+    }
+
     private int getNormalFieldsSize() {
         int size = 16;
         size += 36 + 3;
@@ -220,4 +294,12 @@ public class VoteResultMessage extends BaseBusinessMessage {
     public String getNodeId() {
         return nodeId;
     }
+
+    public byte[] getSignerBitmap() {
+        return signerBitmap;
+    }
+
+    public List<byte[]> getRawSignList() {
+        return rawSignList;
+    }
 }
@@ -36,7 +36,7 @@ public class VoteResultHandler implements MessageProcessor {
             return;
         }
         VoteResultMessage voteResultMessage = RPCUtil.getInstanceRpcStr(message, VoteResultMessage.class);
-        if (voteResultMessage == null || voteResultMessage.getSignList() == null || voteResultMessage.getSignList().isEmpty()) {
+        if (voteResultMessage == null || voteResultMessage.getSignCount() == 0) {
             chain.getLogger().warn("收到节点：{}返回的投票结果为null");
             return;
         }
@@ -155,8 +155,10 @@ public class ConsensusThread extends BasicObject implements Runnable {
             return;
         }
         chain.getConsensusCache().clear();
-        //消息处理线程：基本的消息验证、过滤、转发功能
-        this.threadController.execute(new VoteMsgProcessor(chain, voteController));
+        //消息处理线程：并行完成基本的消息验证、过滤，再由单线程有序处理投票及转发
+        VoteMsgProcessor voteMsgProcessor = new VoteMsgProcessor(chain);
+        this.threadController.execute(voteMsgProcessor);
+        this.threadController.execute(new VoteMsgHandleProcessor(chain, voteController, voteMsgProcessor));
         //打包处理器
         this.threadController.execute(new PackingProcessor(chain, roundController));
         //第一阶段投票处理器，单独线程处理
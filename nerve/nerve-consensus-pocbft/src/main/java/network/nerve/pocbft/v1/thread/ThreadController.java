@@ -43,6 +43,6 @@ public class ThreadController extends BasicObject {
     }
 
     private void init() {
-        this.threadPool = ThreadUtils.createThreadPool(3, 100, new NulsThreadFactory("pocbft" + chain.getChainId()));
+        this.threadPool = ThreadUtils.createThreadPool(4, 100, new NulsThreadFactory("pocbft" + chain.getChainId()));
     }
 }
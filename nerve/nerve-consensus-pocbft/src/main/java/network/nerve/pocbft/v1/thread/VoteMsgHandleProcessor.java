@@ -0,0 +1,127 @@
+package network.nerve.pocbft.v1.thread;
+
+import io.nuls.core.rpc.util.NulsDateUtils;
+import network.nerve.pocbft.constant.CommandConstant;
+import network.nerve.pocbft.constant.ConsensusConstant;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.utils.ConsensusNetUtil;
+import network.nerve.pocbft.v1.VoteController;
+import network.nerve.pocbft.v1.cache.ConsensusCache;
+import network.nerve.pocbft.v1.entity.BasicRunnable;
+import network.nerve.pocbft.v1.entity.VotePipelineStatistics;
+import network.nerve.pocbft.v1.message.VoteMessage;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 投票处理的第二阶段：按到达顺序取出并行验证的结果，单线程驱动投票状态机
+ * Second stage of vote processing: takes verified votes in arrival order and feeds the vote state machine on a single thread
+ *
+ * @author Eva
+ */
+public class VoteMsgHandleProcessor extends BasicRunnable {
+    private final VoteController controller;
+
+    private final VoteMsgProcessor verifyProcessor;
+
+    private final VotePipelineStatistics statistics;
+
+    public VoteMsgHandleProcessor(Chain chain, VoteController voteController, VoteMsgProcessor verifyProcessor) {
+        super(chain);
+        this.controller = voteController;
+        this.verifyProcessor = verifyProcessor;
+        this.statistics = chain.getConsensusCache().getVotePipelineStatistics();
+    }
+
+    @Override
+    public void run() {
+        while (this.running) {
+            try {
+                doit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                log.error(e);
+            }
+        }
+    }
+
+    private void doit() throws Exception {
+        ConsensusCache cache = chain.getConsensusCache();
+        Future<VoteMessage> future = cache.getVerifiedVoteQueue().poll(ConsensusConstant.VOTE_STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        if (null == future) {
+            return;
+        }
+        VoteMessage vote = await(future);
+        statistics.printIfNeeded(log, cache.getVoteMessageQueue().size(), verifyProcessor.getVerifyingCount(), cache.getVerifiedVoteQueue().size());
+        if (null == vote) {
+            statistics.discard();
+            return;
+        }
+        statistics.getReorderStage().record(System.nanoTime() - vote.getReceiveNanos());
+        long start = System.nanoTime();
+        try {
+            handle(vote);
+        } finally {
+            statistics.getHandleStage().record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 等待验证结果，验证线程池停止后未执行的验证任务不会完成，所以需要定时检查停止标识
+     */
+    private VoteMessage await(Future<VoteMessage> future) throws InterruptedException {
+        while (this.running) {
+            try {
+                return future.get(ConsensusConstant.VOTE_STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                //继续等待
+            } catch (CancellationException | ExecutionException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void handle(VoteMessage vote) {
+        if (!chain.isConsonsusNode()) {
+            chain.getLogger().info("丢弃，本地不是共识节点");
+            return;
+        }
+        if (vote.getSign() == null) {
+            chain.getLogger().info("丢弃，没有签名");
+            //签名为空
+            return;
+        }
+        //验证期间本地高度可能已经变化
+        if (vote.getHeight() <= chain.getBestHeader().getHeight()) {
+            return;
+        }
+        //本地投票
+        if (vote.getSendNode() == null) {
+            this.controller.addVote(vote);
+            chain.getConsensusCache().getMsgDuplicateProcessor().insertAndCheck(vote.getMessageKey());
+            return;
+        }
+
+        if (vote.getRoundIndex() < chain.getConsensusCache().getLastConfirmedRoundIndex() ||
+                (vote.getRoundIndex() == chain.getConsensusCache().getLastConfirmedRoundIndex() && vote.getPackingIndexOfRound() < chain.getConsensusCache().getLastConfirmedRoundPackingIndex())) {
+            return;
+        }
+        //处理投票
+        this.controller.addVote(vote);
+
+        if (vote.getRoundStartTime() + chain.getConfig().getPackingInterval() * vote.getPackingIndexOfRound() < NulsDateUtils.getCurrentTimeSeconds() - 120) {
+            chain.getLogger().info("===========不再转发消息,当前队列：{}", chain.getConsensusCache().getVoteMessageQueue().size());
+            return;
+        }
+
+        //广播收到的投票信息--异步
+        ConsensusNetUtil.broadcastInConsensusHalf(chain.getChainId(), CommandConstant.MESSAGE_VOTE, vote.getRawData(), vote.getSendNode());
+    }
+}
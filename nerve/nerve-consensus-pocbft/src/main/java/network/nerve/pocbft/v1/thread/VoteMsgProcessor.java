@@ -1,32 +1,44 @@
 package network.nerve.pocbft.v1.thread;
 
 import io.nuls.base.basic.AddressTool;
-import io.nuls.base.data.NulsHash;
 import io.nuls.base.signture.BlockSignature;
-import io.nuls.core.exception.NulsException;
-import io.nuls.core.rpc.util.NulsDateUtils;
-import network.nerve.pocbft.constant.CommandConstant;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import network.nerve.pocbft.constant.ConsensusConstant;
 import network.nerve.pocbft.model.bo.tx.txdata.Agent;
 import network.nerve.pocbft.v1.entity.BasicRunnable;
+import network.nerve.pocbft.v1.entity.VotePipelineStatistics;
 import network.nerve.pocbft.v1.message.VoteMessage;
 import network.nerve.pocbft.model.bo.Chain;
-import network.nerve.pocbft.utils.ConsensusNetUtil;
-import network.nerve.pocbft.v1.VoteController;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 通过这里的处理，释放voteHandler的线程占用
+ * 投票处理的第一阶段：按到达顺序分发投票，在验证线程池中并行完成去重、hash计算和签名验证，
+ * 结果按原顺序放入已验证队列，由{@link VoteMsgHandleProcessor}单线程有序处理
+ * <p>
+ * First stage of vote processing: dedup, hashing and signature verification run in parallel,
+ * results are queued in arrival order for {@link VoteMsgHandleProcessor}
  *
  * @author Eva
  */
 public class VoteMsgProcessor extends BasicRunnable {
-    private final VoteController controller;
 
+    private final ThreadPoolExecutor verifyPool;
 
-    public VoteMsgProcessor(Chain chain, VoteController voteController) {
+    private final VotePipelineStatistics statistics;
+
+    public VoteMsgProcessor(Chain chain) {
         super(chain);
-        this.controller = voteController;
+        int threadCount = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors() - 2));
+        this.verifyPool = ThreadUtils.createThreadPool(threadCount, ConsensusConstant.VOTE_VERIFY_QUEUE_SIZE, new NulsThreadFactory("voteVerify" + chain.getChainId()));
+        //验证线程池已满时由分发线程自己验证，放慢从接收队列取投票的速度，接收队列满后新的投票直接丢弃
+        this.verifyPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        this.statistics = chain.getConsensusCache().getVotePipelineStatistics();
     }
 
 
@@ -35,65 +47,119 @@ public class VoteMsgProcessor extends BasicRunnable {
         while (this.running) {
             try {
                 doit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             } catch (Throwable e) {
                 log.error(e);
             }
         }
+        verifyPool.shutdownNow();
         chain.getLogger().warn("投票停止处理!!!!");
     }
 
+    @Override
+    public void stop() {
+        super.stop();
+        verifyPool.shutdownNow();
+    }
+
+    public int getVerifyingCount() {
+        return verifyPool.getQueue().size() + verifyPool.getActiveCount();
+    }
+
     private void doit() throws Exception {
-        VoteMessage vote = chain.getConsensusCache().getVoteMessageQueue().take();
-        if (!chain.isConsonsusNode()) {
-            chain.getLogger().info("丢弃，本地不是共识节点");
+        //定时检查停止标识，停止后线程可以退出
+        VoteMessage vote = chain.getConsensusCache().getVoteMessageQueue().poll(ConsensusConstant.VOTE_STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        if (null == vote) {
             return;
         }
+        statistics.getQueueStage().record(System.nanoTime() - vote.getReceiveNanos());
+        CompletableFuture<VoteMessage> future;
+        //本地投票不需要验证
+        if (vote.getSendNode() == null) {
+            vote.setReceiveNanos(System.nanoTime());
+            future = CompletableFuture.completedFuture(vote);
+        } else {
+            //去重在分发线程中按到达顺序完成，重复投票中保留哪一条与逐条处理时一致
+            BlockSignature signature = checkDuplicate(vote);
+            if (null == signature) {
+                vote.setReceiveNanos(System.nanoTime());
+                future = CompletableFuture.completedFuture(null);
+            } else {
+                future = CompletableFuture.supplyAsync(() -> verify(vote, signature), verifyPool);
+            }
+        }
+        //已验证队列满时等待有序处理线程消费
+        while (!chain.getConsensusCache().getVerifiedVoteQueue().offer(future, ConsensusConstant.VOTE_STOP_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (!this.running) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 分发阶段：解析签名地址并去重
+     *
+     * @return 需要继续验证时返回解析出的签名，否则返回null
+     */
+    BlockSignature checkDuplicate(VoteMessage vote) {
         if (vote.getSign() == null) {
             chain.getLogger().info("丢弃，没有签名");
             //签名为空
-            return;
+            return null;
         }
         if (vote.getHeight() <= chain.getBestHeader().getHeight()) {
-            return;
-        }
-        //本地投票
-        if (vote.getSendNode() == null) {
-            this.controller.addVote(vote);
-            chain.getConsensusCache().getMsgDuplicateProcessor().insertAndCheck(vote.getMessageKey());
-            return;
+            return null;
         }
         BlockSignature signature = new BlockSignature();
-        signature.parse(vote.getSign(), 0);
-        byte[] addressBytes = AddressTool.getAddress(signature.getPublicKey(), chain.getChainId());
-        vote.setAddress(AddressTool.getStringAddressByBytes(addressBytes));
-
+        try {
+            signature.parse(vote.getSign(), 0);
+            vote.setAddress(AddressTool.getStringAddressByBytes(AddressTool.getAddress(signature.getPublicKey(), chain.getChainId())));
+        } catch (Throwable e) {
+            log.error(e);
+            return null;
+        }
         if (!chain.getConsensusCache().getMsgDuplicateProcessor().insertAndCheck(vote.getMessageKey())) {
             //重复投票
-//                log.info("投票重复，丢弃：" + vote.getHeight() + "-{}-{}-{}:{},from:{}", vote.getRoundIndex(),
-//                        vote.getPackingIndexOfRound(), vote.getVoteRoundIndex(), vote.getBlockHash().toHex(), vote.getAddress(chain));
-            return;
+            return null;
         }
+        return signature;
+    }
 
-        if (vote.getRoundIndex() < chain.getConsensusCache().getLastConfirmedRoundIndex() ||
-                (vote.getRoundIndex() == chain.getConsensusCache().getLastConfirmedRoundIndex() && vote.getPackingIndexOfRound() < chain.getConsensusCache().getLastConfirmedRoundPackingIndex())) {
-            return;
+    /**
+     * 并行阶段：只做与投票状态机无关的检查
+     *
+     * @return 验证通过返回投票，否则返回null
+     */
+    VoteMessage verify(VoteMessage vote, BlockSignature signature) {
+        long start = System.nanoTime();
+        try {
+            return doVerify(vote, signature) ? vote : null;
+        } catch (Throwable e) {
+            log.error(e);
+            return null;
+        } finally {
+            statistics.getVerifyStage().record(System.nanoTime() - start);
+            vote.setReceiveNanos(System.nanoTime());
         }
+    }
 
+    private boolean doVerify(VoteMessage vote, BlockSignature signature) throws Exception {
+        byte[] addressBytes = AddressTool.getAddress(signature.getPublicKey(), chain.getChainId());
         if (!chain.getSeedAddressList().contains(vote.getAddress(chain))) {
             boolean result = false;
-            for (Agent agent : chain.getAgentList()) {
+            for (Agent agent : chain.getAgentDepositRegistry().getAgentsByPackingAddress(addressBytes)) {
                 if (agent.getDelHeight() > 0) {
                     continue;
                 }
-                if (Arrays.equals(agent.getPackingAddress(), addressBytes)) {
-                    result = true;
-                    break;
-                }
+                result = true;
+                break;
             }
             if (!result) {
                 //不接受非节点的投票
                 log.info("投票签名地址不是节点，丢弃：" + vote.getHeight() + "={},from:{}", vote.getBlockHash().toHex(), vote.getAddress(chain));
-                return;
+                return false;
             }
         }
 
@@ -101,20 +167,10 @@ public class VoteMsgProcessor extends BasicRunnable {
         if (!result) {
             //签名不正确
             log.info("签名不正确，丢弃：" + vote.getHeight() + "={},from:{}", vote.getBlockHash().toHex(), vote.getAddress(chain));
-            return;
-        }
-        //处理投票
-        this.controller.addVote(vote);
-
-        if (vote.getRoundStartTime() + chain.getConfig().getPackingInterval() * vote.getPackingIndexOfRound() < NulsDateUtils.getCurrentTimeSeconds() - 120) {
-            chain.getLogger().info("===========不再转发消息,当前队列：{}",chain.getConsensusCache().getVoteMessageQueue().size());
-            return;
+            return false;
         }
-
-        //广播收到的投票信息--异步
-//            chain.getLogger().info("===========向其他节点传递投票消息");
-        ConsensusNetUtil.broadcastInConsensusHalf(chain.getChainId(), CommandConstant.MESSAGE_VOTE, vote.getRawData(), vote.getSendNode());
-
+        chain.getConsensusCache().getPackingPubKeyMap().putIfAbsent(vote.getAddress(chain), signature.getPublicKey());
+        return true;
     }
 
 }
@@ -19,9 +19,11 @@ import network.nerve.pocbft.v1.entity.VoteSummaryData;
 import network.nerve.pocbft.v1.message.VoteMessage;
 import network.nerve.pocbft.v1.message.VoteResultMessage;
 import network.nerve.pocbft.v1.utils.HashSetDuplicateProcessor;
+import network.nerve.pocbft.v1.utils.SignerBitmapUtils;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -58,7 +60,7 @@ public class VoteResultProcessor extends BasicRunnable {
         if (null == resultMessage) {
             return;
         }
-        if (resultMessage.getSignList() == null || resultMessage.getSignList().isEmpty()) {
+        if (resultMessage.getSignCount() == 0) {
             return;
         }
 
@@ -71,26 +73,17 @@ public class VoteResultProcessor extends BasicRunnable {
         if (resultMessage.getVoteStage() != ConsensusConstant.VOTE_STAGE_TWO) {
             return;
         }
-        Set<String> set = new HashSet<>();
-
         MeetingRound round = this.roundController.getRound(resultMessage.getRoundIndex(), resultMessage.getRoundStartTime());
-        for (byte[] sign : resultMessage.getSignList()) {
-            BlockSignature signature = new BlockSignature();
-            signature.parse(sign, 0);
-            byte[] addressBytes = AddressTool.getAddress(signature.getPublicKey(), chain.getChainId());
-            String address = AddressTool.getStringAddressByBytes(addressBytes);
-            if (!round.getMemberAddressSet().contains(address)) {
-                log.info("==========地址不对=from:{}========", resultMessage.getNodeId());
-                return;
-            }
-            boolean result = signature.verifySignature(resultMessage.getHash()).isSuccess();
-            if (!result) {
-                log.info("==========签名不对=from:{}========", resultMessage.getNodeId());
-                return;
-            }
-            set.add(address);
+        int signerCount;
+        if (resultMessage.isCompact()) {
+            signerCount = verifyCompact(resultMessage, round);
+        } else {
+            signerCount = verifyFull(resultMessage, round);
         }
-        double rate = DoubleUtils.div(set.size(), round.getMemberCount()) * 100;
+        if (signerCount < 0) {
+            return;
+        }
+        double rate = DoubleUtils.div(signerCount, round.getMemberCount()) * 100;
         if (rate <= chain.getConfig().getByzantineRate()) {
             log.info("==========签名数量不足=={}%=from:{}========", rate, resultMessage.getNodeId());
             return;
@@ -101,6 +94,8 @@ public class VoteResultProcessor extends BasicRunnable {
             return;
         }
 
+        //从其他节点收到的完整编码结果也转换后再缓存，区块广播时转发的是缓存的结果
+        SignerBitmapUtils.compactForCache(chain, resultMessage, round);
         chain.getConsensusCache().cacheSignResult(resultMessage);
 
 
@@ -125,4 +120,46 @@ public class VoteResultProcessor extends BasicRunnable {
 
     }
 
+    /**
+     * 验证完整编码的签名列表
+     *
+     * @return 有效签名者数量，存在无效签名时返回-1
+     */
+    private int verifyFull(VoteResultMessage resultMessage, MeetingRound round) throws Exception {
+        Set<String> set = new HashSet<>();
+        for (byte[] sign : resultMessage.getSignList()) {
+            BlockSignature signature = new BlockSignature();
+            signature.parse(sign, 0);
+            byte[] addressBytes = AddressTool.getAddress(signature.getPublicKey(), chain.getChainId());
+            String address = AddressTool.getStringAddressByBytes(addressBytes);
+            if (!round.getMemberAddressSet().contains(address)) {
+                log.info("==========地址不对=from:{}========", resultMessage.getNodeId());
+                return -1;
+            }
+            boolean result = signature.verifySignature(resultMessage.getHash()).isSuccess();
+            if (!result) {
+                log.info("==========签名不对=from:{}========", resultMessage.getNodeId());
+                return -1;
+            }
+            set.add(address);
+            chain.getConsensusCache().getPackingPubKeyMap().putIfAbsent(address, signature.getPublicKey());
+        }
+        return set.size();
+    }
+
+    /**
+     * 按轮次成员位图批量验证紧凑编码的签名
+     *
+     * @return 有效签名者数量，存在无效签名时返回-1
+     */
+    private int verifyCompact(VoteResultMessage resultMessage, MeetingRound round) throws Exception {
+        List<Integer> signers = SignerBitmapUtils.verifyCompact(resultMessage, resultMessage.getHash().getBytes(), round.getMemberPackingAddressList(),
+                chain.getChainId(), chain.getConsensusCache().getPackingPubKeyMap());
+        if (null == signers) {
+            log.info("==========紧凑签名验证失败=from:{}========", resultMessage.getNodeId());
+            return -1;
+        }
+        return signers.size();
+    }
+
 }
@@ -51,7 +51,7 @@ public class HashSetDuplicateProcessor<T> {
      * @param t
      * @return 存在：false，不存在：true
      */
-    public boolean insertAndCheck(T t) {
+    public synchronized boolean insertAndCheck(T t) {
         boolean result = set1.add(t);
         if (!result) {
             return result;
@@ -68,16 +68,16 @@ public class HashSetDuplicateProcessor<T> {
         return result;
     }
 
-    public boolean check(T t) {
+    public synchronized boolean check(T t) {
         return !set1.contains(t);
     }
 
-    public void remove(T hash) {
+    public synchronized void remove(T hash) {
         set1.remove(hash);
         set2.remove(hash);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         set1.clear();
         set2.clear();
     }
@@ -0,0 +1,171 @@
+package network.nerve.pocbft.v1.utils;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.parse.SerializeUtils;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.round.MeetingRound;
+import network.nerve.pocbft.v1.message.VoteResultMessage;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 投票结果签名的紧凑编码：用轮次成员列表下标的位图代替每个签名中的公钥，签名只保留64字节的r、s
+ * Compact vote result signatures: signers are referenced by their index in the round member list
+ *
+ * @author Eva
+ */
+public class SignerBitmapUtils {
+
+    private static final int COMPONENT_LENGTH = 32;
+
+    /**
+     * 把完整签名列表转换为紧凑编码
+     *
+     * @param message        投票结果
+     * @param memberAddresses 轮次成员的打包地址，按轮次成员列表顺序
+     * @param chainId        链ID
+     * @return 有签名者不在成员列表中时返回false，消息保持原编码
+     */
+    public static boolean toCompact(VoteResultMessage message, List<byte[]> memberAddresses, int chainId) throws NulsException {
+        byte[][] signs = new byte[memberAddresses.size()][];
+        byte[] bitmap = new byte[(memberAddresses.size() + 7) / 8];
+        for (byte[] sign : message.getSignList()) {
+            BlockSignature signature = new BlockSignature();
+            signature.parse(sign, 0);
+            byte[] address = AddressTool.getAddress(signature.getPublicKey(), chainId);
+            int index = indexOf(memberAddresses, address);
+            if (index < 0) {
+                return false;
+            }
+            signs[index] = toRaw(signature.getSignData().getSignBytes());
+            bitmap[index / 8] |= (byte) (1 << (index % 8));
+        }
+        List<byte[]> rawSignList = new ArrayList<>();
+        for (byte[] sign : signs) {
+            if (sign != null) {
+                rawSignList.add(sign);
+            }
+        }
+        message.setCompactSigns(bitmap, rawSignList);
+        return true;
+    }
+
+    /**
+     * 缓存投票结果前按配置转换为紧凑编码
+     * 缓存的投票结果会随区块广播（SmallBlockMessage）转发给其他节点，本地汇总的和从其他节点收到的都需要转换
+     *
+     * @param chain   链信息
+     * @param message 已验证的投票结果
+     * @param round   投票结果所属轮次
+     */
+    public static void compactForCache(Chain chain, VoteResultMessage message, MeetingRound round) {
+        if (message.isCompact() || null == round || message.getHeight() < chain.getConfig().getCompactVoteResultHeight()) {
+            return;
+        }
+        try {
+            if (!toCompact(message, round.getMemberPackingAddressList(), chain.getChainId())) {
+                chain.getLogger().warn("投票结果中存在非轮次成员的签名，保持完整编码：{}", message.getBlockHash().toHex());
+            }
+        } catch (NulsException e) {
+            chain.getLogger().error(e);
+        }
+    }
+
+    /**
+     * 批量验证紧凑编码的签名
+     * 已知公钥的成员直接验证；未知公钥的成员通过签名恢复公钥，并与成员打包地址比对，恢复成功后缓存公钥
+     *
+     * @param message         投票结果
+     * @param digest          投票结果摘要
+     * @param memberAddresses 轮次成员的打包地址，按轮次成员列表顺序
+     * @param chainId         链ID
+     * @param pubKeyCache     打包地址到公钥的缓存
+     * @return 签名者下标列表，任一签名无效时返回null
+     */
+    public static List<Integer> verifyCompact(VoteResultMessage message, byte[] digest, List<byte[]> memberAddresses, int chainId, Map<String, byte[]> pubKeyCache) {
+        byte[] bitmap = message.getSignerBitmap();
+        List<byte[]> rawSignList = message.getRawSignList();
+        if (bitmap.length != (memberAddresses.size() + 7) / 8) {
+            return null;
+        }
+        List<Integer> signers = new ArrayList<>(rawSignList.size());
+        int signIndex = 0;
+        for (int i = 0; i < bitmap.length * 8; i++) {
+            if ((bitmap[i / 8] & (1 << (i % 8))) == 0) {
+                continue;
+            }
+            if (i >= memberAddresses.size() || signIndex >= rawSignList.size()) {
+                return null;
+            }
+            byte[] raw = rawSignList.get(signIndex++);
+            if (!verify(digest, raw, memberAddresses.get(i), chainId, pubKeyCache)) {
+                return null;
+            }
+            signers.add(i);
+        }
+        if (signIndex != rawSignList.size()) {
+            return null;
+        }
+        return signers;
+    }
+
+    private static boolean verify(byte[] digest, byte[] raw, byte[] address, int chainId, Map<String, byte[]> pubKeyCache) {
+        ECKey.ECDSASignature signature = fromRaw(raw);
+        String addressStr = AddressTool.getStringAddressByBytes(address);
+        byte[] pubKey = pubKeyCache.get(addressStr);
+        if (pubKey != null) {
+            return ECKey.verify(digest, signature, pubKey);
+        }
+        Sha256Hash hash = Sha256Hash.wrap(digest);
+        for (int recId = 0; recId < 4; recId++) {
+            ECKey key;
+            try {
+                key = ECKey.recoverFromSignature(recId, signature, hash, true);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (key == null) {
+                continue;
+            }
+            if (Arrays.equals(address, AddressTool.getAddress(key.getPubKey(), chainId))) {
+                pubKeyCache.put(addressStr, key.getPubKey());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * DER编码的签名转换为r、s各32字节
+     */
+    public static byte[] toRaw(byte[] derSign) {
+        ECKey.ECDSASignature signature = ECKey.ECDSASignature.decodeFromDER(derSign);
+        byte[] raw = new byte[VoteResultMessage.RAW_SIGN_LENGTH];
+        System.arraycopy(SerializeUtils.bigIntegerToBytes(signature.r, COMPONENT_LENGTH), 0, raw, 0, COMPONENT_LENGTH);
+        System.arraycopy(SerializeUtils.bigIntegerToBytes(signature.s, COMPONENT_LENGTH), 0, raw, COMPONENT_LENGTH, COMPONENT_LENGTH);
+        return raw;
+    }
+
+    public static ECKey.ECDSASignature fromRaw(byte[] raw) {
+        BigInteger r = new BigInteger(1, Arrays.copyOfRange(raw, 0, COMPONENT_LENGTH));
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(raw, COMPONENT_LENGTH, VoteResultMessage.RAW_SIGN_LENGTH));
+        return new ECKey.ECDSASignature(r, s);
+    }
+
+    private static int indexOf(List<byte[]> memberAddresses, byte[] address) {
+        for (int i = 0; i < memberAddresses.size(); i++) {
+            if (Arrays.equals(memberAddresses.get(i), address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
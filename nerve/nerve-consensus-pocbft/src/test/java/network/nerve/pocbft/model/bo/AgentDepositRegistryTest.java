@@ -0,0 +1,71 @@
+package network.nerve.pocbft.model.bo;
+
+import io.nuls.base.data.NulsHash;
+import junit.framework.TestCase;
+import network.nerve.pocbft.model.bo.tx.txdata.Deposit;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author tag
+ */
+public class AgentDepositRegistryTest extends TestCase {
+
+    @Test
+    public void testActiveDepositsMatchLinearScan() {
+        Random random = new Random(29);
+        List<Deposit> depositList = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Deposit deposit = new Deposit();
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            deposit.setTxHash(new NulsHash(hash));
+            deposit.setAddress(new byte[]{9, 0, 1, (byte) random.nextInt(20)});
+            deposit.setDeposit(BigInteger.valueOf(i));
+            deposit.setBlockHeight(random.nextInt(1000));
+            deposit.setTime(i);
+            if (random.nextBoolean()) {
+                deposit.setDelHeight(deposit.getBlockHeight() + 1 + random.nextInt(500));
+            }
+            depositList.add(deposit);
+        }
+        AgentDepositRegistry registry = new AgentDepositRegistry();
+        registry.resetDeposits(depositList);
+
+        //模拟退出与回滚
+        for (int i = 0; i < 200; i++) {
+            Deposit deposit = depositList.get(random.nextInt(depositList.size()));
+            registry.updateDeposit(deposit.getTxHash(), deposit.getDelHeight() == -1L ? deposit.getBlockHeight() + 10 : -1L);
+        }
+        Deposit removed = depositList.remove(0);
+        registry.removeDeposit(removed.getTxHash());
+        assertNull(registry.getDeposit(removed.getTxHash()));
+
+        for (long height = 0; height < 1600; height += 37) {
+            List<Deposit> expected = new ArrayList<>();
+            for (Deposit deposit : depositList) {
+                if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= height) {
+                    continue;
+                }
+                if (deposit.getBlockHeight() > height || deposit.getBlockHeight() < 0L) {
+                    continue;
+                }
+                expected.add(deposit);
+            }
+            List<Deposit> actual = registry.getActiveDeposits(height);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+        }
+
+        int byAddress = 0;
+        for (int i = 0; i < 20; i++) {
+            byAddress += registry.getDepositsByAddress(new byte[]{9, 0, 1, (byte) i}).size();
+        }
+        assertEquals(depositList.size(), byAddress);
+        assertEquals(depositList.size(), registry.getDepositCount());
+    }
+}
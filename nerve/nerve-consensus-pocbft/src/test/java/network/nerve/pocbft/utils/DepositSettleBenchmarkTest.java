@@ -0,0 +1,152 @@
+package network.nerve.pocbft.utils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.model.DoubleUtils;
+import junit.framework.TestCase;
+import network.nerve.pocbft.constant.ConsensusConstant;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.config.ChainConfig;
+import network.nerve.pocbft.model.bo.tx.txdata.Deposit;
+import network.nerve.pocbft.model.po.DepositPo;
+import network.nerve.pocbft.utils.enumeration.DepositTimeType;
+import network.nerve.pocbft.utils.enumeration.DepositType;
+import network.nerve.pocbft.utils.manager.DepositManager;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 共识奖励结算基准测试：DepositManager.getDepositByHeight 与逐条反序列化全部委托计算的结果一致
+ * 默认2000个委托账户，可通过 -Dsettle.bench.delegators=100000 放大并输出耗时
+ */
+public class DepositSettleBenchmarkTest extends TestCase {
+    private static final Integer BENCH_DELEGATORS = Integer.getInteger("settle.bench.delegators");
+    private static final int DELEGATOR_COUNT = BENCH_DELEGATORS == null ? 2000 : BENCH_DELEGATORS;
+    private static final int CHAIN_ID = 9;
+    private static final int ASSET_ID = 1;
+    private static final double LOCAL_ASSET_BASE = 2;
+    private static final String DATE = "19000";
+    private static final long START_HEIGHT = 4_990_000L;
+    private static final long END_HEIGHT = 5_000_000L;
+
+    @Test
+    public void testSettleMatchesFullScan() throws Exception {
+        Random random = new Random(30);
+        long lockEndTime = Integer.parseInt(DATE) * ConsensusConstant.ONE_DAY_SECONDS + ConsensusConstant.ONE_DAY_SECONDS + ConsensusConstant.ONE_DAY_SECONDS / 2;
+        int total = DELEGATOR_COUNT + DELEGATOR_COUNT / 4;
+        List<Deposit> depositList = new ArrayList<>(total);
+        List<byte[]> storedList = new ArrayList<>(total);
+        List<byte[]> addressList = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            Deposit deposit = new Deposit();
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            deposit.setTxHash(new NulsHash(hash));
+            //部分账户有多笔委托
+            if (addressList.isEmpty() || random.nextInt(4) != 0) {
+                byte[] pubKeyHash = new byte[20];
+                random.nextBytes(pubKeyHash);
+                addressList.add(AddressTool.getAddress(pubKeyHash, CHAIN_ID));
+                deposit.setAddress(addressList.get(addressList.size() - 1));
+            } else {
+                deposit.setAddress(addressList.get(random.nextInt(addressList.size())));
+            }
+            deposit.setAssetChainId(CHAIN_ID);
+            deposit.setAssetId(ASSET_ID);
+            deposit.setDeposit(BigInteger.valueOf(200000000000L + random.nextInt(1000000)));
+            //约十分之一为定期委托，部分已到期
+            if (random.nextInt(10) == 0) {
+                DepositTimeType timeType = DepositTimeType.values()[random.nextInt(DepositTimeType.values().length)];
+                deposit.setDepositType(DepositType.REGULAR.getCode());
+                deposit.setTimeType(timeType.getType());
+                deposit.setTime(lockEndTime - random.nextInt((int) timeType.getTime() * 2));
+            } else {
+                deposit.setDepositType(DepositType.CURRENT.getCode());
+                deposit.setTime(lockEndTime - random.nextInt(100000000));
+            }
+            //包含结算周期内新增的委托、结算高度之后才生效的委托
+            deposit.setBlockHeight(random.nextInt((int) END_HEIGHT + 20000));
+            //约五分之一的委托已退出，部分在结算高度之后退出
+            if (i >= DELEGATOR_COUNT) {
+                deposit.setDelHeight(deposit.getBlockHeight() + 1 + random.nextInt(40000));
+            }
+            depositList.add(deposit);
+            storedList.add(new DepositPo(deposit).serialize());
+        }
+        ChainConfig config = new ChainConfig();
+        config.setChainId(CHAIN_ID);
+        config.setAssetId(ASSET_ID);
+        config.setLocalAssertBase(LOCAL_ASSET_BASE);
+        config.setDepositAwardChangeHeight(0);
+        Chain chain = new Chain();
+        chain.setConfig(config);
+        //结算逐条打印委托明细，测试中只保留日志调用开销不输出
+        Logger logger = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger("settle_test");
+        logger.setLevel(Level.WARN);
+        logger.setAdditive(false);
+        chain.setLogger(new NulsLogger(logger));
+        chain.setDepositList(depositList);
+        DepositManager depositManager = new DepositManager();
+
+        //第一轮预热
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            Map<String, BigDecimal> expected = new HashMap<>();
+            BigDecimal expectedTotal = fullScan(chain, storedList, expected, lockEndTime);
+            long scanCost = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Map<String, BigDecimal> actual = new HashMap<>();
+            BigDecimal actualTotal = depositManager.getDepositByHeight(chain, START_HEIGHT, END_HEIGHT, actual, BigDecimal.ZERO, DATE);
+            long settleCost = System.nanoTime() - start;
+
+            assertEquals(expectedTotal, actualTotal);
+            assertEquals(expected, actual);
+            assertFalse(actual.isEmpty());
+            if (round == 1 && BENCH_DELEGATORS != null) {
+                System.out.println("deposits:" + total + ", full scan:" + scanCost / 1000000 + "ms, getDepositByHeight:" + settleCost / 1000000 + "ms");
+            }
+        }
+    }
+
+    /**
+     * 原实现：从存储反序列化全部委托，逐条过滤并计算权重
+     */
+    private BigDecimal fullScan(Chain chain, List<byte[]> storedList, Map<String, BigDecimal> depositMap, long lockEndTime) throws Exception {
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (byte[] bytes : storedList) {
+            DepositPo deposit = new DepositPo();
+            deposit.parse(bytes, 0);
+            if (deposit.getBlockHeight() > END_HEIGHT) {
+                continue;
+            }
+            if (deposit.getDelHeight() != -1 && deposit.getDelHeight() <= END_HEIGHT) {
+                continue;
+            }
+            if (deposit.getBlockHeight() > START_HEIGHT) {
+                continue;
+            }
+            double weightSqrt = LOCAL_ASSET_BASE;
+            if (deposit.getDepositType() == DepositType.REGULAR.getCode()) {
+                DepositTimeType depositTimeType = DepositTimeType.getValue(deposit.getTimeType());
+                if (depositTimeType != null && deposit.getTime() + depositTimeType.getTime() >= lockEndTime) {
+                    weightSqrt = weightSqrt * depositTimeType.getWeight();
+                }
+            }
+            BigDecimal realAmount = DoubleUtils.mul(new BigDecimal(deposit.getDeposit()), new BigDecimal(Math.sqrt(weightSqrt)).setScale(4, BigDecimal.ROUND_HALF_UP));
+            totalAmount = totalAmount.add(realAmount);
+            String address = AddressTool.getStringAddressByBytes(deposit.getAddress());
+            chain.getLogger().info(address + "-" + deposit.getAssetChainId() + "-" + deposit.getAssetId() + "-" + deposit.getDeposit() + "-real:" + realAmount + "-total:" + totalAmount);
+            depositMap.merge(address, realAmount, BigDecimal::add);
+        }
+        return totalAmount;
+    }
+}
@@ -0,0 +1,88 @@
+package network.nerve.pocbft.utils;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.NulsHash;
+import junit.framework.TestCase;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.po.AwardSettlePo;
+import network.nerve.pocbft.model.po.AwardSettleRecordPo;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地提前计算的结算明细只有在计算区块仍在本链上、结算日期一致时才使用
+ */
+public class SettleCheckpointTest extends TestCase {
+
+    private static final String DATE = "19000";
+
+    private static BlockHeader header(long height, String seed) {
+        BlockHeader header = new BlockHeader();
+        header.setHeight(height);
+        header.setHash(NulsHash.calcHash(seed.getBytes()));
+        return header;
+    }
+
+    private static Chain chain(BlockHeader... headers) {
+        Chain chain = new Chain();
+        List<BlockHeader> headerList = new ArrayList<>();
+        for (BlockHeader header : headers) {
+            headerList.add(header);
+        }
+        chain.setBlockHeaderList(headerList);
+        return chain;
+    }
+
+    private static AwardSettleRecordPo record() {
+        AwardSettlePo settlePo = new AwardSettlePo(100, 200, DATE);
+        settlePo.setSettled(true);
+        List<CoinTo> details = new ArrayList<>();
+        details.add(new CoinTo(new byte[23], 9, 1, BigInteger.TEN, 0));
+        settlePo.setSettleDetails(details);
+        AwardSettleRecordPo recordPo = new AwardSettleRecordPo();
+        recordPo.setLastestSettleResult(settlePo);
+        return recordPo;
+    }
+
+    @Test
+    public void testCheckpointValidation() {
+        BlockHeader checkpoint = header(250, "a");
+        AwardSettleRecordPo recordPo = record();
+        //旧数据没有检查点
+        assertFalse(ConsensusAwardUtil.isSettleCheckpointValid(chain(checkpoint), recordPo));
+
+        recordPo.setCheckpoint(checkpoint.getHeight(), checkpoint.getHash(), DATE);
+        assertTrue(ConsensusAwardUtil.isSettleCheckpointValid(chain(header(249, "p"), checkpoint, header(251, "n")), recordPo));
+        //计算区块已被回滚，同高度是另一个区块
+        assertFalse(ConsensusAwardUtil.isSettleCheckpointValid(chain(header(250, "b")), recordPo));
+        //计算区块不在本地缓存中，无法确认
+        assertFalse(ConsensusAwardUtil.isSettleCheckpointValid(chain(header(300, "c")), recordPo));
+        //使用了其他结算日期计算
+        recordPo.setCheckpoint(checkpoint.getHeight(), checkpoint.getHash(), "19001");
+        assertFalse(ConsensusAwardUtil.isSettleCheckpointValid(chain(checkpoint), recordPo));
+    }
+
+    @Test
+    public void testRecordCompatibleWithoutCheckpoint() throws Exception {
+        AwardSettleRecordPo recordPo = record();
+        AwardSettleRecordPo parsed = new AwardSettleRecordPo();
+        parsed.parse(recordPo.serialize(), 0);
+        assertNull(parsed.getCheckpointHash());
+        assertEquals(DATE, parsed.getLastestSettleResult().getDate());
+
+        NulsHash hash = NulsHash.calcHash("a".getBytes());
+        recordPo.setCheckpoint(250, hash, DATE);
+        byte[] bytes = recordPo.serialize();
+        assertEquals(recordPo.size(), bytes.length);
+        parsed = new AwardSettleRecordPo();
+        parsed.parse(bytes, 0);
+        assertEquals(250, parsed.getCheckpointHeight());
+        assertEquals(hash, parsed.getCheckpointHash());
+        assertEquals(DATE, parsed.getCheckpointDate());
+        assertEquals(1, parsed.getLastestSettleResult().getSettleDetails().size());
+    }
+}
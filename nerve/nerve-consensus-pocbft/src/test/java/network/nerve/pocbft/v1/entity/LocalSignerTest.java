@@ -0,0 +1,128 @@
+package network.nerve.pocbft.v1.entity;
+
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.crypto.Sha256Hash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.log.logback.LoggerBuilder;
+import junit.framework.TestCase;
+import network.nerve.pocbft.constant.ConsensusErrorCode;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.config.ChainConfig;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地签名器的加载、刷新、失效、锁定和轮换
+ */
+public class LocalSignerTest extends TestCase {
+
+    private static final String ADDRESS = "packingAddress";
+
+    private Chain chain;
+    private AtomicInteger loadCount;
+    private volatile ECKey accountKey;
+    private volatile boolean accountValid;
+    private LocalSigner signer;
+
+    @Override
+    protected void setUp() {
+        ChainConfig config = new ChainConfig();
+        config.setChainId(9);
+        chain = new Chain();
+        chain.setConfig(config);
+        chain.setLogger(LoggerBuilder.getLogger("signer_test"));
+        loadCount = new AtomicInteger();
+        accountKey = new ECKey();
+        accountValid = true;
+        //模拟账户模块，账户无效（密码错误、账户已删除）时抛出异常
+        signer = new LocalSigner(chain, address -> {
+            loadCount.incrementAndGet();
+            if (!accountValid) {
+                throw new NulsException(ConsensusErrorCode.ACCOUNT_VALID_ERROR);
+            }
+            return HexUtil.encode(accountKey.getPrivKeyBytes());
+        });
+    }
+
+    private static byte[] digest(int i) {
+        return Sha256Hash.hash(("digest" + i).getBytes());
+    }
+
+    private static void assertSignedBy(ECKey key, byte[] digest, BlockSignature signature) {
+        assertNotNull(signature);
+        assertTrue(Arrays.equals(key.getPubKey(), signature.getPublicKey()));
+        assertTrue(ECKey.verify(digest, signature.getSignData().getSignBytes(), key.getPubKey()));
+    }
+
+    @Test
+    public void testLoadOnceAndSign() {
+        for (int i = 0; i < 5; i++) {
+            assertSignedBy(accountKey, digest(i), signer.sign(ADDRESS, digest(i)));
+        }
+        assertEquals(1, loadCount.get());
+        assertTrue(signer.isLoaded(ADDRESS));
+        assertFalse(signer.isLoaded("otherAddress"));
+    }
+
+    @Test
+    public void testFailedLoadIsNotRetriedOnEverySign() {
+        accountValid = false;
+        for (int i = 0; i < 5; i++) {
+            assertNull(signer.sign(ADDRESS, digest(i)));
+        }
+        assertEquals(1, loadCount.get());
+        //出块验证账户成功后立即恢复本地签名
+        accountValid = true;
+        signer.refresh(ADDRESS, HexUtil.encode(accountKey.getPrivKeyBytes()));
+        assertSignedBy(accountKey, digest(0), signer.sign(ADDRESS, digest(0)));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testRefreshAndInvalidate() {
+        assertSignedBy(accountKey, digest(0), signer.sign(ADDRESS, digest(0)));
+        //相同私钥刷新不替换
+        signer.refresh(ADDRESS, HexUtil.encode(accountKey.getPrivKeyBytes()));
+        assertSignedBy(accountKey, digest(1), signer.sign(ADDRESS, digest(1)));
+
+        //账户私钥变化（例如导入新的打包账户）后使用新私钥
+        ECKey newKey = new ECKey();
+        signer.refresh(ADDRESS, HexUtil.encode(newKey.getPrivKeyBytes()));
+        assertSignedBy(newKey, digest(2), signer.sign(ADDRESS, digest(2)));
+
+        //修改密码或删除账户后出块验证失败，丢弃私钥且不立即重新加载
+        accountValid = false;
+        signer.invalidate(ADDRESS);
+        assertFalse(signer.isLoaded(ADDRESS));
+        assertNull(signer.sign(ADDRESS, digest(3)));
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testLockAndRotate() throws NulsException {
+        assertSignedBy(accountKey, digest(0), signer.sign(ADDRESS, digest(0)));
+        signer.lock();
+        assertNull(signer.sign(ADDRESS, digest(1)));
+        signer.refresh(ADDRESS, HexUtil.encode(accountKey.getPrivKeyBytes()));
+        assertNull(signer.sign(ADDRESS, digest(1)));
+        assertEquals(1, loadCount.get());
+
+        accountKey = new ECKey();
+        signer.rotate(ADDRESS);
+        assertEquals(2, loadCount.get());
+        assertSignedBy(accountKey, digest(2), signer.sign(ADDRESS, digest(2)));
+
+        accountValid = false;
+        try {
+            signer.rotate(null);
+            fail();
+        } catch (NulsException e) {
+            assertEquals(ConsensusErrorCode.ACCOUNT_VALID_ERROR, e.getErrorCode());
+        }
+        assertFalse(signer.isLoaded(ADDRESS));
+    }
+}
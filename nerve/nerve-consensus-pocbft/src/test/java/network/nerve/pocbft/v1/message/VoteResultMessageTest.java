@@ -1,14 +1,26 @@
 package network.nerve.pocbft.v1.message;
 
+import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.NulsHash;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import junit.framework.TestCase;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.config.ChainConfig;
+import network.nerve.pocbft.model.bo.round.MeetingMember;
+import network.nerve.pocbft.model.bo.round.MeetingRound;
+import network.nerve.pocbft.model.bo.tx.txdata.Agent;
+import network.nerve.pocbft.v1.utils.SignerBitmapUtils;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Eva
@@ -28,6 +40,119 @@ public class VoteResultMessageTest extends TestCase {
 
     }
 
+    @Test
+    public void testCompact() throws IOException, NulsException {
+        int chainId = 9;
+        List<ECKey> keys = new ArrayList<>();
+        List<byte[]> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ECKey key = new ECKey();
+            keys.add(key);
+            members.add(AddressTool.getAddress(key.getPubKey(), chainId));
+        }
+        List<VoteMessage> list = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (i == 3) {
+                continue;
+            }
+            VoteMessage message = new VoteMessage();
+            message.setRoundStartTime(1000000);
+            message.setVoteStage((byte) 2);
+            message.setPackingIndexOfRound(2);
+            message.setRoundIndex(234);
+            message.setHeight(1234);
+            message.setBlockHash(NulsHash.calcHash("aswdfasdf".getBytes()));
+            message.setVoteRoundIndex(1);
+            BlockSignature signature = new BlockSignature();
+            signature.setSignData(SignatureUtil.signDigest(message.getHash().getBytes(), keys.get(i)));
+            signature.setPublicKey(keys.get(i).getPubKey());
+            message.setSign(signature.serialize());
+            list.add(message);
+        }
+        VoteResultMessage message = new VoteResultMessage(null, list);
+        int fullSize = message.size();
+        assertTrue(SignerBitmapUtils.toCompact(message, members, chainId));
+        assertTrue(message.size() < fullSize);
+
+        VoteResultMessage msg = new VoteResultMessage();
+        msg.parse(message.serialize(), 0);
+        assertTrue(msg.isCompact());
+        assertEquals(2, msg.getVoteStage());
+        assertEquals(9, msg.getSignCount());
+        assertEquals(message.getHash(), msg.getHash());
+
+        Map<String, byte[]> pubKeyCache = new HashMap<>();
+        List<Integer> signers = SignerBitmapUtils.verifyCompact(msg, msg.getHash().getBytes(), members, chainId, pubKeyCache);
+        assertNotNull(signers);
+        assertEquals(9, signers.size());
+        assertFalse(signers.contains(3));
+        assertEquals(9, pubKeyCache.size());
+        //公钥已缓存时直接验证
+        assertNotNull(SignerBitmapUtils.verifyCompact(msg, msg.getHash().getBytes(), members, chainId, pubKeyCache));
+
+        //篡改签名后验证失败
+        msg.getRawSignList().get(0)[40] ^= 1;
+        assertNull(SignerBitmapUtils.verifyCompact(msg, msg.getHash().getBytes(), members, chainId, new HashMap<>()));
+    }
+
+    /**
+     * 从其他节点收到的完整编码结果在缓存前也转换为紧凑编码，区块广播中转发的是缓存的结果
+     */
+    @Test
+    public void testCompactForCache() throws IOException, NulsException {
+        int chainId = 9;
+        List<ECKey> keys = new ArrayList<>();
+        List<MeetingMember> memberList = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ECKey key = new ECKey();
+            keys.add(key);
+            Agent agent = new Agent();
+            agent.setPackingAddress(AddressTool.getAddress(key.getPubKey(), chainId));
+            MeetingMember member = new MeetingMember();
+            member.setAgent(agent);
+            memberList.add(member);
+        }
+        MeetingRound round = new MeetingRound();
+        round.setStartTime(1000000);
+        round.init(memberList);
+
+        List<VoteMessage> list = new ArrayList<>();
+        for (ECKey key : keys) {
+            VoteMessage message = new VoteMessage();
+            message.setRoundStartTime(1000000);
+            message.setVoteStage((byte) 2);
+            message.setRoundIndex(234);
+            message.setHeight(1234);
+            message.setBlockHash(NulsHash.calcHash("aswdfasdf".getBytes()));
+            BlockSignature signature = new BlockSignature();
+            signature.setSignData(SignatureUtil.signDigest(message.getHash().getBytes(), key));
+            signature.setPublicKey(key.getPubKey());
+            message.setSign(signature.serialize());
+            list.add(message);
+        }
+        Chain chain = new Chain();
+        chain.setConfig(new ChainConfig());
+        chain.getConfig().setChainId(chainId);
+
+        //未达到启用高度，保持完整编码
+        VoteResultMessage received = new VoteResultMessage();
+        received.parse(new VoteResultMessage(null, list).serialize(), 0);
+        chain.getConfig().setCompactVoteResultHeight(1235);
+        SignerBitmapUtils.compactForCache(chain, received, round);
+        assertFalse(received.isCompact());
+
+        chain.getConfig().setCompactVoteResultHeight(1234);
+        int fullSize = received.size();
+        SignerBitmapUtils.compactForCache(chain, received, round);
+        assertTrue(received.isCompact());
+        assertTrue(received.size() < fullSize);
+        VoteResultMessage forwarded = new VoteResultMessage();
+        forwarded.parse(received.serialize(), 0);
+        List<Integer> signers = SignerBitmapUtils.verifyCompact(forwarded, forwarded.getHash().getBytes(), round.getMemberPackingAddressList(), chainId, new HashMap<>());
+        assertNotNull(signers);
+        assertEquals(4, signers.size());
+    }
+
     private List<VoteMessage> getList() {
         List<VoteMessage> list = new ArrayList<VoteMessage>();
         VoteMessage message = new VoteMessage();
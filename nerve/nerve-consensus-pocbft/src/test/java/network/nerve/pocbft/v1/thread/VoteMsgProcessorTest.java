@@ -0,0 +1,144 @@
+package network.nerve.pocbft.v1.thread;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.base.signture.BlockSignature;
+import io.nuls.base.signture.SignatureUtil;
+import io.nuls.core.crypto.ECKey;
+import io.nuls.core.log.logback.LoggerBuilder;
+import junit.framework.TestCase;
+import network.nerve.pocbft.model.bo.Chain;
+import network.nerve.pocbft.model.bo.config.ChainConfig;
+import network.nerve.pocbft.v1.message.VoteMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 并行验证投票的结果和顺序与逐条验证一致，停止后处理线程能够退出
+ */
+public class VoteMsgProcessorTest extends TestCase {
+
+    private static final int CHAIN_ID = 9;
+    private static final long BEST_HEIGHT = 100;
+
+    private Chain createChain(List<ECKey> members) {
+        ChainConfig config = new ChainConfig();
+        config.setChainId(CHAIN_ID);
+        Chain chain = new Chain();
+        chain.setConfig(config);
+        chain.setLogger(LoggerBuilder.getLogger("vote_test"));
+        BlockHeader header = new BlockHeader();
+        header.setHeight(BEST_HEIGHT);
+        chain.setBestHeader(header);
+        for (ECKey key : members) {
+            chain.getSeedAddressList().add(AddressTool.getStringAddressByBytes(AddressTool.getAddress(key.getPubKey(), CHAIN_ID)));
+        }
+        return chain;
+    }
+
+    private VoteMessage vote(long height, int packingIndex, ECKey key, boolean tamper) throws Exception {
+        VoteMessage message = new VoteMessage();
+        message.setHeight(height);
+        message.setRoundIndex(10);
+        message.setPackingIndexOfRound(packingIndex);
+        message.setRoundStartTime(1000000);
+        message.setVoteRoundIndex(1);
+        message.setVoteStage((byte) 1);
+        message.setBlockHash(NulsHash.calcHash(("block" + height + packingIndex).getBytes()));
+        byte[] digest = tamper ? NulsHash.calcHash("other".getBytes()).getBytes() : message.getHash().getBytes();
+        BlockSignature signature = new BlockSignature();
+        signature.setSignData(SignatureUtil.signDigest(digest, key));
+        signature.setPublicKey(key.getPubKey());
+        message.setSign(signature.serialize());
+        message.setSendNode("node" + packingIndex);
+        return message;
+    }
+
+    private static VoteMessage copy(VoteMessage vote) throws Exception {
+        VoteMessage message = new VoteMessage();
+        message.parse(vote.serialize(), 0);
+        message.setSendNode(vote.getSendNode());
+        return message;
+    }
+
+    private static String result(VoteMessage vote) {
+        return null == vote ? null : vote.getMessageKey();
+    }
+
+    @Test
+    public void testPipelineMatchesSequential() throws Exception {
+        List<ECKey> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new ECKey());
+        }
+        ECKey outsider = new ECKey();
+        Random random = new Random(26);
+        //正常投票、篡改签名、非节点、过期高度、没有签名和重复投票混合
+        List<VoteMessage> votes = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            int kind = random.nextInt(10);
+            long height = BEST_HEIGHT + 1 + random.nextInt(5);
+            ECKey key = members.get(random.nextInt(members.size()));
+            VoteMessage vote;
+            if (kind == 0 && !votes.isEmpty()) {
+                vote = copy(votes.get(random.nextInt(votes.size())));
+            } else if (kind == 1) {
+                vote = vote(height, i, key, true);
+            } else if (kind == 2) {
+                vote = vote(height, i, outsider, false);
+            } else if (kind == 3) {
+                vote = vote(BEST_HEIGHT, i, key, false);
+            } else if (kind == 4) {
+                vote = vote(height, i, key, false);
+                vote.setSign(null);
+            } else {
+                vote = vote(height, i, key, false);
+            }
+            votes.add(vote);
+        }
+
+        //逐条验证
+        Chain sequentialChain = createChain(members);
+        VoteMsgProcessor sequential = new VoteMsgProcessor(sequentialChain);
+        List<String> expected = new ArrayList<>();
+        for (VoteMessage vote : votes) {
+            VoteMessage message = copy(vote);
+            BlockSignature signature = sequential.checkDuplicate(message);
+            expected.add(result(null == signature ? null : sequential.verify(message, signature)));
+        }
+        sequential.stop();
+
+        //并行验证，投票数超过验证线程池队列长度，由分发线程分担验证
+        Chain chain = createChain(members);
+        for (VoteMessage vote : votes) {
+            assertTrue(chain.getConsensusCache().getVoteMessageQueue().offer(copy(vote)));
+        }
+        VoteMsgProcessor processor = new VoteMsgProcessor(chain);
+        Thread thread = new Thread(processor);
+        thread.start();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < votes.size(); i++) {
+            Future<VoteMessage> future = chain.getConsensusCache().getVerifiedVoteQueue().poll(10, TimeUnit.SECONDS);
+            assertNotNull(future);
+            actual.add(result(future.get(10, TimeUnit.SECONDS)));
+        }
+        assertEquals(expected, actual);
+        int accepted = 0;
+        for (String key : expected) {
+            if (key != null) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted > 0 && accepted < votes.size());
+
+        processor.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+}
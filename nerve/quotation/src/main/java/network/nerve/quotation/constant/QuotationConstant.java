@@ -93,6 +93,15 @@ public interface QuotationConstant {
     int TIMEOUT_MILLIS = 5000;
 
     String BASIC_QUERIER_THREAD = "basicQuerierThread";
+    /** 缓存节点报价统计的(日期_token)数量 */
+    int QU_STATS_CACHE_SIZE = 1024;
+    /** 并发查询第三方价格的线程数 */
+    int BASIC_QUERIER_THREAD_COUNT = 16;
+    /** 单个查询器获取价格的最长等待时间(毫秒) */
+    long QUERIER_DEADLINE_MILLIS = 6000L;
+    /** 查询器连续失败达到该次数后熔断, 熔断持续时间(毫秒) */
+    int QUERIER_BREAKER_FAILURES = 3;
+    long QUERIER_BREAKER_OPEN_MILLIS = 60000L;
 
     /**
      * 协议升级的验证key
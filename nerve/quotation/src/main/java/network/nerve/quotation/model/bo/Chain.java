@@ -25,8 +25,11 @@
 package network.nerve.quotation.model.bo;
 
 import io.nuls.core.log.logback.NulsLogger;
+import network.nerve.quotation.constant.QuotationConstant;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author: Loki
@@ -46,6 +49,16 @@ public class Chain {
 
     private LatestBasicBlock latestBasicBlock = new LatestBasicBlock();
 
+    /**
+     * 节点报价统计缓存 key:日期_token, 访问时需对该对象加锁
+     */
+    private Map<String, TokenQuotationStats> quotationStatsMap = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenQuotationStats> eldest) {
+            return size() > QuotationConstant.QU_STATS_CACHE_SIZE;
+        }
+    };
+
     public int getChainId(){
         return configBean.getChainId();
     }
@@ -93,4 +106,8 @@ public class Chain {
     public LatestBasicBlock getLatestBasicBlock() {
         return latestBasicBlock;
     }
+
+    public Map<String, TokenQuotationStats> getQuotationStatsMap() {
+        return quotationStatsMap;
+    }
 }
@@ -0,0 +1,139 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package network.nerve.quotation.model.bo;
+
+import network.nerve.quotation.model.po.NodeQuotationPO;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 某一天某个token的节点报价统计, 随报价交易确认增量更新
+ * 与原先按报价列表计算的规则一致: 有多笔报价的节点的所有报价都不参与计算,
+ * 其余报价按价格排序后去掉头尾各n个再求平均值
+ * 价格按有序多重集合保存, 去头尾求和只需访问两端n个元素, 不需要每次重新排序
+ */
+public class TokenQuotationStats {
+
+    /**
+     * 所有报价数(包括重复报价节点的报价)
+     */
+    private int quotationCount;
+    /**
+     * 节点地址 -> 报价数
+     */
+    private final Map<String, Integer> addressCountMap = new HashMap<>();
+    /**
+     * 只有一笔报价的节点地址 -> 报价
+     */
+    private final Map<String, Double> singlePriceMap = new HashMap<>();
+    /**
+     * 有效报价的价格 -> 数量
+     */
+    private final TreeMap<Double, Integer> priceMap = new TreeMap<>();
+    /**
+     * 有效报价的价格总和
+     */
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public void add(NodeQuotationPO po) {
+        quotationCount++;
+        String address = po.getAddress();
+        int count = addressCountMap.merge(address, 1, Integer::sum);
+        if (count == 1) {
+            singlePriceMap.put(address, po.getPrice());
+            addPrice(po.getPrice());
+        } else if (count == 2) {
+            // 该节点出现重复报价, 之前的报价也不再有效
+            removePrice(singlePriceMap.remove(address));
+        }
+    }
+
+    private void addPrice(double price) {
+        priceMap.merge(price, 1, Integer::sum);
+        total = total.add(toDecimal(price));
+    }
+
+    private void removePrice(double price) {
+        priceMap.computeIfPresent(price, (k, v) -> v == 1 ? null : v - 1);
+        total = total.subtract(toDecimal(price));
+    }
+
+    private static BigDecimal toDecimal(double price) {
+        return new BigDecimal(String.valueOf(price));
+    }
+
+    public int getQuotationCount() {
+        return quotationCount;
+    }
+
+    /**
+     * 有效报价数
+     */
+    public int getEffectiveCount() {
+        return singlePriceMap.size();
+    }
+
+    /**
+     * 去掉头尾各removeCount个报价后剩余的报价数
+     */
+    public int getTrimmedCount(int removeCount) {
+        int size = getEffectiveCount();
+        if (removeCount <= 0) {
+            return size;
+        }
+        return size <= removeCount * 2 ? 0 : size - removeCount * 2;
+    }
+
+    /**
+     * 去掉头尾各removeCount个报价后剩余报价的价格总和
+     */
+    public BigDecimal getTrimmedTotal(int removeCount) {
+        if (getTrimmedCount(removeCount) == 0) {
+            return BigDecimal.ZERO;
+        }
+        if (removeCount <= 0) {
+            return total;
+        }
+        return total.subtract(edgeTotal(priceMap, removeCount)).subtract(edgeTotal(priceMap.descendingMap(), removeCount));
+    }
+
+    private static BigDecimal edgeTotal(Map<Double, Integer> sortedMap, int removeCount) {
+        BigDecimal sum = BigDecimal.ZERO;
+        int remain = removeCount;
+        for (Map.Entry<Double, Integer> entry : sortedMap.entrySet()) {
+            int n = Math.min(remain, entry.getValue());
+            sum = sum.add(toDecimal(entry.getKey()).multiply(BigDecimal.valueOf(n)));
+            remain -= n;
+            if (remain == 0) {
+                break;
+            }
+        }
+        return sum;
+    }
+}
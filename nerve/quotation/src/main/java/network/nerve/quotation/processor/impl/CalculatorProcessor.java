@@ -30,6 +30,7 @@ import io.nuls.core.log.logback.NulsLogger;
 import network.nerve.quotation.constant.QuotationConstant;
 import network.nerve.quotation.constant.QuotationContext;
 import network.nerve.quotation.model.bo.Chain;
+import network.nerve.quotation.model.bo.TokenQuotationStats;
 import network.nerve.quotation.model.po.ConfirmFinalQuotationPO;
 import network.nerve.quotation.model.po.NodeQuotationPO;
 import network.nerve.quotation.model.po.NodeQuotationWrapperPO;
@@ -40,7 +41,8 @@ import network.nerve.quotation.util.CommonUtil;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 import static network.nerve.quotation.constant.QuotationContext.INTRADAY_NEED_NOT_QUOTE_TOKENS;
 
@@ -62,25 +64,28 @@ public class CalculatorProcessor implements Calculator {
         try {
             chain.getLogger().info("[CalculatorProcessor] 开始统计({})网络最终报价", token);
             NulsLogger log = chain.getLogger();
-            //获取各节点报价交易数据
+            //获取各节点报价统计
             String dbKey = CommonUtil.assembleKey(date, token);
-            NodeQuotationWrapperPO nodeQuotationWrapper = quotationStorageService.getNodeQuotationsBykey(chain, dbKey);
-            if (null == nodeQuotationWrapper || null == nodeQuotationWrapper.getList() || nodeQuotationWrapper.getList().isEmpty()) {
-                log.warn("There is no node quote yet, key:{}, 无任何节点报价 ", dbKey);
-                return getLastFinalConfiremdPrice(chain, token);
+            int count;
+            BigDecimal total;
+            synchronized (chain.getQuotationStatsMap()) {
+                TokenQuotationStats stats = getQuotationStats(chain, dbKey);
+                if (null == stats || stats.getQuotationCount() == 0) {
+                    log.warn("There is no node quote yet, key:{}, 无任何节点报价 ", dbKey);
+                    return getLastFinalConfiremdPrice(chain, token);
+                }
+                log.info("{}当前报价数:{}", dbKey, stats.getQuotationCount());
+                //去除有多笔报价交易的节点的所有报价, 并去掉头尾各[removeMaxMinCount]个报价
+                count = stats.getTrimmedCount(QuotationContext.removeMaxMinCount);
+                total = stats.getTrimmedTotal(QuotationContext.removeMaxMinCount);
             }
-
-            List<NodeQuotationPO> list = nodeQuotationWrapper.getList();
-            log.info("{}当前报价数:{}", dbKey, list.size());
-            distinctNodeTx(chain, list);
-            list = removeMinMax(chain, list);
-            if (list.size() < QuotationContext.effectiveQuotation) {
-                log.warn("The current quoted quantity is less than the minimum. current-effective:{}", list.size());
+            if (count < QuotationContext.effectiveQuotation) {
+                log.warn("The current quoted quantity is less than the minimum. current-effective:{}", count);
                 //获取前一次报价, 作为当天的最终报价
                 return getLastFinalConfiremdPrice(chain, token);
             }
-            double finalPrice = avgCalc(list);
-            log.info("{}当前节基于{}个节点的报价，最终报价计算结果:{}", dbKey, list.size(), (new BigDecimal(Double.toString(finalPrice))).toPlainString());
+            double finalPrice = total.divide(new BigDecimal(String.valueOf(count)), QuotationConstant.SCALE, RoundingMode.HALF_DOWN).doubleValue();
+            log.info("{}当前节基于{}个节点的报价，最终报价计算结果:{}", dbKey, count, (new BigDecimal(Double.toString(finalPrice))).toPlainString());
             return finalPrice;
         } catch (Throwable e) {
             chain.getLogger().error("统计最终报价异常.. {}, {}", token, date);
@@ -90,100 +95,66 @@ public class CalculatorProcessor implements Calculator {
     }
 
     /**
-     * 获取最近一次已确认报价
-     * @param chain
-     * @param token
-     * @return
+     * 获取节点报价统计, 未缓存时根据已存储的节点报价重建
+     * 调用方需持有chain.getQuotationStatsMap()的锁
      */
-    public Double getLastFinalConfiremdPrice(Chain chain, String token){
-        ConfirmFinalQuotationPO cfrFinalQuotationPO = cfrFinalQuotationStorageService.getCfrFinalLastTimeQuotation(chain, token);
-        if(null == cfrFinalQuotationPO){
-            //记录该token当天无需再次计算
-            INTRADAY_NEED_NOT_QUOTE_TOKENS.add(token);
-            chain.getLogger().error("暂无该任何最终报价数据(包括历史报价), token:{}", token);
+    private TokenQuotationStats getQuotationStats(Chain chain, String dbKey) {
+        Map<String, TokenQuotationStats> statsMap = chain.getQuotationStatsMap();
+        TokenQuotationStats stats = statsMap.get(dbKey);
+        if (null != stats) {
+            return stats;
+        }
+        NodeQuotationWrapperPO nodeQuotationWrapper = quotationStorageService.getNodeQuotationsBykey(chain, dbKey);
+        if (null == nodeQuotationWrapper || null == nodeQuotationWrapper.getList()) {
             return null;
         }
-        chain.getLogger().warn("存(使用前一天报价): {} - {}", token, cfrFinalQuotationPO.getPrice());
-        return cfrFinalQuotationPO.getPrice();
+        stats = new TokenQuotationStats();
+        for (NodeQuotationPO po : nodeQuotationWrapper.getList()) {
+            stats.add(po);
+        }
+        statsMap.put(dbKey, stats);
+        return stats;
     }
 
-
     /**
-     * 去除 有多笔报价交易的节点的所有报价数据
-     *
-     * @param list
+     * 节点报价确认后更新已缓存的统计, 未缓存的在下次计算时从存储重建
+     * 调用方需在保存节点报价的同时持有chain.getQuotationStatsMap()的锁, 避免重建与增量重复计入
      */
-    private void distinctNodeTx(Chain chain, List<NodeQuotationPO> list) {
-        Set<String> addressSet = new HashSet<>();
-        Set<String> distinctAddress = new HashSet<>();
-        list.forEach(v -> {
-            if (!addressSet.add(v.getAddress())) {
-                distinctAddress.add(v.getAddress());
-            }
-        });
-        Iterator<NodeQuotationPO> it = list.iterator();
-        while (it.hasNext()) {
-            NodeQuotationPO nq = it.next();
-            for (String address : distinctAddress) {
-                if (address.equals(nq.getAddress())) {
-                    chain.getLogger().debug("CalculatorProcessor, 节点重复报价 address:{}, key:{}", address, nq.getToken());
-                    it.remove();
-                }
-            }
+    public void addNodeQuotations(Chain chain, String dbKey, List<NodeQuotationPO> list) {
+        TokenQuotationStats stats = chain.getQuotationStatsMap().get(dbKey);
+        if (null == stats) {
+            return;
+        }
+        for (NodeQuotationPO po : list) {
+            stats.add(po);
         }
     }
 
     /**
-     * 去掉[两个]最大值和两个最小值的数据
+     * 节点报价回滚后清除缓存的统计, 下次计算时从存储重建
      */
-    private List<NodeQuotationPO> removeMinMax(Chain chain, List<NodeQuotationPO> list) {
-        if (QuotationContext.removeMaxMinCount <= 0){
-            return list;
-        }
-        if (list.size() <= QuotationContext.removeMaxMinCount * 2) {
-            list.clear();
-            return list;
-        }
-        //排序
-        list.sort(new Comparator<NodeQuotationPO>() {
-            @Override
-            public int compare(NodeQuotationPO o1, NodeQuotationPO o2) {
-                if (o1.getPrice() < o2.getPrice()) {
-                    return -1;
-                } else if (o1.getPrice() > o2.getPrice()) {
-                    return 1;
-                } else {
-                    return 0;
-                }
-            }
-        });
-        List<NodeQuotationPO> rsList = new ArrayList<>();
-        //去掉头尾各两个元素
-        for (int i = QuotationContext.removeMaxMinCount; i < list.size() - QuotationContext.removeMaxMinCount; i++) {
-            rsList.add(list.get(i));
+    public void removeQuotationStats(Chain chain, String dbKey) {
+        synchronized (chain.getQuotationStatsMap()) {
+            chain.getQuotationStatsMap().remove(dbKey);
         }
-        return rsList;
     }
 
     /**
-     * 计算平均数
-     *
-     * @param list
+     * 获取最近一次已确认报价
+     * @param chain
+     * @param token
      * @return
      */
-    private double avgCalc(List<NodeQuotationPO> list) {
-        List<BigDecimal> prices = new ArrayList<>();
-        list.forEach(v -> {
-            BigDecimal price = new BigDecimal(String.valueOf(v.getPrice()));
-            prices.add(price);
-        });
-        BigDecimal total = new BigDecimal("0");
-        for (BigDecimal price : prices) {
-            total = total.add(price);
+    public Double getLastFinalConfiremdPrice(Chain chain, String token){
+        ConfirmFinalQuotationPO cfrFinalQuotationPO = cfrFinalQuotationStorageService.getCfrFinalLastTimeQuotation(chain, token);
+        if(null == cfrFinalQuotationPO){
+            //记录该token当天无需再次计算
+            INTRADAY_NEED_NOT_QUOTE_TOKENS.add(token);
+            chain.getLogger().error("暂无该任何最终报价数据(包括历史报价), token:{}", token);
+            return null;
         }
-        BigDecimal count = new BigDecimal(String.valueOf(list.size()));
-        BigDecimal avg = total.divide(count, QuotationConstant.SCALE, RoundingMode.HALF_DOWN);
-        return avg.doubleValue();
+        chain.getLogger().warn("存(使用前一天报价): {} - {}", token, cfrFinalQuotationPO.getPrice());
+        return cfrFinalQuotationPO.getPrice();
     }
 
 }
@@ -33,14 +33,14 @@ import network.nerve.quotation.model.bo.Chain;
 import network.nerve.quotation.model.bo.QuerierCfg;
 import network.nerve.quotation.processor.Collector;
 import network.nerve.quotation.rpc.querier.Querier;
+import network.nerve.quotation.util.QuerierBreaker;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * @author: Loki
@@ -49,8 +49,17 @@ import java.util.concurrent.Future;
 @Component
 public class CollectorProcessor implements Collector {
 
-    private ExecutorService basicQuerierExecutor = ThreadUtils.createThreadPool(Runtime.getRuntime().availableProcessors(),
+    /**
+     * 查询第三方价格是IO等待, 线程数不按CPU核数而按查询器并发数设置
+     */
+    private ExecutorService basicQuerierExecutor = ThreadUtils.createThreadPool(QuotationConstant.BASIC_QUERIER_THREAD_COUNT,
             50, new NulsThreadFactory(QuotationConstant.BASIC_QUERIER_THREAD));
+    /**
+     * 查询器名称_交易对 -> 熔断器
+     */
+    private Map<String, QuerierBreaker> breakerMap = new ConcurrentHashMap<>();
+    long querierDeadlineMillis = QuotationConstant.QUERIER_DEADLINE_MILLIS;
+    long breakerOpenMillis = QuotationConstant.QUERIER_BREAKER_OPEN_MILLIS;
 
     @Override
     public BigDecimal enquiry(Chain chain, String anchorToken) {
@@ -72,36 +81,73 @@ public class CollectorProcessor implements Collector {
             }
         }
         List<Future<EnquiryResult>> futures = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<QuerierBreaker> breakers = new ArrayList<>();
+        // 已处理查询结果的查询器数量, 其余查询器在结束时取消查询并释放熔断器的试探名额
+        int handled = 0;
         try {
-            // 异步处理
+            // 异步处理, 熔断中的查询器不参与本次查询
             for (QuerierCfg cfg : chain.getCollectors()) {
-                Future<EnquiryResult> res = basicQuerierExecutor.submit(() -> {
-                    Querier querier = getQuerier(cfg.getCollector());
-                    BigDecimal price = querier.tickerPrice(chain, cfg.getBaseurl(), anchorToken);
-                    EnquiryResult rs = new EnquiryResult(cfg.getName(), price, cfg.getWeight());
-                    return rs;
-                });
+                QuerierBreaker breaker = getBreaker(cfg.getName(), anchorToken);
+                if (!breaker.allowRequest(System.currentTimeMillis())) {
+                    chain.getLogger().warn("查询器熔断中, 跳过:{}", cfg.getName());
+                    continue;
+                }
+                Future<EnquiryResult> res;
+                try {
+                    res = basicQuerierExecutor.submit(() -> {
+                        Querier querier = getQuerier(cfg.getCollector());
+                        BigDecimal price = querier.tickerPrice(chain, cfg.getBaseurl(), anchorToken);
+                        EnquiryResult rs = new EnquiryResult(cfg.getName(), price, cfg.getWeight());
+                        return rs;
+                    });
+                } catch (RuntimeException e) {
+                    breaker.release();
+                    throw e;
+                }
                 futures.add(res);
+                names.add(cfg.getName());
+                breakers.add(breaker);
             }
 
             BigDecimal interim = new BigDecimal("0");
             BigDecimal weightTotal = new BigDecimal("0.0");
-            for (Future<EnquiryResult> future : futures) {
+            // 所有查询器同时开始, 各自最多等待到同一截止时间, 慢的查询器不拖慢整轮采集
+            long deadline = start + querierDeadlineMillis;
+            for (int i = 0; i < futures.size(); i++) {
+                Future<EnquiryResult> future = futures.get(i);
+                QuerierBreaker breaker = breakers.get(i);
+                handled = i + 1;
                 try {
-                    EnquiryResult enquiryResult = future.get();
+                    EnquiryResult enquiryResult = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
                     BigDecimal querierPrice = enquiryResult.price;
                     if (null == querierPrice || querierPrice.compareTo(BigDecimal.ZERO) <= 0) {
+                        breaker.recordFailure(System.currentTimeMillis());
                         continue;
                     }
                     BigDecimal querierWeight = new BigDecimal(enquiryResult.weight);
+                    breaker.recordSuccess();
                     interim = interim.add(querierPrice.multiply(querierWeight));
                     weightTotal = weightTotal.add(querierWeight);
                     chain.getLogger().debug("{}, {}, {}", enquiryResult.name, querierPrice, querierWeight);
-                } catch (InterruptedException e) {
+                } catch (TimeoutException e) {
+                    future.cancel(true);
+                    breaker.recordFailure(System.currentTimeMillis());
+                    chain.getLogger().warn("查询器超时, 取消本次查询, name:{}, anchorToken:{}", names.get(i), anchorToken);
                     continue;
+                } catch (InterruptedException e) {
+                    // 采集线程被中断(模块停止), 不计为查询器失败, 其余查询器在finally中取消
+                    future.cancel(true);
+                    breaker.release();
+                    Thread.currentThread().interrupt();
+                    chain.getLogger().warn("获取第三方价格被中断, anchorToken:{}", anchorToken);
+                    return null;
                 } catch (ExecutionException e) {
+                    breaker.recordFailure(System.currentTimeMillis());
                     continue;
                 }catch (Exception e) {
+                    breaker.recordFailure(System.currentTimeMillis());
+                    chain.getLogger().warn("查询器返回异常, name:{}, anchorToken:{}, {}", names.get(i), anchorToken, e.getMessage());
                     continue;
                 }
             }
@@ -116,9 +162,22 @@ public class CollectorProcessor implements Collector {
             chain.getLogger().error("获取token第三方价格失败, anchorToken:{}", anchorToken);
             chain.getLogger().error(e);
             return null;
+        } finally {
+            for (int i = handled; i < futures.size(); i++) {
+                futures.get(i).cancel(true);
+                breakers.get(i).release();
+            }
         }
     }
 
+    /**
+     * 按查询器和交易对分别熔断, 某个交易对在交易所下架不影响该交易所其他交易对的查询
+     */
+    private QuerierBreaker getBreaker(String name, String anchorToken) {
+        return breakerMap.computeIfAbsent(name + "_" + anchorToken, k -> new QuerierBreaker(QuotationConstant.QUERIER_BREAKER_FAILURES,
+                breakerOpenMillis));
+    }
+
     public Querier getQuerier(String clazz) throws Exception {
         Class<?> clasz = Class.forName(clazz);
         return (Querier) SpringLiteContext.getBean(clasz);
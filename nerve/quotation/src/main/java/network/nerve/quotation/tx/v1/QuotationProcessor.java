@@ -46,6 +46,7 @@ import network.nerve.quotation.model.po.NodeQuotationWrapperPO;
 import network.nerve.quotation.model.txdata.Price;
 import network.nerve.quotation.model.txdata.Prices;
 import network.nerve.quotation.model.txdata.Quotation;
+import network.nerve.quotation.processor.impl.CalculatorProcessor;
 import network.nerve.quotation.rpc.call.QuotationCall;
 import network.nerve.quotation.storage.QuotationStorageService;
 import network.nerve.quotation.util.CommonUtil;
@@ -66,6 +67,8 @@ public class QuotationProcessor implements TransactionProcessor {
     private ChainManager chainManager;
     @Autowired
     private QuotationStorageService quotationStorageService;
+    @Autowired
+    private CalculatorProcessor calculatorProcessor;
 
     @Override
     public int getType() {
@@ -165,13 +168,18 @@ public class QuotationProcessor implements TransactionProcessor {
             }
             for (Map.Entry<String, List<NodeQuotationPO>> entry : saveMap.entrySet()) {
                 String key = CommonUtil.assembleKey(keyPrefix, entry.getKey());
-                NodeQuotationWrapperPO nqWrapperPO = quotationStorageService.getNodeQuotationsBykey(chain, key);
-                if (null != nqWrapperPO && null != nqWrapperPO.getList() && !nqWrapperPO.getList().isEmpty()) {
-                    nqWrapperPO.getList().addAll(entry.getValue());
-                } else {
-                    nqWrapperPO = new NodeQuotationWrapperPO(entry.getValue());
+                NodeQuotationWrapperPO nqWrapperPO;
+                //保存节点报价与更新报价统计需同时完成
+                synchronized (chain.getQuotationStatsMap()) {
+                    nqWrapperPO = quotationStorageService.getNodeQuotationsBykey(chain, key);
+                    if (null != nqWrapperPO && null != nqWrapperPO.getList() && !nqWrapperPO.getList().isEmpty()) {
+                        nqWrapperPO.getList().addAll(entry.getValue());
+                    } else {
+                        nqWrapperPO = new NodeQuotationWrapperPO(entry.getValue());
+                    }
+                    quotationStorageService.saveNodeQuotation(chain, key, nqWrapperPO);
+                    calculatorProcessor.addNodeQuotations(chain, key, entry.getValue());
                 }
-                quotationStorageService.saveNodeQuotation(chain, key, nqWrapperPO);
                 for(NodeQuotationPO po : nqWrapperPO.getList()) {
                     chain.getLogger().info("[commit] 确认普通报价 General-quotation key:{}, dbKey:{}, price:{}, hash:{}",
                             entry.getKey(), key, (new BigDecimal(Double.toString(po.getPrice()))).toPlainString() , po.getTxHash());
@@ -243,7 +251,10 @@ public class QuotationProcessor implements TransactionProcessor {
                     }
                 }
                 if (rs) {
-                    quotationStorageService.saveNodeQuotation(chain, key, nodeQuotationWrapperPO);
+                    synchronized (chain.getQuotationStatsMap()) {
+                        quotationStorageService.saveNodeQuotation(chain, key, nodeQuotationWrapperPO);
+                        calculatorProcessor.removeQuotationStats(chain, key);
+                    }
                 }
                 NodeQuotationWrapperPO end = quotationStorageService.getNodeQuotationsBykey(chain, key);
                 LoggerUtil.LOG.debug("end -{}", key);
@@ -1,52 +1,81 @@
 package network.nerve.quotation.util;
 
 import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 import network.nerve.quotation.model.bo.Chain;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpStatus;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
-
-import java.io.IOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 
 import static network.nerve.quotation.constant.QuotationConstant.TIMEOUT_MILLIS;
 
 /**
+ * 所有查询器共用一个非阻塞http客户端, 客户端内部维护连接池并复用keep-alive连接,
+ * 避免每次请求都重新建立TCP/TLS连接
+ *
  * @author: Loki
  * @date: 2020/08/11
  */
 public class HttpRequestUtil {
 
-    public static Map<String, Object> httpRequest(Chain chain, String url) {
-        CloseableHttpClient httpClient = HttpClientBuilder.create().build();
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(TIMEOUT_MILLIS))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(Executors.newCachedThreadPool(new NulsThreadFactory("quotationHttpClient")))
+            .build();
 
-        HttpGet httpGet = new HttpGet(url);
-        RequestConfig requestConfig = RequestConfig.custom().setConnectionRequestTimeout(TIMEOUT_MILLIS)
-                .setSocketTimeout(TIMEOUT_MILLIS).setConnectTimeout(TIMEOUT_MILLIS).build();
-        httpGet.setConfig(requestConfig);
-        CloseableHttpResponse response = null;
+    public static Map<String, Object> httpRequest(Chain chain, String url) {
         try {
-            response = httpClient.execute(httpGet);
-            if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
-                HttpEntity entity = response.getEntity();
-                String dataStr = EntityUtils.toString(entity);
-                Map<String, Object> data = JSONUtils.jsonToMap(dataStr);
-                return data;
-            }
-            chain.getLogger().error("调用接口:{} 异常, StatusCode:{}", url, response.getStatusLine().getStatusCode());
+            return httpRequestAsync(chain, url).get();
+        } catch (InterruptedException e) {
+            // 查询器超过等待时间被取消, 请求本身由超时时间兜底结束
+            Thread.currentThread().interrupt();
+            chain.getLogger().error("调用接口:{} 被中断", url);
             return null;
-        } catch (IOException e) {
+        } catch (ExecutionException e) {
             chain.getLogger().error("调用接口:{} 异常, {}", url, e.getMessage());
             return null;
-        } catch (Exception e){
+        }
+    }
+
+    /**
+     * 异步请求, 返回解析后的json数据, 请求失败或状态码不是200时结果为null
+     */
+    public static CompletableFuture<Map<String, Object>> httpRequestAsync(Chain chain, String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofMillis(TIMEOUT_MILLIS))
+                    .GET()
+                    .build();
+        } catch (Exception e) {
             chain.getLogger().error("调用接口:{} 异常, {}", url, e.getMessage());
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
+        return HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        chain.getLogger().error("调用接口:{} 异常, {}", url, e.getMessage());
+                        return null;
+                    }
+                    if (response.statusCode() != 200) {
+                        chain.getLogger().error("调用接口:{} 异常, StatusCode:{}", url, response.statusCode());
+                        return null;
+                    }
+                    try {
+                        return JSONUtils.jsonToMap(response.body());
+                    } catch (Exception ex) {
+                        chain.getLogger().error("调用接口:{} 异常, {}", url, ex.getMessage());
+                        return null;
+                    }
+                });
     }
 
-}
\ No newline at end of file
+}
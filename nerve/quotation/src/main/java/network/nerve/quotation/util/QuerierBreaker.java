@@ -0,0 +1,84 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019-2020 nerve.network
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package network.nerve.quotation.util;
+
+/**
+ * 查询器熔断器
+ * 连续失败达到阈值后熔断, 熔断期间跳过该查询器; 熔断时间结束后只放行一次试探请求,
+ * 试探成功则恢复, 失败则重新熔断
+ */
+public class QuerierBreaker {
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+
+    public QuerierBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 是否允许本次查询
+     */
+    public synchronized boolean allowRequest(long now) {
+        if (failures < failureThreshold) {
+            return true;
+        }
+        if (now < openUntil || probing) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        failures = 0;
+        probing = false;
+    }
+
+    public synchronized void recordFailure(long now) {
+        failures++;
+        probing = false;
+        if (failures >= failureThreshold) {
+            openUntil = now + openMillis;
+        }
+    }
+
+    /**
+     * 本次查询没有结果(被取消或采集线程中断), 不计入成功或失败, 只释放试探名额
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized boolean isOpen(long now) {
+        return failures >= failureThreshold && now < openUntil;
+    }
+}
@@ -0,0 +1,248 @@
+package network.nerve.quotation.processor.impl;
+
+import io.nuls.core.log.logback.LoggerBuilder;
+import network.nerve.quotation.constant.QuotationConstant;
+import network.nerve.quotation.constant.QuotationContext;
+import network.nerve.quotation.model.bo.Chain;
+import network.nerve.quotation.model.po.ConfirmFinalQuotationPO;
+import network.nerve.quotation.model.po.NodeQuotationPO;
+import network.nerve.quotation.model.po.NodeQuotationWrapperPO;
+import network.nerve.quotation.storage.ConfirmFinalQuotationStorageService;
+import network.nerve.quotation.storage.QuotationStorageService;
+import network.nerve.quotation.util.CommonUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 增量报价统计与原按报价列表计算结果的对比测试, 以及计算耗时对比
+ */
+public class CalculatorProcessorTest {
+
+    /**
+     * 模拟数据库存储, 读取时反序列化
+     */
+    static class MemoryQuotationStorage implements QuotationStorageService {
+        Map<String, byte[]> db = new HashMap<>();
+
+        @Override
+        public boolean saveNodeQuotation(Chain chain, String key, NodeQuotationWrapperPO wrapper) {
+            try {
+                db.put(key, wrapper.serialize());
+                return true;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public NodeQuotationWrapperPO getNodeQuotationsBykey(Chain chain, String key) {
+            byte[] bytes = db.get(key);
+            if (null == bytes) {
+                return null;
+            }
+            try {
+                return CommonUtil.getInstance(bytes, NodeQuotationWrapperPO.class);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    static class EmptyCfrStorage implements ConfirmFinalQuotationStorageService {
+        public boolean saveCfrFinalQuotation(Chain chain, String key, ConfirmFinalQuotationPO po) {
+            return true;
+        }
+
+        public ConfirmFinalQuotationPO getCfrFinalQuotation(Chain chain, String key) {
+            return null;
+        }
+
+        public boolean deleteCfrFinalQuotationByKey(Chain chain, String key) {
+            return true;
+        }
+
+        public boolean saveCfrFinalLastQuotation(Chain chain, String key, ConfirmFinalQuotationPO po) {
+            return true;
+        }
+
+        public ConfirmFinalQuotationPO getCfrFinalLastTimeQuotation(Chain chain, String key) {
+            return null;
+        }
+
+        public boolean deleteCfrFinalLastTimeQuotationByKey(Chain chain, String key) {
+            return true;
+        }
+    }
+
+    private static final String DATE = "20201019";
+
+    private Chain chain;
+    private MemoryQuotationStorage storage;
+    private CalculatorProcessor processor;
+    private int removeMaxMinCount;
+    private int effectiveQuotation;
+
+    @Before
+    public void before() throws Exception {
+        chain = new Chain();
+        chain.setLogger(LoggerBuilder.getLogger("quotation_test"));
+        storage = new MemoryQuotationStorage();
+        processor = new CalculatorProcessor();
+        setField(processor, "quotationStorageService", storage);
+        setField(processor, "cfrFinalQuotationStorageService", new EmptyCfrStorage());
+        removeMaxMinCount = QuotationContext.removeMaxMinCount;
+        effectiveQuotation = QuotationContext.effectiveQuotation;
+    }
+
+    @After
+    public void after() {
+        QuotationContext.removeMaxMinCount = removeMaxMinCount;
+        QuotationContext.effectiveQuotation = effectiveQuotation;
+    }
+
+    private static void setField(Object obj, String name, Object value) throws Exception {
+        Field field = obj.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(obj, value);
+    }
+
+    /**
+     * 原实现: 每次从存储读取全部报价, 去重后排序去头尾再求平均值
+     */
+    private Double referenceCalc(String token) {
+        NodeQuotationWrapperPO wrapper = storage.getNodeQuotationsBykey(chain, CommonUtil.assembleKey(DATE, token));
+        if (null == wrapper || null == wrapper.getList() || wrapper.getList().isEmpty()) {
+            return null;
+        }
+        List<NodeQuotationPO> list = wrapper.getList();
+        Set<String> addressSet = new HashSet<>();
+        Set<String> distinctAddress = new HashSet<>();
+        list.forEach(v -> {
+            if (!addressSet.add(v.getAddress())) {
+                distinctAddress.add(v.getAddress());
+            }
+        });
+        list.removeIf(v -> distinctAddress.contains(v.getAddress()));
+        int removeCount = QuotationContext.removeMaxMinCount;
+        if (removeCount > 0) {
+            if (list.size() <= removeCount * 2) {
+                list.clear();
+            } else {
+                list.sort((o1, o2) -> Double.compare(o1.getPrice(), o2.getPrice()) == 0 ? 0 : (o1.getPrice() < o2.getPrice() ? -1 : 1));
+                list = new ArrayList<>(list.subList(removeCount, list.size() - removeCount));
+            }
+        }
+        // 有效报价数为0时原实现除零异常, 同样返回null
+        if (list.size() < QuotationContext.effectiveQuotation || list.isEmpty()) {
+            return null;
+        }
+        BigDecimal total = new BigDecimal("0");
+        for (NodeQuotationPO po : list) {
+            total = total.add(new BigDecimal(String.valueOf(po.getPrice())));
+        }
+        return total.divide(new BigDecimal(String.valueOf(list.size())), QuotationConstant.SCALE, RoundingMode.HALF_DOWN).doubleValue();
+    }
+
+    private NodeQuotationPO quotation(String token, String address, double price, int seq) {
+        NodeQuotationPO po = new NodeQuotationPO();
+        po.setTxHash(String.format("%064x", seq));
+        po.setToken(token);
+        po.setAddress(address);
+        po.setPrice(price);
+        po.setBlockTime(seq);
+        return po;
+    }
+
+    /**
+     * 与QuotationProcessor.commit相同的保存方式
+     */
+    private void commit(String token, List<NodeQuotationPO> list) {
+        String key = CommonUtil.assembleKey(DATE, token);
+        synchronized (chain.getQuotationStatsMap()) {
+            NodeQuotationWrapperPO wrapper = storage.getNodeQuotationsBykey(chain, key);
+            if (null != wrapper && null != wrapper.getList() && !wrapper.getList().isEmpty()) {
+                wrapper.getList().addAll(list);
+            } else {
+                wrapper = new NodeQuotationWrapperPO(new ArrayList<>(list));
+            }
+            storage.saveNodeQuotation(chain, key, wrapper);
+            processor.addNodeQuotations(chain, key, list);
+        }
+    }
+
+    @Test
+    public void differential() {
+        Random random = new Random(46);
+        int seq = 0;
+        for (int round = 0; round < 300; round++) {
+            QuotationContext.removeMaxMinCount = random.nextInt(4);
+            QuotationContext.effectiveQuotation = random.nextInt(6);
+            String token = "T" + round + "-USDT";
+            int nodes = 1 + random.nextInt(30);
+            // 少量价格档位制造相同价格, 少量地址制造重复报价
+            double[] levels = new double[1 + random.nextInt(8)];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = Math.round(random.nextDouble() * 1e8) / 1e6;
+            }
+            int commits = 1 + random.nextInt(5);
+            for (int c = 0; c < commits; c++) {
+                List<NodeQuotationPO> block = new ArrayList<>();
+                int count = random.nextInt(nodes) + 1;
+                for (int i = 0; i < count; i++) {
+                    block.add(quotation(token, "addr" + random.nextInt(nodes * 2), levels[random.nextInt(levels.length)], seq++));
+                }
+                commit(token, block);
+                // 每次提交后都与原实现对比, 包括首次从存储重建和后续增量更新
+                assertEquals(referenceCalc(token), processor.calcFinal(chain, token, DATE));
+            }
+            // 清除缓存后从存储重建的结果也一致
+            processor.removeQuotationStats(chain, CommonUtil.assembleKey(DATE, token));
+            assertEquals(referenceCalc(token), processor.calcFinal(chain, token, DATE));
+        }
+        assertNull(processor.calcFinal(chain, "NONE-USDT", DATE));
+    }
+
+    @Test
+    public void benchmark() {
+        QuotationContext.removeMaxMinCount = 2;
+        QuotationContext.effectiveQuotation = 5;
+        int tokens = 300;
+        int validators = 200;
+        Random random = new Random(1);
+        int seq = 0;
+        for (int t = 0; t < tokens; t++) {
+            List<NodeQuotationPO> list = new ArrayList<>();
+            for (int v = 0; v < validators; v++) {
+                list.add(quotation("T" + t, "addr" + v, 1 + random.nextInt(1000000) / 1e6, seq++));
+            }
+            commit("T" + t, list);
+        }
+        for (int t = 0; t < tokens; t++) {
+            processor.calcFinal(chain, "T" + t, DATE);
+        }
+        int cycles = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            for (int t = 0; t < tokens; t++) {
+                assertNotNull(referenceCalc("T" + t));
+            }
+        }
+        long listCost = (System.nanoTime() - start) / cycles / 1000000;
+        start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            for (int t = 0; t < tokens; t++) {
+                assertNotNull(processor.calcFinal(chain, "T" + t, DATE));
+            }
+        }
+        long statsCost = (System.nanoTime() - start) / cycles / 1000000;
+        System.out.println(tokens + "个token, " + validators + "个节点, 每轮计算耗时(ms) 按列表:" + listCost + ", 增量统计:" + statsCost);
+    }
+}
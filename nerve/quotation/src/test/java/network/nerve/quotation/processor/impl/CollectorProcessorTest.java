@@ -0,0 +1,173 @@
+package network.nerve.quotation.processor.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.log.logback.LoggerBuilder;
+import network.nerve.quotation.model.bo.Chain;
+import network.nerve.quotation.model.bo.QuerierCfg;
+import network.nerve.quotation.rpc.querier.Querier;
+import network.nerve.quotation.util.HttpRequestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用本地http桩模拟慢速和异常的交易所, 检查采集耗时、连接数和熔断
+ */
+public class CollectorProcessorTest {
+
+    /**
+     * 通过baseurl参数控制桩服务的延迟和返回, 模拟不同交易所
+     */
+    public static class StubQuerier implements Querier {
+        @Override
+        public BigDecimal tickerPrice(Chain chain, String baseurl, String anchorToken) {
+            Map<String, Object> data = HttpRequestUtil.httpRequest(chain, baseurl + "&symbol=" + anchorToken);
+            if (null == data) {
+                return null;
+            }
+            return new BigDecimal((String) data.get("price"));
+        }
+    }
+
+    private HttpServer server;
+    private String base;
+    private Chain chain;
+    private CollectorProcessor processor;
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @Before
+    public void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ticker", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort() + "/ticker";
+
+        chain = new Chain();
+        chain.setLogger(LoggerBuilder.getLogger("quotation_test"));
+        SpringLiteContext.putBean("stubQuerier", new StubQuerier());
+        processor = new CollectorProcessor();
+        processor.querierDeadlineMillis = 500;
+        // 预热http客户端, 避免首次类加载耗时计入截止时间
+        HttpRequestUtil.httpRequest(chain, base + "?name=warmup&price=1");
+    }
+
+    @After
+    public void after() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            connections.add(exchange.getRemoteAddress().toString());
+            Map<String, String> params = new HashMap<>();
+            for (String kv : exchange.getRequestURI().getQuery().split("&")) {
+                String[] arr = kv.split("=");
+                params.put(arr[0], arr[1]);
+            }
+            hits.computeIfAbsent(params.get("name"), k -> new AtomicInteger()).incrementAndGet();
+            long delay = Long.parseLong(params.getOrDefault("delay", "0"));
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            int status = Integer.parseInt(params.getOrDefault("status", "200"));
+            byte[] body = ("{\"price\":\"" + params.getOrDefault("price", "0") + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (Exception e) {
+            exchange.close();
+        }
+    }
+
+    private QuerierCfg cfg(String name, String query) {
+        QuerierCfg cfg = new QuerierCfg();
+        cfg.setName(name);
+        cfg.setBaseurl(base + "?name=" + name + "&" + query);
+        cfg.setCollector(StubQuerier.class.getName());
+        cfg.setWeight("1");
+        return cfg;
+    }
+
+    @Test
+    public void connectionReuse() {
+        for (int i = 0; i < 50; i++) {
+            Map<String, Object> data = HttpRequestUtil.httpRequest(chain, base + "?name=reuse&price=1.5");
+            assertEquals("1.5", data.get("price"));
+        }
+        System.out.println("50次顺序请求, 建立连接数:" + connections.size());
+        assertTrue(connections.size() <= 2);
+    }
+
+    @Test
+    public void slowAndFailingQueriers() {
+        chain.setCollectors(Arrays.asList(
+                cfg("fast1", "price=10"),
+                cfg("fast2", "delay=50&price=20"),
+                cfg("slow", "delay=3000&price=1000"),
+                cfg("fail", "status=500")));
+        List<Long> costs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            long start = System.currentTimeMillis();
+            BigDecimal price = processor.enquiry(chain, "NVT-USDT");
+            costs.add(System.currentTimeMillis() - start);
+            // 慢速和异常交易所不参与加权
+            assertEquals(0, new BigDecimal("15").compareTo(price));
+        }
+        System.out.println("每轮采集耗时(ms):" + costs + ", 建立连接数:" + connections.size() + ", 请求次数:" + hits);
+        for (long cost : costs) {
+            assertTrue(cost < 1500);
+        }
+        // 连续失败3次后熔断, 熔断期间不再请求
+        assertEquals(3, hits.get("fail").get());
+        assertEquals(3, hits.get("slow").get());
+        assertEquals(5, hits.get("fast1").get());
+    }
+
+    @Test
+    public void probeReleasedOnEveryFailure() throws Exception {
+        processor.breakerOpenMillis = 100;
+        QuerierCfg badWeight = cfg("badWeight", "price=30");
+        badWeight.setWeight("x");
+        chain.setCollectors(Arrays.asList(
+                cfg("fast1", "price=10"),
+                badWeight,
+                cfg("fail", "status=500")));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, new BigDecimal("10").compareTo(processor.enquiry(chain, "NVT-USDT")));
+        }
+        assertEquals(3, hits.get("badWeight").get());
+        assertEquals(3, hits.get("fail").get());
+
+        // 熔断结束后的试探请求被中断, 不能一直占用试探名额
+        Thread.sleep(150);
+        Thread.currentThread().interrupt();
+        assertNull(processor.enquiry(chain, "NVT-USDT"));
+        assertTrue(Thread.interrupted());
+
+        // 试探请求因返回数据异常失败后重新熔断, 熔断结束后可以再次试探
+        for (int i = 0; i < 2; i++) {
+            Thread.sleep(150);
+            int badWeightHits = hits.get("badWeight").get();
+            int failHits = hits.get("fail").get();
+            assertEquals(0, new BigDecimal("10").compareTo(processor.enquiry(chain, "NVT-USDT")));
+            assertEquals(badWeightHits + 1, hits.get("badWeight").get());
+            assertEquals(failHits + 1, hits.get("fail").get());
+        }
+    }
+}